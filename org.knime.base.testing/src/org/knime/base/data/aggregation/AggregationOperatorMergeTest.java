@@ -0,0 +1,320 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.data.aggregation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.base.data.aggregation.general.CountOperator;
+import org.knime.base.data.aggregation.general.FirstOperator;
+import org.knime.base.data.aggregation.general.LastOperator;
+import org.knime.base.data.aggregation.general.MaxOperator;
+import org.knime.base.data.aggregation.general.MinOperator;
+import org.knime.base.data.aggregation.general.MissingValueCountOperator;
+import org.knime.base.data.aggregation.numerical.MeanOperator;
+import org.knime.base.data.aggregation.numerical.SumOperator;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DataValue;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+
+/**
+ * Tests that merging the partial results of {@link AggregationOperator}s computed on consecutive row ranges gives
+ * the same result as a single pass over all rows.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class AggregationOperatorMergeTest {
+
+    private static final GlobalSettings SETTINGS = GlobalSettings.DEFAULT;
+
+    private static final OperatorColumnSettings INCL = OperatorColumnSettings.DEFAULT_INCL_MISSING;
+
+    private static final OperatorColumnSettings EXCL = OperatorColumnSettings.DEFAULT_EXCL_MISSING;
+
+    /** Operators on an int column, including missing cells. */
+    @Test
+    public void testIntColumn() {
+        final DataColumnSpec spec = new DataColumnSpecCreator("Int", IntCell.TYPE).createSpec();
+        final Random r = new Random(1);
+        for (int run = 0; run < 20; run++) {
+            final List<DataCell> cells = new ArrayList<>();
+            final int size = r.nextInt(40);
+            for (int i = 0; i < size; i++) {
+                //small range to get ties
+                cells.add(r.nextInt(5) == 0 ? DataType.getMissingCell() : new IntCell(r.nextInt(10) - 5));
+            }
+            assertMergeForAll(spec, cells, r);
+        }
+    }
+
+    /** Operators on a double column, including missing cells. */
+    @Test
+    public void testDoubleColumn() {
+        final DataColumnSpec spec = new DataColumnSpecCreator("Double", DoubleCell.TYPE).createSpec();
+        final Random r = new Random(2);
+        for (int run = 0; run < 20; run++) {
+            final List<DataCell> cells = new ArrayList<>();
+            final int size = r.nextInt(40);
+            for (int i = 0; i < size; i++) {
+                cells.add(r.nextInt(5) == 0 ? DataType.getMissingCell() : new DoubleCell(r.nextInt(20) / 4.0));
+            }
+            assertMergeForAll(spec, cells, r);
+        }
+    }
+
+    /** Columns with missing cells only. */
+    @Test
+    public void testMissingOnly() {
+        final DataColumnSpec spec = new DataColumnSpecCreator("Double", DoubleCell.TYPE).createSpec();
+        final List<DataCell> cells = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            cells.add(DataType.getMissingCell());
+        }
+        assertMergeForAll(spec, cells, new Random(3));
+    }
+
+    /** The sum of an int and a long column exceeds the limit, which skips the column after merging as well. */
+    @Test
+    public void testSumOverflow() {
+        final Random r = new Random(4);
+        final DataColumnSpec intSpec = new DataColumnSpecCreator("Int", IntCell.TYPE).createSpec();
+        final List<DataCell> ints = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ints.add(new IntCell(Integer.MAX_VALUE / 4));
+        }
+        final DataColumnSpec longSpec = new DataColumnSpecCreator("Long", LongCell.TYPE).createSpec();
+        final List<DataCell> longs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            longs.add(new LongCell(Long.MAX_VALUE / 4));
+        }
+        for (int split = 0; split <= 10; split++) {
+            assertMerge(new SumOperator(SETTINGS, EXCL), intSpec, EXCL, ints, new int[]{split});
+            assertMerge(new SumOperator(SETTINGS, EXCL), longSpec, EXCL, longs, new int[]{split});
+        }
+        assertThat("Sum expected to be skipped",
+            compute(new SumOperator(SETTINGS, EXCL), intSpec, EXCL, ints).isSkipped(), is(true));
+    }
+
+    /** A partial result that is skipped skips the merged result, also when only the merged state exceeds a limit. */
+    @Test
+    public void testSkipped() {
+        final DataColumnSpec spec = new DataColumnSpecCreator("Int", IntCell.TYPE).createSpec();
+        final List<DataCell> cells = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            cells.add(i % 4 == 0 ? DataType.getMissingCell() : new IntCell(i));
+        }
+        for (int first = 0; first <= cells.size(); first++) {
+            for (int second = first; second <= cells.size(); second++) {
+                assertMerge(new CappedCountOperator(5), spec, EXCL, cells, new int[]{first, second});
+                assertMerge(new CappedCountOperator(5), spec, INCL, cells, new int[]{first, second});
+            }
+        }
+    }
+
+    private static void assertMergeForAll(final DataColumnSpec spec, final List<DataCell> cells, final Random r) {
+        final List<AggregationOperator> templates = new ArrayList<>();
+        templates.add(new SumOperator(SETTINGS, EXCL));
+        templates.add(new MeanOperator(SETTINGS, EXCL));
+        templates.add(new CountOperator(SETTINGS, EXCL));
+        templates.add(new MissingValueCountOperator(SETTINGS, INCL));
+        templates.add(new MinOperator(SETTINGS, EXCL));
+        templates.add(new MaxOperator(SETTINGS, EXCL));
+        templates.add(new FirstOperator(SETTINGS, EXCL));
+        templates.add(new LastOperator(SETTINGS, EXCL));
+        for (AggregationOperator template : templates) {
+            assertThat("Operator expected to support merging: " + template.getLabel(),
+                template.createOperator(SETTINGS, new OperatorColumnSettings(false, spec)).supportsMerge(), is(true));
+            for (OperatorColumnSettings missing : new OperatorColumnSettings[]{INCL, EXCL}) {
+                final int size = cells.size();
+                //empty first and last range
+                assertMerge(template, spec, missing, cells, new int[]{0});
+                assertMerge(template, spec, missing, cells, new int[]{size});
+                //random splits into two and three ranges
+                for (int i = 0; i < 5; i++) {
+                    assertMerge(template, spec, missing, cells, new int[]{r.nextInt(size + 1)});
+                    final int a = r.nextInt(size + 1);
+                    final int b = r.nextInt(size + 1);
+                    assertMerge(template, spec, missing, cells, new int[]{Math.min(a, b), Math.max(a, b)});
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the operator on the row ranges delimited by the given split positions, merges the partial results in
+     * row order and compares them with a single pass.
+     */
+    private static void assertMerge(final AggregationMethod template, final DataColumnSpec spec,
+        final OperatorColumnSettings missing, final List<DataCell> cells, final int[] splits) {
+        final String msg = template.getLabel() + " (missing: " + missing.inclMissingCells() + ", splits: "
+            + Arrays.toString(splits) + ", cells: " + cells + ")";
+        final AggregationOperator expected = compute(template, spec, missing, cells);
+
+        AggregationOperator merged = null;
+        int from = 0;
+        for (int i = 0; i <= splits.length; i++) {
+            final int to = i < splits.length ? splits[i] : cells.size();
+            final AggregationOperator partial = compute(template, spec, missing, cells.subList(from, to));
+            if (merged == null) {
+                merged = partial;
+            } else {
+                merged.merge(partial);
+            }
+            from = to;
+        }
+        assertThat("Unexpected missing value count, " + msg, merged.getMissingValuesCount(),
+            is(expected.getMissingValuesCount()));
+        final DataCell expectedResult = expected.getResult();
+        final DataCell result = merged.getResult();
+        if (!expectedResult.isMissing() && !result.isMissing() && expectedResult.getType().equals(DoubleCell.TYPE)) {
+            //partial sums are added in a different order
+            assertThat("Unexpected result, " + msg + ": " + result,
+                Math.abs(((DoubleValue)expectedResult).getDoubleValue() - ((DoubleValue)result).getDoubleValue())
+                    < 1e-9, is(true));
+        } else {
+            assertThat("Unexpected result, " + msg, result, is(expectedResult));
+        }
+        assertThat("Unexpected skipped state, " + msg, merged.isSkipped(), is(expected.isSkipped()));
+        assertThat("Unexpected skip message, " + msg, merged.getSkipMessage(), is(expected.getSkipMessage()));
+    }
+
+    private static AggregationOperator compute(final AggregationMethod template, final DataColumnSpec spec,
+        final OperatorColumnSettings missing, final List<DataCell> cells) {
+        final AggregationOperator operator =
+            template.createOperator(SETTINGS, new OperatorColumnSettings(missing.inclMissingCells(), spec));
+        int index = 0;
+        for (DataCell cell : cells) {
+            final DataRow row = new DefaultRow(RowKey.createRowKey((long)index++), cell);
+            operator.compute(row, 0);
+        }
+        return operator;
+    }
+
+    /** Counts the cells and skips the column if there are more than a given number. */
+    private static final class CappedCountOperator extends AggregationOperator {
+
+        private final int m_max;
+
+        private int m_count;
+
+        CappedCountOperator(final int max) {
+            this(max, SETTINGS, EXCL);
+        }
+
+        private CappedCountOperator(final int max, final GlobalSettings globalSettings,
+            final OperatorColumnSettings opColSettings) {
+            super(new OperatorData("Capped count", false, false, DataValue.class, false), globalSettings,
+                opColSettings);
+            m_max = max;
+        }
+
+        @Override
+        public AggregationOperator createInstance(final GlobalSettings globalSettings,
+            final OperatorColumnSettings opColSettings) {
+            return new CappedCountOperator(m_max, globalSettings, opColSettings);
+        }
+
+        @Override
+        protected boolean computeInternal(final DataCell cell) {
+            m_count++;
+            return checkCount();
+        }
+
+        @Override
+        public boolean supportsMerge() {
+            return true;
+        }
+
+        @Override
+        protected boolean mergeInternal(final AggregationOperator other) {
+            m_count += ((CappedCountOperator)other).m_count;
+            return checkCount();
+        }
+
+        private boolean checkCount() {
+            if (m_count > m_max) {
+                setSkipMessage("More than " + m_max + " cells");
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        protected DataType getDataType(final DataType origType) {
+            return IntCell.TYPE;
+        }
+
+        @Override
+        protected DataCell getResultInternal() {
+            return new IntCell(m_count);
+        }
+
+        @Override
+        protected void resetInternal() {
+            m_count = 0;
+        }
+
+        @Override
+        public String getDescription() {
+            return "Counts up to a maximum number of cells.";
+        }
+    }
+}
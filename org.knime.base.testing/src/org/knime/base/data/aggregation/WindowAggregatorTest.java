@@ -0,0 +1,270 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.data.aggregation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.base.data.aggregation.general.CountOperator;
+import org.knime.base.data.aggregation.general.MaxOperator;
+import org.knime.base.data.aggregation.general.MinOperator;
+import org.knime.base.data.aggregation.numerical.MeanOperator;
+import org.knime.base.data.aggregation.numerical.MedianOperator;
+import org.knime.base.data.aggregation.numerical.QuantileOperator;
+import org.knime.base.data.aggregation.numerical.StdDeviationOperator;
+import org.knime.base.data.aggregation.numerical.SumOperator;
+import org.knime.base.data.aggregation.numerical.VarianceOperator;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.MissingCell;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+
+/**
+ * Tests that the {@link WindowAggregator}s of the {@link AggregationOperator}s give the same results as feeding the
+ * cells of each window into a fresh operator, for backward, central and forward windows.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class WindowAggregatorTest {
+
+    private static final GlobalSettings SETTINGS = GlobalSettings.DEFAULT;
+
+    private static final int[] WINDOW_LENGTHS = new int[]{1, 2, 5, 8, 60};
+
+    /** Window positions relative to the current row. */
+    private enum WindowType {
+        BACKWARD, CENTER, FORWARD;
+
+        int start(final int row, final int length) {
+            switch (this) {
+                case BACKWARD:
+                    return Math.max(0, row - length + 1);
+                case CENTER:
+                    return Math.max(0, row - (length - 1) / 2);
+                default:
+                    return row;
+            }
+        }
+
+        int end(final int row, final int length, final int size) {
+            switch (this) {
+                case BACKWARD:
+                    return row + 1;
+                case CENTER:
+                    return Math.min(size, row + length / 2 + 1);
+                default:
+                    return Math.min(size, row + length);
+            }
+        }
+    }
+
+    /** Window aggregators on an int column with missing cells and ties. */
+    @Test
+    public void testIntColumn() {
+        final DataColumnSpec spec = new DataColumnSpecCreator("Int", IntCell.TYPE).createSpec();
+        final Random r = new Random(1);
+        for (int run = 0; run < 10; run++) {
+            final List<DataCell> cells = new ArrayList<>();
+            final int size = r.nextInt(50);
+            for (int i = 0; i < size; i++) {
+                //small range to get ties
+                cells.add(r.nextInt(5) == 0 ? DataType.getMissingCell() : new IntCell(r.nextInt(10) - 5));
+            }
+            assertWindowsForAll(spec, cells);
+        }
+    }
+
+    /** Window aggregators on a double column with missing cells, ties and runs of missing cells. */
+    @Test
+    public void testDoubleColumn() {
+        final DataColumnSpec spec = new DataColumnSpecCreator("Double", DoubleCell.TYPE).createSpec();
+        final Random r = new Random(2);
+        for (int run = 0; run < 10; run++) {
+            final List<DataCell> cells = new ArrayList<>();
+            final int size = r.nextInt(50);
+            final int missingRatio = 2 + r.nextInt(5);
+            for (int i = 0; i < size; i++) {
+                //quarters are exact, so running sums and a fresh pass do not differ by rounding
+                cells.add(r.nextInt(missingRatio) == 0 ? DataType.getMissingCell()
+                    : new DoubleCell(r.nextInt(40) / 4.0 - 5));
+            }
+            assertWindowsForAll(spec, cells);
+        }
+    }
+
+    /** Windows whose int sum exceeds the limit return a missing cell that keeps the reason. */
+    @Test
+    public void testSumOverflow() {
+        final DataColumnSpec spec = new DataColumnSpecCreator("Int", IntCell.TYPE).createSpec();
+        final List<DataCell> cells = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            cells.add(i % 7 == 0 ? DataType.getMissingCell() : new IntCell(Integer.MAX_VALUE / 3));
+        }
+        final SumOperator template = new SumOperator(SETTINGS, OperatorColumnSettings.DEFAULT_EXCL_MISSING);
+        final OperatorColumnSettings colSettings = new OperatorColumnSettings(false, spec);
+        for (WindowType type : WindowType.values()) {
+            final WindowAggregator aggregator =
+                template.createOperator(SETTINGS, colSettings).createWindowAggregator(5);
+            int start = 0;
+            int end = 0;
+            for (int row = 0; row < cells.size(); row++) {
+                final int newStart = type.start(row, 5);
+                final int newEnd = type.end(row, 5, cells.size());
+                for (; start < newStart; start++) {
+                    aggregator.removeFirst();
+                }
+                for (; end < newEnd; end++) {
+                    aggregator.add(cells.get(end));
+                }
+                final AggregationOperator op = template.createOperator(SETTINGS, colSettings);
+                final DataCell expected = compute(op, cells.subList(start, end));
+                final DataCell result = aggregator.getResult();
+                if (op.isSkipped()) {
+                    assertTrue("Missing cell expected for " + type + " window at row " + row,
+                        result instanceof MissingCell);
+                    assertThat("Wrong reason for " + type + " window at row " + row,
+                        ((MissingCell)result).getError(), is(op.getSkipMessage()));
+                } else {
+                    assertThat("Wrong sum for " + type + " window at row " + row, result, is(expected));
+                }
+            }
+        }
+    }
+
+    private static void assertWindowsForAll(final DataColumnSpec spec, final List<DataCell> cells) {
+        final OperatorColumnSettings excl = OperatorColumnSettings.DEFAULT_EXCL_MISSING;
+        final OperatorColumnSettings incl = OperatorColumnSettings.DEFAULT_INCL_MISSING;
+        final List<AggregationOperator> templates = new ArrayList<>();
+        final List<Boolean> inclMissing = new ArrayList<>();
+        for (boolean missing : new boolean[]{false, true}) {
+            //only the general operators support the missing value option
+            templates.add(new CountOperator(SETTINGS, missing ? incl : excl));
+            templates.add(new MinOperator(SETTINGS, missing ? incl : excl));
+            templates.add(new MaxOperator(SETTINGS, missing ? incl : excl));
+            inclMissing.add(missing);
+            inclMissing.add(missing);
+            inclMissing.add(missing);
+        }
+        templates.add(new SumOperator(SETTINGS, excl));
+        templates.add(new MeanOperator(SETTINGS, excl));
+        templates.add(new VarianceOperator(SETTINGS, excl));
+        templates.add(new StdDeviationOperator(SETTINGS, excl));
+        templates.add(new MedianOperator(SETTINGS, excl));
+        templates.add(new QuantileOperator(SETTINGS, excl));
+        while (inclMissing.size() < templates.size()) {
+            inclMissing.add(false);
+        }
+        for (int i = 0; i < templates.size(); i++) {
+            final AggregationOperator template = templates.get(i);
+            final OperatorColumnSettings colSettings = new OperatorColumnSettings(inclMissing.get(i), spec);
+            for (WindowType type : WindowType.values()) {
+                for (int length : WINDOW_LENGTHS) {
+                    assertWindows(template, colSettings, type, length, cells);
+                }
+            }
+        }
+    }
+
+    private static void assertWindows(final AggregationOperator template, final OperatorColumnSettings colSettings,
+        final WindowType type, final int length, final List<DataCell> cells) {
+        final WindowAggregator aggregator =
+            template.createOperator(SETTINGS, colSettings).createWindowAggregator(length);
+        final String label = template.getLabel() + " (missing: " + colSettings.inclMissingCells() + ", " + type
+            + " window of " + length + ")";
+        assertTrue("Window aggregator expected for " + label, aggregator != null);
+        int start = 0;
+        int end = 0;
+        for (int row = 0; row < cells.size(); row++) {
+            final int newStart = type.start(row, length);
+            final int newEnd = type.end(row, length, cells.size());
+            //remove first to never exceed the maximal window length
+            for (; start < newStart; start++) {
+                aggregator.removeFirst();
+            }
+            for (; end < newEnd; end++) {
+                aggregator.add(cells.get(end));
+            }
+            final DataCell expected =
+                compute(template.createOperator(SETTINGS, colSettings), cells.subList(start, end));
+            assertCell(label + " at row " + row, expected, aggregator.getResult());
+        }
+    }
+
+    private static DataCell compute(final AggregationOperator op, final List<DataCell> window) {
+        int i = 0;
+        for (DataCell cell : window) {
+            op.compute(new DefaultRow(RowKey.createRowKey(i++), cell), 0);
+        }
+        return op.getResult();
+    }
+
+    private static void assertCell(final String label, final DataCell expected, final DataCell actual) {
+        assertThat("Wrong missing state for " + label, actual.isMissing(), is(expected.isMissing()));
+        if (expected.isMissing()) {
+            return;
+        }
+        if (expected instanceof DoubleCell) {
+            final double e = ((DoubleValue)expected).getDoubleValue();
+            final double a = ((DoubleValue)actual).getDoubleValue();
+            assertTrue("Wrong value for " + label + ": " + a + " instead of " + e,
+                Math.abs(e - a) <= 1e-9 * Math.max(1, Math.abs(e)));
+        } else {
+            assertThat("Wrong result for " + label, actual, is(expected));
+        }
+    }
+}
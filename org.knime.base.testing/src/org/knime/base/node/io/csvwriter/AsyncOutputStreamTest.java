@@ -0,0 +1,207 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.io.csvwriter;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link AsyncOutputStream}, in particular that failures of the underlying stream and aborting reach the
+ * writing thread and never leave it (or the output thread) blocked.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class AsyncOutputStreamTest {
+
+    /** More than all buffers of the stream together. */
+    private static final int DATA_SIZE = 10 << 20;
+
+    private static byte[] createData() {
+        byte[] data = new byte[DATA_SIZE];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+
+    /** Writes the data in chunks of varying size, also single bytes. */
+    private static void writeData(final OutputStream out, final byte[] data) throws IOException {
+        Random r = new Random(0);
+        int pos = 0;
+        while (pos < data.length) {
+            if (r.nextInt(10) == 0) {
+                out.write(data[pos++]);
+            } else {
+                int len = Math.min(data.length - pos, r.nextInt(1 << 17));
+                out.write(data, pos, len);
+                pos += len;
+            }
+        }
+    }
+
+    /**
+     * All bytes are written in order and the underlying stream is closed when the stream is closed.
+     *
+     * @throws Exception If that fails
+     */
+    @Test(timeout = 30000)
+    public void testWriteAndClose() throws Exception {
+        byte[] data = createData();
+        TestStream underlying = new TestStream(Long.MAX_VALUE, false);
+        AsyncOutputStream out = new AsyncOutputStream(underlying);
+        writeData(out, data);
+        out.close();
+        assertThat("Underlying stream expected to be closed", underlying.m_closed, is(true));
+        assertThat("Unexpected bytes written", Arrays.equals(underlying.toByteArray(), data), is(true));
+    }
+
+    /**
+     * An exception of the underlying stream is thrown by a subsequent write (or close) of the writing thread.
+     *
+     * @throws Exception If that fails
+     */
+    @Test(timeout = 30000)
+    public void testWriteFailure() throws Exception {
+        TestStream underlying = new TestStream(3 << 20, false);
+        AsyncOutputStream out = new AsyncOutputStream(underlying);
+        try {
+            writeData(out, createData());
+            out.close();
+            fail("Failure of the underlying stream expected to reach the writing thread");
+        } catch (IOException ioe) {
+            assertThat("Unexpected cause", ioe.getCause().getMessage(), is(TestStream.FAILURE));
+        } finally {
+            out.abort();
+        }
+        assertThat("Underlying stream expected to be closed", underlying.m_closed, is(true));
+    }
+
+    /**
+     * Aborting while the underlying stream blocks interrupts the output thread, which closes the stream, subsequent
+     * writes fail.
+     *
+     * @throws Exception If that fails
+     */
+    @Test(timeout = 30000)
+    public void testAbortWhileBlocked() throws Exception {
+        TestStream underlying = new TestStream(Long.MAX_VALUE, true);
+        AsyncOutputStream out = new AsyncOutputStream(underlying);
+        byte[] data = createData();
+        // fills the buffers that are not yet handed over without blocking the writing thread
+        out.write(data, 0, 3 << 20);
+        underlying.m_blocked.await();
+        out.abort();
+        assertThat("Underlying stream expected to be closed", underlying.m_closed, is(true));
+        try {
+            writeData(out, data);
+            fail("Writing to an aborted stream expected to fail");
+        } catch (IOException ioe) {
+            assertThat("Unexpected cause", ioe.getCause() instanceof InterruptedIOException, is(true));
+        }
+        // no-op after abort
+        out.close();
+    }
+
+    /** Collects the bytes, fails after a number of bytes or blocks until interrupted. */
+    private static final class TestStream extends OutputStream {
+
+        static final String FAILURE = "Disk full";
+
+        private final ByteArrayOutputStream m_bytes = new ByteArrayOutputStream();
+
+        private final long m_failAfter;
+
+        private final boolean m_block;
+
+        private final CountDownLatch m_blocked = new CountDownLatch(1);
+
+        private volatile boolean m_closed;
+
+        TestStream(final long failAfter, final boolean block) {
+            m_failAfter = failAfter;
+            m_block = block;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[]{(byte)b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (m_block) {
+                m_blocked.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException ie) {
+                    throw new InterruptedIOException("Blocked write interrupted");
+                }
+            }
+            if (m_bytes.size() + len > m_failAfter) {
+                throw new IOException(FAILURE);
+            }
+            m_bytes.write(b, off, len);
+        }
+
+        byte[] toByteArray() {
+            return m_bytes.toByteArray();
+        }
+
+        @Override
+        public void close() {
+            m_closed = true;
+        }
+    }
+}
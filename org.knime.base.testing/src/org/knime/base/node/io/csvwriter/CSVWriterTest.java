@@ -0,0 +1,211 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.io.csvwriter;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Test;
+import org.knime.base.node.io.csvwriter.FileWriterSettings.LineEnding;
+import org.knime.base.node.io.csvwriter.FileWriterSettings.quoteMode;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataTable;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.DataContainer;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Tests that the {@link CSVWriter} formatting rows on several threads writes the same bytes as a sequential writer.
+ * Batches are made small so that quoted values, missing values and line separators end up at all positions around a
+ * batch boundary.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class CSVWriterTest {
+
+    private static final int BATCH_SIZE = 7;
+
+    private static final DataTableSpec SPEC = new DataTableSpec(
+        new DataColumnSpecCreator("String", StringCell.TYPE).createSpec(),
+        new DataColumnSpecCreator("Int", IntCell.TYPE).createSpec(),
+        new DataColumnSpecCreator("Double, \"quoted\"", DoubleCell.TYPE).createSpec());
+
+    private static final String[] STRINGS = {"plain", "with,separator", "with \"quotes\"", "line\nbreak",
+        "cr\r\nlf", "", "äöü €", "with;semicolon", " padded "};
+
+    /** Restores the default batch size and number of threads. */
+    @After
+    public void tearDown() {
+        CSVWriter.setBatchSizeAndThreads(0, 0);
+    }
+
+    private static DataTable createTable(final int rowCount) {
+        DataContainer c = new DataContainer(SPEC);
+        for (int i = 0; i < rowCount; i++) {
+            DataCell s = i % 10 == 9 ? DataType.getMissingCell() : new StringCell(STRINGS[i % STRINGS.length] + i);
+            DataCell n = i % 4 == 3 ? DataType.getMissingCell() : new IntCell(i - 50);
+            DataCell d = i % 6 == 5 ? DataType.getMissingCell() : new DoubleCell(i % 3 == 0 ? i * 1e10 : i / 8.0);
+            String key = i % 5 == 0 ? "Row \"" + i + "\", quoted" : "Row" + i;
+            c.addRowToTable(new DefaultRow(new RowKey(key), s, n, d));
+        }
+        c.close();
+        return c.getTable();
+    }
+
+    private static FileWriterSettings[] createSettings() {
+        FileWriterSettings defaults = new FileWriterSettings();
+        defaults.setLineEndingMode(LineEnding.LF);
+
+        FileWriterSettings always = new FileWriterSettings();
+        always.setQuoteMode(quoteMode.ALWAYS);
+        always.setLineEndingMode(LineEnding.CRLF);
+        always.setColSeparator(";");
+        always.setDecimalSeparator(',');
+        always.setMissValuePattern("NA");
+        always.setWriteRowID(true);
+        always.setWriteColumnHeader(true);
+        always.setQuoteReplacement("\"\"");
+
+        FileWriterSettings ifNeeded = new FileWriterSettings();
+        ifNeeded.setQuoteMode(quoteMode.IF_NEEDED);
+        ifNeeded.setLineEndingMode(LineEnding.CR);
+        ifNeeded.setWriteRowID(true);
+
+        FileWriterSettings replace = new FileWriterSettings();
+        replace.setQuoteMode(quoteMode.REPLACE);
+        replace.setSeparatorReplacement("<sep>");
+        replace.setReplaceSeparatorInStrings(true);
+        replace.setWriteColumnHeader(true);
+        return new FileWriterSettings[]{defaults, always, ifNeeded, replace};
+    }
+
+    private static byte[] write(final DataTable table, final FileWriterSettings settings, final int numThreads,
+        final boolean async) throws IOException, CanceledExecutionException {
+        CSVWriter.setBatchSizeAndThreads(BATCH_SIZE, numThreads);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputStream out = async ? new AsyncOutputStream(bytes) : bytes;
+        CSVWriter writer = new CSVWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8),
+            new FileWriterSettings(settings));
+        writer.write(table, new ExecutionMonitor());
+        writer.close();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes a table with different quoting, separators and line endings, sequentially and in parallel.
+     *
+     * @throws Exception If that fails
+     */
+    @Test
+    public void testParallelEqualsSequential() throws Exception {
+        DataTable table = createTable(300);
+        FileWriterSettings[] settings = createSettings();
+        for (int s = 0; s < settings.length; s++) {
+            byte[] sequential = write(table, settings[s], 1, false);
+            for (int numThreads : new int[]{2, 5}) {
+                byte[] parallel = write(table, settings[s], numThreads, false);
+                assertThat("Parallel output differs (settings " + s + ", " + numThreads + " threads)",
+                    Arrays.equals(parallel, sequential), is(true));
+            }
+        }
+    }
+
+    /**
+     * Writes a table larger than the buffers of the {@link AsyncOutputStream}, which must not change the bytes.
+     *
+     * @throws Exception If that fails
+     */
+    @Test
+    public void testAsyncOutputEqualsSequential() throws Exception {
+        DataTable table = createTable(100000);
+        FileWriterSettings settings = createSettings()[1];
+        byte[] sequential = write(table, settings, 1, false);
+        assertThat("Output expected to span several buffers", sequential.length > (3 << 20), is(true));
+        byte[] async = write(table, settings, 4, true);
+        assertThat("Asynchronous output differs", Arrays.equals(async, sequential), is(true));
+    }
+
+    /**
+     * A canceled writer throws the cancellation, afterwards the output thread is stopped by aborting the stream.
+     *
+     * @throws Exception If that fails
+     */
+    @Test(timeout = 30000)
+    public void testCancel() throws Exception {
+        DataTable table = createTable(1000);
+        CSVWriter.setBatchSizeAndThreads(BATCH_SIZE, 3);
+        DefaultNodeProgressMonitor progress = new DefaultNodeProgressMonitor();
+        progress.setExecuteCanceled();
+        AsyncOutputStream out = new AsyncOutputStream(new ByteArrayOutputStream());
+        CSVWriter writer = new CSVWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try {
+            writer.write(table, new ExecutionMonitor(progress));
+            fail("Canceled writer expected to fail");
+        } catch (CanceledExecutionException cee) {
+            // expected
+        } finally {
+            out.abort();
+        }
+    }
+}
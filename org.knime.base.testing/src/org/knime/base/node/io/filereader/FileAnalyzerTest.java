@@ -51,15 +51,28 @@
 import static org.junit.Assert.assertThat;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.Vector;
+import java.util.zip.GZIPOutputStream;
 
 import org.knime.base.node.io.filereader.FileAnalyzer.HeaderHelper;
+import org.knime.base.node.util.BufferedFileReader;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
 import org.knime.core.data.def.StringCell;
 import org.knime.core.util.tokenizer.Quote;
 
@@ -598,4 +611,199 @@ public void testNumbersWithThousandseparator() throws Exception {
         assertThat("Unexpected guessed type for double column",
             analSettings.getColumnProperties().get(0).getColumnSpec().getType(), is(DoubleCell.TYPE));
     }
+
+    // the data lines of the file written by createSampledFile(), each line has the same length
+    private static final int SAMPLED_FILE_LINES = 200000;
+
+    private static final String SAMPLED_FILE_HEADER = "first,second,third\n";
+
+    private static final int SAMPLED_FILE_LINE_LENGTH = 24;
+
+    private static final int SAMPLED_FILE_SIZE =
+        SAMPLED_FILE_HEADER.length() + SAMPLED_FILE_LINES * SAMPLED_FILE_LINE_LENGTH;
+
+    // the sampler takes blocks from the second half of each stride, the first half of the first stride after the
+    // head is not sampled
+    private static final int STRIDE = SAMPLED_FILE_SIZE / (FileSampler.NUM_OF_BLOCKS + 1);
+
+    // a line with doubles in the second and third column, not in the sample
+    private static final int DOUBLE_LINE =
+        (int)((1.1 * STRIDE - SAMPLED_FILE_HEADER.length()) / SAMPLED_FILE_LINE_LENGTH);
+
+    // a line with a string in the third column, not in the sample
+    private static final int STRING_LINE =
+        (int)((1.3 * STRIDE - SAMPLED_FILE_HEADER.length()) / SAMPLED_FILE_LINE_LENGTH);
+
+    private static final int SAMPLED_LINES_BUDGET = 1700;
+
+    /**
+     * Tests that the sample of a file consists of the head of the file and complete lines from across the file, and
+     * that it misses the lines in the first half of a stride.
+     *
+     * @throws IOException if the temp file can't be written
+     */
+    public void testFileSampler() throws IOException {
+        URL url = createSampledFile(false).toURI().toURL();
+        FileReaderNodeSettings settings = createSampledSettings(url);
+        Set<String> lines = new HashSet<String>();
+        for (int i = 0; i < SAMPLED_FILE_LINES; i++) {
+            lines.add(createSampledLine(i).trim());
+        }
+        Set<String> sampled = new HashSet<String>();
+        try (BufferedFileReader reader =
+            FileSampler.createSampleReader(settings, SAMPLED_LINES_BUDGET, -1)) {
+            assertNotNull("Large local file expected to be sampled", reader);
+            assertEquals("Sample expected to start with the head of the file", SAMPLED_FILE_HEADER.trim(),
+                reader.readLine());
+            assertEquals("Sample expected to start with the head of the file", createSampledLine(0).trim(),
+                reader.readLine());
+            String line;
+            while ((line = reader.readLine()) != null) {
+                assertTrue("Sample contains a partial line: " + line, lines.contains(line));
+                assertTrue("Sample contains a line twice: " + line, sampled.add(line));
+            }
+        }
+        assertTrue("Sample expected to span the file", sampled.size() > SAMPLED_LINES_BUDGET / 2);
+        assertTrue("Sample expected to be limited", sampled.size() < 2 * SAMPLED_LINES_BUDGET);
+        assertFalse("Line expected to be missed by the sample", sampled.contains(createSampledLine(DOUBLE_LINE)
+            .trim()));
+        assertFalse("Line expected to be missed by the sample", sampled.contains(createSampledLine(STRING_LINE)
+            .trim()));
+    }
+
+    /**
+     * Tests that a sampled analysis that misses wider values guesses too narrow types, that reading the file widens
+     * them (int to double, and int to double to string), and that the second read with the widened types returns all
+     * values.
+     *
+     * @throws IOException if the temp file can't be written
+     */
+    public void testSampledAnalysisWidensOnRead() throws IOException {
+        URL url = createSampledFile(false).toURI().toURL();
+        FileReaderNodeSettings analSettings = analyzeSampled(url);
+        assertFalse(analSettings.analyzeUsedAllRows());
+        assertEquals(3, analSettings.getNumberOfColumns());
+        for (int c = 0; c < 3; c++) {
+            assertThat("Sample expected to miss the wider values in column " + c,
+                analSettings.getColumnProperties().get(c).getColumnSpec().getType(), is(IntCell.TYPE));
+        }
+
+        FileTable table = new FileTable(analSettings.createDataTableSpec(), analSettings, null);
+        table.setWidenGuessedColumnTypes(true);
+        FileRowIterator it = table.iterator();
+        while (it.hasNext()) {
+            // the iterator reads the entire file once it widened a type
+            it.next();
+        }
+        DataTableSpec widenedSpec = table.getWidenedTableSpec();
+        assertNotNull("Column types expected to be widened", widenedSpec);
+        assertThat(widenedSpec.getColumnSpec(0).getType(), is(IntCell.TYPE));
+        assertThat(widenedSpec.getColumnSpec(1).getType(), is(DoubleCell.TYPE));
+        assertThat(widenedSpec.getColumnSpec(2).getType(), is(StringCell.TYPE));
+
+        FileTable widenedTable = table.createWidenedTable();
+        table.dispose();
+        assertThat(widenedTable.getDataTableSpec(), is(widenedSpec));
+        int rowCount = 0;
+        try {
+            for (DataRow row : widenedTable) {
+                assertEquals(rowCount, ((IntCell)row.getCell(0)).getIntValue());
+                if (rowCount == DOUBLE_LINE) {
+                    assertThat(row.getCell(1), is((DataCell)new DoubleCell(12.5)));
+                    assertThat(row.getCell(2), is((DataCell)new StringCell("00034.5")));
+                } else if (rowCount == STRING_LINE) {
+                    assertThat(row.getCell(1), is((DataCell)new DoubleCell(rowCount % 1000)));
+                    assertThat(row.getCell(2), is((DataCell)new StringCell("abcdefg")));
+                } else {
+                    assertThat(row.getCell(1), is((DataCell)new DoubleCell(rowCount % 1000)));
+                }
+                rowCount++;
+            }
+        } finally {
+            widenedTable.dispose();
+        }
+        assertEquals(SAMPLED_FILE_LINES, rowCount);
+        assertNull("No further widening expected", widenedTable.getWidenedTableSpec());
+    }
+
+    /**
+     * Tests that compressed, small and non-local files, and charsets encoding LF with more than one byte, are not
+     * sampled, and that the analysis of a compressed file falls back to reading its first lines.
+     *
+     * @throws IOException if the temp file can't be written
+     */
+    public void testSamplingFallback() throws IOException {
+        URL gzipped = createSampledFile(true).toURI().toURL();
+        assertNull("Compressed file expected not to be sampled",
+            FileSampler.createSampleReader(createSampledSettings(gzipped), SAMPLED_LINES_BUDGET, -1));
+        FileReaderNodeSettings analSettings = analyzeSampled(gzipped);
+        assertFalse(analSettings.analyzeUsedAllRows());
+        assertEquals(3, analSettings.getNumberOfColumns());
+        for (int c = 0; c < 3; c++) {
+            assertThat(analSettings.getColumnProperties().get(c).getColumnSpec().getType(), is(IntCell.TYPE));
+        }
+
+        URL small = initTempFile("a,b\n1,2\n3,4\n");
+        assertNull("Small file expected not to be sampled",
+            FileSampler.createSampleReader(createSampledSettings(small), SAMPLED_LINES_BUDGET, -1));
+
+        URL url = createSampledFile(false).toURI().toURL();
+        assertNull("File within the byte budget expected not to be sampled", FileSampler
+            .createSampleReader(createSampledSettings(url), SAMPLED_LINES_BUDGET, SAMPLED_FILE_SIZE));
+        FileReaderNodeSettings utf16 = createSampledSettings(url);
+        utf16.setCharsetName(StandardCharsets.UTF_16.name());
+        assertNull("File with multi-byte line ends expected not to be sampled",
+            FileSampler.createSampleReader(utf16, SAMPLED_LINES_BUDGET, -1));
+
+        URL remote = new URL("http://localhost:1/data.csv");
+        assertNull("Remote file expected not to be sampled",
+            FileSampler.createSampleReader(createSampledSettings(remote), SAMPLED_LINES_BUDGET, -1));
+    }
+
+    private static FileReaderNodeSettings analyzeSampled(final URL url) throws IOException {
+        FileReaderExecutionMonitor exec = new FileReaderExecutionMonitor();
+        exec.setShortCutLines(SAMPLED_LINES_BUDGET);
+        exec.setSampleShortCut(true);
+        exec.setExecuteCanceled();
+        return FileAnalyzer.analyze(createSampledSettings(url), exec);
+    }
+
+    private static FileReaderNodeSettings createSampledSettings(final URL url) {
+        FileReaderNodeSettings settings = new FileReaderNodeSettings();
+        settings.setFileHasRowHeadersUserSet(true);
+        settings.setFileHasRowHeaders(false);
+        settings.setFileHasColumnHeadersUserSet(true);
+        settings.setFileHasColumnHeaders(true);
+        settings.setDataFileLocationAndUpdateTableName(url);
+        settings.setCharsetName(StandardCharsets.UTF_8.name());
+        return settings;
+    }
+
+    /*
+     * Writes a file with int columns only, except for the lines DOUBLE_LINE and STRING_LINE.
+     */
+    private static File createSampledFile(final boolean gzip) throws IOException {
+        File tempFile = File.createTempFile("knime_filesampler_test_", gzip ? ".csv.gz" : ".csv");
+        tempFile.deleteOnExit();
+        OutputStream out = new FileOutputStream(tempFile);
+        if (gzip) {
+            out = new GZIPOutputStream(out);
+        }
+        try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            writer.write(SAMPLED_FILE_HEADER);
+            for (int i = 0; i < SAMPLED_FILE_LINES; i++) {
+                writer.write(createSampledLine(i));
+            }
+        }
+        return tempFile;
+    }
+
+    private static String createSampledLine(final int line) {
+        if (line == DOUBLE_LINE) {
+            return String.format("%07d,00012.5,00034.5\n", line);
+        } else if (line == STRING_LINE) {
+            return String.format("%07d,%07d,abcdefg\n", line, line % 1000);
+        }
+        return String.format("%07d,%07d,%07d\n", line, line % 1000, line % 100);
+    }
 }
@@ -0,0 +1,273 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.io.filereader;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests that reading a file with the {@link ParallelFileRowReader} gives the same rows - or the same error - as a
+ * sequential read. The chunks are made small, and each file is written with a growing prefix so that the interesting
+ * characters end up at all positions around a chunk boundary.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ParallelFileRowReaderTest {
+
+    private static final int CHUNK_SIZE = 64;
+
+    private static final DataTableSpec SPEC = new DataTableSpec(
+        new DataColumnSpecCreator("String", StringCell.TYPE).createSpec(),
+        new DataColumnSpecCreator("Int", IntCell.TYPE).createSpec(),
+        new DataColumnSpecCreator("Double", DoubleCell.TYPE).createSpec());
+
+    private ExecutionContext m_exec;
+
+    /**
+     * Creates the execution context, without it files are read sequentially, and sets small chunks.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Before
+    public void setUp() {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+        ParallelFileRowReader.setChunkSizeAndThreads(CHUNK_SIZE, 3);
+    }
+
+    /** Restores the default chunk size and number of threads. */
+    @After
+    public void tearDown() {
+        ParallelFileRowReader.setChunkSizeAndThreads(0, 0);
+    }
+
+    /**
+     * Quoted fields with an embedded LF (and CR LF) straddling a chunk boundary.
+     *
+     * @throws IOException if the temp file can't be written
+     */
+    @Test
+    public void testQuotedLineEnds() throws IOException {
+        for (int pad = 0; pad < 2 * CHUNK_SIZE; pad++) {
+            final String data = padding(pad) + "\"quoted\nLF\",2,2.5\n\"quoted\r\nCR LF\",3,3.5\n\"\n\",4,4.5\n"
+                + rows(20, 5);
+            assertSameRows("LF in quotes, prefix " + pad, createSettings(data, false, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * The escape character right before a chunk boundary, escaping a quote or a LF.
+     *
+     * @throws IOException if the temp file can't be written
+     */
+    @Test
+    public void testEscapeBeforeBoundary() throws IOException {
+        for (int pad = 0; pad < 2 * CHUNK_SIZE; pad++) {
+            final String data = padding(pad) + "\"escaped \\\" quote\n\",2,2.5\n\"escaped\\\nLF\",3,3.5\n"
+                + "\"escaped\\\r\nCR LF\",4,4.5\n\"escaped escape\\\\\",5,5.5\n" + rows(20, 6);
+            assertSameRows("Escape in quotes, prefix " + pad, createSettings(data, false, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Runs of empty lines that are combined into one row delimiter, also with CR LF and at the end of the file.
+     *
+     * @throws IOException if the temp file can't be written
+     */
+    @Test
+    public void testCombinedEmptyLines() throws IOException {
+        for (int pad = 0; pad < 2 * CHUNK_SIZE; pad++) {
+            final String data = padding(pad) + "\n\n\n\"a\",2,2.5\n\r\n\n\r\n\"b\",3,3.5\r\n\n" + rows(20, 4)
+                + "\n\n\n";
+            assertSameRows("Combined empty lines, prefix " + pad, createSettings(data, true, StandardCharsets.UTF_8));
+            assertSameRows("Empty lines, prefix " + pad, createSettings(data, false, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * A multi-byte charset, chunks are cut after decoding.
+     *
+     * @throws IOException if the temp file can't be written
+     */
+    @Test
+    public void testMultiByteCharset() throws IOException {
+        for (Charset charset : new Charset[]{StandardCharsets.UTF_8, StandardCharsets.UTF_16}) {
+            for (int pad = 0; pad < 2 * CHUNK_SIZE; pad++) {
+                final StringBuilder data = new StringBuilder(padding(pad));
+                for (int i = 0; i < 30; i++) {
+                    data.append("\"äöü €\n😀 ").append(i).append("\",").append(i)
+                        .append(",").append(i).append(".5\n");
+                }
+                assertSameRows(charset + ", prefix " + pad, createSettings(data.toString(), false, charset));
+            }
+        }
+    }
+
+    /**
+     * A malformed row in a later chunk fails with the same message and line number.
+     *
+     * @throws IOException if the temp file can't be written
+     */
+    @Test
+    public void testMalformedRow() throws IOException {
+        for (String malformed : new String[]{"\"x\",no int,1.5\n", "\"x\",1\n", "\"x\",1,1.5,too many\n",
+            "\"unclosed,1,1.5\n"}) {
+            for (int pad = 0; pad < CHUNK_SIZE; pad += 7) {
+                final String data = padding(pad) + rows(40, 1) + "\"two\nlines\",1,1.5\n" + malformed + rows(40, 100);
+                final FileReaderSettings settings = createSettings(data, false, StandardCharsets.UTF_8);
+                final List<String> rows = assertSameRows("Malformed row, prefix " + pad, settings);
+                assertThat("Error expected for " + malformed, rows.get(rows.size() - 1).startsWith("ERROR"),
+                    is(true));
+            }
+        }
+    }
+
+    /**
+     * Reads the file sequentially and in parallel and compares the rows, row IDs and errors.
+     *
+     * @return the rows read
+     */
+    private List<String> assertSameRows(final String label, final FileReaderSettings settings) {
+        assertThat("Settings expected to be supported", ParallelFileRowReader.isSupported(settings), is(true));
+        final List<String> expected = read(settings, null);
+        final List<String> actual = read(settings, m_exec);
+        assertThat("Wrong number of rows for " + label, actual.size(), is(expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat("Wrong row " + i + " for " + label, actual.get(i), is(expected.get(i)));
+        }
+        return expected;
+    }
+
+    private static List<String> read(final FileReaderSettings settings, final ExecutionContext exec) {
+        final List<String> rows = new ArrayList<>();
+        final FileTable table = new FileTable(SPEC, settings, exec);
+        try {
+            for (DataRow row : table) {
+                final StringBuilder b = new StringBuilder(row.getKey().getString());
+                for (DataCell cell : row) {
+                    b.append('|').append(cell.getType()).append(':').append(cell);
+                }
+                rows.add(b.toString());
+            }
+        } catch (FileReaderException fre) {
+            rows.add("ERROR in line " + fre.getErrorLineNumber() + ": " + fre.getMessage());
+        } finally {
+            table.dispose();
+        }
+        return rows;
+    }
+
+    private static FileReaderSettings createSettings(final String data, final boolean combineEmptyLines,
+        final Charset charset) throws IOException {
+        final File file = File.createTempFile("knime_parallelreader_test_", ".csv");
+        file.deleteOnExit();
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), charset)) {
+            out.write("String,Int,Double\n");
+            out.write(data);
+        }
+        final FileReaderSettings settings = new FileReaderSettings();
+        settings.setDataFileLocationAndUpdateTableName(file.toURI().toURL());
+        settings.setCharsetName(charset.name());
+        settings.setFileHasColumnHeaders(true);
+        settings.setFileHasRowHeaders(false);
+        settings.setRowHeaderPrefix("Row");
+        settings.setSupportShortLines(true);
+        settings.addDelimiterPattern(",", false, false, false);
+        settings.addRowDelimiter("\n", combineEmptyLines);
+        settings.addQuotePattern("\"", "\"", '\\');
+        settings.allowLFinQuotes(true);
+        return settings;
+    }
+
+    /** A row with a string of the given length, it shifts the rows after it. */
+    private static String padding(final int length) {
+        final StringBuilder b = new StringBuilder("\"");
+        for (int i = 0; i < length; i++) {
+            b.append('p');
+        }
+        return b.append("\",1,1.5\n").toString();
+    }
+
+    private static String rows(final int count, final int first) {
+        final StringBuilder b = new StringBuilder();
+        for (int i = first; i < first + count; i++) {
+            b.append("\"row ").append(i).append("\",").append(i).append(',').append(i).append(".25\n");
+        }
+        return b.toString();
+    }
+}
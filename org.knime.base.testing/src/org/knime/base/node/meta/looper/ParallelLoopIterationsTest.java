@@ -0,0 +1,389 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.meta.looper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeDialogPane;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettings;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.NodeView;
+import org.knime.core.node.workflow.NativeNodeContainer;
+import org.knime.core.node.workflow.NodeContainerState;
+import org.knime.core.node.workflow.NodeID;
+import org.knime.core.node.workflow.WorkflowContext;
+import org.knime.core.node.workflow.WorkflowCreationHelper;
+import org.knime.core.node.workflow.WorkflowManager;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Runs a counting loop with parallel iterations in a workflow and checks that it gives the same result as the
+ * sequential loop, that failing iterations fail the loop end and that the loop can be canceled while the loop end
+ * waits for the parallel iterations.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ParallelLoopIterationsTest {
+    private static final int NR_LOOPS = 7;
+
+    private static final DataTableSpec SOURCE_SPEC =
+        new DataTableSpec(new DataColumnSpecCreator("value", IntCell.TYPE).createSpec());
+
+    private static final DataTableSpec BODY_SPEC = new DataTableSpec(SOURCE_SPEC,
+        new DataTableSpec(new DataColumnSpecCreator("product", IntCell.TYPE).createSpec()));
+
+    /** Iteration in which the loop body fails, -1 for none. */
+    static volatile int failIteration = -1;
+
+    /** Iteration in which the loop body blocks until canceled, -1 for none. */
+    static volatile int blockIteration = -1;
+
+    /** Counted down once the loop body blocks. */
+    static volatile CountDownLatch blocked = new CountDownLatch(1);
+
+    /** Identities of the body models that executed an iteration. */
+    static final Set<Integer> BODY_MODELS = ConcurrentHashMap.newKeySet();
+
+    private File m_wfmDir;
+
+    private WorkflowManager m_flow;
+
+    private NodeID m_loopStartID;
+
+    private NodeID m_loopEndID;
+
+    /**
+     * Creates the workflow source - loop start - body - loop end.
+     *
+     * @throws Exception if the workflow cannot be created
+     */
+    @Before
+    public void setUp() throws Exception {
+        failIteration = -1;
+        blockIteration = -1;
+        blocked = new CountDownLatch(1);
+        BODY_MODELS.clear();
+        m_wfmDir = FileUtil.createTempDir(getClass().getSimpleName());
+
+        WorkflowCreationHelper creationHelper = new WorkflowCreationHelper();
+        creationHelper.setWorkflowContext(new WorkflowContext.Factory(m_wfmDir).createContext());
+        m_flow = WorkflowManager.ROOT.createAndAddProject("Parallel loop test", creationHelper);
+
+        NodeID sourceID = m_flow.createAndAddNode(new SourceNodeFactory());
+        m_loopStartID = m_flow.createAndAddNode(new LoopStartCountNodeFactory());
+        NodeID bodyID = m_flow.createAndAddNode(new BodyNodeFactory());
+        m_loopEndID = m_flow.createAndAddNode(new LoopEndNodeFactory());
+        m_flow.addConnection(sourceID, 1, m_loopStartID, 1);
+        m_flow.addConnection(m_loopStartID, 1, bodyID, 1);
+        m_flow.addConnection(bodyID, 1, m_loopEndID, 1);
+    }
+
+    /**
+     * Cancels whatever still runs and removes the workflow.
+     *
+     * @throws Exception if the workflow cannot be removed
+     */
+    @After
+    public void tearDown() throws Exception {
+        blockIteration = -1;
+        if (m_flow != null) {
+            WorkflowManager.ROOT.cancelExecution(m_flow);
+            m_flow.waitWhileInExecution(30, TimeUnit.SECONDS);
+            WorkflowManager.ROOT.removeProject(m_flow.getID());
+        }
+        if (m_wfmDir != null) {
+            FileUtil.deleteRecursively(m_wfmDir);
+        }
+    }
+
+    /**
+     * Checks that parallel iterations give the same table as the sequential loop, including the iteration column,
+     * the row keys and the row order.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test(timeout = 120000)
+    public void testParallelIterationsGiveSequentialResult() throws Exception {
+        setParallelIterations(1);
+        assertTrue("Sequential loop failed", m_flow.executeAllAndWaitUntilDone());
+        List<String> expected = readLoopEndOutput();
+        assertEquals(NR_LOOPS * 3, expected.size());
+        assertEquals(1, BODY_MODELS.size());
+
+        for (int p : new int[]{2, 3, NR_LOOPS, NR_LOOPS + 2}) {
+            BODY_MODELS.clear();
+            setParallelIterations(p);
+            assertTrue("Loop with " + p + " parallel iterations failed", m_flow.executeAllAndWaitUntilDone());
+            assertEquals("Output with " + p + " parallel iterations", expected, readLoopEndOutput());
+            assertTrue("Iterations not run in copies of the loop body", BODY_MODELS.size() > 1);
+        }
+    }
+
+    /**
+     * Checks that the loop end fails if an iteration fails in a copy of the loop body.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test(timeout = 120000)
+    public void testFailingParallelIteration() throws Exception {
+        setParallelIterations(3);
+        // with three parallel iterations iteration 4 runs in a copy of the loop body
+        failIteration = 4;
+        assertFalse("Loop with failing iteration succeeded", m_flow.executeAllAndWaitUntilDone());
+        assertFalse(m_flow.getNodeContainer(m_loopEndID).getNodeContainerState().isExecuted());
+        assertFalse(m_flow.getNodeContainerState().isExecutionInProgress());
+
+        // executes again once the iteration doesn't fail anymore
+        failIteration = -1;
+        m_flow.resetAndConfigureAll();
+        assertTrue("Loop failed after removing the failure", m_flow.executeAllAndWaitUntilDone());
+        assertEquals(NR_LOOPS * 3, readLoopEndOutput().size());
+    }
+
+    /**
+     * Checks that the loop can be canceled while the loop end waits for a parallel iteration.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test(timeout = 120000)
+    public void testCancelWhileWaitingForParallelIterations() throws Exception {
+        setParallelIterations(3);
+        // iteration 0 is the first one handed to a copy of the loop body, the loop end waits for it
+        blockIteration = 0;
+        m_flow.executeAll();
+        assertTrue("Loop body did not block", blocked.await(60, TimeUnit.SECONDS));
+        NodeContainerState loopEndState;
+        do {
+            Thread.sleep(50);
+            loopEndState = m_flow.getNodeContainer(m_loopEndID).getNodeContainerState();
+        } while (!loopEndState.isExecutionInProgress() || loopEndState.isWaitingToBeExecuted());
+
+        WorkflowManager.ROOT.cancelExecution(m_flow);
+        assertTrue("Loop not canceled", m_flow.waitWhileInExecution(60, TimeUnit.SECONDS));
+        assertFalse(m_flow.getNodeContainer(m_loopEndID).getNodeContainerState().isExecuted());
+    }
+
+    private void setParallelIterations(final int nrParallelIterations) throws InvalidSettingsException {
+        NodeSettings settings = new NodeSettings("settings");
+        m_flow.saveNodeSettings(m_loopStartID, settings);
+        NodeSettings model = settings.getNodeSettings("model");
+        model.addInt("loops", NR_LOOPS);
+        model.addInt(ParallelLoopIterations.CFG_PARALLEL_ITERATIONS, nrParallelIterations);
+        m_flow.loadNodeSettings(m_loopStartID, settings);
+    }
+
+    private List<String> readLoopEndOutput() {
+        BufferedDataTable table = (BufferedDataTable)m_flow
+            .getNodeContainer(m_loopEndID, NativeNodeContainer.class, true).getOutPort(1).getPortObject();
+        List<String> rows = new ArrayList<>();
+        for (DataRow row : table) {
+            StringBuilder b = new StringBuilder(row.getKey().getString());
+            for (DataCell c : row) {
+                b.append(',').append(c);
+            }
+            rows.add(b.toString());
+        }
+        return rows;
+    }
+
+    /** Factory of a node creating a few rows. */
+    public static final class SourceNodeFactory extends TestNodeFactory {
+        /** {@inheritDoc} */
+        @Override
+        public NodeModel createNodeModel() {
+            return new TestNodeModel(0) {
+                @Override
+                protected DataTableSpec[] configure(final DataTableSpec[] inSpecs) {
+                    return new DataTableSpec[]{SOURCE_SPEC};
+                }
+
+                @Override
+                protected BufferedDataTable[] execute(final BufferedDataTable[] inData, final ExecutionContext exec) {
+                    BufferedDataContainer cont = exec.createDataContainer(SOURCE_SPEC);
+                    for (int i = 1; i <= 3; i++) {
+                        cont.addRowToTable(new DefaultRow(RowKey.createRowKey(i), new IntCell(i)));
+                    }
+                    cont.close();
+                    return new BufferedDataTable[]{cont.getTable()};
+                }
+            };
+        }
+    }
+
+    /** Factory of the loop body, appending the product of the value and the current iteration. */
+    public static final class BodyNodeFactory extends TestNodeFactory {
+        /** {@inheritDoc} */
+        @Override
+        public NodeModel createNodeModel() {
+            return new TestNodeModel(1) {
+                @Override
+                protected DataTableSpec[] configure(final DataTableSpec[] inSpecs) {
+                    return new DataTableSpec[]{BODY_SPEC};
+                }
+
+                @Override
+                protected BufferedDataTable[] execute(final BufferedDataTable[] inData, final ExecutionContext exec)
+                    throws Exception {
+                    BODY_MODELS.add(System.identityHashCode(this));
+                    final int iteration = peekFlowVariableInt("currentIteration");
+                    if (iteration == failIteration) {
+                        throw new IllegalStateException("Failing in iteration " + iteration);
+                    }
+                    if (iteration == blockIteration) {
+                        blocked.countDown();
+                        final long end = System.currentTimeMillis() + 60000;
+                        while (System.currentTimeMillis() < end) {
+                            exec.checkCanceled();
+                            Thread.sleep(20);
+                        }
+                        throw new IllegalStateException("Not canceled in iteration " + iteration);
+                    }
+                    BufferedDataContainer cont = exec.createDataContainer(BODY_SPEC);
+                    for (DataRow row : inData[0]) {
+                        int value = ((IntCell)row.getCell(0)).getIntValue();
+                        cont.addRowToTable(
+                            new DefaultRow(row.getKey(), row.getCell(0), new IntCell(value * iteration)));
+                    }
+                    cont.close();
+                    return new BufferedDataTable[]{cont.getTable()};
+                }
+            };
+        }
+    }
+
+    /**
+     * Factory without views and dialog. Copies of a node (such as the copies of the loop body executing parallel
+     * iterations) share the factory, hence a new model must be created for each call of {@link #createNodeModel()}.
+     */
+    abstract static class TestNodeFactory extends NodeFactory<NodeModel> {
+        /** {@inheritDoc} */
+        @Override
+        protected int getNrNodeViews() {
+            return 0;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public NodeView<NodeModel> createNodeView(final int viewIndex, final NodeModel nodeModel) {
+            return null;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected boolean hasDialog() {
+            return false;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected NodeDialogPane createNodeDialogPane() {
+            return null;
+        }
+    }
+
+    /** Model with at most one input and one output and no settings. */
+    abstract static class TestNodeModel extends NodeModel {
+        TestNodeModel(final int nrInPorts) {
+            super(nrInPorts, 1);
+        }
+
+        @Override
+        protected void loadInternals(final File nodeInternDir, final ExecutionMonitor exec)
+            throws IOException, CanceledExecutionException {
+        }
+
+        @Override
+        protected void saveInternals(final File nodeInternDir, final ExecutionMonitor exec)
+            throws IOException, CanceledExecutionException {
+        }
+
+        @Override
+        protected void saveSettingsTo(final NodeSettingsWO settings) {
+        }
+
+        @Override
+        protected void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        }
+
+        @Override
+        protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
+        }
+
+        @Override
+        protected void reset() {
+        }
+    }
+}
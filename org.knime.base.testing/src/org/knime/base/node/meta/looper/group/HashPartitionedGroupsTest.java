@@ -0,0 +1,389 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.meta.looper.group;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.base.node.meta.looper.LoopEndNodeFactory;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeDialogPane;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettings;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.NodeView;
+import org.knime.core.node.util.filter.NameFilterConfiguration.EnforceOption;
+import org.knime.core.node.util.filter.column.DataColumnSpecFilterConfiguration;
+import org.knime.core.node.workflow.FlowVariable;
+import org.knime.core.node.workflow.NodeID;
+import org.knime.core.node.workflow.WorkflowContext;
+import org.knime.core.node.workflow.WorkflowCreationHelper;
+import org.knime.core.node.workflow.WorkflowManager;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Runs the group loop start with hash grouping and with sorting and checks that both loop over the same groups, with
+ * the same rows and flow variables. Small limits make the hash grouping split partitions again and sort partitions
+ * it can't split.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class HashPartitionedGroupsTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(new String[]{"Group", "Sub", "Value"},
+        new DataType[]{StringCell.TYPE, IntCell.TYPE, IntCell.TYPE});
+
+    /** The table created by the source node. */
+    static volatile List<DataRow> sourceRows = Collections.emptyList();
+
+    /** One entry per iteration: the flow variables and the rows of the group. */
+    static final List<String> ITERATIONS = Collections.synchronizedList(new ArrayList<>());
+
+    private File m_wfmDir;
+
+    private WorkflowManager m_flow;
+
+    private NodeID m_loopStartID;
+
+    /**
+     * Creates the workflow source - group loop start - recorder - loop end.
+     *
+     * @throws Exception if the workflow cannot be created
+     */
+    @Before
+    public void setUp() throws Exception {
+        ITERATIONS.clear();
+        m_wfmDir = FileUtil.createTempDir(getClass().getSimpleName());
+
+        WorkflowCreationHelper creationHelper = new WorkflowCreationHelper();
+        creationHelper.setWorkflowContext(new WorkflowContext.Factory(m_wfmDir).createContext());
+        m_flow = WorkflowManager.ROOT.createAndAddProject("Group loop test", creationHelper);
+
+        NodeID sourceID = m_flow.createAndAddNode(new SourceNodeFactory());
+        m_loopStartID = m_flow.createAndAddNode(new GroupLoopStartNodeFactory());
+        NodeID recorderID = m_flow.createAndAddNode(new RecorderNodeFactory());
+        NodeID loopEndID = m_flow.createAndAddNode(new LoopEndNodeFactory());
+        m_flow.addConnection(sourceID, 1, m_loopStartID, 1);
+        m_flow.addConnection(m_loopStartID, 1, recorderID, 1);
+        m_flow.addConnection(recorderID, 1, loopEndID, 1);
+    }
+
+    /**
+     * Removes the workflow and resets the limits.
+     *
+     * @throws Exception if the workflow cannot be removed
+     */
+    @After
+    public void tearDown() throws Exception {
+        HashPartitionedGroups.setLimits(0, 0);
+        sourceRows = Collections.emptyList();
+        if (m_flow != null) {
+            WorkflowManager.ROOT.removeProject(m_flow.getID());
+        }
+        if (m_wfmDir != null) {
+            FileUtil.deleteRecursively(m_wfmDir);
+        }
+    }
+
+    /**
+     * A table small enough to be grouped in memory.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testGroupInMemory() throws Exception {
+        sourceRows = createSkewedRows(2000);
+        assertSameGroups(2000);
+    }
+
+    /**
+     * With 3 columns and 300 cells at most 100 rows are grouped in memory. The 2000 rows are split into 4
+     * partitions of about 500 rows (the one with the dominating group has more than 1000), each of them is split
+     * again into 4 partitions. Those with more than 100 rows, in particular the one with the dominating group, are
+     * sorted.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSplitAgainAndSort() throws Exception {
+        HashPartitionedGroups.setLimits(300, 4);
+        sourceRows = createSkewedRows(2000);
+        assertSameGroups(2000);
+    }
+
+    /**
+     * All rows in one group: a split leaves all rows in one partition, which is sorted without being split again.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSingleGroup() throws Exception {
+        HashPartitionedGroups.setLimits(300, 4);
+        List<DataRow> rows = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            rows.add(new DefaultRow(RowKey.createRowKey((long)i), new StringCell("all"), new IntCell(1),
+                new IntCell(i)));
+        }
+        sourceRows = rows;
+        assertSameGroups(500);
+        assertEquals("Unexpected number of groups", 1, ITERATIONS.size());
+    }
+
+    /**
+     * An empty table gives a single iteration with an empty group in both modes.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testEmptyTable() throws Exception {
+        sourceRows = Collections.emptyList();
+        assertSameGroups(0);
+        assertEquals("Unexpected number of iterations", 1, ITERATIONS.size());
+    }
+
+    /*
+     * Runs the loop with sorting and with hash grouping and compares the recorded iterations, which are in different
+     * order.
+     */
+    private void assertSameGroups(final int rowCount) throws InvalidSettingsException {
+        setHashGrouping(false);
+        assertTrue("Sorted loop failed", m_flow.executeAllAndWaitUntilDone());
+        final List<String> sorted = new ArrayList<>(ITERATIONS);
+        ITERATIONS.clear();
+
+        setHashGrouping(true);
+        assertTrue("Hash grouping loop failed", m_flow.executeAllAndWaitUntilDone());
+        final List<String> hashed = new ArrayList<>(ITERATIONS);
+
+        Collections.sort(sorted);
+        Collections.sort(hashed);
+        assertEquals("Different groups", sorted, hashed);
+        int nrRows = 0;
+        for (String iteration : hashed) {
+            nrRows += iteration.split("\n").length - 1;
+        }
+        assertEquals("Unexpected number of rows in all groups", rowCount, nrRows);
+    }
+
+    private void setHashGrouping(final boolean hashGrouping) throws InvalidSettingsException {
+        NodeSettings settings = new NodeSettings("settings");
+        m_flow.saveNodeSettings(m_loopStartID, settings);
+        NodeSettings model = settings.getNodeSettings("model");
+        DataColumnSpecFilterConfiguration groupColumns =
+            new DataColumnSpecFilterConfiguration(GroupLoopStartConfigKeys.COLUMN_NAMES);
+        groupColumns.loadDefaults(new String[]{"Group", "Sub"}, new String[]{"Value"}, EnforceOption.EnforceInclusion);
+        groupColumns.saveConfiguration(model);
+        model.addBoolean(GroupLoopStartConfigKeys.SORTED_INPUT_TABLE, false);
+        model.addBoolean(GroupLoopStartConfigKeys.HASH_GROUPING, hashGrouping);
+        m_flow.loadNodeSettings(m_loopStartID, settings);
+    }
+
+    /*
+     * Half of the rows are in one group, the others in 60 small groups.
+     */
+    private static List<DataRow> createSkewedRows(final int count) {
+        final Random r = new Random(count);
+        final List<DataRow> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final boolean dominating = r.nextBoolean();
+            final String group = dominating ? "big" : "small" + r.nextInt(20);
+            final int sub = dominating ? 0 : r.nextInt(3);
+            rows.add(new DefaultRow(RowKey.createRowKey((long)i), new StringCell(group), new IntCell(sub),
+                new IntCell(i)));
+        }
+        return rows;
+    }
+
+    /** Factory of a node creating the table in {@link HashPartitionedGroupsTest#sourceRows}. */
+    public static final class SourceNodeFactory extends TestNodeFactory {
+        /** {@inheritDoc} */
+        @Override
+        public NodeModel createNodeModel() {
+            return new TestNodeModel(0) {
+                @Override
+                protected DataTableSpec[] configure(final DataTableSpec[] inSpecs) {
+                    return new DataTableSpec[]{SPEC};
+                }
+
+                @Override
+                protected BufferedDataTable[] execute(final BufferedDataTable[] inData, final ExecutionContext exec) {
+                    BufferedDataContainer cont = exec.createDataContainer(SPEC);
+                    for (DataRow row : sourceRows) {
+                        cont.addRowToTable(row);
+                    }
+                    cont.close();
+                    return new BufferedDataTable[]{cont.getTable()};
+                }
+            };
+        }
+    }
+
+    /**
+     * Factory of the loop body, recording the flow variables (except the iteration) and the rows (ordered by key,
+     * the sorter doesn't keep the order of rows within a group) of each iteration.
+     */
+    public static final class RecorderNodeFactory extends TestNodeFactory {
+        /** {@inheritDoc} */
+        @Override
+        public NodeModel createNodeModel() {
+            return new TestNodeModel(1) {
+                @Override
+                protected DataTableSpec[] configure(final DataTableSpec[] inSpecs) {
+                    return inSpecs;
+                }
+
+                @Override
+                protected BufferedDataTable[] execute(final BufferedDataTable[] inData, final ExecutionContext exec) {
+                    final SortedMap<String, String> variables = new TreeMap<>();
+                    for (Map.Entry<String, FlowVariable> e : getAvailableFlowVariables().entrySet()) {
+                        final FlowVariable v = e.getValue();
+                        if (!v.isGlobalConstant() && !"currentIteration".equals(e.getKey())) {
+                            variables.put(e.getKey(), v.getType() + ":" + v.getValueAsString());
+                        }
+                    }
+                    final SortedMap<Long, String> rows = new TreeMap<>();
+                    for (DataRow row : inData[0]) {
+                        rows.put(Long.valueOf(row.getKey().getString().substring("Row".length())),
+                            row.getKey() + ": " + row.getCell(0) + ", " + row.getCell(1) + ", " + row.getCell(2));
+                    }
+                    final StringBuilder b = new StringBuilder(variables.toString());
+                    for (String row : rows.values()) {
+                        b.append('\n').append(row);
+                    }
+                    ITERATIONS.add(b.toString());
+                    return inData;
+                }
+            };
+        }
+    }
+
+    /** Factory without views and dialog, creating a new model for each call of {@link #createNodeModel()}. */
+    abstract static class TestNodeFactory extends NodeFactory<NodeModel> {
+        /** {@inheritDoc} */
+        @Override
+        protected int getNrNodeViews() {
+            return 0;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public NodeView<NodeModel> createNodeView(final int viewIndex, final NodeModel nodeModel) {
+            return null;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected boolean hasDialog() {
+            return false;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected NodeDialogPane createNodeDialogPane() {
+            return null;
+        }
+    }
+
+    /** Model with at most one input and one output and no settings. */
+    abstract static class TestNodeModel extends NodeModel {
+        TestNodeModel(final int nrInPorts) {
+            super(nrInPorts, 1);
+        }
+
+        @Override
+        protected void loadInternals(final File nodeInternDir, final ExecutionMonitor exec)
+            throws IOException, CanceledExecutionException {
+        }
+
+        @Override
+        protected void saveInternals(final File nodeInternDir, final ExecutionMonitor exec)
+            throws IOException, CanceledExecutionException {
+        }
+
+        @Override
+        protected void saveSettingsTo(final NodeSettingsWO settings) {
+        }
+
+        @Override
+        protected void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        }
+
+        @Override
+        protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
+        }
+
+        @Override
+        protected void reset() {
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.mine.cluster.hierarchical;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.base.node.mine.cluster.hierarchical.HierarchicalClusterNodeModel.Linkage;
+import org.knime.base.node.mine.cluster.hierarchical.distfunctions.DistanceFunction;
+import org.knime.base.node.mine.cluster.hierarchical.distfunctions.EuclideanDist;
+import org.knime.base.node.mine.cluster.hierarchical.distfunctions.ManhattanDist;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Tests the {@link HierarchicalClusterer} against a naive cubic implementation that merges the two closest clusters
+ * in each step, computing the linkage from the point distances.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class HierarchicalClustererTest {
+
+    private static final int[] COLS = new int[]{0, 1};
+
+    private static final double EPSILON = 1e-4;
+
+    /**
+     * Random points without ties: the dendrogram and fusion distances equal the ones of the naive clustering.
+     *
+     * @throws CanceledExecutionException not expected
+     */
+    @Test
+    public void testDistinctDistances() throws CanceledExecutionException {
+        final Random r = new Random(1);
+        for (int run = 0; run < 40; run++) {
+            final DataRow[] rows = createRows(r.nextInt(30), () -> r.nextDouble());
+            for (Linkage linkage : Linkage.values()) {
+                assertClustering("run " + run, rows, EuclideanDist.EUCLIDEAN_DISTANCE, linkage, true);
+            }
+        }
+    }
+
+    /**
+     * Points on a small grid with many tied distances (and duplicate points): each merge joins two clusters at the
+     * smallest linkage distance, and for single linkage the fusion distances equal the naive ones.
+     *
+     * @throws CanceledExecutionException not expected
+     */
+    @Test
+    public void testTiedDistances() throws CanceledExecutionException {
+        final Random r = new Random(2);
+        for (int run = 0; run < 40; run++) {
+            final DataRow[] rows = createRows(r.nextInt(30), () -> r.nextInt(4));
+            for (Linkage linkage : Linkage.values()) {
+                assertClustering("run " + run, rows, ManhattanDist.MANHATTEN_DISTANCE, linkage, false);
+            }
+        }
+    }
+
+    private interface Coordinate {
+        double next();
+    }
+
+    private static DataRow[] createRows(final int nrRows, final Coordinate coordinate) {
+        final DataRow[] rows = new DataRow[nrRows];
+        for (int i = 0; i < nrRows; i++) {
+            rows[i] = new DefaultRow(RowKey.createRowKey(i), new DoubleCell(coordinate.next()),
+                new DoubleCell(coordinate.next()));
+        }
+        return rows;
+    }
+
+    private static void assertClustering(final String label, final DataRow[] rows, final DistanceFunction distFunction,
+        final Linkage linkage, final boolean distinct) throws CanceledExecutionException {
+        final String desc = label + ", " + linkage + " linkage, " + rows.length + " rows";
+        final int n = rows.length;
+        final float[][] pointDist = new float[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                pointDist[i][j] = (float)distFunction.calcDistance(rows[i], rows[j], COLS);
+            }
+        }
+        final HierarchicalClusterer clusterer = new HierarchicalClusterer(rows, COLS, distFunction, linkage);
+        clusterer.run(new ExecutionMonitor());
+        assertThat("Wrong number of merges for " + desc, clusterer.getNrMerges(), is(Math.max(0, n - 1)));
+
+        // replay the merges, each must join two clusters at the smallest linkage distance
+        final Map<Integer, List<Integer>> clusters = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            final List<Integer> members = new ArrayList<>();
+            members.add(i);
+            clusters.put(i, members);
+        }
+        for (int k = 0; k < clusterer.getNrMerges(); k++) {
+            final int first = clusterer.getFirst(k);
+            final int second = clusterer.getSecond(k);
+            assertTrue("Merge " + k + " joins inactive clusters for " + desc,
+                first < second && clusters.containsKey(first) && clusters.containsKey(second));
+            final double d = linkage(pointDist, clusters.get(first), clusters.get(second), linkage);
+            assertClose("Wrong distance of merge " + k + " for " + desc, d, clusterer.getDistance(k));
+            if (k > 0) {
+                assertTrue("Distances not ascending at merge " + k + " for " + desc,
+                    clusterer.getDistance(k - 1) <= clusterer.getDistance(k));
+            }
+            for (Map.Entry<Integer, List<Integer>> c1 : clusters.entrySet()) {
+                for (Map.Entry<Integer, List<Integer>> c2 : clusters.entrySet()) {
+                    if (c1.getKey() < c2.getKey()) {
+                        final double other = linkage(pointDist, c1.getValue(), c2.getValue(), linkage);
+                        assertTrue("Merge " + k + " at " + d + " while clusters " + c1.getKey() + " and "
+                            + c2.getKey() + " are at " + other + " for " + desc,
+                            d <= other + EPSILON * Math.max(1, other));
+                    }
+                }
+            }
+            final List<Integer> merged = clusters.remove(first);
+            merged.addAll(clusters.remove(second));
+            clusters.put(n + k, merged);
+        }
+
+        final NaiveClustering naive = new NaiveClustering(pointDist, linkage);
+        if (linkage == Linkage.SINGLE || (distinct && !naive.m_ambiguous)) {
+            // the fusion distances of single linkage are unique even with ties
+            for (int k = 0; k < clusterer.getNrMerges(); k++) {
+                assertClose("Wrong fusion distance " + k + " for " + desc, naive.m_dist[k],
+                    clusterer.getDistance(k));
+            }
+        }
+        if (distinct && !naive.m_ambiguous) {
+            for (int k = 0; k < clusterer.getNrMerges(); k++) {
+                assertThat("Wrong first cluster of merge " + k + " for " + desc, clusterer.getFirst(k),
+                    is(naive.m_first[k]));
+                assertThat("Wrong second cluster of merge " + k + " for " + desc, clusterer.getSecond(k),
+                    is(naive.m_second[k]));
+            }
+        }
+    }
+
+    private static void assertClose(final String msg, final double expected, final double actual) {
+        assertTrue(msg + ": " + actual + " instead of " + expected,
+            Math.abs(expected - actual) <= EPSILON * Math.max(1, Math.abs(expected)));
+    }
+
+    /* The linkage distance of two clusters computed from the distances of their points. */
+    private static double linkage(final float[][] pointDist, final List<Integer> c1, final List<Integer> c2,
+        final Linkage linkage) {
+        double min = Double.MAX_VALUE;
+        double max = 0;
+        double sum = 0;
+        for (int i : c1) {
+            for (int j : c2) {
+                min = Math.min(min, pointDist[i][j]);
+                max = Math.max(max, pointDist[i][j]);
+                sum += pointDist[i][j];
+            }
+        }
+        switch (linkage) {
+            case SINGLE:
+                return min;
+            case COMPLETE:
+                return max;
+            default:
+                return sum / (c1.size() * c2.size());
+        }
+    }
+
+    /**
+     * Merges the two closest clusters in each step, labeled like the merges of the {@link HierarchicalClusterer}.
+     */
+    private static final class NaiveClustering {
+
+        private final int[] m_first;
+
+        private final int[] m_second;
+
+        private final double[] m_dist;
+
+        // true if two pairs of clusters were (almost) equally close in a step
+        private boolean m_ambiguous;
+
+        NaiveClustering(final float[][] pointDist, final Linkage linkage) {
+            final int n = pointDist.length;
+            final int nrMerges = Math.max(0, n - 1);
+            m_first = new int[nrMerges];
+            m_second = new int[nrMerges];
+            m_dist = new double[nrMerges];
+            final List<Integer> labels = new ArrayList<>();
+            final List<List<Integer>> clusters = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                labels.add(i);
+                final List<Integer> members = new ArrayList<>();
+                members.add(i);
+                clusters.add(members);
+            }
+            for (int k = 0; k < nrMerges; k++) {
+                int best1 = -1;
+                int best2 = -1;
+                double best = Double.MAX_VALUE;
+                double secondBest = Double.MAX_VALUE;
+                for (int a = 0; a < clusters.size(); a++) {
+                    for (int b = a + 1; b < clusters.size(); b++) {
+                        final double d = linkage(pointDist, clusters.get(a), clusters.get(b), linkage);
+                        if (d < best) {
+                            secondBest = best;
+                            best = d;
+                            best1 = a;
+                            best2 = b;
+                        } else if (d < secondBest) {
+                            secondBest = d;
+                        }
+                    }
+                }
+                if (secondBest - best <= EPSILON * Math.max(1, best)) {
+                    m_ambiguous = true;
+                }
+                m_first[k] = Math.min(labels.get(best1), labels.get(best2));
+                m_second[k] = Math.max(labels.get(best1), labels.get(best2));
+                m_dist[k] = best;
+                // best1 < best2, remove the second first
+                final List<Integer> merged = clusters.remove(best2);
+                labels.remove(best2);
+                clusters.get(best1).addAll(merged);
+                labels.set(best1, n + k);
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.mine.subgroupminer.apriori;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.base.node.mine.subgroupminer.freqitemset.AssociationRule;
+import org.knime.base.node.mine.subgroupminer.freqitemset.FrequentItemSet;
+import org.knime.core.data.vector.bitvector.BitVectorValue;
+import org.knime.core.data.vector.bitvector.DenseBitVectorCellFactory;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Tests that {@link FPGrowth}, sequential and with parallel projections, finds the same frequent, closed and maximal
+ * itemsets and association rules as {@link ArrayApriori}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class FPGrowthTest {
+
+    private static final int NUM_ITEMS = 12;
+
+    /**
+     * Random transactions of different density, with and without items that occur in every transaction.
+     *
+     * @throws CanceledExecutionException if the mining is canceled, not expected
+     */
+    @Test
+    public void testRandomTransactions() throws CanceledExecutionException {
+        final Random r = new Random(1);
+        for (int run = 0; run < 30; run++) {
+            final int dbsize = 1 + r.nextInt(150);
+            final double density = 0.1 + 0.6 * r.nextDouble();
+            final int alwaysFrequent = run % 3 == 0 ? r.nextInt(3) : 0;
+            final List<BitVectorValue> transactions = new ArrayList<>();
+            for (int t = 0; t < dbsize; t++) {
+                final DenseBitVectorCellFactory factory = new DenseBitVectorCellFactory(NUM_ITEMS);
+                for (int i = 0; i < NUM_ITEMS; i++) {
+                    if (i < alwaysFrequent || r.nextDouble() < density) {
+                        factory.set(i);
+                    }
+                }
+                transactions.add(factory.createDataCell());
+            }
+            for (double minSupport : new double[]{0.05, 0.2, 0.5}) {
+                for (int maxDepth : new int[]{1, 3, NUM_ITEMS}) {
+                    assertSameResults("run " + run + ", support " + minSupport + ", depth " + maxDepth,
+                        transactions, minSupport, maxDepth);
+                }
+            }
+        }
+    }
+
+    /**
+     * Transactions without any frequent item.
+     *
+     * @throws CanceledExecutionException if the mining is canceled, not expected
+     */
+    @Test
+    public void testNothingFrequent() throws CanceledExecutionException {
+        final List<BitVectorValue> transactions = new ArrayList<>();
+        for (int t = 0; t < NUM_ITEMS; t++) {
+            final DenseBitVectorCellFactory factory = new DenseBitVectorCellFactory(NUM_ITEMS);
+            factory.set(t);
+            transactions.add(factory.createDataCell());
+        }
+        assertSameResults("no frequent item", transactions, 0.5, NUM_ITEMS);
+    }
+
+    private static void assertSameResults(final String label, final List<BitVectorValue> transactions,
+        final double minSupport, final int maxDepth) throws CanceledExecutionException {
+        for (FrequentItemSet.Type type : FrequentItemSet.Type.values()) {
+            final AprioriAlgorithm expected = new ArrayApriori(NUM_ITEMS, transactions.size());
+            expected.findFrequentItemSets(transactions, minSupport, maxDepth, type, new ExecutionMonitor());
+            for (int threads : new int[]{1, 4}) {
+                final String desc = label + ", " + type + ", " + threads + " thread(s)";
+                final AprioriAlgorithm actual = new FPGrowth(threads);
+                actual.findFrequentItemSets(transactions, minSupport, maxDepth, type, new ExecutionMonitor());
+                assertThat("Wrong itemsets for " + desc, itemSets(actual.getFrequentItemSets(type)),
+                    is(itemSets(expected.getFrequentItemSets(type))));
+                for (double confidence : new double[]{0.0, 0.6, 1.0}) {
+                    assertThat("Wrong rules with confidence " + confidence + " for " + desc,
+                        rules(actual.getAssociationRules(confidence)),
+                        is(rules(expected.getAssociationRules(confidence))));
+                }
+            }
+        }
+    }
+
+    /* The itemsets as sorted strings, independent of their IDs and of the order of the items. */
+    private static List<String> itemSets(final List<FrequentItemSet> sets) {
+        final List<String> result = new ArrayList<>();
+        for (FrequentItemSet set : sets) {
+            result.add(toString(set) + " closed: " + set.isClosed() + " maximal: " + set.isMaximal());
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private static List<String> rules(final List<AssociationRule> rules) {
+        final List<String> result = new ArrayList<>();
+        for (AssociationRule rule : rules) {
+            result.add(toString(rule.getAntecedent()) + " -> " + toString(rule.getConsequent())
+                + String.format(Locale.US, " support: %.9f confidence: %.9f lift: %.9f", rule.getSupport(),
+                    rule.getConfidence(), rule.getLift()));
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private static String toString(final FrequentItemSet set) {
+        final List<Integer> items = new ArrayList<>(set.getItems());
+        Collections.sort(items);
+        return items + String.format(Locale.US, " (%.9f)", set.getSupport());
+    }
+}
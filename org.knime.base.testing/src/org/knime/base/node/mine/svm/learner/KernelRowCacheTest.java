@@ -0,0 +1,137 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.mine.svm.learner;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.base.node.mine.svm.kernel.Kernel;
+import org.knime.base.node.mine.svm.kernel.KernelFactory;
+import org.knime.base.node.mine.svm.kernel.KernelFactory.KernelType;
+import org.knime.base.node.mine.svm.util.DoubleVector;
+
+/**
+ * Tests the {@link KernelRowCache}, in particular that rows reused after an eviction hold the kernel values of the
+ * new row.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class KernelRowCacheTest {
+
+    private static final int COUNT = 40;
+
+    private static DoubleVector[] createData() {
+        Random r = new Random(3);
+        DoubleVector[] data = new DoubleVector[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            ArrayList<Double> values = new ArrayList<Double>();
+            for (int d = 0; d < 4; d++) {
+                values.add(r.nextDouble());
+            }
+            data[i] = new DoubleVector(values, "c");
+        }
+        return data;
+    }
+
+    private static Kernel createKernel(final KernelType type) {
+        Kernel kernel = KernelFactory.getKernel(type);
+        for (int p = 0; p < kernel.getNumberParameters(); p++) {
+            kernel.setParameter(p, kernel.getDefaultParameter(p));
+        }
+        return kernel;
+    }
+
+    /**
+     * Reads random entries of random rows from a cache holding three rows, all values must equal the directly
+     * evaluated kernel.
+     */
+    @Test
+    public void testValuesUnderEviction() {
+        DoubleVector[] data = createData();
+        for (KernelType type : KernelType.values()) {
+            Kernel kernel = createKernel(type);
+            KernelRowCache cache = new KernelRowCache(data, kernel, 3L * Double.BYTES * COUNT);
+            Random r = new Random(11);
+            for (int step = 0; step < 2000; step++) {
+                int i1 = r.nextInt(COUNT);
+                int i2 = r.nextInt(COUNT);
+                double[] row1 = cache.getRow(i1);
+                double[] row2 = cache.getRow(i2);
+                // the two most recently requested rows are valid at the same time
+                for (int n = 0; n < 5; n++) {
+                    int j = r.nextInt(COUNT);
+                    assertThat("Wrong cached value " + type + " (" + i1 + ", " + j + ")", cache.get(row1, i1, j),
+                        is(kernel.evaluate(data[i1], data[j])));
+                    assertThat("Wrong cached value " + type + " (" + i2 + ", " + j + ")", cache.get(row2, i2, j),
+                        is(kernel.evaluate(data[i2], data[j])));
+                }
+            }
+        }
+    }
+
+    /** Only the configured number of rows is kept, the least recently used row is evicted. */
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        DoubleVector[] data = createData();
+        KernelRowCache cache =
+            new KernelRowCache(data, createKernel(KernelType.RBF), 3L * Double.BYTES * COUNT);
+        double[] row0 = cache.getRow(0);
+        cache.getRow(1);
+        cache.getRow(2);
+        // uses row 0, so row 1 is evicted next
+        assertThat("Row expected to be cached", cache.peekRow(0) == row0, is(true));
+        cache.getRow(3);
+        assertThat("Least recently used row expected to be evicted", cache.peekRow(1), is(nullValue()));
+        assertThat("Row expected to be cached", cache.peekRow(0) == row0, is(true));
+        assertThat("Row expected to be cached", cache.peekRow(2) != null, is(true));
+        assertThat("Row expected to be cached", cache.peekRow(3) != null, is(true));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.mine.svm.learner;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.knime.core.node.NodeSettings;
+
+/**
+ * Tests the settings of the {@link SVMLearnerNodeModel}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class SVMLearnerNodeModelTest {
+
+    /**
+     * New nodes learn with shrinking, settings saved before shrinking was added load with shrinking off.
+     *
+     * @throws Exception If that fails
+     */
+    @Test
+    public void testShrinkingSettings() throws Exception {
+        SVMLearnerNodeModel model = new SVMLearnerNodeModel();
+        NodeSettings settings = new NodeSettings("svm");
+        model.saveSettingsTo(settings);
+        assertThat("New nodes expected to shrink", settings.getBoolean(SVMLearnerNodeModel.CFG_SHRINKING), is(true));
+
+        NodeSettings oldSettings = new NodeSettings("svm");
+        for (String key : settings.keySet()) {
+            if (!SVMLearnerNodeModel.CFG_SHRINKING.equals(key)) {
+                oldSettings.addEntry(settings.getEntry(key));
+            }
+        }
+        model.validateSettings(oldSettings);
+        model.loadValidatedSettingsFrom(oldSettings);
+        NodeSettings savedAgain = new NodeSettings("svm");
+        model.saveSettingsTo(savedAgain);
+        assertThat("Old nodes expected not to shrink", savedAgain.getBoolean(SVMLearnerNodeModel.CFG_SHRINKING),
+            is(false));
+
+        model.loadValidatedSettingsFrom(settings);
+        savedAgain = new NodeSettings("svm");
+        model.saveSettingsTo(savedAgain);
+        assertThat("Saved shrinking expected to be loaded", savedAgain.getBoolean(SVMLearnerNodeModel.CFG_SHRINKING),
+            is(true));
+    }
+}
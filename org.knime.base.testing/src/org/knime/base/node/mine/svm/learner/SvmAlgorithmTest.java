@@ -0,0 +1,140 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.mine.svm.learner;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.base.node.mine.svm.Svm;
+import org.knime.base.node.mine.svm.kernel.Kernel;
+import org.knime.base.node.mine.svm.kernel.KernelFactory;
+import org.knime.base.node.mine.svm.kernel.KernelFactory.KernelType;
+import org.knime.base.node.mine.svm.util.DoubleVector;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Tests that shrinking and the size of the kernel row cache don't change the model learned by the {@link SvmAlgorithm}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class SvmAlgorithmTest {
+
+    private static final double TOLERANCE = 1e-2;
+
+    /** Two overlapping clouds, so that there are support vectors at both bounds and in between. */
+    private static DoubleVector[] createData(final int count) {
+        Random r = new Random(7);
+        DoubleVector[] data = new DoubleVector[count];
+        for (int i = 0; i < count; i++) {
+            boolean positive = i % 2 == 0;
+            ArrayList<Double> values = new ArrayList<Double>();
+            for (int d = 0; d < 3; d++) {
+                values.add(r.nextGaussian() + (positive ? 1.0 : -1.0));
+            }
+            data[i] = new DoubleVector(values, positive ? "pos" : "neg");
+        }
+        return data;
+    }
+
+    private static Svm learn(final DoubleVector[] data, final boolean shrinking, final long cacheSize)
+        throws Exception {
+        Kernel kernel = KernelFactory.getKernel(KernelType.RBF);
+        kernel.setParameter(0, 1.0);
+        SvmAlgorithm algorithm = new SvmAlgorithm(data, "pos", kernel, 1.0);
+        algorithm.setShrinking(shrinking);
+        algorithm.setKernelCacheSize(cacheSize);
+        return algorithm.run(new ExecutionMonitor());
+    }
+
+    private static void assertSameModel(final Svm expected, final Svm actual) {
+        assertThat("Different support vectors", Arrays.equals(actual.getSupportVectors(),
+            expected.getSupportVectors()), is(true));
+        for (int i = 0; i < expected.getAlphas().length; i++) {
+            assertEquals("Different alpha " + i, expected.getAlphas()[i], actual.getAlphas()[i], TOLERANCE);
+        }
+        assertEquals("Different bias", expected.getThreshold(), actual.getThreshold(), TOLERANCE);
+    }
+
+    /**
+     * Learns with and without shrinking, the support vectors and the bias must be the same.
+     *
+     * @throws Exception If that fails
+     */
+    @Test
+    public void testShrinkingLearnsSameModel() throws Exception {
+        DoubleVector[] data = createData(300);
+        Svm withoutShrinking = learn(data, false, SvmAlgorithm.DEFAULT_KERNEL_CACHE_SIZE);
+        Svm withShrinking = learn(data, true, SvmAlgorithm.DEFAULT_KERNEL_CACHE_SIZE);
+        assertThat("Too few support vectors for a meaningful test", withoutShrinking.getSupportVectors().length > 20,
+            is(true));
+        assertSameModel(withoutShrinking, withShrinking);
+    }
+
+    /**
+     * A cache of only a few rows must not change the model at all, the cached values are the kernel values.
+     *
+     * @throws Exception If that fails
+     */
+    @Test
+    public void testSmallCacheLearnsSameModel() throws Exception {
+        DoubleVector[] data = createData(300);
+        long threeRows = 3L * Double.BYTES * data.length;
+        for (boolean shrinking : new boolean[]{false, true}) {
+            Svm fullCache = learn(data, shrinking, SvmAlgorithm.DEFAULT_KERNEL_CACHE_SIZE);
+            Svm smallCache = learn(data, shrinking, threeRows);
+            assertThat("Different support vectors", Arrays.equals(smallCache.getSupportVectors(),
+                fullCache.getSupportVectors()), is(true));
+            assertThat("Different alphas", Arrays.equals(smallCache.getAlphas(), fullCache.getAlphas()), is(true));
+            assertThat("Different bias", smallCache.getThreshold(), is(fullCache.getThreshold()));
+        }
+    }
+}
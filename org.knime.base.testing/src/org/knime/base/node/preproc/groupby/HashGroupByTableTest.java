@@ -0,0 +1,309 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.preproc.groupby;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.base.data.aggregation.AggregationMethod;
+import org.knime.base.data.aggregation.ColumnAggregator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.base.data.aggregation.OperatorColumnSettings;
+import org.knime.base.data.aggregation.general.CountOperator;
+import org.knime.base.data.aggregation.general.FirstOperator;
+import org.knime.base.data.aggregation.general.LastOperator;
+import org.knime.base.data.aggregation.general.MaxOperator;
+import org.knime.base.data.aggregation.general.MinOperator;
+import org.knime.base.data.aggregation.general.MissingValueCountOperator;
+import org.knime.base.data.aggregation.general.UniqueCountOperator;
+import org.knime.base.data.aggregation.numerical.MeanOperator;
+import org.knime.base.data.aggregation.numerical.SumOperator;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+import org.knime.core.util.Pair;
+
+/**
+ * Compares the result of {@link HashGroupByTable} with the one of {@link BigGroupByTable}, also when partitions are
+ * evicted and spilled to disc.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class HashGroupByTableTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(new String[]{"Group", "Sub", "Int", "Double", "Big"},
+        new DataType[]{StringCell.TYPE, IntCell.TYPE, IntCell.TYPE, DoubleCell.TYPE, IntCell.TYPE});
+
+    private static final List<String> GROUP_COLS = Arrays.asList("Group", "Sub");
+
+    private static final int ROW_COUNT = 20000;
+
+    private ExecutionContext m_exec;
+
+    private GlobalSettings m_settings;
+
+    private BufferedDataTable m_table;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+        m_table = createTable(m_exec, ROW_COUNT);
+        m_settings = GlobalSettings.builder().setGroupColNames(GROUP_COLS).setMaxUniqueValues(30)
+            .setDataTableSpec(SPEC).setNoOfRows(ROW_COUNT).build();
+    }
+
+    /** Disables the forced eviction. */
+    @After
+    public void tearDown() {
+        HashGroupByTable.setRowsBeforeForcedEviction(0);
+    }
+
+    /**
+     * Groups without eviction.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testInMemory() throws Exception {
+        compareAll();
+    }
+
+    /**
+     * Evicts a partition after each batch, the evicted partitions fit into memory on the next level.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testEviction() throws Exception {
+        HashGroupByTable.setRowsBeforeForcedEviction(2500);
+        compareAll();
+    }
+
+    /**
+     * Evicts a partition after every few rows, the evicted partitions are split on several levels.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testRecursiveEviction() throws Exception {
+        HashGroupByTable.setRowsBeforeForcedEviction(50);
+        compareAll();
+    }
+
+    private void compareAll() throws Exception {
+        for (boolean mergeable : new boolean[]{true, false}) {
+            for (boolean retainOrder : new boolean[]{false, true}) {
+                for (boolean enableHilite : new boolean[]{false, true}) {
+                    compare(mergeable, retainOrder, enableHilite);
+                }
+            }
+        }
+    }
+
+    private void compare(final boolean mergeable, final boolean retainOrder, final boolean enableHilite)
+        throws Exception {
+        final String config =
+            "mergeable: " + mergeable + ", retain order: " + retainOrder + ", hilite: " + enableHilite;
+        final GroupByTable reference = new BigGroupByTable(m_exec, m_table, GROUP_COLS, createAggregators(mergeable),
+            m_settings, enableHilite, ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME, retainOrder);
+        final GroupByTable test = new HashGroupByTable(m_exec, m_table, GROUP_COLS, createAggregators(mergeable),
+            m_settings, enableHilite, ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME, retainOrder);
+
+        final BufferedDataTable refTable = reference.getBufferedTable();
+        final BufferedDataTable testTable = test.getBufferedTable();
+        assertThat("Unexpected spec, " + config, testTable.getDataTableSpec(), is(refTable.getDataTableSpec()));
+        final Map<List<DataCell>, DataRow> refRows = collectGroups(refTable);
+        final Map<List<DataCell>, DataRow> testRows = collectGroups(testTable);
+        assertThat("Unexpected groups, " + config, testRows.keySet(), is(refRows.keySet()));
+        if (retainOrder) {
+            assertThat("Unexpected group order, " + config, new ArrayList<>(testRows.keySet()),
+                is(new ArrayList<>(refRows.keySet())));
+        }
+        for (Map.Entry<List<DataCell>, DataRow> entry : refRows.entrySet()) {
+            final DataRow refRow = entry.getValue();
+            final DataRow testRow = testRows.get(entry.getKey());
+            for (int i = GROUP_COLS.size(); i < refRow.getNumCells(); i++) {
+                assertCell("Unexpected cell in group " + entry.getKey() + ", column " + i + ", " + config,
+                    refRow.getCell(i), testRow.getCell(i));
+            }
+        }
+        if (enableHilite) {
+            assertThat("Unexpected hilite mapping, " + config, mapHilite(test, testTable),
+                is(mapHilite(reference, refTable)));
+        }
+        assertThat("Unexpected skipped groups, " + config, toSets(test.getSkippedGroupsByColName()),
+            is(toSets(reference.getSkippedGroupsByColName())));
+        assertThat("Test data expected to skip groups", reference.getSkippedGroupsByColName().isEmpty(), is(false));
+    }
+
+    private static void assertCell(final String msg, final DataCell expected, final DataCell actual) {
+        if (!expected.isMissing() && !actual.isMissing() && expected.getType().equals(DoubleCell.TYPE)) {
+            //partial sums are added in a different order
+            final double e = ((DoubleValue)expected).getDoubleValue();
+            final double a = ((DoubleValue)actual).getDoubleValue();
+            assertThat(msg + ": expected " + e + " but was " + a, Math.abs(e - a) <= 1e-9 * Math.max(1, Math.abs(e)),
+                is(true));
+        } else {
+            assertThat(msg, actual, is(expected));
+        }
+    }
+
+    private static Map<List<DataCell>, DataRow> collectGroups(final BufferedDataTable table) {
+        final Map<List<DataCell>, DataRow> groups = new LinkedHashMap<>();
+        for (DataRow row : table) {
+            final List<DataCell> groupVals = new ArrayList<>();
+            for (int i = 0; i < GROUP_COLS.size(); i++) {
+                groupVals.add(row.getCell(i));
+            }
+            assertThat("Duplicate group " + groupVals, groups.put(groupVals, row) == null, is(true));
+        }
+        return groups;
+    }
+
+    /** @return the hilite mapping with the group values instead of the new row keys */
+    private static Map<List<DataCell>, Set<RowKey>> mapHilite(final GroupByTable groupByTable,
+        final BufferedDataTable table) {
+        final Map<RowKey, Set<RowKey>> mapping = groupByTable.getHiliteMapping();
+        final Map<List<DataCell>, Set<RowKey>> result = new HashMap<>();
+        for (Map.Entry<List<DataCell>, DataRow> entry : collectGroups(table).entrySet()) {
+            result.put(entry.getKey(), mapping.get(entry.getValue().getKey()));
+        }
+        return result;
+    }
+
+    private static Map<String, Set<Pair<String, String>>> toSets(
+        final Map<String, Collection<Pair<String, String>>> skipped) {
+        final Map<String, Set<Pair<String, String>>> result = new HashMap<>();
+        for (Map.Entry<String, Collection<Pair<String, String>>> entry : skipped.entrySet()) {
+            result.put(entry.getKey(), new HashSet<>(entry.getValue()));
+        }
+        return result;
+    }
+
+    /** @param mergeable <code>true</code> for operators that support merging only, which enables threads */
+    private static ColumnAggregator[] createAggregators(final boolean mergeable) {
+        final GlobalSettings s = GlobalSettings.DEFAULT;
+        final OperatorColumnSettings excl = OperatorColumnSettings.DEFAULT_EXCL_MISSING;
+        final OperatorColumnSettings incl = OperatorColumnSettings.DEFAULT_INCL_MISSING;
+        final List<ColumnAggregator> aggregators = new ArrayList<>(Arrays.asList(
+            createAggregator("Int", new SumOperator(s, excl), false),
+            createAggregator("Double", new MeanOperator(s, excl), false),
+            createAggregator("Double", new CountOperator(s, incl), true),
+            createAggregator("Double", new MissingValueCountOperator(s, incl), true),
+            createAggregator("Int", new MinOperator(s, excl), false),
+            createAggregator("Double", new MaxOperator(s, excl), false),
+            createAggregator("Double", new FirstOperator(s, incl), true),
+            createAggregator("Int", new LastOperator(s, excl), false),
+            //int overflow marks large groups as skipped
+            createAggregator("Big", new SumOperator(s, excl), false)));
+        if (!mergeable) {
+            //more values than allowed mark large groups as skipped
+            aggregators.add(createAggregator("Int", new UniqueCountOperator(s, excl), false));
+        }
+        return aggregators.toArray(new ColumnAggregator[0]);
+    }
+
+    private static ColumnAggregator createAggregator(final String col, final AggregationMethod method,
+        final boolean inclMissing) {
+        return new ColumnAggregator(SPEC.getColumnSpec(col), method, inclMissing);
+    }
+
+    /** Creates a table with skewed group sizes, missing group values and missing cells. */
+    private static BufferedDataTable createTable(final ExecutionContext exec, final int rowCount) {
+        final Random r = new Random(42);
+        final BufferedDataContainer c = exec.createDataContainer(SPEC);
+        for (int i = 0; i < rowCount; i++) {
+            final int group = (int)Math.abs(r.nextGaussian() * 100);
+            final DataCell[] cells = new DataCell[SPEC.getNumColumns()];
+            cells[0] = group % 37 == 5 ? DataType.getMissingCell() : new StringCell("G" + group);
+            cells[1] = new IntCell(r.nextInt(3));
+            cells[2] = r.nextInt(10) == 0 ? DataType.getMissingCell() : new IntCell(r.nextInt(1000) - 500);
+            cells[3] = r.nextInt(10) == 0 ? DataType.getMissingCell() : new DoubleCell(r.nextInt(50) / 7.0);
+            cells[4] = new IntCell(r.nextInt(Integer.MAX_VALUE / 20));
+            c.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), cells));
+        }
+        c.close();
+        return c.getTable();
+    }
+}
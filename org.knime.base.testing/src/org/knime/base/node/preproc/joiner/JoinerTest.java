@@ -233,6 +233,36 @@ public final void testSkipPartitionsInnerJoin() throws Exception {
     }
 
 
+    /**
+     * Checks whether a full outer join with a single thread gives the same result as the parallel join when
+     * partitions are skipped and spilled.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public final void testSingleThreadedFullOuterJoin() throws Exception {
+        Joiner2Settings settingsRef = createReferenceSettings("Data");
+        settingsRef.setJoinMode(JoinMode.FullOuterJoin);
+
+        Joiner2Settings settingsTest = createReferenceSettings("Data");
+        settingsTest.setJoinMode(JoinMode.FullOuterJoin);
+
+        BufferedDataTable leftTable = m_exec.createBufferedDataTable(new TestData(200, 1), m_exec);
+        BufferedDataTable rightTable = m_exec.createBufferedDataTable(new TestData(100, 1), m_exec);
+
+        // run joiner with reference settings
+        Joiner joinerRef = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsRef);
+        BufferedDataTable reference = joinerRef.computeJoinTable(leftTable, rightTable, m_exec);
+
+        // run joiner with test settings
+        Joiner joinerTest = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsTest);
+        joinerTest.setNumThreads(1);
+        joinerTest.setRowsAddedBeforeOOM(10);
+        joinerTest.setNumBitsInitial(8);
+        BufferedDataTable test = joinerTest.computeJoinTable(leftTable, rightTable, m_exec);
+        compareTables(reference, test);
+    }
+
     @Test
     public final void testSkipPartitionsLeftOuterJoin() throws Exception {
         Joiner2Settings settingsRef = createReferenceSettings("Data");
@@ -0,0 +1,162 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.mine.treeensemble2.model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigInteger;
+
+import org.junit.Test;
+import org.knime.base.node.mine.treeensemble2.data.NominalValueRepresentation;
+import org.knime.base.node.mine.treeensemble2.data.PredictorRecord;
+import org.knime.base.node.mine.treeensemble2.data.TestDataGenerator;
+import org.knime.base.node.mine.treeensemble2.data.TreeData;
+import org.knime.base.node.mine.treeensemble2.data.TreeNominalColumnData;
+import org.knime.base.node.mine.treeensemble2.data.TreeNominalColumnMetaData;
+import org.knime.base.node.mine.treeensemble2.data.TreeNumericColumnData;
+import org.knime.base.node.mine.treeensemble2.data.TreeNumericColumnMetaData;
+import org.knime.base.node.mine.treeensemble2.data.TreeTargetColumnMetaData;
+import org.knime.base.node.mine.treeensemble2.model.AbstractTreeEnsembleModel.TreeType;
+import org.knime.base.node.mine.treeensemble2.model.TreeNodeNumericCondition.NumericOperator;
+import org.knime.base.node.mine.treeensemble2.node.learner.TreeEnsembleLearnerConfiguration;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * This class contains unit tests for the class {@link FlatTreeEnsembleModel}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class FlatTreeEnsembleModelTest {
+
+    /**
+     * Tests that {@link FlatTreeEnsembleModel#findLeaf(int, double[])} finds the same leaf as
+     * {@link AbstractTreeModel#findMatchingNode(PredictorRecord)} for numeric, nominal and surrogate conditions and
+     * missing or unknown values.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFindLeaf() throws Exception {
+        final TreeEnsembleLearnerConfiguration config = new TreeEnsembleLearnerConfiguration(false);
+        final TestDataGenerator dataGen = new TestDataGenerator(config);
+        final TreeNumericColumnData numCol = dataGen.createNumericAttributeColumn("1,2,3,4,5,6,7,8", "x", 0);
+        final TreeNominalColumnData nomCol = dataGen.createNominalAttributeColumn("a,b,c,a,b,c,a,b", "color", 1);
+        final TreeData data = dataGen.createTreeData(
+            TestDataGenerator.createNumericTargetColumn("1,2,3,4,5,6,7,8"), numCol, nomCol);
+        final TreeTargetColumnMetaData targetMeta = data.getMetaData().getTargetMetaData();
+        final TreeNumericColumnMetaData x = numCol.getMetaData();
+        final TreeNominalColumnMetaData color = nomCol.getMetaData();
+
+        final TreeNodeSignature rootSig = TreeNodeSignature.ROOT_SIGNATURE;
+        final TreeNodeSignature leftSig = rootSig.createChildSignature((byte)0);
+        final TreeNodeSignature rightSig = rootSig.createChildSignature((byte)1);
+        final TreeNodeRegression leftA = leaf(targetMeta, leftSig.createChildSignature((byte)0), 1,
+            new TreeNodeNominalBinaryCondition(color, BigInteger.ONE.shiftLeft(indexOf(color, "a")), true, false));
+        final TreeNodeRegression leftB = leaf(targetMeta, leftSig.createChildSignature((byte)1), 2,
+            new TreeNodeNominalBinaryCondition(color, BigInteger.ONE.shiftLeft(indexOf(color, "a")), false, true));
+        final TreeNodeRegression rightA = leaf(targetMeta, rightSig.createChildSignature((byte)0), 3,
+            new TreeNodeNominalCondition(color, indexOf(color, "b"), false));
+        final TreeNodeRegression rightB = leaf(targetMeta, rightSig.createChildSignature((byte)1), 4,
+            new TreeNodeSurrogateCondition(new TreeNodeColumnCondition[]{
+                new TreeNodeNominalCondition(color, indexOf(color, "c"), false),
+                new TreeNodeNumericCondition(x, 6, NumericOperator.LargerThan, false)}, true));
+        final TreeNodeRegression left = new TreeNodeRegression(targetMeta, leftSig, 1.5, 0, 0,
+            new TreeNodeRegression[]{leftA, leftB});
+        left.setTreeNodeCondition(new TreeNodeNumericCondition(x, 3, NumericOperator.LessThanOrEqual, true));
+        final TreeNodeRegression right = new TreeNodeRegression(targetMeta, rightSig, 3.5, 0, 0,
+            new TreeNodeRegression[]{rightA, rightB});
+        right.setTreeNodeCondition(new TreeNodeNumericCondition(x, 3, NumericOperator.LargerThan, false));
+        final TreeNodeRegression root = new TreeNodeRegression(targetMeta, rootSig, 2.5, 0, 0,
+            new TreeNodeRegression[]{left, right});
+        final TreeEnsembleModel model = new TreeEnsembleModel(data.getMetaData(),
+            new AbstractTreeModel[]{new TreeModelRegression(root)}, TreeType.Ordinary, false);
+
+        final DataTableSpec learnSpec = new DataTableSpec(new DataColumnSpecCreator("x", DoubleCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("color", StringCell.TYPE).createSpec());
+        final FlatTreeEnsembleModel flatModel = model.getFlatModel();
+        final FlatTreeEnsembleModel.RowEncoder encoder = flatModel.getRowEncoder(learnSpec);
+        final DataCell[] xValues = {new DoubleCell(1), new DoubleCell(3), new DoubleCell(4), new DoubleCell(7),
+            new DoubleCell(Double.NaN), DataType.getMissingCell()};
+        final DataCell[] colorValues = {new StringCell("a"), new StringCell("b"), new StringCell("c"),
+            new StringCell("unknown"), DataType.getMissingCell()};
+        int rowIndex = 0;
+        for (DataCell xValue : xValues) {
+            for (DataCell colorValue : colorValues) {
+                final DataRow row = new DefaultRow(RowKey.createRowKey((long)rowIndex++), xValue, colorValue);
+                final double expected = model.getTreeModelRegression(0)
+                    .findMatchingNode(model.createPredictorRecord(row, learnSpec)).getMean();
+                final double[] values = encoder.createRow();
+                encoder.encode(row, values);
+                assertEquals("Wrong leaf for " + row, expected,
+                    flatModel.getLeafValue(flatModel.findLeaf(0, values)), 0.0);
+            }
+        }
+    }
+
+    private static TreeNodeRegression leaf(final TreeTargetColumnMetaData targetMeta,
+        final TreeNodeSignature signature, final double mean, final TreeNodeCondition condition) {
+        final TreeNodeRegression leaf = new TreeNodeRegression(targetMeta, signature, mean, 0, 0);
+        leaf.setTreeNodeCondition(condition);
+        return leaf;
+    }
+
+    private static int indexOf(final TreeNominalColumnMetaData meta, final String value) {
+        for (NominalValueRepresentation rep : meta.getValues()) {
+            if (rep.getNominalValue().equals(value)) {
+                return rep.getAssignedInteger();
+            }
+        }
+        throw new IllegalArgumentException("Unknown value " + value);
+    }
+}
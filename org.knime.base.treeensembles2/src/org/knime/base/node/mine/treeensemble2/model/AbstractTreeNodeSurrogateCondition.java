@@ -99,6 +99,13 @@ public boolean testCondition(final PredictorRecord record) {
         return m_defaultResponse;
     }
 
+    /**
+     * @return the response if the values of all columns of the condition and its surrogates are missing
+     */
+    boolean getDefaultResponse() {
+        return m_defaultResponse;
+    }
+
     /**
      * @return the first condition (corresponding to the best split determined during training)
      */
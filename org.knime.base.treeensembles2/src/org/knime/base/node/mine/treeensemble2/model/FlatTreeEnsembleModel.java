@@ -0,0 +1,535 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.mine.treeensemble2.model;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.knime.base.node.mine.treeensemble2.data.NominalValueRepresentation;
+import org.knime.base.node.mine.treeensemble2.data.TreeAttributeColumnMetaData;
+import org.knime.base.node.mine.treeensemble2.data.TreeMetaData;
+import org.knime.base.node.mine.treeensemble2.data.TreeNominalColumnMetaData;
+import org.knime.base.node.mine.treeensemble2.model.AbstractTreeEnsembleModel.TreeType;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.NominalValue;
+import org.knime.core.data.vector.bitvector.BitVectorValue;
+import org.knime.core.data.vector.bytevector.ByteVectorValue;
+import org.knime.core.data.vector.doublevector.DoubleVectorValue;
+
+/**
+ * Read-only representation of all trees of a {@link TreeEnsembleModel} in primitive arrays, used for prediction. The
+ * nodes of all trees are numbered breadth first so that the children of a node are adjacent; the condition of a node
+ * (whether a record is passed to it) is stored in parallel arrays indexed by the node number. Nominal set conditions
+ * are stored as bit sets.
+ *
+ * <p>
+ * Instead of a {@link org.knime.base.node.mine.treeensemble2.data.PredictorRecord} a row is represented as a
+ * <code>double[]</code> with an entry per attribute (see {@link #getRowEncoder(DataTableSpec)}). Nominal values are
+ * represented by their assigned integer, bits by 0 or 1 and missing values by {@link Double#NaN}. The result of
+ * {@link #findLeaf(int, double[])} is the same as the one of {@link AbstractTreeModel#findMatchingNode(
+ * org.knime.base.node.mine.treeensemble2.data.PredictorRecord)}.
+ *
+ * <p>
+ * Instances are created via {@link TreeEnsembleModel#getFlatModel()} and are thread-safe.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public final class FlatTreeEnsembleModel {
+
+    private static final byte TRUE = 0;
+
+    private static final byte NUMERIC_LESS_OR_EQUAL = 1;
+
+    private static final byte NUMERIC_LARGER = 2;
+
+    private static final byte NOMINAL = 3;
+
+    private static final byte NOMINAL_SET = 4;
+
+    private static final byte BIT = 5;
+
+    private static final byte SURROGATE = 6;
+
+    /** Condition flag: the condition accepts missing values. */
+    private static final byte ACCEPTS_MISSING = 1;
+
+    /** Condition flag: set logic is 'is in' (nominal sets) or default response is true (surrogates). */
+    private static final byte POSITIVE = 2;
+
+    /** Condition flag: bits beyond the stored mask are set (negative mask). */
+    private static final byte MASK_FILL = 4;
+
+    private final TreeMetaData m_metaData;
+
+    private final TreeType m_type;
+
+    /** Node number of the root of each tree. */
+    private final int[] m_treeRoots;
+
+    /** Node number of the first child, per node. */
+    private final int[] m_childStart;
+
+    /** Number of children, 0 for leafs. */
+    private final int[] m_childCount;
+
+    /** Value assigned to each node, e.g. the mean for regression trees. */
+    private final double[] m_nodeValues;
+
+    /** The original tree nodes. */
+    private final AbstractTreeNode[] m_nodes;
+
+    // condition arrays, the first entries are the conditions of the nodes, followed by surrogate column conditions
+
+    private final byte[] m_condType;
+
+    private final byte[] m_condFlags;
+
+    private final int[] m_condAttribute;
+
+    /** Split value for numeric conditions, value index for nominal conditions, 0/1 for bit conditions. */
+    private final double[] m_condValue;
+
+    /** Start in {@link #m_masks} (nominal sets) or first condition number (surrogates). */
+    private final int[] m_condOffset;
+
+    /** Number of mask words (nominal sets) or conditions (surrogates). */
+    private final int[] m_condLength;
+
+    private final long[] m_masks;
+
+    private volatile RowEncoder m_lastRowEncoder;
+
+    /**
+     * Compiles the trees of a model.
+     *
+     * @param model the model to compile, see {@link TreeEnsembleModel#getLeafValue(int, AbstractTreeNode)}
+     */
+    FlatTreeEnsembleModel(final TreeEnsembleModel model) {
+        m_metaData = model.getMetaData();
+        m_type = model.getType();
+        final int nrTrees = model.getNrModels();
+        m_treeRoots = new int[nrTrees];
+        final List<AbstractTreeNode> nodes = new ArrayList<>();
+        final List<Integer> childStarts = new ArrayList<>();
+        final List<Integer> treeIndices = new ArrayList<>();
+        for (int t = 0; t < nrTrees; t++) {
+            m_treeRoots[t] = nodes.size();
+            nodes.add(model.getTreeModel(t).getRootNode());
+            // nodes list grows while iterating, the children of each node are appended in a row
+            for (int n = m_treeRoots[t]; n < nodes.size(); n++) {
+                childStarts.add(nodes.size());
+                treeIndices.add(t);
+                nodes.addAll(nodes.get(n).getChildren());
+            }
+        }
+        final int nrNodes = nodes.size();
+        m_childStart = new int[nrNodes];
+        m_childCount = new int[nrNodes];
+        m_nodeValues = new double[nrNodes];
+        m_nodes = nodes.toArray(new AbstractTreeNode[nrNodes]);
+        final List<TreeNodeCondition> conditions = new ArrayList<>(nrNodes);
+        for (int n = 0; n < nrNodes; n++) {
+            final AbstractTreeNode node = nodes.get(n);
+            m_childStart[n] = childStarts.get(n);
+            m_childCount[n] = node.getNrChildren();
+            m_nodeValues[n] = model.getLeafValue(treeIndices.get(n), node);
+            // the condition of the root is never tested
+            final boolean isRoot = n == m_treeRoots[treeIndices.get(n)];
+            conditions.add(isRoot ? TreeNodeTrueCondition.INSTANCE : node.getCondition());
+        }
+        // surrogate column conditions are appended while iterating
+        final List<Integer> surrogateStarts = new ArrayList<>();
+        for (int c = 0; c < conditions.size(); c++) {
+            surrogateStarts.add(conditions.size());
+            final TreeNodeCondition condition = conditions.get(c);
+            if (condition instanceof AbstractTreeNodeSurrogateCondition) {
+                final AbstractTreeNodeSurrogateCondition surrogate = (AbstractTreeNodeSurrogateCondition)condition;
+                for (int i = 0; i < surrogate.getNumSurrogates() + 1; i++) {
+                    conditions.add(surrogate.getColumnCondition(i));
+                }
+            }
+        }
+        final int nrConditions = conditions.size();
+        m_condType = new byte[nrConditions];
+        m_condFlags = new byte[nrConditions];
+        m_condAttribute = new int[nrConditions];
+        m_condValue = new double[nrConditions];
+        m_condOffset = new int[nrConditions];
+        m_condLength = new int[nrConditions];
+        final List<long[]> masks = new ArrayList<>();
+        int maskLength = 0;
+        for (int c = 0; c < nrConditions; c++) {
+            final TreeNodeCondition condition = conditions.get(c);
+            if (condition instanceof TreeNodeColumnCondition) {
+                final TreeNodeColumnCondition columnCondition = (TreeNodeColumnCondition)condition;
+                m_condAttribute[c] = columnCondition.getColumnMetaData().getAttributeIndex();
+                if (columnCondition.acceptsMissings()) {
+                    m_condFlags[c] |= ACCEPTS_MISSING;
+                }
+            }
+            if (condition instanceof TreeNodeTrueCondition) {
+                m_condType[c] = TRUE;
+            } else if (condition instanceof TreeNodeNumericCondition) {
+                final TreeNodeNumericCondition numeric = (TreeNodeNumericCondition)condition;
+                switch (numeric.getNumericOperator()) {
+                    case LessThanOrEqual:
+                    case LessThanOrEqualOrMissing:
+                        m_condType[c] = NUMERIC_LESS_OR_EQUAL;
+                        break;
+                    case LargerThan:
+                    case LargerThanOrMissing:
+                        m_condType[c] = NUMERIC_LARGER;
+                        break;
+                    default:
+                        throw new UnsupportedOperationException(
+                            "Unsupported operator: " + numeric.getNumericOperator());
+                }
+                m_condValue[c] = numeric.getSplitValue();
+            } else if (condition instanceof TreeNodeNominalCondition) {
+                m_condType[c] = NOMINAL;
+                m_condValue[c] = ((TreeNodeNominalCondition)condition).getValueIndex();
+            } else if (condition instanceof TreeNodeNominalBinaryCondition) {
+                final TreeNodeNominalBinaryCondition nominalSet = (TreeNodeNominalBinaryCondition)condition;
+                m_condType[c] = NOMINAL_SET;
+                if (nominalSet.getSetLogic() == TreeNodeNominalBinaryCondition.SetLogic.IS_IN) {
+                    m_condFlags[c] |= POSITIVE;
+                }
+                final BigInteger mask = nominalSet.getValuesMask();
+                if (mask.signum() < 0) {
+                    m_condFlags[c] |= MASK_FILL;
+                }
+                final long[] words = toWords(mask);
+                m_condOffset[c] = maskLength;
+                m_condLength[c] = words.length;
+                masks.add(words);
+                maskLength += words.length;
+            } else if (condition instanceof TreeNodeBitCondition) {
+                m_condType[c] = BIT;
+                m_condValue[c] = ((TreeNodeBitCondition)condition).getValue() ? 1 : 0;
+            } else if (condition instanceof AbstractTreeNodeSurrogateCondition) {
+                final AbstractTreeNodeSurrogateCondition surrogate = (AbstractTreeNodeSurrogateCondition)condition;
+                m_condType[c] = SURROGATE;
+                if (surrogate.getDefaultResponse()) {
+                    m_condFlags[c] |= POSITIVE;
+                }
+                m_condOffset[c] = surrogateStarts.get(c);
+                m_condLength[c] = surrogate.getNumSurrogates() + 1;
+            } else {
+                throw new IllegalStateException("Unsupported condition type: " + condition.getClass().getName());
+            }
+        }
+        m_masks = new long[maskLength];
+        int offset = 0;
+        for (long[] words : masks) {
+            System.arraycopy(words, 0, m_masks, offset, words.length);
+            offset += words.length;
+        }
+    }
+
+    private static long[] toWords(final BigInteger mask) {
+        final long[] words = new long[(mask.bitLength() + 63) / 64];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = mask.shiftRight(64 * i).longValue();
+        }
+        return words;
+    }
+
+    /** @return the number of trees */
+    public int getNrTrees() {
+        return m_treeRoots.length;
+    }
+
+    /** @return the number of attributes, i.e. the length of a row array */
+    public int getNrAttributes() {
+        return m_metaData.getNrAttributes();
+    }
+
+    /**
+     * Finds the leaf of a tree that a row is assigned to.
+     *
+     * @param treeIndex the index of the tree
+     * @param row the attribute values of the row
+     * @return the node number of the leaf
+     */
+    public int findLeaf(final int treeIndex, final double[] row) {
+        int node = m_treeRoots[treeIndex];
+        while (true) {
+            final int nrChildren = m_childCount[node];
+            if (nrChildren == 0) {
+                return node;
+            }
+            final int start = m_childStart[node];
+            int next = -1;
+            for (int c = start; c < start + nrChildren; c++) {
+                if (test(c, row)) {
+                    next = c;
+                    break;
+                }
+            }
+            if (next < 0) {
+                // no child accepts the row, same as AbstractTreeModel#findMatchingNode
+                return node;
+            }
+            node = next;
+        }
+    }
+
+    private boolean test(final int condition, final double[] row) {
+        final byte type = m_condType[condition];
+        if (type == TRUE) {
+            return true;
+        }
+        if (type == SURROGATE) {
+            final int start = m_condOffset[condition];
+            for (int c = start; c < start + m_condLength[condition]; c++) {
+                if (!Double.isNaN(row[m_condAttribute[c]])) {
+                    return test(c, row);
+                }
+            }
+            // all evaluated columns were missing
+            return (m_condFlags[condition] & POSITIVE) != 0;
+        }
+        final double value = row[m_condAttribute[condition]];
+        if (Double.isNaN(value)) {
+            if (type == BIT) {
+                throw new UnsupportedOperationException("Missing values currently not supported for bitvectors");
+            }
+            return (m_condFlags[condition] & ACCEPTS_MISSING) != 0;
+        }
+        switch (type) {
+            case NUMERIC_LESS_OR_EQUAL:
+                return value <= m_condValue[condition];
+            case NUMERIC_LARGER:
+                return value > m_condValue[condition];
+            case NOMINAL:
+            case BIT:
+                return value == m_condValue[condition];
+            case NOMINAL_SET:
+                return testBit(condition, (int)value) == ((m_condFlags[condition] & POSITIVE) != 0);
+            default:
+                throw new IllegalStateException("Unknown condition type: " + type);
+        }
+    }
+
+    private boolean testBit(final int condition, final int valueIndex) {
+        if (valueIndex < 0) {
+            return false;
+        }
+        final int word = valueIndex >>> 6;
+        if (word >= m_condLength[condition]) {
+            return (m_condFlags[condition] & MASK_FILL) != 0;
+        }
+        return (m_masks[m_condOffset[condition] + word] & (1L << valueIndex)) != 0;
+    }
+
+    /**
+     * @param leaf a node number as returned by {@link #findLeaf(int, double[])}
+     * @return the value assigned to the leaf when the model was compiled
+     */
+    public double getLeafValue(final int leaf) {
+        return m_nodeValues[leaf];
+    }
+
+    /**
+     * @param leaf a node number as returned by {@link #findLeaf(int, double[])}
+     * @return the original tree node
+     * @param <N> the type of the tree nodes
+     */
+    @SuppressWarnings("unchecked")
+    public <N extends AbstractTreeNode> N getLeafNode(final int leaf) {
+        return (N)m_nodes[leaf];
+    }
+
+    /**
+     * Returns an encoder that fills the attribute values of a row into a primitive array. The encoder of the last
+     * invocation is reused if called with the same spec instance.
+     *
+     * @param learnSpec the spec of the learn columns (as used in
+     *            {@link AbstractTreeEnsembleModel#createPredictorRecord(DataRow, DataTableSpec)})
+     * @return an encoder for the spec
+     */
+    public RowEncoder getRowEncoder(final DataTableSpec learnSpec) {
+        RowEncoder encoder = m_lastRowEncoder;
+        if (encoder == null || encoder.m_learnSpec != learnSpec) {
+            encoder = new RowEncoder(learnSpec);
+            m_lastRowEncoder = encoder;
+        }
+        return encoder;
+    }
+
+    /**
+     * Fills the attribute values of data rows into a primitive array, the counterpart of
+     * {@link AbstractTreeEnsembleModel#createPredictorRecord(DataRow, DataTableSpec)}. Instances are thread-safe.
+     */
+    public final class RowEncoder {
+
+        private final DataTableSpec m_learnSpec;
+
+        private final boolean[] m_isNominal;
+
+        /** Per nominal column, value to assigned integer. */
+        private final Map<String, Integer>[] m_nominalValues;
+
+        @SuppressWarnings("unchecked")
+        private RowEncoder(final DataTableSpec learnSpec) {
+            m_learnSpec = learnSpec;
+            if (m_type != TreeType.Ordinary) {
+                m_isNominal = null;
+                m_nominalValues = null;
+                return;
+            }
+            final int nrCols = learnSpec.getNumColumns();
+            m_isNominal = new boolean[nrCols];
+            m_nominalValues = new Map[nrCols];
+            for (int i = 0; i < nrCols; i++) {
+                final DataColumnSpec col = learnSpec.getColumnSpec(i);
+                final DataType colType = col.getType();
+                if (colType.isCompatible(NominalValue.class)) {
+                    m_isNominal[i] = true;
+                    final TreeAttributeColumnMetaData colMeta = m_metaData.getAttributeMetaData(i);
+                    final NominalValueRepresentation[] nomVals = ((TreeNominalColumnMetaData)colMeta).getValues();
+                    m_nominalValues[i] = new HashMap<>((int)(nomVals.length / 0.75 + 1.0));
+                    for (NominalValueRepresentation nomVal : nomVals) {
+                        m_nominalValues[i].putIfAbsent(nomVal.getNominalValue(), nomVal.getAssignedInteger());
+                    }
+                } else if (!colType.isCompatible(DoubleValue.class)) {
+                    throw new IllegalStateException("Expected nominal or numeric column type for column \""
+                        + col.getName() + "\" but got \"" + colType + "\"");
+                }
+            }
+        }
+
+        /** @return a new array to be filled by {@link #encode(DataRow, double[])} */
+        public double[] createRow() {
+            return new double[getNrAttributes()];
+        }
+
+        /**
+         * Fills the attribute values of a row.
+         *
+         * @param filterRow the row containing the learn columns only
+         * @param row the array to fill, see {@link #createRow()}
+         * @return false if the row can't be predicted (missing vector)
+         */
+        public boolean encode(final DataRow filterRow, final double[] row) {
+            switch (m_type) {
+                case Ordinary:
+                    encodeNominalNumeric(filterRow, row);
+                    return true;
+                case BitVector:
+                case ByteVector:
+                case DoubleVector:
+                    return encodeVector(filterRow, row);
+                default:
+                    throw new IllegalStateException("Unknown tree type " + "(not implemented): " + m_type);
+            }
+        }
+
+        private void encodeNominalNumeric(final DataRow filterRow, final double[] row) {
+            for (int i = 0; i < m_isNominal.length; i++) {
+                final DataCell cell = filterRow.getCell(i);
+                if (cell.isMissing()) {
+                    row[i] = Double.NaN;
+                } else if (m_isNominal[i]) {
+                    // values not known to the model are treated as missing values
+                    final Integer assignedInteger = m_nominalValues[i].get(cell.toString());
+                    row[i] = assignedInteger == null ? Double.NaN : assignedInteger;
+                } else {
+                    row[i] = ((DoubleValue)cell).getDoubleValue();
+                }
+            }
+        }
+
+        private boolean encodeVector(final DataRow filterRow, final double[] row) {
+            assert filterRow.getNumCells() == 1 : "Expected one cell as vector data";
+            final DataCell c = filterRow.getCell(0);
+            if (c.isMissing()) {
+                return false;
+            }
+            final long length;
+            if (m_type == TreeType.BitVector) {
+                final BitVectorValue bv = (BitVectorValue)c;
+                length = bv.length();
+                checkLength(filterRow, "bit", length);
+                for (int i = 0; i < length; i++) {
+                    row[i] = bv.get(i) ? 1 : 0;
+                }
+            } else if (m_type == TreeType.ByteVector) {
+                final ByteVectorValue bv = (ByteVectorValue)c;
+                length = bv.length();
+                checkLength(filterRow, "byte", length);
+                for (int i = 0; i < length; i++) {
+                    row[i] = bv.get(i);
+                }
+            } else {
+                final DoubleVectorValue dv = (DoubleVectorValue)c;
+                length = dv.getLength();
+                checkLength(filterRow, "double", length);
+                for (int i = 0; i < length; i++) {
+                    // NaN is treated as missing value
+                    row[i] = dv.getValue(i);
+                }
+            }
+            return true;
+        }
+
+        private void checkLength(final DataRow filterRow, final String vectorType, final long length) {
+            if (length != getNrAttributes()) {
+                throw new IllegalArgumentException("The " + vectorType + "-vector in " + filterRow.getKey().getString()
+                    + " has the wrong length. (" + length + " instead of " + getNrAttributes() + ")");
+            }
+        }
+    }
+}
@@ -121,6 +121,34 @@ public double predict(final PredictorRecord record) {
         return prediction;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @return the coefficient of the node, {@link Double#NaN} for inner nodes
+     */
+    @Override
+    protected double getLeafValue(final int modelIndex, final AbstractTreeNode node) {
+        final Double coefficient = m_coefficientMaps.get(modelIndex).get(node.getSignature());
+        return coefficient == null ? Double.NaN : coefficient;
+    }
+
+    /**
+     * Predicts the value of a row encoded by a {@link FlatTreeEnsembleModel.RowEncoder}, which is equivalent to
+     * {@link #predict(org.knime.base.node.mine.treeensemble2.data.PredictorRecord)}.
+     *
+     * @param row the attribute values
+     * @return the prediction
+     * @since 3.6
+     */
+    public double predict(final double[] row) {
+        final FlatTreeEnsembleModel flatModel = getFlatModel();
+        double prediction = getInitialValue();
+        for (int i = 0; i < flatModel.getNrTrees(); i++) {
+            prediction += flatModel.getLeafValue(flatModel.findLeaf(i, row));
+        }
+        return prediction;
+    }
+
     /**
      * {@inheritDoc}
      */
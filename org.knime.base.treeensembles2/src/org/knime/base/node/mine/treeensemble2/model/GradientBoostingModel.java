@@ -100,6 +100,16 @@ public double predict(final PredictorRecord record) {
         return prediction;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @return the mean of the node multiplied with the coefficient of the tree
+     */
+    @Override
+    protected double getLeafValue(final int modelIndex, final AbstractTreeNode node) {
+        return m_coefficients[modelIndex] * super.getLeafValue(modelIndex, node);
+    }
+
     /**
      * {@inheritDoc}
      */
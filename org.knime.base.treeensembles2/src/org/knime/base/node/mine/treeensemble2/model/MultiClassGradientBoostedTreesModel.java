@@ -189,6 +189,18 @@ public Map<TreeNodeSignature, Double> getCoefficientMap(final int levelIdx, fina
         return m_coefficientMaps.get(levelIdx).get(classIdx);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @return the coefficient of the node, {@link Double#NaN} for inner nodes
+     */
+    @Override
+    protected double getLeafValue(final int modelIndex, final AbstractTreeNode node) {
+        final Double coefficient =
+            getCoefficientMap(modelIndex / m_numClasses, modelIndex % m_numClasses).get(node.getSignature());
+        return coefficient == null ? Double.NaN : coefficient;
+    }
+
     public int getNrClasses() {
         return m_numClasses;
     }
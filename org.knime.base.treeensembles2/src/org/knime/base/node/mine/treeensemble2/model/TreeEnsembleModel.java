@@ -82,6 +82,9 @@ public class TreeEnsembleModel extends AbstractTreeEnsembleModel {
      */
     private final boolean m_containsClassDistribution;
 
+    /** Lazily created in {@link #getFlatModel()}. */
+    private volatile FlatTreeEnsembleModel m_flatModel;
+
     /**
      * @param models
      */
@@ -133,6 +136,42 @@ public int getNrModels() {
         return m_models.length;
     }
 
+    /**
+     * Returns the trees compiled into primitive arrays, which is faster to use for prediction than
+     * {@link AbstractTreeModel#findMatchingNode(org.knime.base.node.mine.treeensemble2.data.PredictorRecord)}.
+     * The representation is created on first access.
+     *
+     * @return the flat representation of this model
+     * @since 3.6
+     */
+    public FlatTreeEnsembleModel getFlatModel() {
+        FlatTreeEnsembleModel flatModel = m_flatModel;
+        if (flatModel == null) {
+            synchronized (this) {
+                flatModel = m_flatModel;
+                if (flatModel == null) {
+                    flatModel = new FlatTreeEnsembleModel(this);
+                    m_flatModel = flatModel;
+                }
+            }
+        }
+        return flatModel;
+    }
+
+    /**
+     * The value assigned to a tree node in the {@link #getFlatModel() flat model}, see
+     * {@link FlatTreeEnsembleModel#getLeafValue(int)}. The default is the mean of regression nodes and
+     * {@link Double#NaN} for classification nodes.
+     *
+     * @param modelIndex the index of the tree
+     * @param node a node of that tree
+     * @return the value of the node
+     * @since 3.6
+     */
+    protected double getLeafValue(final int modelIndex, final AbstractTreeNode node) {
+        return node instanceof TreeNodeRegression ? ((TreeNodeRegression)node).getMean() : Double.NaN;
+    }
+
 
 
     public DecisionTree createDecisionTree(final int modelIndex, final DataTable sampleForHiliting) {
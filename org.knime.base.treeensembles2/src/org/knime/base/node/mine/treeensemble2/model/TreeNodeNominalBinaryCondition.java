@@ -182,6 +182,13 @@ public String[] getValues() {
         return values;
     }
 
+    /**
+     * @return the mask of the assigned integers of the values in the set
+     */
+    BigInteger getValuesMask() {
+        return m_valuesMask;
+    }
+
     /**
      * @return the setLogic
      */
@@ -54,16 +54,16 @@
 import java.util.Map;
 
 import org.knime.base.data.filter.column.FilterColumnRow;
-import org.knime.base.node.mine.treeensemble2.data.PredictorRecord;
+import org.knime.base.node.mine.treeensemble2.model.FlatTreeEnsembleModel;
 import org.knime.base.node.mine.treeensemble2.model.MultiClassGradientBoostedTreesModel;
 import org.knime.base.node.mine.treeensemble2.model.TreeEnsembleModelPortObjectSpec;
-import org.knime.base.node.mine.treeensemble2.model.TreeNodeRegression;
 import org.knime.base.node.mine.treeensemble2.node.gradientboosting.predictor.GradientBoostingPredictor;
 import org.knime.base.node.mine.treeensemble2.node.predictor.TreeEnsemblePredictorConfiguration;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
 import org.knime.core.data.container.AbstractCellFactory;
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.StringCell;
@@ -133,14 +133,20 @@ public DataCell[] getCells(final DataRow row) {
         final DataRow filterRow = new FilterColumnRow(row, m_learnColumnInRealDataIndices);
         final int nrClasses = m_model.getNrClasses();
         final int nrLevels = m_model.getNrLevels();
-        final PredictorRecord record = m_model.createPredictorRecord(filterRow, m_learnSpec);
+        final FlatTreeEnsembleModel flatModel = m_model.getFlatModel();
+        final FlatTreeEnsembleModel.RowEncoder encoder = flatModel.getRowEncoder(m_learnSpec);
+        final double[] record = encoder.createRow();
+        if (!encoder.encode(filterRow, record)) { // missing value
+            final DataCell[] missingCells = new DataCell[getColumnSpecs().length];
+            Arrays.fill(missingCells, DataType.getMissingCell());
+            return missingCells;
+        }
         final double[] classFunctionPredictions = new double[nrClasses];
         Arrays.fill(classFunctionPredictions, m_model.getInitialValue());
         for (int i = 0; i < nrLevels; i++) {
             for (int j = 0; j < nrClasses; j++) {
-                final TreeNodeRegression matchingNode = m_model.getModel(i, j).findMatchingNode(record);
-                classFunctionPredictions[j] +=
-                    m_model.getCoefficientMap(i, j).get(matchingNode.getSignature());
+                // trees are stored level by level, see MultiClassGradientBoostedTreesModel#getModel(int, int)
+                classFunctionPredictions[j] += flatModel.getLeafValue(flatModel.findLeaf(i * nrClasses + j, record));
             }
         }
         final double[] classProbabilities = new double[nrClasses];
@@ -49,6 +49,7 @@
 package org.knime.base.node.mine.treeensemble2.node.gradientboosting.predictor.regression;
 
 import org.knime.base.data.filter.column.FilterColumnRow;
+import org.knime.base.node.mine.treeensemble2.model.FlatTreeEnsembleModel;
 import org.knime.base.node.mine.treeensemble2.model.GradientBoostedTreesModel;
 import org.knime.base.node.mine.treeensemble2.model.TreeEnsembleModelPortObjectSpec;
 import org.knime.base.node.mine.treeensemble2.node.gradientboosting.predictor.GradientBoostingPredictor;
@@ -56,6 +57,7 @@
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
 import org.knime.core.data.container.SingleCellFactory;
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.node.InvalidSettingsException;
@@ -102,7 +104,12 @@ public static GradientBoostingPredictorCellFactory createFactory(final GradientB
     @Override
     public DataCell getCell(final DataRow row) {
         DataRow filterRow = new FilterColumnRow(row, m_learnColumnInRealDataIndices);
-        double prediction = m_model.predict(m_model.createPredictorRecord(filterRow, m_learnSpec));
+        final FlatTreeEnsembleModel.RowEncoder encoder = m_model.getFlatModel().getRowEncoder(m_learnSpec);
+        final double[] record = encoder.createRow();
+        if (!encoder.encode(filterRow, record)) { // missing value
+            return DataType.getMissingCell();
+        }
+        double prediction = m_model.predict(record);
         return new DoubleCell(prediction);
     }
 
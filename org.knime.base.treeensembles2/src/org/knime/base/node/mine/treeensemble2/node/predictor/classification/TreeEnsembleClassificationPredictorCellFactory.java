@@ -56,12 +56,11 @@
 
 import org.knime.base.data.filter.column.FilterColumnRow;
 import org.knime.base.node.mine.treeensemble2.data.NominalValueRepresentation;
-import org.knime.base.node.mine.treeensemble2.data.PredictorRecord;
 import org.knime.base.node.mine.treeensemble2.data.TreeTargetNominalColumnMetaData;
+import org.knime.base.node.mine.treeensemble2.model.FlatTreeEnsembleModel;
 import org.knime.base.node.mine.treeensemble2.model.TreeEnsembleModel;
 import org.knime.base.node.mine.treeensemble2.model.TreeEnsembleModelPortObject;
 import org.knime.base.node.mine.treeensemble2.model.TreeEnsembleModelPortObjectSpec;
-import org.knime.base.node.mine.treeensemble2.model.TreeModelClassification;
 import org.knime.base.node.mine.treeensemble2.model.TreeNodeClassification;
 import org.knime.base.node.mine.treeensemble2.node.predictor.TreeEnsemblePredictor;
 import org.knime.base.node.mine.treeensemble2.node.predictor.TreeEnsemblePredictorConfiguration;
@@ -101,6 +100,8 @@ private TreeEnsembleClassificationPredictorCellFactory(final TreeEnsemblePredict
         m_predictor = predictor;
         m_learnSpec = predictor.getModelSpec().getLearnTableSpec();
         m_learnColumnInRealDataIndices = learnColumnInRealDataIndices;
+        // only the learn columns are read, others need not be deserialized
+        setRequiredColumns(learnColumnInRealDataIndices);
         m_votingFactory = votingFactory;
     }
 
@@ -184,8 +185,10 @@ public DataCell[] getCells(final DataRow row) {
         final boolean hasOutOfBagFilter = m_predictor.hasOutOfBagFilter();
         DataCell[] result = new DataCell[size];
         DataRow filterRow = new FilterColumnRow(row, m_learnColumnInRealDataIndices);
-        PredictorRecord record = ensembleModel.createPredictorRecord(filterRow, m_learnSpec);
-        if (record == null) { // missing value
+        final FlatTreeEnsembleModel flatModel = ensembleModel.getFlatModel();
+        final FlatTreeEnsembleModel.RowEncoder encoder = flatModel.getRowEncoder(m_learnSpec);
+        final double[] record = encoder.createRow();
+        if (!encoder.encode(filterRow, record)) { // missing value
             Arrays.fill(result, DataType.getMissingCell());
             return result;
         }
@@ -196,8 +199,7 @@ public DataCell[] getCells(final DataRow row) {
             if (hasOutOfBagFilter && m_predictor.isRowPartOfTrainingData(row.getKey(), i)) {
                 // ignore, row was used to train the model
             } else {
-                TreeModelClassification m = ensembleModel.getTreeModelClassification(i);
-                TreeNodeClassification match = m.findMatchingNode(record);
+                TreeNodeClassification match = flatModel.getLeafNode(flatModel.findLeaf(i, record));
                 voting.addVote(match);
                 nrValidModels += 1;
             }
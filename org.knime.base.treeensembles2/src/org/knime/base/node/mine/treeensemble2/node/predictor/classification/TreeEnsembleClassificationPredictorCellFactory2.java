@@ -101,6 +101,8 @@ private TreeEnsembleClassificationPredictorCellFactory2(final TreeEnsemblePredic
         m_predictor = predictor;
         m_learnSpec = predictor.getModelSpec().getLearnTableSpec();
         m_learnColumnInRealDataIndices = learnColumnInRealDataIndices;
+        // only the learn columns are read, others need not be deserialized
+        setRequiredColumns(learnColumnInRealDataIndices);
     }
 
     /**
@@ -54,12 +54,10 @@
 import org.apache.commons.math.stat.descriptive.moment.Mean;
 import org.apache.commons.math.stat.descriptive.moment.Variance;
 import org.knime.base.data.filter.column.FilterColumnRow;
-import org.knime.base.node.mine.treeensemble2.data.PredictorRecord;
+import org.knime.base.node.mine.treeensemble2.model.FlatTreeEnsembleModel;
 import org.knime.base.node.mine.treeensemble2.model.TreeEnsembleModel;
 import org.knime.base.node.mine.treeensemble2.model.TreeEnsembleModelPortObject;
 import org.knime.base.node.mine.treeensemble2.model.TreeEnsembleModelPortObjectSpec;
-import org.knime.base.node.mine.treeensemble2.model.TreeModelRegression;
-import org.knime.base.node.mine.treeensemble2.model.TreeNodeRegression;
 import org.knime.base.node.mine.treeensemble2.node.predictor.TreeEnsemblePredictor;
 import org.knime.base.node.mine.treeensemble2.node.predictor.TreeEnsemblePredictorConfiguration;
 import org.knime.core.data.DataCell;
@@ -92,6 +90,8 @@ private TreeEnsembleRegressionPredictorCellFactory(final TreeEnsemblePredictor p
         m_predictor = predictor;
         m_learnSpec = predictor.getModelSpec().getLearnTableSpec();
         m_learnColumnInRealDataIndices = learnColumnInRealDataIndices;
+        // only the learn columns are read, others need not be deserialized
+        setRequiredColumns(learnColumnInRealDataIndices);
     }
 
     /**
@@ -142,8 +142,10 @@ public DataCell[] getCells(final DataRow row) {
         final boolean hasOutOfBagFilter = m_predictor.hasOutOfBagFilter();
         DataCell[] result = new DataCell[size];
         DataRow filterRow = new FilterColumnRow(row, m_learnColumnInRealDataIndices);
-        PredictorRecord record = ensembleModel.createPredictorRecord(filterRow, m_learnSpec);
-        if (record == null) { // missing value
+        final FlatTreeEnsembleModel flatModel = ensembleModel.getFlatModel();
+        final FlatTreeEnsembleModel.RowEncoder encoder = flatModel.getRowEncoder(m_learnSpec);
+        final double[] record = encoder.createRow();
+        if (!encoder.encode(filterRow, record)) { // missing value
             Arrays.fill(result, DataType.getMissingCell());
             return result;
         }
@@ -154,9 +156,7 @@ public DataCell[] getCells(final DataRow row) {
             if (hasOutOfBagFilter && m_predictor.isRowPartOfTrainingData(row.getKey(), i)) {
                 // ignore, row was used to train the model
             } else {
-                TreeModelRegression m = ensembleModel.getTreeModelRegression(i);
-                TreeNodeRegression match = m.findMatchingNode(record);
-                double nodeMean = match.getMean();
+                double nodeMean = flatModel.getLeafValue(flatModel.findLeaf(i, record));
                 mean.increment(nodeMean);
                 variance.increment(nodeMean);
             }
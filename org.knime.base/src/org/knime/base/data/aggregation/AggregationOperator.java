@@ -449,6 +449,86 @@ public final void reset() {
      */
     protected abstract void resetInternal();
 
+    /**
+     * Operators that return <code>true</code> can compute partial results on
+     * disjoint parts of a group which are later combined using the
+     * {@link #merge(AggregationOperator)} method. This allows the group by
+     * implementations to aggregate a table with several threads.
+     * The default implementation returns <code>false</code>.
+     *
+     * @return <code>true</code> if the operator implements
+     * {@link #mergeInternal(AggregationOperator)}
+     * @since 3.6
+     */
+    public boolean supportsMerge() {
+        return false;
+    }
+
+    /**
+     * Combines the partial result of the given operator into this operator.
+     * The given operator must be of the same class and must have been
+     * computed on rows that follow the rows this operator has seen so far.
+     * The given operator must not be used after this call.
+     *
+     * @param other the operator holding the partial result to add
+     * @throws UnsupportedOperationException if {@link #supportsMerge()}
+     * returns <code>false</code>
+     * @throws IllegalArgumentException if the given operator is of a
+     * different class
+     * @since 3.6
+     */
+    public final void merge(final AggregationOperator other) {
+        if (!supportsMerge()) {
+            throw new UnsupportedOperationException("Operator '" + getLabel() + "' does not support merging");
+        }
+        if (other == null || !getClass().equals(other.getClass())) {
+            throw new IllegalArgumentException("Operator to merge must be of class " + getClass().getName());
+        }
+        m_missingValuesCount += other.m_missingValuesCount;
+        if (m_skipped) {
+            return;
+        }
+        if (other.m_skipped) {
+            m_skipped = true;
+            m_skipMsg = other.m_skipMsg;
+            return;
+        }
+        m_skipped = mergeInternal(other);
+    }
+
+    /**
+     * Should combine the partial result of the given operator, which is
+     * guaranteed to be of the same class, with the state of this operator.
+     * Has to be implemented if {@link #supportsMerge()} returns
+     * <code>true</code>.
+     *
+     * @param other the operator to merge into this operator
+     * @return <code>true</code> if this column should be skipped in further
+     * calculations
+     * @since 3.6
+     */
+    protected boolean mergeInternal(final AggregationOperator other) {
+        throw new UnsupportedOperationException("Operator '" + getLabel() + "' does not support merging");
+    }
+
+    /**
+     * Operators that can update their result incrementally when cells enter
+     * and leave a sliding window return a {@link WindowAggregator} which
+     * computes the same result as this operator for the cells of the window.
+     * This allows the moving aggregation to avoid aggregating each window
+     * from scratch. The returned aggregator has to respect the missing value
+     * option of this operator. The default implementation returns
+     * <code>null</code>.
+     *
+     * @param maxLength the maximal number of cells in the window
+     * @return a new {@link WindowAggregator} or <code>null</code> if the
+     * operator has to aggregate each window from scratch
+     * @since 3.6
+     */
+    public WindowAggregator createWindowAggregator(final int maxLength) {
+        return null;
+    }
+
     /**
      * {@inheritDoc}
      */
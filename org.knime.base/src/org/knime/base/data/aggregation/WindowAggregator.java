@@ -0,0 +1,275 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.data.aggregation;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DoubleValue;
+
+/**
+ * Computes the result of an {@link AggregationOperator} for a window of
+ * consecutive cells that slides over a column. Cells enter the window at its
+ * end and leave it in the same order, the result is updated incrementally
+ * instead of aggregating all cells of the window again.
+ *
+ * <p>
+ * The cells of the window are kept in a primitive ring buffer of their double
+ * values (if they are {@link DoubleValue}s) and whether the operator
+ * considers them at all, which depends on the missing value option of the
+ * operator. Implementations are notified about each considered cell that
+ * enters or leaves the window and can access the values of the cells by
+ * their slot in the ring buffer.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @see AggregationOperator#createWindowAggregator(int)
+ * @since 3.6
+ */
+public abstract class WindowAggregator {
+
+    private final boolean m_inclMissing;
+
+    private final double[] m_values;
+
+    private final boolean[] m_considered;
+
+    private int m_first = 0;
+
+    private int m_size = 0;
+
+    private int m_consideredCount = 0;
+
+    /**
+     * @param maxLength the maximal number of cells in the window
+     * @param inclMissing <code>true</code> if missing cells are considered
+     */
+    protected WindowAggregator(final int maxLength, final boolean inclMissing) {
+        m_inclMissing = inclMissing;
+        m_values = new double[maxLength];
+        m_considered = new boolean[maxLength];
+    }
+
+    /**
+     * Adds the cell at the end of the window.
+     *
+     * @param cell the cell to add
+     * @throws IllegalStateException if the window already holds the maximal
+     *             number of cells
+     */
+    public final void add(final DataCell cell) {
+        if (m_size == m_values.length) {
+            throw new IllegalStateException("Window is full");
+        }
+        int slot = m_first + m_size++;
+        if (slot >= m_values.length) {
+            slot -= m_values.length;
+        }
+        final boolean considered = m_inclMissing || !cell.isMissing();
+        final double value = !cell.isMissing() && cell instanceof DoubleValue
+                ? ((DoubleValue)cell).getDoubleValue() : Double.NaN;
+        m_values[slot] = value;
+        m_considered[slot] = considered;
+        if (considered) {
+            m_consideredCount++;
+            added(slot, cell, value);
+        }
+    }
+
+    /**
+     * Removes the first cell of the window.
+     *
+     * @throws IllegalStateException if the window is empty
+     */
+    public final void removeFirst() {
+        if (m_size == 0) {
+            throw new IllegalStateException("Window is empty");
+        }
+        final int slot = m_first;
+        m_first++;
+        if (m_first == m_values.length) {
+            m_first = 0;
+        }
+        m_size--;
+        if (m_considered[slot]) {
+            m_consideredCount--;
+            removed(slot, m_values[slot]);
+        }
+    }
+
+    /**
+     * @return the aggregated result of the cells in the window
+     */
+    public abstract DataCell getResult();
+
+    /**
+     * Called for each considered cell that enters the window.
+     *
+     * @param slot the slot of the cell in the ring buffer
+     * @param cell the cell, a missing cell only if the operator considers
+     *            missing cells
+     * @param value the double value of the cell or {@link Double#NaN} if it
+     *            is missing or no {@link DoubleValue}
+     */
+    protected abstract void added(int slot, DataCell cell, double value);
+
+    /**
+     * Called for each considered cell that leaves the window.
+     *
+     * @param slot the slot the cell occupied in the ring buffer
+     * @param value the double value of the cell
+     */
+    protected abstract void removed(int slot, double value);
+
+    /**
+     * @return the maximal number of cells in the window
+     */
+    protected final int getMaxLength() {
+        return m_values.length;
+    }
+
+    /**
+     * @return the number of considered cells in the window
+     */
+    protected final int getCount() {
+        return m_consideredCount;
+    }
+
+    /**
+     * Visits the values of all considered cells in the window, for example to
+     * recompute a running sum that accumulated rounding errors.
+     *
+     * @param visitor the visitor to call with the value of each considered
+     *            cell
+     */
+    protected final void forEachValue(final ValueVisitor visitor) {
+        for (int i = 0; i < m_size; i++) {
+            int slot = m_first + i;
+            if (slot >= m_values.length) {
+                slot -= m_values.length;
+            }
+            if (m_considered[slot]) {
+                visitor.visit(m_values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Visitor of the values of the window.
+     */
+    @FunctionalInterface
+    protected interface ValueVisitor {
+        /**
+         * @param value the value of a considered cell
+         */
+        void visit(double value);
+    }
+
+    /**
+     * Base class of the aggregators that keep running sums of the values,
+     * which are recomputed from the ring buffer whenever as many cells left
+     * the window as it can hold. This bounds the rounding errors of the
+     * subtractions while keeping the amortized costs constant. The sums are
+     * also recomputed when an infinite or NaN value leaves the window.
+     */
+    public abstract static class RunningSum extends WindowAggregator {
+
+        private double m_sum = 0;
+
+        private double m_sumSquare = 0;
+
+        private int m_removed = 0;
+
+        /**
+         * @param maxLength the maximal number of cells in the window
+         * @param inclMissing <code>true</code> if missing cells are considered
+         */
+        protected RunningSum(final int maxLength, final boolean inclMissing) {
+            super(maxLength, inclMissing);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void added(final int slot, final DataCell cell,
+                final double value) {
+            m_sum += value;
+            m_sumSquare += value * value;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void removed(final int slot, final double value) {
+            if (++m_removed >= getMaxLength() || !Double.isFinite(value)
+                    || !Double.isFinite(m_sumSquare)) {
+                m_removed = 0;
+                m_sum = 0;
+                m_sumSquare = 0;
+                forEachValue(v -> {
+                    m_sum += v;
+                    m_sumSquare += v * v;
+                });
+            } else {
+                m_sum -= value;
+                m_sumSquare -= value * value;
+            }
+        }
+
+        /**
+         * @return the sum of the values in the window
+         */
+        protected final double getSum() {
+            return m_sum;
+        }
+
+        /**
+         * @return the sum of the squared values in the window
+         */
+        protected final double getSumSquare() {
+            return m_sumSquare;
+        }
+    }
+}
@@ -49,6 +49,7 @@
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
+import org.knime.base.data.aggregation.WindowAggregator;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataValue;
@@ -122,6 +123,54 @@ protected DataCell getResultInternal() {
         return new IntCell(m_counter);
     }
 
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    public boolean supportsMerge() {
+        //subclasses might compute a different state
+        return getClass() == CountOperator.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        m_counter += ((CountOperator)other).m_counter;
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    public WindowAggregator createWindowAggregator(final int maxLength) {
+        //subclasses might compute a different result
+        if (getClass() != CountOperator.class) {
+            return null;
+        }
+        return new WindowAggregator(maxLength, inclMissingCells()) {
+            @Override
+            protected void added(final int slot, final DataCell cell, final double value) {
+                // the window keeps track of the count
+            }
+
+            @Override
+            protected void removed(final int slot, final double value) {
+                // the window keeps track of the count
+            }
+
+            @Override
+            public DataCell getResult() {
+                return new IntCell(getCount());
+            }
+        };
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,137 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.data.aggregation.general;
+
+import org.knime.base.data.aggregation.WindowAggregator;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DataValueComparator;
+
+/**
+ * Computes the minimum or maximum of a window with a monotonic deque of the
+ * cells that can still become the extremum, i.e. that are not dominated by a
+ * later cell of the window. Each cell enters and leaves the deque at most once
+ * which results in constant amortized costs per cell. Of equal cells the
+ * first one is returned as by the {@link MinOperator} and {@link MaxOperator}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ExtremumWindowAggregator extends WindowAggregator {
+
+    private final DataValueComparator m_comparator;
+
+    private final int m_sign;
+
+    private final int[] m_slots;
+
+    private final DataCell[] m_cells;
+
+    private int m_head = 0;
+
+    private int m_size = 0;
+
+    /**
+     * @param maxLength the maximal number of cells in the window
+     * @param inclMissing <code>true</code> if missing cells are considered
+     * @param comparator the comparator of the column
+     * @param max <code>true</code> for the maximum, <code>false</code> for the
+     *            minimum
+     */
+    ExtremumWindowAggregator(final int maxLength, final boolean inclMissing,
+            final DataValueComparator comparator, final boolean max) {
+        super(maxLength, inclMissing);
+        m_comparator = comparator;
+        m_sign = max ? -1 : 1;
+        m_slots = new int[maxLength];
+        m_cells = new DataCell[maxLength];
+    }
+
+    private int index(final int i) {
+        final int idx = m_head + i;
+        return idx >= m_slots.length ? idx - m_slots.length : idx;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void added(final int slot, final DataCell cell, final double value) {
+        if (cell.isMissing()) {
+            //missing cells are ignored by the operators
+            return;
+        }
+        while (m_size > 0
+                && m_sign * m_comparator.compare(m_cells[index(m_size - 1)], cell) > 0) {
+            m_cells[index(--m_size)] = null;
+        }
+        final int idx = index(m_size++);
+        m_slots[idx] = slot;
+        m_cells[idx] = cell;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void removed(final int slot, final double value) {
+        if (m_size > 0 && m_slots[m_head] == slot) {
+            m_cells[m_head] = null;
+            m_head = index(1);
+            m_size--;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataCell getResult() {
+        if (m_size == 0) {
+            return DataType.getMissingCell();
+        }
+        return m_cells[m_head];
+    }
+}
@@ -123,6 +123,28 @@ protected DataCell getResultInternal() {
         return m_firstCell;
     }
 
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    public boolean supportsMerge() {
+        //subclasses might compute a different state
+        return getClass() == FirstOperator.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        if (m_firstCell == null) {
+            m_firstCell = ((FirstOperator)other).m_firstCell;
+        }
+        return false;
+    }
+
     /**
      * {@inheritDoc}
      */
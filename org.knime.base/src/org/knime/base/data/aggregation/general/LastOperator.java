@@ -122,6 +122,29 @@ protected DataCell getResultInternal() {
         return m_lastCell;
     }
 
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    public boolean supportsMerge() {
+        //subclasses might compute a different state
+        return getClass() == LastOperator.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final DataCell otherLast = ((LastOperator)other).m_lastCell;
+        if (otherLast != null) {
+            m_lastCell = otherLast;
+        }
+        return false;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -49,6 +49,7 @@
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
+import org.knime.base.data.aggregation.WindowAggregator;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataValue;
@@ -139,6 +140,42 @@ protected DataCell getResultInternal() {
         return m_maxVal;
     }
 
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    public boolean supportsMerge() {
+        //subclasses might compute a different state
+        return getClass() == MaxOperator.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final DataCell otherMax = ((MaxOperator)other).m_maxVal;
+        if (otherMax != null && (m_maxVal == null || m_comparator.compare(otherMax, m_maxVal) > 0)) {
+            m_maxVal = otherMax;
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    public WindowAggregator createWindowAggregator(final int maxLength) {
+        //subclasses might compute a different result
+        if (getClass() != MaxOperator.class) {
+            return null;
+        }
+        return new ExtremumWindowAggregator(maxLength, inclMissingCells(), m_comparator, true);
+    }
+
     /**
      * {@inheritDoc}
      */
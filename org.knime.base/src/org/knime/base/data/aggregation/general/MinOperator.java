@@ -49,6 +49,7 @@
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
+import org.knime.base.data.aggregation.WindowAggregator;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataValue;
@@ -138,6 +139,42 @@ protected DataCell getResultInternal() {
         return m_minVal;
     }
 
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    public boolean supportsMerge() {
+        //subclasses might compute a different state
+        return getClass() == MinOperator.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final DataCell otherMin = ((MinOperator)other).m_minVal;
+        if (otherMin != null && (m_minVal == null || m_comparator.compare(otherMin, m_minVal) < 0)) {
+            m_minVal = otherMin;
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    public WindowAggregator createWindowAggregator(final int maxLength) {
+        //subclasses might compute a different result
+        if (getClass() != MinOperator.class) {
+            return null;
+        }
+        return new ExtremumWindowAggregator(maxLength, inclMissingCells(), m_comparator, false);
+    }
+
     /**
      * {@inheritDoc}
      */
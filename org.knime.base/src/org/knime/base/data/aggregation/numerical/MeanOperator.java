@@ -49,6 +49,7 @@
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
+import org.knime.base.data.aggregation.WindowAggregator;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DoubleValue;
@@ -127,6 +128,53 @@ protected DataCell getResultInternal() {
         return new DoubleCell(m_mean);
     }
 
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    public boolean supportsMerge() {
+        //subclasses might compute a different state
+        return getClass() == MeanOperator.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final MeanOperator o = (MeanOperator)other;
+        if (o.m_count == 0) {
+            return false;
+        }
+        final int count = m_count + o.m_count;
+        m_mean = m_mean * ((double)m_count / count) + o.m_mean * ((double)o.m_count / count);
+        m_count = count;
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    public WindowAggregator createWindowAggregator(final int maxLength) {
+        //subclasses might compute a different result
+        if (getClass() != MeanOperator.class) {
+            return null;
+        }
+        return new WindowAggregator.RunningSum(maxLength, inclMissingCells()) {
+            @Override
+            public DataCell getResult() {
+                if (getCount() == 0) {
+                    return DataType.getMissingCell();
+                }
+                return new DoubleCell(getSum() / getCount());
+            }
+        };
+    }
+
     /**
      * {@inheritDoc}
      */
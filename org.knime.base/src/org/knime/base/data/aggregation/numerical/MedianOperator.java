@@ -45,12 +45,14 @@
 
 package org.knime.base.data.aggregation.numerical;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.knime.base.data.aggregation.AggregationOperator;
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
+import org.knime.base.data.aggregation.WindowAggregator;
 import org.knime.base.data.aggregation.general.AbstractMedianOperator;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataType;
@@ -149,6 +151,47 @@ private DataCell convertToDoubleCellIfNecessary(final DataCell cell) {
         return new DoubleCell(((DoubleValue)cell).getDoubleValue());
     }
 
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    public WindowAggregator createWindowAggregator(final int maxLength) {
+        //subclasses might compute a different result and the operator is
+        //skipped if the window holds more values than it may keep
+        if (getClass() != MedianOperator.class || maxLength > getMaxUniqueValues()) {
+            return null;
+        }
+        final WindowOrderStatistics stats = new WindowOrderStatistics(maxLength);
+        final DataCell[] cells = new DataCell[maxLength];
+        return new WindowAggregator(maxLength, inclMissingCells()) {
+            @Override
+            protected void added(final int slot, final DataCell cell, final double value) {
+                cells[slot] = cell;
+                stats.add(slot, value);
+            }
+
+            @Override
+            protected void removed(final int slot, final double value) {
+                cells[slot] = null;
+                stats.remove(slot);
+            }
+
+            @Override
+            public DataCell getResult() {
+                final int size = getCount();
+                if (size == 0) {
+                    return DataType.getMissingCell();
+                }
+                final DataCell median = cells[stats.select((size - 1) / 2)];
+                if (size % 2 == 1) {
+                    return getResultInternal(median);
+                }
+                return getResultInternal(Arrays.asList(median, cells[stats.selectNext()]), 0, 1);
+            }
+        };
+    }
+
     /**
      * {@inheritDoc}
      */
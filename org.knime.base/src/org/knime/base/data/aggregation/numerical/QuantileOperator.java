@@ -45,6 +45,7 @@
 
 package org.knime.base.data.aggregation.numerical;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -58,6 +59,7 @@
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
+import org.knime.base.data.aggregation.WindowAggregator;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
@@ -168,6 +170,68 @@ protected DataCell getResultInternal() {
         return new DoubleCell(evaluate);
     }
 
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    public WindowAggregator createWindowAggregator(final int maxLength) {
+        //subclasses might compute a different result and the operator is
+        //skipped if the window holds more values than it may keep
+        if (getClass() != QuantileOperator.class || maxLength > getMaxUniqueValues()) {
+            return null;
+        }
+        final double quantile = m_settings.getFunctionModel().getDoubleValue() * 100;
+        final EstimationType estType =
+            Percentile.EstimationType.valueOf(m_settings.getEstimationModel().getStringValue());
+        final WindowOrderStatistics stats = new WindowOrderStatistics(maxLength);
+        //the rank and the interpolation weight of the quantile per window size
+        final int[] ranks = new int[maxLength + 1];
+        final double[] weights = new double[maxLength + 1];
+        Arrays.fill(ranks, -1);
+        return new WindowAggregator(maxLength, inclMissingCells()) {
+            @Override
+            protected void added(final int slot, final DataCell cell, final double value) {
+                stats.add(slot, value);
+            }
+
+            @Override
+            protected void removed(final int slot, final double value) {
+                stats.remove(slot);
+            }
+
+            @Override
+            public DataCell getResult() {
+                final int size = getCount();
+                if (size == 0) {
+                    return DataType.getMissingCell();
+                }
+                if (ranks[size] < 0) {
+                    //all estimation types interpolate between two neighboring
+                    //order statistics, evaluate them on the ranks to find
+                    //out which ones and on a step to get the weight
+                    final double[] probe = new double[size];
+                    for (int i = 0; i < size; i++) {
+                        probe[i] = i;
+                    }
+                    final int rank = (int)Math.floor(estType.evaluate(probe, quantile, new KthSelector()));
+                    for (int i = 0; i < size; i++) {
+                        probe[i] = i <= rank ? 0 : 1;
+                    }
+                    weights[size] = estType.evaluate(probe, quantile, new KthSelector());
+                    ranks[size] = rank;
+                }
+                final double lower = stats.getValue(stats.select(ranks[size]));
+                final double weight = weights[size];
+                if (weight == 0) {
+                    return new DoubleCell(lower);
+                }
+                final double upper = stats.getValue(stats.selectNext());
+                return new DoubleCell(lower + weight * (upper - lower));
+            }
+        };
+    }
+
     /**
      * {@inheritDoc}
      */
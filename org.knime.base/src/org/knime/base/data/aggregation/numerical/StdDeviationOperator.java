@@ -49,6 +49,7 @@
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
+import org.knime.base.data.aggregation.WindowAggregator;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DoubleValue;
 import org.knime.core.data.def.DoubleCell;
@@ -106,6 +107,19 @@ protected DataCell getResultInternal() {
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    public WindowAggregator createWindowAggregator(final int maxLength) {
+        //subclasses might compute a different result
+        if (getClass() != StdDeviationOperator.class) {
+            return null;
+        }
+        return new VarianceWindowAggregator(maxLength, inclMissingCells(), true);
+    }
+
     /**
      * {@inheritDoc}
      */
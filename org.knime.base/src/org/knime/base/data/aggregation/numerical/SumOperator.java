@@ -49,12 +49,14 @@
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
+import org.knime.base.data.aggregation.WindowAggregator;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DoubleValue;
 import org.knime.core.data.IntValue;
 import org.knime.core.data.LongValue;
+import org.knime.core.data.MissingCell;
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.IntCell;
 import org.knime.core.data.def.LongCell;
@@ -145,26 +147,87 @@ protected DataCell getResultInternal() {
         if (!m_valid) {
             return DataType.getMissingCell();
         }
+        final String overflowMsg = getOverflowMessage(m_sum);
+        if (overflowMsg != null) {
+            setSkipped(true);
+            setSkipMessage(overflowMsg);
+            return DataType.getMissingCell();
+        }
+        return createSumCell(m_sum);
+    }
+
+    /**
+     * @return the reason why the sum can not be represented by the result
+     * type or <code>null</code> if it can
+     */
+    private String getOverflowMessage(final double sum) {
+        //check if the double value is to big for an integer or a long
+        if (IntCell.TYPE.equals(m_type) && sum > Integer.MAX_VALUE) {
+            return "Sum > maximum int value. Convert column to long.";
+        } else if (LongCell.TYPE.equals(m_type) && sum > Long.MAX_VALUE) {
+            return "Sum > maximum long value. Convert column to double.";
+        }
+        return null;
+    }
+
+    /**
+     * @return the sum as cell of the result type, a missing cell with the
+     * reason if the sum exceeds the range of the type
+     */
+    private DataCell createSumCell(final double sum) {
+        final String overflowMsg = getOverflowMessage(sum);
+        if (overflowMsg != null) {
+            return new MissingCell(overflowMsg);
+        }
         if (IntCell.TYPE.equals(m_type)) {
-            //check if the double value is to big for an integer
-            if (m_sum > Integer.MAX_VALUE) {
-                setSkipped(true);
-                setSkipMessage("Sum > maximum int value. "
-                        + "Convert column to long.");
-                return DataType.getMissingCell();
-            }
-            return new IntCell((int)m_sum);
+            return new IntCell((int)sum);
         } else if (LongCell.TYPE.equals(m_type)) {
-            //check if the double value is to big for a long
-            if (m_sum > Long.MAX_VALUE) {
-                setSkipped(true);
-                setSkipMessage("Sum > maximum long value. "
-                        + "Convert column to double.");
-                return DataType.getMissingCell();
-            }
-            return new LongCell((long)m_sum);
+            return new LongCell((long)sum);
         }
-        return new DoubleCell(m_sum);
+        return new DoubleCell(sum);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    public WindowAggregator createWindowAggregator(final int maxLength) {
+        //subclasses might compute a different result
+        if (getClass() != SumOperator.class) {
+            return null;
+        }
+        return new WindowAggregator.RunningSum(maxLength, inclMissingCells()) {
+            @Override
+            public DataCell getResult() {
+                if (getCount() == 0) {
+                    return DataType.getMissingCell();
+                }
+                return createSumCell(getSum());
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    public boolean supportsMerge() {
+        //subclasses might compute a different state
+        return getClass() == SumOperator.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final SumOperator o = (SumOperator)other;
+        m_valid |= o.m_valid;
+        m_sum += o.m_sum;
+        return false;
     }
 
     /**
@@ -49,6 +49,7 @@
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
+import org.knime.base.data.aggregation.WindowAggregator;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DoubleValue;
@@ -123,14 +124,19 @@ protected boolean computeInternal(final DataCell cell) {
      */
     @Override
     protected DataCell getResultInternal() {
-        if (m_validCount <= 0) {
+        return createVarianceCell(m_sum, m_sumSquare, m_validCount);
+    }
+
+    private static DataCell createVarianceCell(final double sum,
+            final double sumSquare, final int validCount) {
+        if (validCount <= 0) {
             return DataType.getMissingCell();
         }
-        if (m_validCount == 1) {
+        if (validCount == 1) {
             return new DoubleCell(0);
         }
-        double variance = (m_sumSquare - ((m_sum * m_sum)
-                / m_validCount)) / (m_validCount - 1);
+        double variance = (sumSquare - ((sum * sum)
+                / validCount)) / (validCount - 1);
         // unreported bug fix: in cases in which a column contains
         // almost only one value (for instance 1.0) but one single
         // 'outlier' whose value is, for instance 0.9999998, we get
@@ -151,6 +157,51 @@ protected void resetInternal() {
         m_validCount = 0;
     }
 
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    public WindowAggregator createWindowAggregator(final int maxLength) {
+        //subclasses might compute a different result
+        if (getClass() != VarianceOperator.class) {
+            return null;
+        }
+        return new VarianceWindowAggregator(maxLength, inclMissingCells(), false);
+    }
+
+    /**
+     * Computes the variance or the standard deviation of a window from the
+     * running sums.
+     */
+    static final class VarianceWindowAggregator extends WindowAggregator.RunningSum {
+
+        private final boolean m_stdDeviation;
+
+        /**
+         * @param maxLength the maximal number of cells in the window
+         * @param inclMissing <code>true</code> if missing cells are considered
+         * @param stdDeviation <code>true</code> for the standard deviation
+         */
+        VarianceWindowAggregator(final int maxLength, final boolean inclMissing,
+                final boolean stdDeviation) {
+            super(maxLength, inclMissing);
+            m_stdDeviation = stdDeviation;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public DataCell getResult() {
+            final DataCell variance = createVarianceCell(getSum(), getSumSquare(), getCount());
+            if (m_stdDeviation && !variance.isMissing()) {
+                return new DoubleCell(Math.sqrt(Math.abs(((DoubleValue)variance).getDoubleValue())));
+            }
+            return variance;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,218 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.data.aggregation.numerical;
+
+/**
+ * Keeps the values of a window in two indexed heaps, a max-heap with the
+ * smallest values and a min-heap with the largest values, to select order
+ * statistics of the window. The values are identified by the slot they occupy
+ * in the ring buffer of the {@link org.knime.base.data.aggregation.WindowAggregator}.
+ * Selecting the k-th smallest value moves values between the heaps until the
+ * lower heap holds exactly k + 1 values. Since consecutive windows usually
+ * select (nearly) the same k this takes a constant number of heap operations
+ * per step, i.e. adding, removing and selecting all take logarithmic time.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class WindowOrderStatistics {
+
+    private final double[] m_values;
+
+    /** The position of the slot in its heap. */
+    private final int[] m_pos;
+
+    /** <code>true</code> if the slot is in the lower heap. */
+    private final boolean[] m_inLow;
+
+    /** Max-heap of the slots with the smallest values. */
+    private final int[] m_low;
+
+    /** Min-heap of the slots with the largest values. */
+    private final int[] m_high;
+
+    private int m_lowSize = 0;
+
+    private int m_highSize = 0;
+
+    /**
+     * @param maxLength the maximal number of values
+     */
+    WindowOrderStatistics(final int maxLength) {
+        m_values = new double[maxLength];
+        m_pos = new int[maxLength];
+        m_inLow = new boolean[maxLength];
+        m_low = new int[maxLength];
+        m_high = new int[maxLength];
+    }
+
+    /**
+     * @param slot the slot of the value
+     * @param value the value to add
+     */
+    void add(final int slot, final double value) {
+        m_values[slot] = value;
+        if (m_lowSize > 0 && Double.compare(value, m_values[m_low[0]]) <= 0) {
+            push(true, slot);
+        } else {
+            push(false, slot);
+        }
+    }
+
+    /**
+     * @param slot the slot of the value to remove
+     */
+    void remove(final int slot) {
+        final boolean low = m_inLow[slot];
+        final int[] heap = low ? m_low : m_high;
+        final int last = low ? --m_lowSize : --m_highSize;
+        final int pos = m_pos[slot];
+        if (pos != last) {
+            heap[pos] = heap[last];
+            m_pos[heap[pos]] = pos;
+            siftDown(low, siftUp(low, pos));
+        }
+    }
+
+    /**
+     * @param k the zero based rank of the value to select, less than the
+     *            number of values
+     * @return the slot of the k-th smallest value
+     */
+    int select(final int k) {
+        while (m_lowSize > k + 1) {
+            push(false, pop(true));
+        }
+        while (m_lowSize < k + 1) {
+            push(true, pop(false));
+        }
+        return m_low[0];
+    }
+
+    /**
+     * @return the slot of the value following the value returned by the last
+     *         call of {@link #select(int)}, which must not have selected the
+     *         largest value
+     */
+    int selectNext() {
+        return m_high[0];
+    }
+
+    /**
+     * @param slot the slot
+     * @return the value of the slot
+     */
+    double getValue(final int slot) {
+        return m_values[slot];
+    }
+
+    private void push(final boolean low, final int slot) {
+        final int pos = low ? m_lowSize++ : m_highSize++;
+        (low ? m_low : m_high)[pos] = slot;
+        m_inLow[slot] = low;
+        m_pos[slot] = pos;
+        siftUp(low, pos);
+    }
+
+    private int pop(final boolean low) {
+        final int[] heap = low ? m_low : m_high;
+        final int top = heap[0];
+        final int last = low ? --m_lowSize : --m_highSize;
+        if (last > 0) {
+            heap[0] = heap[last];
+            m_pos[heap[0]] = 0;
+            siftDown(low, 0);
+        }
+        return top;
+    }
+
+    /** @return <code>true</code> if the value of slot a belongs above the value of slot b */
+    private boolean before(final boolean low, final int a, final int b) {
+        final int cmp = Double.compare(m_values[a], m_values[b]);
+        return low ? cmp > 0 : cmp < 0;
+    }
+
+    private int siftUp(final boolean low, final int start) {
+        final int[] heap = low ? m_low : m_high;
+        final int slot = heap[start];
+        int pos = start;
+        while (pos > 0) {
+            final int parent = (pos - 1) >>> 1;
+            if (!before(low, slot, heap[parent])) {
+                break;
+            }
+            heap[pos] = heap[parent];
+            m_pos[heap[pos]] = pos;
+            pos = parent;
+        }
+        heap[pos] = slot;
+        m_pos[slot] = pos;
+        return pos;
+    }
+
+    private void siftDown(final boolean low, final int start) {
+        final int[] heap = low ? m_low : m_high;
+        final int size = low ? m_lowSize : m_highSize;
+        final int slot = heap[start];
+        int pos = start;
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && before(low, heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(low, heap[child], slot)) {
+                break;
+            }
+            heap[pos] = heap[child];
+            m_pos[heap[pos]] = pos;
+            pos = child;
+        }
+        heap[pos] = slot;
+        m_pos[slot] = pos;
+    }
+}
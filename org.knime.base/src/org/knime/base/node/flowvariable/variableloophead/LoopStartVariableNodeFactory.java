@@ -47,7 +47,6 @@
  */
 package org.knime.base.node.flowvariable.variableloophead;
 
-import org.knime.base.node.flowvariable.tablerowtovariable.TableToVariableNodeDialog;
 import org.knime.core.node.NodeDialogPane;
 import org.knime.core.node.NodeFactory;
 import org.knime.core.node.NodeView;
@@ -68,7 +67,7 @@ public LoopStartVariableNodeFactory() {
     /** {@inheritDoc} */
     @Override
     protected NodeDialogPane createNodeDialogPane() {
-        return new TableToVariableNodeDialog();
+        return new LoopStartVariableNodeDialog();
     }
 
     /** {@inheritDoc} */
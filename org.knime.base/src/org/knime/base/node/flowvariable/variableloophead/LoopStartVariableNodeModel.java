@@ -50,28 +50,37 @@
 import java.io.IOException;
 
 import org.knime.base.node.flowvariable.tablerowtovariable.TableToVariableNodeModel;
+import org.knime.base.node.meta.looper.ParallelLoopIterations;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.port.PortObject;
 import org.knime.core.node.port.PortObjectSpec;
 import org.knime.core.node.port.flowvariable.FlowVariablePortObject;
 import org.knime.core.node.port.flowvariable.FlowVariablePortObjectSpec;
 import org.knime.core.node.workflow.LoopStartNodeTerminator;
+import org.knime.core.node.workflow.LoopStartParallelizeNode;
+import org.knime.core.node.workflow.virtual.parchunk.ParallelizedChunkContentMaster;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkNodeInput;
 
 /** Start of loop: pushes variables in input datatable columns
  * onto stack, taking the values from one row per iteration.
  *
  * @author M. Berthold, University of Konstanz
  */
-public class LoopStartVariableNodeModel extends TableToVariableNodeModel implements LoopStartNodeTerminator {
+public class LoopStartVariableNodeModel extends TableToVariableNodeModel
+    implements LoopStartNodeTerminator, LoopStartParallelizeNode {
 
     // remember which iteration we are in:
     private int m_currentIteration = -1;
     private int m_maxNrIterations = -1;
 
+    private final ParallelLoopIterations m_parallelIterations = new ParallelLoopIterations();
+
     /** One input, one output.
      */
     protected LoopStartVariableNodeModel() {
@@ -100,6 +109,18 @@ protected PortObject[] execute(final PortObject[] inPOs,
                 throw new IOException("Loop did not terminate correctly.");
             }
         }
+        m_parallelIterations.clear();
+        nextIteration(inData);
+        // hand out rows to parallel copies of the loop body, the last one is this node's own
+        while (!terminateLoop() && m_parallelIterations.canAddRemoteIteration()) {
+            m_parallelIterations.addRemoteIteration(
+                new PortObject[]{FlowVariablePortObject.INSTANCE}, getAvailableFlowVariables());
+            nextIteration(inData);
+        }
+        return new PortObject[]{FlowVariablePortObject.INSTANCE};
+    }
+
+    private void nextIteration(final BufferedDataTable inData) throws Exception {
         // ok, not nice: iterate over table until current row is reached
         int i = 0;
         DataRow row = null;
@@ -116,7 +137,6 @@ protected PortObject[] execute(final PortObject[] inPOs,
         pushFlowVariableInt("maxIterations", m_maxNrIterations);
         pushFlowVariableInt("currentIteration", m_currentIteration);
         m_currentIteration++;
-        return new PortObject[]{FlowVariablePortObject.INSTANCE};
     }
 
     /**
@@ -127,11 +147,57 @@ public boolean terminateLoop() {
         return m_currentIteration >= m_maxNrIterations;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public VirtualParallelizedChunkNodeInput getVirtualNodeInput(final int chunkIndex) {
+        return m_parallelIterations.getVirtualNodeInput(chunkIndex);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getNrRemoteChunks() {
+        return m_parallelIterations.getNrRemoteIterations();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setChunkMaster(final ParallelizedChunkContentMaster pccm) {
+        m_parallelIterations.setChunkMaster(pccm);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isParallelizeLoop() {
+        return m_parallelIterations.getNrRemoteIterations() > 0;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected void reset() {
         m_currentIteration = -1;
         m_maxNrIterations = -1;
+        m_parallelIterations.reset();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void saveSettingsTo(final NodeSettingsWO settings) {
+        super.saveSettingsTo(settings);
+        m_parallelIterations.saveSettingsTo(settings);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        super.validateSettings(settings);
+        new ParallelLoopIterations().validateSettings(settings);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
+        super.loadValidatedSettingsFrom(settings);
+        m_parallelIterations.loadSettingsFrom(settings);
     }
 
 }
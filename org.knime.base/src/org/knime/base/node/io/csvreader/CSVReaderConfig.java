@@ -75,6 +75,8 @@ public final class CSVReaderConfig {
     private boolean m_supportShortLines;
     private long m_limitRowsCount;
     private int m_limitAnalysisCount;
+    private long m_limitAnalysisBytes;
+    private boolean m_sampleAnalysis;
     private int m_skipFirstLinesCount;
     private String m_charSet;
     private Duration m_connectTimeout;
@@ -94,6 +96,8 @@ public CSVReaderConfig() {
         m_supportShortLines = false;
         m_limitRowsCount = -1L;
         m_limitAnalysisCount = -1;
+        m_limitAnalysisBytes = -1L;
+        m_sampleAnalysis = false;
         m_skipFirstLinesCount = -1;
         m_charSet = null; // uses default encoding
     }
@@ -119,6 +123,8 @@ public void loadSettingsInDialog(final NodeSettingsRO settings) {
             m_connectTimeout = null; // use default value
         }
         m_limitAnalysisCount = settings.getInt("limitAnalysisCount", m_limitAnalysisCount);
+        m_limitAnalysisBytes = settings.getLong("limitAnalysisBytes", m_limitAnalysisBytes);
+        m_sampleAnalysis = settings.getBoolean("sampleAnalysis", m_sampleAnalysis);
     }
 
     /** Load in model, fail if settings are invalid.
@@ -148,6 +154,9 @@ public void loadSettingsInModel(final NodeSettingsRO settings)
             m_connectTimeout = null; // use default value
         }
         m_limitAnalysisCount = settings.getInt("limitAnalysisCount", m_limitAnalysisCount);
+        // added in 3.6
+        m_limitAnalysisBytes = settings.getLong("limitAnalysisBytes", m_limitAnalysisBytes);
+        m_sampleAnalysis = settings.getBoolean("sampleAnalysis", m_sampleAnalysis);
     }
 
     /** Save configuration to argument.
@@ -171,6 +180,8 @@ public void saveSettingsTo(final NodeSettingsWO settings) {
             settings.addInt("connectTimeoutInSeconds", (int) (m_connectTimeout.toMillis() / 1000));
         }
         settings.addInt("limitAnalysisCount", m_limitAnalysisCount);
+        settings.addLong("limitAnalysisBytes", m_limitAnalysisBytes);
+        settings.addBoolean("sampleAnalysis", m_sampleAnalysis);
     }
 
     /** @return the location */
@@ -304,4 +315,26 @@ public int getLimitAnalysisCount() {
     void setLimitAnalysisCount(final int value) {
         m_limitAnalysisCount = value;
     }
+
+    /** @return the number of bytes read at most to analyze the file (smaller 0 if unlimited).
+     * @since 3.6 */
+    public long getLimitAnalysisBytes() {
+        return m_limitAnalysisBytes;
+    }
+
+    /** @param value the number of bytes read at most to analyze the file (smaller 0 if unlimited). */
+    void setLimitAnalysisBytes(final long value) {
+        m_limitAnalysisBytes = value;
+    }
+
+    /** @return true if a limited analysis samples blocks across the entire file, not only its first lines.
+     * @since 3.6 */
+    public boolean isSampleAnalysis() {
+        return m_sampleAnalysis;
+    }
+
+    /** @param value true if a limited analysis should sample blocks across the entire file. */
+    void setSampleAnalysis(final boolean value) {
+        m_sampleAnalysis = value;
+    }
 }
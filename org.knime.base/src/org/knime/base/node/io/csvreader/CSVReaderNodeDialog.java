@@ -104,6 +104,9 @@ public final class CSVReaderNodeDialog extends NodeDialogPane {
     private final JSpinner m_skipFirstLinesSpinner;
     private final JCheckBox m_limitAnalysisChecker;
     private final JSpinner m_limitAnalysisSpinner;
+    private final JCheckBox m_limitAnalysisBytesChecker;
+    private final JSpinner m_limitAnalysisBytesSpinner;
+    private final JCheckBox m_sampleAnalysisChecker;
     private final CharsetNamePanel m_encodingPanel;
 
 
@@ -150,6 +153,16 @@ public void itemStateChanged(final ItemEvent e) {
             }
         });
         m_limitAnalysisChecker.doClick();
+        m_limitAnalysisBytesChecker = new JCheckBox("Scan limit (MB) ");
+        m_limitAnalysisBytesSpinner = new JSpinner(new SpinnerNumberModel(64, 1, Integer.MAX_VALUE, 16));
+        m_limitAnalysisBytesChecker.addItemListener(new ItemListener() {
+            @Override
+            public void itemStateChanged(final ItemEvent e) {
+                m_limitAnalysisBytesSpinner.setEnabled(m_limitAnalysisBytesChecker.isSelected());
+            }
+        });
+        m_limitAnalysisBytesChecker.doClick();
+        m_sampleAnalysisChecker = new JCheckBox("Scan samples from the entire file (local files only)");
 
         addTab("Settings", initLayout());
 
@@ -184,6 +197,16 @@ private JPanel getLimitRowsPanel() {
         optionsPanel.add(getInFlowLayout(m_limitAnalysisChecker), gbc);
         gbc.gridx += 1;
         optionsPanel.add(getInFlowLayout(m_limitAnalysisSpinner), gbc);
+        gbc.gridy += 1;
+        gbc.gridx = 0;
+        optionsPanel.add(getInFlowLayout(m_limitAnalysisBytesChecker), gbc);
+        gbc.gridx += 1;
+        optionsPanel.add(getInFlowLayout(m_limitAnalysisBytesSpinner), gbc);
+        gbc.gridy += 1;
+        gbc.gridx = 0;
+        gbc.gridwidth = 2;
+        optionsPanel.add(getInFlowLayout(m_sampleAnalysisChecker), gbc);
+        gbc.gridwidth = 1;
 
         //empty panel to eat up extra space
         gbc.gridy += 1;
@@ -303,6 +326,15 @@ protected void loadSettingsFrom(final NodeSettingsRO settings,
             m_limitAnalysisChecker.setSelected(false);
             m_limitAnalysisSpinner.setValue(50);
         }
+        long limitAnalysisBytes = config.getLimitAnalysisBytes();
+        if (limitAnalysisBytes >= 0) {
+            m_limitAnalysisBytesChecker.setSelected(true);
+            m_limitAnalysisBytesSpinner.setValue((int)Math.max(1, limitAnalysisBytes >> 20));
+        } else {
+            m_limitAnalysisBytesChecker.setSelected(false);
+            m_limitAnalysisBytesSpinner.setValue(64);
+        }
+        m_sampleAnalysisChecker.setSelected(config.isSampleAnalysis());
         m_encodingPanel.loadSettings(getEncodingSettings(config));
     }
 
@@ -332,6 +364,10 @@ protected void saveSettingsTo(final NodeSettingsWO settings)
         config.setLimitRowsCount(limitRows);
         int limitAnalysis = (Integer)(m_limitAnalysisChecker.isSelected() ? m_limitAnalysisSpinner.getValue() : -1);
         config.setLimitAnalysisCount(limitAnalysis);
+        long limitAnalysisBytes = m_limitAnalysisBytesChecker.isSelected()
+            ? ((Integer)m_limitAnalysisBytesSpinner.getValue()).longValue() << 20 : -1L;
+        config.setLimitAnalysisBytes(limitAnalysisBytes);
+        config.setSampleAnalysis(m_sampleAnalysisChecker.isSelected());
         FileReaderNodeSettings s = new FileReaderNodeSettings();
         m_encodingPanel.overrideSettings(s);
         config.setCharSetName(s.getCharsetName());
@@ -128,6 +128,15 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
         FileTable fTable = createFileTable(exec);
         try {
             BufferedDataTable table = exec.createBufferedDataTable(fTable, exec.createSubExecutionContext(0.0));
+            FileTable widenedTable = fTable.createWidenedTable();
+            if (widenedTable != null) {
+                // the limited analysis guessed too narrow column types - read again with the widened types
+                exec.clearTable(table);
+                fTable.dispose();
+                fTable = widenedTable;
+                exec.setMessage("Reading file again with widened column types");
+                table = exec.createBufferedDataTable(fTable, exec.createSubExecutionContext(0.0));
+            }
             return new BufferedDataTable[] {table};
         } finally {
             // fix AP-6127
@@ -190,10 +199,12 @@ protected FileTable createFileTable(final ExecutionContext exec) throws Exceptio
         settings.setConnectTimeout(m_config.getConnectTimeout());
 
         final int limitAnalysisCount = m_config.getLimitAnalysisCount();
+        final long limitAnalysisBytes = m_config.getLimitAnalysisBytes();
+        final boolean limitAnalysis = limitAnalysisCount >= 0 || limitAnalysisBytes >= 0;
         final ExecutionMonitor analyseExec = exec.createSubProgress(0.5);
         final ExecutionContext readExec = exec.createSubExecutionContext(0.5);
         exec.setMessage("Analyzing file");
-        if (limitAnalysisCount >= 0) {
+        if (limitAnalysis) {
             final FileReaderExecutionMonitor fileReaderExec = new FileReaderExecutionMonitor();
             fileReaderExec.getProgressMonitor().addProgressListener(new NodeProgressListener() {
 
@@ -210,7 +221,9 @@ public void progressChanged(final NodeProgressEvent pe) {
                     }
                 }
             });
-            fileReaderExec.setShortCutLines(limitAnalysisCount);
+            fileReaderExec.setShortCutLines(limitAnalysisCount >= 0 ? limitAnalysisCount : Integer.MAX_VALUE);
+            fileReaderExec.setShortCutBytes(limitAnalysisBytes);
+            fileReaderExec.setSampleShortCut(m_config.isSampleAnalysis());
             fileReaderExec.setExecuteCanceled();
             settings = FileAnalyzer.analyze(settings, fileReaderExec);
         } else {
@@ -230,7 +243,10 @@ public void progressChanged(final NodeProgressEvent pe) {
             }
         }
         exec.setMessage("Buffering file");
-        return new FileTable(tableSpec, settings, readExec);
+        FileTable fTable = new FileTable(tableSpec, settings, readExec);
+        // the analysis may have missed values not fitting the guessed types
+        fTable.setWidenGuessedColumnTypes(limitAnalysis);
+        return fTable;
     }
 
     /** {@inheritDoc} */
@@ -0,0 +1,235 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.io.csvwriter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.util.ThreadUtils;
+
+/**
+ * An output stream handing large buffers to a separate thread, which writes them to the underlying stream. Used to
+ * compress (gzip) and write the file while the rows are formatted and encoded. Not thread-safe, like most streams.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class AsyncOutputStream extends OutputStream {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private static final int NUM_OF_BUFFERS = 4;
+
+    // the buffers filled by the writing thread, an empty buffer marks the end
+    private final BlockingQueue<ByteBuffer> m_full = new ArrayBlockingQueue<>(NUM_OF_BUFFERS + 1);
+
+    // the buffers written to the underlying stream, to be filled again
+    private final BlockingQueue<ByteBuffer> m_free = new ArrayBlockingQueue<>(NUM_OF_BUFFERS);
+
+    private final Thread m_thread;
+
+    private ByteBuffer m_buffer;
+
+    private volatile IOException m_error;
+
+    private volatile boolean m_aborted;
+
+    private boolean m_closed;
+
+    /**
+     * @param out the stream to write to in a separate thread, it's closed when this stream is closed
+     */
+    AsyncOutputStream(final OutputStream out) {
+        for (int i = 0; i < NUM_OF_BUFFERS - 1; i++) {
+            m_free.add(ByteBuffer.allocate(BUFFER_SIZE));
+        }
+        m_buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        // the thread writes and closes the (possibly remote) stream, so it needs the node context
+        m_thread = ThreadUtils.threadWithContext(() -> writeAll(out), "CSV Writer output");
+        m_thread.setDaemon(true);
+        m_thread.start();
+    }
+
+    private void writeAll(final OutputStream out) {
+        try (OutputStream o = out) {
+            while (true) {
+                ByteBuffer buffer = m_full.take();
+                if (!buffer.hasRemaining() || m_aborted) {
+                    break;
+                }
+                o.write(buffer.array(), buffer.position(), buffer.remaining());
+                buffer.clear();
+                m_free.put(buffer);
+            }
+        } catch (IOException ioe) {
+            m_error = ioe;
+        } catch (InterruptedException ie) {
+            m_error = new InterruptedIOException("Writing the file was interrupted");
+        }
+        // never block the writing thread on the (now unconsumed) queues
+        m_free.clear();
+        m_full.clear();
+    }
+
+    private void checkError() throws IOException {
+        IOException error = m_error;
+        if (error != null) {
+            throw new IOException(error.getMessage(), error);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final int b) throws IOException {
+        if (!m_buffer.hasRemaining()) {
+            handOver();
+        }
+        m_buffer.put((byte)b);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        int o = off;
+        int l = len;
+        while (l > 0) {
+            if (!m_buffer.hasRemaining()) {
+                handOver();
+            }
+            int n = Math.min(l, m_buffer.remaining());
+            m_buffer.put(b, o, n);
+            o += n;
+            l -= n;
+        }
+    }
+
+    /*
+     * Passes the current buffer to the output thread and takes a free one.
+     */
+    private void handOver() throws IOException {
+        checkError();
+        m_buffer.flip();
+        try {
+            m_full.put(m_buffer);
+            ByteBuffer next = null;
+            while (next == null) {
+                checkError();
+                next = m_free.poll(100, TimeUnit.MILLISECONDS);
+            }
+            m_buffer = next;
+        } catch (InterruptedException ie) {
+            throw new InterruptedIOException("Writing the file was interrupted");
+        }
+    }
+
+    /**
+     * Hands the buffered bytes to the output thread - it doesn't wait until they are written.
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush() throws IOException {
+        if (m_buffer.position() > 0) {
+            handOver();
+        }
+    }
+
+    /** Writes the remaining bytes, closes the underlying stream, and waits for the output thread to finish.
+     * {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        if (m_closed) {
+            return;
+        }
+        m_closed = true;
+        flush();
+        try {
+            m_full.put(ByteBuffer.allocate(0));
+            m_thread.join();
+        } catch (InterruptedException ie) {
+            stopThread();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Writing the file was interrupted");
+        }
+        checkError();
+    }
+
+    /**
+     * Discards the bytes not written yet, closes the underlying stream, and waits for the output thread to finish.
+     * To be called instead of (or after a failed) {@link #close()} if writing failed or was canceled, so that the
+     * file is no longer open when this method returns. Does nothing if the thread has already finished.
+     */
+    void abort() {
+        m_closed = true;
+        m_aborted = true;
+        stopThread();
+    }
+
+    /*
+     * Stops the output thread and waits for it (uninterruptibly), the thread closes the underlying stream.
+     */
+    private void stopThread() {
+        m_aborted = true;
+        // there is always room for the end marker (all buffers plus one), it wakes up the thread even if the
+        // underlying stream swallowed the interrupt
+        m_full.offer(ByteBuffer.allocate(0));
+        m_thread.interrupt();
+        boolean interrupted = false;
+        while (m_thread.isAlive()) {
+            try {
+                m_thread.join();
+            } catch (InterruptedException ie) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
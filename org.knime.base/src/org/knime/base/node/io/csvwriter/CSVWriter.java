@@ -51,6 +51,10 @@
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataRow;
@@ -60,11 +64,16 @@
 import org.knime.core.data.DoubleValue;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.streamable.DataTableRowInput;
 import org.knime.core.node.streamable.RowInput;
+import org.knime.core.util.ThreadPool;
 
 /**
  * Class to write a {@link org.knime.core.data.DataTable} to an output stream.
+ * Batches of rows are formatted by multiple threads (and written in order),
+ * overriding methods like {@link #quoteString(String, boolean)} must be
+ * thread-safe.
  *
  * @author Bernd Wiswedel, University of Konstanz
  */
@@ -76,6 +85,16 @@ public class CSVWriter extends BufferedWriter {
 
     private String m_newLine;
 
+    // the number of rows formatted at once (by one thread)
+    private static final int BATCH_SIZE = 1024;
+
+    // overrides the batch size and number of threads if positive
+    private static volatile int batchSizeOverride = 0;
+
+    private static volatile int numThreadsOverride = 0;
+
+    private char[] m_charBuffer = new char[0];
+
     /**
      * Creates a new writer with default settings.
      *
@@ -199,35 +218,143 @@ public void write(final RowInput input, final ExecutionMonitor exec)
         } // end of if write column names
 
         // write each row of the data
-        int i = 0;
         long rowCnt = -1;
         if (input instanceof DataTableRowInput) {
             rowCnt = ((DataTableRowInput)input).getRowCount();
         }
 
+        int numThreads = numThreadsOverride > 0 ? numThreadsOverride
+            : Math.min(Runtime.getRuntime().availableProcessors(), KNIMEConstants.GLOBAL_THREAD_POOL.getMaxThreads());
+        final int batchSize = batchSizeOverride > 0 ? batchSizeOverride : BATCH_SIZE;
+        if (numThreads > 1) {
+            writeParallel(input, inSpec, rowCnt, numThreads, batchSize, exec);
+            return;
+        }
+        RowBatch batch = new RowBatch(0);
         DataRow row;
         while ((row = input.poll()) != null) {
+            checkProgress(row, batch.m_firstRow + batch.m_rows.size(), rowCnt, exec);
+            batch.m_rows.add(row);
+            if (batch.m_rows.size() == batchSize) {
+                writeBatch(format(batch, inSpec));
+                batch = new RowBatch(batch.m_firstRow + batchSize);
+            }
+        }
+        writeBatch(format(batch, inSpec));
+    }
+
+    /*
+     * Formats batches of rows with multiple threads, they are written in
+     * the order of the input by the calling thread.
+     */
+    private void writeParallel(final RowInput input, final DataTableSpec inSpec,
+            final long rowCnt, final int numThreads, final int batchSize, final ExecutionMonitor exec)
+            throws IOException, CanceledExecutionException, InterruptedException {
+        ThreadPool pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(numThreads);
+        // at most one batch per thread waits to be written
+        ArrayDeque<Future<FormattedBatch>> inFlight = new ArrayDeque<>();
+        try {
+            RowBatch batch = new RowBatch(0);
+            DataRow row;
+            while ((row = input.poll()) != null) {
+                checkProgress(row, batch.m_firstRow + batch.m_rows.size(), rowCnt, exec);
+                batch.m_rows.add(row);
+                if (batch.m_rows.size() == batchSize) {
+                    final RowBatch b = batch;
+                    inFlight.add(pool.enqueue(() -> format(b, inSpec)));
+                    batch = new RowBatch(batch.m_firstRow + batchSize);
+                    if (inFlight.size() > numThreads) {
+                        writeBatch(get(inFlight.poll()));
+                    }
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                writeBatch(get(inFlight.poll()));
+            }
+            writeBatch(format(batch, inSpec));
+        } finally {
+            for (Future<FormattedBatch> f : inFlight) {
+                f.cancel(true);
+            }
+        }
+    }
 
-            String rowKey = row.getKey().toString();
-            String msg;
+    /**
+     * Sets the number of rows formatted at once and the number of threads of
+     * the writers used afterwards, to get many batch boundaries in small
+     * tables. Used for testing only.
+     *
+     * @param batchSize the batch size, 0 for the default
+     * @param numThreads the number of threads (1 writes sequentially), 0 for
+     *            the default
+     */
+    static void setBatchSizeAndThreads(final int batchSize,
+            final int numThreads) {
+        batchSizeOverride = batchSize;
+        numThreadsOverride = numThreads;
+    }
 
-            // set the progress
-            if (rowCnt <= 0) {
-                msg = "Writing row " + (i + 1) + " (\"" + rowKey + "\")";
-            } else {
-                msg =
-                        "Writing row " + (i + 1) + " (\"" + rowKey + "\") of "
-                                + rowCnt;
-                exec.setProgress(i / (double)rowCnt, msg);
+    private static FormattedBatch get(final Future<FormattedBatch> future)
+            throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause() != null ? ee.getCause() : ee;
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
             }
-            // Check if execution was canceled !
-            exec.checkCanceled();
+            throw new RuntimeException(cause.getMessage(), cause);
+        }
+    }
 
+    private void checkProgress(final DataRow row, final long i, final long rowCnt,
+            final ExecutionMonitor exec) throws CanceledExecutionException {
+        // set the progress
+        if (rowCnt > 0) {
+            final long rowIndex = i;
+            exec.setProgress(i / (double)rowCnt, () -> "Writing row " + (rowIndex + 1) + " (\""
+                    + row.getKey() + "\") of " + rowCnt);
+        }
+        // Check if execution was canceled !
+        exec.checkCanceled();
+    }
+
+    private void writeBatch(final FormattedBatch batch) throws IOException {
+        if (m_lastWarning == null) {
+            m_lastWarning = batch.m_warning;
+        }
+        StringBuilder text = batch.m_text;
+        if (m_charBuffer.length < text.length()) {
+            m_charBuffer = new char[text.length()];
+        }
+        text.getChars(0, text.length(), m_charBuffer, 0);
+        write(m_charBuffer, 0, text.length());
+    }
+
+    /*
+     * Formats the rows of the batch. Is called concurrently, it must not
+     * change any member.
+     */
+    private FormattedBatch format(final RowBatch batch, final DataTableSpec inSpec) {
+        final int colCount = inSpec.getNumColumns();
+        boolean[] isNumerical = new boolean[colCount];
+        for (int c = 0; c < colCount; c++) {
+            isNumerical[c] = inSpec.getColumnSpec(c).getType().isCompatible(DoubleValue.class);
+        }
+        final String colSeparator = m_settings.getColSeparator();
+        final char decimalSeparator = m_settings.getDecimalSeparator();
+        FormattedBatch result = new FormattedBatch(new StringBuilder(batch.m_rows.size() * 16 * (colCount + 1)));
+        StringBuilder sb = result.m_text;
+        long i = batch.m_firstRow;
+        for (DataRow row : batch.m_rows) {
             // write the columns
-            first = true;
+            boolean first = true;
             // first, the row id
             if (m_settings.writeRowID()) {
-                write(quoteString(row.getKey().getString(), false));
+                sb.append(quoteString(row.getKey().getString(), false));
                 first = false;
             }
             // now all data cells
@@ -235,48 +362,60 @@ public void write(final RowInput input, final ExecutionMonitor exec)
 
                 DataCell colValue = row.getCell(c);
                 if (!first) {
-                    write(m_settings.getColSeparator());
+                    sb.append(colSeparator);
                 }
                 first = false;
 
                 if (colValue.isMissing()) {
                     // never quote missing patterns.
-                    write(m_settings.getMissValuePattern());
+                    sb.append(m_settings.getMissValuePattern());
                 } else {
-                    boolean isNumerical = false;
-                    DataType type = inSpec.getColumnSpec(c).getType();
                     String strVal = colValue.toString();
-
-                    if (type.isCompatible(DoubleValue.class)) {
-                        isNumerical = true;
-                    }
-                    if (isNumerical
-                            && (m_settings.getDecimalSeparator() != '.')) {
+                    if (isNumerical[c] && (decimalSeparator != '.')) {
                         // use the new separator only if it is not already
                         // contained in the value.
-                        if (strVal.indexOf(m_settings.getDecimalSeparator())
-                                < 0) {
-                            strVal =
-                                    replaceDecimalSeparator(strVal, m_settings
-                                            .getDecimalSeparator());
+                        if (strVal.indexOf(decimalSeparator) < 0) {
+                            strVal = replaceDecimalSeparator(strVal, decimalSeparator);
                         } else {
-                            if (m_lastWarning == null) {
-                                m_lastWarning = "Specified decimal separator ('"
-                                    + m_settings.getDecimalSeparator() + "') is"
+                            if (result.m_warning == null) {
+                                result.m_warning = "Specified decimal separator ('"
+                                    + decimalSeparator + "') is"
                                     + " contained in the numerical value. "
                                     + "Not replacing decimal separator (e.g. "
                                     + "in row #" + i + " column #" + c + ").";
                             }
                         }
                     }
-                    write(quoteString(strVal, isNumerical));
+                    sb.append(quoteString(strVal, isNumerical[c]));
 
                 }
             }
-            newLine();
+            sb.append(m_newLine);
             i++;
         }
+        return result;
+    }
+
+    /** Rows to format, with the index of the first row. */
+    private static final class RowBatch {
+        private final long m_firstRow;
+
+        private final ArrayList<DataRow> m_rows = new ArrayList<>(BATCH_SIZE);
 
+        RowBatch(final long firstRow) {
+            m_firstRow = firstRow;
+        }
+    }
+
+    /** The text of formatted rows, with the first warning about them. */
+    private static final class FormattedBatch {
+        private final StringBuilder m_text;
+
+        private String m_warning;
+
+        FormattedBatch(final StringBuilder text) {
+            m_text = text;
+        }
     }
 
     /**
@@ -48,7 +48,6 @@
  */
 package org.knime.base.node.io.csvwriter;
 
-import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
@@ -285,15 +284,16 @@ private BufferedDataTable[] doIt(final BufferedDataTable data, final RowInput in
         writerSettings.setWriteColumnHeader(writeColHeader);
 
         if (m_settings.isGzipOutput()) {
-            tempOut = new GZIPOutputStream(tempOut);
+            tempOut = new GZIPOutputStream(tempOut, 1 << 16);
         }
-        tempOut = new BufferedOutputStream(tempOut);
+        // compress and write the file in a separate thread, in large blocks
+        final AsyncOutputStream asyncOut = new AsyncOutputStream(tempOut);
         Charset charSet = Charset.defaultCharset();
         String encoding = writerSettings.getCharacterEncoding();
         if (encoding != null) {
             charSet = Charset.forName(encoding);
         }
-        CSVWriter tableWriter = new CSVWriter(new OutputStreamWriter(tempOut, charSet), writerSettings);
+        CSVWriter tableWriter = new CSVWriter(new OutputStreamWriter(asyncOut, charSet), writerSettings);
         // write the comment header, if we are supposed to
         String tableName;
         if (input == null) {
@@ -301,15 +301,17 @@ private BufferedDataTable[] doIt(final BufferedDataTable data, final RowInput in
         } else {
             tableName = input.getDataTableSpec().getName();
         }
-        writeCommentHeader(m_settings, tableWriter, tableName, appendToFile);
 
+        boolean success = false;
         try {
+            writeCommentHeader(m_settings, tableWriter, tableName, appendToFile);
             if (input == null) {
                 tableWriter.write(data, exec);
             } else {
                 tableWriter.write(input, exec);
             }
             tableWriter.close();
+            success = true;
 
             if (tableWriter.hasWarningMessage()) {
                 setWarningMessage(tableWriter.getLastWarningMessage());
@@ -322,11 +324,8 @@ private BufferedDataTable[] doIt(final BufferedDataTable data, final RowInput in
                 return null;
             }
         } catch (CanceledExecutionException cee) {
-            try {
-                tableWriter.close();
-            } catch (IOException ex) {
-                // may happen if the stream is already closed by the interrupted thread
-            }
+            // the output thread must have closed the file before it can be deleted
+            asyncOut.abort();
             if (localPath != null) {
                 LOGGER.info("Table FileWriter canceled.");
                 try {
@@ -338,6 +337,11 @@ private BufferedDataTable[] doIt(final BufferedDataTable data, final RowInput in
                 }
             }
             throw cee;
+        } finally {
+            if (!success) {
+                // stops the output thread and closes the file, also on failures
+                asyncOut.abort();
+            }
         }
 
     }
@@ -0,0 +1,161 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.io.filereader;
+
+import java.util.Vector;
+
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Keeps the current types of the columns of a {@link FileTable} whose types were guessed by the {@link FileAnalyzer}
+ * from a part of the file only. If the file row iterator reads a value that doesn't fit the type of such a column, the
+ * type is widened (from integer to double to string) instead of failing the read.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ColumnTypeWidener {
+
+    // the current type of each column in the table spec
+    private final DataType[] m_types;
+
+    // true for each column whose type was guessed (and not set by the user)
+    private final boolean[] m_widenable;
+
+    private boolean m_widened;
+
+    /**
+     * @param spec the spec of the file table (without the skipped columns)
+     * @param frSettings the settings of the table, user set column types (in {@link FileReaderNodeSettings}) are
+     *            never widened
+     * @param skipColumns the columns of the file skipped in the table
+     */
+    ColumnTypeWidener(final DataTableSpec spec, final FileReaderSettings frSettings, final boolean[] skipColumns) {
+        m_types = new DataType[spec.getNumColumns()];
+        m_widenable = new boolean[spec.getNumColumns()];
+        int col = 0;
+        for (int fileCol = 0; fileCol < skipColumns.length && col < m_types.length; fileCol++) {
+            if (skipColumns[fileCol]) {
+                continue;
+            }
+            m_types[col] = spec.getColumnSpec(col).getType();
+            m_widenable[col] = !isSetByUser(frSettings, fileCol)
+                && (m_types[col].equals(IntCell.TYPE) || m_types[col].equals(DoubleCell.TYPE));
+            col++;
+        }
+    }
+
+    private static boolean isSetByUser(final FileReaderSettings frSettings, final int fileCol) {
+        if (!(frSettings instanceof FileReaderNodeSettings)) {
+            return false;
+        }
+        Vector<ColProperty> colProps = ((FileReaderNodeSettings)frSettings).getColumnProperties();
+        ColProperty cProp = colProps != null && fileCol < colProps.size() ? colProps.get(fileCol) : null;
+        return cProp != null && cProp.getUserSettings();
+    }
+
+    /**
+     * @param col the index of the column in the table spec
+     * @return the type the cells of the column are currently created with
+     */
+    synchronized DataType getType(final int col) {
+        return m_types[col];
+    }
+
+    /**
+     * Widens the type of the specified column so that it can hold the passed value.
+     *
+     * @param col the index of the column in the table spec
+     * @param data the value that couldn't be read into the current type of the column
+     * @param cellFactory the factory used to check if the value is a double
+     * @return true if the type was widened, false if the column can't be widened (its type was not guessed, or is not
+     *         numeric)
+     */
+    synchronized boolean widen(final int col, final String data, final DataCellFactory cellFactory) {
+        if (!m_widenable[col]) {
+            return false;
+        }
+        if (m_types[col].equals(IntCell.TYPE) && cellFactory.createDataCellOfType(DoubleCell.TYPE, data) != null) {
+            m_types[col] = DoubleCell.TYPE;
+        } else {
+            m_types[col] = StringCell.TYPE;
+            m_widenable[col] = false;
+        }
+        m_widened = true;
+        return true;
+    }
+
+    /**
+     * @return true if the type of at least one column was widened
+     */
+    synchronized boolean hasWidened() {
+        return m_widened;
+    }
+
+    /**
+     * @param spec the spec of the file table
+     * @return the spec with the types of the widened columns replaced (the domains of these columns are dropped)
+     */
+    synchronized DataTableSpec createWidenedSpec(final DataTableSpec spec) {
+        DataColumnSpec[] cols = new DataColumnSpec[spec.getNumColumns()];
+        for (int c = 0; c < cols.length; c++) {
+            DataColumnSpec cSpec = spec.getColumnSpec(c);
+            if (cSpec.getType().equals(m_types[c])) {
+                cols[c] = cSpec;
+            } else {
+                DataColumnSpecCreator creator = new DataColumnSpecCreator(cSpec.getName(), m_types[c]);
+                creator.setProperties(cSpec.getProperties());
+                cols[c] = creator.createSpec();
+            }
+        }
+        return new DataTableSpec(spec.getName(), cols);
+    }
+}
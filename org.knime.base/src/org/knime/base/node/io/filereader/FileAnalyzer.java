@@ -332,6 +332,45 @@ private static int getShortCutLines(final ExecutionMonitor exec) {
         return NUMOFLINES;
     }
 
+    /**
+     * If the specified {@link ExecutionMonitor} is a {@link FileReaderExecutionMonitor} with a byte budget for the
+     * short-cut analysis, it is checked if the reader has used it up.
+     *
+     * @param exec the monitor to check for the byte budget
+     * @param reader the reader used for the analysis
+     * @return true, if the budget is set and used up
+     */
+    private static boolean shortCutBytesRead(final ExecutionMonitor exec, final BufferedFileReader reader) {
+        long budget = getShortCutBytes(exec);
+        return budget >= 0 && reader.getNumberOfBytesRead() >= budget;
+    }
+
+    /**
+     * @param exec the monitor to check for the byte budget
+     * @return the number of bytes to read during a short-cut analysis, negative if only the number of lines is
+     *         limited
+     */
+    private static long getShortCutBytes(final ExecutionMonitor exec) {
+        if (exec instanceof FileReaderExecutionMonitor) {
+            return ((FileReaderExecutionMonitor)exec).getShortCutBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * If the specified {@link ExecutionMonitor} is a {@link FileReaderExecutionMonitor}, it is asked if a short-cut
+     * analysis should sample the entire file instead of looking at the first lines only.
+     *
+     * @param exec the monitor to ask
+     * @return true, if the short-cut analysis should sample the file
+     */
+    private static boolean sampleShortCut(final ExecutionMonitor exec) {
+        if (exec instanceof FileReaderExecutionMonitor) {
+            return ((FileReaderExecutionMonitor)exec).isSampleShortCut();
+        }
+        return false;
+    }
+
     /**
      * Determines the type and name of each column. It tries to figure out if there are column headers in the file or
      * otherwise generates names for the columns. <br>
@@ -580,7 +619,7 @@ private static boolean checkRowHeader(final FileReaderNodeSettings settings, fin
                         firstTokenInRow = true; // the next token is the first
                         linesRead++;
                         if (cutItShort(exec)) {
-                            if (linesRead > getShortCutLines(exec)) {
+                            if (linesRead > getShortCutLines(exec) || shortCutBytesRead(exec, reader)) {
                                 break;
                             }
                             exec.setProgress(linesRead / (double)getShortCutLines(exec));
@@ -735,7 +774,17 @@ private static Vector<ColProperty> createColProps(final String[] colNames, final
     private static ColProperty[] createColumnTypes(final FileReaderNodeSettings userSettings,
         final FileReaderNodeSettings result, final ExecutionMonitor exec)
             throws IOException, InterruptedExecutionException {
-        BufferedFileReader reader = result.createNewInputReader();
+        // a short-cut analysis may look at a sample of the entire file
+        BufferedFileReader reader = null;
+        if (cutItShort(exec) && sampleShortCut(exec)) {
+            reader = FileSampler.createSampleReader(result, getShortCutLines(exec), getShortCutBytes(exec));
+        }
+        final boolean sampled = reader != null;
+        if (sampled) {
+            result.setAnalyzeUsedAllRows(false);
+        } else {
+            reader = result.createNewInputReader();
+        }
         long fileSize = reader.getFileSize();
 
         exec.setProgress("Guessing column types");
@@ -817,11 +866,13 @@ private static ColProperty[] createColumnTypes(final FileReaderNodeSettings user
                     }
                     colIdx = -1;
                     if (cutItShort(exec)) {
-                        if (linesRead >= getShortCutLines(exec)) {
+                        // the sample is limited already
+                        if (!sampled
+                            && (linesRead >= getShortCutLines(exec) || shortCutBytesRead(exec, reader))) {
                             result.setAnalyzeUsedAllRows(false);
                             break;
                         }
-                        exec.setProgress(linesRead / (double)getShortCutLines(exec));
+                        exec.setProgress(Math.min(1.0, linesRead / (double)getShortCutLines(exec)));
                     } else {
                         if (fileSize > 0) {
                             exec.setProgress(reader.getNumberOfBytesRead() / (double)fileSize);
@@ -1071,7 +1122,8 @@ private static void addQuotes(final FileReaderNodeSettings settings, final Execu
                 }
                 linesRead++;
                 // cutItShort also checks for interrupt
-                if (cutItShort(exec) && (linesRead > getShortCutLines(exec))) {
+                if (cutItShort(exec)
+                    && (linesRead > getShortCutLines(exec) || shortCutBytesRead(exec, reader))) {
                     settings.setAnalyzeUsedAllRows(false);
                     break;
                 }
@@ -1391,7 +1443,8 @@ private static boolean testDelimiterSettingsSetColNum(final FileReaderNodeSettin
 
                     linesRead++;
                     try {
-                        if (cutItShort(exec) && (linesRead > getShortCutLines(exec))) {
+                        if (cutItShort(exec)
+                            && (linesRead > getShortCutLines(exec) || shortCutBytesRead(exec, reader))) {
                             // cutItShort also checks for interrupts
                             settings.setAnalyzeUsedAllRows(false);
                             break;
@@ -1559,7 +1612,7 @@ private static int getMaximumNumberOfColumns(final FileReaderNodeSettings settin
                     }
                     if (cutItShort(exec)) {
                         // cutItShort also checks for interrupts
-                        if (dataLinesRead >= getShortCutLines(exec)) {
+                        if (dataLinesRead >= getShortCutLines(exec) || shortCutBytesRead(exec, reader)) {
                             settings.setAnalyzeUsedAllRows(false);
                             break;
                         }
@@ -48,6 +48,7 @@
 package org.knime.base.node.io.filereader;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
@@ -75,6 +76,10 @@ public class FileReaderExecutionMonitor extends ExecutionMonitor {
 
     private final AtomicInteger m_shortCutLines = new AtomicInteger(FileAnalyzer.NUMOFLINES);
 
+    private final AtomicLong m_shortCutBytes = new AtomicLong(-1);
+
+    private volatile boolean m_sampleShortCut = false;
+
     /**
      * Creates a new object with a default progress monitor.
      * @since 3.4
@@ -194,6 +199,53 @@ public void setShortCutLines(final int numOfLines) {
         m_shortCutLines.set(numOfLines);
     }
 
+    /**
+     * @return the number of bytes read at most during a short-cut analysis,
+     *         negative if only the number of lines is limited
+     * @since 3.6
+     */
+    public long getShortCutBytes() {
+        if (m_parent != null) {
+            return m_parent.getShortCutBytes();
+        }
+        return m_shortCutBytes.get();
+    }
+
+    /**
+     * @param numOfBytes the number of bytes to read at most during a short-cut
+     *            analysis, negative if only the number of lines should be
+     *            limited
+     * @since 3.6
+     */
+    public void setShortCutBytes(final long numOfBytes) {
+        assert m_parent == null;
+        m_shortCutBytes.set(numOfBytes);
+    }
+
+    /**
+     * @return true, if a short-cut analysis guesses the column types from
+     *         blocks sampled across the entire file instead of from the first
+     *         lines only
+     * @since 3.6
+     */
+    public boolean isSampleShortCut() {
+        if (m_parent != null) {
+            return m_parent.isSampleShortCut();
+        }
+        return m_sampleShortCut;
+    }
+
+    /**
+     * @param sample true, if a short-cut analysis should guess the column
+     *            types from blocks sampled across the entire (local) file.
+     *            The line and byte limits apply to the entire sample.
+     * @since 3.6
+     */
+    public void setSampleShortCut(final boolean sample) {
+        assert m_parent == null;
+        m_sampleShortCut = sample;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -54,9 +54,11 @@
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.time.Duration;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Optional;
+import java.util.Set;
 import java.util.Vector;
 
 import org.knime.base.node.util.BufferedFileReader;
@@ -933,6 +935,15 @@ public boolean isRowDelimiter(final String pattern, final boolean wasQuoted) {
         return m_rowDelimiters.contains(pattern);
     }
 
+    /**
+     * @return an unmodifiable view of all row delimiter patterns (not
+     *         including <code>null</code>, which is always a row delimiter)
+     * @since 3.6
+     */
+    public Set<String> getAllRowDelimiters() {
+        return Collections.unmodifiableSet(m_rowDelimiters);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -45,6 +45,7 @@
 package org.knime.base.node.io.filereader;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.util.HashMap;
 import java.util.NoSuchElementException;
 
@@ -60,6 +61,7 @@
 import org.knime.core.util.MutableInteger;
 import org.knime.core.util.tokenizer.Tokenizer;
 import org.knime.core.util.tokenizer.TokenizerException;
+import org.knime.core.util.tokenizer.TokenizerSettings;
 
 /**
  * Row iterator for the {@link FileTable}.
@@ -91,7 +93,8 @@ class FileRowIterator extends CloseableRowIterator {
     private final String m_rowHeaderPrefix;
 
     // a hash set where we store row header read in - to ensure ID uniquity, and
-    // we associate with it the last used suffix, to make it unique
+    // we associate with it the last used suffix, to make it unique. Null if
+    // the row IDs are made unique by the iterator consuming our rows.
     private final HashMap<String, Number> m_rowIDhash;
 
     // Used in the above hash to indicate that duplicate of that row was found.
@@ -119,6 +122,31 @@ class FileRowIterator extends CloseableRowIterator {
     /* counts the progress reports */
     private long m_lastReport;
 
+    // the row ID of the row last returned
+    private String m_lastRowHeader;
+
+    // the row header of the last row as read from the file (and if quoted)
+    private String m_lastFileRowHeader;
+
+    private boolean m_lastFileRowHeaderWasQuoted;
+
+    // reads the source with multiple threads, null if read sequentially
+    private final ParallelFileRowReader m_parallelReader;
+
+    // the chunk of rows currently returned when reading in parallel
+    private ParallelFileRowReader.ParsedChunk m_chunk;
+
+    private int m_chunkRow;
+
+    // re-reads a chunk a worker failed on, to fail with the right error
+    private FileRowIterator m_chunkIterator;
+
+    // widens guessed column types instead of failing, null if not enabled
+    private ColumnTypeWidener m_widener;
+
+    // true while reading the rest of the file after a column type was widened
+    private boolean m_draining;
+
     /**
      * The RowIterator for the FileTable.
      *
@@ -137,6 +165,43 @@ class FileRowIterator extends CloseableRowIterator {
     FileRowIterator(final FileReaderSettings frSettings,
             final DataTableSpec tableSpec, final boolean[] skipColumns,
             final ExecutionContext exec) throws IOException {
+        this(frSettings, frSettings, tableSpec, skipColumns, exec,
+                frSettings.createNewInputReader(), null, true, 1,
+                new HashMap<String, Number>());
+    }
+
+    /**
+     * Creates an iterator over a chunk of the data file. Used by the
+     * {@link ParallelFileRowReader}.
+     *
+     * @param frSettings object containing the wheres and hows to read the data
+     * @param tokenizerSettings the settings for the tokenizer reading the chunk
+     * @param tableSpec the spec defining the structure of the rows to create
+     * @param skipColumns the columns to skip, see above
+     * @param chunk the characters to read the rows from
+     * @param readColumnHeaders if the chunk starts with the column headers
+     *            (if the file has any)
+     * @param firstRowNumber the number of the first row in the chunk
+     * @param rowIDhash the row IDs created so far. If <code>null</code> the
+     *            row IDs are not made unique.
+     */
+    FileRowIterator(final FileReaderSettings frSettings,
+            final TokenizerSettings tokenizerSettings,
+            final DataTableSpec tableSpec, final boolean[] skipColumns,
+            final Reader chunk, final boolean readColumnHeaders,
+            final int firstRowNumber,
+            final HashMap<String, Number> rowIDhash) {
+        this(frSettings, tokenizerSettings, tableSpec, skipColumns, null, null,
+                chunk, readColumnHeaders, firstRowNumber, rowIDhash);
+    }
+
+    private FileRowIterator(final FileReaderSettings frSettings,
+            final TokenizerSettings tokenizerSettings,
+            final DataTableSpec tableSpec, final boolean[] skipColumns,
+            final ExecutionContext exec, final BufferedFileReader source,
+            final Reader chunk, final boolean readColumnHeaders,
+            final int firstRowNumber,
+            final HashMap<String, Number> rowIDhash) {
 
         if (skipColumns.length < tableSpec.getNumColumns()) {
             throw new IllegalArgumentException("The number of columns can't"
@@ -160,19 +225,20 @@ class FileRowIterator extends CloseableRowIterator {
         m_exec = exec;
         m_lastReport = 0;
 
-        m_source = m_frSettings.createNewInputReader();
-        m_tokenizer = new Tokenizer(m_source);
+        m_source = source;
+        m_tokenizer = new Tokenizer(source != null ? source : chunk);
 
         // set the tokenizer related settings in the tokenizer
-        m_tokenizer.setSettings(frSettings);
+        m_tokenizer.setSettings(tokenizerSettings);
 
         // cell factory used to create the cells of each row
         m_cellFactory = new DataCellFactory();
         m_cellFactory.setDecimalSeparator(frSettings.getDecimalSeparator());
         m_cellFactory.setThousandsSeparator(frSettings.getThousandsSeparator());
 
-        m_rowNumber = 1;
-        if (m_frSettings.getMaximumNumberOfRowsToRead() < 0) {
+        m_rowNumber = firstRowNumber;
+        if (source == null || m_frSettings.getMaximumNumberOfRowsToRead() < 0) {
+            // chunks are limited by the iterator consuming them
             m_maxNumOfRows = Long.MAX_VALUE;
         } else {
             m_maxNumOfRows = m_frSettings.getMaximumNumberOfRowsToRead();
@@ -199,12 +265,21 @@ class FileRowIterator extends CloseableRowIterator {
             }
         }
 
-        m_rowIDhash = new HashMap<String, Number>();
+        m_rowIDhash = rowIDhash;
+
+        if (source != null && exec != null) {
+            m_parallelReader = ParallelFileRowReader.create(frSettings,
+                    tableSpec, skipColumns, source);
+        } else {
+            m_parallelReader = null;
+        }
 
         // if the column headers are stored in the data file, we must read
         // them (the first line) and discard them (if they are actually used
         // from the file they should have been stored in the table spec).
-        if (frSettings.getFileHasColumnHeaders()) {
+        // (When reading in parallel the first chunk does it.)
+        if (frSettings.getFileHasColumnHeaders() && readColumnHeaders
+                && m_parallelReader == null) {
             if (hasNext()) { // call this first to eat up empty lines
                 String token = m_tokenizer.nextToken();
                 while (!frSettings.isRowDelimiter(token, m_tokenizer.lastTokenWasQuoted())) {
@@ -220,7 +295,7 @@ class FileRowIterator extends CloseableRowIterator {
      */
     @Override
     protected void finalize() throws Throwable {
-        m_source.close();
+        dispose();
         super.finalize();
     }
 
@@ -232,6 +307,12 @@ protected void finalize() throws Throwable {
      * {@link #next()} after disposing of the iterator has undefined behavior.
      */
     public void dispose() {
+        if (m_parallelReader != null) {
+            m_parallelReader.close();
+        }
+        if (m_source == null) {
+            return;
+        }
         try {
             m_source.close();
         } catch (IOException ioe) {
@@ -250,6 +331,9 @@ public void close() {
      */
     @Override
     public boolean hasNext() {
+        if (m_parallelReader != null) {
+            return hasNextParallel();
+        }
 
         boolean result;
 
@@ -297,11 +381,122 @@ public boolean hasNext() {
         return result;
     }
 
+    /*
+     * hasNext() when reading in parallel: the rows come from the parsed chunks
+     * - or from an iterator re-reading a chunk a worker failed on.
+     */
+    private boolean hasNextParallel() {
+        boolean result = !m_exceptionThrown && fetchParallel();
+        // rowNumber is number of the next row!
+        if (m_rowNumber > m_maxNumOfRows) {
+            m_fileWasNotCompletelyRead = result; // incorrect on exception
+            result = false;
+        }
+        if (!result) {
+            m_parallelReader.close();
+        }
+        return result;
+    }
+
+    private boolean fetchParallel() {
+        try {
+            while (true) {
+                if (m_chunkIterator != null) {
+                    if (m_chunkIterator.hasNext()) {
+                        return true;
+                    }
+                    m_chunkIterator = null;
+                } else if (m_chunk != null && m_chunkRow < m_chunk.getNumRows()) {
+                    return true;
+                }
+                m_chunk = m_parallelReader.nextParsedChunk();
+                m_chunkRow = 0;
+                if (m_chunk == null) {
+                    return false;
+                }
+                if (m_chunk.hasFailed()) {
+                    m_chunkIterator = m_parallelReader.createSerialIterator(
+                            m_chunk, m_rowNumber, m_rowIDhash);
+                    m_chunkIterator.setColumnTypeWidener(m_widener);
+                }
+            }
+        } catch (RuntimeException e) {
+            m_exceptionThrown = true;
+            m_parallelReader.close();
+            throw e;
+        }
+    }
+
+    private DataRow nextParallel() {
+        if (!hasNext()) {
+            throw new NoSuchElementException(
+                    "The row iterator proceeded beyond the last line of '"
+                            + m_frSettings.getDataFileLocation().toString()
+                            + "'.");
+        }
+        DataCell[] row;
+        String rowHeader;
+        if (m_chunkIterator != null) {
+            try {
+                row = m_chunkIterator.readRow();
+            } catch (RuntimeException e) {
+                m_exceptionThrown = true;
+                m_parallelReader.close();
+                throw e;
+            }
+            rowHeader = m_chunkIterator.m_lastRowHeader;
+        } else {
+            row = m_chunk.getCells(m_chunkRow);
+            rowHeader = createRowHeader(m_chunk.getFileRowHeader(m_chunkRow),
+                    m_chunk.wasFileRowHeaderQuoted(m_chunkRow),
+                    m_rowNumber - 1);
+            m_chunkRow++;
+        }
+        m_rowNumber++;
+        reportProgress();
+        m_lastRowHeader = rowHeader;
+        return new DefaultRow(rowHeader, row);
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public DataRow next() {
+        DataRow row;
+        if (m_parallelReader != null) {
+            row = nextParallel();
+        } else {
+            row = new DefaultRow(m_lastRowHeader, readRow());
+        }
+        if (m_widener != null && !m_draining && m_widener.hasWidened()) {
+            // the rows read so far are useless - the file is read again with
+            // the widened types. Read the rest to find all columns to widen.
+            m_draining = true;
+            while (hasNext()) {
+                next();
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Lets this iterator widen the type of a column whose type was guessed,
+     * instead of failing on a value that doesn't fit the type.
+     *
+     * @param widener keeps the current column types, null to fail on values
+     *            not fitting the column type
+     */
+    void setColumnTypeWidener(final ColumnTypeWidener widener) {
+        m_widener = widener;
+    }
+
+    /**
+     * Reads the next row from the tokenizer.
+     *
+     * @return the cells of the row read, its ID is stored in m_lastRowHeader
+     */
+    DataCell[] readRow() {
         int rowLength = m_tableSpec.getNumColumns();
         int colsToRead = m_skipColumns.length;
 
@@ -378,7 +573,8 @@ public DataRow next() {
                 DataColumnSpec cSpec = m_tableSpec.getColumnSpec(createdCols);
                 // now get that new cell
                 // (it throws an exception at us if it couldn't)
-                row[createdCols] = createNewDataCellOfType(cSpec.getType(), token, isMissingCell,
+                DataType type = m_widener == null ? cSpec.getType() : m_widener.getType(createdCols);
+                row[createdCols] = createNewDataCellOfType(type, token, isMissingCell,
                     m_frSettings.getFormatParameterForColumn(readCols).orElse(null), rowHeader, row);
                 createdCols++;
             }
@@ -460,18 +656,28 @@ public DataRow next() {
         }
         m_rowNumber++;
 
-        // report progress
-        // only if an execution context exists an if the underlying
-        // URL is a file whose size can be determined
+        reportProgress();
+        m_lastRowHeader = rowHeader;
+        return row;
+    } // readRow()
+
+    /*
+     * report progress
+     * only if an execution context exists an if the underlying
+     * URL is a file whose size can be determined
+     */
+    private void reportProgress() {
+        if (m_exec == null) {
+            return;
+        }
         double readBytes = m_source.getNumberOfBytesRead();
-        if (m_exec != null && m_source.getFileSize() > 0
+        if (m_source.getFileSize() > 0
                 && readBytes / PROGRESS_JUNK_SIZE > m_lastReport) {
             // assert readBytes <= m_frSettings.getDataFileSize();
             m_exec.setProgress(readBytes / m_source.getFileSize());
             m_lastReport++;
         }
-        return new DefaultRow(rowHeader, row);
-    } // next()
+    }
 
     /**
      * The method creates a default {@link DataCell} of the type passed in, and
@@ -519,6 +725,10 @@ private DataCell createNewDataCellOfType(final DataType type,
         while (errCol < row.length && row[errCol] != null) {
             errCol++;
         }
+        if (m_widener != null && m_widener.widen(errCol, data, m_cellFactory)) {
+            // the row is not used anyway, it is read again with the new type
+            return DataType.getMissingCell();
+        }
         // create an error message
         String errorMsg = m_cellFactory.getErrorMessage();
         errorMsg +=
@@ -568,17 +778,29 @@ private String createRowHeader(final int rowNumber) {
             }
         }
 
+        boolean wasQuoted = fileHeader != null && m_tokenizer.lastTokenWasQuoted();
+        m_lastFileRowHeader = fileHeader;
+        m_lastFileRowHeaderWasQuoted = wasQuoted;
+        return createRowHeader(fileHeader, wasQuoted, rowNumber);
+    }
+
+    /*
+     * Creates the row header from the header read from the file (null if the
+     * file has none) - see above.
+     */
+    private String createRowHeader(final String fileHeader,
+            final boolean wasQuoted, final int rowNumber) {
         if (m_rowHeaderPrefix == null) {
             assert fileHeader != null;
             String newRowHeader;
-            if (fileHeader.equals("") && !m_tokenizer.lastTokenWasQuoted()) {
+            if (fileHeader.equals("") && !wasQuoted) {
                 // seems we got a missing row delimiter. Let's build one.
                 newRowHeader = DataType.getMissingCell().toString() + rowNumber;
             } else {
                 newRowHeader = fileHeader;
             }
 
-            if (m_frSettings.uniquifyRowIDs()) {
+            if (m_frSettings.uniquifyRowIDs() && m_rowIDhash != null) {
                 // see if it's unique - and if not make it unique.
                 newRowHeader = uniquifyRowHeader(newRowHeader);
             }
@@ -671,6 +893,22 @@ private FileReaderException prepareForException(final String msg,
 
     }
 
+    /**
+     * @return the row header of the row last read as it was in the file,
+     *         <code>null</code> if the file has no row headers
+     */
+    String getLastFileRowHeader() {
+        return m_lastFileRowHeader;
+    }
+
+    /**
+     * @return true, if the row header of the row last read was quoted in the
+     *         file
+     */
+    boolean lastFileRowHeaderWasQuoted() {
+        return m_lastFileRowHeaderWasQuoted;
+    }
+
     /**
      * The settings allow for specifying a maximum number of rows. This method
      * can be used to find out, if the source has more data than actually
@@ -0,0 +1,293 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.io.filereader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.Random;
+
+import org.knime.base.node.util.BufferedFileReader;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Stream over a sample of a local data file, used by the {@link FileAnalyzer}
+ * to guess column types without reading the entire file. The sample consists
+ * of the first lines of the file followed by blocks of lines taken at strided
+ * random positions across the rest of the file. Each block starts after the
+ * first line end following its (random) position and ends after a line end,
+ * so the sample contains complete lines only - unless a quoted value contains
+ * line ends, which may shift the columns in a block. That is acceptable for
+ * guessing types; the reader widens guessed types if needed.
+ * <p>
+ * The positions depend on the file size only, sampling the same file twice
+ * produces the same sample.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class FileSampler extends InputStream {
+
+    /** The number of blocks sampled after the first lines of the file. */
+    static final int NUM_OF_BLOCKS = 16;
+
+    // files smaller than this are not sampled but read from the beginning
+    private static final long MIN_FILE_SIZE = 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final RandomAccessFile m_file;
+
+    private final long m_fileSize;
+
+    // start position of each block, the first block is the head of the file
+    private final long[] m_blockStarts;
+
+    private final long m_linesPerBlock;
+
+    private final long m_bytesPerBlock;
+
+    private final long m_headLines;
+
+    private final byte[] m_buffer = new byte[BUFFER_SIZE];
+
+    private int m_bufPos = 0;
+
+    private int m_bufEnd = 0;
+
+    // the position in the file of the next byte to read into the buffer
+    private long m_filePos;
+
+    private int m_block = -1;
+
+    // true while skipping the partial line at the beginning of a block
+    private boolean m_skipToLineStart;
+
+    private long m_linesInBlock;
+
+    private long m_bytesInBlock;
+
+    private FileSampler(final File file, final long headLines,
+            final long linesPerBlock, final long bytesPerBlock)
+            throws IOException {
+        m_file = new RandomAccessFile(file, "r");
+        m_fileSize = m_file.length();
+        m_headLines = headLines;
+        m_linesPerBlock = linesPerBlock;
+        m_bytesPerBlock = bytesPerBlock;
+        m_blockStarts = new long[NUM_OF_BLOCKS + 1];
+        // the head is block 0, the others start in the second half of
+        // their stride - the first half is (mostly) covered by the block
+        // before
+        long stride = m_fileSize / (NUM_OF_BLOCKS + 1);
+        Random rand = new Random(m_fileSize);
+        for (int b = 1; b <= NUM_OF_BLOCKS; b++) {
+            long jitter = (long)(rand.nextDouble() * (stride / 2));
+            m_blockStarts[b] = b * stride + stride / 2 + jitter;
+        }
+        nextBlock();
+    }
+
+    /**
+     * Creates a reader over a sample of the data file specified in the
+     * settings. Returns <code>null</code> if the file should not or cannot be
+     * sampled: if it is not a local file, compressed, too small, or if the
+     * character set doesn't encode a line end as single LF byte.
+     *
+     * @param settings the settings with the data file location and charset
+     * @param lineBudget the (approximate) number of lines to sample
+     * @param byteBudget the (approximate) number of bytes to sample, negative
+     *            if only the line budget applies
+     * @return a reader over the sample or <code>null</code>
+     * @throws IOException if the file can't be read
+     */
+    static BufferedFileReader createSampleReader(
+            final FileReaderSettings settings, final int lineBudget,
+            final long byteBudget) throws IOException {
+        File file;
+        try {
+            file = FileUtil.getFileFromURL(settings.getDataFileLocation());
+        } catch (Exception e) {
+            // then it's not a local file
+            return null;
+        }
+        if (file == null || !file.isFile() || file.length() < MIN_FILE_SIZE
+                || (byteBudget >= 0 && file.length() <= byteBudget)
+                || !isLFSingleByte(settings.getCharsetName())
+                || isCompressed(file)) {
+            return null;
+        }
+        long linesPerBlock = Math.max(1, lineBudget / (NUM_OF_BLOCKS + 1));
+        // the head also contains the lines to skip and the column headers
+        long headLines = Math.max(linesPerBlock,
+            lineBudget - NUM_OF_BLOCKS * linesPerBlock)
+            + settings.getSkipFirstLines() + 1;
+        long bytesPerBlock = byteBudget < 0 ? Long.MAX_VALUE
+            : Math.max(1, byteBudget / (NUM_OF_BLOCKS + 1));
+        FileSampler sampler =
+            new FileSampler(file, headLines, linesPerBlock, bytesPerBlock);
+        return BufferedFileReader.createNewReader(sampler,
+            settings.getCharsetName());
+    }
+
+    private static boolean isLFSingleByte(final String charsetName) {
+        Charset cs = charsetName == null ? Charset.defaultCharset()
+            : Charset.forName(charsetName);
+        byte[] lf = "\n".getBytes(cs);
+        return lf.length == 1 && lf[0] == '\n';
+    }
+
+    private static boolean isCompressed(final File file) throws IOException {
+        try (RandomAccessFile f = new RandomAccessFile(file, "r")) {
+            int b0 = f.read();
+            int b1 = f.read();
+            // GZIP magic number or ZIP local file header signature
+            return (b0 == 0x1f && b1 == 0x8b) || (b0 == 'P' && b1 == 'K');
+        }
+    }
+
+    /*
+     * Moves on to the next block. Returns false if there are no more blocks.
+     */
+    private boolean nextBlock() throws IOException {
+        m_block++;
+        if (m_block >= m_blockStarts.length) {
+            return false;
+        }
+        long start = m_blockStarts[m_block];
+        if (start < m_filePos - (m_bufEnd - m_bufPos)) {
+            // the block before got there already - the rest of this block
+            // would repeat lines already in the sample
+            return nextBlock();
+        }
+        m_filePos = start;
+        m_bufPos = 0;
+        m_bufEnd = 0;
+        m_skipToLineStart = m_block > 0;
+        m_linesInBlock = 0;
+        m_bytesInBlock = 0;
+        return true;
+    }
+
+    /*
+     * Returns the next byte of the file, or -1 at the end of the file.
+     */
+    private int nextFileByte() throws IOException {
+        if (m_bufPos == m_bufEnd) {
+            m_file.seek(m_filePos);
+            int read = m_file.read(m_buffer);
+            if (read <= 0) {
+                return -1;
+            }
+            m_filePos += read;
+            m_bufPos = 0;
+            m_bufEnd = read;
+        }
+        return m_buffer[m_bufPos++] & 0xFF;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() throws IOException {
+        while (m_block < m_blockStarts.length) {
+            int b = nextFileByte();
+            if (b < 0) {
+                // the end of the file ends the sample
+                m_block = m_blockStarts.length;
+                return -1;
+            }
+            if (m_skipToLineStart) {
+                if (b == '\n') {
+                    m_skipToLineStart = false;
+                }
+                continue;
+            }
+            long maxLines = m_block == 0 ? m_headLines : m_linesPerBlock;
+            if (b == '\n') {
+                m_linesInBlock++;
+                if (m_linesInBlock >= maxLines
+                        || m_bytesInBlock >= m_bytesPerBlock) {
+                    nextBlock();
+                }
+            } else {
+                m_bytesInBlock++;
+            }
+            return b;
+        }
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(final byte[] b, final int off, final int len)
+            throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int count = 0;
+        while (count < len) {
+            int c = read();
+            if (c < 0) {
+                break;
+            }
+            b[off + count++] = (byte)c;
+        }
+        return count == 0 ? -1 : count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        m_file.close();
+    }
+}
@@ -95,6 +95,9 @@ public class FileTable implements DataTable {
     // list of all iterators to close the source, when the table is disposed of
     private final LinkedList<WeakReference<FileRowIterator>> m_iterators;
 
+    // widens guessed column types, null if the iterators fail on values not fitting the type
+    private ColumnTypeWidener m_widener;
+
     /**
      * Creates a new file table with the structure defined in tableSpec and
      * using the settings in frSettings when the file is read.
@@ -203,6 +206,7 @@ public FileRowIterator iterator() {
                 FileRowIterator i =
                         new FileRowIterator(m_frSettings, m_tableSpec,
                                 m_skipColums, m_exec);
+                i.setColumnTypeWidener(m_widener);
                 m_iterators.add(new WeakReference<FileRowIterator>(i));
                 return i;
 
@@ -222,6 +226,51 @@ public DataTableSpec getDataTableSpec() {
         return m_tableSpec;
     }
 
+    /**
+     * Lets the iterators of this table widen the type of a column (from integer
+     * to double to string) if they read a value that doesn't fit the type,
+     * instead of failing. Only columns whose type was guessed are widened
+     * (i.e. not the ones set by the user in {@link FileReaderNodeSettings}).
+     * Once a type is widened the rows returned are not valid anymore: the
+     * iterator reads the rest of the file (without returning the rows) to find
+     * all columns to widen, and the file must be read again with the spec
+     * returned by {@link #getWidenedTableSpec()}.
+     *
+     * @param widen true to widen guessed column types, false to fail on values
+     *            not fitting the column type (the default)
+     * @since 3.6
+     */
+    public void setWidenGuessedColumnTypes(final boolean widen) {
+        m_widener = widen ? new ColumnTypeWidener(m_tableSpec, m_frSettings, m_skipColums) : null;
+    }
+
+    /**
+     * @return the table spec with the widened column types, if an iterator of
+     *         this table widened a column type, null otherwise
+     * @see #setWidenGuessedColumnTypes(boolean)
+     * @since 3.6
+     */
+    public DataTableSpec getWidenedTableSpec() {
+        if (m_widener == null || !m_widener.hasWidened()) {
+            return null;
+        }
+        return m_widener.createWidenedSpec(m_tableSpec);
+    }
+
+    /**
+     * @return a new table reading the same file with the widened column types,
+     *         or null if no column type was widened
+     * @see #setWidenGuessedColumnTypes(boolean)
+     * @since 3.6
+     */
+    public FileTable createWidenedTable() {
+        DataTableSpec spec = getWidenedTableSpec();
+        if (spec == null) {
+            return null;
+        }
+        return new FileTable(spec, m_frSettings, m_skipColums, m_exec);
+    }
+
     /**
      * Method to check consistency and completeness of the current settings. It
      * will return a {@link SettingsStatus} object which contains info, warning
@@ -0,0 +1,620 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.io.filereader;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.knime.base.node.util.BufferedFileReader;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.util.ThreadPool;
+import org.knime.core.util.tokenizer.Delimiter;
+import org.knime.core.util.tokenizer.Quote;
+import org.knime.core.util.tokenizer.TokenizerSettings;
+
+/**
+ * Reads the data file of a {@link FileRowIterator} with multiple threads. The
+ * calling thread scans the source in large blocks and cuts it into chunks of
+ * complete records (the scan is quote-aware and follows the rules of the
+ * {@link org.knime.core.util.tokenizer.Tokenizer}). Each chunk is tokenized
+ * and converted into cells by a worker of a sub pool of the global thread
+ * pool. Parsed chunks are handed out in file order. Row IDs are not created
+ * by the workers, this is left to the caller, which sees the rows in their
+ * original order and can therefore create the same IDs as a sequential read.
+ * <p>
+ * Only settings for which a record boundary can be detected without running
+ * the tokenizer are supported, see {@link #create(FileReaderSettings,
+ * DataTableSpec, boolean[], BufferedFileReader)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ParallelFileRowReader {
+
+    /** The minimum number of characters in a chunk. */
+    static final int CHUNK_SIZE = 256 * 1024;
+
+    private static final char LF = '\n';
+
+    private static final char CR = '\r';
+
+    // overrides the chunk size and number of threads if positive
+    private static volatile int chunkSizeOverride = 0;
+
+    private static volatile int numThreadsOverride = 0;
+
+    private final FileReaderSettings m_frSettings;
+
+    private final DataTableSpec m_tableSpec;
+
+    private final boolean[] m_skipColumns;
+
+    private final BufferedFileReader m_source;
+
+    private final ThreadPool m_pool;
+
+    private final int m_chunkSize;
+
+    // the number of chunks read ahead and parsed while the caller consumes
+    private final int m_maxChunksInFlight;
+
+    private final ArrayDeque<Future<ParsedChunk>> m_inFlight =
+            new ArrayDeque<Future<ParsedChunk>>();
+
+    // single char begin/end/escape of each quote pattern
+    private final char[] m_quoteBegin;
+
+    private final char[] m_quoteEnd;
+
+    private final char[] m_quoteEscape;
+
+    private final boolean[] m_quoteHasEscape;
+
+    private final boolean m_allowLFinQuotes;
+
+    // true if consecutive LFs are combined into one row delimiter
+    private final boolean m_combineLFs;
+
+    // characters read from the source but not yet handed out in a chunk
+    private char[] m_buffer;
+
+    private int m_bufEnd = 0;
+
+    private boolean m_eof = false;
+
+    private long m_linesToSkip;
+
+    // the number of LFs in the source before the start of m_buffer
+    private int m_lineOffset = 0;
+
+    private boolean m_isFirstChunk = true;
+
+    private volatile boolean m_closed = false;
+
+    private ParallelFileRowReader(final FileReaderSettings frSettings,
+            final DataTableSpec tableSpec, final boolean[] skipColumns,
+            final BufferedFileReader source, final int numThreads,
+            final int chunkSize) {
+        m_frSettings = frSettings;
+        m_tableSpec = tableSpec;
+        m_skipColumns = skipColumns;
+        m_source = source;
+        m_pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(numThreads);
+        m_maxChunksInFlight = numThreads + 1;
+        m_chunkSize = chunkSize;
+        m_buffer = new char[2 * chunkSize];
+        List<Quote> quotes = frSettings.getAllQuotes();
+        m_quoteBegin = new char[quotes.size()];
+        m_quoteEnd = new char[quotes.size()];
+        m_quoteEscape = new char[quotes.size()];
+        m_quoteHasEscape = new boolean[quotes.size()];
+        for (int q = 0; q < quotes.size(); q++) {
+            Quote quote = quotes.get(q);
+            m_quoteBegin[q] = quote.getLeft().charAt(0);
+            m_quoteEnd[q] = quote.getRight().charAt(0);
+            m_quoteHasEscape[q] = quote.hasEscapeChar();
+            m_quoteEscape[q] = quote.getEscape();
+        }
+        m_allowLFinQuotes = frSettings.allowLFinQuotes();
+        m_combineLFs = frSettings.combinesMultipleRowDelimiters(
+                String.valueOf(LF));
+        m_linesToSkip = frSettings.getSkipFirstLines();
+    }
+
+    /**
+     * Creates a parallel reader for the specified source, if the settings
+     * allow it and if more than one thread is available. Supported are
+     * settings with LF as the only row delimiter, no comments, no line
+     * continuation character, single character quotes, and no column
+     * delimiters or white spaces interfering with line ends or quotes.
+     *
+     * @param frSettings the settings of the file to read
+     * @param tableSpec the spec of the rows to create
+     * @param skipColumns the columns to skip, see {@link FileRowIterator}
+     * @param source the source to read from, already opened
+     * @return a new reader, or <code>null</code> if the source should be read
+     *         sequentially
+     */
+    static ParallelFileRowReader create(final FileReaderSettings frSettings,
+            final DataTableSpec tableSpec, final boolean[] skipColumns,
+            final BufferedFileReader source) {
+        int numThreads = numThreadsOverride > 0 ? numThreadsOverride
+                : Math.min(Runtime.getRuntime().availableProcessors(),
+                        KNIMEConstants.GLOBAL_THREAD_POOL.getMaxThreads());
+        if (numThreads < 2) {
+            return null;
+        }
+        int chunkSize =
+                chunkSizeOverride > 0 ? chunkSizeOverride : CHUNK_SIZE;
+        if (source.getFileSize() > 0 && source.getFileSize() < 2 * chunkSize) {
+            // not worth it
+            return null;
+        }
+        if (!isSupported(frSettings)) {
+            return null;
+        }
+        return new ParallelFileRowReader(frSettings, tableSpec, skipColumns,
+                source, numThreads, chunkSize);
+    }
+
+    /**
+     * Sets the minimum number of characters in a chunk and the number of
+     * threads of the readers created afterwards, to get many chunk boundaries
+     * in small files. Used for testing only.
+     *
+     * @param chunkSize the chunk size, 0 for the default
+     * @param numThreads the number of threads, 0 for the default
+     */
+    static void setChunkSizeAndThreads(final int chunkSize,
+            final int numThreads) {
+        chunkSizeOverride = chunkSize;
+        numThreadsOverride = numThreads;
+    }
+
+    /**
+     * @param s the settings to test
+     * @return true, if record boundaries can be found without tokenizing
+     */
+    static boolean isSupported(final FileReaderSettings s) {
+        String lf = String.valueOf(LF);
+        Set<String> rowDelims = s.getAllRowDelimiters();
+        if (rowDelims.size() != 1 || !rowDelims.contains(lf)) {
+            return false;
+        }
+        if (!s.getAllComments().isEmpty()
+                || s.getLineContinuationCharacter() != null
+                || s.getCombineMultipleDelimiters()) {
+            return false;
+        }
+        StringBuilder quoteChars = new StringBuilder();
+        for (Quote q : s.getAllQuotes()) {
+            if (q.getLeft().length() != 1 || q.getRight().length() != 1) {
+                return false;
+            }
+            char left = q.getLeft().charAt(0);
+            if (quoteChars.indexOf(q.getLeft()) >= 0 || isLineEnd(left)
+                    || isLineEnd(q.getRight().charAt(0))
+                    || (q.hasEscapeChar() && isLineEnd(q.getEscape()))) {
+                return false;
+            }
+            quoteChars.append(left);
+        }
+        for (Delimiter d : s.getAllDelimiters()) {
+            String pattern = d.getDelimiter();
+            if (pattern.equals(lf)) {
+                continue;
+            }
+            if (pattern.indexOf(LF) >= 0) {
+                return false;
+            }
+            for (int i = 0; i < pattern.length(); i++) {
+                if (quoteChars.indexOf(pattern.substring(i, i + 1)) >= 0) {
+                    return false;
+                }
+            }
+        }
+        for (String ws : s.getAllWhiteSpaces()) {
+            if (ws.indexOf(LF) >= 0 || ws.indexOf(CR) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLineEnd(final char c) {
+        return c == LF || c == CR;
+    }
+
+    /**
+     * Returns the next chunk of rows in file order, waiting for it to be
+     * parsed if necessary. Before waiting, more chunks are cut from the source
+     * and handed to the workers.
+     *
+     * @return the next parsed chunk, or <code>null</code> if the source is
+     *         exhausted
+     * @throws FileReaderException if reading the source failed or the thread
+     *             was interrupted
+     */
+    ParsedChunk nextParsedChunk() {
+        if (m_closed) {
+            return null;
+        }
+        try {
+            while (m_inFlight.size() < m_maxChunksInFlight) {
+                final Chunk chunk = nextChunk();
+                if (chunk == null) {
+                    break;
+                }
+                m_inFlight.add(m_pool.enqueue(() -> parse(chunk)));
+            }
+        } catch (IOException ioe) {
+            close();
+            FileReaderException fre = new FileReaderException(
+                    "I/O error while reading '"
+                            + m_frSettings.getDataFileLocation() + "': "
+                            + ioe.getMessage());
+            fre.initCause(ioe);
+            throw fre;
+        }
+        Future<ParsedChunk> future = m_inFlight.poll();
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException ie) {
+            close();
+            Thread.currentThread().interrupt();
+            FileReaderException fre = new FileReaderException(
+                    "Interrupted while reading '"
+                            + m_frSettings.getDataFileLocation() + "'");
+            fre.initCause(ie);
+            throw fre;
+        } catch (ExecutionException ee) {
+            // parse() doesn't throw - this is a programming error
+            close();
+            Throwable cause = ee.getCause() != null ? ee.getCause() : ee;
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Creates an iterator that reads the chunk of a failed worker again, in
+     * the calling thread and with the global row number and row ID set. It
+     * reports the same error - with the same line numbers - as a sequential
+     * read of the entire file.
+     *
+     * @param chunk the chunk to read again
+     * @param firstRowNumber the number of the first row in the chunk
+     * @param rowIDhash the row IDs created so far
+     * @return an iterator over the rows of the chunk
+     */
+    FileRowIterator createSerialIterator(final ParsedChunk chunk,
+            final int firstRowNumber, final HashMap<String, Number> rowIDhash) {
+        Chunk c = chunk.m_chunk;
+        // prefix the chunk with the line ends before it and skip them again,
+        // that gets the line numbers in error messages right
+        char[] text = new char[c.m_lineOffset + c.m_text.length];
+        Arrays.fill(text, 0, c.m_lineOffset, LF);
+        System.arraycopy(c.m_text, 0, text, c.m_lineOffset, c.m_text.length);
+        TokenizerSettings settings = new TokenizerSettings(m_frSettings);
+        settings.setSkipFirstLines(c.m_lineOffset);
+        return new FileRowIterator(m_frSettings, settings, m_tableSpec,
+                m_skipColumns, new CharArrayReader(text), c.m_isFirst,
+                firstRowNumber, rowIDhash);
+    }
+
+    /**
+     * Stops reading: cancels all pending chunks and closes the source.
+     */
+    void close() {
+        m_closed = true;
+        for (Future<ParsedChunk> f : m_inFlight) {
+            f.cancel(true);
+        }
+        m_inFlight.clear();
+        try {
+            m_source.close();
+        } catch (IOException ioe) {
+            // then don't close it
+        }
+    }
+
+    /*
+     * Tokenizes the chunk and creates the cells, called by the workers. If
+     * anything goes wrong the chunk is marked as failed.
+     */
+    private ParsedChunk parse(final Chunk chunk) {
+        ParsedChunk result = new ParsedChunk(chunk);
+        TokenizerSettings settings = new TokenizerSettings(m_frSettings);
+        settings.setSkipFirstLines(0);
+        boolean keepHeaders = m_frSettings.getFileHasRowHeaders();
+        try {
+            FileRowIterator it = new FileRowIterator(m_frSettings, settings,
+                m_tableSpec, m_skipColumns, new CharArrayReader(chunk.m_text),
+                chunk.m_isFirst, 1, null);
+            while (it.hasNext()) {
+                if (m_closed) {
+                    return result;
+                }
+                DataCell[] cells = it.readRow();
+                if (keepHeaders) {
+                    if (it.lastFileRowHeaderWasQuoted()) {
+                        result.m_quotedHeaders.set(result.m_rows.size());
+                    }
+                    result.m_headers.add(it.getLastFileRowHeader());
+                }
+                result.m_rows.add(cells);
+            }
+        } catch (RuntimeException e) {
+            result.setFailed();
+        }
+        return result;
+    }
+
+    /*
+     * Cuts the next chunk from the source. A chunk ends after a LF (outside of
+     * quotes) or a sequence of LFs, if they are combined. Returns null at the
+     * end of the source.
+     */
+    private Chunk nextChunk() throws IOException {
+        if (m_linesToSkip > 0) {
+            skipLines();
+        }
+        int quote = -1; // the index of the open quote
+        boolean escaped = false; // the last char was an escape within quotes
+        boolean cutPending = false; // we've seen a row delimiter
+        int lines = 0;
+        int pos = 0;
+        while (true) {
+            int c = charAt(pos);
+            if (c < 0) {
+                return m_bufEnd > 0 ? cut(m_bufEnd, lines) : null;
+            }
+            if (cutPending) {
+                if (m_combineLFs && c == CR && charAt(pos + 1) == LF) {
+                    // the tokenizer swallows CRs in front of LFs
+                    pos++;
+                    continue;
+                }
+                if (!m_combineLFs || c != LF) {
+                    cutPending = false;
+                    if (pos >= m_chunkSize) {
+                        return cut(pos, lines);
+                    }
+                }
+            }
+            pos++;
+            if (c == LF) {
+                lines++;
+            }
+            if (escaped) {
+                escaped = false;
+                if (c == CR && charAt(pos) == LF) {
+                    // the escaped char is the LF
+                    pos++;
+                    lines++;
+                }
+                continue;
+            }
+            if (quote >= 0) {
+                if (c == LF && !m_allowLFinQuotes) {
+                    // the tokenizer fails here - the chunk will be re-read
+                    quote = -1;
+                    cutPending = true;
+                } else if (m_quoteHasEscape[quote]
+                        && c == m_quoteEscape[quote]) {
+                    escaped = true;
+                } else if (c == m_quoteEnd[quote]) {
+                    quote = -1;
+                }
+                continue;
+            }
+            if (c == LF) {
+                cutPending = true;
+                continue;
+            }
+            for (int q = 0; q < m_quoteBegin.length; q++) {
+                if (c == m_quoteBegin[q]) {
+                    quote = q;
+                    break;
+                }
+            }
+        }
+    }
+
+    /*
+     * Burns the first lines of the source, like the tokenizer does.
+     */
+    private void skipLines() throws IOException {
+        int pos = 0;
+        while (m_linesToSkip > 0) {
+            int c = charAt(pos);
+            if (c < 0) {
+                break;
+            }
+            pos++;
+            if (c == LF) {
+                m_linesToSkip--;
+                m_lineOffset++;
+            }
+            if (pos == m_bufEnd) {
+                m_bufEnd = 0;
+                pos = 0;
+            }
+        }
+        m_linesToSkip = 0;
+        System.arraycopy(m_buffer, pos, m_buffer, 0, m_bufEnd - pos);
+        m_bufEnd -= pos;
+    }
+
+    /*
+     * Returns the char at the specified position of the buffer, reading more
+     * from the source if necessary, or -1 at the end of the source.
+     */
+    private int charAt(final int pos) throws IOException {
+        while (pos >= m_bufEnd) {
+            if (m_eof) {
+                return -1;
+            }
+            if (m_bufEnd == m_buffer.length) {
+                m_buffer = Arrays.copyOf(m_buffer, 2 * m_buffer.length);
+            }
+            int read = m_source.readBlock(m_buffer, m_bufEnd,
+                    m_buffer.length - m_bufEnd);
+            if (read < 0) {
+                m_eof = true;
+            } else {
+                m_bufEnd += read;
+            }
+        }
+        return m_buffer[pos];
+    }
+
+    /* Hands out the first length chars of the buffer as chunk. */
+    private Chunk cut(final int length, final int lines) {
+        Chunk chunk = new Chunk(Arrays.copyOf(m_buffer, length), m_lineOffset,
+                m_isFirstChunk);
+        System.arraycopy(m_buffer, length, m_buffer, 0, m_bufEnd - length);
+        m_bufEnd -= length;
+        m_lineOffset += lines;
+        m_isFirstChunk = false;
+        return chunk;
+    }
+
+    /** A piece of the source containing complete records. */
+    private static final class Chunk {
+        private final char[] m_text;
+
+        // the number of lines in the source before the chunk
+        private final int m_lineOffset;
+
+        // the first chunk contains the column headers (if any)
+        private final boolean m_isFirst;
+
+        Chunk(final char[] text, final int lineOffset, final boolean isFirst) {
+            m_text = text;
+            m_lineOffset = lineOffset;
+            m_isFirst = isFirst;
+        }
+    }
+
+    /** The rows parsed from a chunk, without row IDs. */
+    static final class ParsedChunk {
+        private final Chunk m_chunk;
+
+        private final List<DataCell[]> m_rows = new ArrayList<DataCell[]>();
+
+        // the row headers read from the file, if the file has row headers
+        private final List<String> m_headers = new ArrayList<String>();
+
+        private final BitSet m_quotedHeaders = new BitSet();
+
+        private boolean m_failed = false;
+
+        private ParsedChunk(final Chunk chunk) {
+            m_chunk = chunk;
+        }
+
+        private void setFailed() {
+            m_failed = true;
+            m_rows.clear();
+            m_headers.clear();
+        }
+
+        /**
+         * @return true, if the worker failed on this chunk. It must be read
+         *         again with {@link ParallelFileRowReader#createSerialIterator(
+         *         ParsedChunk, int, HashMap)} then.
+         */
+        boolean hasFailed() {
+            return m_failed;
+        }
+
+        /** @return the number of rows in the chunk */
+        int getNumRows() {
+            return m_rows.size();
+        }
+
+        /**
+         * @param row the index of the row in the chunk
+         * @return the cells of that row
+         */
+        DataCell[] getCells(final int row) {
+            return m_rows.get(row);
+        }
+
+        /**
+         * @param row the index of the row in the chunk
+         * @return the row header read from the file, <code>null</code> if the
+         *         file has none
+         */
+        String getFileRowHeader(final int row) {
+            return m_headers.isEmpty() ? null : m_headers.get(row);
+        }
+
+        /**
+         * @param row the index of the row in the chunk
+         * @return true, if the row header in the file was quoted
+         */
+        boolean wasFileRowHeaderQuoted(final int row) {
+            return m_quotedHeaders.get(row);
+        }
+    }
+}
@@ -60,14 +60,15 @@
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
-import org.knime.core.node.workflow.LoopEndNode;
+import org.knime.core.node.workflow.LoopEndParallelizeNode;
 import org.knime.core.node.workflow.LoopStartNodeTerminator;
+import org.knime.core.node.workflow.virtual.parchunk.ParallelizedChunkContentMaster;
 
 /**
  *
  * @author Thorsten Meinl, University of Konstanz
  */
-public class LoopEnd2NodeModel extends NodeModel implements LoopEndNode {
+public class LoopEnd2NodeModel extends NodeModel implements LoopEndParallelizeNode {
 
     /* Overall row count port 1 */
     private int m_count1 = 0;
@@ -82,6 +83,9 @@ public class LoopEnd2NodeModel extends NodeModel implements LoopEndNode {
 
     private final LoopEnd2NodeSettings m_settings = new LoopEnd2NodeSettings();
 
+    /* Results of the iterations the loop start has run in parallel to the current one. */
+    private final ParallelLoopIterationCollector m_parallelIterations = new ParallelLoopIterationCollector();
+
     /** Creates a new model. */
     public LoopEnd2NodeModel() {
         super(2, 2);
@@ -150,7 +154,16 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
                     m_settings.addIterationColumn(), m_settings.tolerateChangingTableSpecs2(), rowKeyFunc2);
         }
 
-        //add tables to factories
+        //add tables to factories, iterations run in parallel precede the one of this node's own loop body
+        try {
+            for (BufferedDataTable[] remote : m_parallelIterations.waitForRemoteIterations(2, exec)) {
+                m_tableFactories[0].addTable(remote[0], exec);
+                m_tableFactories[1].addTable(remote[1], exec);
+                m_iteration++;
+            }
+        } finally {
+            m_parallelIterations.cleanup();
+        }
         m_tableFactories[0].addTable(inData[0], exec);
         m_tableFactories[1].addTable(inData[1], exec);
 
@@ -172,6 +185,18 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
     }
 
 
+    /** {@inheritDoc} */
+    @Override
+    public void setParallelChunkMaster(final ParallelizedChunkContentMaster pcm) {
+        m_parallelIterations.setParallelChunkMaster(pcm);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void updateStatus() {
+        m_parallelIterations.updateStatus();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -63,15 +63,16 @@
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
-import org.knime.core.node.workflow.LoopEndNode;
+import org.knime.core.node.workflow.LoopEndParallelizeNode;
 import org.knime.core.node.workflow.LoopStartNodeTerminator;
+import org.knime.core.node.workflow.virtual.parchunk.ParallelizedChunkContentMaster;
 
 /**
  * This model is the tail node of a for loop.
  *
  * @author Thorsten Meinl, University of Konstanz
  */
-public class LoopEndNodeModel extends NodeModel implements LoopEndNode {
+public class LoopEndNodeModel extends NodeModel implements LoopEndParallelizeNode {
 
     private static final NodeLogger LOGGER = NodeLogger.getLogger(LoopEndNodeModel.class);
 
@@ -89,6 +90,9 @@ public class LoopEndNodeModel extends NodeModel implements LoopEndNode {
 
     private final LoopEndNodeSettings m_settings = new LoopEndNodeSettings();
 
+    /* Results of the iterations the loop start has run in parallel to the current one. */
+    private final ParallelLoopIterationCollector m_parallelIterations = new ParallelLoopIterationCollector();
+
 
     /** Creates a new model. */
     public LoopEndNodeModel() {
@@ -139,6 +143,15 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
             m_startTime = System.currentTimeMillis();
         }
 
+        // iterations run in parallel precede the one that ran through this node's own loop body
+        try {
+            for (BufferedDataTable[] remote : m_parallelIterations.waitForRemoteIterations(1, exec)) {
+                m_tableFactory.addTable(remote[0], exec);
+                m_iteration++;
+            }
+        } finally {
+            m_parallelIterations.cleanup();
+        }
         m_tableFactory.addTable(inData[0], exec);
 
         boolean terminateLoop = ((LoopStartNodeTerminator)this.getLoopStartNode()).terminateLoop();
@@ -156,6 +169,18 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
     }
 
 
+    /** {@inheritDoc} */
+    @Override
+    public void setParallelChunkMaster(final ParallelizedChunkContentMaster pcm) {
+        m_parallelIterations.setParallelChunkMaster(pcm);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void updateStatus() {
+        m_parallelIterations.updateStatus();
+    }
+
     /**
      * {@inheritDoc}
      */
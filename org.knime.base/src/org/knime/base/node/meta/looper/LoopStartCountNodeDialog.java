@@ -59,6 +59,7 @@
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.NotConfigurableException;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
 
 /**
  * This class is the dialog for the looper node.
@@ -71,6 +72,9 @@ public class LoopStartCountNodeDialog extends NodeDialogPane {
 
     private final LoopStartCountSettings m_settings = new LoopStartCountSettings();
 
+    private final DialogComponentNumber m_parallelIterations =
+        ParallelLoopIterations.createParallelIterationsComponent();
+
     /**
      * Creates a new dialog for the looper node.
      */
@@ -85,6 +89,11 @@ public LoopStartCountNodeDialog() {
         c.gridx = 1;
         p.add(m_loops, c);
 
+        c.gridx = 0;
+        c.gridy++;
+        c.gridwidth = 2;
+        p.add(m_parallelIterations.getComponentPanel(), c);
+
         addTab("Standard settings", p);
     }
 
@@ -96,6 +105,7 @@ protected void loadSettingsFrom(final NodeSettingsRO settings,
             final DataTableSpec[] specs) throws NotConfigurableException {
         m_settings.loadSettingsFrom(settings);
         m_loops.setValue(m_settings.loops());
+        m_parallelIterations.loadSettingsFrom(settings, specs);
     }
 
     /**
@@ -106,5 +116,6 @@ protected void saveSettingsTo(final NodeSettingsWO settings)
             throws InvalidSettingsException {
         m_settings.loops((Integer)m_loops.getValue());
         m_settings.saveSettingsTo(settings);
+        m_parallelIterations.saveSettingsTo(settings);
     }
 }
@@ -62,6 +62,9 @@
 import org.knime.core.node.port.PortObjectSpec;
 import org.knime.core.node.port.PortType;
 import org.knime.core.node.workflow.LoopStartNodeTerminator;
+import org.knime.core.node.workflow.LoopStartParallelizeNode;
+import org.knime.core.node.workflow.virtual.parchunk.ParallelizedChunkContentMaster;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkNodeInput;
 
 /**
  * This model is the head node of a for loop.
@@ -69,12 +72,14 @@
  * @author Thorsten Meinl, University of Konstanz
  */
 public class LoopStartCountNodeModel extends NodeModel
-implements LoopStartNodeTerminator {
+implements LoopStartNodeTerminator, LoopStartParallelizeNode {
 
     private int m_iteration;
 
     private final LoopStartCountSettings m_settings = new LoopStartCountSettings();
 
+    private final ParallelLoopIterations m_parallelIterations = new ParallelLoopIterations();
+
     /**
      * Creates a new model with one input and one output port.
      */
@@ -114,12 +119,23 @@ protected PortObject[] execute(final PortObject[] inData,
             assert m_iteration > 0;
             // otherwise we do this again.
         }
+        m_parallelIterations.clear();
+        nextIteration();
+        // hand out iterations to parallel copies of the loop body, the last one is this node's own
+        while (!terminateLoop() && m_parallelIterations.canAddRemoteIteration()) {
+            // the input table is passed on unmodified and stays alive while the loop runs
+            m_parallelIterations.addRemoteIteration(inData, getAvailableFlowVariables());
+            nextIteration();
+        }
+        return inData;
+    }
+
+    private void nextIteration() {
         // let's also put the counts on the stack for someone else:
         pushFlowVariableInt("currentIteration", m_iteration);
         pushFlowVariableInt("maxIterations", m_settings.loops());
         // increment counter for next iteration
         m_iteration++;
-        return inData;
     }
 
     /**
@@ -130,6 +146,30 @@ public boolean terminateLoop() {
         return m_iteration >= m_settings.loops();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public VirtualParallelizedChunkNodeInput getVirtualNodeInput(final int chunkIndex) {
+        return m_parallelIterations.getVirtualNodeInput(chunkIndex);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getNrRemoteChunks() {
+        return m_parallelIterations.getNrRemoteIterations();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setChunkMaster(final ParallelizedChunkContentMaster pccm) {
+        m_parallelIterations.setChunkMaster(pccm);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isParallelizeLoop() {
+        return m_parallelIterations.getNrRemoteIterations() > 0;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -147,6 +187,7 @@ protected void loadInternals(final File nodeInternDir,
     protected void loadValidatedSettingsFrom(final NodeSettingsRO settings)
             throws InvalidSettingsException {
         m_settings.loadSettingsFrom(settings);
+        m_parallelIterations.loadSettingsFrom(settings);
     }
 
     /**
@@ -155,6 +196,7 @@ protected void loadValidatedSettingsFrom(final NodeSettingsRO settings)
     @Override
     protected void reset() {
         m_iteration = 0;
+        m_parallelIterations.reset();
     }
 
     /**
@@ -173,6 +215,7 @@ protected void saveInternals(final File nodeInternDir,
     @Override
     protected void saveSettingsTo(final NodeSettingsWO settings) {
         m_settings.saveSettingsTo(settings);
+        m_parallelIterations.saveSettingsTo(settings);
     }
 
     /**
@@ -182,5 +225,6 @@ protected void saveSettingsTo(final NodeSettingsWO settings) {
     protected void validateSettings(final NodeSettingsRO settings)
             throws InvalidSettingsException {
         new LoopStartCountSettings().loadSettingsFrom(settings);
+        new ParallelLoopIterations().validateSettings(settings);
     }
 }
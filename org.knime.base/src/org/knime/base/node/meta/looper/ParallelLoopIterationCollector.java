@@ -0,0 +1,158 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.meta.looper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.workflow.LoopEndParallelizeNode;
+import org.knime.core.node.workflow.virtual.parchunk.ParallelizedChunkContentMaster;
+
+/**
+ * End side of loops whose iterations are optionally run in parallel, see {@link ParallelLoopIterations}. The loop end
+ * node delegates the {@link LoopEndParallelizeNode} methods to this object and, in each execution, adds the tables
+ * returned by {@link #waitForRemoteIterations(int, ExecutionContext)} before its own input. The chunks are removed
+ * again by {@link #cleanup()} once their tables have been added.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ParallelLoopIterationCollector {
+
+    private ParallelizedChunkContentMaster m_chunkMaster;
+
+    /** @param pcm the master of the chunks running the remote iterations of the current round */
+    synchronized void setParallelChunkMaster(final ParallelizedChunkContentMaster pcm) {
+        m_chunkMaster = pcm;
+    }
+
+    /** Wakes up a thread waiting for the remote iterations. */
+    synchronized void updateStatus() {
+        notifyAll();
+    }
+
+    /**
+     * Waits until all remote iterations of the current round are done.
+     *
+     * @param nrTables the number of tables each iteration delivers to the loop end
+     * @param exec for cancelation
+     * @return for each remote iteration (in iteration order) the tables delivered to the loop end; empty if the loop
+     *         start did not hand out iterations in this round
+     * @throws CanceledExecutionException if canceled, the remote iterations are canceled as well
+     * @throws IllegalStateException if any of the remote iterations failed
+     */
+    List<BufferedDataTable[]> waitForRemoteIterations(final int nrTables, final ExecutionContext exec)
+        throws CanceledExecutionException {
+        final ParallelizedChunkContentMaster master;
+        synchronized (this) {
+            master = m_chunkMaster;
+        }
+        if (master == null || master.nrChunks() == 0) {
+            return Collections.emptyList();
+        }
+        exec.setMessage("Waiting for " + master.nrChunks() + " parallel iterations");
+        try {
+            // the waiting thread doesn't count against the thread pool so that the chunks can run
+            KNIMEConstants.GLOBAL_THREAD_POOL.runInvisible(() -> {
+                synchronized (this) {
+                    while (master.nrExecutingChunks() > 0) {
+                        exec.checkCanceled();
+                        wait(500);
+                    }
+                }
+                return null;
+            });
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof CanceledExecutionException) {
+                master.cancelChunkExecution();
+                throw (CanceledExecutionException)ee.getCause();
+            }
+            throw new IllegalStateException("Waiting for parallel iterations failed: " + ee.getMessage(), ee);
+        } catch (IllegalThreadStateException itse) {
+            // not running in a pool thread, wait in this thread
+            synchronized (this) {
+                while (master.nrExecutingChunks() > 0) {
+                    try {
+                        exec.checkCanceled();
+                        wait(500);
+                    } catch (InterruptedException | CanceledExecutionException e) {
+                        master.cancelChunkExecution();
+                        throw new CanceledExecutionException("Canceled while waiting for parallel iterations");
+                    }
+                }
+            }
+        }
+        if (master.nrFailedChunks() > 0) {
+            throw new IllegalStateException(master.nrFailedChunks() + " of " + master.nrChunks()
+                + " parallel loop iterations failed, see their nodes in the parallel chunks metanode for details");
+        }
+        final List<BufferedDataTable[]> result = new ArrayList<>(master.nrChunks());
+        for (int i = 0; i < master.nrChunks(); i++) {
+            final BufferedDataTable[] tables = new BufferedDataTable[nrTables];
+            System.arraycopy(master.getChunk(i).getOutportContent(), 0, tables, 0, nrTables);
+            result.add(tables);
+        }
+        return result;
+    }
+
+    /** Removes the chunks of the current round, called after their tables have been added. Failed chunks are kept so
+     * that their errors can be inspected. */
+    void cleanup() {
+        final ParallelizedChunkContentMaster master;
+        synchronized (this) {
+            master = m_chunkMaster;
+            m_chunkMaster = null;
+        }
+        if (master != null && master.nrFailedChunks() == 0 && master.nrExecutingChunks() == 0) {
+            master.cleanupChunks();
+        }
+    }
+}
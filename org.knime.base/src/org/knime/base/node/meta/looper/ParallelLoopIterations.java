@@ -0,0 +1,255 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.meta.looper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.workflow.FlowVariable;
+import org.knime.core.node.workflow.LoopStartParallelizeNode;
+import org.knime.core.node.workflow.virtual.parchunk.ParallelizedChunkContentMaster;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkNodeInput;
+
+/**
+ * Start side of loops whose iterations do not depend on each other and which can therefore optionally be run in
+ * parallel. Each execution of the loop start node produces up to {@link #getNrParallelIterations()} consecutive
+ * iterations: all but the last one are handed out as remote chunks (see {@link LoopStartParallelizeNode}), which the
+ * workflow manager executes in copies of the loop body. The last iteration is the node's own output and runs through
+ * the loop body itself. A loop end node collects the remote results before its own input so that the iteration
+ * order is kept.
+ *
+ * <p>The owning node model delegates the {@link LoopStartParallelizeNode} methods and its internal tables to this
+ * object and calls {@link #clear()} at the beginning and {@link #addRemoteIteration(PortObject[], Map)} during each
+ * execution. With the default of one parallel iteration the loop behaves exactly like before.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public final class ParallelLoopIterations {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(ParallelLoopIterations.class);
+
+    /** Config key for the number of iterations run in parallel. */
+    public static final String CFG_PARALLEL_ITERATIONS = "parallelIterations";
+
+    private static final int MAX_PARALLEL_ITERATIONS = 1024;
+
+    private final SettingsModelIntegerBounded m_nrParallelIterations = createParallelIterationsModel();
+
+    private final List<VirtualParallelizedChunkNodeInput> m_remoteInputs = new ArrayList<>();
+
+    private final List<BufferedDataTable> m_remoteTables = new ArrayList<>();
+
+    private ParallelizedChunkContentMaster m_chunkMaster;
+
+    // whether dropped flow variables were reported in the current execution
+    private boolean m_droppedVariablesReported;
+
+    /** @return the number of iterations run in parallel per execution of the loop start, at least 1 */
+    public int getNrParallelIterations() {
+        return m_nrParallelIterations.getIntValue();
+    }
+
+    /** Removes the remote iterations of the previous execution (and the chunks executing them). To be called at the
+     * beginning of each execution of the loop start node. */
+    public void clear() {
+        cleanupChunkMaster();
+        m_remoteInputs.clear();
+        m_remoteTables.clear();
+        m_droppedVariablesReported = false;
+    }
+
+    /** @return whether another iteration can be handed out in the current execution */
+    public boolean canAddRemoteIteration() {
+        return m_remoteInputs.size() < getNrParallelIterations() - 1;
+    }
+
+    /**
+     * Hands out an iteration to be run in a copy of the loop body.
+     *
+     * @param outputs the outputs of the loop start node for that iteration (without the flow variable port)
+     * @param variables the flow variables of that iteration, usually {@code getAvailableFlowVariables()} of the loop
+     *            start; global constants and variables of other types than int, double and string are not passed on,
+     *            the latter are reported as warning once per execution
+     */
+    public void addRemoteIteration(final PortObject[] outputs, final Map<String, FlowVariable> variables) {
+        final List<FlowVariable> chunkVariables = new ArrayList<>();
+        final List<String> droppedVariables = new ArrayList<>();
+        for (FlowVariable v : variables.values()) {
+            if (v.isGlobalConstant()) {
+                continue;
+            }
+            switch (v.getType()) {
+                case INTEGER:
+                case DOUBLE:
+                case STRING:
+                    chunkVariables.add(v);
+                    break;
+                default:
+                    // not supported by the virtual chunk input
+                    droppedVariables.add(v.getName() + " (" + v.getType() + ")");
+            }
+        }
+        if (!droppedVariables.isEmpty() && !m_droppedVariablesReported) {
+            m_droppedVariablesReported = true;
+            LOGGER.warn("Flow variables not available in the parallel iterations of the loop (only int, double and "
+                + "string variables are passed on): " + String.join(", ", droppedVariables));
+        }
+        for (PortObject o : outputs) {
+            if (o instanceof BufferedDataTable) {
+                m_remoteTables.add((BufferedDataTable)o);
+            }
+        }
+        m_remoteInputs.add(new VirtualParallelizedChunkNodeInput(outputs, chunkVariables, m_remoteInputs.size()));
+    }
+
+    /** @return the number of remote iterations of the current execution, see
+     *          {@link LoopStartParallelizeNode#getNrRemoteChunks()} */
+    public int getNrRemoteIterations() {
+        return m_remoteInputs.size();
+    }
+
+    /**
+     * @param chunkIndex index of the remote iteration
+     * @return its input, see {@link LoopStartParallelizeNode#getVirtualNodeInput(int)}
+     */
+    public VirtualParallelizedChunkNodeInput getVirtualNodeInput(final int chunkIndex) {
+        return m_remoteInputs.get(chunkIndex);
+    }
+
+    /**
+     * @param pccm the master of the chunks executing the remote iterations, see
+     *            {@link LoopStartParallelizeNode#setChunkMaster(ParallelizedChunkContentMaster)}
+     */
+    public void setChunkMaster(final ParallelizedChunkContentMaster pccm) {
+        if (m_chunkMaster != pccm) {
+            cleanupChunkMaster();
+        }
+        m_chunkMaster = pccm;
+    }
+
+    /** The tables handed out to remote iterations. They need to be kept alive (as internal tables of the loop start)
+     * until the loop end node has read the results of the chunks.
+     * @return these tables, possibly empty, never null */
+    public BufferedDataTable[] getRemoteTables() {
+        return m_remoteTables.toArray(new BufferedDataTable[m_remoteTables.size()]);
+    }
+
+    /** Cancels and removes all remote iterations, called when the loop start node is reset. */
+    public void reset() {
+        if (m_chunkMaster != null) {
+            m_chunkMaster.cancelChunkExecution();
+        }
+        try {
+            clear();
+        } catch (IllegalStateException ise) {
+            // chunks still busy with being canceled, their metanode stays in the workflow
+            LOGGER.warn("Unable to remove parallel loop iterations: " + ise.getMessage(), ise);
+            m_chunkMaster = null;
+            m_remoteInputs.clear();
+            m_remoteTables.clear();
+        }
+    }
+
+    private void cleanupChunkMaster() {
+        if (m_chunkMaster != null) {
+            m_chunkMaster.cleanupChunks();
+            m_chunkMaster = null;
+        }
+    }
+
+    /** @param settings to save the number of parallel iterations to */
+    public void saveSettingsTo(final NodeSettingsWO settings) {
+        m_nrParallelIterations.saveSettingsTo(settings);
+    }
+
+    /**
+     * @param settings to validate
+     * @throws InvalidSettingsException if the number of parallel iterations is invalid
+     */
+    public void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        // added in 3.6
+        if (settings.containsKey(CFG_PARALLEL_ITERATIONS)) {
+            m_nrParallelIterations.validateSettings(settings);
+        }
+    }
+
+    /**
+     * @param settings to load the number of parallel iterations from; defaults to 1 for old workflows
+     * @throws InvalidSettingsException if the number of parallel iterations is invalid
+     */
+    public void loadSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
+        // added in 3.6
+        if (settings.containsKey(CFG_PARALLEL_ITERATIONS)) {
+            m_nrParallelIterations.loadSettingsFrom(settings);
+        } else {
+            m_nrParallelIterations.setIntValue(1);
+        }
+    }
+
+    /** @return a new settings model for the number of iterations run in parallel */
+    public static SettingsModelIntegerBounded createParallelIterationsModel() {
+        return new SettingsModelIntegerBounded(CFG_PARALLEL_ITERATIONS, 1, 1, MAX_PARALLEL_ITERATIONS);
+    }
+
+    /** @return a new dialog component for the number of iterations run in parallel */
+    public static DialogComponentNumber createParallelIterationsComponent() {
+        final DialogComponentNumber comp =
+            new DialogComponentNumber(createParallelIterationsModel(), "Parallel iterations", 1);
+        comp.setToolTipText("Number of iterations run at the same time in copies of the loop body; "
+            + "only use values > 1 if the iterations do not depend on each other");
+        return comp;
+    }
+}
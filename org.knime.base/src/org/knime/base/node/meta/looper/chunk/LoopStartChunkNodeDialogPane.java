@@ -59,6 +59,7 @@
 import javax.swing.JSpinner;
 import javax.swing.SpinnerNumberModel;
 
+import org.knime.base.node.meta.looper.ParallelLoopIterations;
 import org.knime.base.node.meta.looper.chunk.LoopStartChunkConfiguration.Mode;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.node.InvalidSettingsException;
@@ -66,6 +67,7 @@
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.NotConfigurableException;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
 
 /**
  *
@@ -77,6 +79,8 @@ public class LoopStartChunkNodeDialogPane extends NodeDialogPane {
     private final JRadioButton m_chunkCountButton;
     private final JSpinner m_rowsPerChunkSpinner;
     private final JSpinner m_chunkCountSpinner;
+    private final DialogComponentNumber m_parallelIterations =
+        ParallelLoopIterations.createParallelIterationsComponent();
 
     /**
      *
@@ -113,6 +117,7 @@ private void initLayout() {
         panel.add(getInFlowLayout(m_rowsPerChunkSpinner));
         panel.add(getInFlowLayout(m_chunkCountButton));
         panel.add(getInFlowLayout(m_chunkCountSpinner));
+        panel.add(m_parallelIterations.getComponentPanel());
         addTab("Configuration", panel);
     }
 
@@ -152,6 +157,7 @@ protected void loadSettingsFrom(final NodeSettingsRO settings,
         default:
             m_chunkCountButton.doClick();
         }
+        m_parallelIterations.loadSettingsFrom(settings, specs);
     }
 
     /** {@inheritDoc} */
@@ -167,6 +173,7 @@ protected void saveSettingsTo(final NodeSettingsWO settings)
             config.setMode(Mode.NrOfChunks);
         }
         config.saveSettingsTo(settings);
+        m_parallelIterations.saveSettingsTo(settings);
     }
 
 }
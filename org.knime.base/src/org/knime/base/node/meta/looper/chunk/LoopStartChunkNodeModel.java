@@ -50,10 +50,10 @@
 import java.io.File;
 import java.io.IOException;
 
+import org.knime.base.node.meta.looper.ParallelLoopIterations;
 import org.knime.core.data.DataTableSpec;
-import org.knime.core.data.container.CloseableRowIterator;
-import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.BufferedDataTableHolder;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
@@ -61,7 +61,11 @@
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.port.PortObject;
 import org.knime.core.node.workflow.LoopStartNodeTerminator;
+import org.knime.core.node.workflow.LoopStartParallelizeNode;
+import org.knime.core.node.workflow.virtual.parchunk.ParallelizedChunkContentMaster;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkNodeInput;
 
 /**
  * Loop start node that outputs a set of rows at a time. Used to implement
@@ -71,13 +75,16 @@
  * @author Bernd Wiswedel, KNIME AG, Zurich, Switzerland
  */
 public class LoopStartChunkNodeModel extends NodeModel implements
-        LoopStartNodeTerminator {
+        LoopStartNodeTerminator, LoopStartParallelizeNode, BufferedDataTableHolder {
 
     private LoopStartChunkConfiguration m_config;
 
+    private final ParallelLoopIterations m_parallelIterations = new ParallelLoopIterations();
+
     // loop invariants
     private BufferedDataTable m_table;
-    private CloseableRowIterator m_iterator;
+    /** Index of the first row of the next chunk. */
+    private long m_nextRowIndex;
 
     // loop variants
     private int m_iteration;
@@ -134,21 +141,32 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
         if (m_iteration == 0) {
             assert getLoopEndNode() == null : "1st iteration but end node set";
             m_table = table;
-            m_iterator = table.iterator();
+            m_nextRowIndex = 0;
         } else {
             assert getLoopEndNode() != null : "No end node set";
             assert table == m_table : "Input tables differ between iterations";
         }
 
-        BufferedDataContainer cont = exec.createDataContainer(table.getSpec());
-        for (int i = 0; i < nrRowsPerIteration && m_iterator.hasNext(); i++) {
-            cont.addRowToTable(m_iterator.next());
+        m_parallelIterations.clear();
+        BufferedDataTable chunk = nextChunk(nrRowsPerIteration, totalChunkCount, exec);
+        // hand out chunks to parallel copies of the loop body, the last one is this node's own
+        while (!terminateLoop() && m_parallelIterations.canAddRemoteIteration()) {
+            m_parallelIterations.addRemoteIteration(new PortObject[] {chunk}, getAvailableFlowVariables());
+            chunk = nextChunk(nrRowsPerIteration, totalChunkCount, exec);
         }
-        cont.close();
+        return new BufferedDataTable[] {chunk};
+    }
+
+    private BufferedDataTable nextChunk(final int nrRowsPerIteration, final int totalChunkCount,
+        final ExecutionContext exec) {
+        // the chunk references the rows of the input table instead of copying them
+        final long chunkSize = Math.min(nrRowsPerIteration, m_table.size() - m_nextRowIndex);
+        final BufferedDataTable chunk = exec.createSlicedTable(m_table, m_nextRowIndex, chunkSize);
+        m_nextRowIndex += chunkSize;
         pushFlowVariableInt("currentIteration", m_iteration);
         pushFlowVariableInt("maxIterations", totalChunkCount);
         m_iteration++;
-        return new BufferedDataTable[] {cont.getTable()};
+        return chunk;
     }
 
     /**
@@ -157,20 +175,55 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
     @Override
     protected void reset() {
         m_iteration = 0;
-        if (m_iterator != null) {
-            m_iterator.close();
-        }
-        m_iterator = null;
+        m_nextRowIndex = 0;
         m_table = null;
+        m_parallelIterations.reset();
     }
 
     /** {@inheritDoc} */
     @Override
     public boolean terminateLoop() {
-        boolean continueLoop = m_iterator == null || m_iterator.hasNext();
+        boolean continueLoop = m_table == null || m_nextRowIndex < m_table.size();
         return !continueLoop;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public VirtualParallelizedChunkNodeInput getVirtualNodeInput(final int chunkIndex) {
+        return m_parallelIterations.getVirtualNodeInput(chunkIndex);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getNrRemoteChunks() {
+        return m_parallelIterations.getNrRemoteIterations();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setChunkMaster(final ParallelizedChunkContentMaster pccm) {
+        m_parallelIterations.setChunkMaster(pccm);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isParallelizeLoop() {
+        return m_parallelIterations.getNrRemoteIterations() > 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferedDataTable[] getInternalTables() {
+        // the chunks of the parallel iterations are read by the loop body copies
+        return m_parallelIterations.getRemoteTables();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setInternalTables(final BufferedDataTable[] tables) {
+        // ignore, can't persist loop start anyway
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -179,6 +232,7 @@ protected void saveSettingsTo(final NodeSettingsWO settings) {
         if (m_config != null) {
             m_config.saveSettingsTo(settings);
         }
+        m_parallelIterations.saveSettingsTo(settings);
     }
 
     /**
@@ -188,6 +242,7 @@ protected void saveSettingsTo(final NodeSettingsWO settings) {
     protected void validateSettings(final NodeSettingsRO settings)
             throws InvalidSettingsException {
         new LoopStartChunkConfiguration().loadSettingsInModel(settings);
+        new ParallelLoopIterations().validateSettings(settings);
     }
 
     /**
@@ -199,6 +254,7 @@ protected void loadValidatedSettingsFrom(final NodeSettingsRO settings)
         LoopStartChunkConfiguration config = new LoopStartChunkConfiguration();
         config.loadSettingsInModel(settings);
         m_config = config;
+        m_parallelIterations.loadSettingsFrom(settings);
     }
 
     /**
@@ -56,12 +56,14 @@
 import javax.swing.JPanel;
 import javax.swing.JRadioButton;
 
+import org.knime.base.node.meta.looper.ParallelLoopIterations;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeDialogPane;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.NotConfigurableException;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
 import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
 import org.knime.core.node.util.filter.column.DataColumnSpecFilterConfiguration;
 import org.knime.core.node.util.filter.column.DataColumnSpecFilterPanel;
@@ -83,6 +85,9 @@ public class ColumnListLoopStartNodeDialog extends NodeDialogPane {
     private final JRadioButton m_noColumnsPolicyOneInterationButton =
             new JRadioButton("Run one iteration");
 
+    private final DialogComponentNumber m_parallelIterations =
+            ParallelLoopIterations.createParallelIterationsComponent();
+
     /**
      * Creates a new dialog.
      */
@@ -116,6 +121,11 @@ public ColumnListLoopStartNodeDialog() {
         c.weighty = 0;
         p.add(noColumnsPolicyPanel, c);
 
+        c.gridy = 2;
+        c.fill = GridBagConstraints.NONE;
+        c.anchor = GridBagConstraints.WEST;
+        p.add(m_parallelIterations.getComponentPanel(), c);
+
         addTab("Standard settings", p);
     }
 
@@ -132,6 +142,7 @@ protected void saveSettingsTo(final NodeSettingsWO settings)
         SettingsModelBoolean noColumnsSettings = ColumnListLoopStartNodeModel.createNoColumnsPolicySetings();
         noColumnsSettings.setBooleanValue(m_noColumnsPolicyOneInterationButton.isSelected());
         noColumnsSettings.saveSettingsTo(settings);
+        m_parallelIterations.saveSettingsTo(settings);
     }
 
     /**
@@ -151,5 +162,6 @@ protected void loadSettingsFrom(final NodeSettingsRO settings,
         } else {
             m_noColumnsPolicyFailButton.doClick();
         }
+        m_parallelIterations.loadSettingsFrom(settings, specs);
     }
 }
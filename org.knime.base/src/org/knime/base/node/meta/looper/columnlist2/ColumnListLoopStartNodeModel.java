@@ -51,9 +51,11 @@
 import java.io.IOException;
 import java.util.Arrays;
 
+import org.knime.base.node.meta.looper.ParallelLoopIterations;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.container.ColumnRearranger;
 import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.BufferedDataTableHolder;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
@@ -62,9 +64,13 @@
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
+import org.knime.core.node.port.PortObject;
 import org.knime.core.node.util.filter.NameFilterConfiguration.FilterResult;
 import org.knime.core.node.util.filter.column.DataColumnSpecFilterConfiguration;
 import org.knime.core.node.workflow.LoopStartNodeTerminator;
+import org.knime.core.node.workflow.LoopStartParallelizeNode;
+import org.knime.core.node.workflow.virtual.parchunk.ParallelizedChunkContentMaster;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkNodeInput;
 
 /**
  * This is the model for the column list loop start node that does the real
@@ -72,7 +78,8 @@
  *
  * @author Thorsten Meinl, University of Konstanz
  */
-public class ColumnListLoopStartNodeModel extends NodeModel implements LoopStartNodeTerminator {
+public class ColumnListLoopStartNodeModel extends NodeModel
+    implements LoopStartNodeTerminator, LoopStartParallelizeNode, BufferedDataTableHolder {
 
     /** Config identifier for columns for execution policy if no input
      * columns are selected. */
@@ -94,6 +101,8 @@ public class ColumnListLoopStartNodeModel extends NodeModel implements LoopStart
 
     private String[] m_alwaysIncludedColumns;
 
+    private final ParallelLoopIterations m_parallelIterations = new ParallelLoopIterations();
+
     /**
      * Creates a new model with one data out- and inport, respectively.
      */
@@ -159,7 +168,19 @@ private ColumnRearranger createRearranger(final DataTableSpec inSpec) {
     @Override
     protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
             final ExecutionContext exec) throws Exception {
-        ColumnRearranger crea = createRearranger(inData[0].getDataTableSpec());
+        m_parallelIterations.clear();
+        BufferedDataTable out = nextIteration(inData[0], exec);
+        // hand out columns to parallel copies of the loop body, the last one is this node's own
+        while (!terminateLoop() && m_parallelIterations.canAddRemoteIteration()) {
+            m_parallelIterations.addRemoteIteration(new PortObject[]{out}, getAvailableFlowVariables());
+            out = nextIteration(inData[0], exec);
+        }
+        return new BufferedDataTable[]{out};
+    }
+
+    private BufferedDataTable nextIteration(final BufferedDataTable in, final ExecutionContext exec)
+            throws CanceledExecutionException {
+        ColumnRearranger crea = createRearranger(in.getDataTableSpec());
 
         m_currentColIndex++;
 
@@ -169,8 +190,7 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
         // increment counter for next iteration
         m_iteration++;
 
-        return new BufferedDataTable[]{exec.createColumnRearrangeTable(
-                inData[0], crea, exec)};
+        return exec.createColumnRearrangeTable(in, crea, exec);
     }
 
     /**
@@ -181,6 +201,7 @@ protected void reset() {
         m_currentColIndex = 0;
         m_iteration = 0;
         m_lastIteration = false;
+        m_parallelIterations.reset();
     }
 
     /**
@@ -191,6 +212,43 @@ public boolean terminateLoop() {
         return m_lastIteration;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public VirtualParallelizedChunkNodeInput getVirtualNodeInput(final int chunkIndex) {
+        return m_parallelIterations.getVirtualNodeInput(chunkIndex);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getNrRemoteChunks() {
+        return m_parallelIterations.getNrRemoteIterations();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setChunkMaster(final ParallelizedChunkContentMaster pccm) {
+        m_parallelIterations.setChunkMaster(pccm);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isParallelizeLoop() {
+        return m_parallelIterations.getNrRemoteIterations() > 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferedDataTable[] getInternalTables() {
+        // the tables of the parallel iterations are read by the loop body copies
+        return m_parallelIterations.getRemoteTables();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setInternalTables(final BufferedDataTable[] tables) {
+        // ignore, can't persist loop start anyway
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -199,6 +257,7 @@ protected void validateSettings(final NodeSettingsRO settings)
             throws InvalidSettingsException {
         DataColumnSpecFilterConfiguration config = createDCSFilterConfiguration();
         config.loadConfigurationInModel(settings);
+        new ParallelLoopIterations().validateSettings(settings);
     }
 
     /**
@@ -212,6 +271,7 @@ protected void loadValidatedSettingsFrom(final NodeSettingsRO settings)
         m_filterConfig = conf;
         // added in 3.2
         m_noColumnsSettings.setBooleanValue(settings.getBoolean(CFG_NO_COLUMNS_POLICY, true));
+        m_parallelIterations.loadSettingsFrom(settings);
     }
 
     /**
@@ -221,6 +281,7 @@ protected void loadValidatedSettingsFrom(final NodeSettingsRO settings)
     protected void saveSettingsTo(final NodeSettingsWO settings) {
         m_filterConfig.saveConfiguration(settings);
         m_noColumnsSettings.saveSettingsTo(settings);
+        m_parallelIterations.saveSettingsTo(settings);
     }
 
     /**
@@ -64,4 +64,9 @@ private GroupLoopStartConfigKeys() { /* empty constructor */ }
      * The configuration key for "sorted input" setting.
      */
     static final String SORTED_INPUT_TABLE = "SortedInput";
+
+    /**
+     * The configuration key for the "group without sorting" setting.
+     */
+    static final String HASH_GROUPING = "HashGrouping";
 }
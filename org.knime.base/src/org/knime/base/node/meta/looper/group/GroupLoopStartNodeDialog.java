@@ -47,6 +47,7 @@
  */
 package org.knime.base.node.meta.looper.group;
 
+import org.knime.base.node.meta.looper.ParallelLoopIterations;
 import org.knime.core.node.defaultnodesettings.DefaultNodeSettingsPane;
 import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
 import org.knime.core.node.defaultnodesettings.DialogComponentColumnFilter2;
@@ -83,6 +84,17 @@ static final SettingsModelBoolean getSortedInputTableModel() {
                 GroupLoopStartNodeModel.DEF_SORTED_INPUT_TABLE);
     }
 
+    /**
+     * Creates and returns the settings model, storing the "group without
+     * sorting" flag.
+     *
+     * @return The settings model with the "group without sorting" flag.
+     */
+    static final SettingsModelBoolean getHashGroupingModel() {
+        return new SettingsModelBoolean(
+                GroupLoopStartConfigKeys.HASH_GROUPING, false);
+    }
+
     /**
      * Creates new instance of <code>GroupLoopStartNodeDialog</code>.
      */
@@ -93,9 +105,20 @@ public GroupLoopStartNodeDialog() {
                 getFilterDoubleColModel(), 0));
 
         // sorted input table
+        final SettingsModelBoolean sortedInputTableModel = getSortedInputTableModel();
         addDialogComponent(
-                new DialogComponentBoolean(getSortedInputTableModel(),
+                new DialogComponentBoolean(sortedInputTableModel,
                         "Input is already sorted by group column(s) "
                         + "[execution fails if not correctly sorted]"));
+
+        // grouping without sort, only applies to unsorted input
+        final SettingsModelBoolean hashGroupingModel = getHashGroupingModel();
+        sortedInputTableModel.addChangeListener(
+            e -> hashGroupingModel.setEnabled(!sortedInputTableModel.getBooleanValue()));
+        addDialogComponent(new DialogComponentBoolean(hashGroupingModel,
+                "Group without sorting [groups are processed in no particular order]"));
+
+        // number of groups processed at the same time
+        addDialogComponent(ParallelLoopIterations.createParallelIterationsComponent());
     }
 }
@@ -52,6 +52,7 @@
 import java.util.Arrays;
 import java.util.List;
 
+import org.knime.base.node.meta.looper.ParallelLoopIterations;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
@@ -72,7 +73,11 @@
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
 import org.knime.core.node.defaultnodesettings.SettingsModelColumnFilter2;
+import org.knime.core.node.port.PortObject;
 import org.knime.core.node.workflow.LoopStartNodeTerminator;
+import org.knime.core.node.workflow.LoopStartParallelizeNode;
+import org.knime.core.node.workflow.virtual.parchunk.ParallelizedChunkContentMaster;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkNodeInput;
 import org.knime.core.util.DuplicateChecker;
 import org.knime.core.util.DuplicateKeyException;
 
@@ -81,12 +86,14 @@
  * looping over the groups. Groups are build based on specified columns.
  * Sorting can be switched. In this case an already properly sorted input table
  * is required. If sorting is switched off but input table is not properly
- * sorted an error will occur (Exception thrown).
+ * sorted an error will occur (Exception thrown). Alternatively the groups can be
+ * found without sorting by hash partitioning the input, see
+ * {@link HashPartitionedGroups}.
  *
  * @author Kilian Thiel, KNIME.com, Berlin, Germany
  */
 class GroupLoopStartNodeModel extends NodeModel implements
-        LoopStartNodeTerminator, BufferedDataTableHolder {
+        LoopStartNodeTerminator, LoopStartParallelizeNode, BufferedDataTableHolder {
 
     /**
      * The default "sorted input table" setting.
@@ -104,9 +111,15 @@ class GroupLoopStartNodeModel extends NodeModel implements
     private final SettingsModelBoolean m_sortedInputTableModel =
         GroupLoopStartNodeDialog.getSortedInputTableModel();
 
+    private final SettingsModelBoolean m_hashGroupingModel =
+        GroupLoopStartNodeDialog.getHashGroupingModel();
+
+    private final ParallelLoopIterations m_parallelIterations = new ParallelLoopIterations();
+
     // loop invariants
     private BufferedDataTable m_table;
     private BufferedDataTable m_sortedTable;
+    private HashPartitionedGroups m_hashGroups;
     private CloseableRowIterator m_iterator;
     private DataTableSpec m_spec;
     private int[] m_includedColIndices;
@@ -190,8 +203,11 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
             m_table = table;
             m_spec = m_table.getDataTableSpec();
 
-            // sort if not already sorted
-            if (!m_sortedInputTableModel.getBooleanValue()) {
+            if (!m_sortedInputTableModel.getBooleanValue() && m_hashGroupingModel.getBooleanValue()) {
+                // single pass instead of a sort, groups are found in hash partitions
+                m_hashGroups = new HashPartitionedGroups(table, m_includedColIndices, exec);
+            } else if (!m_sortedInputTableModel.getBooleanValue()) {
+                // sort if not already sorted
                 // asc
                 final String[] includes = m_filterGroupColModel.applyTo(spec).getIncludes();
                 boolean[] sortAsc = new boolean[includes.length];
@@ -205,13 +221,33 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
                 m_sortedTable = table;
             }
 
-            m_iterator = m_sortedTable.iterator();
+            if (m_sortedTable != null) {
+                m_iterator = m_sortedTable.iterator();
+            }
         } else {
             assert getLoopEndNode() != null : "No end node set";
             assert table == m_table : "Input tables differ between iterations";
         }
 
 
+        m_parallelIterations.clear();
+        BufferedDataTable group = nextGroup(table, checkDuplicates, exec);
+        // hand out groups to parallel copies of the loop body, the last one is this node's own
+        while (!terminateLoop() && m_parallelIterations.canAddRemoteIteration()) {
+            m_parallelIterations.addRemoteIteration(new PortObject[] {group}, getAvailableFlowVariables());
+            group = nextGroup(table, checkDuplicates, exec);
+        }
+        return new BufferedDataTable[] {group};
+    }
+
+    /**
+     * Collects the rows of the next group and pushes its flow variables.
+     */
+    private BufferedDataTable nextGroup(final BufferedDataTable table, final boolean checkDuplicates,
+            final ExecutionContext exec) throws DuplicateKeyException, IOException, CanceledExecutionException {
+        if (m_hashGroups != null) {
+            return nextHashGroup(exec);
+        }
         ///////////////////////////
         //
         /// INIT
@@ -324,7 +360,33 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
                 m_lastGroupingState.getGroupIdentifier());
         m_iteration++;
 
-        return new BufferedDataTable[] {cont.getTable()};
+        return cont.getTable();
+    }
+
+    /**
+     * Returns the next group found by hashing and pushes its flow variables.
+     */
+    private BufferedDataTable nextHashGroup(final ExecutionContext exec) throws CanceledExecutionException {
+        final BufferedDataTable group;
+        if (m_hashGroups.hasNext()) {
+            group = m_hashGroups.next(exec);
+            final DataCell[] cells = m_hashGroups.getGroupCells();
+            m_lastGroupingState = new GroupingState(createGroupIdentifier(cells), false, cells);
+        } else {
+            // empty input table, one iteration with an empty table
+            final BufferedDataContainer cont = exec.createDataContainer(m_spec);
+            cont.close();
+            group = cont.getTable();
+            m_lastGroupingState = new GroupingState("", false, null);
+        }
+        m_endLoop = !m_hashGroups.hasNext();
+
+        pushFlowVariableInt("currentIteration", m_iteration);
+        pushGroupColumnValuesAsFlowVariables(m_lastGroupingState);
+        pushFlowVariableString("groupIdentifier",
+                m_lastGroupingState.getGroupIdentifier());
+        m_iteration++;
+        return group;
     }
 
     /**
@@ -332,10 +394,34 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
      */
     @Override
     public boolean terminateLoop() {
-        boolean continueLoop = m_iterator == null || !m_endLoop;
+        boolean continueLoop = (m_iterator == null && m_hashGroups == null) || !m_endLoop;
         return !continueLoop;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public VirtualParallelizedChunkNodeInput getVirtualNodeInput(final int chunkIndex) {
+        return m_parallelIterations.getVirtualNodeInput(chunkIndex);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getNrRemoteChunks() {
+        return m_parallelIterations.getNrRemoteIterations();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setChunkMaster(final ParallelizedChunkContentMaster pccm) {
+        m_parallelIterations.setChunkMaster(pccm);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isParallelizeLoop() {
+        return m_parallelIterations.getNrRemoteIterations() > 0;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -353,6 +439,10 @@ protected void reset() {
         m_iteration = 0;
         m_table = null;
         m_sortedTable = null;
+        if (m_hashGroups != null) {
+            m_hashGroups.close();
+            m_hashGroups = null;
+        }
         m_lastRow = null;
         m_spec = null;
         m_includedColIndices = null;
@@ -362,15 +452,24 @@ protected void reset() {
 
         m_lastGroupingState = null;
         m_currentGroupingState = null;
+
+        m_parallelIterations.reset();
     }
 
     /** {@inheritDoc} */
     @Override
     public BufferedDataTable[] getInternalTables() {
+        // the groups of the parallel iterations are read by the loop body copies
+        final BufferedDataTable[] remoteTables = m_parallelIterations.getRemoteTables();
         if (!m_endLoop) {
-            return new BufferedDataTable[] {m_sortedTable};
+            final BufferedDataTable[] loopTables =
+                m_hashGroups != null ? m_hashGroups.getPartitions() : new BufferedDataTable[] {m_sortedTable};
+            final BufferedDataTable[] tables = new BufferedDataTable[loopTables.length + remoteTables.length];
+            System.arraycopy(loopTables, 0, tables, 0, loopTables.length);
+            System.arraycopy(remoteTables, 0, tables, loopTables.length, remoteTables.length);
+            return tables;
         }
-        return null;
+        return remoteTables.length > 0 ? remoteTables : null;
     }
 
     /** {@inheritDoc} */
@@ -467,16 +566,14 @@ private GroupingState getGroupingState(final DataRow row) {
             throw new IllegalStateException("Data table spec may not be null!");
         }
 
-        // check for end of group and create group identifier
+        // check for end of group and collect group cells
         boolean isGroupEnd = false;
-        String groupIdentifier = "";
         DataCell[] groupCells = new DataCell[m_includedColIndices.length];
 
         int currIncludedColIndex = 0;
         int nextIncludedColIndex = m_includedColIndices[currIncludedColIndex];
 
-        // walk through all columns, compare values and update grouping
-        // identifier
+        // walk through all columns, compare values and collect group cells
         for (int c = 0; c < row.getNumCells(); c++) {
 
             // if column is included for grouping
@@ -494,9 +591,6 @@ private GroupingState getGroupingState(final DataRow row) {
                     }
                 }
 
-                groupIdentifier += GROUP_SEPARATOR + row.getCell(c).toString()
-                                 + GROUP_SEPARATOR;
-
                 // get current group cell
                 groupCells[currIncludedColIndex] = row.getCell(c);
 
@@ -509,7 +603,21 @@ private GroupingState getGroupingState(final DataRow row) {
             }
         }
 
-        return new GroupingState(groupIdentifier, isGroupEnd, groupCells);
+        return new GroupingState(createGroupIdentifier(groupCells), isGroupEnd, groupCells);
+    }
+
+    /**
+     * Creates the identifier of a group, the concatenation of the (separated) group cells.
+     *
+     * @param groupCells The cells of the group columns.
+     * @return The group identifier.
+     */
+    private static String createGroupIdentifier(final DataCell[] groupCells) {
+        StringBuilder groupIdentifier = new StringBuilder();
+        for (DataCell c : groupCells) {
+            groupIdentifier.append(GROUP_SEPARATOR).append(c.toString()).append(GROUP_SEPARATOR);
+        }
+        return groupIdentifier.toString();
     }
 
     /**
@@ -542,6 +650,8 @@ private int[] getIncludedColIndices(final DataTableSpec dataSpec) {
     protected void saveSettingsTo(final NodeSettingsWO settings) {
         m_filterGroupColModel.saveSettingsTo(settings);
         m_sortedInputTableModel.saveSettingsTo(settings);
+        m_hashGroupingModel.saveSettingsTo(settings);
+        m_parallelIterations.saveSettingsTo(settings);
     }
 
     /**
@@ -552,6 +662,11 @@ protected void validateSettings(final NodeSettingsRO settings)
             throws InvalidSettingsException {
         m_filterGroupColModel.validateSettings(settings);
         m_sortedInputTableModel.validateSettings(settings);
+        // added in 3.6
+        if (settings.containsKey(GroupLoopStartConfigKeys.HASH_GROUPING)) {
+            m_hashGroupingModel.validateSettings(settings);
+        }
+        new ParallelLoopIterations().validateSettings(settings);
     }
 
     /**
@@ -562,6 +677,13 @@ protected void loadValidatedSettingsFrom(final NodeSettingsRO settings)
             throws InvalidSettingsException {
         m_filterGroupColModel.loadSettingsFrom(settings);
         m_sortedInputTableModel.loadSettingsFrom(settings);
+        // added in 3.6
+        if (settings.containsKey(GroupLoopStartConfigKeys.HASH_GROUPING)) {
+            m_hashGroupingModel.loadSettingsFrom(settings);
+        } else {
+            m_hashGroupingModel.setBooleanValue(false);
+        }
+        m_parallelIterations.loadSettingsFrom(settings);
     }
 
 
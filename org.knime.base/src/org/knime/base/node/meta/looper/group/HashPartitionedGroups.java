@@ -0,0 +1,387 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.meta.looper.group;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataValueComparator;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.sort.BufferedDataTableSorter;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+
+/**
+ * The groups of a table found without sorting it. The rows are distributed in a single pass onto partitions by the
+ * hash of their group cells, so that all rows of a group end up in the same partition. The partitions are then
+ * processed one after the other. Groups are returned in the order of their partitions and, within a partition, in
+ * the order of their first row, i.e. not sorted.
+ *
+ * <p>Memory and open files are bounded:
+ * <ul>
+ * <li>A partition is grouped in memory only if it has at most {@link #MAX_CELLS_IN_MEMORY} cells. Tables that small
+ * are not copied at all, they form a single partition.</li>
+ * <li>At most {@link #MAX_PARTITIONS_PER_PASS} partitions are written at the same time. A partition that is still
+ * too large when it is reached is split again (using other bits of the hash) into at most as many partitions.</li>
+ * <li>A partition that can't be split any further, for instance because most of its rows belong to one group, is
+ * sorted instead (the sorter spills to disk) and its groups are read sequentially.</li>
+ * </ul>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class HashPartitionedGroups {
+
+    /** Maximum number of cells of a partition that is grouped in memory. */
+    static final int MAX_CELLS_IN_MEMORY = 1 << 21;
+
+    /** Maximum number of partitions written in one pass (each is written by its own container and file). */
+    static final int MAX_PARTITIONS_PER_PASS = 128;
+
+    /** Number of times a partition is split before it's sorted instead (first pass plus one more). */
+    private static final int MAX_SPLIT_LEVEL = 2;
+
+    // overrides the maximum number of cells in memory and of partitions per pass if positive
+    private static volatile int maxCellsOverride = 0;
+
+    private static volatile int maxPartitionsOverride = 0;
+
+    private final DataTableSpec m_spec;
+
+    private final int[] m_groupColIndices;
+
+    private final DataValueComparator[] m_comparators;
+
+    private final long m_maxRowsInMemory;
+
+    private final int m_maxPartitionsPerPass;
+
+    /** Partitions not read yet, in the order in which they are read. */
+    private final Deque<Partition> m_pending = new ArrayDeque<>();
+
+    /** The partition currently read, kept alive while its groups are returned. */
+    private BufferedDataTable m_current;
+
+    // groups of a partition grouped in memory
+    private Iterator<Map.Entry<GroupCells, List<DataRow>>> m_groupIterator;
+
+    // rows of a sorted partition; the first row of the next group
+    private CloseableRowIterator m_sortedIterator;
+    private DataRow m_nextSortedRow;
+
+    private DataCell[] m_groupCells;
+
+    /**
+     * Distributes the rows of the table onto the partitions (unless it is small enough to be grouped in memory).
+     *
+     * @param table the table to group
+     * @param groupColIndices the indices of the columns to group on
+     * @param exec to create the partitions and for progress
+     * @throws CanceledExecutionException if canceled
+     */
+    HashPartitionedGroups(final BufferedDataTable table, final int[] groupColIndices, final ExecutionContext exec)
+        throws CanceledExecutionException {
+        m_spec = table.getDataTableSpec();
+        m_groupColIndices = groupColIndices;
+        m_comparators = new DataValueComparator[groupColIndices.length];
+        for (int i = 0; i < groupColIndices.length; i++) {
+            m_comparators[i] = m_spec.getColumnSpec(groupColIndices[i]).getType().getComparator();
+        }
+        final int maxCells = maxCellsOverride > 0 ? maxCellsOverride : MAX_CELLS_IN_MEMORY;
+        m_maxRowsInMemory = Math.max(1, maxCells / Math.max(1, m_spec.getNumColumns()));
+        m_maxPartitionsPerPass = maxPartitionsOverride > 0 ? maxPartitionsOverride : MAX_PARTITIONS_PER_PASS;
+        if (table.size() <= m_maxRowsInMemory) {
+            m_pending.add(new Partition(table, MAX_SPLIT_LEVEL));
+        } else {
+            m_pending.addAll(split(table, 0, exec));
+        }
+    }
+
+    /**
+     * Sets the maximum number of cells of a partition grouped in memory and the maximum number of partitions per
+     * pass of the groupings created afterwards, to split and sort small tables. Used for testing only.
+     *
+     * @param maxCells the maximum number of cells in memory, 0 for the default
+     * @param maxPartitions the maximum number of partitions per pass, 0 for the default
+     */
+    static void setLimits(final int maxCells, final int maxPartitions) {
+        maxCellsOverride = maxCells;
+        maxPartitionsOverride = maxPartitions;
+    }
+
+    /** @return the partitions, which need to be kept while groups are read */
+    BufferedDataTable[] getPartitions() {
+        final List<BufferedDataTable> tables = new ArrayList<>(m_pending.size() + 1);
+        if (m_current != null) {
+            tables.add(m_current);
+        }
+        for (Partition p : m_pending) {
+            tables.add(p.m_table);
+        }
+        return tables.toArray(new BufferedDataTable[tables.size()]);
+    }
+
+    /** @return whether there is another group */
+    boolean hasNext() {
+        if ((m_groupIterator != null && m_groupIterator.hasNext()) || m_nextSortedRow != null) {
+            return true;
+        }
+        for (Partition p : m_pending) {
+            if (p.m_table.size() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the rows of the next group into a new table.
+     *
+     * @param exec to create the table
+     * @return the table of the group
+     * @throws CanceledExecutionException if canceled
+     */
+    BufferedDataTable next(final ExecutionContext exec) throws CanceledExecutionException {
+        while ((m_groupIterator == null || !m_groupIterator.hasNext()) && m_nextSortedRow == null) {
+            readPartition(m_pending.removeFirst(), exec);
+        }
+        final BufferedDataContainer cont = exec.createDataContainer(m_spec);
+        if (m_nextSortedRow != null) {
+            final DataRow first = m_nextSortedRow;
+            m_groupCells = new GroupCells(first, m_groupColIndices).m_cells;
+            cont.addRowToTable(first);
+            m_nextSortedRow = null;
+            while (m_sortedIterator.hasNext()) {
+                exec.checkCanceled();
+                final DataRow row = m_sortedIterator.next();
+                if (!isSameGroup(first, row)) {
+                    m_nextSortedRow = row;
+                    break;
+                }
+                cont.addRowToTable(row);
+            }
+            if (m_nextSortedRow == null) {
+                closeSortedIterator();
+            }
+        } else {
+            final Map.Entry<GroupCells, List<DataRow>> group = m_groupIterator.next();
+            // the rows of a group are only needed once
+            m_groupIterator.remove();
+            for (DataRow row : group.getValue()) {
+                cont.addRowToTable(row);
+            }
+            m_groupCells = group.getKey().m_cells;
+        }
+        cont.close();
+        return cont.getTable();
+    }
+
+    /** @return the cells of the group columns (in their order) of the group last returned by {@link #next} */
+    DataCell[] getGroupCells() {
+        return m_groupCells;
+    }
+
+    /** Releases the iterator of a sorted partition, called when the loop is reset. */
+    void close() {
+        closeSortedIterator();
+        m_groupIterator = null;
+    }
+
+    private void closeSortedIterator() {
+        if (m_sortedIterator != null) {
+            m_sortedIterator.close();
+            m_sortedIterator = null;
+        }
+        m_nextSortedRow = null;
+    }
+
+    /*
+     * Prepares the groups of the partition: grouped in memory if small enough, else split again or sorted.
+     */
+    private void readPartition(final Partition partition, final ExecutionContext exec)
+        throws CanceledExecutionException {
+        final BufferedDataTable table = partition.m_table;
+        m_current = table;
+        m_groupIterator = null;
+        if (table.size() == 0) {
+            return;
+        }
+        if (table.size() <= m_maxRowsInMemory) {
+            final Map<GroupCells, List<DataRow>> groups = new LinkedHashMap<>();
+            for (DataRow row : table) {
+                exec.checkCanceled();
+                groups.computeIfAbsent(new GroupCells(row, m_groupColIndices), k -> new ArrayList<>()).add(row);
+            }
+            m_groupIterator = groups.entrySet().iterator();
+            return;
+        }
+        if (partition.m_level < MAX_SPLIT_LEVEL) {
+            final List<Partition> parts = split(table, partition.m_level, exec);
+            // a split that doesn't reduce the partition (one dominating group) is not repeated
+            if (parts.stream().noneMatch(p -> p.m_table.size() == table.size())) {
+                for (int i = parts.size() - 1; i >= 0; i--) {
+                    m_pending.addFirst(parts.get(i));
+                }
+                m_current = null;
+                return;
+            }
+        }
+        // too large to be grouped in memory: sort it (the sorter spills) and read the groups one after the other
+        final List<String> groupColNames = new ArrayList<>(m_groupColIndices.length);
+        for (int i : m_groupColIndices) {
+            groupColNames.add(m_spec.getColumnSpec(i).getName());
+        }
+        final boolean[] sortAsc = new boolean[m_groupColIndices.length];
+        Arrays.fill(sortAsc, true);
+        m_current = new BufferedDataTableSorter(table, groupColNames, sortAsc, false).sort(exec);
+        m_sortedIterator = m_current.iterator();
+        m_nextSortedRow = m_sortedIterator.hasNext() ? m_sortedIterator.next() : null;
+    }
+
+    /*
+     * Distributes the rows of the table onto at most m_maxPartitionsPerPass partitions of the next level.
+     */
+    private List<Partition> split(final BufferedDataTable table, final int level, final ExecutionContext exec)
+        throws CanceledExecutionException {
+        final long rowCount = table.size();
+        final int nrPartitions = (int)Math.min(m_maxPartitionsPerPass,
+            Math.max(2, (rowCount + m_maxRowsInMemory - 1) / m_maxRowsInMemory));
+        final BufferedDataContainer[] containers = new BufferedDataContainer[nrPartitions];
+        for (int i = 0; i < nrPartitions; i++) {
+            // rows go to disk right away, the partitions are read back one at a time
+            containers[i] = exec.createDataContainer(m_spec, false, 0);
+        }
+        long rowIndex = 0;
+        for (DataRow row : table) {
+            exec.checkCanceled();
+            exec.setProgress(rowIndex / (double)rowCount, "Partitioning row " + rowIndex + " of " + rowCount);
+            final int hash = mix(new GroupCells(row, m_groupColIndices).hashCode(), level);
+            containers[(hash >>> 1) % nrPartitions].addRowToTable(row);
+            rowIndex++;
+        }
+        final List<Partition> partitions = new ArrayList<>(nrPartitions);
+        for (int i = 0; i < nrPartitions; i++) {
+            containers[i].close();
+            partitions.add(new Partition(containers[i].getTable(), level + 1));
+        }
+        return partitions;
+    }
+
+    /*
+     * Spreads the bits of the hash, differently for each level so that a split partition is split again by
+     * independent bits.
+     */
+    private static int mix(final int hash, final int level) {
+        int h = hash ^ (level * 0x9E3779B9);
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private boolean isSameGroup(final DataRow first, final DataRow row) {
+        for (int i = 0; i < m_groupColIndices.length; i++) {
+            final int c = m_groupColIndices[i];
+            if (m_comparators[i].compare(first.getCell(c), row.getCell(c)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** A partition and the number of times it has been split off. */
+    private static final class Partition {
+
+        private final BufferedDataTable m_table;
+
+        private final int m_level;
+
+        Partition(final BufferedDataTable table, final int level) {
+            m_table = table;
+            m_level = level;
+        }
+    }
+
+    /** The cells of the group columns of a row, used as key. */
+    private static final class GroupCells {
+
+        private final DataCell[] m_cells;
+
+        private final int m_hash;
+
+        GroupCells(final DataRow row, final int[] groupColIndices) {
+            m_cells = new DataCell[groupColIndices.length];
+            for (int i = 0; i < groupColIndices.length; i++) {
+                m_cells[i] = row.getCell(groupColIndices[i]);
+            }
+            m_hash = Arrays.hashCode(m_cells);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode() {
+            return m_hash;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof GroupCells && Arrays.equals(m_cells, ((GroupCells)obj).m_cells);
+        }
+    }
+}
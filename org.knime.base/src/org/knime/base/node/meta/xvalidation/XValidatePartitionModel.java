@@ -58,7 +58,7 @@
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
-import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.data.container.RowSelection;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
@@ -181,37 +181,31 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
             }
         }
 
-        BufferedDataContainer test =
-                exec.createDataContainer(inData[0].getDataTableSpec());
-
-        BufferedDataContainer train =
-                exec.createDataContainer(inData[0].getDataTableSpec());
-
-        int count = 0;
-        final double max = inData[0].getRowCount();
-        for (DataRow row : inData[0]) {
-            exec.checkCanceled();
-            exec.setProgress(count / max);
-
-            if (m_settings.leaveOneOut() && (count == m_currIteration)) {
-                test.addRowToTable(row);
-            } else if (!m_settings.leaveOneOut()
-                    && (m_partNumbers[count] == m_currIteration)) {
-                test.addRowToTable(row);
-            } else {
-                train.addRowToTable(row);
+        // both partitions reference the rows of the input table
+        final RowSelection testRows = new RowSelection(inData[0].size());
+        if (m_settings.leaveOneOut()) {
+            if (m_currIteration < testRows.getRowCount()) {
+                testRows.select(m_currIteration);
+            }
+        } else {
+            for (int i = 0; i < m_partNumbers.length; i++) {
+                if (m_partNumbers[i] == m_currIteration) {
+                    testRows.select(i);
+                }
             }
-            count++;
         }
-        test.close();
-        train.close();
+        exec.checkCanceled();
+        final BufferedDataTable test =
+                exec.createRowSelectionTable(inData[0], testRows);
+        final BufferedDataTable train =
+                exec.createRowSelectionTable(inData[0], testRows.invert());
 
         // we need to put the counts on the stack for the loop's tail to see:
         pushFlowVariableInt("currentIteration", m_currIteration);
         pushFlowVariableInt("maxIterations", m_nrIterations);
         m_currIteration++;
 
-        return new BufferedDataTable[]{train.getTable(), test.getTable()};
+        return new BufferedDataTable[]{train, test};
     }
 
     /**
@@ -52,7 +52,6 @@
 import org.knime.core.data.DoubleValue;
 import org.knime.core.data.IntValue;
 import org.knime.core.node.defaultnodesettings.DefaultNodeSettingsPane;
-import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
 import org.knime.core.node.defaultnodesettings.DialogComponentColumnFilter;
 import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
 import org.knime.core.node.defaultnodesettings.DialogComponentStringSelection;
@@ -119,9 +118,6 @@ class HierarchicalClusterNodeDialog extends DefaultNodeSettingsPane {
                 createSettingsLinkageType(),
                         "Linkage type:", linkageTypes)); 
 
-        addDialogComponent(new DialogComponentBoolean(
-                createSettingsCacheKeys(), "Cache distances"));
-        
         Class[] allowedTypes = {DoubleValue.class, IntValue.class};
         addDialogComponent(new DialogComponentColumnFilter(
                 createSettingsColumns(), 0, allowedTypes));
@@ -50,7 +50,9 @@
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.knime.base.node.mine.cluster.hierarchical.distfunctions.DistanceFunction;
 import org.knime.base.node.mine.cluster.hierarchical.distfunctions.EuclideanDist;
@@ -58,7 +60,6 @@
 import org.knime.base.node.util.DataArray;
 import org.knime.base.node.util.DefaultDataArray;
 import org.knime.base.node.viz.plotter.DataProvider;
-import org.knime.base.util.HalfFloatMatrix;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataColumnSpecCreator;
@@ -152,6 +153,10 @@ public enum Linkage {
     private final SettingsModelIntegerBounded m_numClustersForOutput =
         HierarchicalClusterNodeDialog.createSettingsNumberOfClusters();
 
+    /**
+     * No longer used, average and complete linkage always keep all distances
+     * in memory, single linkage never does. Kept for old workflows.
+     */
     private final SettingsModelBoolean m_cacheDistances =
         HierarchicalClusterNodeDialog.createSettingsCacheKeys();
 
@@ -215,8 +220,18 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] data,
         }
 
         BufferedDataTable inputData = data[0];
-        if (inputData.size() > 65500) {
-            throw new RuntimeException("At most 65,500 patterns can be clustered");
+        final Linkage linkage =
+            Linkage.valueOf(m_linkageType.getStringValue());
+        final long requiredMemory =
+            HierarchicalClusterer.estimateMemory(inputData.size(), linkage);
+        if (inputData.size() > Integer.MAX_VALUE - 1
+                || requiredMemory > Runtime.getRuntime().maxMemory()) {
+            throw new RuntimeException("Clustering " + inputData.size()
+                    + " patterns with " + linkage.name().toLowerCase()
+                    + " linkage needs about " + (requiredMemory >> 20)
+                    + " MB of memory, which exceeds the available "
+                    + (Runtime.getRuntime().maxMemory() >> 20) + " MB."
+                    + " Single linkage needs much less memory.");
         }
 
 
@@ -231,80 +246,48 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] data,
 
         // generate initial clustering
         // which means that every data point is one cluster
-        List<ClusterNode> clusters = initClusters(inputData, exec);
-        // store the distance per each fusion step
-        DataContainer fusionCont = exec.createDataContainer(createFusionSpec());
-        int iterationStep = 0;
-
-        final HalfFloatMatrix cache;
-        if (m_cacheDistances.getBooleanValue()) {
-            cache = new HalfFloatMatrix((int) inputData.size(), false);
-            cache.fill(Float.NaN);
-        } else {
-            cache = null;
+        List<ClusterNode> leafs = initClusters(inputData, exec);
+        final int numberDataRows = leafs.size();
+        DataRow[] rows = new DataRow[numberDataRows];
+        for (int i = 0; i < numberDataRows; i++) {
+            rows[i] = leafs.get(i).getLeafDataPoint();
         }
 
-        double max = inputData.size();
-        // the number of clusters at the beginning is equal to the number
-        // of data rows (each row is a cluster)
-        int numberDataRows = clusters.size();
+        // determine the merges, the cluster of merge k is identified by
+        // numberDataRows + k
+        HierarchicalClusterer clusterer = new HierarchicalClusterer(rows,
+                selectedColIndices, m_distFunction, linkage);
+        clusterer.run(exec.createSubProgress(0.9));
+        final int numberMerges = clusterer.getNrMerges();
+        ClusterNode[] nodes = new ClusterNode[numberDataRows + numberMerges];
+        for (int i = 0; i < numberDataRows; i++) {
+            nodes[i] = leafs.get(i);
+        }
 
-        while (clusters.size() > 1) {
+        // the current clusters in the order they were created
+        Set<ClusterNode> clusters = new LinkedHashSet<ClusterNode>(leafs);
+        // store the distance per each fusion step
+        DataContainer fusionCont = exec.createDataContainer(createFusionSpec());
+        ExecutionMonitor subexec = exec.createSubProgress(0.1);
+        for (int iterationStep = 0; iterationStep < numberMerges;
+                iterationStep++) {
             // checks if number clusters to generate output table is reached
             if (m_numClustersForOutput.getIntValue() == clusters.size()) {
-                outputData = createResultTable(inputData, clusters, exec);
-            }
-            exec.setProgress((numberDataRows - clusters.size())
-                    / (double)numberDataRows, clusters.size()
-                    + " clusters left to merge.");
-            iterationStep++;
-            exec.setProgress(iterationStep / max, "Iteration " + iterationStep
-                    + ", " + clusters.size() + " clusters remaining");
-
-            // calculate distance between all clusters
-            float currentSmallestDist = Float.MAX_VALUE;
-            ClusterNode currentClosestCluster1 = null;
-            ClusterNode currentClosestCluster2 = null;
-
-            // subprogress for loop
-            double availableProgress = (1.0 / numberDataRows);
-            ExecutionContext subexec =
-                    exec.createSubExecutionContext(availableProgress);
-            for (int i = 0; i < clusters.size(); i++) {
-                exec.checkCanceled();
-                ClusterNode node1 = clusters.get(i);
-                for (int j = i + 1; j < clusters.size(); j++) {
-                    final float dist;
-                    ClusterNode node2 = clusters.get(j);
-
-                    // call the chosen function to calculate the distance
-                    // between two clusters. At the moment is single linkage
-                    // and average linkage supported.
-                    if (m_linkageType.getStringValue().equals(Linkage.SINGLE.name())) {
-                        dist = calculateSingleLinkageDist(node1, node2, cache,
-                                selectedColIndices);
-                    } else if (m_linkageType.getStringValue().equals(Linkage.AVERAGE.name())) {
-                        dist = calculateAverageLinkageDist(node1, node2, cache,
-                                selectedColIndices);
-                    } else {
-                        dist = calculateCompleteLinkageDist(node1, node2, cache,
-                                selectedColIndices);
-                    }
-
-                    if (dist < currentSmallestDist) {
-                        currentClosestCluster1 = node1;
-                        currentClosestCluster2 = node2;
-                        currentSmallestDist = dist;
-                    }
-                }
+                outputData = createResultTable(inputData,
+                        new ArrayList<ClusterNode>(clusters), exec);
             }
-            subexec.setProgress(1.0);
+            exec.checkCanceled();
+            subexec.setProgress(iterationStep / (double)numberMerges,
+                    clusters.size() + " clusters left to merge.");
+
             // make one cluster of the two closest
-            ClusterNode newNode =
-                    new ClusterNode(currentClosestCluster1,
-                            currentClosestCluster2, currentSmallestDist);
-            clusters.remove(currentClosestCluster1);
-            clusters.remove(currentClosestCluster2);
+            ClusterNode newNode = new ClusterNode(
+                    nodes[clusterer.getFirst(iterationStep)],
+                    nodes[clusterer.getSecond(iterationStep)],
+                    clusterer.getDistance(iterationStep));
+            nodes[numberDataRows + iterationStep] = newNode;
+            clusters.remove(newNode.getFirstSubnode());
+            clusters.remove(newNode.getSecondSubnode());
 
             clusters.add(newNode);
 
@@ -316,15 +299,9 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] data,
                     new IntCell(clusters.size()),
                     // y-axis scatter plotter
                     new DoubleCell(newNode.getDist())));
-
-            // // print number clusters and their data points
-            // LOGGER.debug("Iteration " + iterationStep + ":");
-            // LOGGER.debug(" Number Clusters: " + clusters.size());
-            // printClustersDataRows(clusters);
-
         }
         if (clusters.size() > 0) {
-            m_rootNode = clusters.get(0);
+            m_rootNode = clusters.iterator().next();
 
         }
 
@@ -332,11 +309,12 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] data,
 
         // if there was no input data create an empty output data
         if (outputData == null) {
-            outputData = createResultTable(inputData, clusters, exec);
+            outputData = createResultTable(inputData,
+                    new ArrayList<ClusterNode>(clusters), exec);
         }
         m_dataArray = new DefaultDataArray(inputData, 1, (int)inputData.size());
         m_fusionTable = new DefaultDataArray(
-                fusionCont.getTable(), 1, iterationStep);
+                fusionCont.getTable(), 1, numberMerges);
 
         return new BufferedDataTable[]{exec.createBufferedDataTable(outputData,
                 exec)};
@@ -362,119 +340,6 @@ public final void reset() {
         m_fusionTable = null;
     }
 
-    /*
-     * Calculates the distance via the single linkage paradigm. That means two
-     * clusters have the distance of its closest data rows
-     *
-     */
-    private float calculateSingleLinkageDist(final ClusterNode node1,
-            final ClusterNode node2, final HalfFloatMatrix cache,
-            final int[] selectedColIndices) {
-        float minDist = Float.MAX_VALUE;
-
-        for (ClusterNode node1Leaf : node1.leafs()) {
-            final DataRow row1 = node1Leaf.getLeafDataPoint();
-            final int row1Index = node1Leaf.getRowIndex();
-            for (ClusterNode node2Leaf : node2.leafs()) {
-                final DataRow row2 = node2Leaf.getLeafDataPoint();
-                final int row2Index = node2Leaf.getRowIndex();
-
-                float f = Float.NaN;
-                if (cache != null) {
-                    f = cache.get(row1Index, row2Index);
-                    if (Float.isNaN(f)) {
-                        f =
-                                (float)m_distFunction.calcDistance(row1, row2,
-                                        selectedColIndices);
-                        cache.set(row1Index, row2Index, f);
-                    }
-                } else {
-                    f =
-                            (float)m_distFunction.calcDistance(row1, row2,
-                                    selectedColIndices);
-                }
-                minDist = Math.min(minDist, f);
-            }
-        }
-
-        return minDist;
-    }
-
-    /*
-     * Calculates the distance via the complete linkage paradigm. That means two
-     * clusters have the distance of its farest data rows
-     *
-     */
-    private float calculateCompleteLinkageDist(final ClusterNode node1,
-            final ClusterNode node2, final HalfFloatMatrix cache,
-            final int[] selectedColIndices) {
-        float maxDist = 0;
-
-        for (ClusterNode node1Leaf : node1.leafs()) {
-            final DataRow row1 = node1Leaf.getLeafDataPoint();
-            final int row1Index = node1Leaf.getRowIndex();
-            for (ClusterNode node2Leaf : node2.leafs()) {
-                final DataRow row2 = node2Leaf.getLeafDataPoint();
-                final int row2Index = node2Leaf.getRowIndex();
-
-                float f = Float.NaN;
-                if (cache != null) {
-                    f = cache.get(row1Index, row2Index);
-                    if (Float.isNaN(f)) {
-                        f =
-                                (float)m_distFunction.calcDistance(row1, row2,
-                                        selectedColIndices);
-                        cache.set(row1Index, row2Index, f);
-                    }
-                } else {
-                    f =
-                            (float)m_distFunction.calcDistance(row1, row2,
-                                    selectedColIndices);
-                }
-                maxDist = Math.max(maxDist, f);
-            }
-        }
-
-        return maxDist;
-    }
-
-    /*
-     * Calculates the distance via the average linkage paradigm. That means two
-     * clusters have the distance of the average distance of all their member
-     * data rows.
-     */
-    private float calculateAverageLinkageDist(final ClusterNode node1,
-            final ClusterNode node2, final HalfFloatMatrix cache,
-            final int[] selectedColIndices) {
-        float sumDist = 0;
-
-        for (ClusterNode node1Leaf : node1.leafs()) {
-            final DataRow row1 = node1Leaf.getLeafDataPoint();
-            final int row1Index = node1Leaf.getRowIndex();
-            for (ClusterNode node2Leaf : node2.leafs()) {
-                final DataRow row2 = node2Leaf.getLeafDataPoint();
-                final int row2Index = node2Leaf.getRowIndex();
-
-                float f = Float.NaN;
-                if (cache != null) {
-                    f = cache.get(row1Index, row2Index);
-                    if (Float.isNaN(f)) {
-                        f = (float)m_distFunction.calcDistance(row1, row2,
-                                        selectedColIndices);
-                        cache.set(row1Index, row2Index, f);
-                    }
-                } else {
-                    f = (float)m_distFunction.calcDistance(row1, row2,
-                                    selectedColIndices);
-                }
-                sumDist += f;
-            }
-        }
-
-        // divide by the number pairewise distances
-        return sumDist / (node1.getLeafCount() * node2.getLeafCount());
-    }
-
     /**
      * Creates number of data rows clusters as initial clustering.
      *
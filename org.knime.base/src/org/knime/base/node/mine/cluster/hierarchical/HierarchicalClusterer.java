@@ -0,0 +1,514 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.mine.cluster.hierarchical;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.knime.base.node.mine.cluster.hierarchical.HierarchicalClusterNodeModel.Linkage;
+import org.knime.base.node.mine.cluster.hierarchical.distfunctions.DistanceFunction;
+import org.knime.core.data.DataRow;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Computes the merge sequence of an agglomerative hierarchical clustering in
+ * quadratic time. Single linkage is derived from a minimum spanning tree
+ * (Prim's algorithm) and needs only linear memory; average and complete
+ * linkage use the nearest-neighbor-chain algorithm on a triangular matrix of
+ * float distances, updated with the Lance-Williams formula. Point distances
+ * are computed in parallel.
+ *
+ * <p>
+ * After {@link #run(ExecutionMonitor)} the merges are available in
+ * ascending order of their distance. Leaf clusters are identified by their row
+ * index, the cluster created by merge <code>k</code> by
+ * <code>n + k</code>, with <code>n</code> being the number of rows.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class HierarchicalClusterer {
+
+    /*
+     * the minimal number of distances computed by one parallel task.
+     */
+    private static final int MIN_CHUNK_SIZE = 1024;
+
+    private final DataRow[] m_rows;
+
+    private final int[] m_includedCols;
+
+    private final DistanceFunction m_distFunction;
+
+    private final Linkage m_linkage;
+
+    private ThreadPool m_pool;
+
+    private int[] m_first;
+
+    private int[] m_second;
+
+    private float[] m_dist;
+
+    /**
+     * Creates a new clusterer.
+     *
+     * @param rows the rows to cluster
+     * @param includedCols the columns used to compute the distances
+     * @param distFunction the distance between two rows
+     * @param linkage the distance between two clusters
+     */
+    HierarchicalClusterer(final DataRow[] rows, final int[] includedCols,
+            final DistanceFunction distFunction, final Linkage linkage) {
+        m_rows = rows;
+        m_includedCols = includedCols;
+        m_distFunction = distFunction;
+        m_linkage = linkage;
+    }
+
+    /**
+     * Returns the number of bytes needed to cluster the given number of rows
+     * with the given linkage, not counting the rows themselves.
+     *
+     * @param nrRows the number of rows
+     * @param linkage the linkage type
+     * @return the estimated number of bytes
+     */
+    static long estimateMemory(final long nrRows, final Linkage linkage) {
+        if (linkage == Linkage.SINGLE) {
+            return 48 * nrRows;
+        }
+        // one float for each pair plus the array headers
+        return 4 * nrRows * (nrRows - 1) / 2 + 16 * nrRows;
+    }
+
+    /**
+     * Clusters the rows.
+     *
+     * @param exec to report progress and check for cancellation
+     * @throws CanceledExecutionException if the execution was canceled
+     */
+    void run(final ExecutionMonitor exec) throws CanceledExecutionException {
+        final int n = m_rows.length;
+        final int nrMerges = Math.max(0, n - 1);
+        m_first = new int[nrMerges];
+        m_second = new int[nrMerges];
+        m_dist = new float[nrMerges];
+        if (nrMerges == 0) {
+            return;
+        }
+        m_pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(Math.min(
+                Runtime.getRuntime().availableProcessors(),
+                KNIMEConstants.GLOBAL_THREAD_POOL.getMaxThreads()));
+        try {
+            if (m_linkage == Linkage.SINGLE) {
+                minimumSpanningTree(exec);
+            } else {
+                final float[][] dist = computeDistances(
+                        exec.createSubProgress(0.5));
+                nearestNeighborChain(dist, exec.createSubProgress(0.5));
+            }
+        } finally {
+            m_pool = null;
+        }
+        sortAndLabel();
+    }
+
+    /**
+     * @return the number of merges, one less than the number of rows
+     */
+    int getNrMerges() {
+        return m_dist.length;
+    }
+
+    /**
+     * @param merge the index of the merge
+     * @return the identifier of the cluster that was created first
+     */
+    int getFirst(final int merge) {
+        return m_first[merge];
+    }
+
+    /**
+     * @param merge the index of the merge
+     * @return the identifier of the cluster that was created last
+     */
+    int getSecond(final int merge) {
+        return m_second[merge];
+    }
+
+    /**
+     * @param merge the index of the merge
+     * @return the linkage distance of the two merged clusters
+     */
+    float getDistance(final int merge) {
+        return m_dist[merge];
+    }
+
+    private float distance(final int i, final int j) {
+        return (float)m_distFunction.calcDistance(m_rows[i], m_rows[j],
+                m_includedCols);
+    }
+
+    /*
+     * Single linkage: each step adds the row closest to the tree, the edges
+     * of the minimum spanning tree are the single linkage merges.
+     */
+    private void minimumSpanningTree(final ExecutionMonitor exec)
+            throws CanceledExecutionException {
+        final int n = m_rows.length;
+        // the rows not yet in the tree, their distance to it and the tree
+        // row they are closest to
+        final int[] remaining = new int[n - 1];
+        final float[] best = new float[n];
+        final int[] nearest = new int[n];
+        for (int i = 1; i < n; i++) {
+            remaining[i - 1] = i;
+        }
+        Arrays.fill(best, Float.MAX_VALUE);
+        int count = n - 1;
+        int current = 0;
+        for (int step = 0; step < n - 1; step++) {
+            exec.checkCanceled();
+            exec.setProgress(step / (double)(n - 1), (n - step)
+                    + " clusters left to merge.");
+            final int added = current;
+            final int size = count;
+            final int[] mins = new int[
+                    Math.max(1, Math.min(m_pool.getMaxThreads(),
+                            size / MIN_CHUNK_SIZE))];
+            parallel(size, mins.length, (chunk, from, to) -> {
+                int min = -1;
+                for (int k = from; k < to; k++) {
+                    final int j = remaining[k];
+                    final float d = distance(added, j);
+                    if (d < best[j]) {
+                        best[j] = d;
+                        nearest[j] = added;
+                    }
+                    if (min < 0 || isCloser(j, remaining[min], best)) {
+                        min = k;
+                    }
+                }
+                mins[chunk] = min;
+            });
+            int min = mins[0];
+            for (int c = 1; c < mins.length; c++) {
+                if (mins[c] >= 0 && isCloser(remaining[mins[c]],
+                        remaining[min], best)) {
+                    min = mins[c];
+                }
+            }
+            current = remaining[min];
+            m_first[step] = nearest[current];
+            m_second[step] = current;
+            m_dist[step] = best[current];
+            remaining[min] = remaining[--count];
+        }
+    }
+
+    private static boolean isCloser(final int j, final int k,
+            final float[] best) {
+        return best[j] < best[k] || (best[j] == best[k] && j < k);
+    }
+
+    /*
+     * Computes the distances of all pairs, row i holds the distances to the
+     * rows j > i at position j - i - 1.
+     */
+    private float[][] computeDistances(final ExecutionMonitor exec)
+            throws CanceledExecutionException {
+        final int n = m_rows.length;
+        final float[][] dist = new float[n - 1][];
+        for (int i = 0; i < n - 1; i++) {
+            dist[i] = new float[n - i - 1];
+        }
+        // hand out blocks of rows with about the same number of pairs
+        final int chunks = Math.max(1, Math.min(4 * m_pool.getMaxThreads(),
+                (int)Math.min(Integer.MAX_VALUE,
+                        (long)n * (n - 1) / 2 / MIN_CHUNK_SIZE)));
+        final int[] bounds = new int[chunks + 1];
+        final double pairs = (double)n * (n - 1) / 2;
+        for (int c = 1; c < chunks; c++) {
+            // first row with at least c/chunks of the pairs before it
+            final double before = pairs * c / chunks;
+            final double m = n - 0.5;
+            bounds[c] = Math.min(n - 1, Math.max(bounds[c - 1], (int)Math.ceil(
+                    m - Math.sqrt(Math.max(0, m * m - 2 * before)))));
+        }
+        bounds[chunks] = n - 1;
+        final int[] done = new int[1];
+        parallel(chunks, chunks, (chunk, from, to) -> {
+            for (int i = bounds[from]; i < bounds[to]; i++) {
+                final float[] row = dist[i];
+                for (int j = i + 1; j < n; j++) {
+                    row[j - i - 1] = distance(i, j);
+                }
+            }
+            synchronized (done) {
+                done[0]++;
+                exec.setProgress(done[0] / (double)chunks,
+                        "Computing distances");
+            }
+        });
+        return dist;
+    }
+
+    private static float get(final float[][] dist, final int i, final int j) {
+        return i < j ? dist[i][j - i - 1] : dist[j][i - j - 1];
+    }
+
+    private static void set(final float[][] dist, final int i, final int j,
+            final float d) {
+        if (i < j) {
+            dist[i][j - i - 1] = d;
+        } else {
+            dist[j][i - j - 1] = d;
+        }
+    }
+
+    /*
+     * Average and complete linkage: follows a chain of nearest neighbors
+     * until two clusters are mutual nearest neighbors, which are merged. A
+     * merged cluster keeps the index of the first of its two clusters.
+     */
+    private void nearestNeighborChain(final float[][] dist,
+            final ExecutionMonitor exec) throws CanceledExecutionException {
+        final int n = m_rows.length;
+        final int[] size = new int[n];
+        Arrays.fill(size, 1);
+        // the active clusters and the position of each in that list
+        final int[] active = new int[n];
+        final int[] position = new int[n];
+        for (int i = 0; i < n; i++) {
+            active[i] = i;
+            position[i] = i;
+        }
+        int nrActive = n;
+        final int[] chain = new int[n];
+        int length = 0;
+        for (int step = 0; step < n - 1; step++) {
+            exec.checkCanceled();
+            exec.setProgress(step / (double)(n - 1), (n - step)
+                    + " clusters left to merge.");
+            if (length == 0) {
+                chain[length++] = active[0];
+            }
+            int a;
+            int b;
+            float d;
+            while (true) {
+                a = chain[length - 1];
+                // prefer the predecessor on ties, otherwise the chain may
+                // run in circles
+                b = length > 1 ? chain[length - 2] : -1;
+                d = b >= 0 ? get(dist, a, b) : Float.MAX_VALUE;
+                for (int k = 0; k < nrActive; k++) {
+                    final int c = active[k];
+                    if (c != a) {
+                        final float dc = get(dist, a, c);
+                        if (dc < d || b < 0) {
+                            b = c;
+                            d = dc;
+                        }
+                    }
+                }
+                if (length > 1 && b == chain[length - 2]) {
+                    break;
+                }
+                chain[length++] = b;
+            }
+            length -= 2;
+            final int kept = Math.min(a, b);
+            final int removed = Math.max(a, b);
+            m_first[step] = kept;
+            m_second[step] = removed;
+            m_dist[step] = d;
+            // remove the second cluster from the active ones
+            final int last = active[--nrActive];
+            active[position[removed]] = last;
+            position[last] = position[removed];
+            // Lance-Williams update of the distances to the merged cluster
+            final int sizeKept = size[kept];
+            final int sizeRemoved = size[removed];
+            final float total = sizeKept + sizeRemoved;
+            for (int k = 0; k < nrActive; k++) {
+                final int c = active[k];
+                if (c == kept) {
+                    continue;
+                }
+                final float dKept = get(dist, kept, c);
+                final float dRemoved = get(dist, removed, c);
+                final float merged;
+                if (m_linkage == Linkage.COMPLETE) {
+                    merged = Math.max(dKept, dRemoved);
+                } else {
+                    merged = (sizeKept * dKept + sizeRemoved * dRemoved)
+                            / total;
+                }
+                set(dist, kept, c, merged);
+            }
+            size[kept] = sizeKept + sizeRemoved;
+            if (removed < n - 1) {
+                // no longer needed, free memory early
+                dist[removed] = null;
+            }
+        }
+    }
+
+    /*
+     * Orders the merges by distance and replaces the row indices that
+     * represent a cluster by the cluster identifiers.
+     */
+    private void sortAndLabel() {
+        final int n = m_rows.length;
+        final int nrMerges = m_dist.length;
+        final Integer[] order = new Integer[nrMerges];
+        for (int k = 0; k < nrMerges; k++) {
+            order[k] = k;
+        }
+        // stable, merges at equal distance keep the order they were found in
+        Arrays.sort(order, (k1, k2) -> Float.compare(m_dist[k1], m_dist[k2]));
+        // union find over the rows, each root knows its cluster identifier
+        final int[] parent = new int[n];
+        final int[] label = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+            label[i] = i;
+        }
+        final int[] first = new int[nrMerges];
+        final int[] second = new int[nrMerges];
+        final float[] dist = new float[nrMerges];
+        for (int k = 0; k < nrMerges; k++) {
+            final int merge = order[k];
+            final int root1 = find(parent, m_first[merge]);
+            final int root2 = find(parent, m_second[merge]);
+            first[k] = Math.min(label[root1], label[root2]);
+            second[k] = Math.max(label[root1], label[root2]);
+            dist[k] = m_dist[merge];
+            parent[root2] = root1;
+            label[root1] = n + k;
+        }
+        m_first = first;
+        m_second = second;
+        m_dist = dist;
+    }
+
+    private static int find(final int[] parent, final int i) {
+        int root = i;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+        // path compression
+        int j = i;
+        while (parent[j] != root) {
+            final int next = parent[j];
+            parent[j] = root;
+            j = next;
+        }
+        return root;
+    }
+
+    /** A part of the work that is run in parallel. */
+    @FunctionalInterface
+    private interface Chunk {
+        void run(int chunk, int from, int to);
+    }
+
+    /*
+     * Splits [0, count) into the given number of chunks and runs them in
+     * parallel.
+     */
+    private void parallel(final int count, final int chunks, final Chunk task)
+            throws CanceledExecutionException {
+        final int chunkSize = (count + chunks - 1) / chunks;
+        if (chunks < 2) {
+            task.run(0, 0, count);
+            return;
+        }
+        final ArrayDeque<Future<?>> futures = new ArrayDeque<Future<?>>();
+        try {
+            for (int c = 1; c < chunks; c++) {
+                final int chunk = c;
+                final int from = Math.min(count, c * chunkSize);
+                final int to = Math.min(count, from + chunkSize);
+                // only hand off work if there is an idle thread, the node
+                // itself runs in the global pool
+                Future<?> future =
+                        m_pool.trySubmit(() -> task.run(chunk, from, to));
+                if (future == null) {
+                    task.run(chunk, from, to);
+                } else {
+                    futures.add(future);
+                }
+            }
+            task.run(0, 0, Math.min(count, chunkSize));
+            while (!futures.isEmpty()) {
+                futures.peek().get();
+                futures.poll();
+            }
+        } catch (InterruptedException e) {
+            throw new CanceledExecutionException(e.getMessage());
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+}
@@ -50,6 +50,8 @@
 import java.util.ArrayList;
 import java.util.List;
 
+import org.knime.core.node.KNIMEConstants;
+
 /**
  * To hide the different implementations of the apriori algorithm to the
  * NodeModel, the NodeDialog simply displays the registered
@@ -70,7 +72,13 @@ public enum AlgorithmDataStructure {
         ARRAY,
         /* LIST */
         /** The TIDList stores the ids of the transactions. * */
-        TIDList;
+        TIDList,
+        /**
+         * A prefix tree of the transactions mined with FP-Growth.
+         *
+         * @since 3.6
+         */
+        FPTree;
 
         /**
          * Returns the values of this enum as a list of strings.
@@ -108,6 +116,10 @@ public static AprioriAlgorithm getAprioriAlgorithm(
             return new ArrayApriori(bitSetLength, dbsize);
         } else if (type.equals(AlgorithmDataStructure.TIDList)) {
             return new TIDApriori();
+        } else if (type.equals(AlgorithmDataStructure.FPTree)) {
+            return new FPGrowth(Math.min(
+                    Runtime.getRuntime().availableProcessors(),
+                    KNIMEConstants.GLOBAL_THREAD_POOL.getMaxThreads()));
         } else {
             throw new RuntimeException("Type not supported: " + type);
         }
@@ -0,0 +1,698 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.mine.subgroupminer.apriori;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.knime.base.node.mine.subgroupminer.freqitemset.AssociationRule;
+import org.knime.base.node.mine.subgroupminer.freqitemset.FrequentItemSet;
+import org.knime.base.node.mine.subgroupminer.freqitemset.FrequentItemSet.Type;
+import org.knime.core.data.vector.bitvector.BitVectorValue;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Finds the frequent itemsets with the FP-Growth algorithm. The transactions
+ * are compressed into a prefix tree over the frequent items, sorted by
+ * descending support (the FP-tree). Each frequent item is then mined
+ * recursively on the conditional tree of the transactions containing it,
+ * without any candidate generation. The projections of the frequent items
+ * are independent of each other and can be mined in parallel.
+ *
+ * <p>
+ * The found itemsets, their supports and the association rules are the same
+ * as the ones of the {@link ArrayApriori}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public class FPGrowth implements AprioriAlgorithm {
+
+    private final int m_maxThreads;
+
+    private double m_minSupport;
+
+    private int m_maxDepth;
+
+    private int m_dbsize;
+
+    /*
+     * the frequent items ordered by descending support, the index is the
+     * rank of the item.
+     */
+    private int[] m_rankToItem;
+
+    private int[] m_itemCounts;
+
+    private List<Integer> m_alwaysFrequentItems;
+
+    /*
+     * all frequent itemsets, except the always frequent items, with their
+     * absolute support.
+     */
+    private Map<ItemSet, ItemSet> m_itemSets;
+
+    private int m_idCounter;
+
+    /**
+     * Creates an FP-Growth instance, which mines the projections of the
+     * frequent items with the given number of threads.
+     *
+     * @param maxThreads the maximal number of threads, 1 for sequential
+     *            mining
+     */
+    public FPGrowth(final int maxThreads) {
+        m_maxThreads = Math.max(1, maxThreads);
+        m_idCounter = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void findFrequentItemSets(final List<BitVectorValue> transactions,
+            final double minSupport, final int maxDepth, final Type type,
+            final ExecutionMonitor exec) throws CanceledExecutionException {
+        m_minSupport = minSupport;
+        m_maxDepth = maxDepth;
+        m_dbsize = transactions.size();
+        m_itemSets = new HashMap<ItemSet, ItemSet>();
+        exec.setMessage("detecting frequent items");
+        findFrequentItems(transactions);
+        if (m_rankToItem.length == 0 || maxDepth < 1) {
+            return;
+        }
+        exec.setMessage("building FP-tree");
+        FPTree tree = buildTree(transactions, exec);
+        mineTree(tree, exec);
+    }
+
+    private boolean isFrequent(final int count) {
+        return ((double)count / (double)m_dbsize) >= m_minSupport;
+    }
+
+    /*
+     * Counts the items, sets the always frequent items aside and ranks the
+     * remaining frequent ones by descending support.
+     */
+    private void findFrequentItems(final List<BitVectorValue> transactions) {
+        int[] counts = new int[0];
+        for (BitVectorValue s : transactions) {
+            // this type cast is save because the maximum length is checked in
+            // SubgroupMinerNodeModel#preprocess
+            for (int i = (int)s.nextSetBit(0); i >= 0;
+                    i = (int)s.nextSetBit(i + 1)) {
+                if (i >= counts.length) {
+                    counts = Arrays.copyOf(counts,
+                            Math.max(i + 1, 2 * counts.length));
+                }
+                counts[i]++;
+            }
+        }
+        m_itemCounts = counts;
+        m_alwaysFrequentItems = new ArrayList<Integer>();
+        List<Integer> frequentItems = new ArrayList<Integer>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == m_dbsize) {
+                m_alwaysFrequentItems.add(i);
+            } else if (counts[i] > 0 && isFrequent(counts[i])) {
+                frequentItems.add(i);
+            }
+        }
+        final int[] itemCounts = counts;
+        Collections.sort(frequentItems, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer i1, final Integer i2) {
+                if (itemCounts[i1] != itemCounts[i2]) {
+                    return itemCounts[i2] - itemCounts[i1];
+                }
+                return i1 - i2;
+            }
+        });
+        m_rankToItem = new int[frequentItems.size()];
+        for (int r = 0; r < m_rankToItem.length; r++) {
+            m_rankToItem[r] = frequentItems.get(r);
+        }
+    }
+
+    private FPTree buildTree(final List<BitVectorValue> transactions,
+            final ExecutionMonitor exec) throws CanceledExecutionException {
+        int[] itemToRank = new int[m_itemCounts.length];
+        Arrays.fill(itemToRank, -1);
+        for (int r = 0; r < m_rankToItem.length; r++) {
+            itemToRank[m_rankToItem[r]] = r;
+        }
+        FPTree tree = new FPTree(m_rankToItem.length);
+        int[] path = new int[m_rankToItem.length];
+        for (BitVectorValue s : transactions) {
+            exec.checkCanceled();
+            int length = 0;
+            for (int i = (int)s.nextSetBit(0); i >= 0;
+                    i = (int)s.nextSetBit(i + 1)) {
+                if (itemToRank[i] >= 0) {
+                    path[length++] = itemToRank[i];
+                }
+            }
+            Arrays.sort(path, 0, length);
+            tree.add(path, length, 1);
+        }
+        return tree;
+    }
+
+    /*
+     * Mines the projection of each frequent item, in parallel if more than
+     * one thread is allowed.
+     */
+    private void mineTree(final FPTree tree, final ExecutionMonitor exec)
+            throws CanceledExecutionException {
+        final int nrItems = m_rankToItem.length;
+        @SuppressWarnings("unchecked")
+        final List<ItemSet>[] results = new List[nrItems];
+        final int[] done = new int[1];
+        final Projection projection = rank -> {
+            List<ItemSet> result = new ArrayList<ItemSet>();
+            mine(tree, rank, new int[0], result, exec);
+            results[rank] = result;
+            synchronized (done) {
+                done[0]++;
+                exec.setProgress(done[0] / (double)nrItems,
+                        "mined " + done[0] + " of " + nrItems + " items");
+            }
+        };
+        if (m_maxThreads < 2) {
+            for (int r = nrItems - 1; r >= 0; r--) {
+                projection.mine(r);
+            }
+        } else {
+            ThreadPool pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(
+                    m_maxThreads);
+            ArrayDeque<Future<Void>> futures = new ArrayDeque<Future<Void>>();
+            try {
+                // the rarest items have the smallest projections, start with
+                // the frequent ones
+                for (int r = 0; r < nrItems; r++) {
+                    final int rank = r;
+                    // only hand off work if there is an idle thread, the node
+                    // itself runs in the global pool
+                    Future<Void> future = pool.trySubmit(() -> {
+                        projection.mine(rank);
+                        return null;
+                    });
+                    if (future == null) {
+                        projection.mine(rank);
+                    } else {
+                        futures.add(future);
+                    }
+                }
+                while (!futures.isEmpty()) {
+                    futures.peek().get();
+                    futures.poll();
+                }
+            } catch (InterruptedException e) {
+                throw new CanceledExecutionException(e.getMessage());
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof CanceledExecutionException) {
+                    throw (CanceledExecutionException)cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException)cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error)cause;
+                }
+                throw new IllegalStateException(cause);
+            } finally {
+                for (Future<Void> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+        for (List<ItemSet> result : results) {
+            for (ItemSet set : result) {
+                m_itemSets.put(set, set);
+            }
+        }
+    }
+
+    /*
+     * Adds the suffix extended by the item with the given rank and, below the
+     * maximal depth, all frequent extensions found in its conditional tree.
+     */
+    private void mine(final FPTree tree, final int rank, final int[] suffix,
+            final List<ItemSet> result, final ExecutionMonitor exec)
+            throws CanceledExecutionException {
+        final int count = tree.m_itemCount[rank];
+        if (!isFrequent(count)) {
+            return;
+        }
+        exec.checkCanceled();
+        final int[] ranks = Arrays.copyOf(suffix, suffix.length + 1);
+        ranks[suffix.length] = rank;
+        int[] items = new int[ranks.length];
+        for (int i = 0; i < ranks.length; i++) {
+            items[i] = m_rankToItem[ranks[i]];
+        }
+        Arrays.sort(items);
+        result.add(new ItemSet(items, count));
+        if (ranks.length >= m_maxDepth || rank == 0) {
+            return;
+        }
+        FPTree conditional = tree.project(rank, this);
+        if (conditional != null) {
+            for (int r = rank - 1; r >= 0; r--) {
+                mine(conditional, r, ranks, result, exec);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FrequentItemSet> getFrequentItemSets(final Type type) {
+        List<FrequentItemSet> list = new ArrayList<FrequentItemSet>();
+        for (Integer i : m_alwaysFrequentItems) {
+            List<Integer> id = new ArrayList<Integer>();
+            id.add(i);
+            FrequentItemSet set = new FrequentItemSet(
+                    Integer.toString(m_idCounter++), id, 1);
+            set.setClosed(!type.equals(FrequentItemSet.Type.FREE));
+            list.add(set);
+        }
+        List<ItemSet> sets = new ArrayList<ItemSet>(m_itemSets.keySet());
+        // the depth first order of the prefix tree of the ArrayApriori
+        Collections.sort(sets);
+        if (!type.equals(FrequentItemSet.Type.FREE)) {
+            List<ItemSet> closed = new ArrayList<ItemSet>();
+            for (ItemSet s : sets) {
+                if (isClosed(s)) {
+                    closed.add(s);
+                }
+            }
+            if (type.equals(FrequentItemSet.Type.MAXIMAL)) {
+                closed = filterMaximal(closed);
+            }
+            sets = closed;
+        }
+        for (ItemSet s : sets) {
+            FrequentItemSet set = toFrequentItemSet(s);
+            set.setClosed(!type.equals(FrequentItemSet.Type.FREE));
+            list.add(set);
+        }
+        if (!type.equals(FrequentItemSet.Type.FREE)) {
+            // same order as the closed itemsets of the ArrayApriori
+            Collections.sort(list, new Comparator<FrequentItemSet>() {
+                @Override
+                public int compare(final FrequentItemSet s1,
+                        final FrequentItemSet s2) {
+                    if (s1.getSupport() == s2.getSupport()) {
+                        return s1.getItems().size() - s2.getItems().size();
+                    }
+                    return Double.compare(s1.getSupport(), s2.getSupport());
+                }
+            });
+        }
+        return list;
+    }
+
+    private FrequentItemSet toFrequentItemSet(final ItemSet s) {
+        List<Integer> items = new ArrayList<Integer>(s.m_items.length);
+        for (int i : s.m_items) {
+            items.add(i);
+        }
+        return new FrequentItemSet(Integer.toString(m_idCounter++), items,
+                (double)s.m_count / (double)m_dbsize);
+    }
+
+    /*
+     * A set is closed if no superset has the same support. It is sufficient
+     * to check the supersets with one more item.
+     */
+    private boolean isClosed(final ItemSet s) {
+        if (s.m_items.length >= m_maxDepth) {
+            return true;
+        }
+        for (int item : m_rankToItem) {
+            if (Arrays.binarySearch(s.m_items, item) < 0) {
+                ItemSet superSet = m_itemSets.get(s.with(item));
+                if (superSet != null && superSet.m_count == s.m_count) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Removes the closed sets that are a subset of another closed set. The
+     * subsets of the closed sets are marked level by level, from the largest
+     * sets to the smallest.
+     */
+    private List<ItemSet> filterMaximal(final List<ItemSet> closed) {
+        Map<ItemSet, Boolean> covered = new HashMap<ItemSet, Boolean>();
+        List<List<ItemSet>> bySize = new ArrayList<List<ItemSet>>();
+        for (ItemSet s : m_itemSets.keySet()) {
+            while (bySize.size() <= s.m_items.length) {
+                bySize.add(new ArrayList<ItemSet>());
+            }
+            bySize.get(s.m_items.length).add(s);
+        }
+        Set<ItemSet> closedSets =
+                new HashSet<ItemSet>(closed);
+        for (int size = bySize.size() - 1; size > 1; size--) {
+            for (ItemSet s : bySize.get(size)) {
+                if (closedSets.contains(s) || covered.containsKey(s)) {
+                    for (int i = 0; i < size; i++) {
+                        covered.put(s.without(i), Boolean.TRUE);
+                    }
+                }
+            }
+        }
+        List<ItemSet> maximal = new ArrayList<ItemSet>();
+        for (ItemSet s : closed) {
+            if (!covered.containsKey(s)) {
+                maximal.add(s);
+            }
+        }
+        return maximal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<AssociationRule> getAssociationRules(final double confidence) {
+        List<FrequentItemSet> frequentItemSets = getFrequentItemSets(
+                FrequentItemSet.Type.CLOSED);
+        List<AssociationRule> associationRules
+            = new ArrayList<AssociationRule>();
+        /*
+         * handle always frequent items seperately: since they are always
+         * frequent each association rule of the itemset -> item must have
+         * confidence = 1 and support = dbsize
+         */
+        for (Integer i : m_alwaysFrequentItems) {
+            List<Integer> withoutI = new ArrayList<Integer>(
+                    m_alwaysFrequentItems);
+            withoutI.remove(i);
+            List<Integer> iList = new ArrayList<Integer>(1);
+            iList.add(i);
+            AssociationRule rule = new AssociationRule(
+                    new FrequentItemSet(Integer.toString(m_idCounter++),
+                            withoutI, 1.0),
+                    new FrequentItemSet(Integer.toString(m_idCounter++),
+                            iList, 1.0),
+                    1.0, 1.0, 1.0);
+            associationRules.add(rule);
+        }
+        for (FrequentItemSet s : frequentItemSets) {
+            if (s.getItems().size() > 1) {
+                double supportS = s.getSupport();
+                for (Integer i : s) {
+                    List<Integer> sWithoutI = new ArrayList<Integer>(s
+                            .getItems());
+                    sWithoutI.remove(i);
+                    double newSupport = getSupportFor(sWithoutI);
+                    double c = supportS / newSupport;
+                    if (c >= confidence) {
+                        List<Integer> iList = new ArrayList<Integer>();
+                        iList.add(i);
+                        double itemSupport = getSupportFor(iList);
+                        AssociationRule rule = new AssociationRule(
+                                new FrequentItemSet(
+                                        Integer.toString(m_idCounter++),
+                                        sWithoutI, newSupport),
+                                new FrequentItemSet(
+                                        Integer.toString(m_idCounter++), iList,
+                                        itemSupport),
+                                supportS, c, c / itemSupport);
+                        associationRules.add(rule);
+                    }
+                }
+            }
+        }
+        return associationRules;
+    }
+
+    private double getSupportFor(final List<Integer> itemset) {
+        int[] items = new int[itemset.size()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = itemset.get(i);
+        }
+        Arrays.sort(items);
+        ItemSet s = m_itemSets.get(new ItemSet(items, 0));
+        return s == null ? 0 : (double)s.m_count / (double)m_dbsize;
+    }
+
+    /** Mines the projection of one frequent item. */
+    @FunctionalInterface
+    private interface Projection {
+        void mine(int rank) throws CanceledExecutionException;
+    }
+
+    /**
+     * A frequent itemset with sorted item ids and its absolute support.
+     * Equality is defined by the items only.
+     */
+    private static final class ItemSet implements Comparable<ItemSet> {
+        private final int[] m_items;
+
+        private final int m_count;
+
+        private final int m_hash;
+
+        ItemSet(final int[] items, final int count) {
+            m_items = items;
+            m_count = count;
+            m_hash = Arrays.hashCode(items);
+        }
+
+        ItemSet with(final int item) {
+            int[] items = Arrays.copyOf(m_items, m_items.length + 1);
+            items[m_items.length] = item;
+            Arrays.sort(items);
+            return new ItemSet(items, 0);
+        }
+
+        ItemSet without(final int index) {
+            int[] items = new int[m_items.length - 1];
+            System.arraycopy(m_items, 0, items, 0, index);
+            System.arraycopy(m_items, index + 1, items, index,
+                    items.length - index);
+            return new ItemSet(items, 0);
+        }
+
+        /**
+         * Lexicographic order, a prefix comes before its extensions.
+         */
+        @Override
+        public int compareTo(final ItemSet o) {
+            int length = Math.min(m_items.length, o.m_items.length);
+            for (int i = 0; i < length; i++) {
+                if (m_items[i] != o.m_items[i]) {
+                    return m_items[i] < o.m_items[i] ? -1 : 1;
+                }
+            }
+            return m_items.length - o.m_items.length;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof ItemSet
+                    && Arrays.equals(m_items, ((ItemSet)obj).m_items);
+        }
+
+        @Override
+        public int hashCode() {
+            return m_hash;
+        }
+    }
+
+    /**
+     * An FP-tree stored in parallel arrays. Node 0 is the root, the nodes of
+     * the same item are linked, starting from the header of the item.
+     */
+    private static final class FPTree {
+        private int[] m_item;
+
+        private int[] m_count;
+
+        private int[] m_parent;
+
+        private int[] m_firstChild;
+
+        private int[] m_nextSibling;
+
+        private int[] m_nextSameItem;
+
+        private int m_size;
+
+        /* the first node and the total count of each item, by rank */
+        private final int[] m_header;
+
+        private final int[] m_itemCount;
+
+        FPTree(final int nrItems) {
+            int capacity = 64;
+            m_item = new int[capacity];
+            m_count = new int[capacity];
+            m_parent = new int[capacity];
+            m_firstChild = new int[capacity];
+            m_nextSibling = new int[capacity];
+            m_nextSameItem = new int[capacity];
+            m_header = new int[nrItems];
+            Arrays.fill(m_header, -1);
+            m_itemCount = new int[nrItems];
+            m_item[0] = -1;
+            m_parent[0] = -1;
+            m_firstChild[0] = -1;
+            m_nextSibling[0] = -1;
+            m_nextSameItem[0] = -1;
+            m_size = 1;
+        }
+
+        /*
+         * Inserts a path of item ranks in ascending order.
+         */
+        void add(final int[] path, final int length, final int count) {
+            int node = 0;
+            for (int i = 0; i < length; i++) {
+                final int item = path[i];
+                int child = m_firstChild[node];
+                while (child >= 0 && m_item[child] != item) {
+                    child = m_nextSibling[child];
+                }
+                if (child < 0) {
+                    child = newNode(item, node);
+                }
+                m_count[child] += count;
+                m_itemCount[item] += count;
+                node = child;
+            }
+        }
+
+        private int newNode(final int item, final int parent) {
+            if (m_size == m_item.length) {
+                int capacity = 2 * m_size;
+                m_item = Arrays.copyOf(m_item, capacity);
+                m_count = Arrays.copyOf(m_count, capacity);
+                m_parent = Arrays.copyOf(m_parent, capacity);
+                m_firstChild = Arrays.copyOf(m_firstChild, capacity);
+                m_nextSibling = Arrays.copyOf(m_nextSibling, capacity);
+                m_nextSameItem = Arrays.copyOf(m_nextSameItem, capacity);
+            }
+            final int node = m_size++;
+            m_item[node] = item;
+            m_count[node] = 0;
+            m_parent[node] = parent;
+            m_firstChild[node] = -1;
+            m_nextSibling[node] = m_firstChild[parent];
+            m_firstChild[parent] = node;
+            m_nextSameItem[node] = m_header[item];
+            m_header[item] = node;
+            return node;
+        }
+
+        /*
+         * Builds the conditional tree of the transactions containing the item
+         * with the given rank, restricted to the items of lower rank that are
+         * frequent in it. Returns null if there are no such items.
+         */
+        FPTree project(final int rank, final FPGrowth algorithm) {
+            final int[] counts = new int[rank];
+            for (int n = m_header[rank]; n >= 0; n = m_nextSameItem[n]) {
+                for (int p = m_parent[n]; p > 0; p = m_parent[p]) {
+                    counts[m_item[p]] += m_count[n];
+                }
+            }
+            boolean any = false;
+            for (int r = 0; r < rank; r++) {
+                if (counts[r] > 0 && algorithm.isFrequent(counts[r])) {
+                    any = true;
+                } else {
+                    counts[r] = 0;
+                }
+            }
+            if (!any) {
+                return null;
+            }
+            FPTree conditional = new FPTree(rank);
+            int[] path = new int[rank];
+            for (int n = m_header[rank]; n >= 0; n = m_nextSameItem[n]) {
+                int length = 0;
+                for (int p = m_parent[n]; p > 0; p = m_parent[p]) {
+                    if (counts[m_item[p]] > 0) {
+                        path[length++] = m_item[p];
+                    }
+                }
+                if (length > 0) {
+                    // the path was collected bottom up
+                    for (int i = 0, j = length - 1; i < j; i++, j--) {
+                        final int tmp = path[i];
+                        path[i] = path[j];
+                        path[j] = tmp;
+                    }
+                    conditional.add(path, length, m_count[n]);
+                }
+            }
+            return conditional;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.mine.svm.learner;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.knime.base.node.mine.svm.kernel.Kernel;
+import org.knime.base.node.mine.svm.util.DoubleVector;
+
+/**
+ * A memory bounded least recently used cache of kernel matrix rows. The entries of a row are computed lazily, so a
+ * row only costs as many kernel evaluations as there are distinct entries read from it.
+ * <p>
+ * The rows are handed out as plain arrays which stay valid until the row is evicted, that is only the two most
+ * recently requested rows are guaranteed to be valid. Rows are requested from a single thread, but the entries of a
+ * row can be read with {@link #get(double[], int, int)} concurrently as long as each thread reads different entries.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class KernelRowCache {
+
+    private final DoubleVector[] m_data;
+
+    private final Kernel m_kernel;
+
+    private final int m_capacity;
+
+    private final LinkedHashMap<Integer, double[]> m_rows;
+
+    /** An evicted row that is reused for the next row. */
+    private double[] m_spare;
+
+    /**
+     * @param data the input vectors
+     * @param kernel the kernel
+     * @param maxBytes the memory budget of the cache, at least two rows are kept in any case
+     */
+    KernelRowCache(final DoubleVector[] data, final Kernel kernel, final long maxBytes) {
+        m_data = data;
+        m_kernel = kernel;
+        final long rowBytes = Double.BYTES * (long)Math.max(1, data.length);
+        m_capacity = (int)Math.max(2, Math.min(data.length, maxBytes / rowBytes));
+        m_rows = new LinkedHashMap<Integer, double[]>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Integer, double[]> eldest) {
+                if (size() > m_capacity) {
+                    m_spare = eldest.getValue();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param i the row index
+     * @return the (possibly not yet computed) kernel row of the {@code i}th vector, read its entries with
+     *         {@link #get(double[], int, int)}
+     */
+    double[] getRow(final int i) {
+        double[] row = m_rows.get(i);
+        if (row == null) {
+            row = m_spare == null ? new double[m_data.length] : m_spare;
+            m_spare = null;
+            // NaN marks entries not computed yet
+            Arrays.fill(row, Double.NaN);
+            m_rows.put(i, row);
+        }
+        return row;
+    }
+
+    /**
+     * @param i the row index
+     * @return the kernel row of the {@code i}th vector if it is cached, {@code null} otherwise
+     */
+    double[] peekRow(final int i) {
+        return m_rows.get(i);
+    }
+
+    /**
+     * @param row the row of the {@code i}th vector as returned by {@link #getRow(int)} or {@link #peekRow(int)}
+     * @param i the row index
+     * @param j the column index
+     * @return the kernel value of the {@code i}th and {@code j}th vector
+     */
+    double get(final double[] row, final int i, final int j) {
+        double k = row[j];
+        if (Double.isNaN(k)) {
+            k = m_kernel.evaluate(m_data[i], m_data[j]);
+            row[j] = k;
+        }
+        return k;
+    }
+}
@@ -129,6 +129,13 @@ public class SVMLearnerNodeModel extends NodeModel {
      */
     public static final String CFG_KERNELTYPE = "kernel_type";
 
+    /**
+     * Key to store whether shrinking is used in the NodeSettings. Not shown in
+     * the dialog, nodes created before 3.6 keep learning without shrinking.
+     * @since 3.6
+     */
+    public static final String CFG_SHRINKING = "shrinking";
+
     /** Keys under which to save the parameters. */
     public static final String KEY_CATEG_COUNT = "Category count";
 
@@ -160,6 +167,11 @@ public class SVMLearnerNodeModel extends NodeModel {
 
     private final HashMap<KernelType, Vector<SettingsModelDouble>> m_kernelParameters;
 
+    /*
+     * Whether the SMO uses shrinking.
+     */
+    private boolean m_shrinking = true;
+
     /*
      * For each category, a BinarySvm that splits the category from the others.
      */
@@ -294,10 +306,15 @@ protected PortObject[] execute(final PortObject[] inData,
         exec.setMessage("Training SVM");
         final BinarySvmRunnable[] bst =
                 new BinarySvmRunnable[categories.size()];
+        // the binary problems may be learned concurrently, share a quarter of
+        // the heap among their kernel caches
+        final long kernelCacheSize =
+                Runtime.getRuntime().maxMemory() / 4 / categories.size();
         for (int i = 0; i < categories.size(); i++) {
             bst[i] =
                     new BinarySvmRunnable(inputDataArr, categories.get(i),
                             kernel, m_paramC.getDoubleValue(),
+                            kernelCacheSize, m_shrinking,
                             exec.createSubProgress((1.0 / categories.size())));
 
         }
@@ -468,6 +485,8 @@ protected void loadValidatedSettingsFrom(final NodeSettingsRO settings)
             throws InvalidSettingsException {
         m_paramC.loadSettingsFrom(settings);
         m_classcol.loadSettingsFrom(settings);
+        // added in 3.6
+        m_shrinking = settings.getBoolean(CFG_SHRINKING, false);
         if (settings.containsKey(CFG_KERNELTYPE)) {
             m_kernelType =
                     KernelType.valueOf(settings.getString(CFG_KERNELTYPE));
@@ -553,6 +572,7 @@ protected void saveSettingsTo(final NodeSettingsWO settings) {
         settings.addString(CFG_KERNELTYPE, m_kernelType.toString());
         m_paramC.saveSettingsTo(settings);
         m_classcol.saveSettingsTo(settings);
+        settings.addBoolean(CFG_SHRINKING, m_shrinking);
         for (Map.Entry<KernelType, Vector<SettingsModelDouble>>
         entry : m_kernelParameters
                 .entrySet()) {
@@ -45,8 +45,11 @@
  */
 package org.knime.base.node.mine.svm.learner;
 
+import java.util.ArrayDeque;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.commons.math.MaxIterationsExceededException;
 import org.knime.base.node.mine.svm.Svm;
@@ -54,6 +57,8 @@
 import org.knime.base.node.mine.svm.util.DoubleVector;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.util.ThreadPool;
 
 /**
  * This class is the implementation of a binary SVM learning algorithm.
@@ -71,6 +76,14 @@
  *
  * The variable names used in this class follow the notations from the papers.
  *
+ * Kernel values are kept in a memory bounded cache of kernel matrix rows (see
+ * {@link #setKernelCacheSize(long)}) and the error cache updates are spread
+ * over several threads for large problems. With shrinking enabled (see
+ * {@link #setShrinking(boolean)}) examples that repeatedly satisfied the
+ * optimality conditions at a bound are left out of the passes over all
+ * examples; the algorithm only stops after a pass over all examples, so the
+ * stopping criterion is the same as without shrinking.
+ *
  * @author Stefan, University of Konstanz
  * @author Nicolas Cebron, University of Konstanz
  */
@@ -140,6 +153,55 @@ public class SvmAlgorithm {
     /** Actual iteration count. */
     private int m_iteration = 0;
 
+    /**
+     * The default memory budget of the kernel row cache in bytes.
+     * @since 3.6
+     */
+    public static final long DEFAULT_KERNEL_CACHE_SIZE = 100L << 20;
+
+    /*
+     * the number of consecutive passes over all examples in which an example at
+     * a bound satisfied the optimality conditions before it is shrunk.
+     */
+    private static final int SHRINK_AFTER = 2;
+
+    /*
+     * the minimal number of error cache entries updated by one thread.
+     */
+    private static final int MIN_CHUNK_SIZE = 1024;
+
+    /*
+     * the memory budget of the kernel row cache.
+     */
+    private long m_kernelCacheSize = DEFAULT_KERNEL_CACHE_SIZE;
+
+    /*
+     * whether examples which keep satisfying the optimality conditions are
+     * left out of the passes over all examples.
+     */
+    private boolean m_shrinking = true;
+
+    /*
+     * the kernel row cache, created by mainAlgorithm.
+     */
+    private KernelRowCache m_kernelCache;
+
+    /*
+     * per example, the number of consecutive passes over all examples it was
+     * optimal at a bound.
+     */
+    private int[] m_optimalCount;
+
+    /*
+     * the elements of I0 whose errors are updated in the current step.
+     */
+    private int[] m_updateBuffer;
+
+    /*
+     * the pool for the parallel error cache updates.
+     */
+    private ThreadPool m_pool;
+
     /*
      * the tolerance level for optimality.
      */
@@ -172,6 +234,30 @@ public SvmAlgorithm(final DoubleVector[] inputData,
         m_maxIteration = Math.max(10000000, inputData.length > Integer.MAX_VALUE / 100 ? Integer.MAX_VALUE - 1 : 100*inputData.length);
     }
 
+    /**
+     * Sets the memory budget of the cache of kernel matrix rows.
+     *
+     * @param bytes the maximal size of the cached rows in bytes (at least two
+     *            rows are always cached)
+     * @since 3.6
+     */
+    public void setKernelCacheSize(final long bytes) {
+        m_kernelCacheSize = bytes;
+    }
+
+    /**
+     * Enables or disables shrinking, it is enabled by default. The solution
+     * satisfies the same optimality conditions either way, but it is not
+     * necessarily identical.
+     *
+     * @param shrinking whether to leave examples that keep satisfying the
+     *            optimality conditions out of the passes over all examples
+     * @since 3.6
+     */
+    public void setShrinking(final boolean shrinking) {
+        m_shrinking = shrinking;
+    }
+
     /**
      * test if the parameter is very close to zero.
      *
@@ -215,13 +301,17 @@ private double target(final int i) {
      */
     private double computeSvmOutput(final int i1) {
         double result = 0;
+        // only use the row if it is cached anyway, most examples are not
+        // needed again before they would be evicted
+        final double[] row = m_kernelCache.peekRow(i1);
 
         for (int i2 = 0; i2 < m_alpha.length; ++i2) {
             if (!zero(m_alpha[i2])) {
                 double alpha = m_alpha[i2];
                 double targ = target(i2);
-                double kern =
-                        m_kernel.evaluate(m_inputData[i1], m_inputData[i2]);
+                double kern = row == null
+                        ? m_kernel.evaluate(m_inputData[i1], m_inputData[i2])
+                        : m_kernelCache.get(row, i1, i2);
                 result += alpha * targ * kern;
             }
         }
@@ -339,8 +429,10 @@ private void repairSets(final int i1, final int i2) {
      * @param i2 second index
      * @return was the optimization successful?
      * @throws MaxIterationsExceededException More than maximal allowed iterations performed.
+     * @throws CanceledExecutionException if interrupted while updating the error cache
      */
-    private boolean takeStep(final int i1, final int i2) throws MaxIterationsExceededException {
+    private boolean takeStep(final int i1, final int i2)
+            throws MaxIterationsExceededException, CanceledExecutionException {
         m_iteration++;
         if (m_iteration == m_maxIteration) {
             throw new MaxIterationsExceededException(m_maxIteration);
@@ -366,9 +458,11 @@ private boolean takeStep(final int i1, final int i2) throws MaxIterationsExceede
         if (Math.abs(low - high) < EPSILON) {
             return false;
         }
-        double k11 = m_kernel.evaluate(m_inputData[i1], m_inputData[i1]);
-        double k12 = m_kernel.evaluate(m_inputData[i1], m_inputData[i2]);
-        double k22 = m_kernel.evaluate(m_inputData[i2], m_inputData[i2]);
+        final double[] row1 = m_kernelCache.getRow(i1);
+        final double[] row2 = m_kernelCache.getRow(i2);
+        double k11 = m_kernelCache.get(row1, i1, i1);
+        double k12 = m_kernelCache.get(row1, i1, i2);
+        double k22 = m_kernelCache.get(row2, i2, i2);
         //-eta as in the Pratt paper.
         double eta = k11 + k22 - 2.0 * k12; // value of second derivative
         double a2;
@@ -403,19 +497,16 @@ private boolean takeStep(final int i1, final int i2) throws MaxIterationsExceede
         m_alpha[i1] = a1;
         m_alpha[i2] = a2;
         updateSets(i1, i2);
+        m_optimalCount[i1] = 0;
+        m_optimalCount[i2] = 0;
+        int count = 0;
         for (int i : m_i0) {
             if ((i != i1) && (i != i2)) {
-                m_fcache[i] +=
-                        y1
-                                * (a1 - alpha1)
-                                * m_kernel.evaluate(m_inputData[i1],
-                                        m_inputData[i])
-                                + y2
-                                * (a2 - alpha2)
-                                * m_kernel.evaluate(m_inputData[i2],
-                                        m_inputData[i]);
+                m_updateBuffer[count++] = i;
             }
         }
+        updateErrors(i1, row1, y1 * (a1 - alpha1), i2, row2,
+                y2 * (a2 - alpha2), count);
         m_fcache[i1] += y1 * (a1 - alpha1) * k11 + y2 * (a2 - alpha2) * k12;
         m_fcache[i2] += y1 * (a1 - alpha1) * k12 + y2 * (a2 - alpha2) * k22;
         repairSets(i1, i2);
@@ -423,6 +514,81 @@ private boolean takeStep(final int i1, final int i2) throws MaxIterationsExceede
         return true;
     }
 
+    /**
+     * Adds the changes of the outputs caused by the new Lagrange coefficients of
+     * i1 and i2 to the error cache of the first {@code count} elements in
+     * {@link #m_updateBuffer}. Large updates are split among several threads.
+     *
+     * @param i1 the first changed example
+     * @param row1 the kernel row of i1
+     * @param d1 the change of alpha1 times y1
+     * @param i2 the second changed example
+     * @param row2 the kernel row of i2
+     * @param d2 the change of alpha2 times y2
+     * @param count the number of errors to update
+     * @throws CanceledExecutionException if interrupted while waiting for the
+     *             other threads
+     */
+    private void updateErrors(final int i1, final double[] row1,
+            final double d1, final int i2, final double[] row2,
+            final double d2, final int count)
+            throws CanceledExecutionException {
+        final int chunks = Math.min(m_pool.getMaxThreads(),
+                count / MIN_CHUNK_SIZE);
+        if (chunks < 2) {
+            updateErrors(i1, row1, d1, i2, row2, d2, 0, count);
+            return;
+        }
+        final int chunkSize = (count + chunks - 1) / chunks;
+        final ArrayDeque<Future<?>> futures = new ArrayDeque<Future<?>>();
+        try {
+            for (int from = chunkSize; from < count; from += chunkSize) {
+                final int start = from;
+                final int end = Math.min(count, from + chunkSize);
+                // only hand off work if there is an idle thread, this
+                // algorithm itself runs in the global pool
+                Future<?> future = m_pool.trySubmit(
+                        () -> updateErrors(i1, row1, d1, i2, row2, d2, start,
+                                end));
+                if (future == null) {
+                    updateErrors(i1, row1, d1, i2, row2, d2, start, end);
+                } else {
+                    futures.add(future);
+                }
+            }
+            updateErrors(i1, row1, d1, i2, row2, d2, 0, chunkSize);
+            while (!futures.isEmpty()) {
+                futures.peek().get();
+                futures.poll();
+            }
+        } catch (InterruptedException e) {
+            throw new CanceledExecutionException(e.getMessage());
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private void updateErrors(final int i1, final double[] row1,
+            final double d1, final int i2, final double[] row2,
+            final double d2, final int from, final int to) {
+        for (int k = from; k < to; k++) {
+            final int i = m_updateBuffer[k];
+            m_fcache[i] += d1 * m_kernelCache.get(row1, i1, i)
+                    + d2 * m_kernelCache.get(row2, i2, i);
+        }
+    }
+
     /**
      * Given one of the example with which to optimize, find another convenient
      * example and optimize the alpha's of the two examples.
@@ -431,8 +597,10 @@ private boolean takeStep(final int i1, final int i2) throws MaxIterationsExceede
      * Support Vector Machines by John C. Platt and also Improvements to Platt's
      * SMO Algorithm for SVM Classifier Design
      * @throws MaxIterationsExceededException Maximal iterations performed, should stop.
+     * @throws CanceledExecutionException if interrupted while updating the error cache
      */
-    private boolean examineExample(final int i2) throws MaxIterationsExceededException {
+    private boolean examineExample(final int i2)
+            throws MaxIterationsExceededException, CanceledExecutionException {
         int i1 = -1;
         double y2 = target(i2);
         double f2;
@@ -529,7 +697,16 @@ private void mainAlgorithm(final ExecutionMonitor exec)
             throws CanceledExecutionException {
         int numChanged = 0;
         boolean examineAll = true;
-
+        // whether the next pass over all examples must not skip shrunk ones
+        boolean unshrink = !m_shrinking;
+
+        m_kernelCache = new KernelRowCache(m_inputData, m_kernel,
+                m_kernelCacheSize);
+        m_optimalCount = new int[m_alpha.length];
+        m_updateBuffer = new int[m_alpha.length];
+        m_pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(Math.min(
+                Runtime.getRuntime().availableProcessors(),
+                KNIMEConstants.GLOBAL_THREAD_POOL.getMaxThreads()));
         m_fcache = new double[m_alpha.length];
         for (int i = 0; i < m_alpha.length; ++i) {
             m_fcache[i] = 0.0;
@@ -583,13 +760,22 @@ private void mainAlgorithm(final ExecutionMonitor exec)
 //                exec.setProgress(progress);
 //            }
             exec.checkCanceled();
+            boolean shrunk = false;
             try {
                 numChanged = 0;
                 if (examineAll) {
                     for (int i = 0; i < m_inputData.length; ++i) {
                         exec.checkCanceled();
+                        if (!unshrink && m_optimalCount[i] >= SHRINK_AFTER) {
+                            shrunk = true;
+                            continue;
+                        }
                         if (examineExample(i)) {
                             numChanged++;
+                        } else if (m_i0.contains(i)) {
+                            m_optimalCount[i] = 0;
+                        } else {
+                            m_optimalCount[i]++;
                         }
                     }
                 } else {
@@ -611,7 +797,13 @@ private void mainAlgorithm(final ExecutionMonitor exec)
             }
 
             if (examineAll) {
-                examineAll = false;
+                if (numChanged == 0 && shrunk) {
+                    // converged on the shrunk problem, check all examples
+                    unshrink = true;
+                } else {
+                    examineAll = false;
+                    unshrink = !m_shrinking;
+                }
             } else if (numChanged == 0) {
                 examineAll = true;
             }
@@ -637,7 +829,14 @@ public Svm run(final ExecutionMonitor exec)
         }
         m_b = 0;
 
-        mainAlgorithm(exec);
+        try {
+            mainAlgorithm(exec);
+        } finally {
+            // release the memory, only the Lagrange coefficients are needed
+            m_kernelCache = null;
+            m_optimalCount = null;
+            m_updateBuffer = null;
+        }
         int countSupportVectors = 0;
         for (int i = 0; i < m_alpha.length; ++i) {
             if (!zero(m_alpha[i])) {
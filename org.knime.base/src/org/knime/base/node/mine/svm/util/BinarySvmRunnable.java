@@ -83,6 +83,28 @@ public BinarySvmRunnable(final DoubleVector[] inputData,
         m_exec = exec;
     }
 
+    /**
+     * @param inputData the input data to train with
+     * @param positiveClass the positive class value
+     * @param kernel the kernel to use
+     * @param paramC overlapping penalty to use
+     * @param kernelCacheSize the memory budget of the kernel row cache in bytes
+     * @param shrinking whether to use shrinking
+     * @param exec the execution process to report to
+     * @see SvmAlgorithm#setKernelCacheSize(long)
+     * @see SvmAlgorithm#setShrinking(boolean)
+     * @since 3.6
+     */
+    public BinarySvmRunnable(final DoubleVector[] inputData,
+            final String positiveClass,
+            final Kernel kernel, final double paramC,
+            final long kernelCacheSize, final boolean shrinking,
+            final ExecutionMonitor exec) {
+        this(inputData, positiveClass, kernel, paramC, exec);
+        m_svmAlgo.setKernelCacheSize(kernelCacheSize);
+        m_svmAlgo.setShrinking(shrinking);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -54,9 +54,12 @@
 import org.knime.base.node.preproc.filter.row.rowfilter.IRowFilter;
 import org.knime.base.node.preproc.filter.row.rowfilter.IncludeFromNowOn;
 import org.knime.base.node.preproc.filter.row.rowfilter.RowFilterFactory;
+import org.knime.base.node.preproc.filter.row.rowfilter.RowNoRowFilter;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTable;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.TableFilter;
 import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
@@ -212,6 +215,12 @@ private void execute(final RowInput inData, final RowOutput output,
     @Override
     protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
             final ExecutionContext exec) throws Exception {
+        if (m_rowFilter instanceof RowNoRowFilter) {
+            TableFilter rangeFilter = createRangeFilter((RowNoRowFilter)m_rowFilter, inData[0].size());
+            if (rangeFilter != null) {
+                return new BufferedDataTable[]{executeRange(inData[0], rangeFilter, exec)};
+            }
+        }
         DataTable in = inData[0];
         // in case the node was configured and the workflow is closed
         // (and saved), the row filter isn't configured upon reloading.
@@ -239,6 +248,53 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
         return new BufferedDataTable[]{container.getTable()};
     }
 
+    /**
+     * Creates the table filter for a row number filter that forwards a single consecutive range of rows, so that rows
+     * outside the range don't need to be read.
+     *
+     * @param filter The row number filter.
+     * @param rowCount The number of rows in the input table.
+     * @return The table filter or null if the filter doesn't describe a single range of rows (excluding a range from
+     *         the middle of the table) or the range is empty.
+     */
+    private static TableFilter createRangeFilter(final RowNoRowFilter filter, final long rowCount) {
+        final long from;
+        final long to;
+        if (filter.getInclude()) {
+            from = filter.getFirstRow();
+            to = filter.getLastRow() == RowNoRowFilter.EOT ? rowCount - 1 : Math.min(filter.getLastRow(), rowCount - 1);
+        } else if (filter.getLastRow() == RowNoRowFilter.EOT) {
+            from = 0;
+            to = Math.min(filter.getFirstRow(), rowCount) - 1;
+        } else {
+            return null;
+        }
+        return from <= to ? TableFilter.filterRangeOfRows(from, to) : null;
+    }
+
+    /**
+     * Copies the rows in the range of the table filter to the output, skipping all other rows.
+     */
+    private static BufferedDataTable executeRange(final BufferedDataTable in, final TableFilter rangeFilter,
+        final ExecutionContext exec) throws CanceledExecutionException {
+        BufferedDataContainer container = exec.createDataContainer(in.getDataTableSpec());
+        final long total = rangeFilter.getToRowIndex() - rangeFilter.getFromRowIndex() + 1;
+        try (CloseableRowIterator it = in.filter(rangeFilter)) {
+            long count = 0;
+            while (it.hasNext()) {
+                DataRow row = it.next();
+                exec.checkCanceled();
+                count++;
+                container.addRowToTable(row);
+                final long c = count;
+                exec.setProgress(c / (double)total, () -> "Added row " + c + " (\"" + row.getKey() + "\")");
+            }
+        } finally {
+            container.close();
+        }
+        return container.getTable();
+    }
+
     /** {@inheritDoc} */
     @Override
     public InputPortRole[] getInputPortRoles() {
@@ -0,0 +1,540 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+
+package org.knime.base.node.preproc.groupby;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.knime.base.data.aggregation.AggregationOperator;
+import org.knime.base.data.aggregation.ColumnAggregator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.TableFilter;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Group by implementation that aggregates the groups in hash maps without
+ * sorting the input table. The groups are hash partitioned. If memory gets
+ * low, the largest partition is evicted and its rows are written to disc.
+ * Evicted partitions are processed recursively with a different hash
+ * function once the input table has been read.
+ *
+ * <p>If all aggregation operators support merging (see
+ * {@link AggregationOperator#supportsMerge()}) the rows are aggregated with
+ * several threads into thread local partial results, which are merged in
+ * row order afterwards.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public class HashGroupByTable extends GroupByTable {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(HashGroupByTable.class);
+
+    /** Number of hash partitions per recursion level, must be a power of 2. */
+    private static final int NUM_PARTITIONS = 32;
+
+    /** Spilled partitions of this level are aggregated in memory. */
+    private static final int MAX_LEVEL = 4;
+
+    /** Number of rows that are read before the memory is checked. */
+    private static final int BATCH_SIZE = 8192;
+
+    /** The number of rows of a batch handled by one thread. */
+    private static final int MIN_SLICE_SIZE = 1024;
+
+    /** Used for testing only, see {@link #setRowsBeforeForcedEviction(int)}. */
+    private static volatile int rowsBeforeForcedEviction = 0;
+
+    private long m_groupCounter;
+
+    private int[] m_aggrColIdx;
+
+    private boolean m_parallel;
+
+    private ThreadPool m_threadPool;
+
+    /**Constructor for class HashGroupByTable.
+     * @param exec the <code>ExecutionContext</code>
+     * @param inDataTable the table to aggregate
+     * @param groupByCols the name of all columns to group by
+     * @param colAggregators the aggregation columns with the aggregation method
+     * to use in the order the columns should be appear in the result table
+     * numerical columns
+     * @param globalSettings the global settings
+     * @param enableHilite <code>true</code> if a row key map should be
+     * maintained to enable hiliting
+     * @param colNamePolicy the {@link ColumnNamePolicy} for the
+     * aggregation columns
+     * input table if set to <code>true</code>
+     * @param retainOrder <code>true</code> if the original row order should be
+     * retained
+     * @throws CanceledExecutionException if the user has canceled the execution
+     */
+    public HashGroupByTable(final ExecutionContext exec,
+            final BufferedDataTable inDataTable, final List<String> groupByCols,
+            final ColumnAggregator[] colAggregators,
+            final GlobalSettings globalSettings,
+            final boolean enableHilite, final ColumnNamePolicy colNamePolicy,
+            final boolean retainOrder)
+            throws CanceledExecutionException {
+        super(exec, inDataTable, groupByCols, colAggregators, globalSettings,
+                enableHilite, colNamePolicy, retainOrder);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected BufferedDataTable createGroupByTable(final ExecutionContext exec,
+            final BufferedDataTable dataTable, final DataTableSpec resultSpec,
+            final int[] groupColIdx) throws CanceledExecutionException {
+        //this method is called from the super constructor thus all fields
+        //have to be initialized here
+        final DataTableSpec spec = dataTable.getDataTableSpec();
+        final ColumnAggregator[] aggregators = getColAggregators();
+        m_aggrColIdx = new int[aggregators.length];
+        boolean supportsMerge = true;
+        for (int i = 0; i < aggregators.length; i++) {
+            m_aggrColIdx[i] = spec.findColumnIndex(aggregators[i].getOriginalColName());
+            supportsMerge &= aggregators[i].getOperator(getGlobalSettings()).supportsMerge();
+        }
+        final int numThreads = Runtime.getRuntime().availableProcessors();
+        m_parallel = supportsMerge && numThreads > 1;
+        if (m_parallel) {
+            m_threadPool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(numThreads);
+        }
+        m_groupCounter = 0;
+        final BufferedDataContainer dc = exec.createDataContainer(resultSpec);
+        aggregate(exec, dataTable, groupColIdx, 0, dc);
+        dc.close();
+        return dc.getTable();
+    }
+
+    /**
+     * Used for testing only. Simulates a low memory event after every batch of
+     * the given number of rows, which evicts a partition per batch. Affects all
+     * instances created afterwards.
+     *
+     * @param maxRows the number of rows per batch, 0 to disable
+     */
+    static void setRowsBeforeForcedEviction(final int maxRows) {
+        rowsBeforeForcedEviction = maxRows;
+    }
+
+    /**
+     * Aggregates the given table and writes the groups to the result
+     * container. Partitions that did not fit into memory are processed
+     * recursively on the next level.
+     */
+    private void aggregate(final ExecutionContext exec,
+            final BufferedDataTable table, final int[] groupColIdx,
+            final int level, final BufferedDataContainer dc)
+            throws CanceledExecutionException {
+        final Partition[] partitions = new Partition[NUM_PARTITIONS];
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            partitions[i] = new Partition();
+        }
+        final MemoryActionIndicator memIndicator =
+            MemoryAlertSystem.getInstance().newIndicator();
+        final ExecutionContext readExec = exec.createSubExecutionContext(0.6);
+        final long rowCount = table.size();
+        final int forcedEviction = rowsBeforeForcedEviction;
+        final int batchSize = forcedEviction > 0 ? forcedEviction : BATCH_SIZE;
+        final List<DataRow> batch = new ArrayList<>(batchSize);
+        long rowIndex = 0;
+        for (final DataRow row : table) {
+            readExec.checkCanceled();
+            batch.add(row);
+            rowIndex++;
+            if (batch.size() == batchSize) {
+                readExec.setProgress(rowIndex / (double)rowCount,
+                    "Analyzing row " + rowIndex + " of " + rowCount);
+                processBatch(readExec, batch, groupColIdx, level, partitions);
+                batch.clear();
+                if (level < MAX_LEVEL && (forcedEviction > 0
+                        || memIndicator.lowMemoryActionRequired())) {
+                    evictLargestPartition(exec, table.getDataTableSpec(),
+                        partitions, rowIndex, level);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            processBatch(readExec, batch, groupColIdx, level, partitions);
+            batch.clear();
+        }
+        final ExecutionContext writeExec = exec.createSubExecutionContext(0.1);
+        for (final Partition partition : partitions) {
+            if (partition.m_groups != null) {
+                writeGroups(writeExec, partition.m_groups, dc);
+                partition.m_groups = null;
+            }
+        }
+        final List<Partition> evicted = new ArrayList<>();
+        long prefixEnd = 0;
+        for (final Partition partition : partitions) {
+            if (partition.m_spill != null) {
+                evicted.add(partition);
+                prefixEnd = Math.max(prefixEnd, partition.m_evictedAt);
+            }
+        }
+        if (evicted.isEmpty()) {
+            exec.setProgress(1.0);
+            return;
+        }
+        spillPrefix(exec.createSubExecutionContext(0.1), table, groupColIdx,
+            level, partitions, prefixEnd);
+        final ExecutionContext recursionExec =
+                exec.createSubExecutionContext(0.2);
+        final double share = 1.0 / evicted.size();
+        for (final Partition partition : evicted) {
+            partition.m_spill.close();
+            partition.m_prefix.close();
+            final BufferedDataTable prefix = partition.m_prefix.getTable();
+            final BufferedDataTable rest = partition.m_spill.getTable();
+            final BufferedDataTable partTable = prefix.size() == 0 ? rest
+                    : recursionExec.createConcatenateTable(recursionExec, prefix, rest);
+            aggregate(recursionExec.createSubExecutionContext(share), partTable,
+                groupColIdx, level + 1, dc);
+            //the spilled tables are not cleared since the result might
+            //reference blob cells of them
+        }
+    }
+
+    /**
+     * Adds the rows of a batch to the groups of their partitions or to the
+     * spill container of their partitions if they have been evicted.
+     */
+    private void processBatch(final ExecutionContext exec,
+            final List<DataRow> batch, final int[] groupColIdx, final int level,
+            final Partition[] partitions) throws CanceledExecutionException {
+        final int size = batch.size();
+        final GroupKey[] keys = new GroupKey[size];
+        final int[] rowPartitions = new int[size];
+        boolean anyEvicted = false;
+        for (int i = 0; i < size; i++) {
+            keys[i] = createGroupKey(batch.get(i), groupColIdx);
+            rowPartitions[i] = getPartition(keys[i], level);
+            anyEvicted |= partitions[rowPartitions[i]].m_groups == null;
+        }
+        if (anyEvicted) {
+            for (int i = 0; i < size; i++) {
+                final Partition partition = partitions[rowPartitions[i]];
+                if (partition.m_groups == null) {
+                    partition.m_spill.addRowToTable(batch.get(i));
+                    keys[i] = null;
+                }
+            }
+        }
+        final int numSlices = m_parallel ? Math.min(m_threadPool.getMaxThreads(), size / MIN_SLICE_SIZE) : 1;
+        if (numSlices <= 1) {
+            for (int i = 0; i < size; i++) {
+                if (keys[i] != null) {
+                    addRow(partitions[rowPartitions[i]].m_groups, keys[i], batch.get(i));
+                }
+            }
+            return;
+        }
+        final int sliceSize = (size + numSlices - 1) / numSlices;
+        final List<Future<List<Map<GroupKey, GroupState>>>> futures = new ArrayList<>(numSlices);
+        for (int start = 0; start < size; start += sliceSize) {
+            final int from = start;
+            final int to = Math.min(size, start + sliceSize);
+            futures.add(m_threadPool.enqueue(() -> {
+                final List<Map<GroupKey, GroupState>> local = new ArrayList<>(NUM_PARTITIONS);
+                for (int p = 0; p < NUM_PARTITIONS; p++) {
+                    local.add(null);
+                }
+                for (int i = from; i < to; i++) {
+                    if (keys[i] == null) {
+                        continue;
+                    }
+                    Map<GroupKey, GroupState> groups = local.get(rowPartitions[i]);
+                    if (groups == null) {
+                        groups = new LinkedHashMap<>();
+                        local.set(rowPartitions[i], groups);
+                    }
+                    addRow(groups, keys[i], batch.get(i));
+                }
+                return local;
+            }));
+        }
+        //merge the partial results in slice order to retain the order of the
+        //rows within each group
+        for (final Future<List<Map<GroupKey, GroupState>>> future : futures) {
+            final List<Map<GroupKey, GroupState>> local = waitFor(future);
+            for (int p = 0; p < NUM_PARTITIONS; p++) {
+                final Map<GroupKey, GroupState> localGroups = local.get(p);
+                if (localGroups == null) {
+                    continue;
+                }
+                final Map<GroupKey, GroupState> groups = partitions[p].m_groups;
+                for (final Entry<GroupKey, GroupState> entry : localGroups.entrySet()) {
+                    final GroupState state = groups.get(entry.getKey());
+                    if (state == null) {
+                        groups.put(entry.getKey(), entry.getValue());
+                    } else {
+                        state.merge(entry.getValue(), getGlobalSettings());
+                    }
+                }
+            }
+            exec.checkCanceled();
+        }
+    }
+
+    /**
+     * Drops the groups of the largest partition that is still held in memory.
+     * All following rows of the partition are written into its spill
+     * container, the rows read so far are written in
+     * {@link #spillPrefix(ExecutionContext, BufferedDataTable, int[], int, Partition[], long)}.
+     */
+    private static void evictLargestPartition(final ExecutionContext exec,
+            final DataTableSpec spec, final Partition[] partitions,
+            final long rowIndex, final int level) {
+        Partition largest = null;
+        for (final Partition partition : partitions) {
+            if (partition.m_groups != null && (largest == null
+                    || partition.m_groups.size() > largest.m_groups.size())) {
+                largest = partition;
+            }
+        }
+        if (largest == null) {
+            return;
+        }
+        LOGGER.debug("Low memory, evicting partition with "
+                + largest.m_groups.size() + " groups on level " + level);
+        largest.m_groups = null;
+        largest.m_evictedAt = rowIndex;
+        largest.m_spill = exec.createDataContainer(spec);
+    }
+
+    /**
+     * Re-reads the rows of the given table up to the given end and writes all
+     * rows of evicted partitions that have been read before the partition was
+     * evicted into the prefix container of the partition.
+     */
+    private static void spillPrefix(final ExecutionContext exec,
+            final BufferedDataTable table, final int[] groupColIdx,
+            final int level, final Partition[] partitions, final long end)
+            throws CanceledExecutionException {
+        for (final Partition partition : partitions) {
+            if (partition.m_spill != null) {
+                partition.m_prefix =
+                        exec.createDataContainer(table.getDataTableSpec());
+            }
+        }
+        long rowIndex = 0;
+        try (CloseableRowIterator iter =
+                table.filter(TableFilter.filterRangeOfRows(0, end - 1))) {
+            while (iter.hasNext()) {
+                exec.checkCanceled();
+                exec.setProgress(rowIndex / (double)end,
+                    "Spilling row " + rowIndex + " of " + end);
+                final DataRow row = iter.next();
+                final Partition partition = partitions[
+                    getPartition(createGroupKey(row, groupColIdx), level)];
+                if (partition.m_spill != null
+                        && rowIndex < partition.m_evictedAt) {
+                    partition.m_prefix.addRowToTable(row);
+                }
+                rowIndex++;
+            }
+        }
+    }
+
+    private void addRow(final Map<GroupKey, GroupState> groups,
+            final GroupKey groupKey, final DataRow row) {
+        GroupState state = groups.get(groupKey);
+        if (state == null) {
+            state = new GroupState(getColAggregators(), isEnableHilite());
+            groups.put(groupKey, state);
+        }
+        final ColumnAggregator[] aggregators = state.m_aggregators;
+        for (int i = 0, length = aggregators.length; i < length; i++) {
+            aggregators[i].getOperator(getGlobalSettings()).compute(row,
+                m_aggrColIdx[i]);
+        }
+        if (state.m_rowKeys != null) {
+            state.m_rowKeys.add(row.getKey());
+        }
+    }
+
+    private void writeGroups(final ExecutionContext exec,
+            final Map<GroupKey, GroupState> groups,
+            final BufferedDataContainer dc) throws CanceledExecutionException {
+        for (final Entry<GroupKey, GroupState> entry : groups.entrySet()) {
+            exec.checkCanceled();
+            final GroupKey groupVals = entry.getKey();
+            final ColumnAggregator[] colAggregators =
+                    entry.getValue().m_aggregators;
+            final RowKey rowKey = RowKey.createRowKey(m_groupCounter++);
+            final DataCell[] rowVals =
+                new DataCell[groupVals.size() + colAggregators.length];
+            //add the group values first
+            int valIdx = 0;
+            for (final DataCell groupCell : groupVals.getGroupVals()) {
+                rowVals[valIdx++] = groupCell;
+            }
+            //add the aggregation values
+            for (final ColumnAggregator colAggr : colAggregators) {
+                final AggregationOperator operator =
+                    colAggr.getOperator(getGlobalSettings());
+                rowVals[valIdx++] = operator.getResult();
+                if (operator.isSkipped()) {
+                    //add skipped groups and the column that causes the skipping
+                    //into the skipped groups map
+                    addSkippedGroup(colAggr.getOriginalColName(),
+                            operator.getSkipMessage(),
+                            groupVals.getGroupVals());
+                }
+            }
+            dc.addRowToTable(new DefaultRow(rowKey, rowVals));
+            //add hilite mappings if enabled
+            if (isEnableHilite()) {
+                addHiliteMapping(rowKey, entry.getValue().m_rowKeys);
+            }
+        }
+    }
+
+    private static GroupKey createGroupKey(final DataRow row,
+            final int[] groupColIdx) {
+        final DataCell[] currentGroup = new DataCell[groupColIdx.length];
+        for (int i = 0, length = groupColIdx.length; i < length; i++) {
+            currentGroup[i] = row.getCell(groupColIdx[i]);
+        }
+        return new GroupKey(currentGroup);
+    }
+
+    /** @return the partition of the group, which depends on the level in
+     * order to split evicted partitions on the next level. */
+    private static int getPartition(final GroupKey key, final int level) {
+        int h = key.hashCode() * (0x9E3779B9 + 2 * level);
+        h ^= h >>> 16;
+        return (h >>> (5 * level)) & (NUM_PARTITIONS - 1);
+    }
+
+    /** Waits for a task and unwraps its exception. */
+    private static <T> T waitFor(final Future<T> future)
+            throws CanceledExecutionException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            CanceledExecutionException cee =
+                new CanceledExecutionException("Interrupted while grouping");
+            cee.initCause(e);
+            throw cee;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /** A hash partition of the groups. */
+    private static final class Partition {
+        /** The groups or <code>null</code> if the partition was evicted. */
+        private Map<GroupKey, GroupState> m_groups = new LinkedHashMap<>();
+        /** The index of the first row written to the spill container. */
+        private long m_evictedAt;
+        /** The rows read after the partition was evicted. */
+        private BufferedDataContainer m_spill;
+        /** The rows read before the partition was evicted. */
+        private BufferedDataContainer m_prefix;
+    }
+
+    /** The aggregators and hilite row keys of one group. */
+    private static final class GroupState {
+        private final ColumnAggregator[] m_aggregators;
+        private final Set<RowKey> m_rowKeys;
+
+        GroupState(final ColumnAggregator[] origAggregators,
+                final boolean enableHilite) {
+            m_aggregators = new ColumnAggregator[origAggregators.length];
+            for (int i = 0, length = origAggregators.length; i < length; i++) {
+                m_aggregators[i] = origAggregators[i].clone();
+            }
+            m_rowKeys = enableHilite ? new HashSet<>() : null;
+        }
+
+        /** Adds the partial result of the rows following this state. */
+        void merge(final GroupState other, final GlobalSettings settings) {
+            for (int i = 0; i < m_aggregators.length; i++) {
+                m_aggregators[i].getOperator(settings).merge(
+                    other.m_aggregators[i].getOperator(settings));
+            }
+            if (m_rowKeys != null) {
+                m_rowKeys.addAll(other.m_rowKeys);
+            }
+        }
+    }
+}
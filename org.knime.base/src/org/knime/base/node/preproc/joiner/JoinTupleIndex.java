@@ -0,0 +1,226 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.preproc.joiner;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * A compact hash table mapping the {@link JoinTuple}s of one partition of the inner table to the indices of the rows
+ * having that tuple. Keys are stored in an open addressing table along with their hash code, row indices are kept as
+ * linked lists in primitive arrays (no boxed {@link Integer} sets). The index is not thread-safe when modified but
+ * can be probed concurrently.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class JoinTupleIndex {
+
+    /** Marks the end of a list of entries. */
+    static final int NO_ENTRY = -1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private JoinTuple[] m_keys;
+
+    private int[] m_keyHashes;
+
+    /** The first entry of a key's list of row indices. */
+    private int[] m_keyHeads;
+
+    private int m_numKeys;
+
+    private int[] m_entryRows;
+
+    private int[] m_entryNext;
+
+    private int m_numEntries;
+
+    /** Creates an empty index. */
+    JoinTupleIndex() {
+        m_keys = new JoinTuple[INITIAL_CAPACITY];
+        m_keyHashes = new int[INITIAL_CAPACITY];
+        m_keyHeads = new int[INITIAL_CAPACITY];
+        m_entryRows = new int[INITIAL_CAPACITY];
+        m_entryNext = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adds a row index for the given tuple. Adding the same row twice in a row for an equal tuple has no effect.
+     *
+     * @param tuple The join tuple.
+     * @param hash Its hash code.
+     * @param row The index of the row.
+     */
+    void add(final JoinTuple tuple, final int hash, final int row) {
+        int slot = findSlot(tuple, hash);
+        if (m_keys[slot] == null) {
+            if (4 * (m_numKeys + 1) > 3 * m_keys.length) {
+                rehash(2 * m_keys.length);
+                slot = findSlot(tuple, hash);
+            }
+            m_keys[slot] = tuple;
+            m_keyHashes[slot] = hash;
+            m_keyHeads[slot] = NO_ENTRY;
+            m_numKeys++;
+        } else if (m_entryRows[m_keyHeads[slot]] == row) {
+            // row indices per tuple are a set, rows are added consecutively
+            return;
+        }
+        if (m_numEntries == m_entryRows.length) {
+            m_entryRows = Arrays.copyOf(m_entryRows, 2 * m_numEntries);
+            m_entryNext = Arrays.copyOf(m_entryNext, 2 * m_numEntries);
+        }
+        m_entryRows[m_numEntries] = row;
+        m_entryNext[m_numEntries] = m_keyHeads[slot];
+        m_keyHeads[slot] = m_numEntries;
+        m_numEntries++;
+    }
+
+    /**
+     * @param tuple The tuple to look up.
+     * @param hash Its hash code.
+     * @return The first entry of the rows having an equal tuple or {@link #NO_ENTRY}, use {@link #next(int)} and
+     *         {@link #getRow(int)} to traverse the list.
+     */
+    int getFirst(final JoinTuple tuple, final int hash) {
+        final int slot = findSlot(tuple, hash);
+        return m_keys[slot] == null ? NO_ENTRY : m_keyHeads[slot];
+    }
+
+    /**
+     * @param entry An entry.
+     * @return The next entry in the list or {@link #NO_ENTRY}.
+     */
+    int next(final int entry) {
+        return m_entryNext[entry];
+    }
+
+    /**
+     * @param entry An entry.
+     * @return The row index of the entry.
+     */
+    int getRow(final int entry) {
+        return m_entryRows[entry];
+    }
+
+    /** @return The number of distinct tuples. */
+    int getNumKeys() {
+        return m_numKeys;
+    }
+
+    /**
+     * @param consumer Receives the row index of all entries.
+     */
+    void forEachRow(final IntConsumer consumer) {
+        for (int i = 0; i < m_numEntries; i++) {
+            consumer.accept(m_entryRows[i]);
+        }
+    }
+
+    /**
+     * Removes all tuples whose hash code is not accepted by the argument predicate.
+     *
+     * @param hashFilter Accepts the hash codes of the tuples to keep.
+     */
+    void retainKeys(final IntPredicate hashFilter) {
+        JoinTupleIndex retained = new JoinTupleIndex();
+        for (int slot = 0; slot < m_keys.length; slot++) {
+            if (m_keys[slot] != null && hashFilter.test(m_keyHashes[slot])) {
+                for (int e = m_keyHeads[slot]; e != NO_ENTRY; e = m_entryNext[e]) {
+                    retained.add(m_keys[slot], m_keyHashes[slot], m_entryRows[e]);
+                }
+            }
+        }
+        m_keys = retained.m_keys;
+        m_keyHashes = retained.m_keyHashes;
+        m_keyHeads = retained.m_keyHeads;
+        m_numKeys = retained.m_numKeys;
+        m_entryRows = retained.m_entryRows;
+        m_entryNext = retained.m_entryNext;
+        m_numEntries = retained.m_numEntries;
+    }
+
+    /**
+     * Linear probing; compares like a {@link java.util.HashMap}, i.e. hash code first, then the argument's equals.
+     * Note that tuples with missing cells are not equal to any other tuple.
+     */
+    private int findSlot(final JoinTuple tuple, final int hash) {
+        final int mask = m_keys.length - 1;
+        int slot = mix(hash) & mask;
+        while (m_keys[slot] != null
+            && !(m_keyHashes[slot] == hash && (m_keys[slot] == tuple || tuple.equals(m_keys[slot])))) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(final int capacity) {
+        JoinTuple[] keys = m_keys;
+        int[] hashes = m_keyHashes;
+        int[] heads = m_keyHeads;
+        m_keys = new JoinTuple[capacity];
+        m_keyHashes = new int[capacity];
+        m_keyHeads = new int[capacity];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                int slot = mix(hashes[i]) & (capacity - 1);
+                while (m_keys[slot] != null) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                m_keys[slot] = keys[i];
+                m_keyHashes[slot] = hashes[i];
+                m_keyHeads[slot] = heads[i];
+            }
+        }
+    }
+
+    /** Spreads the hash bits, the lower bits are equal within a partition. */
+    private static int mix(final int hash) {
+        final int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -49,16 +49,18 @@
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.knime.base.data.sort.SortedTable;
 import org.knime.base.node.preproc.joiner.Joiner2Settings.CompositionMode;
@@ -70,19 +72,25 @@
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DoubleValue;
+import org.knime.core.data.IntValue;
 import org.knime.core.data.RowKey;
+import org.knime.core.data.append.AppendedColumnRow;
 import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.TableFilter;
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.IntCell;
 import org.knime.core.data.def.StringCell;
 import org.knime.core.data.util.memory.MemoryAlertSystem;
 import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
+import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.util.ConvenienceMethods;
+import org.knime.core.util.ThreadPool;
 import org.knime.core.util.UniqueNameGenerator;
 
 /**
@@ -95,6 +103,10 @@ public final class Joiner {
     private static final NodeLogger LOGGER = NodeLogger
     .getLogger(Joiner.class);
 
+    /** Number of rows of the outer table probed (and number of tuples of the
+     * inner table added) in one parallel step. */
+    private static final int BATCH_SIZE = 4096;
+
     private final DataTableSpec m_leftDataTableSpec;
     private final DataTableSpec m_rightDataTableSpec;
 
@@ -116,7 +128,7 @@ public final class Joiner {
      * holds the row indices of the left table that did not match to a row
      * of the right table.
      */
-    private Set<Integer> m_globalLeftOuterJoins;
+    private BitSet m_globalLeftOuterJoins;
 
     private InputRow.Settings m_inputDataRowSettings;
     private OutputRow.Settings m_outputDataRowSettings;
@@ -145,6 +157,22 @@ public final class Joiner {
     /** Only used for testcases, simulates an out-of-memory event after that many rows added in memory. */
     private int m_rowsAddedBeforeForcedOOM;
 
+    /** The number of threads used to build and probe the partitions. */
+    private int m_numThreads = Runtime.getRuntime().availableProcessors();
+
+    private ThreadPool m_threadPool;
+
+    /** The inner table read in the current pass, either the input or the
+     * rows spilled in the previous pass. */
+    private BufferedDataTable m_leftSource;
+
+    /** The outer table read in the current pass, see {@link #m_leftSource}. */
+    private BufferedDataTable m_rightSource;
+
+    /** Whether the sources are spilled tables (created by this joiner and
+     * with the row index as last column). */
+    private boolean m_sourcesSpilled;
+
     /**
      * Creates a new instance.
      *
@@ -506,10 +534,8 @@ public BufferedDataTable computeJoinTable(
             && m_settings.getLeftJoinColumns().length > 1;
 
         if (m_retainLeft && m_matchAny) {
-            m_globalLeftOuterJoins = new HashSet<Integer>();
-            for (int i = 0; i < leftTable.getRowCount(); i++) {
-                m_globalLeftOuterJoins.add(i);
-            }
+            m_globalLeftOuterJoins = new BitSet();
+            m_globalLeftOuterJoins.set(0, leftTable.getRowCount());
         }
 
 
@@ -548,18 +574,31 @@ public BufferedDataTable computeJoinTable(
 
         double[] progressIntervals = new double[] {0.6, 0.2, 0.2};
         exec.setProgress(0.0);
-        while (pendingParts.size() > 0) {
-            Collection<Integer> processedParts = performJoin(
-                    innerTable, outerTable,
-                    joinCont, pendingParts, exec, progressIntervals[0]);
-            pendingParts.removeAll(processedParts);
+        m_leftSource = innerTable;
+        m_rightSource = outerTable;
+        m_sourcesSpilled = false;
+        try {
+            while (pendingParts.size() > 0) {
+                Collection<Integer> processedParts = performJoin(
+                        joinCont, pendingParts, exec, progressIntervals[0]);
+                pendingParts.removeAll(processedParts);
+            }
+        } finally {
+            if (m_sourcesSpilled) {
+                exec.clearTable(m_leftSource);
+                exec.clearTable(m_rightSource);
+            }
+            m_leftSource = null;
+            m_rightSource = null;
+            m_sourcesSpilled = false;
         }
 
 
         if (m_retainLeft && m_matchAny) {
             // Add left outer joins
             int c = 0;
-            for (Integer index : m_globalLeftOuterJoins) {
+            for (int index = m_globalLeftOuterJoins.nextSetBit(0); index >= 0;
+                    index = m_globalLeftOuterJoins.nextSetBit(index + 1)) {
                 DataRow outRow = OutputRow.createDataRow(c, index, -1,
                         m_outputDataRowSettings);
                 joinCont.addLeftOuter(outRow, exec);
@@ -624,8 +663,12 @@ public BufferedDataTable computeJoinTable(
      * Successfully read partitions will be joined. The return collection
      * defines the successfully processed partitions.
      *
-     * @param leftTable The inner input table.
-     * @param rightTable The right input table.
+     * <p>Rows of both tables that belong to partitions not processed in this
+     * pass are spilled to temporary tables, which replace the input of the
+     * next pass (see {@link #m_leftSource}, {@link #m_rightSource}), so that
+     * the inputs are not re-scanned completely in each pass. Building the hash
+     * tables of the partitions and probing them is done in parallel.
+     *
      * @param outputContainer The container used for storing matches.
      * @param pendingParts The parts that are not processed yet.
      * @param exec The execution context.
@@ -634,153 +677,189 @@ public BufferedDataTable computeJoinTable(
      * @throws CanceledExecutionException when execution is canceled
      */
     private Collection<Integer> performJoin(
-            final BufferedDataTable leftTable,
-            final BufferedDataTable rightTable,
             final JoinContainer outputContainer,
             final Collection<Integer> pendingParts,
             final ExecutionContext exec,
             final double progressDiff) throws CanceledExecutionException  {
+        final BufferedDataTable leftTable = m_leftSource;
+        final BufferedDataTable rightTable = m_rightSource;
         // Update increment for reporting progress
         double progress = exec.getProgressMonitor().getProgress();
         double numRows = leftTable.size() + rightTable.size();
         double inc = (progressDiff - progress) / numRows;
 
-        Collection<Integer> currParts = new ArrayList<Integer>();
+        Collection<Integer> currParts = new TreeSet<Integer>();
         currParts.addAll(pendingParts);
         setMessage("Read", exec, pendingParts, currParts);
 
         // Partition left table
-        Map <Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed =
-            new HashMap<Integer, Map<JoinTuple, Set<Integer>>>();
+        Map<Integer, JoinTupleIndex> leftTableHashed =
+            new HashMap<Integer, JoinTupleIndex>();
         // This is only used when m_leftRetain is true and m_matchAny is false.
         // It holds the row indices of the left table that do not match to
         // any row of the right table
-        Map <Integer, Set<Integer>> leftOuterJoins =
-            new HashMap<Integer, Set<Integer>>();
+        Map<Integer, BitSet> leftOuterJoins = new HashMap<Integer, BitSet>();
 
         MemoryActionIndicator memIndicator = MemoryAlertSystem.getInstance().newIndicator();
 
+        BufferedDataContainer leftSpill = createSpillContainer(leftTable, exec);
+        // the (original) indices of the rows in leftSpill
+        BitSet spilledLeftRows = new BitSet();
+        // rows read before this position may belong to partitions that were
+        // dropped while reading, they need to be spilled after reading
+        long droppedRowsEnd = 0;
+        BuildBatch batch = new BuildBatch();
+
         int counter = 0;
         long rowsAdded = 0;
-        CloseableRowIterator leftIter = leftTable.iterator();
-        while (leftIter.hasNext()) {
-            exec.checkCanceled();
-            boolean saveToAddMoreRows =
-                !memIndicator.lowMemoryActionRequired()
-                    && ((m_rowsAddedBeforeForcedOOM == 0)
-                            || (rowsAdded % m_rowsAddedBeforeForcedOOM != (m_rowsAddedBeforeForcedOOM - 1)));
-
-            if (saveToAddMoreRows) {
-                DataRow row = leftIter.next();
-                InputRow inputDataRow = new InputRow(row, counter,
-                        InputRow.Settings.InDataPort.Left,
-                        m_inputDataRowSettings);
-
-                for (JoinTuple tuple : inputDataRow.getJoinTuples()) {
-                    int partition = tuple.hashCode() & m_bitMask;
-                    if (currParts.contains(partition)) {
-                        addRow(leftTableHashed, leftOuterJoins,
-                                partition, tuple, inputDataRow);
-                        rowsAdded++;
+        try (CloseableRowIterator leftIter = leftTable.iterator()) {
+            while (leftIter.hasNext()) {
+                exec.checkCanceled();
+                boolean saveToAddMoreRows =
+                    !memIndicator.lowMemoryActionRequired()
+                        && ((m_rowsAddedBeforeForcedOOM == 0)
+                                || (rowsAdded % m_rowsAddedBeforeForcedOOM != (m_rowsAddedBeforeForcedOOM - 1)));
+
+                if (saveToAddMoreRows) {
+                    DataRow row = leftIter.next();
+                    int index = getIndex(row, counter);
+                    InputRow inputDataRow = new InputRow(row, index,
+                            InputRow.Settings.InDataPort.Left,
+                            m_inputDataRowSettings);
+
+                    boolean spill = false;
+                    for (JoinTuple tuple : inputDataRow.getJoinTuples()) {
+                        int hash = tuple.hashCode();
+                        int partition = hash & m_bitMask;
+                        if (currParts.contains(partition)) {
+                            addRow(leftTableHashed, leftOuterJoins, batch,
+                                    partition, tuple, hash, inputDataRow);
+                            rowsAdded++;
+                        } else if (pendingParts.contains(partition)) {
+                            spill = true;
+                        }
                     }
-                }
-                counter++;
-                // report progress
-                progress += inc;
-                exec.getProgressMonitor().setProgress(progress);
-            } else {
-                rowsAdded++;
-
-                // Build list of partitions that are not empty
-                List<Integer> nonEmptyPartitions = new ArrayList<Integer>();
-                for (Integer i : currParts) {
-                    if (null != leftTableHashed.get(i)) {
-                        nonEmptyPartitions.add(i);
+                    if (spill) {
+                        leftSpill.addRowToTable(createSpillRow(row, index));
+                        spilledLeftRows.set(index);
                     }
-                }
-                int numNonEmpty = nonEmptyPartitions.size();
-                if (numNonEmpty > 1) {
-                    // remove input partitions to free memory
-                    List<Integer> removeParts = new ArrayList<Integer>();
-                    for (int i = 0; i < numNonEmpty / 2; i++) {
-                        removeParts.add(nonEmptyPartitions.get(i));
+                    if (batch.isFull()) {
+                        flushBatch(batch, leftTableHashed);
                     }
-                    // remove collected data of the no longer processed
-                    for (int i : removeParts) {
-                        leftTableHashed.remove(i);
-                        if (m_retainLeft && !m_matchAny) {
-                            leftOuterJoins.remove(i);
+                    counter++;
+                    // report progress
+                    progress += inc;
+                    exec.getProgressMonitor().setProgress(progress);
+                } else {
+                    rowsAdded++;
+                    // the hash tables need to be complete before they are changed
+                    flushBatch(batch, leftTableHashed);
+
+                    // Build list of partitions that are not empty
+                    List<Integer> nonEmptyPartitions = new ArrayList<Integer>();
+                    for (Integer i : currParts) {
+                        if (null != leftTableHashed.get(i)) {
+                            nonEmptyPartitions.add(i);
                         }
                     }
-                    currParts.removeAll(removeParts);
-                    LOGGER.debug("Skip partitions while "
-                            + "reading inner table. Currently Processed: "
-                            + currParts + ". Skip: " + removeParts);
-                    // update increment for reporting progress
-                    numRows += leftTable.size() + rightTable.size();
-                    inc = (progressDiff - progress) / numRows;
-
-                    setMessage("Read", exec, pendingParts, currParts);
-                } else if (nonEmptyPartitions.size() == 1) {
-                    if (m_numBits < m_numBitsMaximal) {
-                        LOGGER.debug("Increase number of partitions while "
-                                + "reading inner table. Currently "
-                                + "Processed: " + nonEmptyPartitions);
-
-                        // increase number of partitions
-                        m_numBits = m_numBits + 1;
-                        m_bitMask = m_bitMask | (0x0001 << (m_numBits - 1));
-                        Set<Integer> pending = new TreeSet<Integer>();
-                        pending.addAll(pendingParts);
-                        pendingParts.clear();
-                        for (int i : pending) {
-                            pendingParts.add(i);
-                            int ii = i | (0x0001 << (m_numBits - 1));
-                            pendingParts.add(ii);
+                    int numNonEmpty = nonEmptyPartitions.size();
+                    if (numNonEmpty > 1) {
+                        // remove input partitions to free memory
+                        List<Integer> removeParts = new ArrayList<Integer>();
+                        for (int i = 0; i < numNonEmpty / 2; i++) {
+                            removeParts.add(nonEmptyPartitions.get(i));
                         }
-
-                        int currPart = nonEmptyPartitions.iterator().next();
-                        currParts.clear();
-                        currParts.add(currPart);
-                        // update chunk size
-                        retainPartitions(leftTableHashed, leftOuterJoins,
-                                currPart);
+                        // remove collected data of the no longer processed
+                        for (int i : removeParts) {
+                            leftTableHashed.remove(i);
+                            if (m_retainLeft && !m_matchAny) {
+                                leftOuterJoins.remove(i);
+                            }
+                        }
+                        currParts.removeAll(removeParts);
+                        droppedRowsEnd = counter;
+                        LOGGER.debug("Skip partitions while "
+                                + "reading inner table. Currently Processed: "
+                                + currParts + ". Skip: " + removeParts);
                         // update increment for reporting progress
                         numRows += leftTable.size() + rightTable.size();
                         inc = (progressDiff - progress) / numRows;
 
                         setMessage("Read", exec, pendingParts, currParts);
-                    } else {
-                        // We have now 2^32 partitions.
-                        // We can only keep going and hope that other nodes
-                        // may free some memory.
+                    } else if (nonEmptyPartitions.size() == 1) {
+                        if (m_numBits < m_numBitsMaximal) {
+                            LOGGER.debug("Increase number of partitions while "
+                                    + "reading inner table. Currently "
+                                    + "Processed: " + nonEmptyPartitions);
+
+                            // increase number of partitions
+                            m_numBits = m_numBits + 1;
+                            m_bitMask = m_bitMask | (0x0001 << (m_numBits - 1));
+                            Set<Integer> pending = new TreeSet<Integer>();
+                            pending.addAll(pendingParts);
+                            pendingParts.clear();
+                            for (int i : pending) {
+                                pendingParts.add(i);
+                                int ii = i | (0x0001 << (m_numBits - 1));
+                                pendingParts.add(ii);
+                            }
+
+                            int currPart = nonEmptyPartitions.iterator().next();
+                            currParts.clear();
+                            currParts.add(currPart);
+                            droppedRowsEnd = counter;
+                            // update chunk size
+                            retainPartitions(leftTableHashed, leftOuterJoins,
+                                    currPart);
+                            // update increment for reporting progress
+                            numRows += leftTable.size() + rightTable.size();
+                            inc = (progressDiff - progress) / numRows;
+
+                            setMessage("Read", exec, pendingParts, currParts);
+                        } else {
+                            // We have now 2^32 partitions.
+                            // We can only keep going and hope that other nodes
+                            // may free some memory.
+                            LOGGER.warn("Memory is low. "
+                                + "I have no chance to free memory. This may "
+                                + "cause an endless loop.");
+                        }
+                    } else if (nonEmptyPartitions.size() < 1) {
+                        // We have only empty partitions.
+                        // Other node consume to much memory,
+                        // we cannot free more memory
                         LOGGER.warn("Memory is low. "
-                            + "I have no chance to free memory. This may "
-                            + "cause an endless loop.");
+                                + "I have no chance to free memory. This may "
+                                + "cause an endless loop.");
                     }
-                } else if (nonEmptyPartitions.size() < 1) {
-                    // We have only empty partitions.
-                    // Other node consume to much memory,
-                    // we cannot free more memory
-                    LOGGER.warn("Memory is low. "
-                            + "I have no chance to free memory. This may "
-                            + "cause an endless loop.");
                 }
             }
+            flushBatch(batch, leftTableHashed);
+            if (droppedRowsEnd > 0) {
+                spillDroppedRows(leftTable, droppedRowsEnd, spilledLeftRows,
+                        pendingParts, currParts, leftSpill, exec);
+            }
+        } finally {
+            leftSpill.close();
         }
 
         setMessage("Join", exec, pendingParts, currParts);
         // Join with outer table
-        joinInMemory(leftTableHashed, leftOuterJoins,
-                currParts, rightTable,
-                outputContainer,
-                exec, inc);
+        BufferedDataContainer rightSpill = createSpillContainer(rightTable, exec);
+        try {
+            joinInMemory(leftTableHashed, leftOuterJoins,
+                    pendingParts, currParts, rightTable,
+                    outputContainer, rightSpill,
+                    exec, inc);
+        } finally {
+            rightSpill.close();
+        }
 
 
         // Log which parts were successfully joined
         for (int part : currParts) {
             int numTuples = leftTableHashed.get(part) != null
-            ? leftTableHashed.get(part).values().size() : 0;
+            ? leftTableHashed.get(part).getNumKeys() : 0;
             LOGGER.debug("Joined " + part + " with "
                     + numTuples + " tuples.");
         }
@@ -789,10 +868,52 @@ private Collection<Integer> performJoin(
         leftTableHashed.clear();
         leftOuterJoins.clear();
 
+        // the spilled rows are the input of the next pass
+        setSources(leftSpill.getTable(), rightSpill.getTable(), exec);
+
         // return successfully joined parts
         return currParts;
     }
 
+    /**
+     * Spills the rows before the given position that were not spilled yet but
+     * belong to a partition that is pending and was dropped while reading.
+     */
+    private void spillDroppedRows(final BufferedDataTable leftTable,
+            final long end, final BitSet spilledRows,
+            final Collection<Integer> pendingParts,
+            final Collection<Integer> currParts,
+            final BufferedDataContainer spill,
+            final ExecutionContext exec) throws CanceledExecutionException {
+        LOGGER.debug("Spilling rows of dropped partitions (first " + end
+                + " rows of inner table)");
+        int counter = 0;
+        try (CloseableRowIterator iter =
+                leftTable.filter(TableFilter.filterRangeOfRows(0, end - 1))) {
+            while (iter.hasNext()) {
+                exec.checkCanceled();
+                DataRow row = iter.next();
+                int index = getIndex(row, counter);
+                counter++;
+                if (spilledRows.get(index)) {
+                    continue;
+                }
+                InputRow inputDataRow = new InputRow(row, index,
+                        InputRow.Settings.InDataPort.Left,
+                        m_inputDataRowSettings);
+                for (JoinTuple tuple : inputDataRow.getJoinTuples()) {
+                    int partition = tuple.hashCode() & m_bitMask;
+                    if (pendingParts.contains(partition)
+                            && !currParts.contains(partition)) {
+                        spill.addRowToTable(createSpillRow(row, index));
+                        spilledRows.set(index);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * @param exec
      * @param pendingParts
@@ -817,166 +938,148 @@ private void setMessage(final String activity,
      * the entries that are in the given part.
      */
     private void retainPartitions(
-            final Map<Integer, Map<JoinTuple, Set<Integer>>> innerHash,
-            final Map<Integer, Set<Integer>> innerIndexMap,
+            final Map<Integer, JoinTupleIndex> innerHash,
+            final Map<Integer, BitSet> innerIndexMap,
             final int part) {
         innerIndexMap.clear();
 
-        Map<JoinTuple, Set<Integer>> thisInnerHash = innerHash.get(part);
-        for (Iterator<JoinTuple> iter = thisInnerHash.keySet().iterator();
-        iter.hasNext();) {
-            JoinTuple tuple = iter.next();
-            int index = tuple.hashCode() & m_bitMask;
-            if (index != part) {
-                iter.remove();
-            } else if (m_retainLeft && !m_matchAny) {
-                Set<Integer> thisInnerIndexMap = innerIndexMap.get(index);
-                if (null == thisInnerIndexMap) {
-                    thisInnerIndexMap = new HashSet<Integer>();
-                    innerIndexMap.put(index, thisInnerIndexMap);
-                }
-                for (Integer rowIndex : thisInnerHash.get(tuple)) {
-                    thisInnerIndexMap.add(rowIndex);
-                }
-            }
+        JoinTupleIndex thisInnerHash = innerHash.get(part);
+        final int bitMask = m_bitMask;
+        thisInnerHash.retainKeys(hash -> (hash & bitMask) == part);
+        if (m_retainLeft && !m_matchAny) {
+            BitSet thisInnerIndexMap = new BitSet();
+            thisInnerHash.forEachRow(thisInnerIndexMap::set);
+            innerIndexMap.put(part, thisInnerIndexMap);
         }
     }
 
     /**
-     * Add a row to innerHash and innerIndexMap.
+     * Add a row to innerHash and innerIndexMap. The tuple is collected in the
+     * batch and inserted into the hash table when the batch is flushed.
      * @param partition The index of the partition.
      * @param joinTuple The join tuples of the row.
+     * @param hash The hash code of the join tuple.
      * @param row The row to be added.
      */
     private void addRow(
-            final Map <Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed,
-            final Map <Integer, Set<Integer>> leftOuterJoins,
-            final int partition, final JoinTuple joinTuple,
+            final Map<Integer, JoinTupleIndex> leftTableHashed,
+            final Map<Integer, BitSet> leftOuterJoins,
+            final BuildBatch batch,
+            final int partition, final JoinTuple joinTuple, final int hash,
             final InputRow row) {
         if (m_retainLeft  && !m_matchAny) {
-            Set<Integer> indices = leftOuterJoins.get(partition);
+            BitSet indices = leftOuterJoins.get(partition);
             if (null == indices) {
-                indices = new HashSet<Integer>();
+                indices = new BitSet();
                 leftOuterJoins.put(partition, indices);
             }
-            indices.add(row.getIndex());
+            indices.set(row.getIndex());
         }
 
-        Map<JoinTuple, Set<Integer>> partTuples =
-            leftTableHashed.get(partition);
-        if (null == partTuples) {
-            partTuples = new HashMap<JoinTuple, Set<Integer>>();
-            leftTableHashed.put(partition, partTuples);
+        if (null == leftTableHashed.get(partition)) {
+            leftTableHashed.put(partition, new JoinTupleIndex());
         }
+        batch.add(partition, joinTuple, hash, row.getIndex());
+    }
 
-
-        Set<Integer> c = partTuples.get(joinTuple);
-        if (null != c) {
-            c.add(row.getIndex());
-        } else {
-            Set<Integer> list = new HashSet<Integer>();
-            list.add(row.getIndex());
-            partTuples.put(joinTuple, list);
+    /**
+     * Inserts the collected tuples into the hash tables of their partitions.
+     * The partitions are distributed among the threads so that each hash
+     * table is modified by one thread only.
+     */
+    private void flushBatch(final BuildBatch batch,
+            final Map<Integer, JoinTupleIndex> leftTableHashed)
+            throws CanceledExecutionException {
+        if (batch.m_size == 0) {
+            return;
         }
-
-
+        final int numThreads = m_numThreads;
+        List<Future<?>> futures = new ArrayList<Future<?>>(numThreads);
+        try {
+            for (int t = 0; t < numThreads; t++) {
+                final int thread = t;
+                futures.add(getThreadPool().enqueue(() -> {
+                    for (int i = 0; i < batch.m_size; i++) {
+                        int partition = batch.m_partitions[i];
+                        if (Math.floorMod(partition, numThreads) == thread) {
+                            leftTableHashed.get(partition).add(
+                                batch.m_tuples[i], batch.m_hashes[i], batch.m_rows[i]);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                waitFor(f);
+            }
+        } finally {
+            futures.stream().forEach(f -> f.cancel(true));
+        }
+        batch.clear();
     }
 
 
     /**
      * Join given rows in memory and append joined row to the outputCont.
+     * The rows of the outer table are probed in parallel batches, the results
+     * are added to the output container in the order of the outer table.
      *
      * @param leftTableHashed Stores the rows of the left input table in parts.
      * @param leftOuterJoins The same number as found in leftTableHashed used
      * for left outer joins.
+     * @param pendingParts The parts that are not processed yet.
      * @param currParts The parts of the outer table that will be joined.
      * @param rightTable The outer table.
      * @param outputCont The joined rows will be added to this container.
+     * @param rightSpill Receives the rows of the outer table that need to be
+     * joined in a subsequent pass.
      * @param exec The {@link ExecutionContext}
      * @param incProgress The progress increment.
      * @throws CanceledExecutionException When execution is canceled
      */
     private void joinInMemory(
-            final Map <Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed,
-            final Map <Integer, Set<Integer>> leftOuterJoins,
+            final Map<Integer, JoinTupleIndex> leftTableHashed,
+            final Map<Integer, BitSet> leftOuterJoins,
+            final Collection<Integer> pendingParts,
             final Collection<Integer> currParts,
             final BufferedDataTable rightTable,
             final JoinContainer outputCont,
+            final BufferedDataContainer rightSpill,
             final ExecutionContext exec,
             final double incProgress) throws CanceledExecutionException {
         double progress = exec.getProgressMonitor().getProgress();
         int counter = 0;
-        for (DataRow dataRow : rightTable) {
-            progress += incProgress;
-            exec.getProgressMonitor().setProgress(progress);
-            exec.checkCanceled();
-
-            InputRow rightRow = new InputRow(dataRow, counter,
-                    InputRow.Settings.InDataPort.Right,
-                    m_inputDataRowSettings);
-
-            boolean matchFoundForRightRow = false;
-            boolean deferMatch = false;
-
-            for (JoinTuple joinTuple : rightRow.getJoinTuples()) {
-                int partition = joinTuple.hashCode() & m_bitMask;
-                if (!currParts.contains(partition)) {
-                    deferMatch = true;
-                    // skip and defer non-match when partition is not in the current partitions
-                    continue;
-                }
-
-                Map<JoinTuple, Set<Integer>> leftTuples =
-                    leftTableHashed.get(partition);
-                if (null == leftTuples) {
-                    // skip and check for outer join when the left table does not have rows that fall
-                    // in this partition
-                    deferMatch = false;
-                    continue;
-                }
-
-                Set<Integer> localLeftOuterJoins = null;
-                if (m_retainLeft  && !m_matchAny) {
-                    localLeftOuterJoins = leftOuterJoins.get(partition);
-                }
+        List<DataRow> rows = new ArrayList<DataRow>(BATCH_SIZE);
+        List<InputRow> rightRows = new ArrayList<InputRow>(BATCH_SIZE);
+        try (CloseableRowIterator rightIter = rightTable.iterator()) {
+            while (rightIter.hasNext()) {
+                progress += incProgress;
+                exec.getProgressMonitor().setProgress(progress);
+                exec.checkCanceled();
 
-                Set<Integer> leftRows = leftTuples.get(joinTuple);
-                if (null != leftRows) {
-                    matchFoundForRightRow = true;
-                    for (Integer leftRowIndex : leftRows) {
-                        // add inner join
-                        DataRow outRow = OutputRow.createDataRow(
-                                outputCont.getRowCount(),
-                                leftRowIndex, rightRow.getIndex(),
-                                dataRow,
-                                m_outputDataRowSettings);
-                        outputCont.addMatch(outRow, exec);
-                        if (m_retainLeft && !m_matchAny) {
-                            localLeftOuterJoins.remove(leftRowIndex);
-                        }
-                        if (m_retainLeft && m_matchAny) {
-                            m_globalLeftOuterJoins.remove(leftRowIndex);
-                        }
+                DataRow dataRow = rightIter.next();
+                rows.add(dataRow);
+                rightRows.add(new InputRow(dataRow, getIndex(dataRow, counter),
+                        InputRow.Settings.InDataPort.Right,
+                        m_inputDataRowSettings));
+                counter++;
+                if (rows.size() == BATCH_SIZE || !rightIter.hasNext()) {
+                    ProbeResult[] results = probe(rightRows, leftTableHashed,
+                            pendingParts, currParts);
+                    for (int i = 0; i < results.length; i++) {
+                        addProbeResult(rows.get(i), rightRows.get(i), results[i],
+                                leftOuterJoins, outputCont, rightSpill, exec);
                     }
+                    rows.clear();
+                    rightRows.clear();
                 }
             }
-
-
-            if (m_retainRight && !matchFoundForRightRow && !deferMatch) {
-                long outRowIndex = outputCont.getRowCount();
-                // add right outer join
-                DataRow outRow = OutputRow.createDataRow(outRowIndex,
-                        -1, rightRow.getIndex(),
-                        dataRow,
-                        m_outputDataRowSettings);
-                outputCont.addRightOuter(outRow, exec);
-            }
-            counter++;
         }
 
         if (m_retainLeft && !m_matchAny) {
             for (int partition : leftOuterJoins.keySet()) {
-                for (Integer row : leftOuterJoins.get(partition)) {
+                BitSet leftRows = leftOuterJoins.get(partition);
+                for (int row = leftRows.nextSetBit(0); row >= 0;
+                        row = leftRows.nextSetBit(row + 1)) {
                     // add left outer join
                     DataRow outRow = OutputRow.createDataRow(
                             outputCont.getRowCount(),
@@ -989,6 +1092,247 @@ private void joinInMemory(
 
     }
 
+    /**
+     * Probes the hash tables with the given rows of the outer table, the work
+     * is split among the threads.
+     */
+    private ProbeResult[] probe(final List<InputRow> rightRows,
+            final Map<Integer, JoinTupleIndex> leftTableHashed,
+            final Collection<Integer> pendingParts,
+            final Collection<Integer> currParts)
+            throws CanceledExecutionException {
+        final ProbeResult[] results = new ProbeResult[rightRows.size()];
+        final int sliceSize = (results.length + m_numThreads - 1) / m_numThreads;
+        List<Future<?>> futures = new ArrayList<Future<?>>(m_numThreads);
+        try {
+            for (int start = 0; start < results.length; start += sliceSize) {
+                final int from = start;
+                final int to = Math.min(start + sliceSize, results.length);
+                futures.add(getThreadPool().enqueue(() -> {
+                    for (int i = from; i < to; i++) {
+                        results[i] = probe(rightRows.get(i), leftTableHashed,
+                                pendingParts, currParts);
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                waitFor(f);
+            }
+        } finally {
+            futures.stream().forEach(f -> f.cancel(true));
+        }
+        return results;
+    }
+
+    /** Probes the hash tables with a single row, does not modify any state. */
+    private ProbeResult probe(final InputRow rightRow,
+            final Map<Integer, JoinTupleIndex> leftTableHashed,
+            final Collection<Integer> pendingParts,
+            final Collection<Integer> currParts) {
+        ProbeResult result = new ProbeResult();
+        for (JoinTuple joinTuple : rightRow.getJoinTuples()) {
+            int hash = joinTuple.hashCode();
+            int partition = hash & m_bitMask;
+            if (!currParts.contains(partition)) {
+                result.m_deferMatch = true;
+                // skip and defer non-match when partition is not in the current partitions
+                result.m_spill |= pendingParts.contains(partition);
+                continue;
+            }
+
+            JoinTupleIndex leftTuples = leftTableHashed.get(partition);
+            if (null == leftTuples) {
+                // skip and check for outer join when the left table does not have rows that fall
+                // in this partition
+                result.m_deferMatch = false;
+                continue;
+            }
+
+            for (int e = leftTuples.getFirst(joinTuple, hash);
+                    e != JoinTupleIndex.NO_ENTRY; e = leftTuples.next(e)) {
+                result.m_matchFound = true;
+                result.addMatch(leftTuples.getRow(e), partition);
+            }
+        }
+        return result;
+    }
+
+    /** Adds the matches and outer joins of a probed row to the output. */
+    private void addProbeResult(final DataRow dataRow, final InputRow rightRow,
+            final ProbeResult result,
+            final Map<Integer, BitSet> leftOuterJoins,
+            final JoinContainer outputCont,
+            final BufferedDataContainer rightSpill,
+            final ExecutionContext exec) throws CanceledExecutionException {
+        for (int i = 0; i < result.m_numMatches; i++) {
+            int leftRowIndex = result.m_leftRows[i];
+            // add inner join
+            DataRow outRow = OutputRow.createDataRow(
+                    outputCont.getRowCount(),
+                    leftRowIndex, rightRow.getIndex(),
+                    dataRow,
+                    m_outputDataRowSettings);
+            outputCont.addMatch(outRow, exec);
+            if (m_retainLeft && !m_matchAny) {
+                leftOuterJoins.get(result.m_partitions[i]).clear(leftRowIndex);
+            }
+            if (m_retainLeft && m_matchAny) {
+                m_globalLeftOuterJoins.clear(leftRowIndex);
+            }
+        }
+
+        if (m_retainRight && !result.m_matchFound && !result.m_deferMatch) {
+            long outRowIndex = outputCont.getRowCount();
+            // add right outer join
+            DataRow outRow = OutputRow.createDataRow(outRowIndex,
+                    -1, rightRow.getIndex(),
+                    dataRow,
+                    m_outputDataRowSettings);
+            outputCont.addRightOuter(outRow, exec);
+        }
+        if (result.m_spill) {
+            rightSpill.addRowToTable(
+                createSpillRow(dataRow, rightRow.getIndex()));
+        }
+    }
+
+    /**
+     * Sets the tables read in the next pass, clears the previous ones if they
+     * were spilled by this joiner.
+     */
+    private void setSources(final BufferedDataTable leftSource,
+            final BufferedDataTable rightSource,
+            final ExecutionContext exec) {
+        if (m_sourcesSpilled) {
+            exec.clearTable(m_leftSource);
+            exec.clearTable(m_rightSource);
+        }
+        m_leftSource = leftSource;
+        m_rightSource = rightSource;
+        m_sourcesSpilled = true;
+    }
+
+    /**
+     * @return the index of the row in the input table, which is either the
+     *         position of the row or stored in the last column if the row
+     *         was spilled.
+     */
+    private int getIndex(final DataRow row, final int position) {
+        if (m_sourcesSpilled) {
+            return ((IntValue)row.getCell(row.getNumCells() - 1)).getIntValue();
+        }
+        return position;
+    }
+
+    /** @return a container for rows of the given table, the row index is
+     * appended as last column (unless already present). */
+    private BufferedDataContainer createSpillContainer(
+            final BufferedDataTable table, final ExecutionContext exec) {
+        DataTableSpec spec = table.getDataTableSpec();
+        if (!m_sourcesSpilled) {
+            String name = DataTableSpec.getUniqueColumnName(spec, "Row index");
+            spec = new DataTableSpec(spec, new DataTableSpec(
+                new DataColumnSpecCreator(name, IntCell.TYPE).createSpec()));
+        }
+        return exec.createDataContainer(spec, false);
+    }
+
+    /** @return the row to spill, i.e. the row with the index appended (if
+     * not yet present). */
+    private DataRow createSpillRow(final DataRow row, final int index) {
+        if (m_sourcesSpilled) {
+            return row;
+        }
+        return new AppendedColumnRow(row, new IntCell(index));
+    }
+
+    /** @return the pool used for parallel build and probe, created lazily. */
+    private ThreadPool getThreadPool() {
+        if (m_threadPool == null) {
+            m_threadPool =
+                KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(m_numThreads);
+        }
+        return m_threadPool;
+    }
+
+    /** Waits for a task and unwraps its exception. */
+    private static void waitFor(final Future<?> future)
+            throws CanceledExecutionException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            CanceledExecutionException cee =
+                new CanceledExecutionException("Interrupted while joining");
+            cee.initCause(e);
+            throw cee;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /** Tuples of the inner table collected to be added to the hash tables. */
+    private static final class BuildBatch {
+        private int[] m_partitions = new int[BATCH_SIZE];
+        private JoinTuple[] m_tuples = new JoinTuple[BATCH_SIZE];
+        private int[] m_hashes = new int[BATCH_SIZE];
+        private int[] m_rows = new int[BATCH_SIZE];
+        private int m_size;
+
+        void add(final int partition, final JoinTuple tuple, final int hash,
+                final int row) {
+            if (m_size == m_rows.length) {
+                // rows with many join tuples (match any)
+                m_partitions = Arrays.copyOf(m_partitions, 2 * m_size);
+                m_tuples = Arrays.copyOf(m_tuples, 2 * m_size);
+                m_hashes = Arrays.copyOf(m_hashes, 2 * m_size);
+                m_rows = Arrays.copyOf(m_rows, 2 * m_size);
+            }
+            m_partitions[m_size] = partition;
+            m_tuples[m_size] = tuple;
+            m_hashes[m_size] = hash;
+            m_rows[m_size] = row;
+            m_size++;
+        }
+
+        boolean isFull() {
+            return m_size >= BATCH_SIZE;
+        }
+
+        void clear() {
+            Arrays.fill(m_tuples, 0, m_size, null);
+            m_size = 0;
+        }
+    }
+
+    /** The matches of a row of the outer table. */
+    private static final class ProbeResult {
+        private int[] m_leftRows = new int[0];
+        private int[] m_partitions = new int[0];
+        private int m_numMatches;
+        private boolean m_matchFound;
+        private boolean m_deferMatch;
+        private boolean m_spill;
+
+        void addMatch(final int leftRow, final int partition) {
+            if (m_numMatches == m_leftRows.length) {
+                int capacity = Math.max(4, 2 * m_numMatches);
+                m_leftRows = Arrays.copyOf(m_leftRows, capacity);
+                m_partitions = Arrays.copyOf(m_partitions, capacity);
+            }
+            m_leftRows[m_numMatches] = leftRow;
+            m_partitions[m_numMatches] = partition;
+            m_numMatches++;
+        }
+    }
+
     private List<Integer> getLeftJoinIndices(
             final BufferedDataTable leftTable) {
         // Create list of indices for the joining columns (Element of the list
@@ -1223,6 +1567,15 @@ void setRowsAddedBeforeOOM(final int maxRows) {
         m_rowsAddedBeforeForcedOOM = maxRows;
     }
 
+    /**
+     * Used for testing, only.
+     * @param numThreads number of threads used to build and probe partitions
+     */
+    void setNumThreads(final int numThreads) {
+        m_numThreads = numThreads;
+        m_threadPool = null;
+    }
+
     /**
      * Used for testing, only.
      * @param bits number of initial partitions will be 2^bits
@@ -52,7 +52,8 @@
 import org.knime.base.node.preproc.sample.StratifiedSamplingRowFilter;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
-import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.RowSelection;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
@@ -86,48 +87,33 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
         BufferedDataTable in = inData[0];
         BufferedDataTable[] outs = new BufferedDataTable[2];
         IRowFilter filter = getSamplingRowFilter(in, exec);
-        BufferedDataContainer firstOutCont =
-            exec.createDataContainer(in.getDataTableSpec());
-        BufferedDataContainer secondOutCont =
-            exec.createDataContainer(in.getDataTableSpec());
+        // both partitions reference the rows of the input table
+        final RowSelection selection = new RowSelection(in.size());
         final double rowCount = in.size(); // floating point op. below
-        // one of the flags will be set if one of the exceptions below
-        // is thrown.
-        boolean putRestInOut1 = false;
-        boolean putRestInOut2 = false;
-        try {
-            int count = 0;
-            for (DataRow row : in) {
-                boolean matches = putRestInOut1;
+        long count = 0;
+        try (CloseableRowIterator it = in.iterator()) {
+            while (it.hasNext()) {
+                final DataRow row = it.next();
                 try {
-                    // conditional check, will call "matches" only if necessary
-                    matches |= (!putRestInOut2
-                            && filter.matches(row, count));
+                    if (filter.matches(row, count)) {
+                        selection.select(count);
+                    }
                 } catch (IncludeFromNowOn icf) {
-                    assert !putRestInOut2;
-                    putRestInOut1 = true;
-                    matches = true;
+                    // all remaining rows go into the first partition
+                    selection.select(count, in.size() - 1);
+                    break;
                 } catch (EndOfTableException ete) {
-                    assert !putRestInOut1;
-                    putRestInOut2 = true;
-                    matches = false;
-                }
-                if (matches) {
-                    firstOutCont.addRowToTable(row);
-                } else {
-                    secondOutCont.addRowToTable(row);
+                    // all remaining rows go into the second partition
+                    break;
                 }
                 exec.setProgress(count / rowCount, "Processed row " + count
                         + " (\"" + row.getKey() + "\")");
                 exec.checkCanceled();
                 count++;
             }
-        } finally {
-            firstOutCont.close();
-            secondOutCont.close();
         }
-        outs[0] = firstOutCont.getTable();
-        outs[1] = secondOutCont.getTable();
+        outs[0] = exec.createRowSelectionTable(in, selection);
+        outs[1] = exec.createRowSelectionTable(in, selection.invert());
         if (filter instanceof StratifiedSamplingRowFilter) {
             int classCount =
                 ((StratifiedSamplingRowFilter)filter).getClassCount();
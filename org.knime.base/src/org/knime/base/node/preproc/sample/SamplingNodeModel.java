@@ -45,11 +45,13 @@
  */
 package org.knime.base.node.preproc.sample;
 
-import org.knime.base.node.preproc.filter.row.RowFilterIterator;
+import org.knime.base.node.preproc.filter.row.rowfilter.EndOfTableException;
 import org.knime.base.node.preproc.filter.row.rowfilter.IRowFilter;
+import org.knime.base.node.preproc.filter.row.rowfilter.IncludeFromNowOn;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
-import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.RowSelection;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.InvalidSettingsException;
@@ -80,24 +82,33 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
         // This is done only if "in" does not support getRowCount().
         // But the argument in the execute method surely does!
         IRowFilter filter = getSamplingRowFilter(in, exec);
-        BufferedDataContainer container = exec.createDataContainer(in
-                .getDataTableSpec());
-        try {
-            int count = 0;
-            RowFilterIterator it = new RowFilterIterator(in, filter, exec);
+        // the sample references the rows of the input table
+        final RowSelection selection = new RowSelection(in.size());
+        final double rowCount = in.size(); // floating point op. below
+        long count = 0;
+        try (CloseableRowIterator it = in.iterator()) {
             while (it.hasNext()) {
-                DataRow row = it.next();
-                exec.setMessage("Adding row " + count + " (\"" + row.getKey()
-                        + "\")");
+                final DataRow row = it.next();
+                exec.checkCanceled();
+                exec.setProgress(count / rowCount);
+                try {
+                    if (filter.matches(row, count)) {
+                        exec.setMessage("Adding row " + selection.getSelectedCount()
+                                + " (\"" + row.getKey() + "\")");
+                        selection.select(count);
+                    }
+                } catch (IncludeFromNowOn icf) {
+                    // all remaining rows are included
+                    selection.select(count, in.size() - 1);
+                    break;
+                } catch (EndOfTableException ete) {
+                    // no more matching rows
+                    break;
+                }
                 count++;
-                container.addRowToTable(row);
             }
-        } catch (RowFilterIterator.RuntimeCanceledExecutionException rce) {
-            throw rce.getCause();
-        } finally {
-            container.close();
         }
-        BufferedDataTable out = container.getTable();
+        BufferedDataTable out = exec.createRowSelectionTable(in, selection);
         if (filter instanceof StratifiedSamplingRowFilter) {
             int classCount =
                     ((StratifiedSamplingRowFilter)filter).getClassCount();
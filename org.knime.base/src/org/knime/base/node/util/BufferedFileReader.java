@@ -351,6 +351,52 @@ public int read(final char[] cbuf, final int off, final int len)
         }
     }
 
+    /**
+     * Reads a block of characters without splitting them into lines first. Any
+     * characters remaining from the current line are returned first, the rest
+     * is read in bulk from the underlying reader. Intended for readers that
+     * scan the input in large blocks - the current line and line number are
+     * not maintained for characters read through this method.
+     *
+     * @param cbuf the destination buffer
+     * @param off offset at which to start storing characters
+     * @param len maximum number of characters to read
+     * @return the number of characters read, or -1 if the end of the stream
+     *         has been reached
+     * @throws IOException if an I/O error occurs or the stream was closed
+     * @since 3.6
+     */
+    public int readBlock(final char[] cbuf, final int off, final int len)
+            throws IOException {
+        synchronized (lock) {
+            checkOpen();
+            if ((off < 0) || (len < 0) || (off + len > cbuf.length)) {
+                throw new IndexOutOfBoundsException();
+            } else if (len == 0) {
+                return 0;
+            }
+            if (m_next == -1) {
+                return -1;
+            }
+            if (m_next < m_length) {
+                // drain what's left of the current line
+                int count = Math.min(len, m_length - m_next);
+                m_currentLine.getChars(m_next, m_next + count, cbuf, off);
+                m_next += count;
+                return count;
+            }
+            int count = super.read(cbuf, off, len);
+            if (count == -1) {
+                if (m_zippedSource != null) {
+                    m_hasMoreEntries = m_zippedSource.getNextEntry() != null;
+                }
+                m_length = -1;
+                m_next = -1;
+            }
+            return count;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -660,6 +706,37 @@ public static BufferedFileReader createNewReader(final InputStream in) {
 
     }
 
+    /**
+     * Same as the method above ({@link #createNewReader(InputStream)}), but
+     * decoding the stream with the specified character set.
+     *
+     * @param in the stream to read from
+     * @param charsetName the character set to use, or <code>null</code> to use
+     *            the default character set of the VM
+     * @return a new buffered reader without a file size
+     * @throws java.nio.charset.IllegalCharsetNameException If the given charset
+     *             name is illegal
+     * @throws java.nio.charset.UnsupportedCharsetException If no support for
+     *             the named charset is available in this instance of the Java
+     *             virtual machine
+     * @since 3.6
+     */
+    public static BufferedFileReader createNewReader(final InputStream in,
+            final String charsetName) {
+        if (in == null) {
+            throw new NullPointerException("Can't open a reader on a null "
+                    + "input stream");
+        }
+        Charset cs = Charset.defaultCharset();
+        if (charsetName != null) {
+            cs = Charset.forName(charsetName);
+        }
+        ByteCountingStream sourceStream = new ByteCountingStream(in);
+        InputStreamReader readerStream = new InputStreamReader(sourceStream, cs);
+
+        return new BufferedFileReader(readerStream, sourceStream, 0);
+    }
+
     private void setZipEntryName(final String name) {
         m_zipEntryName = name;
     }
@@ -0,0 +1,163 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.ExecutionContext;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Common parameters and fixture of the benchmarks that run on a synthetic input table. The table is described by the
+ * parameters {@link #typeMix}, {@link #width}, {@link #length} and {@link #cardinality}, see {@link BenchmarkData}.
+ * All of them can be overridden on the command line, e.g. <code>-p width=50 -p typeMix=ddds</code>.
+ *
+ * <p>
+ * Every invocation of a benchmark method processes the whole table, results are reported as average time per
+ * invocation. Tables created by the benchmark methods should be released with {@link #clear(BufferedDataTable)} to
+ * keep the temp directory from growing during long runs.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xmx2g"})
+public abstract class AbstractTableBenchmark {
+
+    /** Column types of the input table, see {@link BenchmarkData}. */
+    @Param({"idsl"})
+    String typeMix;
+
+    /** Number of columns of the input table. */
+    @Param({"10"})
+    int width;
+
+    /** Number of rows of the input table. */
+    @Param({"100000"})
+    int length;
+
+    /** Number of distinct int, long and string values per column. */
+    @Param({"1000"})
+    int cardinality;
+
+    /** The context used to create all tables, initialized in {@link #setUpTable()}. */
+    ExecutionContext m_exec;
+
+    /** The input table, initialized in {@link #setUpTable()}. */
+    BufferedDataTable m_table;
+
+    /**
+     * Creates the execution context and the input table.
+     *
+     * @throws Exception if {@link #setUpFixture()} fails
+     */
+    @Setup(Level.Trial)
+    public final void setUpTable() throws Exception {
+        beforeTableCreation();
+        m_exec = BenchmarkData.createExecutionContext();
+        m_table = BenchmarkData.createTable(m_exec, typeMix, width, length, cardinality, BenchmarkData.DEFAULT_SEED);
+        setUpFixture();
+    }
+
+    /**
+     * Called before any KNIME table is created in the forked VM. Subclasses override this to set system properties
+     * that are read once when the table classes are initialized. The default implementation does nothing.
+     */
+    protected void beforeTableCreation() {
+    }
+
+    /**
+     * Called once per trial after the input table has been created. Subclasses prepare further state here rather
+     * than in their own {@link Setup} methods, which keeps the order of initialization explicit. The default
+     * implementation does nothing.
+     *
+     * @throws Exception if the fixture cannot be created
+     */
+    protected void setUpFixture() throws Exception {
+    }
+
+    /**
+     * Called once per trial before the input table is disposed. The default implementation does nothing.
+     */
+    protected void tearDownFixture() {
+    }
+
+    /**
+     * Disposes the input table.
+     */
+    @TearDown(Level.Trial)
+    public final void tearDownTable() {
+        tearDownFixture();
+        clear(m_table);
+        m_table = null;
+    }
+
+    /**
+     * Disposes a table created by a benchmark method.
+     *
+     * @param table the table, may be <code>null</code>
+     */
+    final void clear(final BufferedDataTable table) {
+        if (table != null) {
+            m_exec.clearTable(table);
+        }
+    }
+}
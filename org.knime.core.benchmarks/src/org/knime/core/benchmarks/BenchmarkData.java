@@ -0,0 +1,270 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.benchmarks;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Creates the synthetic tables the benchmarks run on.
+ *
+ * <p>
+ * A table is described by its width, its length and a <i>type mix</i>, a string with one character per column type.
+ * The column types are assigned round robin, i.e. a mix of <code>"ids"</code> and a width of 5 results in the column
+ * types int, double, string, int, double. The characters are:
+ * <ul>
+ * <li><code>i</code> - {@link IntCell}</li>
+ * <li><code>l</code> - {@link LongCell}</li>
+ * <li><code>d</code> - {@link DoubleCell}</li>
+ * <li><code>s</code> - {@link StringCell}</li>
+ * <li><code>b</code> - {@link BooleanCell}</li>
+ * </ul>
+ * Int, long and string values are drawn from <code>cardinality</code> distinct values so that the first column can be
+ * used as group or join column. Doubles are uniformly distributed, booleans are fair coin flips. All content is derived
+ * from a seed, hence the same parameters always produce the same table.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class BenchmarkData {
+
+    /** The default seed for the generated data. */
+    public static final long DEFAULT_SEED = 20180601L;
+
+    /** Missing ratio of the tables created by {@link #createRows(DataTableSpec, int, int, long)}. */
+    private static final double NO_MISSINGS = 0.0;
+
+    private BenchmarkData() {
+        // utility class
+    }
+
+    /**
+     * Creates the spec of a synthetic table.
+     *
+     * @param typeMix the type mix, see class description
+     * @param width the number of columns
+     * @return the spec
+     * @throws IllegalArgumentException if the type mix is empty or contains an unknown character
+     */
+    public static DataTableSpec createSpec(final String typeMix, final int width) {
+        if (typeMix == null || typeMix.isEmpty()) {
+            throw new IllegalArgumentException("Type mix must not be empty");
+        }
+        if (width <= 0) {
+            throw new IllegalArgumentException("Width must be positive: " + width);
+        }
+        DataColumnSpec[] colSpecs = new DataColumnSpec[width];
+        for (int i = 0; i < width; i++) {
+            char t = typeMix.charAt(i % typeMix.length());
+            colSpecs[i] = new DataColumnSpecCreator("col" + i + "_" + t, toType(t)).createSpec();
+        }
+        return new DataTableSpec(colSpecs);
+    }
+
+    private static DataType toType(final char t) {
+        switch (t) {
+            case 'i':
+                return IntCell.TYPE;
+            case 'l':
+                return LongCell.TYPE;
+            case 'd':
+                return DoubleCell.TYPE;
+            case 's':
+                return StringCell.TYPE;
+            case 'b':
+                return BooleanCell.TYPE;
+            default:
+                throw new IllegalArgumentException("Unknown type character '" + t + "' in type mix");
+        }
+    }
+
+    /**
+     * Creates the rows of a synthetic table in memory.
+     *
+     * @param spec the spec as created by {@link #createSpec(String, int)}
+     * @param length the number of rows
+     * @param cardinality the number of distinct int, long and string values per column
+     * @param seed the seed for the content
+     * @return the rows
+     */
+    public static DataRow[] createRows(final DataTableSpec spec, final int length, final int cardinality,
+        final long seed) {
+        return createRows(spec, length, cardinality, seed, NO_MISSINGS);
+    }
+
+    /**
+     * Creates the rows of a synthetic table in memory.
+     *
+     * @param spec the spec as created by {@link #createSpec(String, int)}
+     * @param length the number of rows
+     * @param cardinality the number of distinct int, long and string values per column
+     * @param seed the seed for the content
+     * @param missingRatio the probability of a cell to be missing
+     * @return the rows
+     */
+    public static DataRow[] createRows(final DataTableSpec spec, final int length, final int cardinality,
+        final long seed, final double missingRatio) {
+        if (cardinality <= 0) {
+            throw new IllegalArgumentException("Cardinality must be positive: " + cardinality);
+        }
+        final Random rand = new Random(seed);
+        final int width = spec.getNumColumns();
+        final DataType[] types = new DataType[width];
+        for (int c = 0; c < width; c++) {
+            types[c] = spec.getColumnSpec(c).getType();
+        }
+        // strings are shared between rows just like a reader would intern a small domain
+        final StringCell[] strings = new StringCell[Math.min(cardinality, 1 << 16)];
+        DataRow[] rows = new DataRow[length];
+        for (int r = 0; r < length; r++) {
+            DataCell[] cells = new DataCell[width];
+            for (int c = 0; c < width; c++) {
+                if (missingRatio > 0.0 && rand.nextDouble() < missingRatio) {
+                    cells[c] = DataType.getMissingCell();
+                } else {
+                    cells[c] = createCell(types[c], rand, cardinality, strings);
+                }
+            }
+            rows[r] = new DefaultRow(RowKey.createRowKey(r), cells);
+        }
+        return rows;
+    }
+
+    private static DataCell createCell(final DataType type, final Random rand, final int cardinality,
+        final StringCell[] strings) {
+        if (type.equals(IntCell.TYPE)) {
+            return new IntCell(rand.nextInt(cardinality));
+        } else if (type.equals(LongCell.TYPE)) {
+            return new LongCell(rand.nextInt(cardinality) * 31L);
+        } else if (type.equals(DoubleCell.TYPE)) {
+            return new DoubleCell(rand.nextDouble());
+        } else if (type.equals(BooleanCell.TYPE)) {
+            return BooleanCell.get(rand.nextBoolean());
+        } else {
+            int v = rand.nextInt(cardinality);
+            if (v < strings.length) {
+                if (strings[v] == null) {
+                    strings[v] = new StringCell("value_" + v);
+                }
+                return strings[v];
+            }
+            return new StringCell("value_" + v);
+        }
+    }
+
+    /**
+     * Writes the rows into a new table.
+     *
+     * @param exec the context to create the table with
+     * @param spec the table spec
+     * @param rows the rows
+     * @return the table
+     */
+    public static BufferedDataTable createTable(final ExecutionContext exec, final DataTableSpec spec,
+        final DataRow[] rows) {
+        BufferedDataContainer cont = exec.createDataContainer(spec);
+        for (DataRow row : rows) {
+            cont.addRowToTable(row);
+        }
+        cont.close();
+        return cont.getTable();
+    }
+
+    /**
+     * Creates a synthetic table.
+     *
+     * @param exec the context to create the table with
+     * @param typeMix the type mix, see class description
+     * @param width the number of columns
+     * @param length the number of rows
+     * @param cardinality the number of distinct int, long and string values per column
+     * @param seed the seed for the content
+     * @return the table
+     */
+    public static BufferedDataTable createTable(final ExecutionContext exec, final String typeMix, final int width,
+        final int length, final int cardinality, final long seed) {
+        DataTableSpec spec = createSpec(typeMix, width);
+        return createTable(exec, spec, createRows(spec, length, cardinality, seed));
+    }
+
+    /**
+     * Creates an execution context that is not attached to a workflow. Tables are cached on disc, just as in the
+     * default memory policy of a node.
+     *
+     * @return a new execution context
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static ExecutionContext createExecutionContext() {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        return new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+    }
+}
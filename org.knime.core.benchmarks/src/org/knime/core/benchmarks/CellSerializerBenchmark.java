@@ -0,0 +1,234 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
+import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.DataTypeRegistry;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.ComplexNumberCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.FuzzyIntervalCell;
+import org.knime.core.data.def.FuzzyNumberCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.IntervalCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.def.TimestampCell;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the {@link DataCellSerializer} of every cell in <code>org.knime.core.data.def</code>. Each invocation
+ * writes (or reads) a batch of {@value #BATCH_SIZE} random cells of one type to (or from) a byte array, results are
+ * reported per cell. The serializers are looked up through the {@link DataTypeRegistry}, just as the table buffers
+ * do.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CellSerializerBenchmark {
+
+    /** Number of cells written or read per invocation. */
+    static final int BATCH_SIZE = 1024;
+
+    /** Simple class name of the cell class, all classes in <code>org.knime.core.data.def</code>. */
+    @Param({"BooleanCell", "ComplexNumberCell", "DoubleCell", "FuzzyIntervalCell", "FuzzyNumberCell", "IntCell",
+        "IntervalCell", "LongCell", "StringCell", "TimestampCell"})
+    String cellType;
+
+    private DataCell[] m_cells;
+
+    private DataCellSerializer<DataCell> m_serializer;
+
+    private ByteArrayOutputStream m_bytes;
+
+    private BenchmarkDataOutput m_output;
+
+    private byte[] m_serialized;
+
+    /**
+     * Creates the cells and serializes them once for the deserialization benchmark.
+     *
+     * @throws IOException if the serialization fails
+     */
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() throws IOException {
+        Random rand = new Random(BenchmarkData.DEFAULT_SEED);
+        m_cells = new DataCell[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            m_cells[i] = createCell(cellType, rand);
+        }
+        Class<? extends DataCell> cellClass = m_cells[0].getClass();
+        m_serializer = (DataCellSerializer<DataCell>)DataTypeRegistry.getInstance().getSerializer(cellClass)
+            .orElseThrow(() -> new IllegalStateException("No serializer for " + cellClass.getName()));
+        m_bytes = new ByteArrayOutputStream(BATCH_SIZE * 64);
+        m_output = new BenchmarkDataOutput(m_bytes);
+        writeCells();
+        m_serialized = m_bytes.toByteArray();
+    }
+
+    private static DataCell createCell(final String cellType, final Random rand) {
+        double d = rand.nextDouble() * 1000.0;
+        switch (cellType) {
+            case "BooleanCell":
+                return BooleanCell.get(rand.nextBoolean());
+            case "ComplexNumberCell":
+                return new ComplexNumberCell(d, rand.nextDouble());
+            case "DoubleCell":
+                return new DoubleCell(d);
+            case "FuzzyIntervalCell":
+                return new FuzzyIntervalCell(d, d + 1.0, d + 2.0, d + 3.0);
+            case "FuzzyNumberCell":
+                return new FuzzyNumberCell(d, d + 1.0, d + 2.0);
+            case "IntCell":
+                return new IntCell(rand.nextInt());
+            case "IntervalCell":
+                return new IntervalCell(d, d + rand.nextDouble(), rand.nextBoolean(), rand.nextBoolean());
+            case "LongCell":
+                return new LongCell(rand.nextLong());
+            case "StringCell":
+                return new StringCell("value_" + rand.nextInt(100000));
+            case "TimestampCell":
+                return new TimestampCell(new Date(rand.nextLong() >>> 24));
+            default:
+                throw new IllegalArgumentException("Unknown cell type: " + cellType);
+        }
+    }
+
+    private void writeCells() throws IOException {
+        m_bytes.reset();
+        for (DataCell cell : m_cells) {
+            m_serializer.serialize(cell, m_output);
+        }
+        m_output.flush();
+    }
+
+    /**
+     * Serializes a batch of cells.
+     *
+     * @return the number of bytes written
+     * @throws IOException not thrown
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int serialize() throws IOException {
+        writeCells();
+        return m_bytes.size();
+    }
+
+    /**
+     * Deserializes a batch of cells.
+     *
+     * @param bh consumes the cells
+     * @throws IOException not thrown
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void deserialize(final Blackhole bh) throws IOException {
+        BenchmarkDataInput input = new BenchmarkDataInput(new ByteArrayInputStream(m_serialized));
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            bh.consume(m_serializer.deserialize(input));
+        }
+    }
+
+    /** Plain data output; the cells in <code>org.knime.core.data.def</code> don't contain other cells. */
+    private static final class BenchmarkDataOutput extends DataOutputStream implements DataCellDataOutput {
+
+        BenchmarkDataOutput(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void writeDataCell(final DataCell cell) throws IOException {
+            throw new UnsupportedOperationException("Nested cells are not supported");
+        }
+    }
+
+    /** Plain data input, counterpart of {@link BenchmarkDataOutput}. */
+    private static final class BenchmarkDataInput extends DataInputStream implements DataCellDataInput {
+
+        BenchmarkDataInput(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public DataCell readDataCell() throws IOException {
+            throw new UnsupportedOperationException("Nested cells are not supported");
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.benchmarks;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.container.AbstractCellFactory;
+import org.knime.core.data.container.ColumnRearranger;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures {@link org.knime.core.node.ExecutionContext#createColumnRearrangeTable(BufferedDataTable,
+ * ColumnRearranger, org.knime.core.node.ExecutionMonitor)} with a cell factory that appends two columns computed
+ * from all cells of a row. The factory runs sequentially or concurrently; the CPU cost per row can be raised with
+ * {@link #workPerRow} to see when concurrent processing starts to pay off.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ColumnRearrangerBenchmark extends AbstractTableBenchmark {
+
+    /** Whether the cell factory processes rows concurrently. */
+    @Param({"false", "true"})
+    boolean parallel;
+
+    /** Number of additional floating point iterations per row. */
+    @Param({"0", "1000"})
+    int workPerRow;
+
+    private BufferedDataTable m_result;
+
+    /**
+     * Disposes the table created by the last invocation.
+     */
+    @TearDown(Level.Invocation)
+    public void tearDownResult() {
+        clear(m_result);
+        m_result = null;
+    }
+
+    /**
+     * Appends the computed columns to the input table.
+     *
+     * @return the new table
+     * @throws CanceledExecutionException not thrown
+     */
+    @Benchmark
+    public BufferedDataTable appendColumns() throws CanceledExecutionException {
+        ColumnRearranger rearranger = new ColumnRearranger(m_table.getDataTableSpec());
+        rearranger.append(new RowStatisticsCellFactory(parallel, workPerRow));
+        m_result = m_exec.createColumnRearrangeTable(m_table, rearranger, m_exec);
+        return m_result;
+    }
+
+    /** Appends the sum of all numerical cells and the summed hash code of all other cells. */
+    private static final class RowStatisticsCellFactory extends AbstractCellFactory {
+
+        private final int m_workPerRow;
+
+        RowStatisticsCellFactory(final boolean parallel, final int workPerRow) {
+            super(parallel, new DataColumnSpecCreator("benchmark_sum", DoubleCell.TYPE).createSpec(),
+                new DataColumnSpecCreator("benchmark_hash", IntCell.TYPE).createSpec());
+            m_workPerRow = workPerRow;
+        }
+
+        @Override
+        public DataCell[] getCells(final DataRow row) {
+            double sum = 0.0;
+            int hash = 0;
+            for (DataCell cell : row) {
+                if (cell.isMissing()) {
+                    continue;
+                }
+                if (cell instanceof DoubleValue) {
+                    sum += ((DoubleValue)cell).getDoubleValue();
+                } else {
+                    hash += cell.hashCode();
+                }
+            }
+            double x = sum;
+            for (int i = 0; i < m_workPerRow; i++) {
+                x = Math.sin(x) + sum;
+            }
+            return new DataCell[]{Double.isNaN(x) ? DataType.getMissingCell() : new DoubleCell(x), new IntCell(hash)};
+        }
+    }
+}
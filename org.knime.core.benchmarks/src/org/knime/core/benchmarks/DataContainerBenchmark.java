@@ -0,0 +1,154 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.benchmarks;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.KNIMEConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures writing rows through {@link BufferedDataContainer#addRowToTable(DataRow)} into a disc-backed buffer and
+ * reading them back, with and without gzip compression of the table stream.
+ *
+ * <p>
+ * The compression is a VM-wide setting ({@link KNIMEConstants#PROPERTY_TABLE_GZIP_COMPRESSION}) that is read once. It
+ * is set before the first table is created, which works because JMH runs each parameter combination in a fresh fork;
+ * running this benchmark with <code>-f 0</code> measures whatever the first trial set.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DataContainerBenchmark extends AbstractTableBenchmark {
+
+    /** Whether the table stream is gzip compressed. */
+    @Param({"true", "false"})
+    boolean gzip;
+
+    private DataTableSpec m_spec;
+
+    private DataRow[] m_rows;
+
+    private BufferedDataTable m_diskTable;
+
+    private BufferedDataTable m_written;
+
+    @Override
+    protected void beforeTableCreation() {
+        System.setProperty(KNIMEConstants.PROPERTY_TABLE_GZIP_COMPRESSION, Boolean.toString(gzip));
+    }
+
+    /**
+     * Creates the rows to write and a table that is entirely on disc to read from.
+     */
+    @Override
+    protected void setUpFixture() {
+        m_spec = m_table.getDataTableSpec();
+        m_rows = BenchmarkData.createRows(m_spec, length, cardinality, BenchmarkData.DEFAULT_SEED);
+        m_diskTable = write();
+    }
+
+    @Override
+    protected void tearDownFixture() {
+        clear(m_diskTable);
+        m_diskTable = null;
+        m_rows = null;
+    }
+
+    /**
+     * Disposes the table written by the last invocation of {@link #addRowToTable()}.
+     */
+    @TearDown(Level.Invocation)
+    public void tearDownWritten() {
+        clear(m_written);
+        m_written = null;
+    }
+
+    private BufferedDataTable write() {
+        // no cells are kept in memory, every row goes through the (compressed) output stream
+        BufferedDataContainer cont = m_exec.createDataContainer(m_spec, true, 0);
+        for (DataRow row : m_rows) {
+            cont.addRowToTable(row);
+        }
+        cont.close();
+        return cont.getTable();
+    }
+
+    /**
+     * Writes all rows, including domain calculation and closing of the stream.
+     *
+     * @return the written table
+     */
+    @Benchmark
+    public BufferedDataTable addRowToTable() {
+        m_written = write();
+        return m_written;
+    }
+
+    /**
+     * Reads all cells of a table that is stored on disc.
+     *
+     * @param bh consumes the cells
+     */
+    @Benchmark
+    public void readTable(final Blackhole bh) {
+        try (CloseableRowIterator it = m_diskTable.iterator()) {
+            while (it.hasNext()) {
+                DataRow row = it.next();
+                for (DataCell cell : row) {
+                    bh.consume(cell);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.knime.base.data.aggregation.AggregationMethod;
+import org.knime.base.data.aggregation.ColumnAggregator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.base.data.aggregation.GlobalSettings.AggregationContext;
+import org.knime.base.data.aggregation.OperatorColumnSettings;
+import org.knime.base.data.aggregation.general.FirstOperator;
+import org.knime.base.data.aggregation.numerical.MeanOperator;
+import org.knime.base.data.aggregation.numerical.MedianOperator;
+import org.knime.base.node.preproc.groupby.BigGroupByTable;
+import org.knime.base.node.preproc.groupby.ColumnNamePolicy;
+import org.knime.base.node.preproc.groupby.GroupByTable;
+import org.knime.base.node.preproc.groupby.HashGroupByTable;
+import org.knime.base.node.preproc.groupby.MemoryGroupByTable;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the {@link GroupByTable} implementations. The input table is grouped by its first column; all other
+ * columns are aggregated, numerical ones with the mean (or the median) and all others with the first value. The
+ * number of groups is controlled by the <code>cardinality</code> parameter.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class GroupByBenchmark extends AbstractTableBenchmark {
+
+    /** The implementation: <code>memory</code>, <code>sort</code> or <code>hash</code>. */
+    @Param({"memory", "sort", "hash"})
+    String engine;
+
+    /**
+     * The aggregation of numerical columns: <code>mean</code>, which supports merging of partial results, or
+     * <code>median</code>, which does not.
+     */
+    @Param({"mean", "median"})
+    String numericMethod;
+
+    /** Whether the input order is retained. */
+    @Param({"false"})
+    boolean retainOrder;
+
+    private List<String> m_groupCols;
+
+    private ColumnAggregator[] m_aggregators;
+
+    private GlobalSettings m_globalSettings;
+
+    private BufferedDataTable m_grouped;
+
+    @Override
+    protected void setUpFixture() {
+        DataTableSpec spec = m_table.getDataTableSpec();
+        m_groupCols = new ArrayList<>(1);
+        m_groupCols.add(spec.getColumnSpec(0).getName());
+        m_globalSettings = GlobalSettings.builder()
+                .setGroupColNames(m_groupCols)
+                .setMaxUniqueValues(10000)
+                .setValueDelimiter(", ")
+                .setDataTableSpec(spec)
+                .setNoOfRows(m_table.size())
+                .setAggregationContext(AggregationContext.ROW_AGGREGATION).build();
+        final OperatorColumnSettings opColSettings = new OperatorColumnSettings(false, null);
+        m_aggregators = new ColumnAggregator[spec.getNumColumns() - 1];
+        for (int i = 1; i < spec.getNumColumns(); i++) {
+            DataColumnSpec colSpec = spec.getColumnSpec(i);
+            final AggregationMethod method;
+            if (colSpec.getType().isCompatible(DoubleValue.class)) {
+                method = "median".equals(numericMethod) ? new MedianOperator(m_globalSettings, opColSettings)
+                    : new MeanOperator(m_globalSettings, opColSettings);
+            } else {
+                method = new FirstOperator(m_globalSettings, opColSettings);
+            }
+            m_aggregators[i - 1] = new ColumnAggregator(colSpec, method);
+        }
+    }
+
+    /**
+     * Disposes the table grouped by the last invocation.
+     */
+    @TearDown(Level.Invocation)
+    public void tearDownGrouped() {
+        clear(m_grouped);
+        m_grouped = null;
+    }
+
+    /**
+     * Groups the input table.
+     *
+     * @return the grouped table
+     * @throws CanceledExecutionException not thrown
+     */
+    @Benchmark
+    public BufferedDataTable groupBy() throws CanceledExecutionException {
+        final GroupByTable table;
+        switch (engine) {
+            case "memory":
+                table = new MemoryGroupByTable(m_exec, m_table, m_groupCols, m_aggregators, m_globalSettings, false,
+                    ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME, retainOrder);
+                break;
+            case "sort":
+                table = new BigGroupByTable(m_exec, m_table, m_groupCols, m_aggregators, m_globalSettings, false,
+                    ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME, retainOrder);
+                break;
+            case "hash":
+                table = new HashGroupByTable(m_exec, m_table, m_groupCols, m_aggregators, m_globalSettings, false,
+                    ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME, retainOrder);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown group by engine: " + engine);
+        }
+        m_grouped = table.getBufferedTable();
+        return m_grouped;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.benchmarks;
+
+import org.knime.base.node.preproc.joiner.Joiner;
+import org.knime.base.node.preproc.joiner.Joiner2Settings;
+import org.knime.base.node.preproc.joiner.Joiner2Settings.JoinMode;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.InvalidSettingsException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures {@link Joiner#computeJoinTable(BufferedDataTable, BufferedDataTable, org.knime.core.node.ExecutionContext)}
+ * on the first column of two synthetic tables. The left table is the input table of {@link AbstractTableBenchmark},
+ * the right table has the same type mix and width but {@link #rightRatio} times as many rows and a different seed.
+ * With the default cardinality every key matches several rows on each side.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class JoinerBenchmark extends AbstractTableBenchmark {
+
+    /** The join mode, one of the constants in {@link JoinMode}. */
+    @Param({"InnerJoin", "FullOuterJoin"})
+    String joinMode;
+
+    /** Length of the right table relative to the left table. */
+    @Param({"0.1", "1"})
+    double rightRatio;
+
+    private BufferedDataTable m_right;
+
+    private Joiner2Settings m_settings;
+
+    private BufferedDataTable m_joined;
+
+    @Override
+    protected void setUpFixture() {
+        int rightLength = Math.max(1, (int)(length * rightRatio));
+        m_right = BenchmarkData.createTable(m_exec, typeMix, width, rightLength, cardinality,
+            BenchmarkData.DEFAULT_SEED + 1);
+        DataTableSpec spec = m_table.getDataTableSpec();
+        String keyColumn = spec.getColumnSpec(0).getName();
+        m_settings = new Joiner2Settings();
+        m_settings.setJoinMode(JoinMode.valueOf(joinMode));
+        m_settings.setLeftJoinColumns(new String[]{keyColumn});
+        m_settings.setRightJoinColumns(new String[]{keyColumn});
+    }
+
+    @Override
+    protected void tearDownFixture() {
+        clear(m_right);
+        m_right = null;
+    }
+
+    /**
+     * Disposes the table joined by the last invocation.
+     */
+    @TearDown(Level.Invocation)
+    public void tearDownJoined() {
+        clear(m_joined);
+        m_joined = null;
+    }
+
+    /**
+     * Joins the two tables.
+     *
+     * @return the joined table
+     * @throws CanceledExecutionException not thrown
+     * @throws InvalidSettingsException if the settings are inconsistent (not expected)
+     */
+    @Benchmark
+    public BufferedDataTable join() throws CanceledExecutionException, InvalidSettingsException {
+        Joiner joiner = new Joiner(m_table.getDataTableSpec(), m_right.getDataTableSpec(), m_settings);
+        m_joined = joiner.computeJoinTable(m_table, m_right, m_exec);
+        return m_joined;
+    }
+}
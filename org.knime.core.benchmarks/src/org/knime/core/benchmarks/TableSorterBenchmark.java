@@ -0,0 +1,119 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.sort.BufferedDataTableSorter;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures {@link BufferedDataTableSorter#sort(org.knime.core.node.ExecutionContext)} in sequential and parallel mode
+ * on the leading columns of the input table. Whether the sort runs in memory or writes and merges runs depends on the
+ * heap of the fork; use <code>-jvmArgsAppend -Xmx...</code> together with a larger <code>length</code> to measure
+ * the external merge.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class TableSorterBenchmark extends AbstractTableBenchmark {
+
+    /** Whether the parallel sort mode is enabled. */
+    @Param({"false", "true"})
+    boolean parallel;
+
+    /** Number of sort columns, taken from the start of the table. */
+    @Param({"1", "3"})
+    int sortColumns;
+
+    private List<String> m_inclList;
+
+    private boolean[] m_ascending;
+
+    private BufferedDataTable m_sorted;
+
+    @Override
+    protected void setUpFixture() {
+        DataTableSpec spec = m_table.getDataTableSpec();
+        int count = Math.min(sortColumns, spec.getNumColumns());
+        m_inclList = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            m_inclList.add(spec.getColumnSpec(i).getName());
+        }
+        m_ascending = new boolean[count];
+        Arrays.fill(m_ascending, true);
+    }
+
+    /**
+     * Disposes the table sorted by the last invocation.
+     */
+    @TearDown(Level.Invocation)
+    public void tearDownSorted() {
+        clear(m_sorted);
+        m_sorted = null;
+    }
+
+    /**
+     * Sorts the input table.
+     *
+     * @return the sorted table
+     * @throws CanceledExecutionException not thrown
+     */
+    @Benchmark
+    public BufferedDataTable sort() throws CanceledExecutionException {
+        BufferedDataTableSorter sorter = new BufferedDataTableSorter(m_table, m_inclList, m_ascending);
+        sorter.setParallel(parallel);
+        m_sorted = sorter.sort(m_exec);
+        return m_sorted;
+    }
+}
@@ -52,6 +52,7 @@
 import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertThat;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -373,4 +374,47 @@ public void testDefaultNumberOfPossibleValues() {
         assertThat("Unexpected possible values", colDomain.getValues(), is(nullValue()));
 
     }
+
+    /**
+     * Checks that merging partial domains of consecutive chunks gives the same domain as processing all rows.
+     */
+    @Test
+    public void testMerge() {
+        DataColumnSpecCreator colSpecCrea = new DataColumnSpecCreator("String col", StringCell.TYPE);
+        DataColumnSpec stringColSpec = colSpecCrea.createSpec();
+        colSpecCrea = new DataColumnSpecCreator("Int col", IntCell.TYPE);
+        DataColumnSpec intColSpec = colSpecCrea.createSpec();
+        DataTableSpec tableSpec = new DataTableSpec(stringColSpec, intColSpec);
+
+        DataTableDomainCreator all = new DataTableDomainCreator(tableSpec, false);
+        all.setMaxPossibleValues(10);
+        DataTableDomainCreator merged = new DataTableDomainCreator(tableSpec, false);
+        merged.setMaxPossibleValues(10);
+        int rowIndex = 0;
+        for (int chunk = 0; chunk < 4; chunk++) {
+            DataTableDomainCreator partial = new DataTableDomainCreator(tableSpec, false);
+            partial.setMaxPossibleValues(10);
+            for (int i = 0; i < 5; i++) {
+                DataRow row = new DefaultRow(RowKey.createRowKey(rowIndex), new StringCell("v" + ((rowIndex * 7) % 9)),
+                    new IntCell((rowIndex * 13) % 17 - 8));
+                all.updateDomain(row);
+                partial.updateDomain(row);
+                rowIndex++;
+            }
+            merged.merge(partial);
+            assertThat("Unexpected merged spec after chunk " + chunk, merged.createSpec(), is(all.createSpec()));
+            assertThat("Unexpected order of possible values after chunk " + chunk,
+                new ArrayList<>(merged.createSpec().getColumnSpec(0).getDomain().getValues()),
+                is(new ArrayList<>(all.createSpec().getColumnSpec(0).getDomain().getValues())));
+        }
+
+        // exceeding the maximum number of possible values drops them
+        DataTableDomainCreator partial = new DataTableDomainCreator(tableSpec, false);
+        partial.setMaxPossibleValues(10);
+        partial.updateDomain(new DefaultRow(RowKey.createRowKey(rowIndex), new StringCell("w0"), new IntCell(0)));
+        partial.updateDomain(new DefaultRow(RowKey.createRowKey(rowIndex + 1), new StringCell("w1"), new IntCell(0)));
+        merged.merge(partial);
+        assertThat("Unexpected possible values", merged.createSpec().getColumnSpec(0).getDomain().getValues(),
+            is(nullValue()));
+    }
 }
@@ -0,0 +1,223 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.MissingCell;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.DataContainer.TableStorageFormat;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Tests tables written in {@link TableStorageFormat#COLUMNAR columnar} format.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ColumnarStorageFormatTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(
+        new String[] {"Double", "Int", "Long", "Boolean", "String", "Mixed"},
+        new DataType[] {DoubleCell.TYPE, IntCell.TYPE, LongCell.TYPE, BooleanCell.TYPE, StringCell.TYPE,
+            DoubleCell.TYPE});
+
+    /** Number of rows, spans multiple chunks and an incomplete last chunk. */
+    private static final int ROW_COUNT = 3 * ColumnarChunkWriter.MAX_ROWS_PER_CHUNK + 17;
+
+    private static DataRow createRow(final int index) {
+        Random r = new Random(index);
+        DataCell[] cells = new DataCell[SPEC.getNumColumns()];
+        cells[0] = index % 7 == 0 ? DataType.getMissingCell() : new DoubleCell(r.nextDouble());
+        cells[1] = index % 11 == 0 ? DataType.getMissingCell() : new IntCell(r.nextInt());
+        cells[2] = new LongCell(r.nextLong());
+        cells[3] = index % 13 == 0 ? DataType.getMissingCell() : BooleanCell.get(r.nextBoolean());
+        cells[4] = index % 5 == 0 ? DataType.getMissingCell() : new StringCell("Row " + index);
+        // int cells are compatible to a double column - requires the generic encoding in some chunks
+        if (index % 3 == 0) {
+            cells[5] = new IntCell(index);
+        } else if (index % 101 == 0) {
+            cells[5] = new MissingCell("error in row " + index);
+        } else {
+            cells[5] = new DoubleCell(index);
+        }
+        return new DefaultRow(RowKey.createRowKey((long)index), cells);
+    }
+
+    private static ContainerTable createTable() {
+        DataContainer c = new DataContainer(SPEC, false, 0);
+        c.setTableStorageFormat(TableStorageFormat.COLUMNAR);
+        return TableTestUtil.createTable(c, ROW_COUNT, ColumnarStorageFormatTest::createRow);
+    }
+
+    private static void assertTableContent(final ContainerTable table) {
+        TableTestUtil.assertTableContent(table, ROW_COUNT, ColumnarStorageFormatTest::createRow);
+    }
+
+    /**
+     * Writes a table to disc and reads it back.
+     */
+    @Test
+    public void testWriteAndRead() {
+        ContainerTable table = createTable();
+        try {
+            assertThat("Unexpected storage format", table.getBuffer().getStorageFormat(),
+                is(TableStorageFormat.COLUMNAR));
+            assertThat("Table expected to be written to disc", table.getBuffer().usesOutFile(), is(true));
+            assertTableContent(table);
+            // second iteration
+            assertTableContent(table);
+        } finally {
+            table.clear();
+        }
+    }
+
+    /**
+     * Accesses only a single column of the table, other columns are not to be decoded.
+     */
+    @Test
+    public void testPartialAccess() {
+        ContainerTable table = createTable();
+        try {
+            int index = 0;
+            for (DataRow row : table) {
+                assertThat("Unexpected cell in row " + index, row.getCell(4), is(createRow(index).getCell(4)));
+                index++;
+            }
+            assertThat("Unexpected number of rows read", index, is(ROW_COUNT));
+        } finally {
+            table.clear();
+        }
+    }
+
+    /**
+     * Saves the table to a zip file and restores it; the storage format is retained.
+     *
+     * @throws Exception If that fails
+     */
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        ContainerTable table = createTable();
+        File tempDir = FileUtil.createTempDir(getClass().getSimpleName());
+        try {
+            File zipFile = new File(tempDir, "table.zip");
+            DataContainer.writeToZip(table, zipFile, new ExecutionMonitor());
+            ContainerTable restored = DataContainer.readFromZip(zipFile);
+            try {
+                assertTableContent(restored);
+                assertThat("Unexpected storage format", restored.getBuffer().getStorageFormat(),
+                    is(TableStorageFormat.COLUMNAR));
+            } finally {
+                restored.clear();
+            }
+        } finally {
+            table.clear();
+            FileUtil.deleteRecursively(tempDir);
+        }
+    }
+
+    /**
+     * A small table kept in memory is written in columnar format when saved.
+     *
+     * @throws Exception If that fails
+     */
+    @Test
+    public void testSaveInMemoryTable() throws Exception {
+        DataContainer c = new DataContainer(SPEC, false, Integer.MAX_VALUE);
+        c.setTableStorageFormat(TableStorageFormat.COLUMNAR);
+        for (int i = 0; i < 100; i++) {
+            c.addRowToTable(createRow(i));
+        }
+        c.close();
+        ContainerTable table = c.getBufferedTable();
+        File tempDir = FileUtil.createTempDir(getClass().getSimpleName());
+        try {
+            assertThat("Table expected to be in memory", table.getBuffer().usesOutFile(), is(false));
+            File zipFile = new File(tempDir, "table.zip");
+            DataContainer.writeToZip(table, zipFile, new ExecutionMonitor());
+            ContainerTable restored = DataContainer.readFromZip(zipFile);
+            try {
+                assertThat("Unexpected storage format", restored.getBuffer().getStorageFormat(),
+                    is(TableStorageFormat.COLUMNAR));
+                int index = 0;
+                for (DataRow row : restored) {
+                    assertThat("Unexpected row", row.getKey(), is(createRow(index++).getKey()));
+                }
+                assertThat("Unexpected number of rows read", index, is(100));
+            } finally {
+                restored.clear();
+            }
+        } finally {
+            table.clear();
+            FileUtil.deleteRecursively(tempDir);
+        }
+    }
+
+    /**
+     * The storage format can't be changed once rows have been added.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testSetFormatAfterAddRow() {
+        DataContainer c = new DataContainer(SPEC);
+        c.addRowToTable(createRow(0));
+        c.setTableStorageFormat(TableStorageFormat.COLUMNAR);
+    }
+}
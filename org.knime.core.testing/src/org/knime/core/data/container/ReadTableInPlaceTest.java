@@ -0,0 +1,253 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.knime.core.data.container.TableTestUtil.SPEC;
+import static org.knime.core.data.container.TableTestUtil.assertTableContent;
+import static org.knime.core.data.container.TableTestUtil.createTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+
+import org.junit.Test;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.internal.ReferencedFile;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.ExtensionTable;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Tests that saved tables are read directly from the zip file and copied to temp once the node directory is
+ * {@linkplain ContainerTable#ensureCopiedToTemp() about to be deleted}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ReadTableInPlaceTest {
+
+    private static final int ROW_COUNT = 10000;
+
+    /**
+     * Saves a table, restores it as done when a workflow is loaded and iterates it before and after the data is
+     * copied to temp.
+     *
+     * @throws Exception If that fails
+     */
+    @Test
+    public void testReadInPlaceAndCopyOnOpen() throws Exception {
+        ContainerTable table = createTable(new DataContainer(SPEC, false, 0), ROW_COUNT);
+        File tempDir = FileUtil.createTempDir(getClass().getSimpleName());
+        try {
+            File zipFile = new File(tempDir, "data.zip");
+            DataContainer.writeToZip(table, zipFile, new ExecutionMonitor());
+            ContainerTable restored = DataContainer.readFromZipDelayed(new ReferencedFile(zipFile), SPEC, -1,
+                new HashMap<Integer, ContainerTable>(), null);
+            try {
+                assertTableContent(restored, ROW_COUNT);
+                Buffer buffer = restored.getBuffer();
+                assertThat("Table expected to be read in place", buffer.isReadingInPlace(), is(true));
+                assertThat("Unexpected data size", buffer.getBufferFileSize() < zipFile.length(), is(true));
+
+                restored.ensureCopiedToTemp();
+                assertThat("Table expected to be copied to temp", buffer.isReadingInPlace(), is(false));
+                assertThat("Zip file must not be used anymore", buffer.getBinFile().equals(zipFile), is(false));
+                FileUtil.deleteRecursively(tempDir);
+                assertTableContent(restored, ROW_COUNT);
+            } finally {
+                restored.clear();
+            }
+        } finally {
+            table.clear();
+            FileUtil.deleteRecursively(tempDir);
+        }
+    }
+
+    /**
+     * Opening a view of a table that is read in place opens the table but must not copy its data to temp.
+     *
+     * @throws Exception If that fails
+     */
+    @Test
+    public void testViewDoesNotCopy() throws Exception {
+        ContainerTable table = createTable(new DataContainer(SPEC, false, 0), ROW_COUNT);
+        File tempDir = FileUtil.createTempDir(getClass().getSimpleName());
+        try {
+            File zipFile = new File(tempDir, "data.zip");
+            DataContainer.writeToZip(table, zipFile, new ExecutionMonitor());
+            ContainerTable restored = DataContainer.readFromZipDelayed(new ReferencedFile(zipFile), SPEC, -1,
+                new HashMap<Integer, ContainerTable>(), null);
+            try {
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                NodeFactory<NodeModel> dummyFactory =
+                    (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+                ExecutionContext exec = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+                    SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+                BufferedDataTable bdt = new DelegatingTable(restored).createTable(exec);
+
+                assertThat("Unexpected number of views", bdt.getViews().length, is(1));
+                assertThat("Table expected to be opened", restored.isOpen(), is(true));
+                Buffer buffer = restored.getBuffer();
+                assertThat("Opening a view must not copy the table to temp", buffer.isReadingInPlace(), is(true));
+                assertThat("Table expected to be read from the zip file", buffer.getBinFile(), is(zipFile));
+                assertTableContent(restored, ROW_COUNT);
+            } finally {
+                restored.clear();
+            }
+        } finally {
+            table.clear();
+            FileUtil.deleteRecursively(tempDir);
+        }
+    }
+
+    /**
+     * Tables read using the public API are still copied, the zip file may be deleted afterwards.
+     *
+     * @throws Exception If that fails
+     */
+    @Test
+    public void testReadFromZipCopies() throws Exception {
+        ContainerTable table = createTable(new DataContainer(SPEC, false, 0), ROW_COUNT);
+        File tempDir = FileUtil.createTempDir(getClass().getSimpleName());
+        try {
+            File zipFile = new File(tempDir, "data.zip");
+            DataContainer.writeToZip(table, zipFile, new ExecutionMonitor());
+            ContainerTable restored = DataContainer.readFromZip(zipFile);
+            try {
+                assertThat("Table must not be read in place", restored.getBuffer().isReadingInPlace(), is(false));
+                FileUtil.deleteRecursively(tempDir);
+                assertTableContent(restored, ROW_COUNT);
+            } finally {
+                restored.clear();
+            }
+        } finally {
+            table.clear();
+            FileUtil.deleteRecursively(tempDir);
+        }
+    }
+
+    /** Wraps a container table into a buffered data table, forwarding all calls to it. */
+    private static final class DelegatingTable extends ExtensionTable {
+
+        private final ContainerTable m_table;
+
+        DelegatingTable(final ContainerTable table) {
+            m_table = table;
+        }
+
+        BufferedDataTable createTable(final ExecutionContext exec) {
+            return create(exec);
+        }
+
+        @Override
+        public DataTableSpec getDataTableSpec() {
+            return m_table.getDataTableSpec();
+        }
+
+        @Override
+        public CloseableRowIterator iterator() {
+            return m_table.iterator();
+        }
+
+        @Deprecated
+        @Override
+        public int getRowCount() {
+            return m_table.getRowCount();
+        }
+
+        @Override
+        public long size() {
+            return m_table.size();
+        }
+
+        @Override
+        protected void saveToFileOverwrite(final File f, final NodeSettingsWO settings, final ExecutionMonitor exec)
+            throws IOException, CanceledExecutionException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void clear() {
+            // the test clears the container table
+        }
+
+        @Override
+        public void ensureOpen() {
+            m_table.ensureOpen();
+        }
+
+        @Override
+        public void ensureCopiedToTemp() {
+            m_table.ensureCopiedToTemp();
+        }
+
+        @Override
+        public BufferedDataTable[] getReferenceTables() {
+            return ContainerTable.EMPTY_ARRAY;
+        }
+
+        @Override
+        public void putIntoTableRepository(final HashMap<Integer, ContainerTable> rep) {
+        }
+
+        @Override
+        public boolean removeFromTableRepository(final HashMap<Integer, ContainerTable> rep) {
+            return false;
+        }
+    }
+}
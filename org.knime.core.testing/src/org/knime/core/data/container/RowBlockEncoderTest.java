@@ -0,0 +1,290 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
+import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.compression.TableCompressionCodecRegistry;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.filestore.FileStore;
+import org.knime.core.data.filestore.FileStoreCell;
+import org.knime.core.data.filestore.internal.IWriteFileStoreHandler;
+import org.knime.core.data.filestore.internal.NotInWorkflowWriteFileStoreHandler;
+
+/**
+ * Tests that tables written with the {@link RowBlockEncoder} are identical to tables whose rows are encoded by the
+ * writing thread.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RowBlockEncoderTest {
+
+    /** Several blocks, the last one incomplete. */
+    private static final int ROW_COUNT = 7 * RowBlockEncoder.ROWS_PER_BLOCK + 100;
+
+    private static final DataTableSpec SPEC = new DataTableSpec(new String[]{"Mixed", "Int"},
+        new DataType[]{DataType.getType(DataCell.class), IntCell.TYPE});
+
+    private ExecutorService m_executor;
+
+    private NotInWorkflowWriteFileStoreHandler m_fileStoreHandler;
+
+    private FileStore[] m_fileStores;
+
+    /**
+     * Creates the file stores referenced by the rows.
+     *
+     * @throws IOException If that fails
+     */
+    @Before
+    public void setUp() throws IOException {
+        m_executor = Executors.newFixedThreadPool(4);
+        m_fileStoreHandler = new NotInWorkflowWriteFileStoreHandler(UUID.randomUUID());
+        m_fileStoreHandler.open();
+        m_fileStores = new FileStore[ROW_COUNT];
+        for (int i = 0; i < ROW_COUNT; i++) {
+            if (isFileStoreRow(i)) {
+                m_fileStores[i] = m_fileStoreHandler.createFileStore("fs_" + i);
+                Files.write(m_fileStores[i].getFile().toPath(), ("File store " + i).getBytes("UTF-8"));
+            }
+        }
+    }
+
+    /** Restores the default executor and deletes the file stores. */
+    @After
+    public void tearDown() {
+        Buffer.setRowEncoderExecutor(null);
+        m_executor.shutdownNow();
+        m_fileStoreHandler.close();
+        m_fileStoreHandler.clearAndDispose();
+    }
+
+    private static boolean isFileStoreRow(final int index) {
+        return index >= 1100 && index % 17 == 0;
+    }
+
+    /**
+     * Creates a row, the first column contains int cells in the first block only, string cells from the second block
+     * on and double, blob and file store cells from later blocks on. Blobs and file stores are not encoded
+     * concurrently, they are mixed into blocks of plain rows.
+     */
+    private DataRow createRow(final int index) {
+        final DataCell cell;
+        if (index % 11 == 0) {
+            cell = DataType.getMissingCell();
+        } else if (index < RowBlockEncoder.ROWS_PER_BLOCK) {
+            cell = new IntCell(index);
+        } else if (isFileStoreRow(index)) {
+            cell = new TestFileStoreCell(m_fileStores[index]);
+        } else if (index >= 800 && index % 13 == 0) {
+            cell = new TestBlobCell("Blob " + index);
+        } else if (index >= 600 && index % 2 == 0) {
+            cell = new DoubleCell(index / 3.0);
+        } else {
+            cell = new StringCell("Row " + index);
+        }
+        return new DefaultRow(RowKey.createRowKey((long)index), cell, new IntCell(index % 5));
+    }
+
+    private ContainerTable createTable(final Optional<ExecutorService> executor) {
+        Buffer.setRowEncoderExecutor(executor);
+        DataContainer c = new FileStoreDataContainer(m_fileStoreHandler);
+        c.setTableCompressionCodec(TableCompressionCodecRegistry.NONE);
+        ContainerTable table = TableTestUtil.createTable(c, ROW_COUNT, this::createRow);
+        assertThat("Table expected to be written to disc", table.getBuffer().usesOutFile(), is(true));
+        return table;
+    }
+
+    /**
+     * Writes the same table with the rows encoded on the writing thread and by the encoder and compares the files
+     * and the rows read back.
+     *
+     * @throws Exception If that fails
+     */
+    @Test
+    public void testEncodedTableIsIdentical() throws Exception {
+        ContainerTable sequential = createTable(Optional.empty());
+        try {
+            ContainerTable concurrent = createTable(Optional.of(m_executor));
+            try {
+                File sequentialFile = sequential.getBuffer().getBinFile();
+                File concurrentFile = concurrent.getBuffer().getBinFile();
+                assertThat("Tables must be written to different files", sequentialFile.equals(concurrentFile),
+                    is(false));
+                assertThat("Files of sequentially and concurrently encoded table differ",
+                    Arrays.equals(Files.readAllBytes(sequentialFile.toPath()),
+                        Files.readAllBytes(concurrentFile.toPath())), is(true));
+                IntFunction<DataRow> rowFactory = this::createRow;
+                TableTestUtil.assertTableContent(sequential, ROW_COUNT, rowFactory);
+                TableTestUtil.assertTableContent(concurrent, ROW_COUNT, rowFactory);
+            } finally {
+                concurrent.clear();
+            }
+        } finally {
+            sequential.clear();
+        }
+    }
+
+    /** Container writing to a file store handler that is shared among tables, file stores are not copied. */
+    private static final class FileStoreDataContainer extends DataContainer {
+
+        FileStoreDataContainer(final IWriteFileStoreHandler fileStoreHandler) {
+            super(SPEC, false, 0);
+            setFileStoreHandler(fileStoreHandler);
+        }
+    }
+
+    /** Blob cell containing a string. */
+    public static final class TestBlobCell extends BlobDataCell {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String m_value;
+
+        TestBlobCell(final String value) {
+            m_value = value;
+        }
+
+        /**
+         * Static serializer lookup, the cell is not registered at the extension point.
+         *
+         * @return the serializer
+         */
+        public static DataCellSerializer<TestBlobCell> getCellSerializer() {
+            return new TestBlobCellSerializer();
+        }
+
+        @Override
+        public String toString() {
+            return m_value;
+        }
+
+        @Override
+        protected boolean equalsDataCell(final DataCell dc) {
+            return ((TestBlobCell)dc).m_value.equals(m_value);
+        }
+
+        @Override
+        public int hashCode() {
+            return m_value.hashCode();
+        }
+    }
+
+    /** Serializer of {@link TestBlobCell}. */
+    public static final class TestBlobCellSerializer implements DataCellSerializer<TestBlobCell> {
+
+        @Override
+        public void serialize(final TestBlobCell cell, final DataCellDataOutput output) throws IOException {
+            output.writeUTF(cell.m_value);
+        }
+
+        @Override
+        public TestBlobCell deserialize(final DataCellDataInput input) throws IOException {
+            return new TestBlobCell(input.readUTF());
+        }
+    }
+
+    /** File store cell without own content, equal if the file store is the same. */
+    public static final class TestFileStoreCell extends FileStoreCell {
+
+        private static final long serialVersionUID = 1L;
+
+        TestFileStoreCell(final FileStore fileStore) {
+            super(fileStore);
+        }
+
+        TestFileStoreCell() {
+        }
+
+        /**
+         * Static serializer lookup, the cell is not registered at the extension point.
+         *
+         * @return the serializer
+         */
+        public static DataCellSerializer<TestFileStoreCell> getCellSerializer() {
+            return new TestFileStoreCellSerializer();
+        }
+    }
+
+    /** Serializer of {@link TestFileStoreCell}. */
+    public static final class TestFileStoreCellSerializer implements DataCellSerializer<TestFileStoreCell> {
+
+        @Override
+        public void serialize(final TestFileStoreCell cell, final DataCellDataOutput output) throws IOException {
+            // the file store key is written by the framework
+        }
+
+        @Override
+        public TestFileStoreCell deserialize(final DataCellDataInput input) throws IOException {
+            return new TestFileStoreCell();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link RowSelection}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RowSelectionTest {
+
+    private static final int ROW_COUNT = 1000;
+
+    private static void assertSelection(final RowSelection selection, final boolean[] expected) {
+        long count = 0;
+        for (int i = 0; i < expected.length; i++) {
+            assertThat("Unexpected selection of row " + i, selection.isSelected(i), is(expected[i]));
+            if (expected[i]) {
+                assertThat("Unexpected index of selected row " + count, selection.indexOfSelected(count),
+                    is((long)i));
+                count++;
+            }
+            long next = -1;
+            for (int j = i; j < expected.length; j++) {
+                if (expected[j]) {
+                    next = j;
+                    break;
+                }
+            }
+            assertThat("Unexpected next selected row after " + i, selection.nextSelected(i), is(next));
+        }
+        assertThat("Unexpected number of selected rows", selection.getSelectedCount(), is(count));
+        assertThat("Unexpected index beyond last selected row", selection.indexOfSelected(count), is(-1L));
+    }
+
+    /** Selects single rows and ranges and inverts the selection. */
+    @Test
+    public void testSelect() {
+        RowSelection selection = new RowSelection(ROW_COUNT);
+        boolean[] expected = new boolean[ROW_COUNT];
+        for (int i = 0; i < ROW_COUNT; i += 7) {
+            selection.select(i);
+            expected[i] = true;
+        }
+        selection.select(60, 200);
+        selection.select(ROW_COUNT - 1, ROW_COUNT - 1);
+        for (int i = 60; i <= 200; i++) {
+            expected[i] = true;
+        }
+        expected[ROW_COUNT - 1] = true;
+        assertSelection(selection, expected);
+
+        RowSelection inverted = selection.invert();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            expected[i] = !expected[i];
+        }
+        assertSelection(inverted, expected);
+        assertThat("Unexpected double inversion", inverted.invert(), is(selection));
+    }
+
+    /** Writes and reads a selection. */
+    @Test
+    public void testWriteRead() throws IOException {
+        RowSelection selection = new RowSelection(ROW_COUNT);
+        selection.select(3, 130);
+        selection.select(999);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            selection.write(out);
+        }
+        RowSelection read =
+            RowSelection.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertThat("Unexpected selection after reading", read, is(selection));
+        assertThat("Unexpected number of selected rows", read.getSelectedCount(), is(129L));
+    }
+
+    /** Selecting a row that is not contained in the table fails. */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testSelectOutOfRange() {
+        new RowSelection(ROW_COUNT).select(ROW_COUNT);
+    }
+}
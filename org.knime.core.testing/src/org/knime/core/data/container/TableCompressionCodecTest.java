@@ -0,0 +1,200 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.knime.core.data.container.TableTestUtil.SPEC;
+import static org.knime.core.data.container.TableTestUtil.assertTableContent;
+import static org.knime.core.data.container.TableTestUtil.createRow;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.core.data.container.compression.TableCompressionCodec;
+import org.knime.core.data.container.compression.TableCompressionCodecRegistry;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Tests the {@link TableCompressionCodec}s, on plain streams and on tables written to disc.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class TableCompressionCodecTest {
+
+    private static final int ROW_COUNT = 20000;
+
+    private static final TableCompressionCodec[] CODECS = TableCompressionCodecRegistry.getInstance().getCodecs()
+        .toArray(new TableCompressionCodec[0]);
+
+    private static byte[] roundTrip(final TableCompressionCodec codec, final byte[] data, final Random r)
+        throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = codec.createOutputStream(bytes)) {
+            int pos = 0;
+            while (pos < data.length) {
+                int length = Math.min(data.length - pos, 1 + r.nextInt(100000));
+                if (length == 1) {
+                    out.write(data[pos]);
+                } else {
+                    out.write(data, pos, length);
+                }
+                pos += length;
+                if (r.nextInt(10) == 0) {
+                    out.flush();
+                }
+            }
+        }
+        byte[] result = new byte[data.length];
+        try (DataInputStream in = new DataInputStream(codec.createInputStream(
+            new ByteArrayInputStream(bytes.toByteArray())))) {
+            in.readFully(result);
+            assertThat("Expected end of stream (" + codec + ")", in.read(), is(-1));
+        }
+        return result;
+    }
+
+    /**
+     * Compresses and decompresses random, repetitive and empty data with all codecs.
+     *
+     * @throws Exception If that fails
+     */
+    @Test
+    public void testStreamRoundTrip() throws Exception {
+        Random r = new Random(42);
+        byte[] random = new byte[500000];
+        r.nextBytes(random);
+        byte[] repetitive = new byte[1000000];
+        for (int i = 0; i < repetitive.length; i++) {
+            repetitive[i] = (byte)(i % 13 == 0 ? r.nextInt(4) : i % 5);
+        }
+        for (TableCompressionCodec codec : CODECS) {
+            for (byte[] data : new byte[][]{random, repetitive, new byte[0], new byte[]{1, 2, 3}}) {
+                assertThat("Unexpected content after round trip (" + codec + ", " + data.length + " bytes)",
+                    Arrays.equals(roundTrip(codec, data, r), data), is(true));
+            }
+        }
+    }
+
+    /**
+     * A truncated block stream must not be read as valid (shorter) data.
+     *
+     * @throws Exception If that fails
+     */
+    @Test(expected = IOException.class)
+    public void testTruncatedStream() throws Exception {
+        TableCompressionCodec codec = TableCompressionCodecRegistry.LZ4;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = codec.createOutputStream(bytes)) {
+            out.write(new byte[200000]);
+        }
+        byte[] truncated = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 20);
+        try (DataInputStream in = new DataInputStream(codec.createInputStream(new ByteArrayInputStream(truncated)))) {
+            while (in.read() >= 0) {
+                // read until failure
+            }
+        }
+    }
+
+    private static ContainerTable createTable(final TableCompressionCodec codec) {
+        DataContainer c = new DataContainer(SPEC, false, 0);
+        c.setTableCompressionCodec(codec);
+        return TableTestUtil.createTable(c, ROW_COUNT);
+    }
+
+    /**
+     * Writes tables to disc with each codec, reads them back, saves them to a zip file and restores them. The codec
+     * is retained.
+     *
+     * @throws Exception If that fails
+     */
+    @Test
+    public void testWriteSaveAndLoad() throws Exception {
+        File tempDir = FileUtil.createTempDir(getClass().getSimpleName());
+        try {
+            for (TableCompressionCodec codec : CODECS) {
+                ContainerTable table = createTable(codec);
+                try {
+                    assertThat("Table expected to be written to disc", table.getBuffer().usesOutFile(), is(true));
+                    assertThat("Unexpected codec", table.getBuffer().getBinFileCompressionCodec(), is(codec));
+                    assertTableContent(table, ROW_COUNT);
+                    File zipFile = new File(tempDir, codec.getName() + ".zip");
+                    DataContainer.writeToZip(table, zipFile, new ExecutionMonitor());
+                    ContainerTable restored = DataContainer.readFromZip(zipFile);
+                    try {
+                        assertThat("Unexpected codec after restore",
+                            restored.getBuffer().getBinFileCompressionCodec(), is(codec));
+                        assertTableContent(restored, ROW_COUNT);
+                    } finally {
+                        restored.clear();
+                    }
+                } finally {
+                    table.clear();
+                }
+            }
+        } finally {
+            FileUtil.deleteRecursively(tempDir);
+        }
+    }
+
+    /**
+     * The codec can't be changed once rows have been added.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testSetCodecAfterAddRow() {
+        DataContainer c = new DataContainer(SPEC);
+        c.addRowToTable(createRow(0));
+        c.setTableCompressionCodec(TableCompressionCodecRegistry.LZ4);
+    }
+}
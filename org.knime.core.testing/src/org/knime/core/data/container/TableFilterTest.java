@@ -0,0 +1,169 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.DataContainer.TableStorageFormat;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Tests {@link TableFilter} and filtered iteration of {@link ContainerTable}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class TableFilterTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(new String[] {"Int", "String", "Int2"},
+        new DataType[] {IntCell.TYPE, StringCell.TYPE, IntCell.TYPE});
+
+    private static final int ROW_COUNT = 10000;
+
+    private static DataRow createRow(final int index) {
+        return new DefaultRow(RowKey.createRowKey((long)index), new IntCell(index), new StringCell("Row " + index),
+            new IntCell(-index));
+    }
+
+    private static ContainerTable createTable(final TableStorageFormat format, final int maxCellsInMemory) {
+        DataContainer c = new DataContainer(SPEC, false, maxCellsInMemory);
+        c.setTableStorageFormat(format);
+        return TableTestUtil.createTable(c, ROW_COUNT, TableFilterTest::createRow);
+    }
+
+    private static void assertFilteredIteration(final ContainerTable table, final TableFilter filter) {
+        long expectedTo = Math.min(filter.getToRowIndex(), ROW_COUNT - 1);
+        int index = (int)filter.getFromRowIndex();
+        try (CloseableRowIterator it = table.iteratorWithFilter(filter)) {
+            while (it.hasNext()) {
+                DataRow row = it.next();
+                DataRow expected = createRow(index);
+                assertThat("Unexpected row key", row.getKey(), is(expected.getKey()));
+                assertThat("Unexpected cell count", row.getNumCells(), is(SPEC.getNumColumns()));
+                for (int i = 0; i < SPEC.getNumColumns(); i++) {
+                    if (filter.isMaterializeColumn(i)) {
+                        assertThat("Unexpected cell in row " + index, row.getCell(i), is(expected.getCell(i)));
+                    }
+                }
+                index++;
+            }
+        }
+        assertThat("Unexpected number of rows", (long)index, is(expectedTo + 1));
+    }
+
+    private static void runFilters(final ContainerTable table) {
+        try {
+            assertFilteredIteration(table, TableFilter.materializeCols(1));
+            assertFilteredIteration(table, TableFilter.materializeCols());
+            assertFilteredIteration(table, TableFilter.filterRangeOfRows(0, 0));
+            assertFilteredIteration(table, TableFilter.filterRangeOfRows(4095, 4097));
+            assertFilteredIteration(table, TableFilter.filterRangeOfRows(ROW_COUNT - 10, ROW_COUNT + 10));
+            assertFilteredIteration(table,
+                TableFilter.builder().setMaterializeColumns(SPEC, "Int2").setFromRowIndex(5000).build());
+            // unfiltered iteration after filtered one
+            int index = 0;
+            for (DataRow row : table) {
+                assertThat("Unexpected cell", row.getCell(2), is((DataCell)new IntCell(-index)));
+                index++;
+            }
+            assertThat("Unexpected number of rows", index, is(ROW_COUNT));
+        } finally {
+            table.clear();
+        }
+    }
+
+    /** Filters on table written in row format. */
+    @Test
+    public void testRowFormat() {
+        runFilters(createTable(TableStorageFormat.ROW, 0));
+    }
+
+    /** Filters on table written in columnar format. */
+    @Test
+    public void testColumnarFormat() {
+        runFilters(createTable(TableStorageFormat.COLUMNAR, 0));
+    }
+
+    /** Filters on table kept in memory. */
+    @Test
+    public void testInMemory() {
+        runFilters(createTable(TableStorageFormat.ROW, Integer.MAX_VALUE));
+    }
+
+    /** Derives filters of contributing tables. */
+    @Test
+    public void testDerive() {
+        TableFilter filter = TableFilter.builder().setMaterializeColumns(0, 3).setFromRowIndex(10).setToRowIndex(20)
+            .build();
+        TableFilter left = filter.deriveForColumns(2, new int[]{0, 1, -1, -1});
+        assertThat("Unexpected columns", left.getMaterializeColumnIndices(), is(new int[]{0}));
+        TableFilter right = filter.deriveForColumns(2, new int[]{-1, -1, 0, 1});
+        assertThat("Unexpected columns", right.getMaterializeColumnIndices(), is(new int[]{1}));
+        assertThat("Unexpected row range", right.getFromRowIndex(), is(10L));
+
+        assertThat("Table not expected to contribute", filter.deriveForRows(0, 10) == null, is(true));
+        TableFilter second = filter.deriveForRows(5, 10);
+        assertThat("Unexpected start", second.getFromRowIndex(), is(5L));
+        assertThat("Unexpected end", second.getToRowIndex(), is(9L));
+        TableFilter third = filter.deriveForRows(15, 100);
+        assertThat("Unexpected start", third.getFromRowIndex(), is(0L));
+        assertThat("Unexpected end", third.getToRowIndex(), is(5L));
+    }
+
+    /** Invalid row range. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRange() {
+        TableFilter.filterRangeOfRows(10, 5);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Creates and verifies the tables used by the tests in this package. Rows are derived from their index only, so a
+ * table can be checked without keeping the expected rows.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class TableTestUtil {
+
+    /** Spec of the rows created by {@link #createRow(int)}. */
+    static final DataTableSpec SPEC = new DataTableSpec(new String[]{"Double", "Int", "String"},
+        new DataType[]{DoubleCell.TYPE, IntCell.TYPE, StringCell.TYPE});
+
+    private TableTestUtil() {
+    }
+
+    /**
+     * Creates the row with the given index, matching {@link #SPEC}. Every 7th double is missing.
+     *
+     * @param index the row index
+     * @return the row, always the same for the same index
+     */
+    static DataRow createRow(final int index) {
+        Random r = new Random(index);
+        DataCell[] cells = new DataCell[SPEC.getNumColumns()];
+        cells[0] = index % 7 == 0 ? DataType.getMissingCell() : new DoubleCell(r.nextDouble());
+        cells[1] = new IntCell(r.nextInt(100));
+        cells[2] = new StringCell("Row " + (index % 1000));
+        return new DefaultRow(RowKey.createRowKey((long)index), cells);
+    }
+
+    /**
+     * Adds rows created by {@link #createRow(int)} to the container and closes it.
+     *
+     * @param c the configured container
+     * @param rowCount number of rows to add
+     * @return the table of the container
+     */
+    static ContainerTable createTable(final DataContainer c, final int rowCount) {
+        return createTable(c, rowCount, TableTestUtil::createRow);
+    }
+
+    /**
+     * Adds rows to the container and closes it.
+     *
+     * @param c the configured container
+     * @param rowCount number of rows to add
+     * @param rowFactory creates the row for an index
+     * @return the table of the container
+     */
+    static ContainerTable createTable(final DataContainer c, final int rowCount,
+        final IntFunction<DataRow> rowFactory) {
+        for (int i = 0; i < rowCount; i++) {
+            c.addRowToTable(rowFactory.apply(i));
+        }
+        c.close();
+        return c.getBufferedTable();
+    }
+
+    /**
+     * Asserts that the table contains exactly the rows created by {@link #createRow(int)}.
+     *
+     * @param table the table to check
+     * @param rowCount the expected number of rows
+     */
+    static void assertTableContent(final ContainerTable table, final int rowCount) {
+        assertTableContent(table, rowCount, TableTestUtil::createRow);
+    }
+
+    /**
+     * Asserts that the table contains exactly the rows created by the factory. Cells are accessed last column first
+     * so that columnar tables decode their columns in arbitrary order.
+     *
+     * @param table the table to check
+     * @param rowCount the expected number of rows
+     * @param rowFactory creates the expected row for an index
+     */
+    static void assertTableContent(final ContainerTable table, final int rowCount,
+        final IntFunction<DataRow> rowFactory) {
+        assertThat("Unexpected row count", table.size(), is((long)rowCount));
+        int index = 0;
+        for (RowIterator it = table.iterator(); it.hasNext(); index++) {
+            DataRow expected = rowFactory.apply(index);
+            DataRow actual = it.next();
+            assertThat("Unexpected row key", actual.getKey(), is(expected.getKey()));
+            assertThat("Unexpected cell count", actual.getNumCells(), is(expected.getNumCells()));
+            for (int i = actual.getNumCells() - 1; i >= 0; i--) {
+                assertThat("Unexpected cell in row " + index + ", column " + i, actual.getCell(i),
+                    is(expected.getCell(i)));
+            }
+        }
+        assertThat("Unexpected number of rows read", index, is(rowCount));
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.sort;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DataValueComparator;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.vector.doublevector.DoubleVectorCellFactory;
+
+/**
+ * Tests that the order of the keys created by {@link NormalizedKeyEncoder} equals the order of the column comparators.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class NormalizedKeyEncoderTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(
+        new DataColumnSpecCreator("double", DoubleCell.TYPE).createSpec(),
+        new DataColumnSpecCreator("int", IntCell.TYPE).createSpec(),
+        new DataColumnSpecCreator("string", StringCell.TYPE).createSpec());
+
+    private static final double[] DOUBLES = {Double.NEGATIVE_INFINITY, -Double.MAX_VALUE, -1.5, -Double.MIN_VALUE,
+        -0.0, 0.0, Double.MIN_VALUE, 1.0, 2.5, Double.MAX_VALUE, Double.POSITIVE_INFINITY, Double.NaN};
+
+    private static final String[] STRINGS = {"", "a", "ab", "abc", "b", "B", "~", "\u007F", "ä", "中",
+        "￿", "a\u0000", "zäb"};
+
+    /** All combinations of sort order and missing value position. */
+    @Test
+    public void testOrderEqualsComparators() {
+        for (boolean ascending : new boolean[]{true, false}) {
+            for (boolean missingsToEnd : new boolean[]{true, false}) {
+                checkOrder(ascending, missingsToEnd);
+            }
+        }
+    }
+
+    private static void checkOrder(final boolean ascending, final boolean missingsToEnd) {
+        final int[] indices = {0, 1, 2};
+        final boolean[] order = {ascending, !ascending, ascending};
+        NormalizedKeyEncoder encoder = NormalizedKeyEncoder.create(indices, order, missingsToEnd, SPEC);
+        assertThat("Encoder for supported types", encoder, is(notNullValue()));
+        Random random = new Random(42);
+        DataRow[] rows = new DataRow[500];
+        byte[][] keys = new byte[rows.length][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new DefaultRow("Row" + i,
+                random.nextInt(10) == 0 ? DataType.getMissingCell() : new DoubleCell(DOUBLES[random.nextInt(4)]),
+                random.nextInt(10) == 0 ? DataType.getMissingCell() : new IntCell(random.nextInt(5) - 2),
+                random.nextInt(10) == 0 ? DataType.getMissingCell() : new StringCell(STRINGS[random.nextInt(
+                    STRINGS.length)]));
+            keys[i] = encoder.encode(rows[i]);
+        }
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < rows.length; j++) {
+                assertThat("Comparison of " + rows[i] + " and " + rows[j],
+                    Integer.signum(NormalizedKeyEncoder.compare(keys[i], keys[j])),
+                    is(Integer.signum(compare(rows[i], rows[j], indices, order, missingsToEnd))));
+            }
+        }
+    }
+
+    /** Single column values covering special doubles and non-ASCII strings. */
+    @Test
+    public void testSpecialValues() {
+        NormalizedKeyEncoder encoder =
+            NormalizedKeyEncoder.create(new int[]{0, 2}, new boolean[]{true, true}, false, SPEC);
+        for (double d1 : DOUBLES) {
+            for (double d2 : DOUBLES) {
+                byte[] k1 = encoder.encode(new DefaultRow("1", new DoubleCell(d1), new IntCell(0), new StringCell("")));
+                byte[] k2 = encoder.encode(new DefaultRow("2", new DoubleCell(d2), new IntCell(0), new StringCell("")));
+                assertThat(d1 + " vs. " + d2, Integer.signum(NormalizedKeyEncoder.compare(k1, k2)),
+                    is(Integer.signum(Double.compare(d1, d2))));
+            }
+        }
+        for (String s1 : STRINGS) {
+            for (String s2 : STRINGS) {
+                byte[] k1 = encoder.encode(new DefaultRow("1", new DoubleCell(0), new IntCell(0), new StringCell(s1)));
+                byte[] k2 = encoder.encode(new DefaultRow("2", new DoubleCell(0), new IntCell(0), new StringCell(s2)));
+                assertThat(s1 + " vs. " + s2, Integer.signum(NormalizedKeyEncoder.compare(k1, k2)),
+                    is(Integer.signum(s1.compareTo(s2))));
+            }
+        }
+    }
+
+    /** Columns without a known comparator can't be encoded. */
+    @Test
+    public void testUnsupportedType() {
+        DataTableSpec spec = new DataTableSpec(
+            new DataColumnSpecCreator("vector", DoubleVectorCellFactory.TYPE).createSpec());
+        assertThat(NormalizedKeyEncoder.create(new int[]{0}, new boolean[]{true}, false, spec), is(nullValue()));
+    }
+
+    /** Reference implementation, same as the row comparator of the table sorter. */
+    private static int compare(final DataRow r1, final DataRow r2, final int[] indices, final boolean[] ascending,
+        final boolean missingsToEnd) {
+        for (int i = 0; i < indices.length; i++) {
+            DataCell c1 = r1.getCell(indices[i]);
+            DataCell c2 = r2.getCell(indices[i]);
+            int result;
+            if (missingsToEnd && (c1.isMissing() || c2.isMissing())) {
+                result = c1.isMissing() == c2.isMissing() ? 0 : (c1.isMissing() == ascending[i] ? 1 : -1);
+            } else {
+                DataValueComparator comparator = SPEC.getColumnSpec(indices[i]).getType().getComparator();
+                result = comparator.compare(c1, c2);
+            }
+            if (result != 0) {
+                return ascending[i] ? result : -result;
+            }
+        }
+        return 0;
+    }
+}
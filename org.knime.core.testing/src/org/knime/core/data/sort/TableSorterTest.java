@@ -129,7 +129,7 @@ public void tearDown() throws Exception {
      */
     @Test
     public final void testLowMemoryRun() throws CanceledExecutionException {
-        runMemoryTest(100, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        runMemoryTest(100, Integer.MAX_VALUE, Integer.MAX_VALUE, false);
     }
 
     /**
@@ -138,12 +138,21 @@ public final void testLowMemoryRun() throws CanceledExecutionException {
      */
     @Test
     public final void testMultiStageMerge() throws CanceledExecutionException {
-        runMemoryTest(100, 5, 8);
+        runMemoryTest(100, 5, 8, false);
+    }
+
+    /**
+     * Test if the parallel sort mode (asynchronous writes, parallel merge of groups) gives the same result.
+     * @throws CanceledExecutionException
+     */
+    @Test
+    public final void testParallelMultiStageMerge() throws CanceledExecutionException {
+        runMemoryTest(100, 5, 8, true);
     }
 
     private void runMemoryTest(final int numRows,
             final int maxNumRowsPerContainer,
-            final int maxOpenContainers) throws CanceledExecutionException {
+            final int maxOpenContainers, final boolean parallel) throws CanceledExecutionException {
         // Create data with fields that consume a lot memory
         DataTable inputTable = new TestData(numRows, 1);
 
@@ -157,6 +166,7 @@ private void runMemoryTest(final int numRows,
 
 
         sorter.setMaxRows(maxNumRowsPerContainer);
+        sorter.setParallel(parallel);
         // 10MB free memory
         long currentlyUsed = MemoryAlertSystem.getUsedMemory();
         double fraction = Math.min(1, (currentlyUsed + (10 << 20)) / (double)MemoryAlertSystem.getMaximumMemory());
@@ -0,0 +1,263 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
+import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.container.DataContainer.TableStorageFormat;
+import org.knime.core.data.container.RowSelection;
+import org.knime.core.data.container.RowSelectionTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests {@link ExecutionContext#createRowSelectionTable(BufferedDataTable, RowSelection)} on a table written to disc:
+ * unselected rows must not be decoded when the selection is read and sparse selections are copied.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class CreateRowSelectionTableTest {
+
+    private static final int ROW_COUNT = 40000;
+
+    private static final DataTableSpec SPEC =
+        new DataTableSpec(new String[]{"Value"}, new DataType[]{DataType.getType(CountingCell.class)});
+
+    private Node m_node;
+
+    private ExecutionContext m_exec;
+
+    /** Creates the execution context. */
+    @Before
+    public void setUp() {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_node = new Node(dummyFactory);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), m_node,
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+    }
+
+    private BufferedDataTable createTable(final TableStorageFormat format) {
+        BufferedDataContainer c = m_exec.createDataContainer(SPEC, false, 0);
+        c.setTableStorageFormat(format);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            c.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), new CountingCell(i)));
+        }
+        c.close();
+        return c.getTable();
+    }
+
+    private static RowSelection select(final LongPredicate isSelected) {
+        RowSelection selection = new RowSelection(ROW_COUNT);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            if (isSelected.test(i)) {
+                selection.select(i);
+            }
+        }
+        return selection;
+    }
+
+    private static void assertSelectedRows(final BufferedDataTable table, final RowSelection selection) {
+        assertThat("Unexpected row count", table.size(), is(selection.getSelectedCount()));
+        int expected = -1;
+        long count = 0;
+        for (DataRow row : table) {
+            do {
+                expected++;
+            } while (!selection.isSelected(expected));
+            assertThat("Unexpected row key", row.getKey(), is(RowKey.createRowKey((long)expected)));
+            assertThat("Unexpected value", ((CountingCell)row.getCell(0)).m_value, is(expected));
+            count++;
+        }
+        assertThat("Unexpected number of rows read", count, is(selection.getSelectedCount()));
+    }
+
+    /**
+     * Reads a selection of half of the rows of a table in row format, only the selected rows may be decoded.
+     *
+     * @throws Exception If that fails
+     */
+    @Test
+    public void testRowFormatSkipsUnselectedRows() throws Exception {
+        BufferedDataTable table = createTable(TableStorageFormat.ROW);
+        try {
+            RowSelection selection = select(i -> (i / 10000) % 2 == 1 || i % 3 == 0);
+            BufferedDataTable selected = m_exec.createRowSelectionTable(table, selection);
+            assertThat("Dense selection expected to be referenced", selected.getDelegate(),
+                instanceOf(RowSelectionTable.class));
+            CountingCell.DESERIALIZED.set(0);
+            assertSelectedRows(selected, selection);
+            assertThat("Unselected rows must not be decoded", (long)CountingCell.DESERIALIZED.get(),
+                is(selection.getSelectedCount()));
+        } finally {
+            table.clear(m_node);
+        }
+    }
+
+    /**
+     * Reads a selection of half of the rows of a table in columnar format, chunks that contain no selected row must
+     * not be decoded.
+     *
+     * @throws Exception If that fails
+     */
+    @Test
+    public void testColumnarFormatSkipsUnselectedChunks() throws Exception {
+        BufferedDataTable table = createTable(TableStorageFormat.COLUMNAR);
+        try {
+            RowSelection selection = select(i -> (i / 10000) % 2 == 1);
+            BufferedDataTable selected = m_exec.createRowSelectionTable(table, selection);
+            assertThat("Dense selection expected to be referenced", selected.getDelegate(),
+                instanceOf(RowSelectionTable.class));
+            CountingCell.DESERIALIZED.set(0);
+            assertSelectedRows(selected, selection);
+            // only the chunks overlapping the two selected ranges are decoded
+            assertThat("Unselected chunks must not be decoded", CountingCell.DESERIALIZED.get() < ROW_COUNT * 3 / 4,
+                is(true));
+        } finally {
+            table.clear(m_node);
+        }
+    }
+
+    /**
+     * A sparse selection is copied into a new table, which is done without decoding the unselected rows.
+     *
+     * @throws Exception If that fails
+     */
+    @Test
+    public void testSparseSelectionIsCopied() throws Exception {
+        BufferedDataTable table = createTable(TableStorageFormat.ROW);
+        BufferedDataTable selected = null;
+        try {
+            RowSelection selection = select(i -> i % 10 == 0);
+            CountingCell.DESERIALIZED.set(0);
+            selected = m_exec.createRowSelectionTable(table, selection);
+            assertThat("Sparse selection expected to be copied", selected.getDelegate(),
+                instanceOf(ContainerTable.class));
+            assertThat("Unselected rows must not be decoded", (long)CountingCell.DESERIALIZED.get(),
+                is(selection.getSelectedCount()));
+            assertSelectedRows(selected, selection);
+        } finally {
+            if (selected != null) {
+                selected.clear(m_node);
+            }
+            table.clear(m_node);
+        }
+    }
+
+    /** Cell that counts how often it is deserialized. */
+    public static final class CountingCell extends DataCell {
+
+        private static final long serialVersionUID = 1L;
+
+        static final AtomicInteger DESERIALIZED = new AtomicInteger();
+
+        private final int m_value;
+
+        CountingCell(final int value) {
+            m_value = value;
+        }
+
+        /**
+         * Static serializer lookup, the cell is not registered at the extension point.
+         *
+         * @return the serializer
+         */
+        public static DataCellSerializer<CountingCell> getCellSerializer() {
+            return new CountingCellSerializer();
+        }
+
+        @Override
+        public String toString() {
+            return Integer.toString(m_value);
+        }
+
+        @Override
+        protected boolean equalsDataCell(final DataCell dc) {
+            return ((CountingCell)dc).m_value == m_value;
+        }
+
+        @Override
+        public int hashCode() {
+            return m_value;
+        }
+    }
+
+    /** Serializer of {@link CountingCell}. */
+    public static final class CountingCellSerializer implements DataCellSerializer<CountingCell> {
+
+        @Override
+        public void serialize(final CountingCell cell, final DataCellDataOutput output) throws IOException {
+            output.writeInt(cell.m_value);
+        }
+
+        @Override
+        public CountingCell deserialize(final DataCellDataInput input) throws IOException {
+            CountingCell.DESERIALIZED.incrementAndGet();
+            return new CountingCell(input.readInt());
+        }
+    }
+}
@@ -0,0 +1,502 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.exec.ThreadNodeExecutionJobManagerFactory;
+import org.knime.core.node.exec.streaming.StreamingNodeExecutionJobManager;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.core.node.workflow.action.CollapseIntoMetaNodeResult;
+import org.knime.core.node.workflow.node.adapter.AdapterNodeFactory;
+import org.knime.core.node.workflow.node.adapter.AdapterNodeModel;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Runs a wrapped metanode with the {@link StreamingNodeExecutionJobManager} and compares the result with the one of
+ * the default executor. Also covers distributed nodes, failing nodes and cancelation.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class TestSubnode_StreamingExecutionJobManager extends WorkflowTestCase {
+
+    /** More rows than dispatched to a single partition at once. */
+    private static final int ROW_COUNT = 20000;
+
+    private static final String WORKER_THREAD_PREFIX = "KNIME-Streaming-Worker-";
+
+    /** Partitions seen by the {@link MapNodeModel} during streaming. */
+    private static final Set<Integer> PARTITIONS = ConcurrentHashMap.newKeySet();
+
+    /** Counted down by the {@link BlockingNodeModel} when it starts blocking. */
+    private static volatile CountDownLatch blockingLatch;
+
+    private File m_workflowDirectory;
+
+    private NodeID m_source;
+
+    @Before
+    public void setUp() throws Exception {
+        m_workflowDirectory = FileUtil.createTempDir(getClass().getSimpleName());
+        final WorkflowCreationHelper creationHelper = new WorkflowCreationHelper();
+        creationHelper.setWorkflowContext(new WorkflowContext.Factory(m_workflowDirectory).createContext());
+        setManager(WorkflowManager.ROOT.createAndAddProject(getClass().getSimpleName(), creationHelper));
+        m_source = getManager().addNode(new SourceNodeFactory());
+        PARTITIONS.clear();
+        blockingLatch = new CountDownLatch(1);
+    }
+
+    /** A streamed chain of nodes gives the same result as the default executor. */
+    @Test(timeout = 60000L)
+    public void testStreamedChainEqualsThreadExecution() throws Exception {
+        final NodeID subnode = createSubnode(new MapNodeFactory(), new RunningSumNodeFactory());
+        final List<DataRow> expected = executeAndGetOutput(subnode, null);
+        final List<DataRow> streamed =
+            executeAndGetOutput(subnode, new StreamingNodeExecutionJobManager(KNIMEConstants.GLOBAL_THREAD_POOL, 1));
+        assertRowsEqual(expected, streamed);
+        assertThat("Map node must not be distributed", PARTITIONS.size() <= 1, is(true));
+    }
+
+    /** A distributable node is run in several partitions, the output is in input order. */
+    @Test(timeout = 60000L)
+    public void testDistributedNodeRetainsOrder() throws Exception {
+        final NodeID subnode = createSubnode(new MapNodeFactory(), new RunningSumNodeFactory());
+        final List<DataRow> expected = executeAndGetOutput(subnode, null);
+        final List<DataRow> streamed =
+            executeAndGetOutput(subnode, new StreamingNodeExecutionJobManager(KNIMEConstants.GLOBAL_THREAD_POOL, 3));
+        assertThat("Map node expected to run in several partitions", PARTITIONS.size() > 1, is(true));
+        assertRowsEqual(expected, streamed);
+        assertWorkersStopped();
+    }
+
+    /** A failing node fails the execution and stops all workers. */
+    @Test(timeout = 60000L)
+    public void testFailingNode() throws Exception {
+        final NodeID subnode = createSubnode(new MapNodeFactory(), new FailingNodeFactory(), new RunningSumNodeFactory());
+        getManager().setJobManager(subnode,
+            new StreamingNodeExecutionJobManager(KNIMEConstants.GLOBAL_THREAD_POOL, 3));
+        executeAllAndWait();
+        final SubNodeContainer snc = getManager().getNodeContainer(subnode, SubNodeContainer.class, true);
+        assertThat("Wrapped metanode must not be executed", snc.getNodeContainerState().isExecuted(), is(false));
+        boolean hasError = false;
+        for (NodeContainer nc : snc.getWorkflowManager().getNodeContainers()) {
+            hasError |= nc.getNodeMessage().getMessageType() == NodeMessage.Type.ERROR;
+        }
+        assertThat("Expected error message on the failing node", hasError, is(true));
+        assertWorkersStopped();
+    }
+
+    /** Canceling the execution stops all workers. */
+    @Test(timeout = 60000L)
+    public void testCancel() throws Exception {
+        final NodeID subnode = createSubnode(new MapNodeFactory(), new BlockingNodeFactory(),
+            new RunningSumNodeFactory());
+        getManager().setJobManager(subnode,
+            new StreamingNodeExecutionJobManager(KNIMEConstants.GLOBAL_THREAD_POOL, 3));
+        getManager().executeAll();
+        assertTrue("Blocking node not reached", blockingLatch.await(30, TimeUnit.SECONDS));
+        final SubNodeContainer snc = getManager().getNodeContainer(subnode, SubNodeContainer.class, true);
+        getManager().cancelExecution(snc);
+        waitWhileInExecution();
+        assertThat("Wrapped metanode must not be executed", snc.getNodeContainerState().isExecuted(), is(false));
+        assertWorkersStopped();
+    }
+
+    /** Collapses a chain of the given nodes behind the source into a wrapped metanode. */
+    private NodeID createSubnode(final AdapterNodeFactory... factories) throws Exception {
+        final WorkflowManager wfm = getManager();
+        final NodeID[] ids = new NodeID[factories.length];
+        NodeID previous = m_source;
+        for (int i = 0; i < factories.length; i++) {
+            ids[i] = wfm.addNode(factories[i]);
+            wfm.addConnection(previous, 1, ids[i], 1);
+            previous = ids[i];
+        }
+        final CollapseIntoMetaNodeResult collapse =
+            wfm.collapseIntoMetaNode(ids, new WorkflowAnnotation[0], "Streamed");
+        final NodeID subnode = collapse.getCollapsedMetanodeID();
+        wfm.convertMetaNodeToSubNode(subnode);
+        return subnode;
+    }
+
+    /** Executes the wrapped metanode with the given job manager and returns a copy of its output. */
+    private List<DataRow> executeAndGetOutput(final NodeID subnode, final NodeExecutionJobManager jobManager)
+        throws Exception {
+        final WorkflowManager wfm = getManager();
+        wfm.resetAndConfigureAll();
+        wfm.setJobManager(subnode,
+            jobManager == null ? ThreadNodeExecutionJobManagerFactory.INSTANCE.getInstance() : jobManager);
+        executeAllAndWait();
+        checkState(subnode, InternalNodeContainerState.EXECUTED);
+        final BufferedDataTable table =
+            (BufferedDataTable)wfm.getNodeContainer(subnode).getOutPort(1).getPortObject();
+        final List<DataRow> rows = new ArrayList<>();
+        for (DataRow row : table) {
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static void assertRowsEqual(final List<DataRow> expected, final List<DataRow> actual) {
+        assertThat("Unexpected row count", actual.size(), is(expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            final DataRow e = expected.get(i);
+            final DataRow a = actual.get(i);
+            assertThat("Unexpected row key at " + i, a.getKey(), is(e.getKey()));
+            for (int c = 0; c < e.getNumCells(); c++) {
+                assertThat("Unexpected cell in row " + e.getKey() + ", column " + c, a.getCell(c), is(e.getCell(c)));
+            }
+        }
+    }
+
+    /** Waits until no streaming worker thread is alive. */
+    private static void assertWorkersStopped() throws InterruptedException {
+        final long end = System.currentTimeMillis() + 10000;
+        List<String> alive;
+        do {
+            alive = new ArrayList<>();
+            for (Thread t : Thread.getAllStackTraces().keySet()) {
+                if (t.isAlive() && t.getName().startsWith(WORKER_THREAD_PREFIX)) {
+                    alive.add(t.getName());
+                }
+            }
+            if (alive.isEmpty()) {
+                return;
+            }
+            Thread.sleep(100);
+        } while (System.currentTimeMillis() < end);
+        assertThat("Streaming workers still alive: " + alive, alive.isEmpty(), is(true));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        final CountDownLatch latch = blockingLatch;
+        if (latch != null) {
+            latch.countDown();
+        }
+        super.tearDown();
+        FileUtil.deleteRecursively(m_workflowDirectory);
+    }
+
+    /** Creates {@link #ROW_COUNT} rows with an int and a double column. */
+    public static final class SourceNodeFactory extends AdapterNodeFactory {
+        /** Source node. */
+        public SourceNodeFactory() {
+            super(true);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public AdapterNodeModel createNodeModel() {
+            return new AdapterNodeModel(0, 1) {
+                @Override
+                protected PortObjectSpec[] configure(final PortObjectSpec[] inSpecs) {
+                    return new PortObjectSpec[]{createSpec()};
+                }
+
+                @Override
+                protected PortObject[] execute(final PortObject[] inObjects, final ExecutionContext exec) {
+                    final Random r = new Random(ROW_COUNT);
+                    final BufferedDataContainer c = exec.createDataContainer(createSpec());
+                    for (int i = 0; i < ROW_COUNT; i++) {
+                        c.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), new IntCell(r.nextInt(1000)),
+                            new DoubleCell(r.nextDouble())));
+                    }
+                    c.close();
+                    return new PortObject[]{c.getTable()};
+                }
+            };
+        }
+
+        private static DataTableSpec createSpec() {
+            return new DataTableSpec(new DataColumnSpecCreator("Int", IntCell.TYPE).createSpec(),
+                new DataColumnSpecCreator("Double", DoubleCell.TYPE).createSpec());
+        }
+    }
+
+    /** Base class of streamable nodes that map each row, {@link #execute} and streaming share the row function. */
+    private abstract static class RowMapNodeModel extends AdapterNodeModel {
+
+        RowMapNodeModel() {
+            super(1, 1);
+        }
+
+        /** @return the spec of the appended column */
+        abstract DataColumnSpecCreator createAppendedColumn(DataTableSpec inSpec);
+
+        /** @return the cell appended to the row, called in input order within a partition */
+        abstract DataCell map(DataRow row) throws Exception;
+
+        /** Called before the rows of a partition are mapped. */
+        void startPartition(final PartitionInfo info) {
+        }
+
+        private DataTableSpec createOutSpec(final DataTableSpec inSpec) {
+            return new DataTableSpec(inSpec, new DataTableSpec(createAppendedColumn(inSpec).createSpec()));
+        }
+
+        private static DataRow append(final DataRow row, final DataCell cell) {
+            final DataCell[] cells = new DataCell[row.getNumCells() + 1];
+            for (int i = 0; i < row.getNumCells(); i++) {
+                cells[i] = row.getCell(i);
+            }
+            cells[cells.length - 1] = cell;
+            return new DefaultRow(row.getKey(), cells);
+        }
+
+        @Override
+        protected PortObjectSpec[] configure(final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+            return new PortObjectSpec[]{createOutSpec((DataTableSpec)inSpecs[0])};
+        }
+
+        @Override
+        protected PortObject[] execute(final PortObject[] inObjects, final ExecutionContext exec) throws Exception {
+            final BufferedDataTable in = (BufferedDataTable)inObjects[0];
+            startPartition(new PartitionInfo(0, 1));
+            final BufferedDataContainer c = exec.createDataContainer(createOutSpec(in.getDataTableSpec()));
+            for (DataRow row : in) {
+                exec.checkCanceled();
+                c.addRowToTable(append(row, map(row)));
+            }
+            c.close();
+            return new PortObject[]{c.getTable()};
+        }
+
+        @Override
+        public OutputPortRole[] getOutputPortRoles() {
+            return new OutputPortRole[]{OutputPortRole.DISTRIBUTED};
+        }
+
+        @Override
+        public StreamableOperator createStreamableOperator(final PartitionInfo partitionInfo,
+            final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+            return new StreamableOperator() {
+                @Override
+                public void runFinal(final PortInput[] inputs, final PortOutput[] outputs,
+                    final ExecutionContext exec) throws Exception {
+                    startPartition(partitionInfo);
+                    final RowInput in = (RowInput)inputs[0];
+                    final RowOutput out = (RowOutput)outputs[0];
+                    DataRow row;
+                    while ((row = in.poll()) != null) {
+                        out.push(append(row, map(row)));
+                    }
+                    in.close();
+                    out.close();
+                }
+            };
+        }
+    }
+
+    /** Distributable node, multiplies the int column. */
+    public static final class MapNodeFactory extends AdapterNodeFactory {
+        /** {@inheritDoc} */
+        @Override
+        public AdapterNodeModel createNodeModel() {
+            return new RowMapNodeModel() {
+                @Override
+                DataColumnSpecCreator createAppendedColumn(final DataTableSpec inSpec) {
+                    return new DataColumnSpecCreator("Int * 3", IntCell.TYPE);
+                }
+
+                @Override
+                void startPartition(final PartitionInfo info) {
+                    PARTITIONS.add(info.getPartitionIndex());
+                }
+
+                @Override
+                DataCell map(final DataRow row) {
+                    return new IntCell(((IntValue)row.getCell(0)).getIntValue() * 3);
+                }
+
+                @Override
+                public InputPortRole[] getInputPortRoles() {
+                    return new InputPortRole[]{InputPortRole.DISTRIBUTED_STREAMABLE};
+                }
+            };
+        }
+    }
+
+    /** Streamable but not distributable node, appends the running sum of the int column, which depends on order. */
+    public static final class RunningSumNodeFactory extends AdapterNodeFactory {
+        /** {@inheritDoc} */
+        @Override
+        public AdapterNodeModel createNodeModel() {
+            return new RowMapNodeModel() {
+                private long m_sum;
+
+                @Override
+                DataColumnSpecCreator createAppendedColumn(final DataTableSpec inSpec) {
+                    return new DataColumnSpecCreator("Running sum " + inSpec.getNumColumns(), LongCell.TYPE);
+                }
+
+                @Override
+                void startPartition(final PartitionInfo info) {
+                    m_sum = 0;
+                }
+
+                @Override
+                DataCell map(final DataRow row) {
+                    m_sum += ((IntValue)row.getCell(0)).getIntValue();
+                    return new LongCell(m_sum);
+                }
+
+                @Override
+                public InputPortRole[] getInputPortRoles() {
+                    return new InputPortRole[]{InputPortRole.NONDISTRIBUTED_STREAMABLE};
+                }
+
+                @Override
+                public OutputPortRole[] getOutputPortRoles() {
+                    return new OutputPortRole[]{OutputPortRole.NONDISTRIBUTED};
+                }
+            };
+        }
+    }
+
+    /** Distributable node that fails after half of the rows. */
+    public static final class FailingNodeFactory extends AdapterNodeFactory {
+        /** {@inheritDoc} */
+        @Override
+        public AdapterNodeModel createNodeModel() {
+            return new RowMapNodeModel() {
+                @Override
+                DataColumnSpecCreator createAppendedColumn(final DataTableSpec inSpec) {
+                    return new DataColumnSpecCreator("Failing", IntCell.TYPE);
+                }
+
+                @Override
+                DataCell map(final DataRow row) {
+                    if (Integer.parseInt(row.getKey().getString().substring("Row".length())) >= ROW_COUNT / 2) {
+                        throw new IllegalStateException("Failing on purpose in row " + row.getKey());
+                    }
+                    return new IntCell(0);
+                }
+
+                @Override
+                public InputPortRole[] getInputPortRoles() {
+                    return new InputPortRole[]{InputPortRole.DISTRIBUTED_STREAMABLE};
+                }
+            };
+        }
+    }
+
+    /** Streamable node that blocks after some rows until it is canceled. */
+    public static final class BlockingNodeFactory extends AdapterNodeFactory {
+        /** {@inheritDoc} */
+        @Override
+        public AdapterNodeModel createNodeModel() {
+            return new RowMapNodeModel() {
+                private int m_count;
+
+                @Override
+                DataColumnSpecCreator createAppendedColumn(final DataTableSpec inSpec) {
+                    return new DataColumnSpecCreator("Blocking", IntCell.TYPE);
+                }
+
+                @Override
+                DataCell map(final DataRow row) throws Exception {
+                    if (++m_count == ROW_COUNT / 2) {
+                        blockingLatch.countDown();
+                        // only returns when interrupted
+                        Thread.sleep(Long.MAX_VALUE);
+                    }
+                    return new IntCell(m_count);
+                }
+
+                @Override
+                public InputPortRole[] getInputPortRoles() {
+                    return new InputPortRole[]{InputPortRole.NONDISTRIBUTED_STREAMABLE};
+                }
+
+                @Override
+                public OutputPortRole[] getOutputPortRoles() {
+                    return new OutputPortRole[]{OutputPortRole.NONDISTRIBUTED};
+                }
+            };
+        }
+    }
+}
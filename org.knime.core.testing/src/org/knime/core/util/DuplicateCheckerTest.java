@@ -51,6 +51,7 @@
 import java.util.LinkedHashSet;
 import java.util.Random;
 
+import org.junit.After;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -66,6 +67,12 @@ public class DuplicateCheckerTest {
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
 
+    /** Restores the full fingerprints. */
+    @After
+    public void resetFingerprintMask() {
+        DuplicateChecker.setFingerprintMask(-1L);
+    }
+
     @Test
     public void testNoDuplicateManyRows() throws IOException {
         long t = System.currentTimeMillis();
@@ -134,6 +141,66 @@ public void testEarlyDuplicate() throws Exception {
         checker.addKey("A");
     }
 
+    /**
+     * Distinct keys whose fingerprints collide are not reported, neither in memory nor after spilling to disk.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testCollisionsOfDistinctKeys() throws Exception {
+        // at most 255 different fingerprints
+        DuplicateChecker.setFingerprintMask(0xFF);
+        for (DuplicateChecker dc : new DuplicateChecker[]{new DuplicateChecker(), new DuplicateChecker(10, 2)}) {
+            try {
+                for (int i = 0; i < 5000; i++) {
+                    dc.addKey("Row " + i);
+                }
+                dc.checkForDuplicates();
+            } finally {
+                dc.clear();
+            }
+        }
+    }
+
+    /**
+     * Duplicates are found if their fingerprint also belongs to other keys, in memory and after spilling to disk,
+     * with the duplicate added right after the key or at the end.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testDuplicatesWithCollisions() throws Exception {
+        DuplicateChecker.setFingerprintMask(0xFF);
+        for (int duplicate : new int[]{0, 17, 2500, 4999}) {
+            for (boolean atEnd : new boolean[]{false, true}) {
+                assertDuplicateFound(new DuplicateChecker(), duplicate, atEnd);
+                assertDuplicateFound(new DuplicateChecker(10, 2), duplicate, atEnd);
+            }
+        }
+    }
+
+    private static void assertDuplicateFound(final DuplicateChecker dc, final int duplicate, final boolean atEnd)
+        throws IOException {
+        final String key = "Row " + duplicate;
+        try {
+            for (int i = 0; i < 5000; i++) {
+                dc.addKey("Row " + i);
+                if (i == duplicate && !atEnd) {
+                    dc.addKey(key);
+                }
+            }
+            if (atEnd) {
+                dc.addKey(key);
+            }
+            dc.checkForDuplicates();
+            Assert.fail("No duplicate detected for \"" + key + "\" (added at end: " + atEnd + ")");
+        } catch (DuplicateKeyException e) {
+            Assert.assertEquals(key, e.getKey());
+        } finally {
+            dc.clear();
+        }
+    }
+
     private void internalTestArbitraryStrings(final boolean isAddDuplicates, final long seed) throws IOException {
         LinkedHashSet<String> hash = new LinkedHashSet<String>();
         Random r = new Random(seed);
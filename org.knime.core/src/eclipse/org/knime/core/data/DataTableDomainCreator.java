@@ -289,6 +289,42 @@ public void updateDomain(final DataRow row) {
         }
     }
 
+    /**
+     * Merges the domain collected by another domain creator into this one, as if the rows passed to the argument were
+     * passed to this instance now. Partial domains of consecutive chunks of a table can thus be computed concurrently;
+     * merging them in chunk order gives the same domain as processing all rows with this instance. The argument must
+     * have been created for a spec with the same columns and column selections (usually with <code>initDomain</code>
+     * set to <code>false</code>) and the same maximum number of possible values.
+     *
+     * @param partial the domain creator to merge, it is not modified
+     * @throws IllegalArgumentException if the argument has a different number of columns
+     * @since 3.6
+     */
+    public void merge(final DataTableDomainCreator partial) {
+        if (partial.m_mins.length != m_mins.length) {
+            throw new IllegalArgumentException("Unequal number of columns in domain creators: " + m_mins.length
+                + " vs. " + partial.m_mins.length);
+        }
+        for (int i = 0; i < m_mins.length; i++) {
+            if (m_possVals[i] != null) {
+                if (partial.m_possVals[i] == null) {
+                    m_possVals[i] = null;
+                } else {
+                    for (DataCell c : partial.m_possVals[i]) {
+                        if (m_possVals[i].add(c) && (m_possVals[i].size() > m_maxPossibleValues)) {
+                            m_possVals[i] = null;
+                            break;
+                        }
+                    }
+                }
+            }
+            if (partial.m_mins[i] != null) {
+                updateMinMax(i, partial.m_mins[i], m_mins, m_maxs, m_comparators);
+                updateMinMax(i, partial.m_maxs[i], m_mins, m_maxs, m_comparators);
+            }
+        }
+    }
+
 
     /**
      * Updates the domain values by scanning a whole table. Note that the table's structure must match the table spec
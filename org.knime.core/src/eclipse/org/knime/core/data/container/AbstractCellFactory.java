@@ -80,6 +80,9 @@ public abstract class AbstractCellFactory implements CellFactory {
 
     private FileStoreFactory m_factory;
 
+    /** Indices of the input columns read in {@link #getCells(org.knime.core.data.DataRow)}, null if unknown. */
+    private int[] m_requiredColumns;
+
     /** Creates instance, which will produce content for the columns as
      * specified by the array argument. The calculation is done sequentially
      * (no parallel processing of input).
@@ -232,6 +235,26 @@ public DataColumnSpec[] getColumnSpecs() {
         return m_colSpecs;
     }
 
+    /** Declares the input columns accessed by {@link #getCells(org.knime.core.data.DataRow)}. If set (on all
+     * factories of a {@link ColumnRearranger}) only these columns are materialized when the input table is read,
+     * which saves the deserialization of all other columns. Cells of other columns must then not be accessed; their
+     * content is unspecified (usually a missing cell).
+     * @param columnIndices The indices of the input columns read by this factory or <code>null</code> if unknown
+     * (default, all columns are materialized).
+     * @since 3.6
+     */
+    public final void setRequiredColumns(final int... columnIndices) {
+        m_requiredColumns = columnIndices == null ? null : columnIndices.clone();
+    }
+
+    /** @return the indices of the input columns read by this factory or <code>null</code> if unknown.
+     * @see #setRequiredColumns(int...)
+     * @since 3.6
+     */
+    public final int[] getRequiredColumns() {
+        return m_requiredColumns == null ? null : m_requiredColumns.clone();
+    }
+
     /** Called after all rows have been processed (either successfully or failed).
      * Subclasses may override it to, e.g. set warning messages, release memory listeners etc.
      * @since 2.6 */
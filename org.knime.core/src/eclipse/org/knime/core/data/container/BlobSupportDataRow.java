@@ -66,8 +66,16 @@ public final class BlobSupportDataRow implements DataRow {
 
     private final RowKey m_key;
 
+    /** The cells of this row, null if the row is backed by a columnar chunk (m_chunk). */
     private final DataCell[] m_cells;
 
+    /** The chunk of a columnar buffer this row is read from, null if m_cells is set. Cells are decoded
+     * (per column) only when accessed. */
+    private final ColumnarChunk m_chunk;
+
+    /** Index of this row in m_chunk (only valid if m_chunk is not null). */
+    private final int m_indexInChunk;
+
     /**
      * @param key Row key
      * @param cells cell array.
@@ -75,6 +83,22 @@ public final class BlobSupportDataRow implements DataRow {
     public BlobSupportDataRow(final RowKey key, final DataCell[] cells) {
         m_key = key;
         m_cells = cells;
+        m_chunk = null;
+        m_indexInChunk = -1;
+    }
+
+    /**
+     * Creates a row whose cells are read lazily from a chunk of a columnar buffer.
+     *
+     * @param key Row key
+     * @param chunk The chunk providing the cells.
+     * @param indexInChunk The index of the row in the chunk.
+     */
+    BlobSupportDataRow(final RowKey key, final ColumnarChunk chunk, final int indexInChunk) {
+        m_key = key;
+        m_cells = null;
+        m_chunk = chunk;
+        m_indexInChunk = indexInChunk;
     }
 
     /**
@@ -86,12 +110,17 @@ public BlobSupportDataRow(final RowKey key, final DataCell[] cells) {
     public BlobSupportDataRow(final RowKey key, final DataRow oldRow) {
         m_key = key;
         if (oldRow instanceof BlobSupportDataRow) {
-            m_cells = ((BlobSupportDataRow)oldRow).m_cells;
+            BlobSupportDataRow blobRow = (BlobSupportDataRow)oldRow;
+            m_cells = blobRow.m_cells;
+            m_chunk = blobRow.m_chunk;
+            m_indexInChunk = blobRow.m_indexInChunk;
         } else {
             m_cells = new DataCell[oldRow.getNumCells()];
             for (int i = 0; i < m_cells.length; i++) {
                 m_cells[i] = oldRow.getCell(i);
             }
+            m_chunk = null;
+            m_indexInChunk = -1;
         }
 
     }
@@ -115,14 +144,22 @@ public BlobSupportDataRow(final RowKey key, final Iterable<DataRow> oldRows) {
         for (DataRow row : oldRows) {
             if (row instanceof BlobSupportDataRow) {
                 BlobSupportDataRow blobRow = (BlobSupportDataRow)row;
-                System.arraycopy(blobRow.m_cells, 0, m_cells, offset, blobRow.getNumCells());
-                offset += blobRow.getNumCells();
+                if (blobRow.m_cells != null) {
+                    System.arraycopy(blobRow.m_cells, 0, m_cells, offset, blobRow.getNumCells());
+                    offset += blobRow.getNumCells();
+                } else {
+                    for (int i = 0; i < blobRow.getNumCells(); i++) {
+                        m_cells[offset++] = blobRow.getRawCell(i);
+                    }
+                }
             } else {
                 for (DataCell cell : row) {
                     m_cells[offset++] = cell;
                 }
             }
         }
+        m_chunk = null;
+        m_indexInChunk = -1;
     }
 
     /**
@@ -141,7 +178,7 @@ public BlobSupportDataRow(final String id, final DataRow oldRow) {
      */
     @Override
     public DataCell getCell(final int index) {
-        DataCell c = m_cells[index];
+        DataCell c = getRawCell(index);
         if (c instanceof BlobWrapperDataCell) {
             return ((BlobWrapperDataCell)c).getCell();
         }
@@ -155,6 +192,9 @@ public DataCell getCell(final int index) {
      * @return Raw cell.
      */
     public DataCell getRawCell(final int index) {
+        if (m_cells == null) {
+            return m_chunk.getCell(m_indexInChunk, index);
+        }
         return m_cells[index];
     }
 
@@ -171,6 +211,9 @@ public RowKey getKey() {
      */
     @Override
     public int getNumCells() {
+        if (m_cells == null) {
+            return m_chunk.getNumColumns();
+        }
         return m_cells.length;
     }
 
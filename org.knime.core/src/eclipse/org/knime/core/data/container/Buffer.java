@@ -73,11 +73,15 @@
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
 import java.util.zip.Deflater;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
@@ -100,6 +104,9 @@
 import org.knime.core.data.collection.CollectionDataValue;
 import org.knime.core.data.container.BlobDataCell.BlobAddress;
 import org.knime.core.data.container.BufferFromFileIteratorVersion20.DataCellStreamReader;
+import org.knime.core.data.container.DataContainer.TableStorageFormat;
+import org.knime.core.data.container.compression.TableCompressionCodec;
+import org.knime.core.data.container.compression.TableCompressionCodecRegistry;
 import org.knime.core.data.filestore.FileStore;
 import org.knime.core.data.filestore.FileStoreCell;
 import org.knime.core.data.filestore.FileStoreUtil;
@@ -137,15 +144,6 @@
  */
 class Buffer implements KNIMEStreamConstants {
 
-    /**
-     * Static field to enable/disable the usage of a GZipInput/OutpuStream when writing the binary data. This option
-     * defaults to {@value DataContainer#DEF_GZIP_COMPRESSION}.
-     *
-     * Note: Changing this parameter makes it impossible to read workflows written previously. It's only used for
-     * internal testing purposes.
-     */
-    private static final boolean IS_USE_GZIP;
-
     /** The node logger for this class. */
     private static final NodeLogger LOGGER = NodeLogger.getLogger(Buffer.class);
 
@@ -164,6 +162,10 @@ class Buffer implements KNIMEStreamConstants {
     private static final Map<Class<? extends BlobDataCell>, Boolean> BLOB_COMPRESS_MAP =
             new HashMap<Class<? extends BlobDataCell>, Boolean>();
 
+    /** Executor encoding the rows instead of {@link DataContainer#TABLE_WRITE_EXECUTOR} if not null, an empty
+     * optional if the rows are to be encoded by the writing thread, see {@link #setRowEncoderExecutor(Optional)}. */
+    private static volatile Optional<ExecutorService> rowEncoderExecutorOverride;
+
     /** Name of the zip entry containing the data. */
     static final String ZIP_ENTRY_DATA = "data.bin";
 
@@ -223,6 +225,11 @@ class Buffer implements KNIMEStreamConstants {
      */
     private static final String CFG_COMPRESSION = "container.compression";
 
+    /** Config entry for the storage format (row or columnar), see {@link TableStorageFormat}.
+     * @since 3.6
+     */
+    private static final String CFG_STORAGE_FORMAT = "container.storage.format";
+
     /**
      * Config entry: Sub element in config that keeps the list of cell class information (used to be a plain array).
      */
@@ -302,31 +309,10 @@ public void run() {
         } catch (Exception e) {
             LOGGER.warn("Unable to add shutdown hook to delete temp files", e);
         }
-        // prefer this block over Boolean.getBoolean(...) to cover typos
-        // on command line (warn on console)
-        String isUseGzipString = System.getProperty(KNIMEConstants.PROPERTY_TABLE_GZIP_COMPRESSION);
-        boolean debugLog = true;
-        if (isUseGzipString == null) {
-            isUseGzipString = Boolean.toString(DataContainer.DEF_GZIP_COMPRESSION);
-            debugLog = false;
-        }
-        if ("true".equals(isUseGzipString)) {
-            IS_USE_GZIP = true;
-        } else if ("false".equals(isUseGzipString)) {
-            IS_USE_GZIP = false;
-        } else {
-            debugLog = false;
-            LOGGER.warn("Unable to read property " + KNIMEConstants.PROPERTY_TABLE_GZIP_COMPRESSION + " (\""
-                    + isUseGzipString + "\"); defaulting to " + DataContainer.DEF_GZIP_COMPRESSION);
-            IS_USE_GZIP = DataContainer.DEF_GZIP_COMPRESSION;
-        }
         ZLIB_SUPPORTS_LEVEL_SWITCH_AP8083 = isZLIBSupportsLevelSwitchAP8083();
         if (!ZLIB_SUPPORTS_LEVEL_SWITCH_AP8083) {
             LOGGER.debug("Zlib library doesn't support compression level switch");
         }
-        if (debugLog) {
-            LOGGER.debug("Setting table stream compression to " + IS_USE_GZIP);
-        }
     }
 
     /**
@@ -376,16 +362,19 @@ private static boolean isUseCompressionForBlobs(final CellClassInfo cellClassInf
     }
 
     /** Compression on the binary (main) file. */
-    enum CompressionFormat {
-        Gzip,
-        None;
-    }
+    private TableCompressionCodec m_compressionCodec;
 
-    private CompressionFormat m_compressionFormat;
+    /** Layout of the binary (main) file. */
+    private TableStorageFormat m_storageFormat;
 
     /** the file to write to. */
     private File m_binFile;
 
+    /** Non-null if the binary data is read in place from a stored entry in m_binFile (a zip file in the workflow),
+     * in which case the file is not owned (and not deleted) by this buffer. See {@link #readBinFileInPlace(
+     * StoredZipEntry)}. */
+    private StoredZipEntry m_inPlaceEntry;
+
     /** The directory where blob cells are stored or null if none available. */
     private File m_blobDir;
 
@@ -428,6 +417,14 @@ enum CompressionFormat {
      */
     private DCObjectOutputVersion2 m_outStream;
 
+    /** The stream that writes to the file if the storage format is {@link TableStorageFormat#COLUMNAR} (in which
+     * case m_outStream is null). */
+    private ColumnarChunkWriter m_columnarOutStream;
+
+    /** Encodes the rows written to m_outStream on the {@link DataContainer#TABLE_WRITE_EXECUTOR}, null if rows
+     * are written directly (or if the storage format is columnar). */
+    private RowBlockEncoder m_rowBlockEncoder;
+
     /** maximum number of rows that are in memory. */
     private int m_maxRowsInMem;
 
@@ -444,9 +441,9 @@ enum CompressionFormat {
 
     /**
      * Map for all DataCells' type, which have been added to this buffer, they will be separately written to to the
-     * meta.xml in a zip file.
+     * meta.xml in a zip file. Concurrent as rows may be encoded by multiple threads, see {@link RowBlockEncoder}.
      */
-    private HashMap<CellClassInfo, Byte> m_typeShortCuts;
+    private Map<CellClassInfo, Byte> m_typeShortCuts;
 
     /**
      * Inverse map of m_typeShortCuts - it stores to each shortcut (like 'A', 'B', ...) the corresponding type. This
@@ -511,7 +508,8 @@ enum CompressionFormat {
         m_localRepository = localRep;
         m_fileStoreHandler = fileStoreHandler;
         m_fileStoreHandlerRepository = fileStoreHandler.getFileStoreHandlerRepository();
-        m_compressionFormat = IS_USE_GZIP ? CompressionFormat.Gzip : CompressionFormat.None;
+        m_compressionCodec = TableCompressionCodecRegistry.getInstance().getDefaultCodec();
+        m_storageFormat = DataContainer.TABLE_STORAGE_FORMAT;
         BufferTracker.getInstance().bufferCreated(this);
     }
 
@@ -588,9 +586,91 @@ final File getBinFile() {
         return m_binFile;
     }
 
-    /** @return Whether stream is zipped. */
-    final CompressionFormat getBinFileCompressionFormat() {
-        return m_compressionFormat;
+    /**
+     * Opens a new (unbuffered) stream on the binary data. This is either the content of the entire binary file or, if
+     * read in place, the content of the zip entry.
+     *
+     * @return a new stream, to be closed by the caller.
+     * @throws IOException If the file can't be opened.
+     */
+    final synchronized InputStream openBinFileInputStream() throws IOException {
+        if (m_inPlaceEntry != null) {
+            return m_inPlaceEntry.openStream();
+        }
+        return new FileInputStream(m_binFile);
+    }
+
+    /**
+     * Lets this (reading) buffer read its binary data from a stored entry in a zip file instead of a temp file. Called
+     * by the {@link CopyOnAccessTask} right after construction.
+     *
+     * @param entry The entry in the zip file that was passed as binary file to the constructor.
+     */
+    final synchronized void readBinFileInPlace(final StoredZipEntry entry) {
+        assert entry.getFile().equals(m_binFile);
+        m_inPlaceEntry = entry;
+    }
+
+    /** @return true if the binary data is read in place from the zip file, see {@link #readBinFileInPlace(
+     * StoredZipEntry)}. */
+    final synchronized boolean isReadingInPlace() {
+        return m_inPlaceEntry != null;
+    }
+
+    /**
+     * Copies the binary data to a temp file if it is currently read in place from the zip file. Called when the zip
+     * file is about to be deleted or overwritten (node is marked dirty, see {@link ContainerTable#ensureCopiedToTemp()}).
+     * Iterators that are already open continue to read from the zip file.
+     *
+     * @throws IOException If copying fails.
+     */
+    final synchronized void copyInPlaceBinFileToTemp() throws IOException {
+        if (m_inPlaceEntry == null) {
+            return;
+        }
+        File tempFile = DataContainer.createTempFile();
+        try (InputStream in = m_inPlaceEntry.openStream();
+                OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+            FileUtil.copy(in, out);
+        }
+        LOGGER.debugWithFormat("Copied data of table in \"%s\" to temp file (%d bytes)",
+            m_inPlaceEntry.getFile().getAbsolutePath(), m_inPlaceEntry.getLength());
+        m_binFile = tempFile;
+        m_inPlaceEntry = null;
+    }
+
+    /** @return The codec the binary file is compressed with. */
+    final TableCompressionCodec getBinFileCompressionCodec() {
+        return m_compressionCodec;
+    }
+
+    /**
+     * Sets the compression of the binary file. Must be called before any row is written.
+     *
+     * @param codec The codec, not null.
+     */
+    final synchronized void setTableCompressionCodec(final TableCompressionCodec codec) {
+        if (isOutFileInitialized() || m_spec != null) {
+            throw new IllegalStateException("Can't change compression of a buffer that has been written");
+        }
+        m_compressionCodec = codec;
+    }
+
+    /** @return The layout of the binary file. */
+    final TableStorageFormat getStorageFormat() {
+        return m_storageFormat;
+    }
+
+    /**
+     * Sets the layout of the binary file. Must be called before any row is written.
+     *
+     * @param storageFormat The format, not null.
+     */
+    final synchronized void setTableStorageFormat(final TableStorageFormat storageFormat) {
+        if (isOutFileInitialized() || m_spec != null) {
+            throw new IllegalStateException("Can't change storage format of a buffer that has been written");
+        }
+        m_storageFormat = storageFormat;
     }
 
     /**
@@ -636,7 +716,7 @@ synchronized void addRow(final DataRow r, final boolean isCopyOfExisting, final
                 }
             } else {
                 flushBuffer();
-                writeRow(row, m_outStream);
+                writeRowToOutFile(row);
             }
         } catch (Exception e) {
             if (!(e instanceof IOException)) {
@@ -667,20 +747,20 @@ synchronized void addRow(final DataRow r, final boolean isCopyOfExisting, final
     final int writeAllRowsFromListToFile() throws IOException {
         assert Thread.holdsLock(this);
         ensureTempFileExists();
-        if (m_outStream == null) {
+        if (!isOutFileInitialized()) {
             if (!m_binFile.getParentFile().isDirectory()) {
                 throw new FileNotFoundException("Directory " + m_binFile.getParentFile() + " for buffer " + m_bufferID
                     + " does not exist");
             }
 
-            m_outStream = initOutFile(new BufferedOutputStream(new FileOutputStream(m_binFile)));
+            initOutFile(new BufferedOutputStream(new FileOutputStream(m_binFile)));
             Buffer.onFileCreated(m_binFile);
         }
 
         if (m_list != null) {
             int result = m_list.size();
             for (BlobSupportDataRow rowInList : m_list) {
-                writeRow(rowInList, m_outStream);
+                writeRowToOutFile(rowInList);
             }
             return result;
         } else {
@@ -952,7 +1032,7 @@ synchronized void close(final DataTableSpec spec) {
     void closeInternal() {
         assert Thread.holdsLock(this);
         // everything is in the list, i.e. in memory
-        if (m_outStream == null) {
+        if (!isOutFileInitialized()) {
             // disallow modification
             List<BlobSupportDataRow> newList = Collections.unmodifiableList(m_list);
             m_list = newList;
@@ -962,7 +1042,7 @@ void closeInternal() {
         } else {
             try {
                 flushBuffer();
-                m_shortCutsLookup = closeFile(m_outStream);
+                m_shortCutsLookup = closeOutFile();
                 m_typeShortCuts = null; // garbage
                 m_list = null;
                 double sizeInMB = m_binFile.length() / (double)(1 << 20);
@@ -1018,13 +1098,23 @@ private void unregisterMemoryAlertListener() {
     /**
      * Called when the buffer is closed or when the in-memory content (i.e. using m_list) is written to a file.
      *
-     * @param outStream The output stream to close (to add meta-data, e.g.).
      * @return The lookup table, will be assigned to m_shortCutsLookup when called from {@link #close(DataTableSpec)}.
      * @throws IOException If that fails.
      */
-    private CellClassInfo[] closeFile(final DCObjectOutputVersion2 outStream) throws IOException {
+    private CellClassInfo[] closeOutFile() throws IOException {
+        if (m_columnarOutStream != null) {
+            // pending chunk may contain yet unseen cell types
+            m_columnarOutStream.flushChunk();
+            CellClassInfo[] shortCutsLookup = createShortCutArray();
+            m_columnarOutStream.close();
+            return shortCutsLookup;
+        }
+        if (m_rowBlockEncoder != null) {
+            m_rowBlockEncoder.flush();
+            m_rowBlockEncoder = null;
+        }
         CellClassInfo[] shortCutsLookup = createShortCutArray();
-        outStream.close();
+        m_outStream.close();
         return shortCutsLookup;
     }
 
@@ -1045,7 +1135,8 @@ private void writeMetaToFile(final OutputStream out, final CellClassInfo[] short
         } else {
             subSettings.addLong(CFG_SIZE_L, size());
         }
-        subSettings.addString(CFG_COMPRESSION, m_compressionFormat.name());
+        subSettings.addString(CFG_COMPRESSION, m_compressionCodec.getName());
+        subSettings.addString(CFG_STORAGE_FORMAT, m_storageFormat.name());
         subSettings.addBoolean(CFG_CONTAINS_BLOBS, m_containsBlobs);
         // added between version 8 and 9 - no increment of version number
         String fileStoresUUID = null;
@@ -1097,21 +1188,28 @@ private void readMetaFromFile(final InputStream metaIn, final File fileStoreDir)
             if (m_size < 0) {
                 throw new IOException("Table size must not be < 0: " + m_size);
             }
-            final CompressionFormat cF;
+            final TableCompressionCodec codec;
             if (m_version < 3) { // stream was not zipped in KNIME 1.1.x
-                cF = CompressionFormat.None;
+                codec = TableCompressionCodecRegistry.NONE;
             } else if (m_version >= 8) { // added sometime between format 8 and 9 - no increment of version number
-                String compFormat = subSettings.getString(CFG_COMPRESSION, CompressionFormat.Gzip.name());
-                try {
-                    cF = CompressionFormat.valueOf(compFormat);
-                } catch (Exception e) {
-                    throw new InvalidSettingsException(String.format("Unable to parse \"%s\" property (\"%s\"): %s",
-                            CFG_COMPRESSION, compFormat, e.getMessage()), e);
-                }
+                // codecs other than "Gzip" and "None" added in 3.6 - no increment of version number
+                String compFormat =
+                    subSettings.getString(CFG_COMPRESSION, TableCompressionCodecRegistry.GZIP.getName());
+                codec = TableCompressionCodecRegistry.getInstance().getCodec(compFormat).orElseThrow(
+                    () -> new InvalidSettingsException(String.format("Unable to parse \"%s\" property (\"%s\"): "
+                        + "no such compression codec (missing extension?)", CFG_COMPRESSION, compFormat)));
             } else {
-                cF = CompressionFormat.Gzip;
+                codec = TableCompressionCodecRegistry.GZIP;
+            }
+            m_compressionCodec = codec;
+            // added in 3.6 - no increment of version number as row format tables are unchanged
+            String storageFormat = subSettings.getString(CFG_STORAGE_FORMAT, TableStorageFormat.ROW.name());
+            try {
+                m_storageFormat = TableStorageFormat.valueOf(storageFormat);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidSettingsException(String.format("Unable to parse \"%s\" property (\"%s\"): %s",
+                    CFG_STORAGE_FORMAT, storageFormat, e.getMessage()), e);
             }
-            m_compressionFormat = cF;
             // added sometime between format 8 and 9
             m_containsBlobs = false;
             if (m_version >= 4) { // no blobs in version 1.1.x
@@ -1223,7 +1321,7 @@ private static CellClassInfo[] readCellClassInfoArrayFromMetaVersion2(final Node
     private CellClassInfo[] createShortCutArray() {
         // unreported bug fix: NPE when the table only contains missing values.
         if (m_typeShortCuts == null) {
-            m_typeShortCuts = new HashMap<CellClassInfo, Byte>();
+            m_typeShortCuts = new ConcurrentHashMap<CellClassInfo, Byte>();
         }
         m_shortCutsLookup = new CellClassInfo[m_typeShortCuts.size()];
         for (Map.Entry<CellClassInfo, Byte> e : m_typeShortCuts.entrySet()) {
@@ -1323,6 +1421,40 @@ final Map<Integer, ContainerTable> getLocalRepository() {
         return m_localRepository;
     }
 
+    /**
+     * Writes a row to the output file, either using the row or the columnar layout.
+     *
+     * @throws IOException If an IO error occurs while writing to the file.
+     */
+    private void writeRowToOutFile(final BlobSupportDataRow row) throws IOException {
+        if (m_columnarOutStream != null) {
+            m_columnarOutStream.addRow(row);
+        } else if (m_rowBlockEncoder != null) {
+            m_rowBlockEncoder.addRow(row);
+        } else {
+            writeRow(row, m_outStream);
+        }
+    }
+
+    /**
+     * Serializes rows into a new byte array stream, called from the {@link RowBlockEncoder}, possibly concurrently.
+     * The result is what {@link #writeRow(BlobSupportDataRow, DCObjectOutputVersion2)} writes to the (uncompressed)
+     * output file for these rows.
+     *
+     * @param rows the rows to encode
+     * @return the encoded rows
+     * @throws IOException if a cell cannot be serialized
+     */
+    ByteArrayOutputStream encodeRows(final List<BlobSupportDataRow> rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * rows.size());
+        DCObjectOutputVersion2 outStream = new DCObjectOutputVersion2(bytes, this);
+        for (BlobSupportDataRow row : rows) {
+            writeRow(row, outStream);
+        }
+        outStream.flush();
+        return bytes;
+    }
+
     /**
      * Serializes a row to the output stream. This method is called from <code>addRow(DataRow)</code>.
      *
@@ -1422,17 +1554,22 @@ void writeDataCell(final DataCell cell, final DCObjectOutputVersion2 outStream)
      */
     private DataCellSerializer<DataCell> getSerializerForDataCell(final CellClassInfo cellClass) throws IOException {
         if (m_typeShortCuts == null) {
-            m_typeShortCuts = new HashMap<CellClassInfo, Byte>();
+            m_typeShortCuts = new ConcurrentHashMap<CellClassInfo, Byte>();
         }
         @SuppressWarnings("unchecked")
         DataCellSerializer<DataCell> serializer = (DataCellSerializer<DataCell>)cellClass.getSerializer();
         if (!m_typeShortCuts.containsKey(cellClass)) {
-            int size = m_typeShortCuts.size();
-            if (size + BYTE_TYPE_START > Byte.MAX_VALUE) {
-                throw new IOException("Too many different cell implementations");
+            // rows may be encoded concurrently (see RowBlockEncoder), identifiers must be assigned once
+            synchronized (m_typeShortCuts) {
+                if (!m_typeShortCuts.containsKey(cellClass)) {
+                    int size = m_typeShortCuts.size();
+                    if (size + BYTE_TYPE_START > Byte.MAX_VALUE) {
+                        throw new IOException("Too many different cell implementations");
+                    }
+                    Byte identifier = (byte)(size + BYTE_TYPE_START);
+                    m_typeShortCuts.put(cellClass, identifier);
+                }
             }
-            Byte identifier = (byte)(size + BYTE_TYPE_START);
-            m_typeShortCuts.put(cellClass, identifier);
         }
         return serializer;
     }
@@ -1543,27 +1680,42 @@ CellClassInfo getTypeForChar(final byte identifier) throws IOException {
         return m_shortCutsLookup[shortCutIndex];
     }
 
+    /** @return true if the output file (stream) has been created (also true if the stream was closed already). */
+    private boolean isOutFileInitialized() {
+        return m_outStream != null || m_columnarOutStream != null;
+    }
+
     /**
-     * Creates short cut array and wraps the argument stream in a {@link DCObjectOutputVersion2}.
+     * Wraps the argument stream in a {@link DCObjectOutputVersion2} (or a {@link ColumnarChunkWriter}, depending on
+     * the storage format) and assigns it to the corresponding field.
      */
-    private DCObjectOutputVersion2 initOutFile(final OutputStream outStream) throws IOException {
-        OutputStream wrap;
-        switch (m_compressionFormat) {
-            case Gzip:
-                wrap = new GZIPOutputStream(outStream);
-                // buffering the input stream is important as the blockable
-                // stream, which will be put on top of it, reads bytes individually
-                // (had a table, on which a single read-scan took ~6min without
-                // and ~30s with buffering)
-                wrap = new BufferedOutputStream(wrap);
-                break;
-            case None:
-                wrap = outStream;
-                break;
-            default:
-                throw new IOException("Unsupported compression format: " + m_compressionFormat);
+    private void initOutFile(final OutputStream outStream) throws IOException {
+        OutputStream wrap = m_compressionCodec.createOutputStream(outStream);
+        if (m_storageFormat == TableStorageFormat.COLUMNAR) {
+            m_columnarOutStream = new ColumnarChunkWriter(wrap, this);
+        } else {
+            m_outStream = new DCObjectOutputVersion2(wrap, this);
+            final Optional<ExecutorService> override = rowEncoderExecutorOverride;
+            final ExecutorService executor =
+                override != null ? override.orElse(null) : DataContainer.TABLE_WRITE_EXECUTOR;
+            if (executor != null) {
+                if (m_typeShortCuts == null) {
+                    // created here so that encoding threads never need to create it
+                    m_typeShortCuts = new ConcurrentHashMap<CellClassInfo, Byte>();
+                }
+                m_rowBlockEncoder = new RowBlockEncoder(this, wrap, executor, DataContainer.TABLE_WRITE_THREADS);
+            }
         }
-        return new DCObjectOutputVersion2(wrap, this);
+    }
+
+    /**
+     * Used for testing only. Sets the executor that encodes the rows of buffers in row format created afterwards.
+     *
+     * @param executor the executor, an empty optional to encode the rows on the writing thread or null to use the
+     *            {@link DataContainer#TABLE_WRITE_EXECUTOR}
+     */
+    static void setRowEncoderExecutor(final Optional<ExecutorService> executor) {
+        rowEncoderExecutorOverride = executor;
     }
 
     private void ensureBlobDirExists() throws IOException {
@@ -1601,6 +1753,9 @@ static File createBlobDirNameForTemp(final File tempFile) {
 
     /** @return size of m_binFile in bytes, -1 if not set. Only for debugging/test purposes. */
     long getBufferFileSize() {
+        if (m_inPlaceEntry != null) {
+            return m_inPlaceEntry.getLength();
+        }
         if (m_binFile != null) {
             return m_binFile.length();
         }
@@ -1686,35 +1841,69 @@ synchronized CloseableRowIterator iterator() {
                 m_backIntoMemoryIterator = iterator();
                 // we never store more than 2^31 rows in memory, therefore it's safe to cast to int
                 m_list = new ArrayList<BlobSupportDataRow>((int) size());
-                return new FromListIterator();
+                return new FromListIterator(0, size());
             }
-            FromFileIterator f;
-            try {
-                LOGGER.debug("Opening input stream on file \"" + m_binFile.getAbsolutePath() + "\", "
-                        + m_nrOpenInputStreams + " open streams");
+            return createFromFileIterator(null);
+        } else {
+            return new FromListIterator(0, size());
+        }
+    }
 
-                if (getReadVersion() <= 5) { // 2.0 tech preview and before
-                    f = new BufferFromFileIteratorVersion1x(this);
-                } else {
-                    f = new BufferFromFileIteratorVersion20(this);
-                }
-                m_nrOpenInputStreams.incrementAndGet();
-                synchronized (m_openIteratorSet) {
-                    m_openIteratorSet.put(f, DUMMY);
-                }
-            } catch (IOException ioe) {
-                StringBuilder b = new StringBuilder("Cannot read file \"");
-                b.append(m_binFile != null ? m_binFile.getName() : "<unknown>");
-                b.append("\"");
-                checkAndReportOpenFiles(ioe);
-                throw new RuntimeException(b.toString(), ioe);
-            }
-            return f;
+    /**
+     * Get a new <code>RowIterator</code>, traversing the rows and materializing the columns as specified by the
+     * argument filter. Different to {@link #iterator()} this method never triggers the content to be read back into
+     * memory as the iteration is usually partial.
+     *
+     * @param filter The filter, not null.
+     * @return a new Iterator over the filtered rows.
+     * @see org.knime.core.node.BufferedDataTable#filter(TableFilter)
+     */
+    synchronized CloseableRowIterator iteratorWithFilter(final TableFilter filter) {
+        if (usesOutFile()) {
+            return createFromFileIterator(filter);
         } else {
-            return new FromListIterator();
+            // cells are in memory, no point in filtering columns
+            final long toIndex = filter.getToRowIndex() == Long.MAX_VALUE ? size() : filter.getToRowIndex() + 1;
+            return new FromListIterator(filter.getFromRowIndex(), Math.min(size(), toIndex));
         }
     }
 
+    /**
+     * Opens a new file iterator and registers it in the set of open iterators.
+     *
+     * @param filter The filter to apply or null to read the entire table.
+     * @return The new iterator.
+     */
+    private CloseableRowIterator createFromFileIterator(final TableFilter filter) {
+        FromFileIterator f;
+        try {
+            LOGGER.debug("Opening input stream on file \"" + m_binFile.getAbsolutePath() + "\", "
+                    + m_nrOpenInputStreams + " open streams");
+
+            if (getReadVersion() <= 5) { // 2.0 tech preview and before
+                f = new BufferFromFileIteratorVersion1x(this);
+            } else if (m_storageFormat == TableStorageFormat.COLUMNAR) {
+                f = new BufferFromFileIteratorColumnar(this, filter);
+            } else {
+                f = new BufferFromFileIteratorVersion20(this, filter);
+            }
+            m_nrOpenInputStreams.incrementAndGet();
+            synchronized (m_openIteratorSet) {
+                m_openIteratorSet.put(f, DUMMY);
+            }
+        } catch (IOException ioe) {
+            StringBuilder b = new StringBuilder("Cannot read file \"");
+            b.append(m_binFile != null ? m_binFile.getName() : "<unknown>");
+            b.append("\"");
+            checkAndReportOpenFiles(ioe);
+            throw new RuntimeException(b.toString(), ioe);
+        }
+        if (filter != null && filter.isFilterRows() && f instanceof BufferFromFileIteratorVersion1x) {
+            // legacy format, can't skip rows natively
+            return new FilterDelegateRowIterator(f, filter);
+        }
+        return f;
+    }
 
     private static List<OutputStream> DEBUG_STREAMS = new ArrayList<>();
 
@@ -1822,18 +2011,21 @@ synchronized void addToZipFile(final ZipOutputStream zipOut, final ExecutionMoni
         if (m_spec == null) {
             throw new IOException("Can't save an open Buffer.");
         }
-        // binary data is already deflated
-        if (ZLIB_SUPPORTS_LEVEL_SWITCH_AP8083) {
+        // binary data is already compressed (unless the codec doesn't compress)
+        final boolean isSwitchLevel = ZLIB_SUPPORTS_LEVEL_SWITCH_AP8083 && m_compressionCodec.isCompressing();
+        if (isSwitchLevel) {
             zipOut.setLevel(Deflater.NO_COMPRESSION);
         }
-        zipOut.putNextEntry(new ZipEntry(ZIP_ENTRY_DATA));
         CellClassInfo[] shortCutsLookup;
         if (!usesOutFile() || m_version < IVERSION) {
+            zipOut.putNextEntry(new ZipEntry(ZIP_ENTRY_DATA));
             // need to use new buffer since we otherwise write properties
             // of this buffer, which prevents it from further reading (version
             // conflict) - see bug #1364
             Buffer copy = createLocalCloneForWriting();
-            copy.m_outStream = copy.initOutFile(new NonClosableOutputStream.Zip(zipOut));
+            copy.m_storageFormat = m_storageFormat;
+            copy.m_compressionCodec = m_compressionCodec;
+            copy.initOutFile(new NonClosableOutputStream.Zip(zipOut));
             int count = 1;
             for (RowIterator it = iterator(); it.hasNext();) {
                 BlobSupportDataRow row = (BlobSupportDataRow)it.next();
@@ -1843,7 +2035,7 @@ synchronized void addToZipFile(final ZipOutputStream zipOut, final ExecutionMoni
                 copy.addRow(row, m_version < IVERSION, false);
                 count++;
             }
-            shortCutsLookup = copy.closeFile(copy.m_outStream);
+            shortCutsLookup = copy.closeOutFile();
             // bug fix #1631 ... the memory policy is not properly preserved
             // in this if-statement
             if (usesOutFile()) {
@@ -1865,15 +2057,22 @@ synchronized void addToZipFile(final ZipOutputStream zipOut, final ExecutionMoni
                 addToZip(ZIP_ENTRY_FILESTORES, zipOut, getOwnFileStoreCellsDirectory());
             }
             zipOut.closeEntry();
-            if (ZLIB_SUPPORTS_LEVEL_SWITCH_AP8083) {
+            if (isSwitchLevel) {
                 zipOut.setLevel(Deflater.DEFAULT_COMPRESSION);
             }
             zipOut.putNextEntry(new ZipEntry(ZIP_ENTRY_META));
             copy.writeMetaToFile(new NonClosableOutputStream.Zip(zipOut), shortCutsLookup);
         } else {
+            if (m_compressionCodec.isCompressing()) {
+                // write as stored entry so that it can be read in place when the workflow is loaded (the data is
+                // compressed already), requires crc and size upfront
+                zipOut.putNextEntry(createStoredDataEntry());
+            } else {
+                zipOut.putNextEntry(new ZipEntry(ZIP_ENTRY_DATA));
+            }
             // no need for BufferedInputStream here as the copy method
             // does the buffering itself
-            try (InputStream is = new FileInputStream(m_binFile)) {
+            try (InputStream is = openBinFileInputStream()) {
                 FileUtil.copy(is, zipOut);
             }
             shortCutsLookup = m_shortCutsLookup;
@@ -1884,7 +2083,7 @@ synchronized void addToZipFile(final ZipOutputStream zipOut, final ExecutionMoni
                 addToZip(ZIP_ENTRY_FILESTORES, zipOut, getOwnFileStoreCellsDirectory());
             }
             zipOut.closeEntry();
-            if (ZLIB_SUPPORTS_LEVEL_SWITCH_AP8083) {
+            if (isSwitchLevel) {
                 zipOut.setLevel(Deflater.DEFAULT_COMPRESSION);
             }
             zipOut.putNextEntry(new ZipEntry(ZIP_ENTRY_META));
@@ -1892,6 +2091,27 @@ synchronized void addToZipFile(final ZipOutputStream zipOut, final ExecutionMoni
         }
     }
 
+    /** Creates the zip entry for the binary file, using {@link ZipEntry#STORED}. Reads the file once to
+     * compute the checksum. */
+    private ZipEntry createStoredDataEntry() throws IOException {
+        CRC32 crc = new CRC32();
+        long size = 0L;
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream is = openBinFileInputStream()) {
+            int read;
+            while ((read = is.read(buffer)) >= 0) {
+                crc.update(buffer, 0, read);
+                size += read;
+            }
+        }
+        ZipEntry entry = new ZipEntry(ZIP_ENTRY_DATA);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(size);
+        entry.setCompressedSize(size);
+        entry.setCrc(crc.getValue());
+        return entry;
+    }
+
     /**
      * Adds recursively the content of the directory <code>dir</code> to a zip output stream, prefixed with
      * <code>zipEntry</code>.
@@ -1973,7 +2193,12 @@ synchronized void clear() {
                 }
                 m_openIteratorSet.clear();
             }
-            if (m_blobDir != null) {
+            if (m_inPlaceEntry != null) {
+                // the zip file belongs to the workflow
+                if (m_blobDir != null) {
+                    DeleteInBackgroundThread.delete(m_blobDir);
+                }
+            } else if (m_blobDir != null) {
                 DeleteInBackgroundThread.delete(m_binFile, m_blobDir);
             } else {
                 DeleteInBackgroundThread.delete(m_binFile);
@@ -1986,6 +2211,7 @@ synchronized void clear() {
             m_blobLRUCache.clear();
         }
         m_binFile = null;
+        m_inPlaceEntry = null;
         m_blobDir = null;
     }
 
@@ -2090,18 +2316,29 @@ abstract static class FromFileIterator extends CloseableRowIterator implements K
      * java.util.Iterator as the list may be simultaneously modified while reading (in case the content is fetched from
      * disk and restored in memory). This object is used when all rows fit in memory (no file).
      */
-    private class FromListIterator extends CloseableRowIterator {
+    private class FromListIterator extends CloseableRowIterator implements SkippableRowIterator {
 
         // do not use iterator here, see inner class comment
-        private int m_nextIndex = 0;
+        private int m_nextIndex;
+        private final int m_endIndex;
         private final List<BlobSupportDataRow> m_listReference = m_list;
 
+        /**
+         * @param fromIndex index of the first row to return
+         * @param endIndex index after the last row to return, at most {@link #size()}
+         */
+        FromListIterator(final long fromIndex, final long endIndex) {
+            // we never store more than 2^31 rows in memory, therefore it's safe to cast to int
+            m_endIndex = (int)endIndex;
+            m_nextIndex = (int)Math.min(fromIndex, endIndex);
+        }
+
         /**
          * {@inheritDoc}
          */
         @Override
         public boolean hasNext() {
-            return m_nextIndex < size();
+            return m_nextIndex < m_endIndex;
         }
 
         /**
@@ -2119,32 +2356,39 @@ public DataRow next() {
             Object semaphore = backIntoMemoryIterator != null ? backIntoMemoryIterator : FromListIterator.this;
             synchronized (semaphore) {
                 // need to synchronize access to the list as the list is
-                // potentially modified by the backIntoMemoryIterator
-                if (m_nextIndex < m_listReference.size()) {
-                    return m_listReference.get(m_nextIndex++);
-                }
-                if (backIntoMemoryIterator == null) {
-                    throw new InternalError("DataRow list contains fewer elements than buffer ("
-                            + m_listReference.size() + " vs. " + size() + ")");
-                }
-                BlobSupportDataRow next = (BlobSupportDataRow)m_backIntoMemoryIterator.next();
-                if (next == null) {
-                    throw new InternalError("Unable to restore data row from disk");
-                }
-                m_listReference.add(next);
-                if (++m_nextIndex >= size()) {
-                    assert !m_backIntoMemoryIterator.hasNext() : "File iterator returns more rows than buffer contains";
-                    m_backIntoMemoryIterator = null;
-                    onAllRowsReadBackIntoMemory();
+                // potentially modified by the backIntoMemoryIterator;
+                // the loop restores rows up to the requested one (in case leading rows were filtered)
+                while (m_nextIndex >= m_listReference.size()) {
+                    if (backIntoMemoryIterator == null) {
+                        throw new InternalError("DataRow list contains fewer elements than buffer ("
+                                + m_listReference.size() + " vs. " + size() + ")");
+                    }
+                    BlobSupportDataRow next = (BlobSupportDataRow)m_backIntoMemoryIterator.next();
+                    if (next == null) {
+                        throw new InternalError("Unable to restore data row from disk");
+                    }
+                    m_listReference.add(next);
+                    if (m_listReference.size() >= size()) {
+                        assert !m_backIntoMemoryIterator.hasNext()
+                            : "File iterator returns more rows than buffer contains";
+                        m_backIntoMemoryIterator = null;
+                        onAllRowsReadBackIntoMemory();
+                    }
                 }
-                return next;
+                return m_listReference.get(m_nextIndex++);
             }
         }
 
+        /** {@inheritDoc} */
+        @Override
+        public void skipRows(final long count) {
+            m_nextIndex = (int)Math.min(m_nextIndex + count, m_endIndex);
+        }
+
         /** {@inheritDoc} */
         @Override
         public void close() {
-            m_nextIndex = (int) size();
+            m_nextIndex = m_endIndex;
         }
     }
 
@@ -0,0 +1,256 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * File iterator to read a stream written by a {@link Buffer} in
+ * {@link DataContainer.TableStorageFormat#COLUMNAR columnar} format. Chunks are read one after another, the returned
+ * rows decode their cells lazily (see {@link ColumnarChunk}).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class BufferFromFileIteratorColumnar extends Buffer.FromFileIterator implements SkippableRowIterator {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(BufferFromFileIteratorColumnar.class);
+
+    /** Associated buffer. */
+    private final Buffer m_buffer;
+
+    /** Row pointer. */
+    private long m_pointer;
+
+    /** Filter to apply or null if all rows and columns are read. */
+    private final TableFilter m_filter;
+
+    /** Index after the last row to return. */
+    private final long m_endIndex;
+
+    /** Stream to read from, null when closed. */
+    private DataInputStream m_inStream;
+
+    /** The chunk rows are currently returned from. */
+    private ColumnarChunk m_chunk;
+
+    /** Index of the next row in m_chunk. */
+    private int m_indexInChunk;
+
+    /** Content of the rows that get returned in {@link #next()} when the
+     * table is {@link #close()}'d. Will be instantiated lazy. */
+    private DataCell[] m_missingCellsForClosedTable;
+
+    /** Inits iterator, opens input stream.
+     * @param buffer The associated buffer.
+     * @param filter The filter to apply or null to read all rows and columns.
+     * @throws IOException If stream reading fails.
+     */
+    BufferFromFileIteratorColumnar(final Buffer buffer, final TableFilter filter) throws IOException {
+        if (buffer.getBinFile() == null) {
+            throw new IOException("Unable to read table from file, table has been cleared.");
+        }
+        m_buffer = buffer;
+        BufferedInputStream bufferedStream = new BufferedInputStream(buffer.openBinFileInputStream());
+        final InputStream in;
+        try {
+            in = buffer.getBinFileCompressionCodec().createInputStream(bufferedStream);
+        } catch (IOException e) {
+            bufferedStream.close();
+            throw e;
+        }
+        m_inStream = new DataInputStream(in);
+        m_filter = filter;
+        if (filter != null && filter.getToRowIndex() < buffer.size()) {
+            m_endIndex = filter.getToRowIndex() + 1;
+        } else {
+            m_endIndex = buffer.size();
+        }
+        if (filter != null) {
+            skipLeadingRows(Math.min(filter.getFromRowIndex(), m_endIndex));
+        }
+    }
+
+    /** Skips entire chunks (without decoding them) and positions the chunk pointer at the first row to return. */
+    private void skipLeadingRows(final long fromIndex) throws IOException {
+        try {
+            skipChunksTo(fromIndex);
+        } catch (IOException ioe) {
+            m_inStream.close();
+            throw ioe;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void skipRows(final long count) {
+        final long toIndex = Math.min(m_pointer + count, m_endIndex);
+        if (m_chunk != null) {
+            // first consume the remaining rows of the current chunk
+            final int inChunk = (int)Math.min(m_chunk.getRowCount() - m_indexInChunk, toIndex - m_pointer);
+            m_indexInChunk += inChunk;
+            m_pointer += inChunk;
+        }
+        if (m_inStream == null) { // iterator was closed
+            m_pointer = toIndex;
+            return;
+        }
+        try {
+            skipChunksTo(toIndex);
+        } catch (IOException ioe) {
+            LOGGER.error("Errors while skipping to row " + (toIndex + 1) + " in file \""
+                + m_buffer.getBinFile().getName() + "\": " + ioe.getMessage() + "; Skipping remaining rows.", ioe);
+            // the stream position is undefined, no way to recover
+            m_chunk = null;
+            m_pointer = toIndex;
+            close();
+        }
+    }
+
+    /**
+     * Skips entire chunks (without decoding them) until the chunk containing the argument row is reached, which is
+     * then read. Must only be called when all rows of the current chunk have been returned or skipped.
+     */
+    private void skipChunksTo(final long toIndex) throws IOException {
+        final int colCount = m_buffer.getTableSpec().getNumColumns();
+        while (m_pointer < toIndex) {
+            // peek the row count of the next chunk: skip it entirely if the first row is not contained
+            m_inStream.mark(Integer.BYTES);
+            int rowCount = m_inStream.readInt();
+            m_inStream.reset();
+            if (m_pointer + rowCount <= toIndex) {
+                m_pointer += ColumnarChunk.skip(m_inStream, m_buffer, colCount);
+            } else {
+                m_chunk = ColumnarChunk.read(m_inStream, m_buffer, colCount, m_filter);
+                m_indexInChunk = (int)(toIndex - m_pointer);
+                m_pointer = toIndex;
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized boolean hasNext() {
+        boolean hasNext = m_pointer < m_endIndex;
+        if (!hasNext && (m_inStream != null)) {
+            close();
+        }
+        return hasNext;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized BlobSupportDataRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("Iterator at end");
+        }
+        final int colCount = m_buffer.getTableSpec().getNumColumns();
+        if (m_inStream != null && (m_chunk == null || m_indexInChunk >= m_chunk.getRowCount())) {
+            try {
+                m_chunk = ColumnarChunk.read(m_inStream, m_buffer, colCount, m_filter);
+                m_indexInChunk = 0;
+            } catch (IOException ioe) {
+                LOGGER.error("Errors while reading row " + (m_pointer + 1) + " from file \""
+                    + m_buffer.getBinFile().getName() + "\": " + ioe.getMessage()
+                    + "; Skipping remaining rows.", ioe);
+                // the stream position is undefined, no way to recover
+                m_chunk = null;
+                close();
+            }
+        }
+        if (m_chunk == null) { // iterator was closed or reading failed
+            if (m_missingCellsForClosedTable == null) {
+                m_missingCellsForClosedTable = new DataCell[colCount];
+                Arrays.fill(m_missingCellsForClosedTable, DataType.getMissingCell());
+                LOGGER.warn("Invalid access on table, iterator has been closed");
+            }
+            RowKey key = new RowKey("INVALID_ROW (table is closed) - (Row " + m_pointer + ")");
+            m_pointer++;
+            return new BlobSupportDataRow(key, m_missingCellsForClosedTable);
+        }
+        final int index = m_indexInChunk++;
+        m_pointer++;
+        return new BlobSupportDataRow(m_chunk.getKey(index), m_chunk, index);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    synchronized boolean performClose() throws IOException {
+        // already closed (clear has been called before)
+        if (m_inStream == null) {
+            return false;
+        }
+        DataInputStream in = m_inStream;
+        m_inStream = null;
+        m_chunk = null;
+        in.close();
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        m_buffer.clearIteratorInstance(this, true);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void finalize() throws Throwable {
+        /* see BufferFromFileIteratorVersion20#finalize (bug #63) */
+        super.finalize();
+        close();
+    }
+
+}
@@ -103,20 +103,13 @@ final class BufferFromFileIteratorVersion1x extends Buffer.FromFileIterator {
         }
         m_buffer = buffer;
         BufferedInputStream bufferedStream =
-            new BufferedInputStream(new FileInputStream(buffer.getBinFile()));
-        InputStream in;
-        switch (buffer.getBinFileCompressionFormat()) {
-            case Gzip:
-                in = new GZIPInputStream(bufferedStream);
-                // buffering is important when reading gzip streams
-                in = new BufferedInputStream(in);
-                break;
-            case None:
-                in = bufferedStream;
-                break;
-            default:
-                bufferedStream.close();
-                throw new IOException("Unsupported compression format: " + buffer.getBinFileCompressionFormat());
+            new BufferedInputStream(buffer.openBinFileInputStream());
+        final InputStream in;
+        try {
+            in = buffer.getBinFileCompressionCodec().createInputStream(bufferedStream);
+        } catch (IOException e) {
+            bufferedStream.close();
+            throw e;
         }
         m_inStream = new DCObjectInputStream(in);
     }
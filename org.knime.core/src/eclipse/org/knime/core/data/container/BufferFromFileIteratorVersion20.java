@@ -71,7 +71,7 @@
  * @author Bernd Wiswedel, University of Konstanz
  */
 @SuppressWarnings("javadoc")
-final class BufferFromFileIteratorVersion20 extends Buffer.FromFileIterator {
+final class BufferFromFileIteratorVersion20 extends Buffer.FromFileIterator implements SkippableRowIterator {
 
     private static final NodeLogger LOGGER =
         NodeLogger.getLogger(BufferFromFileIteratorVersion20.class);
@@ -80,7 +80,13 @@ final class BufferFromFileIteratorVersion20 extends Buffer.FromFileIterator {
     private final Buffer m_buffer;
 
     /** Row pointer. */
-    private int m_pointer;
+    private long m_pointer;
+
+    /** Filter to apply or null if all rows and columns are read. */
+    private final TableFilter m_filter;
+
+    /** Index after the last row to return. */
+    private final long m_endIndex;
 
     /** Content of the rows that get returned in {@link #next()} when the
      * table is {@link #close()}'d. Will be instantiated lazy. */
@@ -100,10 +106,12 @@ final class BufferFromFileIteratorVersion20 extends Buffer.FromFileIterator {
 
     /** Inits iterator, opens input stream.
      * @param buffer The associated buffer.
+     * @param filter The filter to apply or null to read all rows and columns.
      * @throws IOException If stream reading fails.
      */
-    BufferFromFileIteratorVersion20(final Buffer buffer) throws IOException {
+    BufferFromFileIteratorVersion20(final Buffer buffer, final TableFilter filter) throws IOException {
         m_pointer = 0;
+        m_filter = filter;
         if (buffer.getBinFile() == null) {
             throw new IOException("Unable to read table from file, "
                     + "table has been cleared.");
@@ -113,28 +121,38 @@ final class BufferFromFileIteratorVersion20 extends Buffer.FromFileIterator {
             + "compatible, use instead "
             + BufferFromFileIteratorVersion1x.class.getSimpleName();
         BufferedInputStream bufferedStream =
-            new BufferedInputStream(new FileInputStream(buffer.getBinFile()));
-        InputStream in;
-        switch (buffer.getBinFileCompressionFormat()) {
-            case Gzip:
-                in = new GZIPInputStream(bufferedStream);
-                // buffering is important when reading gzip streams
-                in = new BufferedInputStream(in);
-                break;
-            case None:
-                in = bufferedStream;
-                break;
-            default:
-                throw new IOException("Unsupported compression format: " + buffer.getBinFileCompressionFormat());
+            new BufferedInputStream(buffer.openBinFileInputStream());
+        final InputStream in;
+        try {
+            in = buffer.getBinFileCompressionCodec().createInputStream(bufferedStream);
+        } catch (IOException e) {
+            bufferedStream.close();
+            throw e;
         }
         m_dataCellStreamReader = new DataCellStreamReader(buffer);
         m_inStream = new DCObjectInputVersion2(in, m_dataCellStreamReader);
+        if (filter != null && filter.getToRowIndex() < buffer.size()) {
+            m_endIndex = filter.getToRowIndex() + 1;
+        } else {
+            m_endIndex = buffer.size();
+        }
+        if (filter != null) {
+            final long fromIndex = Math.min(filter.getFromRowIndex(), m_endIndex);
+            try {
+                while (m_pointer < fromIndex) {
+                    skipRow();
+                }
+            } catch (IOException ioe) {
+                m_inStream.close();
+                throw ioe;
+            }
+        }
     }
 
     /** {@inheritDoc} */
     @Override
     public synchronized boolean hasNext() {
-        boolean hasNext = m_pointer < m_buffer.size();
+        boolean hasNext = m_pointer < m_endIndex;
         if (!hasNext && (m_inStream != null)) {
             close();
         }
@@ -177,7 +195,12 @@ public synchronized BlobSupportDataRow next() {
             DataCell nextCell;
             try {
                 try {
-                    nextCell = m_dataCellStreamReader.readDataCell(m_inStream);
+                    if (m_filter == null || m_filter.isMaterializeColumn(i)) {
+                        nextCell = m_dataCellStreamReader.readDataCell(m_inStream);
+                    } else {
+                        // not to be materialized, endBlock skips the cell's bytes
+                        nextCell = DataType.getMissingCell();
+                    }
                 } finally {
                     m_inStream.endBlock();
                 }
@@ -201,6 +224,45 @@ public synchronized BlobSupportDataRow next() {
         return new BlobSupportDataRow(key, cells);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void skipRows(final long count) {
+        final long toIndex = Math.min(m_pointer + count, m_endIndex);
+        if (m_inStream == null) { // iterator was closed
+            m_pointer = toIndex;
+            return;
+        }
+        try {
+            while (m_pointer < toIndex) {
+                skipRow();
+            }
+        } catch (IOException ioe) {
+            handleReadThrowable(ioe);
+            // keep the row pointer consistent, the following reads will report their own errors
+            m_pointer = toIndex;
+        }
+    }
+
+    /** Skips the next row in the stream without deserializing any of its
+     * cells. Used to position the stream at the first row of a filter.
+     * @throws IOException If reading fails for IO problems.
+     */
+    private void skipRow() throws IOException {
+        if (!m_buffer.shouldSkipRowKey()) {
+            m_inStream.endBlock();
+        }
+        final int colCount = m_buffer.getTableSpec().getNumColumns();
+        for (int i = 0; i < colCount; i++) {
+            m_inStream.endBlock();
+        }
+        byte eoRow = m_inStream.readControlByte();
+        if (eoRow != BYTE_ROW_SEPARATOR) {
+            throw new IOException("Expected end of row byte, "
+                + "got '" + eoRow + "', (byte " + (int)eoRow + ")");
+        }
+        m_pointer++;
+    }
+
     /** Reads a row key from the stream and ends the block. In case of buffers
      * that don't persist their row keys ({@link NoKeyBuffer}), it returns
      * a static key.
@@ -0,0 +1,379 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.BufferFromFileIteratorVersion20.DataCellStreamReader;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * A chunk of rows as read from a {@link Buffer} that was written in
+ * {@link DataContainer.TableStorageFormat#COLUMNAR columnar} format (see {@link ColumnarChunkWriter}).
+ *
+ * <p>
+ * The stream layout of a single chunk is as follows:
+ *
+ * <pre>
+ *   int              number of rows in the chunk (n)
+ *   int, byte[]      row keys (length prefixed; only if the buffer persists row keys)
+ *   for each column:
+ *     byte           encoding of the column (one of the ENC_xyz constants)
+ *     int, byte[]    column payload (length prefixed)
+ * </pre>
+ *
+ * Column payloads are held as raw bytes when the chunk is read from the stream. They are only decoded into
+ * {@link DataCell} objects when a cell of that column is accessed for the first time, i.e. consumers that only read
+ * a few columns of a wide table don't pay for the deserialization of the other columns.
+ *
+ * <p>
+ * Payload layout of the typed encodings: a byte indicating whether the column contains missing cells, followed by
+ * the missing-value bit set (n/64 longs, only if the byte is non-zero), followed by the values. Doubles, ints and
+ * longs are stored as fixed width arrays (missing cells are stored as 0), booleans as a bit set and strings as a
+ * sequence of UTF strings (missing cells are skipped). Cells in columns with {@link #ENC_GENERIC} encoding are
+ * written using their {@link org.knime.core.data.DataCellSerializer} (or java serialization), one block per cell,
+ * exactly as in the row format.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ColumnarChunk {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(ColumnarChunk.class);
+
+    /** Encoding: all cells in the column chunk are missing, payload is empty. */
+    static final byte ENC_MISSING = 0;
+
+    /** Encoding: cells are serialized individually (any cell implementation). */
+    static final byte ENC_GENERIC = 1;
+
+    /** Encoding: {@link DoubleCell} values. */
+    static final byte ENC_DOUBLE = 2;
+
+    /** Encoding: {@link IntCell} values. */
+    static final byte ENC_INT = 3;
+
+    /** Encoding: {@link LongCell} values. */
+    static final byte ENC_LONG = 4;
+
+    /** Encoding: {@link BooleanCell} values. */
+    static final byte ENC_BOOLEAN = 5;
+
+    /** Encoding: {@link StringCell} values. */
+    static final byte ENC_STRING = 6;
+
+    private final Buffer m_buffer;
+
+    private final int m_rowCount;
+
+    /** Row keys or null if buffer does not persist keys ({@link NoKeyBuffer}). */
+    private final RowKey[] m_keys;
+
+    private final byte[] m_encodings;
+
+    /** Raw column content, an element is set to null once the column is decoded. */
+    private final byte[][] m_payloads;
+
+    /** Decoded columns, elements are null until first accessed. */
+    private final AtomicReferenceArray<DataCell[]> m_columns;
+
+    private ColumnarChunk(final Buffer buffer, final int rowCount, final RowKey[] keys, final byte[] encodings,
+        final byte[][] payloads) {
+        m_buffer = buffer;
+        m_rowCount = rowCount;
+        m_keys = keys;
+        m_encodings = encodings;
+        m_payloads = payloads;
+        m_columns = new AtomicReferenceArray<DataCell[]>(encodings.length);
+    }
+
+    /**
+     * Reads the next chunk from the argument stream. Only the row keys are decoded, the columns are kept in their
+     * serialized form.
+     *
+     * @param in To read from.
+     * @param buffer The associated buffer (used to resolve cell types, blobs and file stores).
+     * @param colCount The number of columns in the table.
+     * @param filter The filter defining the columns to read or null to read all columns. The payloads of the other
+     *            columns are skipped, their cells are returned as missing cells.
+     * @return A new chunk.
+     * @throws IOException If reading fails or the stream is corrupt.
+     */
+    static ColumnarChunk read(final DataInputStream in, final Buffer buffer, final int colCount,
+        final TableFilter filter) throws IOException {
+        final int rowCount = in.readInt();
+        if (rowCount <= 0) {
+            throw new IOException("Invalid number of rows in table chunk: " + rowCount);
+        }
+        RowKey[] keys = null;
+        if (!buffer.shouldSkipRowKey()) {
+            LongUTFDataInputStream keyIn = new LongUTFDataInputStream(
+                new DataInputStream(new ByteArrayInputStream(readPayload(in))));
+            keys = new RowKey[rowCount];
+            for (int i = 0; i < rowCount; i++) {
+                keys[i] = new RowKey(keyIn.readUTF());
+            }
+        }
+        byte[] encodings = new byte[colCount];
+        byte[][] payloads = new byte[colCount][];
+        for (int c = 0; c < colCount; c++) {
+            encodings[c] = in.readByte();
+            if (filter == null || filter.isMaterializeColumn(c)) {
+                payloads[c] = readPayload(in);
+            } else {
+                skipPayload(in);
+                encodings[c] = ENC_MISSING;
+            }
+        }
+        return new ColumnarChunk(buffer, rowCount, keys, encodings, payloads);
+    }
+
+    /**
+     * Skips the next chunk in the argument stream without decoding any of its content.
+     *
+     * @param in To read from.
+     * @param buffer The associated buffer.
+     * @param colCount The number of columns in the table.
+     * @return The number of rows in the skipped chunk.
+     * @throws IOException If reading fails or the stream is corrupt.
+     */
+    static int skip(final DataInputStream in, final Buffer buffer, final int colCount) throws IOException {
+        final int rowCount = in.readInt();
+        if (rowCount <= 0) {
+            throw new IOException("Invalid number of rows in table chunk: " + rowCount);
+        }
+        if (!buffer.shouldSkipRowKey()) {
+            skipPayload(in);
+        }
+        for (int c = 0; c < colCount; c++) {
+            in.readByte();
+            skipPayload(in);
+        }
+        return rowCount;
+    }
+
+    private static byte[] readPayload(final DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid length of column chunk: " + length);
+        }
+        byte[] result = new byte[length];
+        in.readFully(result);
+        return result;
+    }
+
+    private static void skipPayload(final DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid length of column chunk: " + length);
+        }
+        while (length > 0) {
+            int skipped = in.skipBytes(length);
+            if (skipped <= 0) {
+                // skipBytes may return 0 without reaching the end of the stream (e.g. gzip)
+                if (in.read() < 0) {
+                    throw new EOFException("Unexpected end of stream while skipping column chunk");
+                }
+                skipped = 1;
+            }
+            length -= skipped;
+        }
+    }
+
+    /** @return number of rows in this chunk. */
+    int getRowCount() {
+        return m_rowCount;
+    }
+
+    /** @return number of columns. */
+    int getNumColumns() {
+        return m_encodings.length;
+    }
+
+    /**
+     * @param row Row index in chunk.
+     * @return The key of the row or the dummy key in case of a buffer not persisting keys.
+     */
+    RowKey getKey(final int row) {
+        return m_keys == null ? KNIMEStreamConstants.DUMMY_ROW_KEY : m_keys[row];
+    }
+
+    /**
+     * Get a cell, decodes the column if not done yet.
+     *
+     * @param row Row index in chunk.
+     * @param col Column index.
+     * @return The (raw) cell, possibly a {@link BlobWrapperDataCell}.
+     */
+    DataCell getCell(final int row, final int col) {
+        DataCell[] column = m_columns.get(col);
+        if (column == null) {
+            column = decodeColumn(col);
+        }
+        return column[row];
+    }
+
+    private synchronized DataCell[] decodeColumn(final int col) {
+        DataCell[] column = m_columns.get(col);
+        if (column != null) {
+            return column;
+        }
+        column = new DataCell[m_rowCount];
+        try {
+            decode(m_encodings[col], m_payloads[col], column);
+        } catch (Exception e) {
+            String message = "Errors while reading column " + col + " from file \""
+                + (m_buffer.getBinFile() != null ? m_buffer.getBinFile().getName() : "<unknown>") + "\": "
+                + e.getMessage();
+            if (!(e instanceof IOException)) {
+                LOGGER.coding(e.getClass().getSimpleName() + " caught, implementation may only throw IOException.");
+            }
+            LOGGER.error(message, e);
+            for (int i = 0; i < m_rowCount; i++) {
+                if (column[i] == null) {
+                    column[i] = DataType.getMissingCell();
+                }
+            }
+        }
+        m_payloads[col] = null;
+        m_columns.set(col, column);
+        return column;
+    }
+
+    private void decode(final byte encoding, final byte[] payload, final DataCell[] column) throws IOException {
+        final int n = column.length;
+        final DataCell missing = DataType.getMissingCell();
+        if (encoding == ENC_MISSING) {
+            for (int i = 0; i < n; i++) {
+                column[i] = missing;
+            }
+            return;
+        }
+        if (encoding == ENC_GENERIC) {
+            DataCellStreamReader reader = new DataCellStreamReader(m_buffer);
+            DCObjectInputVersion2 in = new DCObjectInputVersion2(new ByteArrayInputStream(payload), reader);
+            for (int i = 0; i < n; i++) {
+                try {
+                    column[i] = reader.readDataCell(in);
+                } finally {
+                    in.endBlock();
+                }
+            }
+            return;
+        }
+        ByteBuffer buf = ByteBuffer.wrap(payload);
+        long[] missingBits = buf.get() != 0 ? readBitSet(buf, n) : null;
+        switch (encoding) {
+            case ENC_DOUBLE:
+                for (int i = 0; i < n; i++) {
+                    double d = buf.getDouble();
+                    column[i] = isSet(missingBits, i) ? missing : new DoubleCell(d);
+                }
+                break;
+            case ENC_INT:
+                for (int i = 0; i < n; i++) {
+                    int v = buf.getInt();
+                    column[i] = isSet(missingBits, i) ? missing : new IntCell(v);
+                }
+                break;
+            case ENC_LONG:
+                for (int i = 0; i < n; i++) {
+                    long l = buf.getLong();
+                    column[i] = isSet(missingBits, i) ? missing : new LongCell(l);
+                }
+                break;
+            case ENC_BOOLEAN:
+                long[] values = readBitSet(buf, n);
+                for (int i = 0; i < n; i++) {
+                    column[i] = isSet(missingBits, i) ? missing : BooleanCell.get(isSet(values, i));
+                }
+                break;
+            case ENC_STRING:
+                LongUTFDataInputStream in = new LongUTFDataInputStream(new DataInputStream(
+                    new ByteArrayInputStream(payload, buf.position(), payload.length - buf.position())));
+                for (int i = 0; i < n; i++) {
+                    column[i] = isSet(missingBits, i) ? missing : new StringCell(in.readUTF());
+                }
+                break;
+            default:
+                throw new IOException("Unknown column encoding: " + encoding);
+        }
+    }
+
+    /**
+     * Number of longs required to store a bit set for the argument number of rows.
+     * @param rowCount The number of rows.
+     * @return number of words.
+     */
+    static int getBitSetLength(final int rowCount) {
+        return (rowCount + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    private static long[] readBitSet(final ByteBuffer buf, final int rowCount) {
+        long[] result = new long[getBitSetLength(rowCount)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = buf.getLong();
+        }
+        return result;
+    }
+
+    private static boolean isSet(final long[] bits, final int index) {
+        return bits != null && (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+}
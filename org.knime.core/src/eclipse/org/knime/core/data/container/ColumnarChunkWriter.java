@@ -0,0 +1,276 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Writes the binary stream of a {@link Buffer} in
+ * {@link DataContainer.TableStorageFormat#COLUMNAR columnar} format. Rows are collected into chunks, which are then
+ * written column by column. Columns, whose cells in a chunk are all of type {@link DoubleCell}, {@link IntCell},
+ * {@link LongCell}, {@link BooleanCell} or {@link StringCell} (or missing), are written as typed arrays; any other
+ * column is written using the cell serializers (see {@link Buffer#writeDataCell(DataCell, DCObjectOutputVersion2)}).
+ * See {@link ColumnarChunk} for the stream layout.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ColumnarChunkWriter {
+
+    /** Maximum number of rows in a chunk. */
+    static final int MAX_ROWS_PER_CHUNK = 4096;
+
+    /** Maximum number of cells in a chunk, determines the chunk size for wide tables. */
+    static final int MAX_CELLS_PER_CHUNK = 1 << 18;
+
+    private final Buffer m_buffer;
+
+    private final DataOutputStream m_out;
+
+    /** Reused to assemble the payload of a single column chunk. */
+    private final ByteArrayOutputStream m_payload = new ByteArrayOutputStream();
+
+    /** Keys of the current chunk, lazily initialized with the first row. */
+    private RowKey[] m_keys;
+
+    /** Cells of the current chunk, organized by column (column major). */
+    private DataCell[][] m_columns;
+
+    private int m_rowCount;
+
+    /**
+     * @param out The (possibly compressed) stream to write to.
+     * @param buffer The associated buffer, used to serialize cells in {@link ColumnarChunk#ENC_GENERIC} encoding.
+     */
+    ColumnarChunkWriter(final OutputStream out, final Buffer buffer) {
+        m_out = new DataOutputStream(out);
+        m_buffer = buffer;
+    }
+
+    /**
+     * Adds a row to the current chunk and writes the chunk if it's full.
+     *
+     * @param row The row to add (blobs and file stores already handled by the buffer).
+     * @throws IOException If writing fails.
+     */
+    void addRow(final BlobSupportDataRow row) throws IOException {
+        final int colCount = row.getNumCells();
+        if (m_columns == null) {
+            int chunkSize = Math.max(1, Math.min(MAX_ROWS_PER_CHUNK, MAX_CELLS_PER_CHUNK / Math.max(1, colCount)));
+            m_keys = new RowKey[chunkSize];
+            m_columns = new DataCell[colCount][chunkSize];
+        }
+        m_keys[m_rowCount] = row.getKey();
+        for (int c = 0; c < colCount; c++) {
+            m_columns[c][m_rowCount] = row.getRawCell(c);
+        }
+        if (++m_rowCount == m_keys.length) {
+            flushChunk();
+        }
+    }
+
+    /**
+     * Writes the current (possibly incomplete) chunk to the stream. Does nothing if no rows are pending.
+     *
+     * @throws IOException If writing fails.
+     */
+    void flushChunk() throws IOException {
+        if (m_rowCount == 0) {
+            return;
+        }
+        m_out.writeInt(m_rowCount);
+        if (!m_buffer.shouldSkipRowKey()) {
+            m_payload.reset();
+            LongUTFDataOutputStream keyOut = new LongUTFDataOutputStream(new DataOutputStream(m_payload));
+            for (int i = 0; i < m_rowCount; i++) {
+                keyOut.writeUTF(m_keys[i].getString());
+            }
+            writePayload();
+        }
+        for (DataCell[] column : m_columns) {
+            writeColumn(column);
+            Arrays.fill(column, 0, m_rowCount, null);
+        }
+        Arrays.fill(m_keys, 0, m_rowCount, null);
+        m_rowCount = 0;
+    }
+
+    /**
+     * Writes pending rows and closes the underlying stream.
+     *
+     * @throws IOException If writing fails.
+     */
+    void close() throws IOException {
+        flushChunk();
+        m_out.close();
+    }
+
+    private void writePayload() throws IOException {
+        m_out.writeInt(m_payload.size());
+        m_payload.writeTo(m_out);
+    }
+
+    private void writeColumn(final DataCell[] column) throws IOException {
+        final int n = m_rowCount;
+        final byte encoding = getEncoding(column, n);
+        m_payload.reset();
+        if (encoding == ColumnarChunk.ENC_GENERIC) {
+            DCObjectOutputVersion2 cellOut = new DCObjectOutputVersion2(m_payload, m_buffer);
+            for (int i = 0; i < n; i++) {
+                m_buffer.writeDataCell(column[i], cellOut);
+                cellOut.endBlock();
+            }
+            cellOut.flush();
+        } else if (encoding != ColumnarChunk.ENC_MISSING) {
+            final DataCell missing = DataType.getMissingCell();
+            final DataOutputStream out = new DataOutputStream(m_payload);
+            long[] missingBits = null;
+            for (int i = 0; i < n; i++) {
+                if (column[i] == missing) {
+                    if (missingBits == null) {
+                        missingBits = new long[ColumnarChunk.getBitSetLength(n)];
+                    }
+                    missingBits[i >>> 6] |= 1L << i;
+                }
+            }
+            out.writeByte(missingBits != null ? 1 : 0);
+            if (missingBits != null) {
+                writeBitSet(missingBits, out);
+            }
+            switch (encoding) {
+                case ColumnarChunk.ENC_DOUBLE:
+                    for (int i = 0; i < n; i++) {
+                        out.writeDouble(column[i] == missing ? 0.0 : ((DoubleCell)column[i]).getDoubleValue());
+                    }
+                    break;
+                case ColumnarChunk.ENC_INT:
+                    for (int i = 0; i < n; i++) {
+                        out.writeInt(column[i] == missing ? 0 : ((IntCell)column[i]).getIntValue());
+                    }
+                    break;
+                case ColumnarChunk.ENC_LONG:
+                    for (int i = 0; i < n; i++) {
+                        out.writeLong(column[i] == missing ? 0L : ((LongCell)column[i]).getLongValue());
+                    }
+                    break;
+                case ColumnarChunk.ENC_BOOLEAN:
+                    long[] values = new long[ColumnarChunk.getBitSetLength(n)];
+                    for (int i = 0; i < n; i++) {
+                        if (column[i] != missing && ((BooleanCell)column[i]).getBooleanValue()) {
+                            values[i >>> 6] |= 1L << i;
+                        }
+                    }
+                    writeBitSet(values, out);
+                    break;
+                case ColumnarChunk.ENC_STRING:
+                    LongUTFDataOutputStream utfOut = new LongUTFDataOutputStream(out);
+                    for (int i = 0; i < n; i++) {
+                        if (column[i] != missing) {
+                            utfOut.writeUTF(((StringCell)column[i]).getStringValue());
+                        }
+                    }
+                    break;
+                default:
+                    throw new IOException("Unknown column encoding: " + encoding);
+            }
+            out.flush();
+        }
+        m_out.writeByte(encoding);
+        writePayload();
+    }
+
+    private static void writeBitSet(final long[] bits, final DataOutputStream out) throws IOException {
+        for (long l : bits) {
+            out.writeLong(l);
+        }
+    }
+
+    /**
+     * Determines the encoding for a column chunk. Typed encodings are only used if all cells are of the very same
+     * class (sub classes and missing cells carrying an error message are written generically).
+     */
+    private static byte getEncoding(final DataCell[] column, final int n) {
+        final DataCell missing = DataType.getMissingCell();
+        Class<? extends DataCell> cellClass = null;
+        for (int i = 0; i < n; i++) {
+            DataCell c = column[i];
+            if (c == missing) {
+                continue;
+            }
+            if (cellClass == null) {
+                cellClass = c.getClass();
+            } else if (cellClass != c.getClass()) {
+                return ColumnarChunk.ENC_GENERIC;
+            }
+        }
+        if (cellClass == null) {
+            return ColumnarChunk.ENC_MISSING;
+        } else if (cellClass == DoubleCell.class) {
+            return ColumnarChunk.ENC_DOUBLE;
+        } else if (cellClass == IntCell.class) {
+            return ColumnarChunk.ENC_INT;
+        } else if (cellClass == LongCell.class) {
+            return ColumnarChunk.ENC_LONG;
+        } else if (cellClass == BooleanCell.class) {
+            return ColumnarChunk.ENC_BOOLEAN;
+        } else if (cellClass == StringCell.class) {
+            return ColumnarChunk.ENC_STRING;
+        }
+        return ColumnarChunk.ENC_GENERIC;
+    }
+}
@@ -174,12 +174,27 @@ public DataTableSpec getDataTableSpec() {
     public CloseableRowIterator iterator() {
         // return MyIterator if all specs are the same indicated by m_tablesWrapper == null
         if(m_tablesWrapper == null) {
-            return new MyIterator();
+            return new MyIterator(null);
         } else {
             return m_tablesWrapper.iterator(null, -1);
         }
     }
 
+    /**
+     * Tables that don't contain any row of the filter's row range are not read.
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    public CloseableRowIterator iteratorWithFilter(final TableFilter filter) {
+        if (m_tablesWrapper == null) {
+            return new MyIterator(filter);
+        } else {
+            // row keys may get modified (duplicate suffix) - needs to traverse all rows
+            return new FilterDelegateRowIterator(iterator(), filter);
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public void putIntoTableRepository(
@@ -318,17 +333,40 @@ public static DataTableSpec createSpec(final DataTableSpec... specs) {
     }
 
     private class MyIterator extends CloseableRowIterator {
+        private final TableFilter m_filter;
         private int m_tableIndex;
+        /** Index of the first row of the table following m_tableIndex. */
+        private long m_nextTableOffset;
         private CloseableRowIterator m_curIterator;
         private DataRow m_next;
 
-        /** Creates new iterator. */
-        public MyIterator() {
-            m_tableIndex = 0;
-            m_curIterator = m_tables[m_tableIndex].iterator();
+        /** Creates new iterator.
+         * @param filter The filter to apply or null. */
+        public MyIterator(final TableFilter filter) {
+            m_filter = filter;
+            m_tableIndex = -1;
+            m_curIterator = openNextIterator();
             m_next = internalNext();
         }
 
+        /** Opens the iterator on the next table containing rows to return.
+         * @return That iterator or null if there are no more tables. */
+        private CloseableRowIterator openNextIterator() {
+            while (++m_tableIndex < m_tables.length) {
+                final BufferedDataTable table = m_tables[m_tableIndex];
+                final long offset = m_nextTableOffset;
+                m_nextTableOffset += table.size();
+                if (m_filter == null) {
+                    return table.iterator();
+                }
+                TableFilter filter = m_filter.deriveForRows(offset, table.size());
+                if (filter != null) {
+                    return table.filter(filter);
+                }
+            }
+            return null;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -348,13 +386,11 @@ public DataRow next() {
         }
 
         private DataRow internalNext() {
-            if (m_curIterator.hasNext()) {
-                return m_curIterator.next();
-            }
-            if (m_tableIndex < m_tables.length - 1) {
-                m_tableIndex++;
-                m_curIterator = m_tables[m_tableIndex].iterator();
-                return internalNext();
+            while (m_curIterator != null) {
+                if (m_curIterator.hasNext()) {
+                    return m_curIterator.next();
+                }
+                m_curIterator = openNextIterator();
             }
             return null;
         }
@@ -362,8 +398,12 @@ private DataRow internalNext() {
         /** {@inheritDoc} */
         @Override
         public void close() {
-            m_curIterator.close();
+            if (m_curIterator != null) {
+                m_curIterator.close();
+                m_curIterator = null;
+            }
             m_tableIndex = m_tables.length;
+            m_next = null;
         }
 
     }
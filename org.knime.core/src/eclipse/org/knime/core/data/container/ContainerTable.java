@@ -126,6 +126,16 @@ public CloseableRowIterator iterator() {
         return m_buffer.iterator();
     }
 
+    /**
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    public CloseableRowIterator iteratorWithFilter(final TableFilter filter) {
+        ensureBufferOpen();
+        return m_buffer.iteratorWithFilter(filter);
+    }
+
     /**
      * {@inheritDoc}
      * @deprecated use {@link #size()} instead which supports more than {@link Integer#MAX_VALUE} rows
@@ -252,6 +262,19 @@ public void ensureOpen() {
         ensureBufferOpen();
     }
 
+    /** Do not use this method (only invoked by the framework). Called before the node directory is deleted or
+     * overwritten; tables that are read in place from the saved zip file are copied to temp.
+     * {@inheritDoc} */
+    @Override
+    public void ensureCopiedToTemp() {
+        ensureBufferOpen();
+        try {
+            m_buffer.copyInPlaceBinFileToTemp();
+        } catch (IOException ioe) {
+            throw new RuntimeException("Exception while copying table data to temp: " + ioe.getMessage(), ioe);
+        }
+    }
+
     /** Do not use!
      * @return true when this table has been extracted to the temp location after workflow load or if this table
      * was created during this session. It's false for tables which have not been opened.
@@ -58,8 +58,10 @@
 import java.nio.file.Files;
 import java.text.NumberFormat;
 import java.util.Map;
+import java.util.Enumeration;
 import java.util.TimerTask;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 import org.knime.core.data.DataTableSpec;
@@ -68,6 +70,7 @@
 import org.knime.core.data.util.NonClosableInputStream;
 import org.knime.core.internal.ReferencedFile;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeSettings;
 import org.knime.core.node.NodeSettingsRO;
@@ -82,6 +85,12 @@
  * <p>Think of this class as an runnable that is executed once on demand. It
  * helps to delay the copy process of the data to speed up the loading of
  * saved workflows.
+ *
+ * <p>If {@linkplain #setReadInPlace() enabled} and the binary data is saved as
+ * uncompressed zip entry, the data is not copied but read directly from the
+ * zip file (see {@link StoredZipEntry}). Only the meta data and blobs are
+ * extracted. The buffer copies the data to temp once the zip file is about to
+ * be deleted (see {@link ContainerTable#ensureCopiedToTemp()}).
  * @author Bernd Wiswedel, University of Konstanz
  */
 final class CopyOnAccessTask {
@@ -93,6 +102,10 @@ final class CopyOnAccessTask {
      * files won't report their copying (if faster than this threshold). */
     private static final long NOTIFICATION_DELAY = 3000;
 
+    /** See {@link KNIMEConstants#PROPERTY_TABLE_EXTRACT_ON_LOAD}. */
+    private static final boolean IS_EXTRACT_ON_LOAD =
+        Boolean.getBoolean(KNIMEConstants.PROPERTY_TABLE_EXTRACT_ON_LOAD);
+
     /** To read from. */
     private final ReferencedFile m_fileRef;
     /** The spec corresponding to the table in m_fileRef. */
@@ -108,6 +121,8 @@ final class CopyOnAccessTask {
     /** Flag to indicate that the buffer needs to restore its content
      * into memory once it is created. */
     private boolean m_needsRestoreIntoMemory;
+    /** Flag to indicate that the binary data may be read in place. */
+    private boolean m_isReadInPlace;
 
     /**
      * Keeps reference, nothing else.
@@ -142,6 +157,12 @@ Buffer createBuffer() throws IOException {
         m_fileRef.lock();
         try {
             final File file = m_fileRef.getFile();
+            if (m_isReadInPlace && !IS_EXTRACT_ON_LOAD) {
+                Buffer buffer = createBufferInPlace(file);
+                if (buffer != null) {
+                    return buffer;
+                }
+            }
             timerTask = new TimerTask() {
                 /** {@inheritDoc} */
                 @Override
@@ -210,21 +231,8 @@ Buffer createBuffer(final InputStream in) throws IOException {
                 copyEntryToDir(entry, inStream, fileStoreDir);
             } else if (name.equals(DataContainer.ZIP_ENTRY_SPEC)
                     && !isSpecFound) {
-                InputStream nonClosableStream =
-                    new NonClosableInputStream.Zip(inStream);
-                NodeSettingsRO settings =
-                    NodeSettings.loadFromXML(nonClosableStream);
-                try {
-                    NodeSettingsRO specSettings = settings.getNodeSettings(
-                            DataContainer.CFG_TABLESPEC);
-                    spec = DataTableSpec.load(specSettings);
-                    isSpecFound = true;
-                } catch (InvalidSettingsException ise) {
-                    IOException ioe = new IOException(
-                            "Unable to read spec from file");
-                    ioe.initCause(ise);
-                    throw ioe;
-                }
+                spec = readSpec(new NonClosableInputStream.Zip(inStream));
+                isSpecFound = true;
             }
         }
         inStream.close();
@@ -252,6 +260,95 @@ Buffer createBuffer(final InputStream in) throws IOException {
         return buffer;
     }
 
+    /**
+     * Creates a buffer that reads the binary data directly from the zip file.
+     * @param file The zip file.
+     * @return The buffer or null if the binary data is not stored
+     * uncompressed (for instance when saved with KNIME 3.5 or before).
+     * @throws IOException If the file can't be accessed.
+     */
+    private Buffer createBufferInPlace(final File file) throws IOException {
+        StoredZipEntry dataEntry =
+            StoredZipEntry.locate(file, Buffer.ZIP_ENTRY_DATA);
+        if (dataEntry == null) {
+            return null;
+        }
+        File blobDir = null;
+        File fileStoreDir = null;
+        DataTableSpec spec = m_spec;
+        Buffer buffer;
+        try (ZipFile zipFile = new ZipFile(file)) {
+            for (Enumeration<? extends ZipEntry> e = zipFile.entries();
+                    e.hasMoreElements();) {
+                ZipEntry entry = e.nextElement();
+                String name = entry.getName();
+                if (name.startsWith(Buffer.ZIP_ENTRY_BLOBS)) {
+                    if (blobDir == null) {
+                        blobDir = FileUtil.createTempDir(
+                            "knime_blobs_datacontainer-");
+                    }
+                    try (InputStream in = zipFile.getInputStream(entry)) {
+                        copyEntryToDir(entry, in, blobDir);
+                    }
+                } else if (name.startsWith(Buffer.ZIP_ENTRY_FILESTORES)) {
+                    if (fileStoreDir == null) {
+                        fileStoreDir = FileUtil.createTempDir(
+                            "knime_fs_datacontainer-");
+                    }
+                    try (InputStream in = zipFile.getInputStream(entry)) {
+                        copyEntryToDir(entry, in, fileStoreDir);
+                    }
+                }
+            }
+            if (spec == null) {
+                ZipEntry specEntry =
+                    zipFile.getEntry(DataContainer.ZIP_ENTRY_SPEC);
+                if (specEntry == null) {
+                    throw new IOException("No entry "
+                        + DataContainer.ZIP_ENTRY_SPEC + " in file");
+                }
+                try (InputStream in = zipFile.getInputStream(specEntry)) {
+                    spec = readSpec(in);
+                }
+            }
+            ZipEntry metaEntry = zipFile.getEntry(Buffer.ZIP_ENTRY_META);
+            if (metaEntry == null) {
+                throw new IOException("No entry " + Buffer.ZIP_ENTRY_META
+                        + " in file");
+            }
+            try (InputStream metaIn = new BufferedInputStream(
+                    zipFile.getInputStream(metaEntry))) {
+                buffer = m_bufferCreator.createBuffer(file, blobDir,
+                    fileStoreDir, spec, metaIn, m_bufferID, m_tableRep,
+                    m_fileStoreHandlerRepository);
+            }
+        }
+        buffer.readBinFileInPlace(dataEntry);
+        LOGGER.debug("Reading table data in place from " + dataEntry);
+        if (m_needsRestoreIntoMemory) {
+            buffer.restoreIntoMemory();
+        }
+        return buffer;
+    }
+
+    /** Reads the spec as written by
+     * {@link DataContainer#writeToStream(org.knime.core.data.DataTable,
+     * OutputStream, org.knime.core.node.ExecutionMonitor)}. */
+    private static DataTableSpec readSpec(final InputStream in)
+            throws IOException {
+        NodeSettingsRO settings = NodeSettings.loadFromXML(in);
+        try {
+            NodeSettingsRO specSettings = settings.getNodeSettings(
+                    DataContainer.CFG_TABLESPEC);
+            return DataTableSpec.load(specSettings);
+        } catch (InvalidSettingsException ise) {
+            IOException ioe = new IOException(
+                    "Unable to read spec from file");
+            ioe.initCause(ise);
+            throw ioe;
+        }
+    }
+
     /** Get name of file to copy from. Used for better error messages.
      * @return source file
      */
@@ -272,6 +369,14 @@ void setRestoreIntoMemory() {
         m_needsRestoreIntoMemory = true;
     }
 
+    /** Allows the buffer to read the binary data directly from the zip file
+     * (if it's stored uncompressed). Only used for tables that are part of a
+     * workflow as the zip file must not be deleted while the table is in use
+     * (or it must call {@link ContainerTable#ensureCopiedToTemp()} beforehand). */
+    void setReadInPlace() {
+        m_isReadInPlace = true;
+    }
+
     /** Get table repository in workflow for blob (de)serialization.
      * @return table repository reference
      */
@@ -284,7 +389,7 @@ Map<Integer, ContainerTable> getTableRepository() {
      * directory. Used to copy the blobs from the zip file to /temp/.
      */
     private static void copyEntryToDir(final ZipEntry entry,
-            final ZipInputStream in, final File tempDir) throws IOException {
+            final InputStream in, final File tempDir) throws IOException {
         String path = entry.getName();
         if (path.startsWith(Buffer.ZIP_ENTRY_BLOBS + "/")) {
             path = path.substring((Buffer.ZIP_ENTRY_BLOBS + "/").length());
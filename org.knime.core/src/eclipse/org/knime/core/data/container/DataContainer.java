@@ -53,6 +53,7 @@
 import java.io.OutputStream;
 import java.lang.ref.WeakReference;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -61,7 +62,9 @@
 import java.util.concurrent.Callable;
 import java.util.concurrent.Exchanger;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -81,6 +84,8 @@
 import org.knime.core.data.DataType;
 import org.knime.core.data.RowIterator;
 import org.knime.core.data.RowKey;
+import org.knime.core.data.container.compression.TableCompressionCodec;
+import org.knime.core.data.container.compression.TableCompressionCodecRegistry;
 import org.knime.core.data.filestore.internal.FileStoreHandlerRepository;
 import org.knime.core.data.filestore.internal.IWriteFileStoreHandler;
 import org.knime.core.data.filestore.internal.NotInWorkflowWriteFileStoreHandler;
@@ -159,6 +164,35 @@ public class DataContainer implements RowAppender {
      */
     public static final int DEF_MAX_POSSIBLE_VALUES = 60;
 
+    /**
+     * Layout of the data written to disc (only affects tables that are too large to be kept in memory and tables
+     * being saved).
+     *
+     * @see DataContainer#setTableStorageFormat(TableStorageFormat)
+     * @see KNIMEConstants#PROPERTY_TABLE_STORAGE_FORMAT
+     * @since 3.6
+     */
+    public enum TableStorageFormat {
+        /** Rows are written one after another, all cells of a row are deserialized when the row is read. */
+        ROW,
+        /** Rows are collected in chunks, each chunk is written column by column. Columns of primitive types
+         * (double, int, long, boolean and string cells) are written as typed arrays, cells of a column are only
+         * deserialized when the column is accessed. Beneficial for wide tables, of which consumers typically only
+         * read a few columns. */
+        COLUMNAR;
+    }
+
+    /**
+     * The default storage format, see {@link KNIMEConstants#PROPERTY_TABLE_STORAGE_FORMAT}.
+     *
+     * @since 3.6
+     */
+    public static final TableStorageFormat DEF_TABLE_STORAGE_FORMAT = TableStorageFormat.ROW;
+
+    /** Default upper bound of the number of threads that encode rows and compute domains, see
+     * {@link KNIMEConstants#PROPERTY_TABLE_WRITE_THREADS}. */
+    private static final int DEF_MAX_TABLE_WRITE_THREADS = 4;
+
     static {
         int size = DEF_MAX_CELLS_IN_MEMORY;
         String envCellsInMem = PROPERTY_CELLS_IN_MEMORY;
@@ -234,6 +268,19 @@ public class DataContainer implements RowAppender {
             }
         }
         ASYNC_CACHE_SIZE = asyncCacheSize;
+
+        TableStorageFormat storageFormat = DEF_TABLE_STORAGE_FORMAT;
+        String valStorageFormat = System.getProperty(KNIMEConstants.PROPERTY_TABLE_STORAGE_FORMAT);
+        if (valStorageFormat != null) {
+            try {
+                storageFormat = TableStorageFormat.valueOf(valStorageFormat.trim().toUpperCase());
+                LOGGER.debug("Setting table storage format to " + storageFormat);
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("Unable to parse property " + KNIMEConstants.PROPERTY_TABLE_STORAGE_FORMAT
+                    + ", using default (" + DEF_TABLE_STORAGE_FORMAT + ")", e);
+            }
+        }
+        TABLE_STORAGE_FORMAT = storageFormat;
         if (Boolean.getBoolean(KNIMEConstants.PROPERTY_SYNCHRONOUS_IO)) {
             LOGGER.debug("Using synchronous IO; " + KNIMEConstants.PROPERTY_SYNCHRONOUS_IO + " is set");
             SYNCHRONOUS_IO = true;
@@ -243,6 +290,38 @@ public class DataContainer implements RowAppender {
 
         // enh 5835: Number of asynchronous write threads to have different limits on different architectures
         MAX_ASYNC_WRITE_THREADS = Platform.ARCH_X86.equals(Platform.getOSArch()) ? 10 : 50;
+
+        int writeThreads = Boolean.getBoolean(KNIMEConstants.PROPERTY_SYNCHRONOUS_IO) ? 1 : Math.min(Runtime.getRuntime().availableProcessors(),
+            DEF_MAX_TABLE_WRITE_THREADS);
+        String valWriteThreads = System.getProperty(KNIMEConstants.PROPERTY_TABLE_WRITE_THREADS);
+        if (valWriteThreads != null) {
+            try {
+                writeThreads = Integer.parseInt(valWriteThreads.trim());
+                LOGGER.debug("Setting number of table write threads to " + writeThreads);
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Unable to parse property " + KNIMEConstants.PROPERTY_TABLE_WRITE_THREADS
+                    + ", using default (" + writeThreads + ")", e);
+            }
+        }
+        if (writeThreads > 1) {
+            ThreadPoolExecutor writeExecutor = new ThreadPoolExecutor(writeThreads, writeThreads, 60L,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    private final AtomicInteger m_threadCount = new AtomicInteger();
+
+                    /** {@inheritDoc} */
+                    @Override
+                    public Thread newThread(final Runnable r) {
+                        Thread t = new Thread(r, "KNIME-TableEncoder-" + m_threadCount.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+            writeExecutor.allowCoreThreadTimeOut(true);
+            TABLE_WRITE_EXECUTOR = writeExecutor;
+        } else {
+            TABLE_WRITE_EXECUTOR = null;
+        }
+        TABLE_WRITE_THREADS = Math.max(writeThreads, 1);
     }
 
     /**
@@ -269,6 +348,9 @@ public class DataContainer implements RowAppender {
     /** Size of buffers. */
     static final int ASYNC_CACHE_SIZE;
 
+    /** Storage format used unless specified otherwise, see {@link #DEF_TABLE_STORAGE_FORMAT}. */
+    static final TableStorageFormat TABLE_STORAGE_FORMAT;
+
     /** The executor, which runs the IO tasks. Currently used only while writing rows. */
     static final ThreadPoolExecutor ASYNC_EXECUTORS =
     // see also Executors.newCachedThreadPool(ThreadFactory)
@@ -294,6 +376,21 @@ public Thread newThread(final Runnable r) {
      */
     static final int MAX_ASYNC_WRITE_THREADS;
 
+    /**
+     * Number of threads in {@link #TABLE_WRITE_EXECUTOR}, 1 if there is no such executor.
+     */
+    static final int TABLE_WRITE_THREADS;
+
+    /**
+     * The executor, which encodes blocks of rows into bytes (see {@link RowBlockEncoder}) and computes partial domains
+     * for the asynchronous write threads; <code>null</code> if this is done on the write thread itself. Its tasks never
+     * block, so it's shared by all containers.
+     */
+    static final ExecutorService TABLE_WRITE_EXECUTOR;
+
+    /** Number of rows in a block whose domain is computed on the {@link #TABLE_WRITE_EXECUTOR}. */
+    private static final int DOMAIN_BLOCK_SIZE = 1024;
+
     /** Put into write queue to signal end of writing process. */
     private static final Object CONTAINER_CLOSE = new Object();
 
@@ -351,6 +448,16 @@ public Thread newThread(final Runnable r) {
 
     private DataTableDomainCreator m_domainCreator;
 
+    /** Rows whose domain is not computed yet, only used if domains are computed on the
+     * {@link #TABLE_WRITE_EXECUTOR} (otherwise null). */
+    private List<DataRow> m_domainRows;
+
+    /** Partial domains of the rows handed to the {@link #TABLE_WRITE_EXECUTOR}, in row order. */
+    private ArrayDeque<Future<DataTableDomainCreator>> m_pendingDomains;
+
+    /** Maximum number of possible values, needed to create the partial domains. */
+    private int m_maxPossibleValues = MAX_POSSIBLE_VALUES;
+
     /** Global repository map, created lazily. */
     private Map<Integer, ContainerTable> m_globalMap;
 
@@ -368,6 +475,13 @@ public Thread newThread(final Runnable r) {
      */
     private boolean m_forceCopyOfBlobs;
 
+    /** The storage format of the buffer, see {@link #setTableStorageFormat(TableStorageFormat)}. */
+    private TableStorageFormat m_tableStorageFormat = TABLE_STORAGE_FORMAT;
+
+    /** The compression of the buffer, see {@link #setTableCompressionCodec(TableCompressionCodec)}. */
+    private TableCompressionCodec m_tableCompressionCodec =
+        TableCompressionCodecRegistry.getInstance().getDefaultCodec();
+
     /**
      * Opens the container so that rows can be added by <code>addRowToTable(DataRow)</code>. The table spec of the
      * resulting table (the one being returned by <code>getTable()</code>) will have a valid column domain. That means,
@@ -450,6 +564,10 @@ protected DataContainer(final DataTableSpec spec, final boolean initDomain, fina
         }
 
         m_domainCreator = new DataTableDomainCreator(m_spec, initDomain);
+        if (!m_isSynchronousWrite && TABLE_WRITE_EXECUTOR != null) {
+            m_domainRows = new ArrayList<DataRow>(DOMAIN_BLOCK_SIZE);
+            m_pendingDomains = new ArrayDeque<Future<DataTableDomainCreator>>();
+        }
         m_size = 0;
         // how many rows will occupy MAX_CELLS_IN_MEMORY
         final int colCount = spec.getNumColumns();
@@ -494,11 +612,77 @@ private void addRowToTableWrite(final DataRow row) {
                     + "not comply with its supposed superclass " + columnClass.toString());
             }
         } // for all cells
-        m_domainCreator.updateDomain(row);
+        updateDomain(row);
         addRowKeyForDuplicateCheck(key);
         m_buffer.addRow(row, false, m_forceCopyOfBlobs);
     }
 
+    /**
+     * Updates the domain with the argument row. If domains are computed on the {@link #TABLE_WRITE_EXECUTOR} the row
+     * is collected into a block, which is handed to the executor once it is full.
+     */
+    private void updateDomain(final DataRow row) {
+        if (m_domainRows == null) {
+            m_domainCreator.updateDomain(row);
+            return;
+        }
+        m_domainRows.add(row);
+        if (m_domainRows.size() >= DOMAIN_BLOCK_SIZE) {
+            submitDomainRows();
+            // bound the number of rows held by pending tasks
+            while (m_pendingDomains.size() > 2 * TABLE_WRITE_THREADS) {
+                mergeNextPartialDomain();
+            }
+        }
+    }
+
+    /** Hands the collected rows to the {@link #TABLE_WRITE_EXECUTOR}, which computes their partial domain. */
+    private void submitDomainRows() {
+        final List<DataRow> rows = m_domainRows;
+        final DataTableDomainCreator partial = new DataTableDomainCreator(m_spec, false);
+        partial.setMaxPossibleValues(m_maxPossibleValues);
+        m_domainRows = new ArrayList<DataRow>(DOMAIN_BLOCK_SIZE);
+        m_pendingDomains.add(TABLE_WRITE_EXECUTOR.submit(() -> {
+            for (DataRow r : rows) {
+                partial.updateDomain(r);
+            }
+            return partial;
+        }));
+    }
+
+    /** Merges the oldest partial domain into m_domainCreator, waiting for it if necessary. */
+    private void mergeNextPartialDomain() {
+        Future<DataTableDomainCreator> future = m_pendingDomains.poll();
+        try {
+            m_domainCreator.merge(future.get());
+        } catch (InterruptedException e) {
+            throw new DataContainerException("Computing the table domain was interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new DataContainerException("Computing the table domain failed", cause);
+        }
+    }
+
+    /** Merges all partial domains into m_domainCreator (no-op if domains are computed on the write thread). */
+    private void finishDomain() {
+        if (m_domainRows == null) {
+            return;
+        }
+        if (!m_domainRows.isEmpty()) {
+            submitDomainRows();
+        }
+        while (!m_pendingDomains.isEmpty()) {
+            mergeNextPartialDomain();
+        }
+        m_domainRows = null;
+        m_pendingDomains = null;
+    }
+
     private void checkAsyncWriteThrowable() {
         Throwable t = m_writeThrowable.get();
         if (t != null) {
@@ -560,6 +744,70 @@ protected final boolean isForceCopyOfBlobs() {
         return m_forceCopyOfBlobs;
     }
 
+    /**
+     * Sets the format in which the data is written to disc (if at all). The default is defined by the
+     * {@link KNIMEConstants#PROPERTY_TABLE_STORAGE_FORMAT} property and is usually {@link TableStorageFormat#ROW}.
+     * Nodes creating wide tables, which are read column-wise by downstream nodes, may prefer
+     * {@link TableStorageFormat#COLUMNAR}.
+     *
+     * @param format The storage format, not null.
+     * @throws IllegalStateException If this container has already added rows, i.e. this method must be called right
+     *             after construction.
+     * @since 3.6
+     */
+    public void setTableStorageFormat(final TableStorageFormat format) {
+        if (format == null) {
+            throw new NullPointerException("Storage format must not be null");
+        }
+        if (m_buffer != null || size() > 0) {
+            throw new IllegalStateException("Container already has rows; "
+                + "invocation of this method is only permitted immediately " + "after constructor call.");
+        }
+        m_tableStorageFormat = format;
+    }
+
+    /**
+     * Get the property, which has possibly been set by {@link #setTableStorageFormat(TableStorageFormat)}.
+     *
+     * @return this property.
+     * @since 3.6
+     */
+    public TableStorageFormat getTableStorageFormat() {
+        return m_tableStorageFormat;
+    }
+
+    /**
+     * Sets the codec used to compress the data written to disc (if at all). The default is defined by the
+     * {@link KNIMEConstants#PROPERTY_TABLE_COMPRESSION} property and is usually
+     * {@link TableCompressionCodecRegistry#GZIP}. Nodes writing large intermediate tables that are read only once
+     * may prefer a faster codec, e.g. {@link TableCompressionCodecRegistry#LZ4}.
+     *
+     * @param codec The codec, not null.
+     * @throws IllegalStateException If this container has already added rows, i.e. this method must be called right
+     *             after construction.
+     * @since 3.6
+     */
+    public void setTableCompressionCodec(final TableCompressionCodec codec) {
+        if (codec == null) {
+            throw new NullPointerException("Compression codec must not be null");
+        }
+        if (m_buffer != null || size() > 0) {
+            throw new IllegalStateException("Container already has rows; "
+                + "invocation of this method is only permitted immediately " + "after constructor call.");
+        }
+        m_tableCompressionCodec = codec;
+    }
+
+    /**
+     * Get the property, which has possibly been set by {@link #setTableCompressionCodec(TableCompressionCodec)}.
+     *
+     * @return this property.
+     * @since 3.6
+     */
+    public TableCompressionCodec getTableCompressionCodec() {
+        return m_tableCompressionCodec;
+    }
+
     /**
      * Define a new threshold for number of possible values to memorize. It makes sense to call this method before any
      * rows are added.
@@ -569,6 +817,7 @@ protected final boolean isForceCopyOfBlobs() {
      */
     public void setMaxPossibleValues(final int maxPossibleValues) {
         m_domainCreator.setMaxPossibleValues(maxPossibleValues);
+        m_maxPossibleValues = maxPossibleValues;
     }
 
     /**
@@ -610,6 +859,8 @@ public void close() {
             m_buffer =
                 m_bufferCreator.createBuffer(m_maxRowsInMemory, createInternalBufferID(), getGlobalTableRepository(),
                     getLocalTableRepository(), getFileStoreHandler());
+            m_buffer.setTableStorageFormat(m_tableStorageFormat);
+            m_buffer.setTableCompressionCodec(m_tableCompressionCodec);
         }
         if (!m_isSynchronousWrite) {
             try {
@@ -624,6 +875,7 @@ public void close() {
         }
         // create table spec _after_ all_ rows have been added (i.e. wait for
         // asynchronous write thread to finish)
+        finishDomain();
         DataTableSpec finalSpec = m_domainCreator.createSpec();
         m_buffer.close(finalSpec);
         try {
@@ -770,6 +1022,8 @@ public void addRowToTable(final DataRow row) {
             if (m_buffer == null) {
                 throw new NullPointerException("Implementation error, must not return a null buffer.");
             }
+            m_buffer.setTableStorageFormat(m_tableStorageFormat);
+            m_buffer.setTableCompressionCodec(m_tableCompressionCodec);
         }
         if (m_isSynchronousWrite) {
             if (MemoryAlertSystem.getInstance().isMemoryLow()) {
@@ -1141,6 +1395,8 @@ protected static ContainerTable readFromZipDelayed(final ReferencedFile zipFile,
      * @return Table contained in <code>zipFile</code>.
      */
     static ContainerTable readFromZipDelayed(final CopyOnAccessTask c, final DataTableSpec spec) {
+        // the workflow copies the data to temp (ContainerTable#ensureCopiedToTemp) before the node directory is deleted
+        c.setReadInPlace();
         return new ContainerTable(c, spec);
     }
 
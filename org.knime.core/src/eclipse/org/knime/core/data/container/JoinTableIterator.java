@@ -49,6 +49,7 @@
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataRow;
+import org.knime.core.data.DataType;
 
 /**
  * Internal iterator class that concatenates two rows. The iterator assumes
@@ -62,6 +63,7 @@ class JoinTableIterator extends CloseableRowIterator {
     private final CloseableRowIterator m_itAppended;
     private final int[] m_map;
     private final boolean[] m_flags;
+    private final TableFilter m_filter;
 
     /**
      * Creates new iterator based on two iterators.
@@ -74,10 +76,27 @@ class JoinTableIterator extends CloseableRowIterator {
     JoinTableIterator(final CloseableRowIterator itReference,
             final CloseableRowIterator itAppended, final int[] map,
             final boolean[] flags) {
+        this(itReference, itAppended, map, flags, null);
+    }
+
+    /**
+     * Creates new iterator based on two filtered iterators.
+     * @param itReference The reference iterator, providing the keys, e.g.
+     * @param itAppended The row to be appended.
+     * @param map The internal map which columns are contributed from what
+     *         iterator
+     * @param flags The flags from which row to use.
+     * @param filter The filter applied to the output (only its materialized
+     *         columns are copied from the argument iterators) or null.
+     */
+    JoinTableIterator(final CloseableRowIterator itReference,
+            final CloseableRowIterator itAppended, final int[] map,
+            final boolean[] flags, final TableFilter filter) {
         m_itReference = itReference;
         m_itAppended = itAppended;
         m_map = map;
         m_flags = flags;
+        m_filter = filter;
     }
 
     /**
@@ -97,7 +116,7 @@ public boolean hasNext() {
     public DataRow next() {
         DataRow ref = m_itReference.next();
         DataRow app = m_itAppended.next();
-        return createOutputRow(ref, app, m_map, m_flags);
+        return createOutputRow(ref, app, m_map, m_flags, m_filter);
     }
 
     /** Assembles the output row. Used by {@link #next()}.
@@ -108,13 +127,28 @@ public DataRow next() {
      * @return the assembled output data (including data reshuffling). */
     static final DataRow createOutputRow(final DataRow ref, final DataRow app,
             final int[] map, final boolean[] flags) {
+        return createOutputRow(ref, app, map, flags, null);
+    }
+
+    /** Assembles the output row, only copying the columns materialized by
+     * the argument filter (others are set to missing so that lazily decoded
+     * rows don't get deserialized).
+     * @param ref the original input row.
+     * @param app the row with the new columns.
+     * @param map The map containing which column maps to which index
+     * @param flags which column from which row.
+     * @param filter The filter or null to copy all cells.
+     * @return the assembled output data (including data reshuffling). */
+    static final DataRow createOutputRow(final DataRow ref, final DataRow app,
+            final int[] map, final boolean[] flags, final TableFilter filter) {
         DataCell[] cells = new DataCell[map.length];
         int sanityCount = 0;
         for (int i = 0; i < cells.length; i++) {
+            final boolean isMaterialize = filter == null || filter.isMaterializeColumn(i);
             if (flags[i]) {
-                cells[i] = getUnwrappedCell(ref, map[i]);
+                cells[i] = isMaterialize ? getUnwrappedCell(ref, map[i]) : DataType.getMissingCell();
             } else {
-                cells[i] = getUnwrappedCell(app, map[i]);
+                cells[i] = isMaterialize ? getUnwrappedCell(app, map[i]) : DataType.getMissingCell();
                 sanityCount++;
             }
         }
@@ -126,6 +126,28 @@ public CloseableRowIterator iterator() {
                 m_rightTable.iterator(), m_map, m_flags);
     }
 
+    /**
+     * Applies the filter to both underlying tables, each materializing only
+     * the columns it contributes to the filter.
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    public CloseableRowIterator iteratorWithFilter(final TableFilter filter) {
+        final int colsLeft = m_leftTable.getDataTableSpec().getNumColumns();
+        final int colsRight = m_rightTable.getDataTableSpec().getNumColumns();
+        int[] leftMap = new int[m_map.length];
+        int[] rightMap = new int[m_map.length];
+        for (int i = 0; i < m_map.length; i++) {
+            leftMap[i] = m_flags[i] ? m_map[i] : -1;
+            rightMap[i] = m_flags[i] ? -1 : m_map[i];
+        }
+        return new JoinTableIterator(
+            m_leftTable.filter(filter.deriveForColumns(colsLeft, leftMap)),
+            m_rightTable.filter(filter.deriveForColumns(colsRight, rightMap)),
+            m_map, m_flags, filter);
+    }
+
     /**
      * Does nothing.
      * {@inheritDoc}
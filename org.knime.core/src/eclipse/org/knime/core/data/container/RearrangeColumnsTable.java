@@ -55,9 +55,12 @@
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.Vector;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
@@ -70,7 +73,6 @@
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTable;
 import org.knime.core.data.DataTableSpec;
-import org.knime.core.data.RowIterator;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.container.ColumnRearranger.SpecAndFactoryObject;
 import org.knime.core.data.def.DefaultRow;
@@ -274,13 +276,37 @@ public DataTableSpec getDataTableSpec() {
      */
     @Override
     public CloseableRowIterator iterator() {
+        return iteratorWithFilter(TableFilter.ALL);
+    }
+
+    /**
+     * The filter is applied to the reference and the appended table, each materializing only the columns that are
+     * contributed to this table. This is also done for unfiltered iterations, i.e. columns of the reference table
+     * that are not part of this table (e.g. the output of a column filter) are never materialized.
+     *
+     * {@inheritDoc}
+     * @since 3.6
+     */
+    @Override
+    public CloseableRowIterator iteratorWithFilter(final TableFilter filter) {
+        final int refColCount = m_reference.getDataTableSpec().getNumColumns();
+        int[] refMap = new int[m_map.length];
+        int[] appendMap = new int[m_map.length];
+        for (int i = 0; i < m_map.length; i++) {
+            refMap[i] = m_isFromRefTable[i] ? m_map[i] : -1;
+            appendMap[i] = m_isFromRefTable[i] ? -1 : m_map[i];
+        }
         CloseableRowIterator appendIt;
         if (m_appendTable != null) {
-            appendIt = m_appendTable.iterator();
+            TableFilter appendFilter =
+                filter.deriveForColumns(m_appendTable.getDataTableSpec().getNumColumns(), appendMap);
+            appendIt = appendFilter.isNoOp() ? m_appendTable.iterator() : m_appendTable.iteratorWithFilter(appendFilter);
         } else {
             appendIt = EMPTY_ITERATOR;
         }
-        return new JoinTableIterator(m_reference.iterator(), appendIt, m_map, m_isFromRefTable);
+        CloseableRowIterator refIt = m_reference.filter(filter.deriveForColumns(refColCount, refMap));
+        return new JoinTableIterator(refIt, appendIt, m_map, m_isFromRefTable, filter.isMaterializeAllColumns()
+            ? null : filter);
     }
 
     /**
@@ -419,7 +445,7 @@ private static void calcNewColsSynchronously(final BufferedDataTable table, fina
         final int factoryCount = newColsFactories.size();
         int r = 0;
         CellFactory facForProgress = factoryCount > 0 ? newColsFactories.iterator().next() : null;
-        for (RowIterator it = table.iterator(); it.hasNext(); r++) {
+        for (Iterator<DataRow> it = getInputRows(table, newColsProducerMapping).iterator(); it.hasNext(); r++) {
             DataRow row = it.next();
             DataRow append = calcNewCellsForRow(row, newColsProducerMapping);
             container.addRowToTable(append);
@@ -464,7 +490,7 @@ private static void calcNewColsASynchronously(final BufferedDataTable table, fin
             new ConcurrentNewColCalculator(queueSize, workers, container, subProgress, finalRowCount,
                 newColsProducerMapping, facForProgress);
         try {
-            calculator.run(table);
+            calculator.run(getInputRows(table, newColsProducerMapping));
         } catch (InterruptedException e) {
             CanceledExecutionException cee = new CanceledExecutionException(e.getMessage());
             cee.initCause(e);
@@ -481,6 +507,35 @@ private static void calcNewColsASynchronously(final BufferedDataTable table, fin
         }
     }
 
+    /**
+     * The rows to be processed by the cell factories. If all factories declare the columns they read (see
+     * {@link AbstractCellFactory#setRequiredColumns(int...)}) only these columns are materialized.
+     */
+    private static Iterable<DataRow> getInputRows(final BufferedDataTable table,
+        final NewColumnsProducerMapping newColsProducerMapping) {
+        // type converters copy all cells of the input row
+        if (!newColsProducerMapping.getConverterToIndexMap().isEmpty()) {
+            return table;
+        }
+        Set<CellFactory> factories = newColsProducerMapping.getUniqueCellFactoryMap().keySet();
+        SortedSet<Integer> columns = new TreeSet<Integer>();
+        for (CellFactory factory : factories) {
+            int[] required = factory instanceof AbstractCellFactory
+                ? ((AbstractCellFactory)factory).getRequiredColumns() : null;
+            if (required == null) {
+                return table;
+            }
+            for (int i : required) {
+                columns.add(i);
+            }
+        }
+        if (factories.isEmpty() || columns.size() == table.getDataTableSpec().getNumColumns()) {
+            return table;
+        }
+        final TableFilter filter = TableFilter.materializeCols(columns.stream().mapToInt(Integer::intValue).toArray());
+        return () -> table.filter(filter);
+    }
+
     private static Set<Class<? extends CellFactory>> codingProblemsCellFactoryClasses;
 
     /**
@@ -643,6 +698,16 @@ public void ensureOpen() {
         }
     }
 
+    /**
+     * Internal use. {@inheritDoc}
+     */
+    @Override
+    public void ensureCopiedToTemp() {
+        if (m_appendTable != null) {
+            m_appendTable.ensureCopiedToTemp();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,214 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.collection.CollectionDataValue;
+import org.knime.core.data.filestore.FileStoreCell;
+
+/**
+ * Serializes the rows written to a {@link Buffer} (row storage format) on several threads. Rows are collected in
+ * blocks, each block is encoded into a byte array by a task of an executor and the encoded blocks are appended to the
+ * (compressing) output stream in the order of the rows by the thread writing the buffer. As the row format does not
+ * carry state from one row to the next, the result is identical to writing the rows one after another.
+ *
+ * <p>
+ * Rows containing blobs or file store cells are encoded by the writing thread itself, as encoding these touches
+ * state of the buffer (blob indices, file store handler) that must be updated in row order.
+ *
+ * <p>
+ * This class is not thread-safe, it's used by the thread writing the buffer only.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class RowBlockEncoder {
+
+    /** Number of rows encoded by one task. */
+    static final int ROWS_PER_BLOCK = 256;
+
+    private final Buffer m_buffer;
+
+    private final OutputStream m_out;
+
+    private final ExecutorService m_executor;
+
+    private final int m_maxPendingBlocks;
+
+    /** Encoded (or being encoded) blocks, in row order. */
+    private final ArrayDeque<Future<ByteArrayOutputStream>> m_pendingBlocks =
+        new ArrayDeque<Future<ByteArrayOutputStream>>();
+
+    private List<BlobSupportDataRow> m_rows = new ArrayList<BlobSupportDataRow>(ROWS_PER_BLOCK);
+
+    /** Whether all rows in m_rows can be encoded by the executor. */
+    private boolean m_isConcurrentBlock = true;
+
+    /**
+     * @param buffer the buffer encoding the rows
+     * @param out the stream to append the encoded rows to
+     * @param executor runs the encoding tasks
+     * @param nrThreads number of threads of the executor, determines the number of pending blocks
+     */
+    RowBlockEncoder(final Buffer buffer, final OutputStream out, final ExecutorService executor,
+        final int nrThreads) {
+        m_buffer = buffer;
+        m_out = out;
+        m_executor = executor;
+        m_maxPendingBlocks = 2 * nrThreads;
+    }
+
+    /**
+     * Adds a row, it will be written to the output stream with one of the next calls to this method or with
+     * {@link #flush()}.
+     *
+     * @param row the row to encode
+     * @throws IOException if writing a previous block fails
+     */
+    void addRow(final BlobSupportDataRow row) throws IOException {
+        m_rows.add(row);
+        if (m_isConcurrentBlock) {
+            for (int i = 0; i < row.getNumCells(); i++) {
+                if (!isConcurrentlyEncodable(row.getRawCell(i))) {
+                    m_isConcurrentBlock = false;
+                    break;
+                }
+            }
+        }
+        if (m_rows.size() >= ROWS_PER_BLOCK) {
+            submitBlock();
+            while (m_pendingBlocks.size() > m_maxPendingBlocks) {
+                writeNextBlock();
+            }
+        }
+    }
+
+    /**
+     * Writes all rows added so far to the output stream. Must be called before the output stream is closed.
+     *
+     * @throws IOException if encoding or writing fails
+     */
+    void flush() throws IOException {
+        if (!m_rows.isEmpty()) {
+            submitBlock();
+        }
+        while (!m_pendingBlocks.isEmpty()) {
+            writeNextBlock();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        final List<BlobSupportDataRow> rows = m_rows;
+        m_rows = new ArrayList<BlobSupportDataRow>(ROWS_PER_BLOCK);
+        if (m_isConcurrentBlock) {
+            m_pendingBlocks.add(m_executor.submit(() -> m_buffer.encodeRows(rows)));
+        } else {
+            m_pendingBlocks.add(CompletableFuture.completedFuture(m_buffer.encodeRows(rows)));
+        }
+        m_isConcurrentBlock = true;
+    }
+
+    private void writeNextBlock() throws IOException {
+        Future<ByteArrayOutputStream> block = m_pendingBlocks.poll();
+        try {
+            block.get().writeTo(m_out);
+        } catch (InterruptedException e) {
+            cancel();
+            InterruptedIOException ioe = new InterruptedIOException("Encoding rows was interrupted");
+            ioe.initCause(e);
+            throw ioe;
+        } catch (ExecutionException e) {
+            cancel();
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IOException("Encoding rows failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    /** Cancels all pending tasks, used when writing failed. */
+    private void cancel() {
+        for (Future<ByteArrayOutputStream> f : m_pendingBlocks) {
+            f.cancel(true);
+        }
+        m_pendingBlocks.clear();
+        m_rows.clear();
+    }
+
+    /**
+     * @param cell a cell of a row
+     * @return false if the cell is or contains a blob or file store cell
+     */
+    private static boolean isConcurrentlyEncodable(final DataCell cell) {
+        if (cell instanceof BlobWrapperDataCell || cell instanceof BlobDataCell || cell instanceof FileStoreCell) {
+            return false;
+        }
+        if (cell instanceof CollectionDataValue) {
+            for (DataCell c : (CollectionDataValue)cell) {
+                if (!isConcurrentlyEncodable(c)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
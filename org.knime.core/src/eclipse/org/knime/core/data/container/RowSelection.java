@@ -0,0 +1,294 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A set of row indices of a table, used to create a
+ * {@link org.knime.core.node.ExecutionContext#createRowSelectionTable(org.knime.core.node.BufferedDataTable, RowSelection)
+ * row selection table} that references the selected rows of its parent table instead of copying them. The indices
+ * are kept in a bit set, i.e. a selection requires one bit per row of the parent table, independent of the number
+ * of selected rows.
+ *
+ * <p>
+ * Typical use is a node that partitions its input table:
+ *
+ * <pre>
+ * RowSelection selection = new RowSelection(in.size());
+ * long index = 0;
+ * for (DataRow row : in) {
+ *     if (matches(row)) {
+ *         selection.select(index);
+ *     }
+ *     index++;
+ * }
+ * BufferedDataTable first = exec.createRowSelectionTable(in, selection);
+ * BufferedDataTable second = exec.createRowSelectionTable(in, selection.invert());
+ * </pre>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public final class RowSelection {
+
+    private final long m_rowCount;
+
+    private final long[] m_words;
+
+    private long m_selectedCount;
+
+    /**
+     * Creates a new empty selection.
+     *
+     * @param rowCount The number of rows of the table to select rows from.
+     * @throws IllegalArgumentException If the row count is negative or too large.
+     */
+    public RowSelection(final long rowCount) {
+        if (rowCount < 0) {
+            throw new IllegalArgumentException("Row count must not be negative: " + rowCount);
+        }
+        final long wordCount = (rowCount + 63) >>> 6;
+        if (wordCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Row count too large: " + rowCount);
+        }
+        m_rowCount = rowCount;
+        m_words = new long[(int)wordCount];
+    }
+
+    private RowSelection(final long rowCount, final long[] words, final long selectedCount) {
+        m_rowCount = rowCount;
+        m_words = words;
+        m_selectedCount = selectedCount;
+    }
+
+    /** @return The number of rows of the table to select rows from. */
+    public long getRowCount() {
+        return m_rowCount;
+    }
+
+    /** @return The number of selected rows. */
+    public long getSelectedCount() {
+        return m_selectedCount;
+    }
+
+    private void checkIndex(final long rowIndex) {
+        if (rowIndex < 0 || rowIndex >= m_rowCount) {
+            throw new IndexOutOfBoundsException("Row index out of range: " + rowIndex + " (table has " + m_rowCount
+                + " row(s))");
+        }
+    }
+
+    /**
+     * @param rowIndex A row index (0-based).
+     * @return Whether the row is selected.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public boolean isSelected(final long rowIndex) {
+        checkIndex(rowIndex);
+        return (m_words[(int)(rowIndex >>> 6)] & (1L << rowIndex)) != 0;
+    }
+
+    /**
+     * Selects a row.
+     *
+     * @param rowIndex The index of the row (0-based).
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public void select(final long rowIndex) {
+        checkIndex(rowIndex);
+        final int word = (int)(rowIndex >>> 6);
+        final long bit = 1L << rowIndex;
+        if ((m_words[word] & bit) == 0) {
+            m_words[word] |= bit;
+            m_selectedCount++;
+        }
+    }
+
+    /**
+     * Selects a range of rows.
+     *
+     * @param fromIndex The index of the first row to select (0-based).
+     * @param toIndex The index of the last row to select (inclusive).
+     * @throws IndexOutOfBoundsException If any of the indices is out of range.
+     * @throws IllegalArgumentException If the last index is smaller than the first index.
+     */
+    public void select(final long fromIndex, final long toIndex) {
+        checkIndex(fromIndex);
+        checkIndex(toIndex);
+        if (toIndex < fromIndex) {
+            throw new IllegalArgumentException("Last row index (" + toIndex
+                + ") must not be smaller than first row index (" + fromIndex + ")");
+        }
+        final int firstWord = (int)(fromIndex >>> 6);
+        final int lastWord = (int)(toIndex >>> 6);
+        for (int w = firstWord; w <= lastWord; w++) {
+            long mask = -1L;
+            if (w == firstWord) {
+                mask &= -1L << fromIndex;
+            }
+            if (w == lastWord) {
+                mask &= -1L >>> (63 - (toIndex & 63));
+            }
+            m_selectedCount += Long.bitCount(mask & ~m_words[w]);
+            m_words[w] |= mask;
+        }
+    }
+
+    /** @return A new selection that contains exactly the rows not contained in this selection. */
+    public RowSelection invert() {
+        final long[] words = new long[m_words.length];
+        for (int w = 0; w < words.length; w++) {
+            words[w] = ~m_words[w];
+        }
+        if (words.length > 0 && (m_rowCount & 63) != 0) {
+            words[words.length - 1] &= -1L >>> (64 - (m_rowCount & 63));
+        }
+        return new RowSelection(m_rowCount, words, m_rowCount - m_selectedCount);
+    }
+
+    /** @return A copy of this selection, which is not affected by subsequent changes of this selection. */
+    RowSelection copy() {
+        return new RowSelection(m_rowCount, m_words.clone(), m_selectedCount);
+    }
+
+    /**
+     * @param fromIndex A row index (0-based), may be larger than the last row index.
+     * @return The index of the first selected row at or after the argument index or -1 if there is none.
+     */
+    long nextSelected(final long fromIndex) {
+        if (fromIndex >= m_rowCount) {
+            return -1;
+        }
+        int w = (int)(fromIndex >>> 6);
+        long word = m_words[w] & (-1L << fromIndex);
+        while (word == 0) {
+            if (++w == m_words.length) {
+                return -1;
+            }
+            word = m_words[w];
+        }
+        return ((long)w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * @param rank The rank of a selected row, i.e. the index of the row in a table containing only the selected rows.
+     * @return The index of the selected row in the table to select rows from or -1 if fewer rows are selected.
+     */
+    long indexOfSelected(final long rank) {
+        long remaining = rank;
+        for (int w = 0; w < m_words.length; w++) {
+            final int count = Long.bitCount(m_words[w]);
+            if (remaining < count) {
+                long word = m_words[w];
+                for (long i = 0; i < remaining; i++) {
+                    word &= word - 1;
+                }
+                return ((long)w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            remaining -= count;
+        }
+        return -1;
+    }
+
+    /**
+     * Writes the selection.
+     *
+     * @param out To write to.
+     * @throws IOException If writing fails.
+     */
+    void write(final DataOutput out) throws IOException {
+        out.writeLong(m_rowCount);
+        out.writeLong(m_selectedCount);
+        for (final long word : m_words) {
+            out.writeLong(word);
+        }
+    }
+
+    /**
+     * Reads a selection written by {@link #write(DataOutput)}.
+     *
+     * @param in To read from.
+     * @return The selection.
+     * @throws IOException If reading fails.
+     */
+    static RowSelection read(final DataInput in) throws IOException {
+        final RowSelection selection = new RowSelection(in.readLong());
+        selection.m_selectedCount = in.readLong();
+        for (int w = 0; w < selection.m_words.length; w++) {
+            selection.m_words[w] = in.readLong();
+        }
+        return selection;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "Selected " + m_selectedCount + " of " + m_rowCount + " row(s)";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof RowSelection)) {
+            return false;
+        }
+        final RowSelection other = (RowSelection)obj;
+        return m_rowCount == other.m_rowCount && Arrays.equals(m_words, other.m_words);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(m_rowCount) ^ Arrays.hashCode(m_words);
+    }
+}
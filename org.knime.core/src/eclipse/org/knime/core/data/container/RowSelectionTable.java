@@ -0,0 +1,350 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.BufferedDataTable.KnowsRowCountTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+
+/**
+ * Table that contains a subset of the rows of a reference table, either a contiguous range of rows (a slice) or the
+ * rows of a {@link RowSelection}, in their original order. The rows are not copied, iterating the table reads the
+ * rows of the reference table, skipping the leading and unselected rows natively if the reference table supports it.
+ * Saving the table only saves the reference and the row range or selection. This class is used by the framework and
+ * should not be of public interest, use
+ * {@link org.knime.core.node.ExecutionContext#createSlicedTable(BufferedDataTable, long, long)} or
+ * {@link org.knime.core.node.ExecutionContext#createRowSelectionTable(BufferedDataTable, RowSelection)} instead.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public final class RowSelectionTable implements KnowsRowCountTable {
+
+    private static final String CFG_INTERNAL_META = "meta_internal";
+    private static final String CFG_REFERENCE_ID = "table_reference_ID";
+    private static final String CFG_FROM_ROW_INDEX = "from_row_index";
+    private static final String CFG_ROW_COUNT = "table_rowcount_long";
+
+    private final BufferedDataTable m_table;
+
+    /** Index of the first row of the slice, 0 if the rows are defined by m_selection. */
+    private final long m_fromRowIndex;
+
+    private final long m_rowCount;
+
+    /** The selected rows or null if this table is a slice. */
+    private final RowSelection m_selection;
+
+    private RowSelectionTable(final BufferedDataTable table, final long fromRowIndex, final long rowCount,
+        final RowSelection selection) {
+        m_table = table;
+        m_fromRowIndex = fromRowIndex;
+        m_rowCount = rowCount;
+        m_selection = selection;
+    }
+
+    /**
+     * Creates a table that contains a contiguous range of rows of the argument table.
+     *
+     * @param table The reference table.
+     * @param fromRowIndex The index of the first row (0-based).
+     * @param rowCount The number of rows.
+     * @return The new table.
+     * @throws NullPointerException If the table is null.
+     * @throws IndexOutOfBoundsException If the range is not contained in the table.
+     */
+    public static RowSelectionTable createSlice(final BufferedDataTable table, final long fromRowIndex,
+        final long rowCount) {
+        if (table == null) {
+            throw new NullPointerException("Table must not be null.");
+        }
+        if (fromRowIndex < 0 || rowCount < 0 || fromRowIndex + rowCount > table.size()) {
+            throw new IndexOutOfBoundsException("Rows " + fromRowIndex + " - " + (fromRowIndex + rowCount - 1)
+                + " out of range (table has " + table.size() + " row(s))");
+        }
+        return new RowSelectionTable(table, fromRowIndex, rowCount, null);
+    }
+
+    /**
+     * Creates a table that contains the selected rows of the argument table. Subsequent changes of the selection do
+     * not affect the table.
+     *
+     * @param table The reference table.
+     * @param selection The rows to select.
+     * @return The new table.
+     * @throws NullPointerException If any argument is null.
+     * @throws IllegalArgumentException If the selection was not created for a table with the argument table's row
+     *             count.
+     */
+    public static RowSelectionTable create(final BufferedDataTable table, final RowSelection selection) {
+        if (table == null || selection == null) {
+            throw new NullPointerException("Arguments must not be null.");
+        }
+        if (selection.getRowCount() != table.size()) {
+            throw new IllegalArgumentException("Selection is defined on " + selection.getRowCount()
+                + " row(s) but table has " + table.size() + " row(s)");
+        }
+        return new RowSelectionTable(table, 0, selection.getSelectedCount(), selection.copy());
+    }
+
+    /** Internal use.
+     * {@inheritDoc} */
+    @Override
+    public void clear() {
+        // left empty, it's up to the node to clear the reference table.
+    }
+
+    /** Internal use.
+     * {@inheritDoc} */
+    @Override
+    public void ensureOpen() {
+        // no own data, only referencing another table
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferedDataTable[] getReferenceTables() {
+        return new BufferedDataTable[]{m_table};
+    }
+
+    /**
+     * {@inheritDoc}
+     * @deprecated use {@link #size()} instead which supports more than {@link Integer#MAX_VALUE} rows
+     */
+    @Override
+    @Deprecated
+    public int getRowCount() {
+        return KnowsRowCountTable.checkRowCount(size());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long size() {
+        return m_rowCount;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataTableSpec getDataTableSpec() {
+        return m_table.getDataTableSpec();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CloseableRowIterator iterator() {
+        return iteratorWithFilter(TableFilter.ALL);
+    }
+
+    /**
+     * The row range of the filter is translated to the reference table, which skips the leading rows.
+     * {@inheritDoc}
+     */
+    @Override
+    public CloseableRowIterator iteratorWithFilter(final TableFilter filter) {
+        final long from = filter.getFromRowIndex();
+        final long to = Math.min(filter.getToRowIndex(), m_rowCount - 1);
+        if (from > to) {
+            return new SelectionIterator(null, 0, 0);
+        }
+        final long refFrom;
+        final long refTo;
+        if (m_selection == null) {
+            refFrom = m_fromRowIndex + from;
+            refTo = m_fromRowIndex + to;
+        } else {
+            refFrom = m_selection.indexOfSelected(from);
+            refTo = from == to ? refFrom : m_selection.indexOfSelected(to);
+        }
+        final TableFilter refFilter = TableFilter.builder(filter).setFromRowIndex(refFrom).setToRowIndex(refTo).build();
+        return new SelectionIterator(m_table.filter(refFilter), refFrom, to - from + 1);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void putIntoTableRepository(final HashMap<Integer, ContainerTable> rep) {
+        // no new tables, ignore
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean removeFromTableRepository(final HashMap<Integer, ContainerTable> rep) {
+        // no new tables, ignore
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void saveToFile(final File f, final NodeSettingsWO s, final ExecutionMonitor exec)
+        throws IOException, CanceledExecutionException {
+        NodeSettingsWO subSettings = s.addNodeSettings(CFG_INTERNAL_META);
+        subSettings.addInt(CFG_REFERENCE_ID, m_table.getBufferedTableId());
+        subSettings.addLong(CFG_FROM_ROW_INDEX, m_fromRowIndex);
+        subSettings.addLong(CFG_ROW_COUNT, m_rowCount);
+        if (m_selection != null) {
+            try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(f))))) {
+                m_selection.write(out);
+            }
+        }
+    }
+
+    /** Restore table, reverse operation to
+     * {@link #saveToFile(File, NodeSettingsWO, ExecutionMonitor) save}.
+     * @param f The file the selection was written to or null if the table is a slice.
+     * @param s To load from.
+     * @param tblRep Global table loader map.
+     * @return A freshly created table.
+     * @throws IOException If reading the selection fails.
+     * @throws InvalidSettingsException If settings are invalid.
+     */
+    public static RowSelectionTable load(final File f, final NodeSettingsRO s,
+        final Map<Integer, BufferedDataTable> tblRep) throws IOException, InvalidSettingsException {
+        NodeSettingsRO subSettings = s.getNodeSettings(CFG_INTERNAL_META);
+        int refID = subSettings.getInt(CFG_REFERENCE_ID);
+        BufferedDataTable reference = BufferedDataTable.getDataTable(tblRep, refID);
+        long fromRowIndex = subSettings.getLong(CFG_FROM_ROW_INDEX);
+        long rowCount = subSettings.getLong(CFG_ROW_COUNT);
+        RowSelection selection = null;
+        if (f != null) {
+            try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(new FileInputStream(f))))) {
+                selection = RowSelection.read(in);
+            }
+            if (selection.getSelectedCount() != rowCount) {
+                throw new InvalidSettingsException("Row selection contains " + selection.getSelectedCount()
+                    + " row(s), expected " + rowCount);
+            }
+        }
+        return new RowSelectionTable(reference, fromRowIndex, rowCount, selection);
+    }
+
+    /**
+     * Iterates the reference table, starting at the first row to return, and skips rows that are not selected. Rows
+     * are skipped natively if the reference iterator is a {@link SkippableRowIterator}, otherwise they are read.
+     */
+    private final class SelectionIterator extends CloseableRowIterator {
+
+        private CloseableRowIterator m_refIterator;
+
+        /** Index of the row in the reference table that m_refIterator returns next. */
+        private long m_refIndex;
+
+        private long m_remaining;
+
+        /**
+         * @param refIterator iterator on the reference table, null if no rows are to be returned
+         * @param refIndex index of the first row refIterator returns
+         * @param count number of rows to return
+         */
+        SelectionIterator(final CloseableRowIterator refIterator, final long refIndex, final long count) {
+            m_refIterator = refIterator;
+            m_refIndex = refIndex;
+            m_remaining = count;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean hasNext() {
+            return m_remaining > 0;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public DataRow next() {
+            if (m_remaining <= 0) {
+                throw new NoSuchElementException("No more rows");
+            }
+            if (m_selection != null) {
+                final long next = m_selection.nextSelected(m_refIndex);
+                if (m_refIterator instanceof SkippableRowIterator) {
+                    // buffer iterators step over the unselected rows without decoding them
+                    ((SkippableRowIterator)m_refIterator).skipRows(next - m_refIndex);
+                    m_refIndex = next;
+                }
+                while (m_refIndex < next) {
+                    m_refIterator.next();
+                    m_refIndex++;
+                }
+            }
+            final DataRow row = m_refIterator.next();
+            m_refIndex++;
+            if (--m_remaining == 0) {
+                close();
+            }
+            return row;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() {
+            if (m_refIterator != null) {
+                m_refIterator.close();
+                m_refIterator = null;
+            }
+            m_remaining = 0;
+        }
+    }
+}
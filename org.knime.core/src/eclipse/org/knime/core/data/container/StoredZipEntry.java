@@ -0,0 +1,294 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * The location of an uncompressed ({@link ZipEntry#STORED stored}) entry in a zip file. Used to read the binary data
+ * of a saved table directly from the node's zip file instead of extracting it to temp first.
+ *
+ * <p>
+ * The streams returned by {@link #openStream()} memory-map the entry where possible. Mapping is not used on Windows as
+ * a mapped file can't be deleted until the mapping is garbage collected (which would block deleting or overwriting
+ * the workflow), and not for entries larger than 2GB.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class StoredZipEntry {
+
+    /** Signature of a local file header. */
+    private static final int LOC_SIGNATURE = 0x04034b50;
+
+    /** Optional signature of a data descriptor. */
+    private static final int EXT_SIGNATURE = 0x08074b50;
+
+    /** Fixed length of a local file header (without name and extra field). */
+    private static final int LOC_HEADER_LENGTH = 30;
+
+    /** Sizes at or above this value are written to zip64 extra fields. */
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    /** General purpose flag indicating that sizes and crc follow the entry data. */
+    private static final int FLAG_DATA_DESCRIPTOR = 0x08;
+
+    private static final boolean IS_MAP_FILES = !Platform.OS_WIN32.equals(Platform.getOS());
+
+    private final File m_file;
+
+    private final long m_offset;
+
+    private final long m_length;
+
+    private StoredZipEntry(final File file, final long offset, final long length) {
+        m_file = file;
+        m_offset = offset;
+        m_length = length;
+    }
+
+    /** @return the zip file containing the entry. */
+    File getFile() {
+        return m_file;
+    }
+
+    /** @return the number of bytes in the entry. */
+    long getLength() {
+        return m_length;
+    }
+
+    /**
+     * Opens a new (unbuffered) stream on the entry's content.
+     *
+     * @return a new stream, to be closed by the caller.
+     * @throws IOException If the file can't be opened.
+     */
+    InputStream openStream() throws IOException {
+        FileChannel channel = FileChannel.open(m_file.toPath(), StandardOpenOption.READ);
+        if (IS_MAP_FILES && m_length <= Integer.MAX_VALUE) {
+            // the mapping remains valid when the channel is closed
+            try (FileChannel c = channel) {
+                return new MappedInputStream(c.map(MapMode.READ_ONLY, m_offset, m_length));
+            }
+        }
+        return new ChannelRegionInputStream(channel, m_offset, m_length);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return m_file.getAbsolutePath() + " [" + m_offset + ", " + m_length + " bytes]";
+    }
+
+    /**
+     * Locates an entry in a zip file, whereby the entry must be stored without compression.
+     *
+     * @param zipFile The zip file.
+     * @param entryName The name of the entry.
+     * @return the entry location or null if the file contains no such entry or if the entry is compressed.
+     * @throws IOException If the file can't be read or is not a zip file.
+     */
+    static StoredZipEntry locate(final File zipFile, final String entryName) throws IOException {
+        // the central directory has the (compressed) sizes of all entries, the offset of an entry's data is only
+        // determined by walking the local headers; the entry in question is usually the first or second one
+        try (ZipFile zip = new ZipFile(zipFile); RandomAccessFile raf = new RandomAccessFile(zipFile, "r")) {
+            ZipEntry target = zip.getEntry(entryName);
+            if (target == null || target.getMethod() != ZipEntry.STORED) {
+                return null;
+            }
+            final long fileLength = raf.length();
+            long pos = 0L;
+            byte[] header = new byte[LOC_HEADER_LENGTH];
+            while (pos + LOC_HEADER_LENGTH <= fileLength) {
+                raf.seek(pos);
+                raf.readFully(header);
+                if (readInt(header, 0) != LOC_SIGNATURE) {
+                    return null;
+                }
+                int flags = readShort(header, 6);
+                int method = readShort(header, 8);
+                byte[] nameBytes = new byte[readShort(header, 26)];
+                int extraLength = readShort(header, 28);
+                raf.readFully(nameBytes);
+                String name = new String(nameBytes, StandardCharsets.UTF_8);
+                long dataStart = pos + LOC_HEADER_LENGTH + nameBytes.length + extraLength;
+                if (name.equals(entryName)) {
+                    if (method != ZipEntry.STORED || dataStart + target.getCompressedSize() > fileLength) {
+                        return null;
+                    }
+                    return new StoredZipEntry(zipFile, dataStart, target.getCompressedSize());
+                }
+                ZipEntry entry = zip.getEntry(name);
+                if (entry == null) {
+                    return null;
+                }
+                pos = dataStart + entry.getCompressedSize();
+                if ((flags & FLAG_DATA_DESCRIPTOR) != 0) {
+                    raf.seek(pos);
+                    byte[] signature = new byte[4];
+                    raf.readFully(signature);
+                    if (readInt(signature, 0) == EXT_SIGNATURE) {
+                        pos += 4;
+                    }
+                    boolean isZip64 = entry.getSize() >= ZIP64_MAGIC || entry.getCompressedSize() >= ZIP64_MAGIC;
+                    pos += 4 + (isZip64 ? 16 : 8);
+                }
+            }
+            return null;
+        }
+    }
+
+    private static int readShort(final byte[] b, final int off) {
+        return (b[off] & 0xFF) | ((b[off + 1] & 0xFF) << 8);
+    }
+
+    private static int readInt(final byte[] b, final int off) {
+        return readShort(b, off) | (readShort(b, off + 2) << 16);
+    }
+
+    /** Stream on a memory mapped region. */
+    private static final class MappedInputStream extends InputStream {
+
+        private final MappedByteBuffer m_buffer;
+
+        MappedInputStream(final MappedByteBuffer buffer) {
+            m_buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return m_buffer.hasRemaining() ? (m_buffer.get() & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!m_buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, m_buffer.remaining());
+            m_buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(final long n) {
+            int count = (int)Math.max(0L, Math.min(n, m_buffer.remaining()));
+            m_buffer.position(m_buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return m_buffer.remaining();
+        }
+    }
+
+    /** Stream on a region of a file channel using positional reads. */
+    private static final class ChannelRegionInputStream extends InputStream {
+
+        private final FileChannel m_channel;
+
+        private long m_position;
+
+        private final long m_end;
+
+        ChannelRegionInputStream(final FileChannel channel, final long offset, final long length) {
+            m_channel = channel;
+            m_position = offset;
+            m_end = offset + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : (b[0] & 0xFF);
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (m_position >= m_end) {
+                return -1;
+            }
+            int count = (int)Math.min(len, m_end - m_position);
+            int read = m_channel.read(ByteBuffer.wrap(b, off, count), m_position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file (file truncated?)");
+            }
+            m_position += read;
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) {
+            long count = Math.max(0L, Math.min(n, m_end - m_position));
+            m_position += count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            m_channel.close();
+        }
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.util.Arrays;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.BufferedDataTable;
+
+/**
+ * Describes which part of a table is to be read by an iterator returned by
+ * {@link BufferedDataTable#filter(TableFilter)}. A filter restricts
+ * <ul>
+ * <li>the set of columns to be materialized, i.e. the columns whose cells are read (and deserialized) and</li>
+ * <li>the range of rows to be returned, given by a first and a last row index (both inclusive).</li>
+ * </ul>
+ *
+ * <p>
+ * Rows returned by a filtered iterator always have the same number of cells as the table. The content of cells in
+ * columns that are not materialized is unspecified (implementations commonly return a missing cell); clients must
+ * not access them. The row key is always available.
+ *
+ * <p>
+ * Instances are immutable and created using the static factory methods or a {@link #builder() builder}, e.g.
+ *
+ * <pre>
+ * try (CloseableRowIterator it = table.filter(TableFilter.materializeCols(2, 5))) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public final class TableFilter {
+
+    /** Filter that returns all rows and materializes all columns. */
+    public static final TableFilter ALL = builder().build();
+
+    /** Sorted indices of the columns to materialize or null if all columns are to be materialized. */
+    private final int[] m_materializeColumnIndices;
+
+    private final long m_fromRowIndex;
+
+    private final long m_toRowIndex;
+
+    private TableFilter(final Builder builder) {
+        if (builder.m_fromRowIndex < 0) {
+            throw new IllegalArgumentException("Row index must not be negative: " + builder.m_fromRowIndex);
+        }
+        if (builder.m_toRowIndex < builder.m_fromRowIndex) {
+            throw new IllegalArgumentException("Last row index (" + builder.m_toRowIndex
+                + ") must not be smaller than first row index (" + builder.m_fromRowIndex + ")");
+        }
+        if (builder.m_materializeColumnIndices != null) {
+            int[] indices = builder.m_materializeColumnIndices.clone();
+            Arrays.sort(indices);
+            if (indices.length > 0 && indices[0] < 0) {
+                throw new IllegalArgumentException("Column index must not be negative: " + indices[0]);
+            }
+            m_materializeColumnIndices = indices;
+        } else {
+            m_materializeColumnIndices = null;
+        }
+        m_fromRowIndex = builder.m_fromRowIndex;
+        m_toRowIndex = builder.m_toRowIndex;
+    }
+
+    /**
+     * Creates a filter that returns all rows but only materializes the argument columns.
+     *
+     * @param columnIndices The indices of the columns to materialize.
+     * @return A new filter.
+     */
+    public static TableFilter materializeCols(final int... columnIndices) {
+        return builder().setMaterializeColumns(columnIndices).build();
+    }
+
+    /**
+     * Creates a filter that returns all rows but only materializes the argument columns.
+     *
+     * @param spec The spec of the table to iterate.
+     * @param columnNames The names of the columns to materialize.
+     * @return A new filter.
+     * @throws IllegalArgumentException If any of the columns is not contained in the spec.
+     */
+    public static TableFilter materializeCols(final DataTableSpec spec, final String... columnNames) {
+        return builder().setMaterializeColumns(spec, columnNames).build();
+    }
+
+    /**
+     * Creates a filter that materializes all columns but only returns the rows with index <code>fromIndex</code> up
+     * to and including <code>toIndex</code>.
+     *
+     * @param fromIndex The index of the first row to return (0-based).
+     * @param toIndex The index of the last row to return (inclusive).
+     * @return A new filter.
+     */
+    public static TableFilter filterRangeOfRows(final long fromIndex, final long toIndex) {
+        return builder().setFromRowIndex(fromIndex).setToRowIndex(toIndex).build();
+    }
+
+    /** @return A new builder with default settings (all rows, all columns). */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @param filter The filter to copy the settings from.
+     * @return A new builder initialized with the settings of the argument filter.
+     */
+    public static Builder builder(final TableFilter filter) {
+        return new Builder().copyFrom(filter);
+    }
+
+    /**
+     * @return Sorted indices of the columns to be materialized (a copy) or <code>null</code> if all columns are to be
+     *         materialized.
+     */
+    public int[] getMaterializeColumnIndices() {
+        return m_materializeColumnIndices == null ? null : m_materializeColumnIndices.clone();
+    }
+
+    /** @return true if all columns are to be materialized (no column filter set). */
+    public boolean isMaterializeAllColumns() {
+        return m_materializeColumnIndices == null;
+    }
+
+    /**
+     * @param columnIndex A column index.
+     * @return Whether the cells of the argument column are to be read.
+     */
+    public boolean isMaterializeColumn(final int columnIndex) {
+        return m_materializeColumnIndices == null || Arrays.binarySearch(m_materializeColumnIndices, columnIndex) >= 0;
+    }
+
+    /** @return the index of the first row to return (0-based). */
+    public long getFromRowIndex() {
+        return m_fromRowIndex;
+    }
+
+    /** @return the index of the last row to return (inclusive), {@link Long#MAX_VALUE} if not set. */
+    public long getToRowIndex() {
+        return m_toRowIndex;
+    }
+
+    /** @return true if the filter restricts the range of rows. */
+    public boolean isFilterRows() {
+        return m_fromRowIndex > 0 || m_toRowIndex < Long.MAX_VALUE;
+    }
+
+    /** @return true if this filter neither restricts rows nor columns, i.e. it's equivalent to {@link #ALL}. */
+    public boolean isNoOp() {
+        return isMaterializeAllColumns() && !isFilterRows();
+    }
+
+    /**
+     * Checks the filter against the table to be iterated.
+     *
+     * @param spec The spec of the table.
+     * @throws IndexOutOfBoundsException If a column index is out of range.
+     */
+    public void validate(final DataTableSpec spec) {
+        if (m_materializeColumnIndices != null && m_materializeColumnIndices.length > 0) {
+            int max = m_materializeColumnIndices[m_materializeColumnIndices.length - 1];
+            if (max >= spec.getNumColumns()) {
+                throw new IndexOutOfBoundsException("Column index out of range: " + max + " (table has "
+                    + spec.getNumColumns() + " column(s))");
+            }
+        }
+    }
+
+    /**
+     * Derives the filter for a table that contributes columns to the table this filter was defined on. Used by tables
+     * that are composed of other tables (such as {@link JoinedTable} or {@link RearrangeColumnsTable}).
+     *
+     * @param colCount The number of columns in the contributing table.
+     * @param map For each column of this filter's table the index of the column in the contributing table or -1 if
+     *            the column is not contributed by that table.
+     * @return A filter with identical row range, materializing those columns of the contributing table that are
+     *         mapped to materialized columns of this filter (and no others, even if this filter materializes all
+     *         columns).
+     */
+    TableFilter deriveForColumns(final int colCount, final int[] map) {
+        boolean[] isIncluded = new boolean[colCount];
+        int count = 0;
+        for (int i = 0; i < map.length; i++) {
+            if (map[i] >= 0 && !isIncluded[map[i]] && isMaterializeColumn(i)) {
+                isIncluded[map[i]] = true;
+                count++;
+            }
+        }
+        Builder builder = builder(this);
+        if (count == colCount) {
+            builder.setMaterializeColumns((int[])null);
+        } else {
+            int[] indices = new int[count];
+            for (int i = 0, j = 0; i < colCount; i++) {
+                if (isIncluded[i]) {
+                    indices[j++] = i;
+                }
+            }
+            builder.setMaterializeColumns(indices);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Derives the filter for a table that contains the rows of this filter's table, starting at the argument offset.
+     * Used by tables that are composed of other tables (such as {@link ConcatenateTable}).
+     *
+     * @param offset The index of the first row of the derived table in this filter's table.
+     * @param size The number of rows in the derived table.
+     * @return A filter with identical column filter and the row range translated to the derived table or
+     *         <code>null</code> if the derived table does not contain any row to return.
+     */
+    TableFilter deriveForRows(final long offset, final long size) {
+        if (size <= 0 || m_toRowIndex < offset || m_fromRowIndex >= offset + size) {
+            return null;
+        }
+        if (offset == 0 && m_toRowIndex >= size - 1) {
+            return this;
+        }
+        return builder(this).setFromRowIndex(Math.max(0, m_fromRowIndex - offset))
+            .setToRowIndex(Math.min(size - 1, m_toRowIndex - offset)).build();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder("Columns: ");
+        b.append(m_materializeColumnIndices == null ? "<all>" : Arrays.toString(m_materializeColumnIndices));
+        b.append(", Rows: ").append(m_fromRowIndex).append(" - ");
+        b.append(m_toRowIndex == Long.MAX_VALUE ? "<end>" : Long.toString(m_toRowIndex));
+        return b.toString();
+    }
+
+    /** Builder to create immutable instances of {@link TableFilter}. */
+    public static final class Builder {
+
+        private int[] m_materializeColumnIndices;
+
+        private long m_fromRowIndex = 0L;
+
+        private long m_toRowIndex = Long.MAX_VALUE;
+
+        private Builder() {
+            //
+        }
+
+        private Builder copyFrom(final TableFilter filter) {
+            m_materializeColumnIndices = filter.m_materializeColumnIndices;
+            m_fromRowIndex = filter.m_fromRowIndex;
+            m_toRowIndex = filter.m_toRowIndex;
+            return this;
+        }
+
+        /**
+         * @param columnIndices The indices of the columns to materialize, <code>null</code> to materialize all
+         *            columns.
+         * @return this
+         */
+        public Builder setMaterializeColumns(final int... columnIndices) {
+            m_materializeColumnIndices = columnIndices;
+            return this;
+        }
+
+        /**
+         * @param spec The spec of the table to iterate.
+         * @param columnNames The names of the columns to materialize.
+         * @return this
+         * @throws IllegalArgumentException If any of the columns is not contained in the spec.
+         */
+        public Builder setMaterializeColumns(final DataTableSpec spec, final String... columnNames) {
+            int[] indices = new int[columnNames.length];
+            for (int i = 0; i < columnNames.length; i++) {
+                indices[i] = spec.findColumnIndex(columnNames[i]);
+                if (indices[i] < 0) {
+                    throw new IllegalArgumentException("No such column in table: \"" + columnNames[i] + "\"");
+                }
+            }
+            m_materializeColumnIndices = indices;
+            return this;
+        }
+
+        /**
+         * @param fromIndex The index of the first row to return (0-based).
+         * @return this
+         */
+        public Builder setFromRowIndex(final long fromIndex) {
+            m_fromRowIndex = fromIndex;
+            return this;
+        }
+
+        /**
+         * @param toIndex The index of the last row to return (inclusive).
+         * @return this
+         */
+        public Builder setToRowIndex(final long toIndex) {
+            m_toRowIndex = toIndex;
+            return this;
+        }
+
+        /** @return A new filter with the current settings.
+         * @throws IllegalArgumentException If the row range is invalid or a column index is negative. */
+        public TableFilter build() {
+            return new TableFilter(this);
+        }
+    }
+
+}
@@ -0,0 +1,163 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Base class for codecs that compress the data in independent blocks. Each block is written as a frame consisting of
+ * its raw length, its stored length and the stored bytes; blocks that don't compress are stored as is. The end of the
+ * stream is marked by a frame of raw length 0.
+ *
+ * <p>
+ * As blocks are independent, the stream returned by {@link #createInputStream(InputStream)} reads and decompresses
+ * the next block on a separate thread while the caller consumes the current one (unless disabled via
+ * {@link #isReadAhead()}).
+ *
+ * <p>
+ * Subclasses only provide the compression of a single block, see {@link BlockCompressor} and
+ * {@link BlockDecompressor}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public abstract class AbstractBlockCompressionCodec extends TableCompressionCodec {
+
+    /** The default (raw) block size, 64kB. */
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+    /**
+     * Compresses blocks of one stream. Instances are only used by a single thread and may hold state (e.g. hash
+     * tables) between calls.
+     */
+    public interface BlockCompressor {
+
+        /**
+         * @param rawLength the length of a block
+         * @return the size of a destination array that is sufficient to compress any block of that length
+         */
+        int maxCompressedLength(int rawLength);
+
+        /**
+         * Compresses a block.
+         *
+         * @param src the raw data
+         * @param srcLength the number of bytes to compress (starting at index 0)
+         * @param dest the destination array of length {@link #maxCompressedLength(int)}
+         * @return the number of bytes written to dest
+         * @throws IOException if compression fails
+         */
+        int compress(byte[] src, int srcLength, byte[] dest) throws IOException;
+
+        /** Releases any resources, called when the stream is closed. */
+        default void close() {
+        }
+    }
+
+    /**
+     * Decompresses blocks of one stream, counterpart of {@link BlockCompressor}. Instances are used by a single thread
+     * at a time.
+     */
+    public interface BlockDecompressor {
+
+        /**
+         * Decompresses a block.
+         *
+         * @param src the compressed data
+         * @param srcLength the number of compressed bytes (starting at index 0)
+         * @param dest the destination array, at least of length rawLength
+         * @param rawLength the exact number of bytes the block decompresses to
+         * @throws IOException if the data is corrupt
+         */
+        void decompress(byte[] src, int srcLength, byte[] dest, int rawLength) throws IOException;
+
+        /** Releases any resources, called when the stream is closed. */
+        default void close() {
+        }
+    }
+
+    /**
+     * The size of the raw blocks. Larger blocks usually compress better but increase the latency of the first read.
+     *
+     * @return the block size, {@value #DEFAULT_BLOCK_SIZE} unless overridden
+     */
+    protected int getBlockSize() {
+        return DEFAULT_BLOCK_SIZE;
+    }
+
+    /**
+     * Whether blocks are decompressed ahead of time on a separate thread.
+     *
+     * @return true unless overridden
+     */
+    protected boolean isReadAhead() {
+        return true;
+    }
+
+    /**
+     * @return a new compressor for a single stream
+     */
+    protected abstract BlockCompressor createCompressor();
+
+    /**
+     * @return a new decompressor for a single stream
+     */
+    protected abstract BlockDecompressor createDecompressor();
+
+    /** {@inheritDoc} */
+    @Override
+    public final OutputStream createOutputStream(final OutputStream out) throws IOException {
+        return new BlockCompressionOutputStream(out, createCompressor(), getBlockSize());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public final InputStream createInputStream(final InputStream in) throws IOException {
+        return new BlockDecompressionInputStream(in, createDecompressor(), getBlockSize(), isReadAhead());
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container.compression;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.knime.core.data.container.compression.AbstractBlockCompressionCodec.BlockCompressor;
+
+/**
+ * Output stream of an {@link AbstractBlockCompressionCodec}. Collects the data in blocks and writes each block as a
+ * frame <code>(int rawLength, int storedLength, byte[storedLength])</code>. If the compressed block isn't smaller
+ * than the raw block, the raw bytes are stored (storedLength == rawLength). A frame with raw length 0 terminates the
+ * stream.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class BlockCompressionOutputStream extends OutputStream {
+
+    private final DataOutputStream m_out;
+
+    private final BlockCompressor m_compressor;
+
+    private final byte[] m_block;
+
+    private final byte[] m_compressed;
+
+    private int m_count;
+
+    private boolean m_isClosed;
+
+    /**
+     * @param out the stream to write the frames to
+     * @param compressor the compressor, closed when this stream is closed
+     * @param blockSize the raw block size
+     */
+    BlockCompressionOutputStream(final OutputStream out, final BlockCompressor compressor, final int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        m_out = new DataOutputStream(out);
+        m_compressor = compressor;
+        m_block = new byte[blockSize];
+        m_compressed = new byte[compressor.maxCompressedLength(blockSize)];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final int b) throws IOException {
+        if (m_count == m_block.length) {
+            writeBlock();
+        }
+        m_block[m_count++] = (byte)b;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            if (m_count == m_block.length) {
+                writeBlock();
+            }
+            int n = Math.min(remaining, m_block.length - m_count);
+            System.arraycopy(b, offset, m_block, m_count, n);
+            m_count += n;
+            offset += n;
+            remaining -= n;
+        }
+    }
+
+    /** Writes the pending (possibly partial) block. {@inheritDoc} */
+    @Override
+    public void flush() throws IOException {
+        writeBlock();
+        m_out.flush();
+    }
+
+    private void writeBlock() throws IOException {
+        if (m_isClosed) {
+            throw new IOException("Stream closed");
+        }
+        if (m_count == 0) {
+            return;
+        }
+        int compressedLength = m_compressor.compress(m_block, m_count, m_compressed);
+        m_out.writeInt(m_count);
+        if (compressedLength > 0 && compressedLength < m_count) {
+            m_out.writeInt(compressedLength);
+            m_out.write(m_compressed, 0, compressedLength);
+        } else {
+            m_out.writeInt(m_count);
+            m_out.write(m_block, 0, m_count);
+        }
+        m_count = 0;
+    }
+
+    /** Writes the pending block and the end marker, closes the underlying stream. {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        if (m_isClosed) {
+            return;
+        }
+        try {
+            writeBlock();
+            m_out.writeInt(0);
+            m_out.writeInt(0);
+            m_out.flush();
+        } finally {
+            m_isClosed = true;
+            m_compressor.close();
+            m_out.close();
+        }
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container.compression;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.knime.core.data.container.compression.AbstractBlockCompressionCodec.BlockDecompressor;
+
+/**
+ * Input stream of an {@link AbstractBlockCompressionCodec}, reads the frames written by
+ * {@link BlockCompressionOutputStream}. In read-ahead mode the next frame is read and decompressed on a separate
+ * thread while the caller consumes the current block. At most one frame is pending at any time, i.e. the underlying
+ * stream and the decompressor are never accessed concurrently.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class BlockDecompressionInputStream extends InputStream {
+
+    /** Upper bound for the raw length of a block, protects against corrupt files. */
+    private static final int MAX_BLOCK_SIZE = 1 << 26;
+
+    /** Threads that decompress ahead of the readers; idle threads terminate after a minute. */
+    private static final ExecutorService READ_AHEAD_EXECUTOR = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L,
+        TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger m_threadCount = new AtomicInteger();
+
+            /** {@inheritDoc} */
+            @Override
+            public Thread newThread(final Runnable r) {
+                Thread t = new Thread(r, "KNIME-TableDecompressor-" + m_threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+    /** A decompressed block, the arrays are reused for subsequent blocks. */
+    private static final class Block {
+        private byte[] m_data;
+
+        private int m_length;
+
+        Block(final int size) {
+            m_data = new byte[size];
+        }
+    }
+
+    private final DataInputStream m_in;
+
+    private final BlockDecompressor m_decompressor;
+
+    private final boolean m_isReadAhead;
+
+    /** Holds the compressed frame, only used by the thread reading the frames. */
+    private byte[] m_compressed;
+
+    /** The block being consumed. */
+    private Block m_current;
+
+    /** The block to fill next. */
+    private Block m_spare;
+
+    /** The pending read-ahead or null. */
+    private Future<Block> m_next;
+
+    private int m_pos;
+
+    private boolean m_isEOF;
+
+    private boolean m_isClosed;
+
+    /**
+     * @param in the stream to read the frames from
+     * @param decompressor the decompressor, closed when this stream is closed
+     * @param blockSize the expected raw block size (larger blocks are handled)
+     * @param isReadAhead whether to decompress the next block on a separate thread
+     */
+    BlockDecompressionInputStream(final InputStream in, final BlockDecompressor decompressor, final int blockSize,
+        final boolean isReadAhead) {
+        m_in = new DataInputStream(in);
+        m_decompressor = decompressor;
+        m_isReadAhead = isReadAhead;
+        m_compressed = new byte[blockSize];
+        m_current = new Block(blockSize);
+        m_spare = new Block(blockSize);
+    }
+
+    /**
+     * Reads and decompresses the next frame into the argument block.
+     *
+     * @return the block or null if the end marker was read
+     */
+    private Block readBlock(final Block block) throws IOException {
+        final int rawLength;
+        final int storedLength;
+        try {
+            rawLength = m_in.readInt();
+            storedLength = m_in.readInt();
+        } catch (EOFException e) {
+            throw new IOException("Unexpected end of compressed table stream (file truncated?)", e);
+        }
+        if (rawLength == 0) {
+            return null;
+        }
+        if (rawLength < 0 || rawLength > MAX_BLOCK_SIZE || storedLength <= 0 || storedLength > rawLength) {
+            throw new IOException(
+                "Corrupt compressed table stream, invalid block (raw " + rawLength + ", stored " + storedLength + ")");
+        }
+        if (block.m_data.length < rawLength) {
+            block.m_data = new byte[rawLength];
+        }
+        if (storedLength == rawLength) {
+            m_in.readFully(block.m_data, 0, rawLength);
+        } else {
+            if (m_compressed.length < storedLength) {
+                m_compressed = new byte[storedLength];
+            }
+            m_in.readFully(m_compressed, 0, storedLength);
+            m_decompressor.decompress(m_compressed, storedLength, block.m_data, rawLength);
+        }
+        block.m_length = rawLength;
+        return block;
+    }
+
+    private Future<Block> submitReadAhead(final Block block) {
+        return READ_AHEAD_EXECUTOR.submit(() -> readBlock(block));
+    }
+
+    private static Block await(final Future<Block> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException ioe = new InterruptedIOException("Interrupted while reading compressed table");
+            ioe.initCause(e);
+            throw ioe;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            throw new IOException("Unable to decompress table stream: " + cause.getMessage(), cause);
+        }
+    }
+
+    /** Makes the next block current. @return false if the end of the stream was reached. */
+    private boolean fill() throws IOException {
+        if (m_isClosed) {
+            throw new IOException("Stream closed");
+        }
+        if (m_isEOF) {
+            return false;
+        }
+        Block next;
+        if (m_isReadAhead) {
+            if (m_next == null) {
+                // first block, nothing to overlap with
+                m_next = submitReadAhead(m_spare);
+            }
+            Future<Block> pending = m_next;
+            m_next = null;
+            next = await(pending);
+            if (next != null) {
+                // the consumed block is the one filled next
+                m_spare = m_current;
+                m_next = submitReadAhead(m_spare);
+            }
+        } else {
+            Block previous = m_current;
+            next = readBlock(m_spare);
+            if (next != null) {
+                m_spare = previous;
+            }
+        }
+        if (next == null) {
+            m_isEOF = true;
+            return false;
+        }
+        m_current = next;
+        m_pos = 0;
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int read() throws IOException {
+        if (m_pos >= m_current.m_length && !fill()) {
+            return -1;
+        }
+        return m_current.m_data[m_pos++] & 0xFF;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (m_pos >= m_current.m_length && !fill()) {
+            return -1;
+        }
+        int n = Math.min(len, m_current.m_length - m_pos);
+        System.arraycopy(m_current.m_data, m_pos, b, off, n);
+        m_pos += n;
+        return n;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int available() throws IOException {
+        return m_isClosed ? 0 : m_current.m_length - m_pos;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        if (m_isClosed) {
+            return;
+        }
+        m_isClosed = true;
+        try {
+            if (m_next != null) {
+                // the pending read is at most one block, let it finish rather than closing the stream underneath
+                try {
+                    m_next.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    // ignore, stream is closed anyway
+                }
+                m_next = null;
+            }
+        } finally {
+            m_decompressor.close();
+            m_in.close();
+        }
+    }
+}
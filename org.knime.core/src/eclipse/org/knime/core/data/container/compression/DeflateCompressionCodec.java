@@ -0,0 +1,148 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container.compression;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Block compression using deflate (zlib format) at the fastest level. Files are typically only slightly larger
+ * than with {@link GzipCompressionCodec} (which uses the default level on the whole stream) while compression is a
+ * multiple faster; decompression overlaps with reading as for all block codecs.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class DeflateCompressionCodec extends AbstractBlockCompressionCodec {
+
+    /** {@inheritDoc} */
+    @Override
+    public String getName() {
+        return "Deflate";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getDescription() {
+        return "Deflate, fast level (small files, fast)";
+    }
+
+    /** Larger blocks as the deflate window is only 32kB but the per-block overhead of the (de)compressor is higher.
+     * {@inheritDoc} */
+    @Override
+    protected int getBlockSize() {
+        return 4 * DEFAULT_BLOCK_SIZE;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected BlockCompressor createCompressor() {
+        return new BlockCompressor() {
+            private final Deflater m_deflater = new Deflater(Deflater.BEST_SPEED);
+
+            @Override
+            public int maxCompressedLength(final int rawLength) {
+                // stored deflate blocks add 5 bytes per 16kB; more than enough as incompressible blocks are stored raw
+                return rawLength + (rawLength >>> 12) + 64;
+            }
+
+            @Override
+            public int compress(final byte[] src, final int srcLength, final byte[] dest) {
+                m_deflater.reset();
+                m_deflater.setInput(src, 0, srcLength);
+                m_deflater.finish();
+                int length = 0;
+                while (!m_deflater.finished() && length < dest.length) {
+                    length += m_deflater.deflate(dest, length, dest.length - length);
+                }
+                // -1: didn't fit, block is stored uncompressed
+                return m_deflater.finished() ? length : -1;
+            }
+
+            @Override
+            public void close() {
+                m_deflater.end();
+            }
+        };
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected BlockDecompressor createDecompressor() {
+        return new BlockDecompressor() {
+            private final Inflater m_inflater = new Inflater();
+
+            @Override
+            public void decompress(final byte[] src, final int srcLength, final byte[] dest, final int rawLength)
+                throws IOException {
+                m_inflater.reset();
+                m_inflater.setInput(src, 0, srcLength);
+                int length = 0;
+                try {
+                    while (length < rawLength && !m_inflater.finished()) {
+                        int n = m_inflater.inflate(dest, length, rawLength - length);
+                        if (n == 0 && (m_inflater.needsInput() || m_inflater.needsDictionary())) {
+                            break;
+                        }
+                        length += n;
+                    }
+                } catch (DataFormatException e) {
+                    throw new IOException("Corrupt deflate block: " + e.getMessage(), e);
+                }
+                if (length != rawLength) {
+                    throw new IOException(
+                        "Corrupt deflate block: decompressed " + length + " bytes, expected " + rawLength);
+                }
+            }
+
+            @Override
+            public void close() {
+                m_inflater.end();
+            }
+        };
+    }
+}
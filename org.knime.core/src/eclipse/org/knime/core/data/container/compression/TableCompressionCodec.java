@@ -0,0 +1,127 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compression applied to the binary (main) file of a table that is written to disc (temp files and tables saved with
+ * a workflow). The name of the codec is recorded in the table's meta information, a table can only be read if a codec
+ * with that name is available. Codecs are looked up in the {@link TableCompressionCodecRegistry}; besides the built-in
+ * codecs, further codecs can be contributed using the extension point
+ * {@value TableCompressionCodecRegistry#EXT_POINT_ID}.
+ *
+ * <p>
+ * Implementations must be thread-safe and stateless, all state belongs to the streams created by
+ * {@link #createOutputStream(OutputStream)} and {@link #createInputStream(InputStream)}. Implementations need a public
+ * no-arg constructor if contributed via the extension point.
+ *
+ * <p>
+ * <strong>Warning:</strong> Pending API.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ * @see AbstractBlockCompressionCodec
+ */
+public abstract class TableCompressionCodec {
+
+    /**
+     * The identifier of the codec as written to the table's meta information. It must not change once tables were
+     * written with it.
+     *
+     * @return the non-null, unique name
+     */
+    public abstract String getName();
+
+    /**
+     * A short human readable description, e.g. for preference pages or log output.
+     *
+     * @return the description, by default the name
+     */
+    public String getDescription() {
+        return getName();
+    }
+
+    /**
+     * Whether the codec reduces the size of the data. Used to decide whether the binary file needs to be compressed
+     * again when saved into a (zip) workflow archive.
+     *
+     * @return true unless overridden
+     */
+    public boolean isCompressing() {
+        return true;
+    }
+
+    /**
+     * Wraps the argument stream so that all data written to the returned stream is compressed. Closing the returned
+     * stream must close the argument stream. The returned stream is not buffered by the caller, i.e. implementations
+     * should take care of buffering if they process bytes individually.
+     *
+     * @param out the stream to write the compressed data to
+     * @return a new stream
+     * @throws IOException if writing a header fails
+     */
+    public abstract OutputStream createOutputStream(final OutputStream out) throws IOException;
+
+    /**
+     * Wraps the argument stream so that the data read from the returned stream is decompressed. Closing the returned
+     * stream must close the argument stream. The caller reads bytes individually, i.e. the returned stream should be
+     * buffered.
+     *
+     * @param in the stream to read the compressed data from, usually buffered
+     * @return a new stream
+     * @throws IOException if reading a header fails
+     */
+    public abstract InputStream createInputStream(final InputStream in) throws IOException;
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container.compression;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.Platform;
+import org.knime.core.data.container.DataContainer;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Registry of all {@link TableCompressionCodec}s, the built-in ones and those contributed via the extension point
+ * {@value #EXT_POINT_ID}. Also determines the default codec, see {@link #getDefaultCodec()}.
+ *
+ * <p>
+ * <strong>Warning:</strong> Pending API.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public final class TableCompressionCodecRegistry {
+
+    /** The id of the extension point to contribute additional codecs. */
+    public static final String EXT_POINT_ID = "org.knime.core.TableCompressionCodec";
+
+    private static final String EXT_POINT_ATTR_CLASS_NAME = "class";
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(TableCompressionCodecRegistry.class);
+
+    /** No compression. */
+    public static final TableCompressionCodec NONE = new NoCompressionCodec();
+
+    /** Gzip compression of the whole stream, the default. */
+    public static final TableCompressionCodec GZIP = new GzipCompressionCodec();
+
+    /** LZ4 block compression, fastest compression. */
+    public static final TableCompressionCodec LZ4 = new LZ4CompressionCodec();
+
+    /** Deflate block compression at the fastest level, compresses almost as good as {@link #GZIP}. */
+    public static final TableCompressionCodec DEFLATE = new DeflateCompressionCodec();
+
+    private static TableCompressionCodecRegistry instance;
+
+    private final Map<String, TableCompressionCodec> m_codecs;
+
+    private final TableCompressionCodec m_defaultCodec;
+
+    private TableCompressionCodecRegistry() {
+        Map<String, TableCompressionCodec> codecs = new LinkedHashMap<>();
+        for (TableCompressionCodec codec : new TableCompressionCodec[]{NONE, GZIP, LZ4, DEFLATE}) {
+            codecs.put(codec.getName(), codec);
+        }
+        collectContributedCodecs(codecs);
+        m_codecs = Collections.unmodifiableMap(codecs);
+        m_defaultCodec = determineDefaultCodec(m_codecs);
+    }
+
+    /**
+     * @return the singleton instance
+     */
+    public static synchronized TableCompressionCodecRegistry getInstance() {
+        if (instance == null) {
+            instance = new TableCompressionCodecRegistry();
+        }
+        return instance;
+    }
+
+    private static void collectContributedCodecs(final Map<String, TableCompressionCodec> codecs) {
+        IExtensionRegistry registry = Platform.getExtensionRegistry();
+        if (registry == null) {
+            // not running in an OSGi environment (e.g. plain unit tests), only built-in codecs
+            return;
+        }
+        IExtensionPoint point = registry.getExtensionPoint(EXT_POINT_ID);
+        if (point == null) {
+            LOGGER.error("Invalid extension point: " + EXT_POINT_ID);
+            return;
+        }
+        for (IConfigurationElement elem : point.getConfigurationElements()) {
+            String className = elem.getAttribute(EXT_POINT_ATTR_CLASS_NAME);
+            String decl = elem.getDeclaringExtension().getUniqueIdentifier();
+            if (StringUtils.isEmpty(className)) {
+                LOGGER.errorWithFormat("The extension '%s' doesn't provide the required attribute '%s' - ignoring it",
+                    decl, EXT_POINT_ATTR_CLASS_NAME);
+                continue;
+            }
+            try {
+                TableCompressionCodec codec =
+                    (TableCompressionCodec)elem.createExecutableExtension(EXT_POINT_ATTR_CLASS_NAME);
+                TableCompressionCodec existing = codecs.putIfAbsent(codec.getName(), codec);
+                if (existing != null) {
+                    LOGGER.errorWithFormat("Compression codec '%s' (class '%s') is already registered by class '%s' "
+                        + "- ignoring it", codec.getName(), className, existing.getClass().getName());
+                }
+            } catch (Throwable t) {
+                LOGGER.error("Problems during initialization of table compression codec (class '" + className
+                    + "'); extension " + decl + " ignored.", t);
+            }
+        }
+    }
+
+    /**
+     * The default is the codec named in the property {@link KNIMEConstants#PROPERTY_TABLE_COMPRESSION}. If not set,
+     * the (older) property {@link KNIMEConstants#PROPERTY_TABLE_GZIP_COMPRESSION} chooses between {@link #GZIP} and
+     * {@link #NONE}.
+     */
+    private static TableCompressionCodec determineDefaultCodec(final Map<String, TableCompressionCodec> codecs) {
+        String codecName = System.getProperty(KNIMEConstants.PROPERTY_TABLE_COMPRESSION);
+        if (codecName != null) {
+            TableCompressionCodec codec = findCodec(codecs, codecName.trim());
+            if (codec != null) {
+                LOGGER.debug("Setting table stream compression to " + codec.getName());
+                return codec;
+            }
+            LOGGER.warn("Unable to read property " + KNIMEConstants.PROPERTY_TABLE_COMPRESSION + " (\"" + codecName
+                + "\"), no such codec; valid values are " + codecs.keySet());
+        }
+        // prefer this block over Boolean.getBoolean(...) to cover typos
+        // on command line (warn on console)
+        String isUseGzipString = System.getProperty(KNIMEConstants.PROPERTY_TABLE_GZIP_COMPRESSION);
+        if (isUseGzipString == null) {
+            return DataContainer.DEF_GZIP_COMPRESSION ? GZIP : NONE;
+        }
+        final boolean isUseGzip;
+        if ("true".equals(isUseGzipString)) {
+            isUseGzip = true;
+        } else if ("false".equals(isUseGzipString)) {
+            isUseGzip = false;
+        } else {
+            LOGGER.warn("Unable to read property " + KNIMEConstants.PROPERTY_TABLE_GZIP_COMPRESSION + " (\""
+                + isUseGzipString + "\"); defaulting to " + DataContainer.DEF_GZIP_COMPRESSION);
+            return DataContainer.DEF_GZIP_COMPRESSION ? GZIP : NONE;
+        }
+        LOGGER.debug("Setting table stream compression to " + isUseGzip);
+        return isUseGzip ? GZIP : NONE;
+    }
+
+    /** Lookup by name, case-insensitive as a fallback (for command line properties). */
+    private static TableCompressionCodec findCodec(final Map<String, TableCompressionCodec> codecs,
+        final String name) {
+        TableCompressionCodec codec = codecs.get(name);
+        if (codec == null) {
+            codec = codecs.values().stream().filter(c -> c.getName().equalsIgnoreCase(name)).findFirst().orElse(null);
+        }
+        return codec;
+    }
+
+    /**
+     * Returns the codec with the given name as recorded in a table's meta information.
+     *
+     * @param name the name, see {@link TableCompressionCodec#getName()}
+     * @return the codec or an empty optional if there is no such codec (e.g. the contributing extension is missing)
+     */
+    public Optional<TableCompressionCodec> getCodec(final String name) {
+        return Optional.ofNullable(findCodec(m_codecs, name));
+    }
+
+    /**
+     * @return all available codecs, the built-in ones first
+     */
+    public Collection<TableCompressionCodec> getCodecs() {
+        return m_codecs.values();
+    }
+
+    /**
+     * The codec used for new tables unless set otherwise on the data container, see
+     * {@link DataContainer#setTableCompressionCodec(TableCompressionCodec)}.
+     *
+     * @return the default codec, not null
+     */
+    public TableCompressionCodec getDefaultCodec() {
+        return m_defaultCodec;
+    }
+}
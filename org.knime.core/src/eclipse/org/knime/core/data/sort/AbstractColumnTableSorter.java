@@ -53,6 +53,7 @@
 import static org.knime.core.node.util.CheckUtils.checkSettingNotNull;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -120,6 +121,8 @@ abstract class AbstractColumnTableSorter {
 
     private final DataTableSpec m_dataTableSpec;
 
+    private boolean m_parallel = Boolean.getBoolean(KNIMEConstants.PROPERTY_PARALLEL_SORT);
+
     /**
      * The constructor is identical to {@link #AbstractColumnTableSorter(DataTableSpec, long, String...)} with
      * {@link DataTableSpec#getColumnNames()} as the last input.
@@ -212,6 +215,30 @@ public void setMaxOpenContainers(final int value) {
         m_maxOpenContainers = value;
     }
 
+    /**
+     * @return whether the parallel sort mode is enabled, see {@link #setParallel(boolean)}.
+     * @since 3.6
+     */
+    public boolean isParallel() {
+        return m_parallel;
+    }
+
+    /**
+     * Enables or disables the parallel sort mode. If enabled, the buffered rows of each column are sorted using a
+     * parallel merge sort, the temporary tables of the different columns are written concurrently and independent
+     * groups of temporary tables are merged in parallel (see {@link AbstractTableSorter#setParallel(boolean)}).
+     *
+     * <p>
+     * The default is taken from the system property {@value KNIMEConstants#PROPERTY_PARALLEL_SORT} (false if not
+     * set).
+     *
+     * @param parallel whether to use multiple threads
+     * @since 3.6
+     */
+    public void setParallel(final boolean parallel) {
+        m_parallel = parallel;
+    }
+
     /**
      * Package visible due test issues.
      *
@@ -238,6 +265,7 @@ private void sortOnDisk(final DataTable dataTable, final ExecutionMonitor exec,
             AbstractTableSorter tableSorter =
                 createTableSorter(m_rowCount, m_sortDescriptions[i].createDataTableSpec(m_dataTableSpec),
                     m_sortDescriptions[i]);
+            tableSorter.setParallel(m_parallel);
             columnPartitions.add(tableSorter);
         }
 
@@ -267,17 +295,15 @@ private void sortOnDisk(final DataTable dataTable, final ExecutionMonitor exec,
             }
 
             LOGGER.debugWithFormat("Writing temporary tables (chunk %d with %d rows)", chunkCount, bufferedRows);
-            for (int i = 0; i < m_sortDescriptions.length; i++) {
-                SortingDescription sortingDescription = m_sortDescriptions[i];
-                LOGGER.debugWithFormat("Writing temporary table (chunk %d, column %d)", chunkCount, i);
-                AbstractTableSorter tableSorter = columnPartitions.get(i);
-                ListIterator<DataRow> rowIterator = m_buffer.get(sortingDescription).listIterator();
-                while (rowIterator.hasNext()) {
-                    tableSorter.addRowToChunk(rowIterator.next());
-                    // release the row as early as possible
-                    rowIterator.set(null);
-                }
+            if (m_parallel) {
+                writeChunksInParallel(columnPartitions);
                 exec.checkCanceled();
+            } else {
+                for (int i = 0; i < m_sortDescriptions.length; i++) {
+                    LOGGER.debugWithFormat("Writing temporary table (chunk %d, column %d)", chunkCount, i);
+                    writeChunk(m_sortDescriptions[i], columnPartitions.get(i));
+                    exec.checkCanceled();
+                }
             }
 
             for (AbstractTableSorter tableSorter : columnPartitions) {
@@ -413,6 +439,35 @@ private void clearBuffer() {
         }
     }
 
+    /** Writes the buffered rows of a sorting description into the current chunk of its table sorter. */
+    private void writeChunk(final SortingDescription sortingDescription, final AbstractTableSorter tableSorter) {
+        ListIterator<DataRow> rowIterator = m_buffer.get(sortingDescription).listIterator();
+        while (rowIterator.hasNext()) {
+            tableSorter.addRowToChunk(rowIterator.next());
+            // release the row as early as possible
+            rowIterator.set(null);
+        }
+    }
+
+    /** Writes the chunks of all sorting descriptions concurrently, each table sorter is used by one thread only. */
+    private void writeChunksInParallel(final List<AbstractTableSorter> columnPartitions) {
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < m_sortDescriptions.length; i++) {
+                final SortingDescription sortingDescription = m_sortDescriptions[i];
+                final AbstractTableSorter tableSorter = columnPartitions.get(i);
+                futures.add(m_executor.enqueue(() -> writeChunk(sortingDescription, tableSorter)));
+            }
+            // wait until the writing is finished
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (ExecutionException | InterruptedException e) {
+            futures.stream().forEach(f -> f.cancel(true));
+            throw new RuntimeException("Execution has been interrupted!", e);
+        }
+    }
+
     private void sortBufferInParallel() {
         List<Future<?>> futures = new ArrayList<>();
         try {
@@ -420,7 +475,16 @@ private void sortBufferInParallel() {
                 futures.add(m_executor.enqueue(new Runnable() {
                     @Override
                     public void run() {
-                        Collections.sort(descr.getValue(), descr.getKey());
+                        if (m_parallel) {
+                            // additionally parallelize the sort of each column on the fork-join pool
+                            List<DataRow> rows = descr.getValue();
+                            DataRow[] array = rows.toArray(new DataRow[rows.size()]);
+                            Arrays.parallelSort(array, descr.getKey());
+                            rows.clear();
+                            rows.addAll(Arrays.asList(array));
+                        } else {
+                            Collections.sort(descr.getValue(), descr.getKey());
+                        }
                     }
                 }));
             }
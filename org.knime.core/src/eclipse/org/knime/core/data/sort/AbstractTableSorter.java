@@ -51,6 +51,7 @@
 import java.text.NumberFormat;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -62,6 +63,8 @@
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
@@ -78,7 +81,9 @@
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
+import org.knime.core.util.ThreadPool;
 
 /**
  * Class to sort a table. See <a href="package.html">package description</a> for details.
@@ -118,6 +123,12 @@ abstract class AbstractTableSorter {
 
     private boolean m_sortInMemory = false;
 
+    /** Whether to sort, spill and merge using multiple threads, see {@link #setParallel(boolean)}. */
+    private boolean m_parallel = Boolean.getBoolean(KNIMEConstants.PROPERTY_PARALLEL_SORT);
+
+    /** Pool used for asynchronous spilling and parallel merging, created lazily in parallel mode. */
+    private ThreadPool m_pool;
+
     /** The RowComparator to compare two DataRows (inner class). */
     private Comparator<DataRow> m_rowComparator;
 
@@ -405,6 +416,37 @@ public void setSortInMemory(final boolean sortInMemory) {
         m_sortInMemory = sortInMemory;
     }
 
+    /**
+     * @return whether the parallel sort mode is enabled, see {@link #setParallel(boolean)} for details.
+     * @since 3.6
+     */
+    public boolean isParallel() {
+        return m_parallel;
+    }
+
+    /**
+     * Enables or disables the parallel sort mode. If enabled,
+     * <ul>
+     * <li>each chunk (run) is sorted using a parallel merge sort on the common fork-join pool,</li>
+     * <li>sorted runs are written to disk asynchronously while the next chunk is read, and</li>
+     * <li>if there are more runs than containers that may be opened at a time, independent groups of runs are
+     * merged concurrently.</li>
+     * </ul>
+     * The comparator must be thread-safe in parallel mode. Note that while a run is written to disk the rows of the
+     * next run are already read, i.e. the memory footprint is higher than in sequential mode (memory alerts are
+     * honored still).
+     *
+     * <p>
+     * The default is taken from the system property {@value KNIMEConstants#PROPERTY_PARALLEL_SORT} (false if not
+     * set).
+     *
+     * @param parallel whether to use multiple threads
+     * @since 3.6
+     */
+    public void setParallel(final boolean parallel) {
+        m_parallel = parallel;
+    }
+
     /**
      * Sorts the table passed in the constructor according to the settings and returns the sorted output table.
      *
@@ -451,7 +493,7 @@ private DataTable sortInMemory(final ExecutionMonitor exec) throws CanceledExecu
         }
 
         exec.setMessage("Sorting");
-        Collections.sort(rowList, m_rowComparator);
+        rowList = sortRun(rowList);
 
         exec.setMessage("Creating sorted table");
 
@@ -533,6 +575,9 @@ private DataTable sortOnDisk(final ExecutionMonitor exec) throws CanceledExecuti
      */
     Iterator<DataRow> mergeChunks(final ExecutionMonitor exec, final boolean mergeCompletely)
         throws CanceledExecutionException {
+        if (m_parallel && m_chunksContainer.size() > m_maxOpenContainers) {
+            mergeChunksInParallel(exec);
+        }
         while (!m_chunksContainer.isEmpty()) {
             exec.setMessage("Merging temporary tables, " + m_chunksContainer.size() + " remaining");
             if (m_chunksContainer.size() < m_maxOpenContainers) {
@@ -578,6 +623,169 @@ Iterator<DataRow> mergeChunks(final ExecutionMonitor exec, final boolean mergeCo
         return Collections.<DataRow>emptyList().iterator();
     }
 
+    /**
+     * Reduces the number of chunks to at most {@link #m_maxOpenContainers} by merging groups of chunks concurrently.
+     * Each pass merges all groups of (up to) {@link #m_maxOpenContainers} chunks in parallel; the order of the chunks
+     * is retained.
+     */
+    private void mergeChunksInParallel(final ExecutionMonitor exec) throws CanceledExecutionException {
+        while (m_chunksContainer.size() > m_maxOpenContainers) {
+            exec.setMessage("Merging temporary tables in parallel, " + m_chunksContainer.size() + " remaining");
+            // one read and one write of all rows per pass
+            final double progressPerGroup = m_rowsInInputTable > 0 ? (1.0 - m_progress) / 2.0
+                / Math.ceil(m_chunksContainer.size() / (double)m_maxOpenContainers) : 0.0;
+            List<Future<DataTable>> futures = new ArrayList<>();
+            Iterable<DataRow> singleChunk = null;
+            try {
+                while (!m_chunksContainer.isEmpty()) {
+                    final Queue<MergeEntry> group = new ArrayDeque<>();
+                    for (int i = 0; !m_chunksContainer.isEmpty() && i < m_maxOpenContainers; i++) {
+                        group.add(new MergeEntry(m_chunksContainer.poll(), i, m_rowComparator));
+                    }
+                    if (group.size() == 1) {
+                        // nothing to merge (last group)
+                        singleChunk = group.poll().m_iterable;
+                    } else {
+                        futures.add(getPool().enqueue(() -> writeRun(new MergingIterator(group), exec)));
+                    }
+                }
+                for (Future<DataTable> future : futures) {
+                    m_chunksContainer.offer(waitFor(future));
+                    if (m_rowsInInputTable > 0) {
+                        m_progress += progressPerGroup;
+                        exec.setProgress(m_progress);
+                    }
+                }
+            } finally {
+                futures.stream().forEach(f -> f.cancel(true));
+            }
+            if (singleChunk != null) {
+                m_chunksContainer.offer(singleChunk);
+            }
+        }
+    }
+
+    /**
+     * Writes the argument rows into a new temporary container. Unlike {@link #openChunk()} and
+     * {@link #addRowToChunk(DataRow)} this method does not use shared state and can be used concurrently.
+     *
+     * @param rows The (sorted) rows to write.
+     * @param exec For cancellation checks.
+     * @return The table containing the rows.
+     * @throws CanceledExecutionException If canceled.
+     */
+    private DataTable writeRun(final Iterator<DataRow> rows, final ExecutionMonitor exec)
+        throws CanceledExecutionException {
+        DataContainer container = createDataContainer(m_dataTableSpec, true);
+        container.setMaxPossibleValues(0);
+        try {
+            while (rows.hasNext()) {
+                container.addRowToTable(rows.next());
+                exec.checkCanceled();
+            }
+        } finally {
+            container.close();
+        }
+        return container.getTable();
+    }
+
+    /**
+     * Sorts a run of rows, using a parallel sort if the parallel mode is enabled. All variants are stable. Runs are
+     * sorted on normalized binary keys if the comparator was created from the sort columns and their types allow it.
+     *
+     * @param rows The rows to sort.
+     * @return The sorted list, possibly the argument list.
+     */
+    private List<DataRow> sortRun(final List<DataRow> rows) {
+        if (m_rowComparator instanceof RowComparator && ((RowComparator)m_rowComparator).supportsKeys()) {
+            return sortRunOnKeys(rows, (RowComparator)m_rowComparator);
+        }
+        if (m_parallel) {
+            DataRow[] array = rows.toArray(new DataRow[rows.size()]);
+            Arrays.parallelSort(array, m_rowComparator);
+            return Arrays.asList(array);
+        }
+        Collections.sort(rows, m_rowComparator);
+        return rows;
+    }
+
+    /**
+     * Sorts a run on the normalized keys of its rows, each row is encoded once.
+     *
+     * @param rows The rows to sort.
+     * @param comparator The comparator creating the keys.
+     * @return The sorted rows.
+     */
+    private List<DataRow> sortRunOnKeys(final List<DataRow> rows, final RowComparator comparator) {
+        final int size = rows.size();
+        KeyedRow[] keyedRows = new KeyedRow[size];
+        for (int i = 0; i < size; i++) {
+            // must not use Iterator#remove as it causes array copies
+            DataRow row = rows.set(i, null);
+            keyedRows[i] = new KeyedRow(row, comparator.createKey(row));
+        }
+        Comparator<KeyedRow> keyComparator = (r1, r2) -> comparator.compare(r1.m_row, r1.m_key, r2.m_row, r2.m_key);
+        if (m_parallel) {
+            Arrays.parallelSort(keyedRows, keyComparator);
+        } else {
+            Arrays.sort(keyedRows, keyComparator);
+        }
+        DataRow[] sorted = new DataRow[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = keyedRows[i].m_row;
+            keyedRows[i] = null;
+        }
+        return Arrays.asList(sorted);
+    }
+
+    /** A row along with its normalized sort key (possibly null). */
+    private static final class KeyedRow {
+
+        private final DataRow m_row;
+
+        private final byte[] m_key;
+
+        KeyedRow(final DataRow row, final byte[] key) {
+            m_row = row;
+            m_key = key;
+        }
+    }
+
+    /** @return the pool for asynchronous tasks, created lazily. */
+    private synchronized ThreadPool getPool() {
+        if (m_pool == null) {
+            m_pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(Runtime.getRuntime().availableProcessors());
+        }
+        return m_pool;
+    }
+
+    /**
+     * Waits for the argument future and unwraps any exception.
+     *
+     * @param future The future to wait for.
+     * @return Its result.
+     * @throws CanceledExecutionException If the task or the waiting thread was canceled.
+     */
+    private static <T> T waitFor(final Future<T> future) throws CanceledExecutionException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            CanceledExecutionException cee = new CanceledExecutionException("Interrupted while sorting");
+            cee.initCause(e);
+            throw cee;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof CanceledExecutionException) {
+                throw (CanceledExecutionException)cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
     private long createInitialChunks(final ExecutionMonitor exec, final DataTable dataTable)
         throws CanceledExecutionException {
         long outerCounter;
@@ -585,66 +793,103 @@ private long createInitialChunks(final ExecutionMonitor exec, final DataTable da
         ArrayList<DataRow> buffer = new ArrayList<DataRow>();
         long chunkStartRow = 0;
         int rowsInCurrentChunk = 0;
+        // the run currently written to disk in parallel mode (at most one at a time)
+        Future<DataTable> pendingRun = null;
 
         MemoryActionIndicator memObservable = m_memService.newIndicator();
 
         exec.setMessage("Reading table");
-        for (Iterator<DataRow> iter = dataTable.iterator(); iter.hasNext();) {
-            counter++;
-            rowsInCurrentChunk++;
-            exec.checkCanceled();
-            String message = "Reading table, " + counter + " rows read";
-            if (m_rowsInInputTable > 0) {
-                m_progress += m_incProgress;
-                exec.setProgress(m_progress, message);
-            } else {
-                exec.setMessage(message);
-            }
-            DataRow row = iter.next();
-            buffer.add(row);
-            if ((memObservable.lowMemoryActionRequired() && (rowsInCurrentChunk >= m_maxOpenContainers))
-                || (counter % m_maxRowsPerChunk == 0)) {
-                LOGGER.debug("Writing chunk [" + chunkStartRow + ":" + counter + "] - mem usage: " + getMemUsage());
+        try {
+            for (Iterator<DataRow> iter = dataTable.iterator(); iter.hasNext();) {
+                counter++;
+                rowsInCurrentChunk++;
+                exec.checkCanceled();
+                String message = "Reading table, " + counter + " rows read";
                 if (m_rowsInInputTable > 0) {
-                    long estimatedIncrements = m_rowsInInputTable - counter + buffer.size();
-                    m_incProgress = (0.5 - m_progress) / estimatedIncrements;
+                    m_progress += m_incProgress;
+                    exec.setProgress(m_progress, message);
+                } else {
+                    exec.setMessage(message);
                 }
-                exec.setMessage("Sorting temporary buffer");
-                // sort buffer
-                Collections.sort(buffer, m_rowComparator);
-                // write buffer to disk
-                openChunk();
-                final int totalBufferSize = buffer.size();
-                for (int i = 0; i < totalBufferSize; i++) {
-                    exec.setMessage("Writing temporary table -- " + i + "/" + totalBufferSize);
-                    // must not use Iterator#remove as it causes
-                    // array copies
-                    DataRow next = buffer.set(i, null);
-                    addRowToChunk(next);
-                    exec.checkCanceled();
+                DataRow row = iter.next();
+                buffer.add(row);
+                if ((memObservable.lowMemoryActionRequired() && (rowsInCurrentChunk >= m_maxOpenContainers))
+                    || (counter % m_maxRowsPerChunk == 0)) {
+                    LOGGER.debug("Writing chunk [" + chunkStartRow + ":" + counter + "] - mem usage: " + getMemUsage());
                     if (m_rowsInInputTable > 0) {
-                        m_progress += m_incProgress;
-                        exec.setProgress(m_progress);
+                        long estimatedIncrements = m_rowsInInputTable - counter + buffer.size();
+                        m_incProgress = (0.5 - m_progress) / estimatedIncrements;
+                    }
+                    exec.setMessage("Sorting temporary buffer");
+                    if (m_parallel) {
+                        // sort run using all cores, write it asynchronously while reading the next run
+                        final List<DataRow> sortedRun = sortRun(buffer);
+                        buffer = new ArrayList<DataRow>();
+                        if (pendingRun != null) {
+                            exec.setMessage("Writing temporary table");
+                            addRunToChunks(waitFor(pendingRun));
+                        }
+                        pendingRun = getPool().enqueue(() -> writeRun(new ReleasingIterator(sortedRun), exec));
+                        if (m_rowsInInputTable > 0) {
+                            m_progress += m_incProgress * sortedRun.size();
+                            exec.setProgress(m_progress);
+                        }
+                    } else {
+                        // sort buffer
+                        final List<DataRow> sortedRun = sortRun(buffer);
+                        // write buffer to disk
+                        openChunk();
+                        final int totalBufferSize = sortedRun.size();
+                        for (int i = 0; i < totalBufferSize; i++) {
+                            exec.setMessage("Writing temporary table -- " + i + "/" + totalBufferSize);
+                            // must not use Iterator#remove as it causes
+                            // array copies
+                            DataRow next = sortedRun.set(i, null);
+                            addRowToChunk(next);
+                            exec.checkCanceled();
+                            if (m_rowsInInputTable > 0) {
+                                m_progress += m_incProgress;
+                                exec.setProgress(m_progress);
+                            }
+                        }
+                        buffer.clear();
+                        closeChunk();
                     }
-                }
-                buffer.clear();
-                closeChunk();
 
-                LOGGER.debug("Wrote chunk [" + chunkStartRow + ":" + counter + "] - mem usage: " + getMemUsage());
-                chunkStartRow = counter + 1;
-                rowsInCurrentChunk = 0;
+                    LOGGER.debug("Wrote chunk [" + chunkStartRow + ":" + counter + "] - mem usage: " + getMemUsage());
+                    chunkStartRow = counter + 1;
+                    rowsInCurrentChunk = 0;
+                }
+            }
+            if (pendingRun != null) {
+                exec.setMessage("Writing temporary table");
+                addRunToChunks(waitFor(pendingRun));
+                pendingRun = null;
+            }
+        } finally {
+            if (pendingRun != null) {
+                pendingRun.cancel(true);
             }
         }
         // Add buffer to the chunks
         if (!buffer.isEmpty()) {
             // sort buffer
-            Collections.sort(buffer, m_rowComparator);
-            m_chunksContainer.add(buffer);
+            m_chunksContainer.add(sortRun(buffer));
         }
         outerCounter = counter;
         return outerCounter;
     }
 
+    /** Adds a run written by {@link #writeRun(Iterator, ExecutionMonitor)} to the chunk list (or discards it if
+     * empty). */
+    private void addRunToChunks(final DataTable run) {
+        if (run.iterator().hasNext()) {
+            m_chunksContainer.offer(run);
+        } else {
+            clearTable(run);
+        }
+    }
+
     /**
      * Opens a chunk data container to accept rows using {@link #addRowToChunk(DataRow)}, {@link #closeChunk()} closes
      * the current container and adds it to the chunk list.
@@ -664,6 +909,35 @@ void addRowToChunk(final DataRow dataRow) {
         m_currentContainer.addRowToTable(dataRow);
     }
 
+    /**
+     * Iterates a list of rows and releases each returned row from the list so that it can be garbage collected once
+     * written.
+     */
+    private static final class ReleasingIterator implements Iterator<DataRow> {
+
+        private final List<DataRow> m_rows;
+
+        private int m_index;
+
+        ReleasingIterator(final List<DataRow> rows) {
+            m_rows = rows;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return m_index < m_rows.size();
+        }
+
+        @Override
+        public DataRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            // must not use Iterator#remove as it causes array copies
+            return m_rows.set(m_index++, null);
+        }
+    }
+
     /**
      * Closes the chunk.
      */
@@ -696,6 +970,9 @@ private String getMemUsage() {
     private final class MergeEntry implements Comparable<MergeEntry>, Iterator<DataRow> {
         private DataRow m_row;
 
+        /** Normalized key of m_row, null if not available. */
+        private byte[] m_key;
+
         private Iterable<DataRow> m_iterable;
 
         private Iterator<DataRow> m_iterator;
@@ -704,6 +981,9 @@ private final class MergeEntry implements Comparable<MergeEntry>, Iterator<DataR
 
         private Comparator<DataRow> m_comparator;
 
+        /** The comparator if rows are merged on their normalized keys, otherwise null. */
+        private RowComparator m_keyComparator;
+
         /**
          * @param iterator
          * @param index
@@ -713,17 +993,26 @@ private final class MergeEntry implements Comparable<MergeEntry>, Iterator<DataR
             m_iterable = iterable;
             m_index = index;
             m_comparator = comparator;
+            if (comparator instanceof RowComparator && ((RowComparator)comparator).supportsKeys()) {
+                m_keyComparator = (RowComparator)comparator;
+            }
         }
 
         private void open() {
             if (m_iterator == null) {
                 m_iterator = m_iterable.iterator();
                 if (m_iterator.hasNext()) {
-                    m_row = m_iterator.next();
+                    setRow(m_iterator.next());
                 }
             }
         }
 
+        /** Sets the current row and its key (each row is encoded once, not per comparison). */
+        private void setRow(final DataRow row) {
+            m_row = row;
+            m_key = row != null && m_keyComparator != null ? m_keyComparator.createKey(row) : null;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -749,7 +1038,7 @@ public DataRow next() {
                 throw new NoSuchElementException();
             }
             DataRow toReturn = m_row;
-            m_row = m_iterator.hasNext() ? m_iterator.next() : null;
+            setRow(m_iterator.hasNext() ? m_iterator.next() : null);
             return toReturn;
         }
 
@@ -766,7 +1055,9 @@ public void remove() {
          */
         @Override
         public int compareTo(final MergeEntry that) {
-            int value = m_comparator.compare(this.m_row, that.m_row);
+            int value = m_keyComparator != null
+                ? m_keyComparator.compare(this.m_row, this.m_key, that.m_row, that.m_key)
+                : m_comparator.compare(this.m_row, that.m_row);
             if (value == 0) {
                 return this.m_index - that.m_index;
             } else {
@@ -893,6 +1184,9 @@ private static final class RowComparator implements Comparator<DataRow> {
          */
         private final boolean m_sortMissingsToEnd;
 
+        /** Encodes the sort columns into binary keys, null if any of the column types is not supported. */
+        private final NormalizedKeyEncoder m_keyEncoder;
+
         /**
          * @param indices Array of sort column indices.
          * @param sortAscending Sort order.
@@ -914,6 +1208,32 @@ private static final class RowComparator implements Comparator<DataRow> {
             }
             m_sortAscending = sortAscending;
             m_sortMissingsToEnd = sortMissingsToEnd;
+            m_keyEncoder = NormalizedKeyEncoder.create(indices, sortAscending, sortMissingsToEnd, spec);
+        }
+
+        /** @return whether rows can be compared on normalized keys, see {@link #createKey(DataRow)}. */
+        boolean supportsKeys() {
+            return m_keyEncoder != null;
+        }
+
+        /**
+         * @param row The row to encode.
+         * @return its normalized sort key or null if it can't be encoded (compare the row using
+         *         {@link #compare(DataRow, DataRow)} then).
+         */
+        byte[] createKey(final DataRow row) {
+            return m_keyEncoder == null ? null : m_keyEncoder.encode(row);
+        }
+
+        /**
+         * Compares two rows given their keys as created by {@link #createKey(DataRow)}, falls back to a cell-by-cell
+         * comparison if any of the keys is null.
+         */
+        int compare(final DataRow dr1, final byte[] key1, final DataRow dr2, final byte[] key2) {
+            if (key1 != null && key2 != null) {
+                return NormalizedKeyEncoder.compare(key1, key2);
+            }
+            return compare(dr1, dr2);
         }
 
         /** {@inheritDoc} */
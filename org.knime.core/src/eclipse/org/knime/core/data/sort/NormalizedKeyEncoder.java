@@ -0,0 +1,328 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.sort;
+
+import java.util.Arrays;
+
+import org.knime.core.data.BooleanValue;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataValueComparator;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.date.DateAndTimeCell;
+import org.knime.core.data.date.DateAndTimeValue;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Encodes the sort columns of a row into a normalized binary key. Two keys compare (unsigned, byte by byte, see
+ * {@link #compare(byte[], byte[])}) exactly as the corresponding rows compare using the column comparators, taking
+ * the sort order and the position of missing values into account. Sorting and merging on these keys avoids the
+ * repeated comparator lookups, missing value checks and virtual calls of a cell-by-cell comparison.
+ *
+ * <p>
+ * Supported are columns whose comparator is the one of double, int, long, string, boolean or date and time columns
+ * (and the row key). Instances are obtained via {@link #create(int[], boolean[], boolean, DataTableSpec)}, which
+ * returns <code>null</code> if any of the sort columns is not supported. Instances are immutable and thread-safe.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class NormalizedKeyEncoder {
+
+    /** The encoding of a column value. */
+    private enum Encoding {
+            DOUBLE, INT, LONG, STRING, BOOLEAN, DATE_AND_TIME;
+    }
+
+    /** Prefix of a non-missing value, missing values get {@link #MISSING_FIRST} or {@link #MISSING_LAST}. */
+    private static final byte PRESENT = 1;
+
+    private static final byte MISSING_FIRST = 0;
+
+    private static final byte MISSING_LAST = 2;
+
+    /** Terminates an encoded string, smaller than any encoded character. */
+    private static final byte STRING_END = 0;
+
+    /** Column indices, -1 for the row key. */
+    private final int[] m_indices;
+
+    private final Encoding[] m_encodings;
+
+    private final boolean[] m_sortAscending;
+
+    private final boolean m_sortMissingsToEnd;
+
+    private NormalizedKeyEncoder(final int[] indices, final Encoding[] encodings, final boolean[] sortAscending,
+        final boolean sortMissingsToEnd) {
+        m_indices = indices;
+        m_encodings = encodings;
+        m_sortAscending = sortAscending;
+        m_sortMissingsToEnd = sortMissingsToEnd;
+    }
+
+    /**
+     * Creates an encoder for the given sort settings.
+     *
+     * @param indices Sort column indices, -1 for the row key.
+     * @param sortAscending Sort order per column.
+     * @param sortMissingsToEnd Whether missing values are always sorted to the end (otherwise they are smaller than
+     *            any other value).
+     * @param spec The spec of the table.
+     * @return An encoder or <code>null</code> if any of the columns has a type that can't be encoded.
+     */
+    static NormalizedKeyEncoder create(final int[] indices, final boolean[] sortAscending,
+        final boolean sortMissingsToEnd, final DataTableSpec spec) {
+        Encoding[] encodings = new Encoding[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            if (indices[i] == -1) {
+                encodings[i] = Encoding.STRING;
+            } else {
+                encodings[i] = getEncoding(spec.getColumnSpec(indices[i]).getType().getComparator());
+                if (encodings[i] == null) {
+                    return null;
+                }
+            }
+        }
+        return new NormalizedKeyEncoder(indices.clone(), encodings, sortAscending.clone(), sortMissingsToEnd);
+    }
+
+    /** Determines the encoding that is consistent with the argument comparator, null if there is none. */
+    private static Encoding getEncoding(final DataValueComparator comparator) {
+        final Class<?> cl = comparator.getClass();
+        if (cl == DoubleCell.TYPE.getComparator().getClass()) {
+            return Encoding.DOUBLE;
+        } else if (cl == IntCell.TYPE.getComparator().getClass()) {
+            return Encoding.INT;
+        } else if (cl == LongCell.TYPE.getComparator().getClass()) {
+            return Encoding.LONG;
+        } else if (cl == StringCell.TYPE.getComparator().getClass()) {
+            return Encoding.STRING;
+        } else if (cl == BooleanCell.TYPE.getComparator().getClass()) {
+            return Encoding.BOOLEAN;
+        } else if (cl == DateAndTimeCell.TYPE.getComparator().getClass()) {
+            return Encoding.DATE_AND_TIME;
+        }
+        return null;
+    }
+
+    /**
+     * Encodes the sort columns of the argument row.
+     *
+     * @param row The row to encode.
+     * @return The key or <code>null</code> if any of the cells does not implement the value interface expected by
+     *         its column comparator (rows without key need to be compared using the row comparator).
+     */
+    byte[] encode(final DataRow row) {
+        KeyBuilder key = new KeyBuilder();
+        for (int i = 0; i < m_indices.length; i++) {
+            if (m_indices[i] == -1) {
+                key.put(PRESENT);
+                encodeValue(key, Encoding.STRING, row.getKey().getString(), i);
+                continue;
+            }
+            final DataCell cell = row.getCell(m_indices[i]);
+            if (cell.isMissing()) {
+                key.put(m_sortMissingsToEnd || !m_sortAscending[i] ? MISSING_LAST : MISSING_FIRST);
+                continue;
+            }
+            key.put(PRESENT);
+            if (!encodeValue(key, m_encodings[i], cell, i)) {
+                return null;
+            }
+        }
+        return key.toByteArray();
+    }
+
+    /** Appends the value (inverted if sorted descending), returns false if the value has an unexpected type. */
+    private boolean encodeValue(final KeyBuilder key, final Encoding encoding, final Object value,
+        final int column) {
+        final int start = key.size();
+        switch (encoding) {
+            case DOUBLE:
+                if (!(value instanceof DoubleValue)) {
+                    return false;
+                }
+                // same total order as Double.compare: flip sign bit of positives, all bits of negatives
+                long bits = Double.doubleToLongBits(((DoubleValue)value).getDoubleValue());
+                key.putLong(bits < 0 ? ~bits : bits ^ Long.MIN_VALUE);
+                break;
+            case INT:
+                if (!(value instanceof IntValue)) {
+                    return false;
+                }
+                key.putInt(((IntValue)value).getIntValue() ^ Integer.MIN_VALUE);
+                break;
+            case LONG:
+                if (!(value instanceof LongValue)) {
+                    return false;
+                }
+                key.putLong(((LongValue)value).getLongValue() ^ Long.MIN_VALUE);
+                break;
+            case STRING:
+                if (value instanceof StringValue) {
+                    key.putString(((StringValue)value).getStringValue());
+                } else if (value instanceof String) {
+                    key.putString((String)value);
+                } else {
+                    return false;
+                }
+                break;
+            case BOOLEAN:
+                if (!(value instanceof BooleanValue)) {
+                    return false;
+                }
+                key.put(((BooleanValue)value).getBooleanValue() ? (byte)1 : (byte)0);
+                break;
+            case DATE_AND_TIME:
+                if (!(value instanceof DateAndTimeValue)) {
+                    return false;
+                }
+                key.putLong(((DateAndTimeValue)value).getUTCTimeInMillis() ^ Long.MIN_VALUE);
+                break;
+            default:
+                throw new IllegalStateException("Unknown encoding: " + encoding);
+        }
+        if (!m_sortAscending[column]) {
+            key.invert(start);
+        }
+        return true;
+    }
+
+    /**
+     * Compares two keys created by the same encoder, unsigned and byte by byte. A key that is a prefix of another key
+     * is smaller (can't happen for keys of the same encoder as all encoded values are self-delimiting).
+     *
+     * @param key1 First key.
+     * @param key2 Second key.
+     * @return A negative number, zero, or a positive number as the first key is smaller, equal or greater.
+     */
+    static int compare(final byte[] key1, final byte[] key2) {
+        final int length = Math.min(key1.length, key2.length);
+        for (int i = 0; i < length; i++) {
+            if (key1[i] != key2[i]) {
+                return (key1[i] & 0xFF) - (key2[i] & 0xFF);
+            }
+        }
+        return key1.length - key2.length;
+    }
+
+    /** Growable byte array used to assemble a key. */
+    private static final class KeyBuilder {
+
+        private byte[] m_bytes = new byte[32];
+
+        private int m_size;
+
+        int size() {
+            return m_size;
+        }
+
+        private void ensureCapacity(final int additional) {
+            if (m_size + additional > m_bytes.length) {
+                m_bytes = Arrays.copyOf(m_bytes, Math.max(2 * m_bytes.length, m_size + additional));
+            }
+        }
+
+        void put(final byte b) {
+            ensureCapacity(1);
+            m_bytes[m_size++] = b;
+        }
+
+        void putInt(final int value) {
+            ensureCapacity(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                m_bytes[m_size++] = (byte)(value >>> shift);
+            }
+        }
+
+        void putLong(final long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                m_bytes[m_size++] = (byte)(value >>> shift);
+            }
+        }
+
+        /**
+         * Appends a string in an order-preserving (String#compareTo), self-delimiting encoding: chars below 0x7F as
+         * a single byte (char + 1), all other chars as three bytes starting with 0x80 | (char >>> 14), followed by a
+         * terminating zero byte.
+         */
+        void putString(final String s) {
+            final int length = s.length();
+            ensureCapacity(3 * length + 1);
+            for (int i = 0; i < length; i++) {
+                final char c = s.charAt(i);
+                if (c < 0x7F) {
+                    m_bytes[m_size++] = (byte)(c + 1);
+                } else {
+                    m_bytes[m_size++] = (byte)(0x80 | (c >>> 14));
+                    m_bytes[m_size++] = (byte)((c >>> 7) & 0x7F);
+                    m_bytes[m_size++] = (byte)(c & 0x7F);
+                }
+            }
+            m_bytes[m_size++] = STRING_END;
+        }
+
+        /** Inverts all bytes from the given position on (descending order). */
+        void invert(final int from) {
+            for (int i = from; i < m_size; i++) {
+                m_bytes[i] = (byte)~m_bytes[i];
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(m_bytes, m_size);
+        }
+    }
+}
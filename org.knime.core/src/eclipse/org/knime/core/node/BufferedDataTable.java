@@ -76,8 +76,11 @@
 import org.knime.core.data.container.ConcatenateTable;
 import org.knime.core.data.container.ContainerTable;
 import org.knime.core.data.container.DataContainer;
+import org.knime.core.data.container.FilterDelegateRowIterator;
 import org.knime.core.data.container.JoinedTable;
 import org.knime.core.data.container.RearrangeColumnsTable;
+import org.knime.core.data.container.RowSelectionTable;
+import org.knime.core.data.container.TableFilter;
 import org.knime.core.data.container.TableSpecReplacerTable;
 import org.knime.core.data.container.VoidTable;
 import org.knime.core.data.container.WrappedTable;
@@ -88,6 +91,7 @@
 import org.knime.core.node.port.PortObject;
 import org.knime.core.node.port.PortType;
 import org.knime.core.node.port.PortTypeRegistry;
+import org.knime.core.node.util.CheckUtils;
 import org.knime.core.node.workflow.BufferedDataTableView;
 import org.knime.core.util.MutableBoolean;
 
@@ -232,6 +236,14 @@ static PortObjectSerializer<BufferedDataTable> getPortObjectSerializer() {
         this(table, generateNewID());
     }
 
+    /** Creates a new buffered data table based on a selection of rows of
+     * a BufferedDataTable.
+     * @param table The reference.
+     */
+    BufferedDataTable(final RowSelectionTable table) {
+        this(table, generateNewID());
+    }
+
     /** Creates a new buffered data table based on a "void" table.
      * @param table The reference.
      */
@@ -325,6 +337,26 @@ public CloseableRowIterator iterator() {
         return m_delegate.iterator();
     }
 
+    /**
+     * Get an iterator that only returns the rows and materializes the columns as specified by the argument filter.
+     * Cells of columns that are not materialized are not deserialized (if the underlying table supports it), which
+     * makes the iteration considerably faster if only few columns of a table are accessed. Their content is
+     * unspecified and must not be accessed. See {@link TableFilter} for details.
+     *
+     * @param filter The filter describing the rows and columns to read, not <code>null</code>.
+     * @return A new iterator.
+     * @throws IndexOutOfBoundsException If the filter refers to a column index not contained in this table.
+     * @since 3.6
+     */
+    public CloseableRowIterator filter(final TableFilter filter) {
+        CheckUtils.checkArgumentNotNull(filter, "Filter must not be null");
+        if (filter.isNoOp()) {
+            return iterator();
+        }
+        filter.validate(getDataTableSpec());
+        return m_delegate.iteratorWithFilter(filter);
+    }
+
     /**
      * Get an iterator instance that will return missing values when the table
      * is cleared as part of a node reset.
@@ -451,6 +483,8 @@ public void close() {
     private static final String TABLE_TYPE_CONCATENATE = "concatenate_table";
     private static final String TABLE_TYPE_JOINED = "joined_table";
     private static final String TABLE_TYPE_VOID = "void_table";
+    /** @since 3.6 */
+    private static final String TABLE_TYPE_ROW_SELECTION = "row_selection_table";
     /** The table is referenced multiple times in a node, e.g. provided at
      * different outputs (possibly wrapped) or it is used as output-port table
      * and as internally held table. See bug 2117.
@@ -497,6 +531,8 @@ void save(final File dir, final Set<Integer> savedTableIDs, final ExecutionMonit
                 s.addString(CFG_TABLE_TYPE, TABLE_TYPE_VOID);
             } else if (m_delegate instanceof ConcatenateTable) {
                 s.addString(CFG_TABLE_TYPE, TABLE_TYPE_CONCATENATE);
+            } else if (m_delegate instanceof RowSelectionTable) {
+                s.addString(CFG_TABLE_TYPE, TABLE_TYPE_ROW_SELECTION);
             } else {
                 assert m_delegate instanceof ExtensionTable;
                 s.addString(CFG_TABLE_TYPE, TABLE_TYPE_EXTENSION);
@@ -695,6 +731,10 @@ static BufferedDataTable loadFromFile(final ReferencedFile dirRef,
             } else if (tableType.equals(TABLE_TYPE_CONCATENATE)) {
                 ConcatenateTable ct = ConcatenateTable.load(s, spec, tblRep);
                 t = new BufferedDataTable(ct);
+            } else if (tableType.equals(TABLE_TYPE_ROW_SELECTION)) {
+                RowSelectionTable rt = RowSelectionTable.load(
+                        fileRef == null ? null : fileRef.getFile(), s, tblRep);
+                t = new BufferedDataTable(rt);
             } else if (tableType.equals(TABLE_TYPE_WRAPPED)) {
                 WrappedTable wt = WrappedTable.load(s, tblRep);
                 t = new BufferedDataTable(wt);
@@ -811,6 +851,17 @@ void ensureOpen() {
         m_delegate.ensureOpen();
     }
 
+    /** Opens the table like {@link #ensureOpen()} and copies any data that is read in place from its saved location
+     * to temp. Called before the node directory is deleted or overwritten, in contrast to {@link #ensureOpen()},
+     * which is also called to open a view. */
+    void ensureCopiedToTemp() {
+        BufferedDataTable[] references = m_delegate.getReferenceTables();
+        for (BufferedDataTable reference : references) {
+            reference.ensureCopiedToTemp();
+        }
+        m_delegate.ensureCopiedToTemp();
+    }
+
     /**
      * Internally used interface. You won't have any benefit by implementing
      * this interface! It's used for selected classes in the KNIME core.
@@ -854,11 +905,30 @@ void saveToFile(final File f, final NodeSettingsWO settings,
         /** Implementation of {@link BufferedDataTable#ensureOpen()}. */
         void ensureOpen();
 
+        /** Implementation of {@link BufferedDataTable#ensureCopiedToTemp()}. The default implementation only calls
+         * {@link #ensureOpen()}, tables reading data in place from their saved location need to override it.
+         * @since 3.6
+         */
+        default void ensureCopiedToTemp() {
+            ensureOpen();
+        }
+
         /** Overridden to narrow return type to closeable iterator.
          * {@inheritDoc} */
         @Override
         public CloseableRowIterator iterator();
 
+        /** Implementation of {@link BufferedDataTable#filter(TableFilter)}. The default implementation applies the
+         * row range to the full {@link #iterator()} and materializes all columns. Implementations reading their data
+         * from file or composing other tables should override it.
+         * @param filter The (validated) filter, not <code>null</code>.
+         * @return A new iterator honoring the filter.
+         * @since 3.6
+         */
+        public default CloseableRowIterator iteratorWithFilter(final TableFilter filter) {
+            return new FilterDelegateRowIterator(iterator(), filter);
+        }
+
         /** Reference to the underlying tables, if any. A reference
          * table exists if this object is just a wrapper, such as a
          * RearrangeColumnsTable or if this table concatenates a set of
@@ -56,11 +56,14 @@
 import org.knime.core.data.DataTable;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.RowIterator;
+import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.data.container.ColumnRearranger;
 import org.knime.core.data.container.ConcatenateTable;
 import org.knime.core.data.container.ContainerTable;
 import org.knime.core.data.container.JoinedTable;
 import org.knime.core.data.container.RearrangeColumnsTable;
+import org.knime.core.data.container.RowSelection;
+import org.knime.core.data.container.RowSelectionTable;
 import org.knime.core.data.container.TableSpecReplacerTable;
 import org.knime.core.data.container.VoidTable;
 import org.knime.core.data.container.WrappedTable;
@@ -120,6 +123,11 @@ public class ExecutionContext extends ExecutionMonitor {
 
     private static final NodeLogger LOGGER = NodeLogger.getLogger(ExecutionContext.class);
 
+    /** Selections of at most this fraction of the input rows are copied by
+     * {@link #createRowSelectionTable(BufferedDataTable, RowSelection)}, a
+     * reference would read over all unselected rows on every iteration. */
+    private static final double COPY_SELECTION_FRACTION = 0.25;
+
     private final Node m_node;
     private final MemoryPolicy m_memoryPolicy;
     private final HashMap<Integer, ContainerTable> m_globalTableRepository;
@@ -409,6 +417,64 @@ public BufferedDataTable createWrappedTable(final BufferedDataTable in) {
         return out;
     }
 
+    /**
+     * Creates a new <code>BufferedDataTable</code> that contains a contiguous
+     * range of rows of the argument table, for instance the current chunk of
+     * a loop. The rows are not copied, the returned table only references
+     * the argument table and also is saved as a reference.
+     * @param in The table to take the rows from.
+     * @param fromRowIndex The index of the first row (0-based).
+     * @param rowCount The number of rows.
+     * @return A new table which can be returned in the execute method.
+     * @throws NullPointerException If the table is null.
+     * @throws IndexOutOfBoundsException If the range is not contained in the
+     * table.
+     * @since 3.6
+     */
+    public BufferedDataTable createSlicedTable(final BufferedDataTable in,
+            final long fromRowIndex, final long rowCount) {
+        RowSelectionTable t =
+            RowSelectionTable.createSlice(in, fromRowIndex, rowCount);
+        BufferedDataTable out = new BufferedDataTable(t);
+        out.setOwnerRecursively(m_node);
+        return out;
+    }
+
+    /**
+     * Creates a new <code>BufferedDataTable</code> that contains the selected
+     * rows of the argument table in their original order, for instance one
+     * partition of the table. The rows are not copied, the returned table only
+     * references the argument table and also is saved as a reference. Only if
+     * few rows are selected (up to a quarter of the table) they are copied
+     * into a new table as iterating them would otherwise still read the entire
+     * argument table.
+     * @param in The table to take the rows from.
+     * @param selection The rows to select, subsequent changes of the selection
+     * do not affect the returned table.
+     * @return A new table which can be returned in the execute method.
+     * @throws NullPointerException If any argument is null.
+     * @throws IllegalArgumentException If the selection was not created for
+     * the row count of the table.
+     * @since 3.6
+     */
+    public BufferedDataTable createRowSelectionTable(
+            final BufferedDataTable in, final RowSelection selection) {
+        RowSelectionTable t = RowSelectionTable.create(in, selection);
+        if (t.size() <= COPY_SELECTION_FRACTION * in.size()) {
+            BufferedDataContainer c = createDataContainer(in.getDataTableSpec());
+            try (CloseableRowIterator it = t.iterator()) {
+                while (it.hasNext()) {
+                    c.addRowToTable(it.next());
+                }
+            }
+            c.close();
+            return c.getTable();
+        }
+        BufferedDataTable out = new BufferedDataTable(t);
+        out.setOwnerRecursively(m_node);
+        return out;
+    }
+
     /** Create new "void" table. It's a framework method that is used by the streaming executor to populate the output
      * of a node. It has a table specification but no data (which is also indicated in the view).
      *
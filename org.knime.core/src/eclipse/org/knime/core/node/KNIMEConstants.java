@@ -162,6 +162,41 @@ public final class KNIMEConstants {
     public static final String PROPERTY_TABLE_GZIP_COMPRESSION =
         "knime.compress.io";
 
+    /** Java property to set the default codec used to compress tables written to disc, e.g. "Gzip", "LZ4",
+     * "Deflate" or "None". Takes precedence over {@link #PROPERTY_TABLE_GZIP_COMPRESSION}. The codec is
+     * recorded with each table, i.e. tables written with a different codec remain readable. The codec can also be
+     * set on individual containers using
+     * {@link org.knime.core.data.container.DataContainer#setTableCompressionCodec(
+     * org.knime.core.data.container.compression.TableCompressionCodec)}.
+     * @since 3.6 */
+    public static final String PROPERTY_TABLE_COMPRESSION = "knime.table.compression";
+
+    /** Java property to set the default storage format of tables written to disc, either "row" (default) or
+     * "columnar". See {@link org.knime.core.data.container.DataContainer.TableStorageFormat} for details. The format
+     * can also be set on individual containers using
+     * {@link org.knime.core.data.container.DataContainer#setTableStorageFormat(
+     * org.knime.core.data.container.DataContainer.TableStorageFormat)}.
+     * @since 3.6 */
+    public static final String PROPERTY_TABLE_STORAGE_FORMAT = "knime.table.storageformat";
+
+    /** Java property to disable reading saved tables in place. Tables in a saved workflow are read directly from the
+     * node's zip file if their data is stored uncompressed in that file, which is the case for tables saved by
+     * KNIME 3.6 or later (unless compression is disabled). If this property is set to "true" the data is
+     * extracted to the temp directory when the table is first accessed, as done in previous versions.
+     * @since 3.6 */
+    public static final String PROPERTY_TABLE_EXTRACT_ON_LOAD = "knime.table.extractonload";
+
+    /** Java property to set the number of threads that encode rows and compute domains while tables are written
+     * asynchronously (defaults to the number of available processors, at most 4). A value of 1 or less keeps all
+     * of this on the table's single write thread.
+     * @since 3.6 */
+    public static final String PROPERTY_TABLE_WRITE_THREADS = "knime.table.writethreads";
+
+    /** Java property to enable the parallel sort mode in the table sorters by default (false if not set). See
+     * {@link org.knime.core.data.sort.BufferedDataTableSorter#setParallel(boolean)} for details.
+     * @since 3.6 */
+    public static final String PROPERTY_PARALLEL_SORT = "knime.sort.parallel";
+
     /** Java property to enable/disable row ID duplicate checks on tables.
      * Tables in KNIME are supposed to have unique IDs, whereby the uniqueness
      * is asserted using a duplicate checker. This property will disable this
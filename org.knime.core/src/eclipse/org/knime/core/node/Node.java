@@ -2300,15 +2300,16 @@ public boolean isInterruptible() {
     }
 
     /** Ensures that any port object is read for later saving with a
-     * newer version. */
+     * newer version. Data read in place from the node directory is copied to
+     * temp as the directory is about to be deleted. */
     public void ensureOutputDataIsRead() {
         for (Output p : m_outputs) {
             if (p.object instanceof BufferedDataTable) {
-                ((BufferedDataTable)p.object).ensureOpen();
+                ((BufferedDataTable)p.object).ensureCopiedToTemp();
             }
         }
         for (ContainerTable t : m_localTempTables) {
-            t.ensureOpen();
+            t.ensureCopiedToTemp();
         }
     }
 
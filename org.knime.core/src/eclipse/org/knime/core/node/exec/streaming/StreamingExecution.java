@@ -0,0 +1,1086 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.exec.streaming;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.port.inactive.InactiveBranchPortObjectSpec;
+import org.knime.core.node.streamable.DataTableRowInput;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.MergeOperator;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortObjectInput;
+import org.knime.core.node.streamable.PortObjectOutput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.core.node.streamable.StreamableOperatorInternals;
+import org.knime.core.node.workflow.ConnectionContainer;
+import org.knime.core.node.workflow.LoopEndNode;
+import org.knime.core.node.workflow.LoopStartNode;
+import org.knime.core.node.workflow.NativeNodeContainer;
+import org.knime.core.node.workflow.NodeContainer;
+import org.knime.core.node.workflow.NodeContext;
+import org.knime.core.node.workflow.NodeID;
+import org.knime.core.node.workflow.NodeMessage;
+import org.knime.core.node.workflow.NodeMessage.Type;
+import org.knime.core.node.workflow.NodeOutPort;
+import org.knime.core.node.workflow.SubNodeContainer;
+import org.knime.core.node.workflow.WorkflowManager;
+import org.knime.core.node.workflow.execresult.NodeContainerExecutionStatus;
+
+/**
+ * A single streamed execution of the content of a wrapped metanode. Each contained node runs in its own worker
+ * thread, and each partition of a distributed node in another one; these threads are created for each execution. A table that is consumed by a node with a single, streamable table input is passed in chunks through a
+ * bounded queue; all other inputs are staged into a table first. Nodes with a distributable input are run in
+ * several partitions, whose output is merged back in input order.
+ *
+ * <p>
+ * Only nodes with exactly one connected input read from a queue (and do not wait for anything else), which
+ * guarantees that each bounded queue is eventually drained and the execution can not deadlock.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class StreamingExecution {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(StreamingExecution.class);
+
+    /** Number of rows handed over to a downstream queue at once. */
+    static final int CHUNK_SIZE = 256;
+
+    /** Number of chunks a queue between two nodes holds before the producer blocks. */
+    static final int QUEUE_CAPACITY = 16;
+
+    /** Number of rows dispatched to one partition of a distributed node at once. */
+    static final int BATCH_SIZE = 4096;
+
+    /** Number of batches buffered per partition. */
+    private static final int PARTITION_QUEUE_CAPACITY = 2;
+
+    private final SubNodeContainer m_subNode;
+
+    private final WorkflowManager m_wfm;
+
+    private final int m_numPartitions;
+
+    private final Map<NodeID, StreamedNode> m_nodes = new LinkedHashMap<>();
+
+    private final List<Future<?>> m_futures = new CopyOnWriteArrayList<>();
+
+    /** The workers of this execution, see {@link #createExecutor()}. */
+    private ExecutorService m_executor;
+
+    private final AtomicBoolean m_failed = new AtomicBoolean();
+
+    /**
+     * @param subNode the wrapped metanode whose content is executed
+     * @param numPartitions number of partitions of distributable nodes
+     */
+    StreamingExecution(final SubNodeContainer subNode, final int numPartitions) {
+        m_subNode = subNode;
+        m_wfm = subNode.getWorkflowManager();
+        m_numPartitions = numPartitions;
+    }
+
+    /**
+     * Runs all contained nodes and waits for them to finish.
+     *
+     * @return the execution status, with a child status for each contained node
+     */
+    NodeContainerExecutionStatus execute() {
+        m_subNode.setNodeMessage(NodeMessage.NONE);
+        try {
+            build();
+        } catch (InvalidSettingsException | IllegalStateException e) {
+            LOGGER.debug("Unable to stream " + m_subNode.getNameWithID() + ": " + e.getMessage(), e);
+            m_subNode.setNodeMessage(new NodeMessage(Type.ERROR, e.getMessage()));
+            return NodeContainerExecutionStatus.newFailure(e.getMessage());
+        }
+        m_executor = createExecutor();
+        boolean interrupted = false;
+        try {
+            for (StreamedNode node : m_nodes.values()) {
+                m_futures.add(m_executor.submit(node));
+            }
+            for (StreamedNode node : m_nodes.values()) {
+                while (true) {
+                    try {
+                        node.m_finished.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        // job got canceled, stop all workers and wait for them to return
+                        interrupted = true;
+                        cancelAll();
+                    }
+                }
+            }
+        } finally {
+            // partition workers may still be returning after their node has finished
+            m_executor.shutdownNow();
+        }
+        final Map<Integer, NodeContainerExecutionStatus> childStatus = new HashMap<>();
+        boolean success = !interrupted;
+        for (StreamedNode node : m_nodes.values()) {
+            if (node.m_success) {
+                node.m_nnc.getNode().assignInternalHeldObjects(
+                    new PortObject[0], null, node.m_exec, new PortObject[0]);
+            }
+            success &= node.m_success;
+            childStatus.put(node.m_nnc.getID().getIndex(), node.m_success
+                ? NodeContainerExecutionStatus.SUCCESS : NodeContainerExecutionStatus.FAILURE);
+        }
+        if (interrupted) {
+            m_subNode.setNodeMessage(new NodeMessage(Type.WARNING, "Execution canceled"));
+            Thread.currentThread().interrupt();
+        } else if (!success) {
+            m_subNode.setNodeMessage(new NodeMessage(Type.ERROR, "Not all contained nodes are executed:\n"
+                + m_wfm.printNodeSummary(m_wfm.getID(), 0)));
+        }
+        return new StreamingExecutionStatus(success, childStatus);
+    }
+
+    /** Creates a {@link StreamedNode} for each node to execute and wires their inputs and outputs. */
+    private void build() throws InvalidSettingsException {
+        final Map<NodeID, NativeNodeContainer> executed = new HashMap<>();
+        for (NodeContainer nc : m_wfm.getNodeContainers()) {
+            if (!(nc instanceof NativeNodeContainer)) {
+                throw new IllegalStateException(
+                    "Nested metanodes can not be streamed: " + nc.getNameWithID());
+            }
+            NativeNodeContainer nnc = (NativeNodeContainer)nc;
+            if (nnc.getNodeContainerState().isExecuted()) {
+                executed.put(nnc.getID(), nnc);
+                continue;
+            }
+            if (nnc.getNode().isModelCompatibleTo(LoopStartNode.class)
+                || nnc.getNode().isModelCompatibleTo(LoopEndNode.class)) {
+                throw new IllegalStateException("Loops can not be streamed: " + nnc.getNameWithID());
+            }
+            m_nodes.put(nnc.getID(), new StreamedNode(nnc));
+        }
+        for (StreamedNode node : m_nodes.values()) {
+            final NativeNodeContainer nnc = node.m_nnc;
+            final Map<Integer, ConnectionContainer> incoming = new HashMap<>();
+            for (ConnectionContainer cc : m_wfm.getIncomingConnectionsFor(nnc.getID())) {
+                if (cc.getDestPort() == 0 || cc.getSourcePort() == 0) {
+                    // flow variable connection, only defines an order
+                    StreamedNode source = m_nodes.get(cc.getSource());
+                    if (source != null) {
+                        node.m_dependencies.add(source);
+                    }
+                } else {
+                    incoming.put(cc.getDestPort() - 1, cc);
+                }
+            }
+            final boolean mayStream = node.m_dependencies.isEmpty() && node.m_initialInternals == null
+                && incoming.size() == 1;
+            for (Map.Entry<Integer, ConnectionContainer> e : incoming.entrySet()) {
+                final int port = e.getKey();
+                final ConnectionContainer cc = e.getValue();
+                final NodeOutPort sourcePort = m_wfm.getNodeContainer(cc.getSource()).getOutPort(cc.getSourcePort());
+                final boolean isTable = isTable(sourcePort.getPortType());
+                final boolean isStreamed = isTable && node.m_inRoles[port].isStreamable();
+                final NativeNodeContainer executedSource = executed.get(cc.getSource());
+                if (executedSource != null) {
+                    node.m_inputs[port] = new Staged(sourcePort.getPortObject(), isStreamed);
+                    continue;
+                }
+                final StreamedNode source = m_nodes.get(cc.getSource());
+                if (source == null) {
+                    throw new IllegalStateException("Unknown source of connection " + cc);
+                }
+                final PortSink sink;
+                if (isStreamed && mayStream) {
+                    sink = new RowQueue((DataTableSpec)node.m_inSpecs[port]);
+                } else if (isTable) {
+                    sink = new Staged(node.m_exec, (DataTableSpec)node.m_inSpecs[port], isStreamed);
+                } else {
+                    sink = new Staged(null, null, false);
+                }
+                node.m_inputs[port] = (PortInputSource)sink;
+                source.m_outSinks.get(cc.getSourcePort() - 1).add(sink);
+            }
+        }
+    }
+
+    /**
+     * Creates the workers of this execution. All contained nodes run at the same time and block on each other,
+     * hence the workers can not be taken from the (bounded) KNIME thread pool. Instead each execution gets its own
+     * pool, which is bounded by one thread per contained node plus one thread per partition of each distributed
+     * node. The pool is shut down when the execution returns.
+     */
+    private ExecutorService createExecutor() {
+        int nrThreads = 0;
+        for (StreamedNode node : m_nodes.values()) {
+            nrThreads += node.isDistributed() ? 1 + m_numPartitions : 1;
+        }
+        nrThreads = Math.max(nrThreads, 1);
+        // no queue: a task beyond the bound is rejected rather than waiting for a blocked worker forever
+        return new ThreadPoolExecutor(nrThreads, nrThreads, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(),
+            new StreamingThreadFactory(m_subNode.getID().toString()));
+    }
+
+    private static boolean isTable(final PortType type) {
+        return BufferedDataTable.class.isAssignableFrom(type.getPortObjectClass());
+    }
+
+    /** Marks the execution as failed and stops all workers. */
+    private void fail(final StreamedNode node, final Throwable t) {
+        if (m_failed.compareAndSet(false, true)) {
+            String msg = t.getMessage();
+            if (msg == null || msg.isEmpty()) {
+                msg = "Execute failed: " + t.getClass().getSimpleName();
+            }
+            if (t instanceof CanceledExecutionException || t instanceof InterruptedException) {
+                node.m_nnc.setNodeMessage(new NodeMessage(Type.WARNING, "Execution canceled"));
+            } else {
+                LOGGER.error("Streaming execution of " + node.m_nnc.getNameWithID() + " failed: " + msg, t);
+                node.m_nnc.setNodeMessage(new NodeMessage(Type.ERROR, msg));
+            }
+            cancelAll();
+        }
+    }
+
+    private void cancelAll() {
+        m_failed.set(true);
+        for (Future<?> f : m_futures) {
+            f.cancel(true);
+        }
+    }
+
+    /** Waits for a partition worker, see {@link StreamedNode#runDistributed(PortInput[], PortOutput[])}. */
+    private static void waitFor(final Future<?> future) throws Exception {
+        try {
+            future.get();
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception)cause;
+            }
+            throw ee;
+        }
+    }
+
+    /** The execution of a single contained node. */
+    private final class StreamedNode implements Runnable {
+
+        private final NativeNodeContainer m_nnc;
+
+        private final NodeModel m_model;
+
+        private final ExecutionContext m_exec;
+
+        private final PortObjectSpec[] m_inSpecs;
+
+        private final InputPortRole[] m_inRoles;
+
+        private final OutputPortRole[] m_outRoles;
+
+        private final StreamableOperatorInternals m_initialInternals;
+
+        /** Input sources per model input port, null for unconnected optional inputs. */
+        private final PortInputSource[] m_inputs;
+
+        /** Consumers per model output port. */
+        private final List<List<PortSink>> m_outSinks;
+
+        private final List<StreamedNode> m_dependencies = new ArrayList<>();
+
+        private final CountDownLatch m_finished = new CountDownLatch(1);
+
+        private volatile boolean m_success;
+
+        StreamedNode(final NativeNodeContainer nnc) throws InvalidSettingsException {
+            m_nnc = nnc;
+            m_model = nnc.getNodeModel();
+            m_exec = nnc.createExecutionContext();
+            final int nrIns = nnc.getNrInPorts() - 1;
+            m_inSpecs = new PortObjectSpec[nrIns];
+            for (ConnectionContainer cc : m_wfm.getIncomingConnectionsFor(nnc.getID())) {
+                if (cc.getDestPort() == 0) {
+                    continue;
+                }
+                PortObjectSpec spec =
+                    m_wfm.getNodeContainer(cc.getSource()).getOutPort(cc.getSourcePort()).getPortObjectSpec();
+                if (spec == null) {
+                    throw new IllegalStateException("Node is not configured: " + nnc.getNameWithID());
+                }
+                if (spec instanceof InactiveBranchPortObjectSpec) {
+                    throw new IllegalStateException("Inactive branches can not be streamed: " + nnc.getNameWithID());
+                }
+                m_inSpecs[cc.getDestPort() - 1] = spec;
+            }
+            m_inRoles = m_model.getInputPortRoles();
+            m_outRoles = m_model.getOutputPortRoles();
+            m_initialInternals = m_model.createInitialStreamableOperatorInternals();
+            m_inputs = new PortInputSource[nrIns];
+            final int nrOuts = nnc.getNrOutPorts() - 1;
+            m_outSinks = new ArrayList<>(nrOuts);
+            for (int i = 0; i < nrOuts; i++) {
+                m_outSinks.add(new ArrayList<>());
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void run() {
+            NodeContext.pushContext(m_nnc);
+            try {
+                for (StreamedNode dependency : m_dependencies) {
+                    dependency.m_finished.await();
+                    if (!dependency.m_success) {
+                        throw new CanceledExecutionException();
+                    }
+                }
+                final PortOutput[] outputs = new PortOutput[m_outSinks.size()];
+                for (int i = 0; i < outputs.length; i++) {
+                    outputs[i] = isTable(m_nnc.getOutPort(i + 1).getPortType())
+                        ? new FanOutRowOutput(m_outSinks.get(i)) : new PortObjectOutput();
+                }
+                if (isDistributed()) {
+                    runDistributed(createInputs(), outputs);
+                } else {
+                    runLocal(outputs);
+                }
+                for (int i = 0; i < outputs.length; i++) {
+                    if (outputs[i] instanceof FanOutRowOutput) {
+                        ((FanOutRowOutput)outputs[i]).close();
+                    } else {
+                        final PortObject po = ((PortObjectOutput)outputs[i]).getPortObject();
+                        for (PortSink sink : m_outSinks.get(i)) {
+                            sink.setPortObject(po);
+                        }
+                    }
+                }
+                m_success = true;
+            } catch (Throwable t) {
+                fail(this, t);
+            } finally {
+                for (PortInputSource in : m_inputs) {
+                    if (in instanceof RowQueue) {
+                        ((RowQueue)in).close();
+                    }
+                }
+                m_finished.countDown();
+                NodeContext.removeLastContext();
+            }
+        }
+
+        private PortInput[] createInputs() throws InterruptedException {
+            final PortInput[] inputs = new PortInput[m_inputs.length];
+            for (int i = 0; i < inputs.length; i++) {
+                if (m_inputs[i] != null) {
+                    inputs[i] = m_inputs[i].getInput();
+                }
+            }
+            return inputs;
+        }
+
+        private void runLocal(final PortOutput[] outputs) throws Exception {
+            final StreamableOperator op = m_model.createStreamableOperator(new PartitionInfo(0, 1), m_inSpecs);
+            final MergeOperator mergeOp = m_model.createMergeOperator();
+            StreamableOperatorInternals internals = m_initialInternals;
+            if (internals != null) {
+                op.loadInternals(internals);
+                while (m_model.iterate(internals)) {
+                    op.runIntermediate(createInputs(), m_exec);
+                    internals = op.saveInternals();
+                    if (mergeOp != null) {
+                        internals = mergeOp.mergeIntermediate(new StreamableOperatorInternals[]{internals});
+                    }
+                    op.loadInternals(internals);
+                }
+            }
+            op.runFinal(createInputs(), outputs, m_exec);
+            if (mergeOp != null) {
+                internals = mergeOp.mergeFinal(new StreamableOperatorInternals[]{op.saveInternals()});
+                m_model.finishStreamableExecution(internals, m_exec, outputs);
+            }
+        }
+
+        /**
+         * A node is run in partitions if its only input is streamed from a queue and distributable, all its
+         * outputs are distributable tables and it does not iterate on its input.
+         */
+        private boolean isDistributed() {
+            if (m_numPartitions < 2 || m_initialInternals != null || m_inputs.length != 1
+                || !(m_inputs[0] instanceof RowQueue) || !m_inRoles[0].isDistributable()) {
+                return false;
+            }
+            for (int i = 0; i < m_outRoles.length; i++) {
+                if (!m_outRoles[i].isDistributable() || !isTable(m_nnc.getOutPort(i + 1).getPortType())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void runDistributed(final PortInput[] inputs, final PortOutput[] outputs) throws Exception {
+            final RowInput source = (RowInput)inputs[0];
+            final OrderedMerger merger = new OrderedMerger(outputs);
+            final PartitionInput[] partitions = new PartitionInput[m_numPartitions];
+            final StreamableOperator[] ops = new StreamableOperator[m_numPartitions];
+            final List<Future<?>> partitionFutures = new ArrayList<>(m_numPartitions);
+            for (int p = 0; p < m_numPartitions; p++) {
+                partitions[p] = new PartitionInput(source.getDataTableSpec(), merger);
+                ops[p] = m_model.createStreamableOperator(new PartitionInfo(p, m_numPartitions), m_inSpecs);
+            }
+            for (int p = 0; p < m_numPartitions; p++) {
+                final StreamableOperator op = ops[p];
+                final PartitionInput partition = partitions[p];
+                final PortOutput[] partitionOutputs = new PortOutput[outputs.length];
+                for (int i = 0; i < outputs.length; i++) {
+                    partitionOutputs[i] = new PartitionRowOutput(partition, i);
+                }
+                Future<?> f = m_executor.submit(() -> {
+                    NodeContext.pushContext(m_nnc);
+                    try {
+                        op.runFinal(new PortInput[]{partition}, partitionOutputs, m_exec);
+                        partition.finish();
+                        return null;
+                    } catch (Exception e) {
+                        // unblock the dispatcher
+                        partition.close();
+                        throw e;
+                    } finally {
+                        NodeContext.removeLastContext();
+                    }
+                });
+                m_futures.add(f);
+                partitionFutures.add(f);
+            }
+            try {
+                // dispatch batches round-robin, a slow partition blocks the dispatcher
+                long batchIndex = 0;
+                List<DataRow> batch = new ArrayList<>(BATCH_SIZE);
+                DataRow row;
+                while ((row = source.poll()) != null) {
+                    batch.add(row);
+                    if (batch.size() == BATCH_SIZE) {
+                        partitions[(int)(batchIndex % m_numPartitions)].offer(new Batch(batchIndex, batch));
+                        batchIndex++;
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    partitions[(int)(batchIndex % m_numPartitions)].offer(new Batch(batchIndex, batch));
+                }
+                for (PartitionInput partition : partitions) {
+                    partition.offer(Batch.END);
+                }
+                for (Future<?> f : partitionFutures) {
+                    waitFor(f);
+                }
+            } finally {
+                for (Future<?> f : partitionFutures) {
+                    f.cancel(true);
+                }
+            }
+            merger.finish(partitions);
+            final MergeOperator mergeOp = m_model.createMergeOperator();
+            if (mergeOp != null) {
+                final StreamableOperatorInternals[] internals = new StreamableOperatorInternals[m_numPartitions];
+                for (int p = 0; p < m_numPartitions; p++) {
+                    internals[p] = ops[p].saveInternals();
+                }
+                m_model.finishStreamableExecution(mergeOp.mergeFinal(internals), m_exec, outputs);
+            }
+        }
+    }
+
+    /** Receiver of the output of a node. */
+    private interface PortSink {
+
+        /** Adds a row, called by the producing node. */
+        void add(DataRow row) throws InterruptedException;
+
+        /** Adds an entire table, called instead of {@link #add(DataRow)}. */
+        void addAll(BufferedDataTable table) throws InterruptedException;
+
+        /** Sets the result of a non-table port, called instead of {@link #add(DataRow)}. */
+        void setPortObject(PortObject po);
+
+        /** Signals that all data has been added. */
+        void finish() throws InterruptedException;
+
+        /** @return whether the consumer does not read any more rows. */
+        boolean isClosed();
+    }
+
+    /** Provider of the input of a node. */
+    private interface PortInputSource {
+
+        /** @return the input passed to the operator, possibly blocking until the data is available. */
+        PortInput getInput() throws InterruptedException;
+    }
+
+    /** Input that is collected entirely before the consuming node reads it. */
+    private static final class Staged implements PortSink, PortInputSource {
+
+        private final ExecutionContext m_exec;
+
+        private final DataTableSpec m_spec;
+
+        private final boolean m_isStreamed;
+
+        private final CountDownLatch m_done = new CountDownLatch(1);
+
+        private BufferedDataContainer m_container;
+
+        private PortObject m_portObject;
+
+        /** An input that is filled by the producing node.
+         * @param exec context of the consuming node, used to create the table, null for non-table ports
+         * @param spec the spec of the table, null for non-table ports
+         * @param isStreamed whether the consumer reads the table row by row */
+        Staged(final ExecutionContext exec, final DataTableSpec spec, final boolean isStreamed) {
+            m_exec = exec;
+            m_spec = spec;
+            m_isStreamed = isStreamed;
+        }
+
+        /** An input whose data is already available.
+         * @param po the port object
+         * @param isStreamed whether the consumer reads the table row by row */
+        Staged(final PortObject po, final boolean isStreamed) {
+            this(null, null, isStreamed);
+            m_portObject = po;
+            m_done.countDown();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void add(final DataRow row) {
+            if (m_container == null) {
+                m_container = m_exec.createDataContainer(m_spec);
+            }
+            m_container.addRowToTable(row);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void addAll(final BufferedDataTable table) {
+            m_portObject = table;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setPortObject(final PortObject po) {
+            m_portObject = po;
+            m_done.countDown();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void finish() {
+            if (m_portObject == null) {
+                if (m_container == null) {
+                    m_container = m_exec.createDataContainer(m_spec);
+                }
+                m_container.close();
+                m_portObject = m_container.getTable();
+                m_container = null;
+            }
+            m_done.countDown();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean isClosed() {
+            return false;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public PortInput getInput() throws InterruptedException {
+            m_done.await();
+            if (m_isStreamed) {
+                return new DataTableRowInput((BufferedDataTable)m_portObject);
+            }
+            return new PortObjectInput(m_portObject);
+        }
+    }
+
+    /** Bounded queue of row chunks between two concurrently running nodes. */
+    private static final class RowQueue extends RowInput implements PortSink, PortInputSource {
+
+        private static final List<DataRow> END = Collections.emptyList();
+
+        private final DataTableSpec m_spec;
+
+        private final BlockingQueue<List<DataRow>> m_queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        /** Chunk the producer is currently filling. */
+        private List<DataRow> m_producerChunk = new ArrayList<>(CHUNK_SIZE);
+
+        /** Chunk the consumer is currently reading. */
+        private List<DataRow> m_consumerChunk;
+
+        private int m_consumerIndex;
+
+        private volatile boolean m_closed;
+
+        RowQueue(final DataTableSpec spec) {
+            m_spec = spec;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void add(final DataRow row) throws InterruptedException {
+            m_producerChunk.add(row);
+            if (m_producerChunk.size() == CHUNK_SIZE) {
+                put(m_producerChunk);
+                m_producerChunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void addAll(final BufferedDataTable table) throws InterruptedException {
+            for (DataRow row : table) {
+                if (m_closed) {
+                    return;
+                }
+                add(row);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setPortObject(final PortObject po) {
+            throw new IllegalStateException("Queue only accepts rows");
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void finish() throws InterruptedException {
+            if (!m_producerChunk.isEmpty()) {
+                put(m_producerChunk);
+            }
+            m_producerChunk = null;
+            put(END);
+        }
+
+        private void put(final List<DataRow> chunk) throws InterruptedException {
+            while (!m_closed) {
+                if (m_queue.offer(chunk, 1, TimeUnit.SECONDS)) {
+                    return;
+                }
+            }
+            // consumer is done - rows are dropped
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean isClosed() {
+            return m_closed;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public PortInput getInput() {
+            return this;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public DataTableSpec getDataTableSpec() {
+            return m_spec;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public DataRow poll() throws InterruptedException {
+            if (m_consumerChunk == END || m_closed) {
+                return null;
+            }
+            while (m_consumerChunk == null || m_consumerIndex >= m_consumerChunk.size()) {
+                m_consumerChunk = m_queue.take();
+                m_consumerIndex = 0;
+                if (m_consumerChunk == END) {
+                    return null;
+                }
+            }
+            return m_consumerChunk.get(m_consumerIndex++);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() {
+            m_closed = true;
+            m_queue.clear();
+        }
+    }
+
+    /** Row output of a node that forwards all rows to its consumers. */
+    private static final class FanOutRowOutput extends RowOutput {
+
+        private final List<PortSink> m_sinks;
+
+        private boolean m_hasRows;
+
+        private boolean m_closed;
+
+        FanOutRowOutput(final List<PortSink> sinks) {
+            m_sinks = sinks;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void push(final DataRow row) throws InterruptedException {
+            m_hasRows = true;
+            for (PortSink sink : m_sinks) {
+                if (!sink.isClosed()) {
+                    sink.add(row);
+                }
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setFully(final BufferedDataTable table) throws InterruptedException {
+            if (m_hasRows) {
+                throw new IllegalStateException("Rows were added previously");
+            }
+            for (PortSink sink : m_sinks) {
+                sink.addAll(table);
+            }
+            close();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() throws InterruptedException {
+            if (!m_closed) {
+                m_closed = true;
+                for (PortSink sink : m_sinks) {
+                    sink.finish();
+                }
+            }
+        }
+    }
+
+    /** A batch of rows of a distributed node, identified by its position in the input. */
+    private static final class Batch {
+
+        static final Batch END = new Batch(-1, Collections.emptyList());
+
+        private final long m_index;
+
+        private final List<DataRow> m_rows;
+
+        Batch(final long index, final List<DataRow> rows) {
+            m_index = index;
+            m_rows = rows;
+        }
+    }
+
+    /** Input of one partition of a distributed node, receives every n-th batch of the input. The output of a
+     * batch consists of the rows pushed while the batch was read. */
+    private static final class PartitionInput extends RowInput {
+
+        private final DataTableSpec m_spec;
+
+        private final OrderedMerger m_merger;
+
+        private final BlockingQueue<Batch> m_queue = new ArrayBlockingQueue<>(PARTITION_QUEUE_CAPACITY);
+
+        private Batch m_current;
+
+        private int m_currentIndex;
+
+        private List<List<DataRow>> m_currentOutput;
+
+        /** Rows pushed after the input was read entirely (or before it was read at all). */
+        private final List<List<DataRow>> m_trailingOutput;
+
+        private boolean m_ended;
+
+        private volatile boolean m_closed;
+
+        PartitionInput(final DataTableSpec spec, final OrderedMerger merger) {
+            m_spec = spec;
+            m_merger = merger;
+            m_trailingOutput = merger.newOutput();
+        }
+
+        void offer(final Batch batch) throws InterruptedException {
+            while (!m_closed) {
+                if (m_queue.offer(batch, 1, TimeUnit.SECONDS)) {
+                    if (m_closed) {
+                        // operator returned concurrently, the batch may not have been seen by finish()
+                        drain();
+                    }
+                    return;
+                }
+            }
+            // operator is done reading, still the batch's position needs to be accounted for
+            if (batch != Batch.END) {
+                m_merger.complete(batch.m_index, m_merger.newOutput());
+            }
+        }
+
+        /** Completes all queued batches without output, only called after the operator is done. */
+        private void drain() throws InterruptedException {
+            Batch next;
+            while ((next = m_queue.poll()) != null) {
+                if (next != Batch.END) {
+                    m_merger.complete(next.m_index, m_merger.newOutput());
+                }
+            }
+        }
+
+        void push(final int port, final DataRow row) {
+            (m_currentOutput != null ? m_currentOutput : m_trailingOutput).get(port).add(row);
+        }
+
+        List<List<DataRow>> getTrailingOutput() {
+            return m_trailingOutput;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public DataTableSpec getDataTableSpec() {
+            return m_spec;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public DataRow poll() throws InterruptedException {
+            if (m_ended) {
+                return null;
+            }
+            while (m_current == null || m_currentIndex >= m_current.m_rows.size()) {
+                completeCurrent();
+                Batch next = m_queue.take();
+                if (next == Batch.END) {
+                    m_ended = true;
+                    return null;
+                }
+                m_current = next;
+                m_currentIndex = 0;
+                m_currentOutput = m_merger.newOutput();
+            }
+            return m_current.m_rows.get(m_currentIndex++);
+        }
+
+        private void completeCurrent() throws InterruptedException {
+            if (m_current != null) {
+                m_merger.complete(m_current.m_index, m_currentOutput);
+                m_current = null;
+                m_currentOutput = null;
+            }
+        }
+
+        /** Called after the operator returned, completes all pending batches. */
+        void finish() throws InterruptedException {
+            completeCurrent();
+            close();
+            drain();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() {
+            m_closed = true;
+        }
+    }
+
+    /** Output of one partition, rows are collected in the batch currently read. */
+    private static final class PartitionRowOutput extends RowOutput {
+
+        private final PartitionInput m_partition;
+
+        private final int m_port;
+
+        PartitionRowOutput(final PartitionInput partition, final int port) {
+            m_partition = partition;
+            m_port = port;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void push(final DataRow row) {
+            m_partition.push(m_port, row);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() {
+            // output is finished when all partitions are done
+        }
+    }
+
+    /** Forwards the output of the batches of all partitions in the order of the input. */
+    private static final class OrderedMerger {
+
+        private final PortOutput[] m_outputs;
+
+        private final Map<Long, List<List<DataRow>>> m_pending = new HashMap<>();
+
+        private long m_next;
+
+        OrderedMerger(final PortOutput[] outputs) {
+            m_outputs = outputs;
+        }
+
+        List<List<DataRow>> newOutput() {
+            List<List<DataRow>> result = new ArrayList<>(m_outputs.length);
+            for (int i = 0; i < m_outputs.length; i++) {
+                result.add(new ArrayList<>());
+            }
+            return result;
+        }
+
+        synchronized void complete(final long batchIndex, final List<List<DataRow>> output)
+            throws InterruptedException {
+            m_pending.put(batchIndex, output);
+            List<List<DataRow>> next;
+            while ((next = m_pending.remove(m_next)) != null) {
+                forward(next);
+                m_next++;
+            }
+        }
+
+        /** Forwards the rows pushed outside any batch, in partition order. */
+        synchronized void finish(final PartitionInput[] partitions) throws InterruptedException {
+            assert m_pending.isEmpty() : "Not all batches completed";
+            for (PartitionInput partition : partitions) {
+                forward(partition.getTrailingOutput());
+            }
+        }
+
+        private void forward(final List<List<DataRow>> output) throws InterruptedException {
+            for (int i = 0; i < m_outputs.length; i++) {
+                RowOutput rowOutput = (RowOutput)m_outputs[i];
+                for (DataRow row : output.get(i)) {
+                    rowOutput.push(row);
+                }
+            }
+        }
+    }
+
+    /** Execution status with a child status for each contained node. */
+    private static final class StreamingExecutionStatus implements NodeContainerExecutionStatus {
+
+        private final boolean m_success;
+
+        private final Map<Integer, NodeContainerExecutionStatus> m_childStatus;
+
+        StreamingExecutionStatus(final boolean success, final Map<Integer, NodeContainerExecutionStatus> status) {
+            m_success = success;
+            m_childStatus = status;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean isSuccess() {
+            return m_success;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public NodeContainerExecutionStatus getChildStatus(final int idSuffix) {
+            // nodes that were executed before are not part of the map
+            NodeContainerExecutionStatus status = m_childStatus.get(idSuffix);
+            return status == null ? NodeContainerExecutionStatus.SUCCESS : status;
+        }
+    }
+
+    /** Creates daemon worker threads for one execution. */
+    private static final class StreamingThreadFactory implements ThreadFactory {
+
+        private final String m_prefix;
+
+        private final AtomicInteger m_count = new AtomicInteger();
+
+        /** @param id the id of the executed wrapped metanode, part of the thread names */
+        StreamingThreadFactory(final String id) {
+            m_prefix = "KNIME-Streaming-Worker-" + id + "-";
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Thread newThread(final Runnable r) {
+            Thread t = new Thread(r, m_prefix + m_count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -74,4 +74,16 @@ public interface LoopStartParallelizeNode extends LoopStartNode {
      * @param pccm matching @see{ParallelizedChunkContentMaster}
      */
     public void setChunkMaster(final ParallelizedChunkContentMaster pccm);
+
+    /** Whether the loop body is to be copied into parallel chunks after the node has been executed. Loop start nodes
+     * that only optionally run iterations in parallel return false if the current execution did not produce any
+     * remote chunks, in which case the loop continues as an ordinary loop (and may be closed by an end node that is
+     * not a {@link LoopEndParallelizeNode}).
+     *
+     * @return true by default
+     * @since 3.6
+     */
+    public default boolean isParallelizeLoop() {
+        return true;
+    }
 }
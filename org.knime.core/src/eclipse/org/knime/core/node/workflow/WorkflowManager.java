@@ -3035,7 +3035,8 @@ void doAfterExecution(final NodeContainer nc, final NodeContainerExecutionStatus
                 if (success) {
                     Node node = nnc.getNode();
                     // process start of bundle of parallel chunks
-                    if (node.getNodeModel() instanceof LoopStartParallelizeNode && !node.isInactive()) {
+                    if (node.getNodeModel() instanceof LoopStartParallelizeNode && !node.isInactive()
+                        && ((LoopStartParallelizeNode)node.getNodeModel()).isParallelizeLoop()) {
                         try {
                             parallelizeLoop(nc.getID());
                         } catch (Exception e) {
@@ -8426,7 +8427,7 @@ private void setDirtyAll() {
             }
         }
         for (ContainerTable t : m_globalTableRepository.values()) {
-            t.ensureOpen();
+            t.ensureCopiedToTemp();
         }
         for (IWriteFileStoreHandler writeFileStoreHandler : m_fileStoreHandlerRepository.getWriteFileStoreHandlers()) {
             try {
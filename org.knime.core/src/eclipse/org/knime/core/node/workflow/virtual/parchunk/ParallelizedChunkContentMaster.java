@@ -176,7 +176,7 @@ public void cancelChunkExecution() {
         synchronized (m_chunks) {
             for (int i = 0; i < m_chunks.length; i++) {
                 ParallelizedChunkContent pbc = m_chunks[i];
-                if (pbc.executionInProgress()) {
+                if (pbc != null && pbc.executionInProgress()) {
                     pbc.cancelExecution();
                 }
             }
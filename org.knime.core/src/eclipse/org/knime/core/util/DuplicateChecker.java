@@ -46,34 +46,51 @@
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Set;
 
+import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
 import org.knime.core.node.KNIMEConstants;
 
 /**
  * This class checks for duplicates in an (almost) arbitrary number of strings.
- * This can be used to check for e.g. unique row keys. The checking is done in
- * two stages: first new keys are added to a set. If the set already contains a
- * key an exception is thrown. If the set gets bigger than the maximum chunk
- * size it is written to disk and the set is cleared. If then after adding all
- * keys {@link #checkForDuplicates()} is called all created chunks are processed
- * and sorted by a merge sort like algorithm. If any duplicate keys are detected
- * during this process an exception is thrown.
+ * This can be used to check for e.g. unique row keys. Each new key is reduced
+ * to a 64-bit fingerprint, which is added to an in-memory hash set together
+ * with the position of the key in a compact key log. If the set already
+ * contains the fingerprint the key at that position is compared to the new
+ * key, i.e. keys are only compared exactly if their fingerprints collide, and
+ * an exception is thrown if they are equal. Distinct keys with the same
+ * fingerprint are remembered and compared by {@link #checkForDuplicates()}. In
+ * the common case all keys fit into memory and {@link #checkForDuplicates()}
+ * has nothing left to do.
+ *
+ * <p>Only if memory gets low (or the maximum chunk size passed to the
+ * constructor is reached) the fingerprints are sorted and written to disk as
+ * one chunk and the key log is appended to a temporary file. After adding all
+ * keys {@link #checkForDuplicates()} merges the sorted chunks of fingerprints
+ * and verifies fingerprints contained in more than one chunk against the key
+ * log. If any duplicate keys are detected during this process an exception is
+ * thrown.
  *
  * <p>Note: This implementation is not thread-safe, it's supposed to be used
  * by a single thread only.
@@ -81,6 +98,7 @@
  * @author Thorsten Meinl, University of Konstanz
  */
 public class DuplicateChecker {
+    /** A sorted chunk of fingerprints written to disk. */
     private static class Chunk {
         private final File m_file;
         private DataOutputStream m_out;
@@ -88,29 +106,15 @@ private static class Chunk {
 
         public Chunk() throws IOException {
             m_file = FileUtil.createTempFile("KNIME_DuplicateChecker", ".bin", false);
+            synchronized (ALL_FILES) { ALL_FILES.add(m_file); }
             m_out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(m_file)));
         }
 
-        public void addKeys(final Set<String> keys) throws IOException {
-            if (m_out == null) {
-                throw new IllegalStateException("Chunck has already been closed");
-            }
-
-            String[] sorted = keys.toArray(new String[keys.size()]);
-            Arrays.sort(sorted);
-
-            for (String s : sorted) {
-                m_out.writeUTF(s);
-                m_count++;
-            }
-        }
-
-        public void addKey(final String key) throws IOException {
+        public void addFingerprint(final long fingerprint) throws IOException {
             if (m_out == null) {
                 throw new IllegalStateException("Chunck has already been closed");
             }
-
-            m_out.writeUTF(key);
+            m_out.writeLong(fingerprint);
             m_count++;
         }
 
@@ -122,84 +126,253 @@ public void close() throws IOException {
             m_out = null;
         }
 
-        public Iterator<String> iterator() throws FileNotFoundException {
+        public DataInputStream open() throws IOException {
             if (m_out != null) {
-                throw new IllegalStateException("Bucket has not been closed yet");
+                throw new IllegalStateException("Chunk has not been closed yet");
             }
-            return new Iterator<String>() {
-                private DataInputStream m_in;
-                private long m_read;
+            return new DataInputStream(new BufferedInputStream(new FileInputStream(m_file)));
+        }
+
+        public long size() {
+            return m_count;
+        }
 
-                {
-                    m_in = new DataInputStream(new BufferedInputStream(new FileInputStream(m_file)));
+        public void dispose() {
+            if (m_out != null) {
+                try {
+                    m_out.close();
+                } catch (IOException ex) {
+                    // ignore, file is deleted anyway
                 }
+                m_out = null;
+            }
+            m_file.delete();
+            synchronized (ALL_FILES) { ALL_FILES.remove(m_file); }
+        }
+    }
 
-                @Override
-                public boolean hasNext() {
-                    boolean b = (m_read < m_count);
-                    if (!b && (m_in != null)) {
-                        try {
-                            m_in.close();
-                            m_in = null;
-                        } catch (IOException ex) {
-                            throw new RuntimeException(ex);
-                        }
+    /**
+     * The keys added to the checker, kept in memory in pages of growing size
+     * and appended to a temporary file when memory gets low. Each key is
+     * stored as its length followed by its characters, all encoded as
+     * variable length integers (one byte for ASCII characters).
+     */
+    private static final class KeyLog {
+        private static final int MIN_PAGE_SIZE = 1 << 8;
+        private static final int MAX_PAGE_SIZE = 1 << 20;
+
+        private final List<byte[]> m_fullPages = new ArrayList<byte[]>();
+        private long m_fullPagesLength = 0;
+        private byte[] m_page = new byte[MIN_PAGE_SIZE];
+        private int m_pos = 0;
+
+        private File m_file;
+        private OutputStream m_fileOut;
+
+        /**
+         * @param key the key to append
+         * @return the position of the key among the keys held in memory, valid until the next {@link #spill()}
+         */
+        long add(final String key) {
+            final long position = m_fullPagesLength + m_pos;
+            final int length = key.length();
+            writeVarInt(length);
+            for (int i = 0; i < length; i++) {
+                writeVarInt(key.charAt(i));
+            }
+            return position;
+        }
+
+        /**
+         * @param position the position of a key held in memory as returned by {@link #add(String)}
+         * @param key the key to compare
+         * @return whether the key at the position equals the argument
+         */
+        boolean keyEquals(final long position, final String key) throws IOException {
+            final List<InputStream> streams = new ArrayList<InputStream>();
+            long skip = position;
+            for (byte[] page : m_fullPages) {
+                if (skip >= page.length) {
+                    skip -= page.length;
+                } else {
+                    streams.add(new ByteArrayInputStream(page, (int)skip, page.length - (int)skip));
+                    skip = 0;
+                }
+            }
+            streams.add(new ByteArrayInputStream(m_page, (int)skip, m_pos - (int)skip));
+            try (InputStream in = new SequenceInputStream(Collections.enumeration(streams))) {
+                final int length = key.length();
+                if (readVarInt(in) != length) {
+                    return false;
+                }
+                for (int i = 0; i < length; i++) {
+                    if (readVarInt(in) != key.charAt(i)) {
+                        return false;
                     }
-                    return b;
                 }
+                return true;
+            }
+        }
 
-                @Override
-                public String next() {
-                    if (!hasNext()) {
-                        throw new NoSuchElementException();
-                    }
-                    try {
-                        m_read++;
-                        return m_in.readUTF();
-                    } catch (IOException ex) {
-                        throw new RuntimeException(ex);
+        private void writeVarInt(final int value) {
+            int v = value;
+            while ((v & ~0x7F) != 0) {
+                writeByte((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            writeByte(v);
+        }
+
+        private void writeByte(final int b) {
+            if (m_pos == m_page.length) {
+                m_fullPages.add(m_page);
+                m_fullPagesLength += m_page.length;
+                m_page = new byte[Math.min(MAX_PAGE_SIZE, m_page.length * 2)];
+                m_pos = 0;
+            }
+            m_page[m_pos++] = (byte)b;
+        }
+
+        /** Appends the keys held in memory to the temporary file. */
+        void spill() throws IOException {
+            if (m_fullPages.isEmpty() && m_pos == 0) {
+                return;
+            }
+            if (m_fileOut == null) {
+                m_file = FileUtil.createTempFile("KNIME_DuplicateChecker", ".keys", false);
+                synchronized (ALL_FILES) { ALL_FILES.add(m_file); }
+                m_fileOut = new BufferedOutputStream(new FileOutputStream(m_file));
+            }
+            for (byte[] page : m_fullPages) {
+                m_fileOut.write(page);
+            }
+            m_fileOut.write(m_page, 0, m_pos);
+            m_fullPages.clear();
+            m_fullPagesLength = 0;
+            m_page = new byte[MIN_PAGE_SIZE];
+            m_pos = 0;
+        }
+
+        /**
+         * @param visitor called for each key in the log
+         * @throws DuplicateKeyException if thrown by the visitor
+         * @throws IOException if reading the temporary file fails
+         */
+        void visitKeys(final KeyVisitor visitor) throws DuplicateKeyException, IOException {
+            final List<InputStream> streams = new ArrayList<InputStream>();
+            if (m_fileOut != null) {
+                m_fileOut.flush();
+                streams.add(new BufferedInputStream(new FileInputStream(m_file)));
+            }
+            for (byte[] page : m_fullPages) {
+                streams.add(new ByteArrayInputStream(page));
+            }
+            streams.add(new ByteArrayInputStream(m_page, 0, m_pos));
+            try (InputStream in = new SequenceInputStream(Collections.enumeration(streams))) {
+                final StringBuilder key = new StringBuilder();
+                int length;
+                while ((length = readVarInt(in)) >= 0) {
+                    key.setLength(0);
+                    for (int i = 0; i < length; i++) {
+                        final int c = readVarInt(in);
+                        if (c < 0) {
+                            throw new EOFException("Unexpected end of key log");
+                        }
+                        key.append((char)c);
                     }
+                    visitor.visit(key);
                 }
+            }
+        }
 
-                @Override
-                public void remove() {
-                    throw new UnsupportedOperationException("remove is not supported");
+        /** @return the value or -1 at the end of the stream */
+        private static int readVarInt(final InputStream in) throws IOException {
+            int value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = in.read();
+                if (b < 0) {
+                    if (shift > 0) {
+                        throw new EOFException("Unexpected end of key log");
+                    }
+                    return -1;
                 }
-            };
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
         }
 
-        public long size() {
-            return m_count;
+        void dispose() {
+            m_fullPages.clear();
+            m_fullPagesLength = 0;
+            m_page = new byte[MIN_PAGE_SIZE];
+            m_pos = 0;
+            if (m_fileOut != null) {
+                try {
+                    m_fileOut.close();
+                } catch (IOException ex) {
+                    // ignore, file is deleted anyway
+                }
+                m_fileOut = null;
+                m_file.delete();
+                synchronized (ALL_FILES) { ALL_FILES.remove(m_file); }
+                m_file = null;
+            }
         }
+    }
 
-        public boolean dispose() {
-            return m_file.delete();
-        }
+    /** Callback of {@link KeyLog#visitKeys(KeyVisitor)}. */
+    private interface KeyVisitor {
+        void visit(CharSequence key) throws DuplicateKeyException;
     }
 
-    /** The default chunk size. */
+    /** The default chunk size, used as maximum number of keys kept in memory
+     * by {@link #DuplicateChecker()} up to version 3.5. The default checker
+     * now keeps all keys in memory as long as memory is available. */
     public static final int MAX_CHUNK_SIZE = 100000;
 
     /** The default number of streams open during merging. */
     public static final int MAX_STREAMS = 50;
 
+    private static final int INITIAL_CAPACITY = 1 << 6;
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
     private final int m_maxChunkSize;
 
     private final int m_maxStreams;
 
-    private Set<String> m_currentChunk = new HashSet<String>();
+    /** Open addressing hash set of the fingerprints, 0 marks an empty slot. */
+    private long[] m_fingerprints = new long[INITIAL_CAPACITY];
+
+    /** Positions of the keys in the key log, same slots as the fingerprints. */
+    private long[] m_positions = new long[INITIAL_CAPACITY];
+
+    private int m_size = 0;
+
+    private final KeyLog m_keyLog = new KeyLog();
+
+    /** Fingerprints of distinct keys added since the last chunk was written, verified at the end. */
+    private final Set<Long> m_collisions = new HashSet<Long>();
 
     private List<Chunk> m_storedChunks = new ArrayList<Chunk>();
 
+    private final MemoryActionIndicator m_memIndicator = MemoryAlertSystem.getInstance().newIndicator();
+
     private static final boolean DISABLE_DUPLICATE_CHECK =
         Boolean.getBoolean(
                 KNIMEConstants.PROPERTY_DISABLE_ROWID_DUPLICATE_CHECK);
 
+    // applied to all fingerprints, fewer bits force collisions of distinct keys
+    private static volatile long fingerprintMask = -1L;
+
     /** Custom hash set to keep list of to-be-deleted files, see bug 2966:
      * "DuplicateChecker always writes to disc (even for small tables) + temp
      * file names are hashed in core java (increased mem consumption for loops)"
      * for details. */
-    private static final Collection<Chunk> ALL_CHUNKS = new ArrayList<Chunk>();
+    private static final Collection<File> ALL_FILES = new ArrayList<File>();
 
     static {
         Runtime.getRuntime().addShutdownHook(new Thread() {
@@ -214,19 +387,20 @@ public void run() {
     }
 
     private static void removeTempFiles() {
-        synchronized (ALL_CHUNKS) {
-            for (Chunk c : ALL_CHUNKS) {
-                c.dispose();
+        synchronized (ALL_FILES) {
+            for (File f : ALL_FILES) {
+                f.delete();
             }
-            ALL_CHUNKS.clear();
+            ALL_FILES.clear();
         }
     }
 
     /**
-     * Creates a new duplicate checker with default parameters.
+     * Creates a new duplicate checker with default parameters, which keeps all
+     * keys in memory until memory gets low.
      */
     public DuplicateChecker() {
-        this(MAX_CHUNK_SIZE, MAX_STREAMS);
+        this(Integer.MAX_VALUE, MAX_STREAMS);
     }
 
     /**
@@ -249,9 +423,9 @@ public DuplicateChecker(final int maxChunkSize, final int maxStreams) {
      * Adds a new key to the duplicate checker.
      *
      * @param s the key
-     * @throws DuplicateKeyException if a duplicate within the current chunk has
-     *             been detected
-     * @throws IOException if an I/O error occurs while writing the chunk to
+     * @throws DuplicateKeyException if a duplicate within the keys in memory
+     *             has been detected
+     * @throws IOException if an I/O error occurs while writing a chunk to
      *             disk
      */
     public void addKey(final String s) throws DuplicateKeyException,
@@ -259,12 +433,17 @@ public void addKey(final String s) throws DuplicateKeyException,
         if (DISABLE_DUPLICATE_CHECK) {
             return;
         }
-        // bug fix #1737: keys may be just wrappers of very large strings ...
-        // we make a copy, which consist of the important characters only
-        if (!m_currentChunk.add(new String(s))) {
-            throw new DuplicateKeyException(s);
+        final long fingerprint = fingerprint(s);
+        final long position = m_keyLog.add(s);
+        final int slot = addFingerprint(fingerprint, position);
+        if (slot >= 0) {
+            // same fingerprint, compare with the key added first (any other key with it is verified at the end)
+            if (m_keyLog.keyEquals(m_positions[slot], s)) {
+                throw new DuplicateKeyException(s);
+            }
+            m_collisions.add(fingerprint);
         }
-        if (m_currentChunk.size() >= m_maxChunkSize) {
+        if (m_size >= m_maxChunkSize || m_memIndicator.lowMemoryActionRequired()) {
             writeChunk();
         }
     }
@@ -277,14 +456,20 @@ public void addKey(final String s) throws DuplicateKeyException,
      * @throws IOException if an I/O error occurs
      */
     public void checkForDuplicates() throws DuplicateKeyException, IOException {
-        if (m_storedChunks.size() == 0) {
-            // less than MAX_CHUNK_SIZE keys, no need to write
-            // a file because the check for duplicates has already
+        if (m_storedChunks.size() == 0 && m_collisions.isEmpty()) {
+            // all keys are in memory, no need to merge anything
+            // because the check for duplicates has already
             // been done in addKey
             return;
         }
-        writeChunk();
-        checkForDuplicates(m_storedChunks);
+        final Set<Long> collisions = new HashSet<Long>(m_collisions);
+        if (m_storedChunks.size() > 0) {
+            writeChunk();
+            checkForDuplicates(m_storedChunks, collisions);
+        }
+        if (!collisions.isEmpty()) {
+            verifyCollisions(collisions);
+        }
     }
 
     /**
@@ -295,30 +480,111 @@ public void clear() {
         for (Chunk c : m_storedChunks) {
             c.dispose();
         }
-        synchronized (ALL_CHUNKS) { ALL_CHUNKS.removeAll(m_storedChunks); }
         m_storedChunks.clear();
-        m_currentChunk.clear();
+        m_keyLog.dispose();
+        m_fingerprints = new long[INITIAL_CAPACITY];
+        m_positions = new long[INITIAL_CAPACITY];
+        m_size = 0;
+        m_collisions.clear();
+    }
+
+    /**
+     * Sets a mask applied to the fingerprints of the checkers, to force collisions of distinct keys. Used for
+     * testing only.
+     *
+     * @param mask the mask, -1 for the full fingerprint
+     */
+    static void setFingerprintMask(final long mask) {
+        fingerprintMask = mask;
     }
 
     /**
-     * Checks for duplicates.
+     * Computes a 64-bit hash of the string (FNV-1a over the characters
+     * followed by the finalizer of MurmurHash3).
+     *
+     * @param s the string
+     * @return the fingerprint, never 0
+     */
+    private static long fingerprint(final CharSequence s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, length = s.length(); i < length; i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        h &= fingerprintMask;
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * @param fingerprint the fingerprint to add
+     * @param position the position of its key in the key log
+     * @return the slot of the fingerprint if the set already contained it, -1 otherwise
+     */
+    private int addFingerprint(final long fingerprint, final long position) throws IOException {
+        final int mask = m_fingerprints.length - 1;
+        int slot = (int)fingerprint & mask;
+        long current;
+        while ((current = m_fingerprints[slot]) != 0) {
+            if (current == fingerprint) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        m_fingerprints[slot] = fingerprint;
+        m_positions[slot] = position;
+        m_size++;
+        // keep the load factor below 0.75
+        if (m_size * 4L > m_fingerprints.length * 3L) {
+            if (m_fingerprints.length >= MAX_CAPACITY) {
+                writeChunk();
+            } else {
+                rehash(m_fingerprints.length * 2);
+            }
+        }
+        return -1;
+    }
+
+    private void rehash(final int capacity) {
+        final long[] old = m_fingerprints;
+        final long[] oldPositions = m_positions;
+        m_fingerprints = new long[capacity];
+        m_positions = new long[capacity];
+        final int mask = capacity - 1;
+        for (int i = 0; i < old.length; i++) {
+            final long fingerprint = old[i];
+            if (fingerprint != 0) {
+                int slot = (int)fingerprint & mask;
+                while (m_fingerprints[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                m_fingerprints[slot] = fingerprint;
+                m_positions[slot] = oldPositions[i];
+            }
+        }
+    }
+
+    /**
+     * Merges the chunks and collects the fingerprints contained in more than
+     * one chunk.
      *
      * @param storedChunks the list of chunk files to process
-     * @throws NumberFormatException should not happen
+     * @param collisions the set to add fingerprints to that occur repeatedly
      * @throws IOException if an I/O error occurs
-     * @throws DuplicateKeyException if a duplicate key has been detected
      */
-    private void checkForDuplicates(final List<Chunk> storedChunks)
-            throws NumberFormatException, IOException, DuplicateKeyException {
+    private void checkForDuplicates(final List<Chunk> storedChunks, final Set<Long> collisions)
+            throws IOException {
         final int nrChunks =
                 (int)Math.ceil(storedChunks.size() / (double)m_maxStreams);
         List<Chunk> newChunks = new ArrayList<Chunk>(nrChunks);
 
         int chunkCount = 0;
         for (int i = 0; i < nrChunks; i++) {
-            @SuppressWarnings("unchecked")
-            Iterator<String>[] in =
-                new Iterator[Math.min(
+            DataInputStream[] in = new DataInputStream[Math.min(
                         m_maxStreams, storedChunks.size() - chunkCount)];
             if (in.length == 1) {
                 // only one (remaining) chunk => no need to merge anything
@@ -327,128 +593,138 @@ private void checkForDuplicates(final List<Chunk> storedChunks)
             }
 
             long entries = 0;
+            final long[] remaining = new long[in.length];
             PriorityQueue<Helper> heap = new PriorityQueue<Helper>(in.length);
-            for (int j = 0; j < in.length; j++) {
-                Chunk c = storedChunks.get(chunkCount++);
-                entries += c.size();
-                in[j] = c.iterator();
+            Chunk chunk = null;
+            try {
+                for (int j = 0; j < in.length; j++) {
+                    Chunk c = storedChunks.get(chunkCount++);
+                    entries += c.size();
+                    remaining[j] = c.size();
+                    in[j] = c.open();
+                    if (remaining[j]-- > 0) {
+                        heap.add(new Helper(in[j].readLong(), j));
+                    }
+                }
 
-                if (in[j].hasNext()) {
-                    heap.add(new Helper(in[j].next(), j));
+                if (nrChunks > 1) {
+                    chunk = new Chunk();
+                    newChunks.add(chunk);
                 }
-            }
 
-            Chunk chunk = new Chunk();
-            synchronized (ALL_CHUNKS) { ALL_CHUNKS.add(chunk); }
-            newChunks.add(chunk);
+                long lastFingerprint = 0;
+                while (entries-- > 0) {
+                    Helper top = heap.poll();
+                    if (top.m_fingerprint == lastFingerprint) {
+                        collisions.add(top.m_fingerprint);
+                    } else if (chunk != null) {
+                        chunk.addFingerprint(top.m_fingerprint);
+                    }
+                    lastFingerprint = top.m_fingerprint;
 
-            String lastKey = null;
-            while (entries-- > 0) {
-                Helper top = heap.poll();
-                if (top.m_s.equals(lastKey)) {
-                    chunk.close();
-                    throw new DuplicateKeyException(top.m_s);
+                    if (remaining[top.m_streamIndex]-- > 0) {
+                        top.m_fingerprint = in[top.m_streamIndex].readLong();
+                        heap.add(top);
+                    }
                 }
-                lastKey = top.m_s;
-
-                if (nrChunks > 1) {
-                    chunk.addKey(top.m_s);
+            } finally {
+                for (DataInputStream s : in) {
+                    if (s != null) {
+                        s.close();
+                    }
                 }
-
-                if (in[top.m_streamIndex].hasNext()) {
-                    top.m_s = in[top.m_streamIndex].next();
-                    heap.add(top);
+                if (chunk != null) {
+                    chunk.close();
                 }
             }
-
-            chunk.close();
         }
 
         if (newChunks.size() > 1) {
-            checkForDuplicates(newChunks);
+            checkForDuplicates(newChunks, collisions);
         }
         for (Chunk c : newChunks) {
             c.dispose();
         }
-        synchronized (ALL_CHUNKS) { ALL_CHUNKS.removeAll(newChunks); }
     }
 
     /**
-     * Writes the current chunk to disk and clears the set.
+     * Compares the keys whose fingerprints occur in more than one chunk.
+     *
+     * @param collisions the repeated fingerprints
+     * @throws DuplicateKeyException if a duplicate key has been detected
+     * @throws IOException if an I/O error occurs
+     */
+    private void verifyCollisions(final Set<Long> collisions) throws DuplicateKeyException, IOException {
+        final Map<Long, Set<String>> keys = new HashMap<Long, Set<String>>();
+        m_keyLog.visitKeys(key -> {
+            final Long fingerprint = fingerprint(key);
+            if (collisions.contains(fingerprint)) {
+                final String s = key.toString();
+                if (!keys.computeIfAbsent(fingerprint, f -> new HashSet<String>()).add(s)) {
+                    throw new DuplicateKeyException(s);
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the fingerprints in memory sorted to disk as a new chunk, clears
+     * the set and appends the key log to its temporary file. Collisions found
+     * so far stay, the fingerprints are verified against the whole key log.
      *
      * @throws IOException if an I/O error occurs
      */
     private void writeChunk() throws IOException {
-        if (m_currentChunk.isEmpty()) {
+        m_keyLog.spill();
+        if (m_size == 0) {
             return;
         }
+        final long[] sorted = new long[m_size];
+        int i = 0;
+        for (long fingerprint : m_fingerprints) {
+            if (fingerprint != 0) {
+                sorted[i++] = fingerprint;
+            }
+        }
+        m_fingerprints = new long[INITIAL_CAPACITY];
+        m_positions = new long[INITIAL_CAPACITY];
+        m_size = 0;
+        Arrays.sort(sorted);
         Chunk c = new Chunk();
-        c.addKeys(m_currentChunk);
-        c.close();
+        try {
+            for (long fingerprint : sorted) {
+                c.addFingerprint(fingerprint);
+            }
+        } finally {
+            c.close();
+        }
         m_storedChunks.add(c);
-        m_currentChunk.clear();
     }
 
     /**
-     * Container to hold a string and the stream index where the string
+     * Container to hold a fingerprint and the stream index where it
      * was read from.
      */
     private static final class Helper implements Comparable<Helper> {
-        private String m_s;
+        private long m_fingerprint;
 
         private final int m_streamIndex;
 
-        private Helper(final String string, final int streamIdx) {
-            m_s = string;
+        private Helper(final long fingerprint, final int streamIdx) {
+            m_fingerprint = fingerprint;
             m_streamIndex = streamIdx;
         }
 
         /** {@inheritDoc} */
         @Override
         public int compareTo(final Helper o) {
-            return m_s.compareTo(o.m_s);
+            return Long.compare(m_fingerprint, o.m_fingerprint);
         }
 
         /** {@inheritDoc} */
         @Override
         public String toString() {
-            return m_s;
-        }
-
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public int hashCode() {
-            final int prime = 31;
-            int result = 1;
-            result = prime * result + ((m_s == null) ? 0 : m_s.hashCode());
-            return result;
-        }
-
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public boolean equals(final Object obj) {
-            if (this == obj) {
-                return true;
-            }
-            if (obj == null) {
-                return false;
-            }
-            if (getClass() != obj.getClass()) {
-                return false;
-            }
-            Helper other = (Helper)obj;
-            if (m_s == null) {
-                if (other.m_s != null) {
-                    return false;
-                }
-            } else if (!m_s.equals(other.m_s)) {
-                return false;
-            }
-            return true;
+            return Long.toHexString(m_fingerprint);
         }
     }
 
@@ -56,7 +56,7 @@
 import org.knime.core.data.DataType;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.collection.CollectionDataValue;
-import org.knime.core.data.container.CellFactory;
+import org.knime.core.data.container.AbstractCellFactory;
 import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeLogger;
@@ -75,20 +75,47 @@
  * Interface implementation that executes the java code snippet and calculates
  * the new column, either appended or replaced.
  *
+ * <p>The rows are only processed concurrently if enabled with
+ * {@link #setParallelProcessing(boolean)}, which is only allowed if the
+ * expression doesn't use the row index. Each thread then evaluates its own
+ * instance of the compiled expression.
+ *
  * @author Bernd Wiswedel, University of Konstanz
  */
-public class ColumnCalculator implements CellFactory {
+public class ColumnCalculator extends AbstractCellFactory {
     private static final NodeLogger LOGGER = NodeLogger
             .getLogger(ColumnCalculator.class);
 
+    /** Kinds of the values of the fields in the expression. */
+    private static final int COLUMN = 0, VARIABLE = 1, ROWINDEX = 2,
+            ROWID = 3, ROWCOUNT = 4;
+
     private final JavaScriptingSettings m_settings;
+    private final Expression m_compiledExpression;
     private final ExpressionInstance m_expression;
     private final FlowVariableProvider m_flowVarProvider;
-    private boolean m_hasReportedMissing = false;
+    private volatile boolean m_hasReportedMissing = false;
 
-    private final DataColumnSpec[] m_colSpec;
+    /** The instances of the expression used by the other threads, if the
+     * rows are processed concurrently. */
+    private final ThreadLocal<ExpressionInstance> m_threadExpression =
+        new ThreadLocal<ExpressionInstance>();
 
-    private Map<InputField, Object> m_flowVarAssignmentMap;
+    /** The fields of the expression, in the order of the values set. */
+    private final InputField[] m_fields;
+    /** True if the expression doesn't support setting all fields at once. */
+    private final boolean m_setByName;
+    /** The kind of value of each field, one of the constants above. */
+    private final int[] m_fieldKinds;
+    /** The input column of each column field (-1 if not in the input). */
+    private final int[] m_fieldColumns;
+    /** The type converting the cell of each column field. */
+    private final JavaSnippetType<?, ?, ?>[] m_fieldTypes;
+    /** If the column of a column field is a collection. */
+    private final boolean[] m_fieldIsArray;
+
+    /** The values of the flow variable fields, read on first use. */
+    private Object[] m_flowVarValues;
 
     /**
      * The row index may be used for calculation. Need to be set immediately
@@ -109,23 +136,68 @@ public class ColumnCalculator implements CellFactory {
     public ColumnCalculator(final JavaScriptingSettings settings,
             final FlowVariableProvider flowVarProvider)
             throws InstantiationException, InvalidSettingsException {
+        super(settings.getNewColSpec());
         m_settings = settings;
         m_flowVarProvider = flowVarProvider;
-        Expression compiledExpression = settings.getCompiledExpression();
-        if (compiledExpression == null) {
+        m_compiledExpression = settings.getCompiledExpression();
+        if (m_compiledExpression == null) {
             throw new InstantiationException(
                     "No compiled expression in settings");
         }
-        m_expression = compiledExpression.getInstance();
-        m_colSpec = new DataColumnSpec[]{m_settings.getNewColSpec()};
-    }
+        m_expression = m_compiledExpression.getInstance();
 
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public DataColumnSpec[] getColumnSpecs() {
-        return m_colSpec;
+        InputField[] fields = m_expression.getInputFields();
+        m_setByName = fields == null;
+        if (m_setByName) {
+            fields = m_expression.getFieldMap().keySet().toArray(
+                    new InputField[0]);
+        }
+        m_fields = fields;
+        m_fieldKinds = new int[fields.length];
+        m_fieldColumns = new int[fields.length];
+        m_fieldTypes = new JavaSnippetType<?, ?, ?>[fields.length];
+        m_fieldIsArray = new boolean[fields.length];
+        DataTableSpec spec = m_settings.getInputSpec();
+        int[] requiredColumns = new int[fields.length];
+        int numRequired = 0;
+        for (int i = 0; i < fields.length; i++) {
+            InputField f = fields[i];
+            m_fieldColumns[i] = -1;
+            if (f.getFieldType().equals(FieldType.Column)) {
+                m_fieldKinds[i] = COLUMN;
+                int col = spec == null
+                    ? -1 : spec.findColumnIndex(f.getColOrVarName());
+                if (col < 0) {
+                    continue;
+                }
+                m_fieldColumns[i] = col;
+                requiredColumns[numRequired++] = col;
+                DataType cellType = spec.getColumnSpec(col).getType();
+                m_fieldIsArray[i] = cellType.isCollectionType();
+                if (m_fieldIsArray[i]) {
+                    cellType = cellType.getCollectionElementType();
+                }
+                for (JavaSnippetType<?, ?, ?> t : JavaSnippetType.TYPES) {
+                    if (t.checkCompatibility(cellType)) {
+                        m_fieldTypes[i] = t;
+                        break;
+                    }
+                }
+            } else if (f.getFieldType().equals(FieldType.Variable)) {
+                m_fieldKinds[i] = VARIABLE;
+            } else if (Expression.ROWINDEX.equals(f.getColOrVarName())) {
+                m_fieldKinds[i] = ROWINDEX;
+            } else if (Expression.ROWID.equals(f.getColOrVarName())) {
+                m_fieldKinds[i] = ROWID;
+            } else {
+                m_fieldKinds[i] = ROWCOUNT;
+            }
+        }
+        if (spec != null) {
+            int[] required = new int[numRequired];
+            System.arraycopy(requiredColumns, 0, required, 0, numRequired);
+            setRequiredColumns(required);
+        }
     }
 
     /**
@@ -146,6 +218,43 @@ public void setProgress(final int curRowNr, final int rowCount,
                 + curRowNr + " (\"" + lastKey + "\")");
     }
 
+    /* The values of the flow variable fields, null for other fields. */
+    private synchronized Object[] getFlowVarValues() {
+        if (m_flowVarValues == null) {
+            Object[] values = new Object[m_fields.length];
+            Map<InputField, ExpressionField> fieldMap =
+                m_expression.getFieldMap();
+            for (int i = 0; i < m_fields.length; i++) {
+                if (m_fieldKinds[i] == VARIABLE) {
+                    Class<?> c = fieldMap.get(m_fields[i]).getFieldClass();
+                    values[i] = m_flowVarProvider.readVariable(
+                            m_fields[i].getColOrVarName(), c);
+                }
+            }
+            m_flowVarValues = values;
+        }
+        return m_flowVarValues;
+    }
+
+    /* The instance to evaluate in the current thread. */
+    private ExpressionInstance getExpression() {
+        if (!isParallelProcessing()) {
+            return m_expression;
+        }
+        ExpressionInstance expression = m_threadExpression.get();
+        if (expression == null) {
+            try {
+                expression = m_compiledExpression.getInstance();
+            } catch (InstantiationException ie) {
+                throw new RuntimeException(
+                        "Unable to instantiate expression: "
+                        + ie.getMessage(), ie);
+            }
+            m_threadExpression.set(expression);
+        }
+        return expression;
+    }
+
     /**
      * Performs the calculation.
      *
@@ -153,78 +262,71 @@ public void setProgress(final int curRowNr, final int rowCount,
      * @return the resulting cell
      */
     public DataCell calculate(final DataRow row) {
-        if (m_flowVarAssignmentMap == null) {
-            m_flowVarAssignmentMap = new HashMap<InputField, Object>();
-            for (Map.Entry<InputField, ExpressionField> e
-                    : m_expression.getFieldMap().entrySet()) {
-                InputField f = e.getKey();
-                if (f.getFieldType().equals(FieldType.Variable)) {
-                    Class<?> c = e.getValue().getFieldClass();
-                    m_flowVarAssignmentMap.put(f,
-                            m_flowVarProvider.readVariable(
-                                    f.getColOrVarName(), c));
-                }
-            }
-        }
-        DataTableSpec spec = m_settings.getInputSpec();
+        Object[] flowVarValues = getFlowVarValues();
+        int rowIndex = m_lastProcessedRow++;
         Class<?> returnType = m_settings.getReturnType();
         boolean isArrayReturn = m_settings.isArrayReturn();
-        Map<InputField, Object> nameValueMap =
-            new HashMap<InputField, Object>();
-        nameValueMap.put(new InputField(Expression.ROWINDEX,
-                FieldType.TableConstant), m_lastProcessedRow++);
-        nameValueMap.put(new InputField(Expression.ROWID,
-                FieldType.TableConstant), row.getKey().getString());
-        nameValueMap.put(new InputField(Expression.ROWCOUNT,
-                FieldType.TableConstant), m_flowVarProvider.getRowCount());
-        nameValueMap.putAll(m_flowVarAssignmentMap);
-        for (int i = 0; i < row.getNumCells(); i++) {
-            DataColumnSpec columnSpec = spec.getColumnSpec(i);
-            InputField inputField =
-                new InputField(columnSpec.getName(), FieldType.Column);
-            if (!m_expression.needsInputField(inputField)) {
-                continue;
-            }
-            DataCell cell = row.getCell(i);
-            DataType cellType = columnSpec.getType();
-            boolean isArray = cellType.isCollectionType();
-            if (isArray) {
-                cellType = cellType.getCollectionElementType();
-            }
-            Object cellVal = null;
-            if (cell.isMissing()) {
-                if (m_settings.isInsertMissingAsNull()) {
-                    // leave value as null
-                } else {
-                    String message = "Row \"" + row.getKey() + "\" "
-                        + "contains missing value in column \""
-                        + columnSpec.getName() + "\" - returning missing";
-                    if (!m_hasReportedMissing) {
-                        m_hasReportedMissing = true;
-                        LOGGER.warn(message + " (omitting further warnings)");
-                    } else {
-                        LOGGER.debug(message);
+        Object[] values = new Object[m_fields.length];
+        for (int i = 0; i < m_fields.length; i++) {
+            switch (m_fieldKinds[i]) {
+                case VARIABLE:
+                    values[i] = flowVarValues[i];
+                    break;
+                case ROWINDEX:
+                    values[i] = rowIndex;
+                    break;
+                case ROWID:
+                    values[i] = row.getKey().getString();
+                    break;
+                case ROWCOUNT:
+                    values[i] = m_flowVarProvider.getRowCount();
+                    break;
+                default:
+                    int col = m_fieldColumns[i];
+                    if (col < 0) {
+                        break;
                     }
-                    return DataType.getMissingCell();
-                }
-            } else {
-                for (JavaSnippetType<?, ?, ?> t : JavaSnippetType.TYPES) {
-                    if (t.checkCompatibility(cellType)) {
-                        if (isArray) {
-                            cellVal = t.asJavaArray((CollectionDataValue)cell);
+                    DataCell cell = row.getCell(col);
+                    if (cell.isMissing()) {
+                        if (m_settings.isInsertMissingAsNull()) {
+                            // leave value as null
+                            break;
+                        }
+                        String message = "Row \"" + row.getKey() + "\" "
+                            + "contains missing value in column \""
+                            + m_fields[i].getColOrVarName()
+                            + "\" - returning missing";
+                        if (!m_hasReportedMissing) {
+                            m_hasReportedMissing = true;
+                            LOGGER.warn(message
+                                + " (omitting further warnings)");
                         } else {
-                            cellVal = t.asJavaObject(cell);
+                            LOGGER.debug(message);
                         }
-                        break;
+                        return DataType.getMissingCell();
+                    }
+                    JavaSnippetType<?, ?, ?> t = m_fieldTypes[i];
+                    if (t != null) {
+                        values[i] = m_fieldIsArray[i]
+                            ? t.asJavaArray((CollectionDataValue)cell)
+                            : t.asJavaObject(cell);
                     }
-                }
             }
-            nameValueMap.put(inputField, cellVal);
         }
+        ExpressionInstance expression = getExpression();
         Object o = null;
         try {
-            m_expression.set(nameValueMap);
-            o = m_expression.evaluate();
+            if (m_setByName) {
+                Map<InputField, Object> nameValueMap =
+                    new HashMap<InputField, Object>();
+                for (int i = 0; i < m_fields.length; i++) {
+                    nameValueMap.put(m_fields[i], values[i]);
+                }
+                expression.set(nameValueMap);
+            } else {
+                expression.set(values);
+            }
+            o = expression.evaluate();
             // class correctness is asserted by compiler
         } catch (Abort ee) {
             StringBuilder builder = new StringBuilder("Calculation aborted: ");
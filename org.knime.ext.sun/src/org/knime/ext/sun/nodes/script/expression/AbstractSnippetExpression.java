@@ -57,4 +57,13 @@ public abstract class AbstractSnippetExpression {
      * @throws Abort If entire execution is aborted.
      */
     public abstract Object internalEvaluate() throws Abort;
+
+    /** Overridden by the expression instances to assign all fields at once, without reflection.
+     * @param values The field values, in the order of {@link ExpressionInstance#getInputFields()}.
+     * @throws ClassCastException If a value doesn't match the class of its field.
+     * @since 3.6
+     */
+    public void internalSet(final Object[] values) {
+        throw new UnsupportedOperationException("Fields must be set by name");
+    }
 }
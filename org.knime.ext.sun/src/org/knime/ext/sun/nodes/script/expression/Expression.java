@@ -132,6 +132,10 @@ public enum FieldType {
      */
     private final Map<InputField, ExpressionField> m_fieldMap;
 
+    /** The keys of m_fieldMap, in the order of the values passed to
+     * {@link AbstractSnippetExpression#internalSet(Object[])}. */
+    private final InputField[] m_inputFields;
+
     /** The compiled class for the instance of the expression. */
     private final Class<? extends AbstractSnippetExpression>
         m_abstractExpression;
@@ -153,6 +157,7 @@ private Expression(final String body,
             final JavaScriptingSettings settings)
             throws CompilationFailedException {
         m_fieldMap = fieldMap;
+        m_inputFields = fieldMap.keySet().toArray(new InputField[fieldMap.size()]);
         m_abstractExpression = createClass(body, settings);
     }
 
@@ -235,7 +240,8 @@ private Class<? extends AbstractSnippetExpression> createClass(
     public ExpressionInstance getInstance() throws InstantiationException {
         try {
             return new ExpressionInstance(
-                    m_abstractExpression.newInstance(), m_fieldMap);
+                    m_abstractExpression.newInstance(), m_fieldMap,
+                    m_inputFields);
         } catch (IllegalAccessException iae) {
             LOGGER.error("Unexpected IllegalAccessException occurred", iae);
             throw new InternalError();
@@ -288,6 +294,7 @@ private String generateSourceVersion1(final String name,
             buffer.append("\n");
         }
         buffer.append("\n");
+        appendFieldSetter(buffer);
 
         /* Add body */
         String cast;
@@ -359,6 +366,7 @@ private String generateSourceVersion2(final String name, final String body,
             buffer.append("\n");
         }
         buffer.append("\n");
+        appendFieldSetter(buffer);
 
         if (header != null && header.length() > 0) {
             buffer.append(header).append("\n");
@@ -384,6 +392,22 @@ private String generateSourceVersion2(final String name, final String body,
         return buffer.toString();
     }
 
+    /*
+     * Appends the method assigning all fields from an array, in the order of
+     * m_inputFields - it saves the reflective access for each field and row.
+     */
+    private void appendFieldSetter(final StringBuilder buffer) {
+        buffer.append("  @Override\n");
+        buffer.append("  public void internalSet(final Object[] values) {\n");
+        for (int i = 0; i < m_inputFields.length; i++) {
+            ExpressionField type = m_fieldMap.get(m_inputFields[i]);
+            buffer.append("    ").append(type.getFieldNameInJava());
+            buffer.append(" = (").append(type.getFieldClass().getSimpleName());
+            buffer.append(")values[").append(i).append("];\n");
+        }
+        buffer.append("  }\n\n");
+    }
+
     /**
      * @throws IOException
      */
@@ -62,6 +62,8 @@ public class ExpressionInstance {
 
     private final AbstractSnippetExpression m_abstractExpression;
 
+    private final InputField[] m_inputFields;
+
     /**
      * Creates new expression instance wrapping a compiled object with that has
      * fields according to the properties argument.
@@ -72,8 +74,27 @@ public class ExpressionInstance {
     protected ExpressionInstance(
             final AbstractSnippetExpression abstracExpression,
             final Map<InputField, ExpressionField> fieldMap) {
+        this(abstracExpression, fieldMap, null);
+    }
+
+    /**
+     * Creates new expression instance wrapping a compiled object with that has
+     * fields according to the properties argument.
+     *
+     * @param abstracExpression the object being wrapped.
+     * @param fieldMap map of field name to field class
+     * @param inputFields the fields in the order of the values passed to
+     *            {@link AbstractSnippetExpression#internalSet(Object[])}, null
+     *            if the compiled object doesn't implement it
+     * @since 3.6
+     */
+    protected ExpressionInstance(
+            final AbstractSnippetExpression abstracExpression,
+            final Map<InputField, ExpressionField> fieldMap,
+            final InputField[] inputFields) {
         m_abstractExpression = abstracExpression;
         m_fieldMap = fieldMap;
+        m_inputFields = inputFields;
     }
 
     /**
@@ -110,6 +131,35 @@ public Map<InputField, ExpressionField> getFieldMap() {
         return m_fieldMap;
     }
 
+    /**
+     * @return the input fields in the order of the values passed to
+     *         {@link #set(Object[])}, or null if only {@link #set(Map)} is
+     *         supported
+     * @since 3.6
+     */
+    public InputField[] getInputFields() {
+        return m_inputFields == null ? null : m_inputFields.clone();
+    }
+
+    /**
+     * Sets all field values at once, without reflection.
+     *
+     * @param values the values in the order of {@link #getInputFields()},
+     *            null represents a missing value
+     * @throws IllegalPropertyException if a value is incompatible with its
+     *             field
+     * @since 3.6
+     */
+    public final void set(final Object[] values)
+            throws IllegalPropertyException {
+        try {
+            m_abstractExpression.internalSet(values);
+        } catch (ClassCastException cce) {
+            throw new IllegalPropertyException(
+                    "Type of field not matched: " + cce.getMessage(), cce);
+        }
+    }
+
     /**
      * Sets field values.
      *
@@ -0,0 +1,144 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.rules.engine;
+
+import static org.junit.Assert.assertSame;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.base.node.rules.engine.Condition.MatchOutcome.MatchState;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.workflow.FlowVariable;
+
+/**
+ * Tests {@link RuleSetEvaluator} against the rule by rule evaluation.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RuleSetEvaluatorTest {
+
+    private DataTableSpec m_spec;
+
+    private List<DataRow> m_rows;
+
+    /**
+     * Sets up the table spec and the rows.
+     */
+    @Before
+    public void setUp() {
+        m_spec = new DataTableSpec(new DataColumnSpecCreator("Str", StringCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Int", IntCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Dbl", DoubleCell.TYPE).createSpec());
+        m_rows = new ArrayList<>();
+        final String[] strings = {"a", "b", "c", "d", "x", "1"};
+        int i = 0;
+        for (String s : strings) {
+            for (int v = -1; v < 4; v++) {
+                m_rows.add(new DefaultRow(RowKey.createRowKey(i++), new StringCell(s), new IntCell(v),
+                    new DoubleCell(v / 2.0)));
+            }
+        }
+        final DataCell missing = DataType.getMissingCell();
+        m_rows.add(new DefaultRow(RowKey.createRowKey(i++), missing, missing, missing));
+    }
+
+    /**
+     * Equality blocks, interrupted by other rules.
+     *
+     * @throws ParseException Should not happen.
+     */
+    @Test
+    public void testMixedRules() throws ParseException {
+        check("$Str$ = \"a\" => 1", "$Str$ IN (\"b\", \"a\") => 2", "\"c\" = $Str$ => 3", "// comment",
+            "$Str$ = \"b\" => 4", "$Int$ > 2 => 5", "$Int$ = 1 => 6", "$Int$ IN (0, 2) => 7", "$Str$ = \"d\" => 8",
+            "$Str$ = \"1\" => 9", "$Dbl$ = 0.5 => 10", "MISSING $Str$ => 11", "TRUE => 12");
+    }
+
+    /**
+     * Rules not matching anything.
+     *
+     * @throws ParseException Should not happen.
+     */
+    @Test
+    public void testNoMatch() throws ParseException {
+        check("$Str$ = \"z\" => 1", "$Int$ = 42 => 2", "$Str$ IN (\"y\", \"z\") => 3");
+    }
+
+    private void check(final String... ruleTexts) throws ParseException {
+        final RuleFactory factory = RuleFactory.getInstance(RuleNodeSettings.RuleEngine).cloned();
+        factory.disableMissingComparisons();
+        factory.disableNaNComparisons();
+        final List<Rule> rules = new ArrayList<>();
+        for (String text : ruleTexts) {
+            rules.add(factory.parse(text, m_spec, Collections.<String, FlowVariable> emptyMap()));
+        }
+        final RuleSetEvaluator evaluator = new RuleSetEvaluator(rules, m_spec);
+        for (DataRow row : m_rows) {
+            Rule expected = null;
+            for (Rule rule : rules) {
+                if (rule.getCondition().matches(row, null).getOutcome() == MatchState.matchedAndStop) {
+                    expected = rule;
+                    break;
+                }
+            }
+            assertSame(row.toString(), expected, evaluator.firstMatch(row, null));
+        }
+    }
+}
@@ -126,6 +126,8 @@ private ColumnRearranger createColumnRearranger(final DataTableSpec spec)
         try {
             settings.setInputAndCompile(spec);
             ColumnCalculator cc = new ColumnCalculator(settings, this);
+            // the manipulations of different rows are independent - unless they depend on the row index
+            cc.setParallelProcessing(!settings.getCompiledExpression().usesRowIndex());
             ColumnRearranger result = new ColumnRearranger(spec);
             if (isReplace) {
                 result.replace(cc, colName);
@@ -86,6 +86,7 @@
 import org.knime.base.node.preproc.stringmanipulation.manipulator.MD5ChecksumManipulator;
 import org.knime.base.node.preproc.stringmanipulation.manipulator.Manipulator;
 import org.knime.base.node.preproc.stringmanipulation.manipulator.RegexMatcherManipulator;
+import org.knime.base.node.preproc.stringmanipulation.manipulator.RegexPatternCache;
 import org.knime.base.node.preproc.stringmanipulation.manipulator.RegexReplaceManipulator;
 import org.knime.base.node.preproc.stringmanipulation.manipulator.RemoveCharsManipulator;
 import org.knime.base.node.preproc.stringmanipulation.manipulator.RemoveDiacriticManipulator;
@@ -244,7 +245,7 @@ public Collection<Manipulator> getManipulators(final String category) {
 
     /**
      * Give jar file with all *.class files returned by
-     * getManipulators(ALL_CATEGORY).
+     * getManipulators(ALL_CATEGORY) and the classes they use.
      *
      * @return file object of a jar file with all compiled manipulators
      * @throws IOException if jar file cannot be created
@@ -258,6 +259,7 @@ public synchronized File getJarFile() throws IOException {
                     true);
             Collection<Object> classes = new ArrayList<Object>();
             classes.add(Manipulator.class);
+            classes.add(RegexPatternCache.class);
             classes.addAll(m_manipulators.get(ALL_CATEGORY));
             // create tree structure for classes
             DefaultMutableTreeNode root = createTree(classes);
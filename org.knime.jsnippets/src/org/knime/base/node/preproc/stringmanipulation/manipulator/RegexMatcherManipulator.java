@@ -61,7 +61,7 @@ public class RegexMatcherManipulator implements Manipulator {
      * @return String True/False (never null)
      */
     public static String regexMatcher(final String str, final String regex) {
-        if (str.matches(regex)) {
+        if (RegexPatternCache.getPattern(regex).matcher(str).matches()) {
             return "True";
         } else {
             return "False";
@@ -65,7 +65,7 @@ public class RegexReplaceManipulator implements Manipulator {
      * @return string with replacements (never null)
      */
     public static String regexReplace(final String str, final String regex, final String replaceStr) {
-        Pattern p = Pattern.compile(regex);
+        Pattern p = RegexPatternCache.getPattern(regex);
         Matcher m = p.matcher(str);
         return m.replaceAll(replaceStr);
     }
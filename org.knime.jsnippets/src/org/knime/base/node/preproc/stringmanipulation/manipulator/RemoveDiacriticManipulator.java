@@ -49,6 +49,7 @@
 package org.knime.base.node.preproc.stringmanipulation.manipulator;
 
 import java.text.Normalizer;
+import java.util.regex.Pattern;
 
 /**
  * This manipulator removes all diacritics from a string. A diacritic is a glyph added to a letter, or basic glyph. (Ex.
@@ -59,6 +60,8 @@
  */
 public class RemoveDiacriticManipulator implements Manipulator {
 
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}");
+
     /**
      * @param str input string (must not be null)
      * @return string without diacritics (never null)
@@ -68,7 +71,7 @@ public static String removeDiacritic(final String str) {
             return null;
         }
         // normalize the input string and remove all letters which are part of the diacritic.
-        return Normalizer.normalize(str, Normalizer.Form.NFKD).replaceAll("\\p{M}", "");
+        return DIACRITICS.matcher(Normalizer.normalize(str, Normalizer.Form.NFKD)).replaceAll("");
     }
 
     /**
@@ -47,6 +47,7 @@
  */
 package org.knime.base.node.preproc.stringmanipulation.manipulator;
 
+import java.util.regex.Pattern;
 
 /**
  * The removeDuplicates string manipulator to remove duplicated spaces in a
@@ -55,6 +56,8 @@
  */
 public class RemoveSpaceCharDuplicatesManipulator implements Manipulator {
 
+    private static final Pattern SPACES = Pattern.compile("[ ]+");
+
     /**
      * Remove duplicated spaces in a string.
      * @param str the string
@@ -64,7 +67,7 @@ public static String removeDuplicates(final String str) {
         if (null == str) {
             return null;
         }
-        return str.replaceAll("[ ]+", " ");
+        return SPACES.matcher(str).replaceAll(" ");
     }
 
     /**
@@ -47,6 +47,7 @@
  */
 package org.knime.base.node.preproc.stringmanipulation.manipulator;
 
+import java.util.regex.Pattern;
 
 /**
  * Remove all space characters from a string.
@@ -55,6 +56,8 @@
  */
 public class RemoveSpaceCharsManipulator implements Manipulator {
 
+    private static final Pattern SPACES = Pattern.compile("[ ]+");
+
     /**
      * Remove all space characters from a string.
      *
@@ -65,7 +68,7 @@ public static String removeChars(final String str) {
         if (null == str) {
             return null;
         }
-        return str.replaceAll("[ ]+", "");
+        return SPACES.matcher(str).replaceAll("");
     }
 
     /**
@@ -47,6 +47,7 @@
  */
 package org.knime.base.node.preproc.stringmanipulation.manipulator;
 
+import org.apache.commons.lang3.StringUtils;
 
 /**
  * A StringManipulator to perform search and replace of substrings.
@@ -65,7 +66,8 @@ public class ReplaceManipulator implements Manipulator {
      */
     public static String replace(final String str,
             final String search, final String replace) {
-        return ReplaceModifiersManipulator.replace(str, search, replace, "");
+        // same as without modifiers, but saves parsing the modifiers for each occurrence
+        return StringUtils.replace(str, search, replace);
     }
 
     /**
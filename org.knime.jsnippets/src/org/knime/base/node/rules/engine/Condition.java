@@ -290,6 +290,15 @@ public boolean isConstantFalse() {
      * @since 2.8
      */
     class GenericCondition implements Condition {
+        private static final MatchOutcome SKIPPED = new MatchOutcome.GenericMatchOutcome(MatchState.skipped,
+            Collections.<String, Map<String, String>> emptyMap());
+
+        private static final MatchOutcome NON_MATCHED = new MatchOutcome.GenericMatchOutcome(MatchState.nonMatched,
+            Collections.<String, Map<String, String>> emptyMap());
+
+        private static final MatchOutcome MATCHED = new MatchOutcome.GenericMatchOutcome(MatchState.matchedAndStop,
+            Collections.<String, Map<String, String>> emptyMap());
+
         private final String m_line;
 
         private final String m_text;
@@ -346,17 +355,16 @@ public String getText() {
         public MatchOutcome matches(final DataRow row, final VariableProvider provider) {
             final ExpressionValue value = m_expression.evaluate(row, provider);
             if (value.getValue().isMissing()) {
-                return new MatchOutcome.GenericMatchOutcome(MatchState.skipped,
-                    Collections.<String, Map<String, String>> emptyMap());
+                return SKIPPED;
             }
             final DataCell cell = value.getValue();
             if (cell instanceof BooleanValue) {
                 final BooleanValue bv = (BooleanValue)cell;
                 if (bv.getBooleanValue()) {
-                    return new MatchOutcome.GenericMatchOutcome(MatchState.matchedAndStop, value.getMatchedObjects());
+                    return value.getMatchedObjects().isEmpty() ? MATCHED
+                        : new MatchOutcome.GenericMatchOutcome(MatchState.matchedAndStop, value.getMatchedObjects());
                 }
-                return new MatchOutcome.GenericMatchOutcome(MatchState.nonMatched,
-                    Collections.<String, Map<String, String>> emptyMap());
+                return NON_MATCHED;
             }
             return new MatchOutcome.GenericMatchOutcome(MatchState.stopProcessing, value.getMatchedObjects());
         }
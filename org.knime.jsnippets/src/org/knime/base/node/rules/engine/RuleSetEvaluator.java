@@ -0,0 +1,312 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.rules.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.knime.base.node.rules.engine.Condition.MatchOutcome.MatchState;
+import org.knime.base.node.rules.engine.Expression.ASTType;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DataValueComparator;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.collection.CollectionDataValue;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Selects the first matching {@link Rule} of a rule set for a row.
+ * <p>
+ * Consecutive rules of the form {@code $col$ = constant} or {@code $col$ IN (constants)} on the same string, integer
+ * or long column are combined into a single hash lookup, so large mapping rule sets do not have to be tested rule by
+ * rule. All other rules are evaluated in order as before, hence the result is always the same as checking the rules
+ * one after the other. Comments are dropped up front.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ * @noreference This class is not intended to be referenced by clients.
+ */
+public final class RuleSetEvaluator {
+
+    private final Rule[] m_rules;
+
+    private final Step[] m_steps;
+
+    /**
+     * Creates the evaluator for the rules.
+     *
+     * @param rules The rules in order of their priority.
+     * @param spec The spec of the rows the rules are evaluated on, can be {@code null} when there are no column
+     *            references (then every rule is evaluated one by one).
+     */
+    public RuleSetEvaluator(final List<Rule> rules, final DataTableSpec spec) {
+        m_rules = rules.toArray(new Rule[rules.size()]);
+        List<Step> steps = new ArrayList<>();
+        HashBlock block = null;
+        for (int i = 0; i < m_rules.length; i++) {
+            final Condition condition = m_rules[i].getCondition();
+            if (condition instanceof Condition.Comment) {
+                // never matches
+                continue;
+            }
+            final KeyTest test = spec == null ? null : KeyTest.create(condition, spec);
+            if (test == null) {
+                block = null;
+                steps.add(new SingleRule(i));
+                continue;
+            }
+            if (block == null || block.m_colIndex != test.m_colIndex) {
+                block = new HashBlock(test.m_colIndex, test.m_cellClass);
+                steps.add(block);
+            }
+            block.add(i, test.m_keys);
+        }
+        m_steps = steps.toArray(new Step[steps.size()]);
+    }
+
+    /**
+     * Finds the first rule whose condition results in {@link MatchState#matchedAndStop}.
+     *
+     * @param row The input row.
+     * @param provider The {@link VariableProvider}.
+     * @return The first matching rule, or {@code null} if there is no such rule.
+     */
+    public Rule firstMatch(final DataRow row, final VariableProvider provider) {
+        for (Step step : m_steps) {
+            final int index = step.firstMatch(row, provider);
+            if (index >= 0) {
+                return m_rules[index];
+            }
+        }
+        return null;
+    }
+
+    private boolean matches(final int index, final DataRow row, final VariableProvider provider) {
+        return m_rules[index].getCondition().matches(row, provider).getOutcome() == MatchState.matchedAndStop;
+    }
+
+    /** @return the hash key of a non-missing cell of the supported types. */
+    private static Object key(final DataCell cell) {
+        if (cell instanceof StringValue) {
+            return ((StringValue)cell).getStringValue();
+        }
+        return Long.valueOf(((LongValue)cell).getLongValue());
+    }
+
+    private interface Step {
+        /** @return index of the first matching rule within this step, or {@code -1}. */
+        int firstMatch(DataRow row, VariableProvider provider);
+    }
+
+    private final class SingleRule implements Step {
+        private final int m_index;
+
+        SingleRule(final int index) {
+            m_index = index;
+        }
+
+        @Override
+        public int firstMatch(final DataRow row, final VariableProvider provider) {
+            return matches(m_index, row, provider) ? m_index : -1;
+        }
+    }
+
+    /** Consecutive equality rules on the same column. */
+    private final class HashBlock implements Step {
+        private final int m_colIndex;
+
+        private final Class<? extends DataCell> m_cellClass;
+
+        private final Map<Object, Integer> m_firstRule = new HashMap<>();
+
+        private final List<Integer> m_indices = new ArrayList<>();
+
+        HashBlock(final int colIndex, final Class<? extends DataCell> cellClass) {
+            m_colIndex = colIndex;
+            m_cellClass = cellClass;
+        }
+
+        void add(final int index, final List<Object> keys) {
+            m_indices.add(index);
+            for (Object key : keys) {
+                m_firstRule.putIfAbsent(key, index);
+            }
+        }
+
+        @Override
+        public int firstMatch(final DataRow row, final VariableProvider provider) {
+            final DataCell cell = row.getCell(m_colIndex);
+            if (cell.isMissing()) {
+                // missing values are not equal to any (non-missing) constant
+                return -1;
+            }
+            if (cell.getClass() == m_cellClass) {
+                final Integer index = m_firstRule.get(key(cell));
+                return index == null ? -1 : index.intValue();
+            }
+            // unexpected cell implementation, do what the conditions would do
+            for (Integer index : m_indices) {
+                if (matches(index, row, provider)) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /** The column and the constants of a {@code =} or {@code IN} condition that can be answered by a lookup. */
+    private static final class KeyTest {
+        private final int m_colIndex;
+
+        private final Class<? extends DataCell> m_cellClass;
+
+        private final List<Object> m_keys;
+
+        private KeyTest(final int colIndex, final Class<? extends DataCell> cellClass, final List<Object> keys) {
+            m_colIndex = colIndex;
+            m_cellClass = cellClass;
+            m_keys = keys;
+        }
+
+        /**
+         * @return the {@link KeyTest} for {@code condition}, or {@code null} if the lookup would not be equivalent to
+         *         the condition's evaluation.
+         */
+        static KeyTest create(final Condition condition, final DataTableSpec spec) {
+            if (!(condition instanceof Condition.GenericCondition) || !condition.isEnabled()) {
+                return null;
+            }
+            final Expression expression = ((Condition.GenericCondition)condition).getExpression();
+            final List<Expression> children = expression.getChildren();
+            if (children.size() != 2) {
+                return null;
+            }
+            Expression colRef = children.get(0), other = children.get(1);
+            if (expression.getTreeType() == ASTType.Equals && other.getTreeType() == ASTType.ColRef) {
+                colRef = other;
+                other = children.get(0);
+            }
+            if (colRef.getTreeType() != ASTType.ColRef || !other.isConstant()) {
+                return null;
+            }
+            final ASTType otherType = other.getTreeType();
+            if (expression.getTreeType() == ASTType.Equals
+                ? otherType != ASTType.Constant && otherType != ASTType.FlowVarRef : otherType != ASTType.List) {
+                return null;
+            }
+            final String s = colRef.toString();
+            final String colName = s.substring(1, s.lastIndexOf('$'));
+            final int colIndex = spec.findColumnIndex(colName);
+            if (colIndex < 0) {
+                return null;
+            }
+            final DataType colType = spec.getColumnSpec(colIndex).getType();
+            if (!colType.equals(colRef.getOutputType()) || !isSupported(colType)) {
+                return null;
+            }
+            final DataCell constant = other.evaluate(null, null).getValue();
+            final List<Object> keys;
+            switch (expression.getTreeType()) {
+                case Equals:
+                    // comparator as selected by the parser
+                    if (!isKeyComparable(colType, constant, DataType.getCommonSuperType(
+                        children.get(0).getOutputType(), children.get(1).getOutputType()).getComparator())) {
+                        return null;
+                    }
+                    keys = Collections.singletonList(key(constant));
+                    break;
+                case In:
+                    if (!(constant instanceof CollectionDataValue)) {
+                        return null;
+                    }
+                    keys = new ArrayList<>();
+                    for (DataCell cell : (CollectionDataValue)constant) {
+                        // comparator as selected at evaluation time
+                        if (!isKeyComparable(colType, cell,
+                            DataType.getCommonSuperType(colType, cell.getType()).getComparator())) {
+                            return null;
+                        }
+                        keys.add(key(cell));
+                    }
+                    break;
+                default:
+                    return null;
+            }
+            return new KeyTest(colIndex, colType.getCellClass(), keys);
+        }
+
+        private static boolean isSupported(final DataType type) {
+            return StringCell.TYPE.equals(type) || IntCell.TYPE.equals(type) || LongCell.TYPE.equals(type);
+        }
+
+        /**
+         * @return whether the comparison of a {@code colType} cell with {@code constant} using {@code cmp} results in
+         *         {@code 0} exactly when their keys are equal.
+         */
+        private static boolean isKeyComparable(final DataType colType, final DataCell constant,
+            final DataValueComparator cmp) {
+            if (constant.isMissing()) {
+                return false;
+            }
+            final Class<? extends DataCell> cellClass = constant.getClass();
+            if (StringCell.TYPE.equals(colType)) {
+                return cellClass == StringCell.class && cmp == StringCell.TYPE.getComparator();
+            }
+            return (cellClass == IntCell.class || cellClass == LongCell.class)
+                && (cmp == IntCell.TYPE.getComparator() || cmp == LongCell.TYPE.getComparator());
+        }
+    }
+}
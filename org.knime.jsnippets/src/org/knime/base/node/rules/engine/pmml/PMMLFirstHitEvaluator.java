@@ -0,0 +1,204 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.rules.engine.pmml;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.knime.base.node.mine.decisiontree2.PMMLArrayType;
+import org.knime.base.node.mine.decisiontree2.PMMLOperator;
+import org.knime.base.node.mine.decisiontree2.PMMLPredicate;
+import org.knime.base.node.mine.decisiontree2.PMMLSetOperator;
+import org.knime.base.node.mine.decisiontree2.PMMLSimplePredicate;
+import org.knime.base.node.mine.decisiontree2.PMMLSimpleSetPredicate;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Finds the first {@link PMMLPredicate} of a rule set that evaluates to {@link Boolean#TRUE}.
+ * <p>
+ * Consecutive {@code equal} and {@code isIn} predicates on the same string column are answered with a single hash
+ * lookup, the other predicates are evaluated in order.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class PMMLFirstHitEvaluator {
+
+    private final PMMLPredicate[] m_predicates;
+
+    private final DataTableSpec m_spec;
+
+    private final Step[] m_steps;
+
+    /**
+     * @param predicates The conditions of the rules in order.
+     * @param spec The spec of the input rows.
+     */
+    PMMLFirstHitEvaluator(final List<PMMLPredicate> predicates, final DataTableSpec spec) {
+        m_predicates = predicates.toArray(new PMMLPredicate[predicates.size()]);
+        m_spec = spec;
+        List<Step> steps = new ArrayList<>();
+        HashBlock block = null;
+        for (int i = 0; i < m_predicates.length; i++) {
+            final PMMLPredicate predicate = m_predicates[i];
+            final List<String> keys = keys(predicate);
+            final int colIndex = keys == null ? -1 : spec.findColumnIndex(predicate.getSplitAttribute());
+            if (colIndex < 0 || !StringCell.TYPE.equals(spec.getColumnSpec(colIndex).getType())) {
+                block = null;
+                steps.add(new SinglePredicate(i));
+                continue;
+            }
+            if (block == null || block.m_colIndex != colIndex) {
+                block = new HashBlock(colIndex);
+                steps.add(block);
+            }
+            block.add(i, keys);
+        }
+        m_steps = steps.toArray(new Step[steps.size()]);
+    }
+
+    /**
+     * @param row An input row.
+     * @return The index of the first predicate that is {@link Boolean#TRUE} for {@code row}, or {@code -1}.
+     */
+    int firstHit(final DataRow row) {
+        for (Step step : m_steps) {
+            final int index = step.firstHit(row);
+            if (index >= 0) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isHit(final int index, final DataRow row) {
+        return m_predicates[index].evaluate(row, m_spec) == Boolean.TRUE;
+    }
+
+    /**
+     * @return the values a string cell is compared to by {@code predicate}, or {@code null} if {@code predicate} is
+     *         not a plain equality test.
+     */
+    private static List<String> keys(final PMMLPredicate predicate) {
+        final Class<?> cl = predicate.getClass();
+        if (cl == PMMLSimplePredicate.class || cl == PMMLRuleSimplePredicate.class) {
+            final String threshold = ((PMMLSimplePredicate)predicate).getThreshold();
+            if (predicate.getOperator() == PMMLOperator.EQUAL && threshold != null) {
+                final List<String> keys = new ArrayList<>(1);
+                keys.add(threshold);
+                return keys;
+            }
+        } else if (cl == PMMLSimpleSetPredicate.class) {
+            final PMMLSimpleSetPredicate setPredicate = (PMMLSimpleSetPredicate)predicate;
+            if (setPredicate.getSetOperator() == PMMLSetOperator.IS_IN
+                && setPredicate.getArrayType() == PMMLArrayType.STRING && setPredicate.getValues() != null) {
+                return new ArrayList<>(setPredicate.getValues());
+            }
+        }
+        return null;
+    }
+
+    private interface Step {
+        /** @return index of the first hit within this step, or {@code -1}. */
+        int firstHit(DataRow row);
+    }
+
+    private final class SinglePredicate implements Step {
+        private final int m_index;
+
+        SinglePredicate(final int index) {
+            m_index = index;
+        }
+
+        @Override
+        public int firstHit(final DataRow row) {
+            return isHit(m_index, row) ? m_index : -1;
+        }
+    }
+
+    /** Consecutive equality predicates on the same column. */
+    private final class HashBlock implements Step {
+        private final int m_colIndex;
+
+        private final Map<String, Integer> m_firstHit = new HashMap<>();
+
+        private final List<Integer> m_indices = new ArrayList<>();
+
+        HashBlock(final int colIndex) {
+            m_colIndex = colIndex;
+        }
+
+        void add(final int index, final List<String> keys) {
+            m_indices.add(index);
+            for (String key : keys) {
+                m_firstHit.putIfAbsent(key, index);
+            }
+        }
+
+        @Override
+        public int firstHit(final DataRow row) {
+            final DataCell cell = row.getCell(m_colIndex);
+            if (cell.isMissing()) {
+                // unknown for all of them
+                return -1;
+            }
+            if (cell.getClass() == StringCell.class) {
+                final Integer index = m_firstHit.get(((StringCell)cell).getStringValue());
+                return index == null ? -1 : index.intValue();
+            }
+            for (Integer index : m_indices) {
+                if (isHit(index, row)) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+    }
+}
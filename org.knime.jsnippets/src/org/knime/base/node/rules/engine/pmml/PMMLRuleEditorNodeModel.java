@@ -230,13 +230,17 @@ private ColumnRearranger createRearranger(final DataTableSpec tableSpec, final R
             new DataColumnSpecCreator(m_settings.isAppendColumn() ? DataTableSpec.getUniqueColumnName(tableSpec, m_settings.getNewColName())
                 : m_settings.getReplaceColumn(), outcomeType);
         specProto.setDomain(new DataColumnDomainCreator(toCells(outcomes, outcomeType)).createDomain());
+        final List<PMMLPredicate> conditions = new ArrayList<PMMLPredicate>(rules.size());
+        for (Pair<PMMLPredicate, Expression> pair : rules) {
+            conditions.add(pair.getFirst());
+        }
+        final PMMLFirstHitEvaluator evaluator = new PMMLFirstHitEvaluator(conditions, tableSpec);
         SingleCellFactory cellFactory = new SingleCellFactory(true, specProto.createSpec()) {
             @Override
             public DataCell getCell(final DataRow row) {
-                for (Pair<PMMLPredicate, Expression> pair : rules) {
-                    if (pair.getFirst().evaluate(row, tableSpec) == Boolean.TRUE) {
-                        return pair.getSecond().evaluate(row, null).getValue();
-                    }
+                final int index = evaluator.firstHit(row);
+                if (index >= 0) {
+                    return rules.get(index).getSecond().evaluate(row, null).getValue();
                 }
                 return DataType.getMissingCell();
             }
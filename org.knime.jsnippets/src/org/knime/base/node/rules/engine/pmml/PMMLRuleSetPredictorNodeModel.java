@@ -59,6 +59,7 @@
 import org.dmg.pmml.RuleSelectionMethodDocument.RuleSelectionMethod;
 import org.dmg.pmml.RuleSetModelDocument.RuleSetModel;
 import org.dmg.pmml.SimpleRuleDocument.SimpleRule;
+import org.knime.base.node.mine.decisiontree2.PMMLPredicate;
 import org.knime.base.node.rules.engine.pmml.PMMLRuleTranslator.Rule;
 import org.knime.core.data.BooleanValue;
 import org.knime.core.data.DataCell;
@@ -326,9 +327,16 @@ private static ColumnRearranger createRearranger(final PMMLPortObject obj, final
         final int oldColumnIndex = replaceColumn ? ret.indexOf(outputColumnName) : -1;
         ret.append(new AbstractCellFactory(processConcurrently, specs) {
             private final List<String> m_values;
+
+            private final PMMLFirstHitEvaluator m_firstHitEvaluator;
             {
                 Map<String, List<String>> dd = translator.getDataDictionary();
                 m_values = dd.get(targetCols.get(0).getName());
+                final List<PMMLPredicate> conditions = new ArrayList<>(rules.size());
+                for (final PMMLRuleTranslator.Rule rule : rules) {
+                    conditions.add(rule.getCondition());
+                }
+                m_firstHitEvaluator = new PMMLFirstHitEvaluator(conditions, spec);
             }
 
             /**
@@ -501,19 +509,18 @@ private DataCell result(final String outcome) {
              * @return The result and the confidence.
              */
             private Pair<DataCell, Double> selectFirstHit(final DataRow row) {
-                for (final PMMLRuleTranslator.Rule rule : rules) {
-                    Boolean eval = rule.getCondition().evaluate(row, spec);
-                    if (eval == Boolean.TRUE) {
-                        rule.setRecordCount(rule.getRecordCount() + 1);
-                        DataCell result = result(rule);
-                        if (validationColumnIdx >= 0) {
-                            if (row.getCell(validationColumnIdx).equals(result)) {
-                                rule.setNbCorrect(rule.getNbCorrect() + 1);
-                            }
+                final int index = m_firstHitEvaluator.firstHit(row);
+                if (index >= 0) {
+                    final PMMLRuleTranslator.Rule rule = rules.get(index);
+                    rule.setRecordCount(rule.getRecordCount() + 1);
+                    DataCell result = result(rule);
+                    if (validationColumnIdx >= 0) {
+                        if (row.getCell(validationColumnIdx).equals(result)) {
+                            rule.setNbCorrect(rule.getNbCorrect() + 1);
                         }
-                        Double confidence = rule.getConfidence();
-                        return pair(result, confidence == null ? defaultConfidence : confidence);
                     }
+                    Double confidence = rule.getConfidence();
+                    return pair(result, confidence == null ? defaultConfidence : confidence);
                 }
                 return pair(result(defaultScore), defaultConfidence);
             }
@@ -31,6 +31,7 @@
 import org.knime.base.node.rules.engine.RuleEngineNodeModel;
 import org.knime.base.node.rules.engine.RuleFactory;
 import org.knime.base.node.rules.engine.RuleNodeSettings;
+import org.knime.base.node.rules.engine.RuleSetEvaluator;
 import org.knime.base.node.rules.engine.RuleSupport;
 import org.knime.base.node.rules.engine.Util;
 import org.knime.base.node.rules.engine.VariableProvider;
@@ -321,13 +322,14 @@ private Pair<ColumnRearranger, PortObject> computeRearrangerWithoutPMML(final Da
         final MutableLong rowIndex = new MutableLong();
         final ExecutionMonitor exec = new ExecutionMonitor();
         final boolean disallowLongOutputForCompatibility = m_settings.isDisallowLongOutputForCompatibility();
+        final RuleSetEvaluator evaluator = new RuleSetEvaluator(ruleList, spec);
         VariableProvider.SingleCellFactoryProto fac = new VariableProvider.SingleCellFactoryProto(
             new DataColumnSpecCreator(outputColumnName, outType).createSpec()) {
             @Override
             public DataCell getCell(final DataRow row) {
                 setProgress(rowIndex.longValue(), m_rowCount, row.getKey(), exec);
                 rowIndex.increment();
-                return RuleEngineNodeModel.getRulesOutcome(outType, row, ruleList,
+                return RuleEngineNodeModel.getRulesOutcome(outType, row, evaluator,
                     disallowLongOutputForCompatibility, this);
             }
 
@@ -55,12 +55,12 @@
 import java.util.Map;
 
 import org.apache.commons.lang3.mutable.MutableLong;
-import org.knime.base.node.rules.engine.Condition.MatchOutcome.MatchState;
 import org.knime.base.node.rules.engine.RowAppenderRowOutput;
 import org.knime.base.node.rules.engine.Rule;
 import org.knime.base.node.rules.engine.RuleEngineNodeModel;
 import org.knime.base.node.rules.engine.RuleFactory;
 import org.knime.base.node.rules.engine.RuleNodeSettings;
+import org.knime.base.node.rules.engine.RuleSetEvaluator;
 import org.knime.base.node.rules.engine.Util;
 import org.knime.base.node.rules.engine.VariableProvider;
 import org.knime.core.data.BooleanValue;
@@ -458,6 +458,7 @@ public void runFinal(final PortInput[] inputs, final PortOutput[] outputs, final
                 }
                 final RowInput inputPartitions = (RowInput)inputs[DATA_PORT];
                 final List<Rule> rules = parseRules(inputPartitions.getDataTableSpec(), RuleNodeSettings.RuleFilter);
+                final RuleSetEvaluator evaluator = new RuleSetEvaluator(rules, inputPartitions.getDataTableSpec());
                 final RowOutput first = (RowOutput)outputs[0];
                 final int nrOutPorts = getNrOutPorts();
                 final RowOutput second = nrOutPorts > 1 ? (RowOutput)outputs[1] : new RowOutput() {
@@ -516,22 +517,17 @@ public long getRowIndexLong() {
                             exec.setMessage(() -> "Adding row " + rowIdx.longValue() + " of " + rows);
                         }
                         exec.checkCanceled();
-                        boolean wasMatch = false;
-                        for (Rule r : rules) {
-                            if (r.getCondition().matches(row, provider).getOutcome() == MatchState.matchedAndStop) {
-                                //                        r.getSideEffect().perform(row, provider);
-                                DataValue value = r.getOutcome().getComputedResult(row, provider);
-                                if (value instanceof BooleanValue) {
-                                    final BooleanValue bv = (BooleanValue)value;
-                                    containers[bv.getBooleanValue() ? matchIndex : otherIndex].push(row);
-                                } else {
-                                    containers[matchIndex].push(row);
-                                }
-                                wasMatch = true;
-                                break;
+                        final Rule r = evaluator.firstMatch(row, provider);
+                        if (r != null) {
+                            //                        r.getSideEffect().perform(row, provider);
+                            DataValue value = r.getOutcome().getComputedResult(row, provider);
+                            if (value instanceof BooleanValue) {
+                                final BooleanValue bv = (BooleanValue)value;
+                                containers[bv.getBooleanValue() ? matchIndex : otherIndex].push(row);
+                            } else {
+                                containers[matchIndex].push(row);
                             }
-                        }
-                        if (!wasMatch) {
+                        } else {
                             containers[otherIndex].push(row);
                         }
                     }
@@ -48,6 +48,7 @@
  */
 package org.knime.timeseries.node.movagg;
 
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
@@ -58,12 +59,15 @@
 import org.knime.base.data.aggregation.AggregationOperator;
 import org.knime.base.data.aggregation.ColumnAggregator;
 import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.base.data.aggregation.WindowAggregator;
 import org.knime.base.node.preproc.groupby.ColumnNamePolicy;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
+import org.knime.core.data.MissingCell;
+import org.knime.core.data.RowKey;
 import org.knime.core.data.container.CellFactory;
 import org.knime.core.data.container.ColumnRearranger;
 import org.knime.core.data.def.DefaultRow;
@@ -74,8 +78,9 @@
 import org.knime.core.node.ExecutionMonitor;
 
 /**
- * {@link CellFactory} implementation of the Moving Aggregation node. The factory takes care of caching the rows
- * within the window and the calculation of the selected aggregation values.
+ * {@link CellFactory} implementation of the Moving Aggregation node. The factory takes care of the window and the
+ * calculation of the selected aggregation values, which are updated incrementally for all operators that provide a
+ * {@link WindowAggregator}.
  *
  *  @author Tobias Koetter, KNIME AG, Zurich, Switzerland
  *  @since 2.10
@@ -218,64 +223,43 @@ private BufferedDataTable getCumulativeTable(final ExecutionContext exec, final
     private BufferedDataTable getForwardTable(final ExecutionMonitor exec, final BufferedDataTable table,
         final BufferedDataContainer dc) throws CanceledExecutionException {
         final int rowCount = table.getRowCount();
-        final LinkedList<DataRow> window = new LinkedList<>();
+        final Window window = new Window();
+        //the rows of the window whose result is not yet computed
+        final ArrayDeque<PendingRow> pending = new ArrayDeque<>();
         int rowIdx = 0;
         for (final DataRow row : table) {
             exec.setProgress(rowIdx / (double) rowCount, "Processing row " + rowIdx++ + " of " + rowCount);
             exec.checkCanceled();
             window.add(row);
+            pending.add(new PendingRow(row));
             final boolean windowFull = window.size() >= m_windowLength;
             if (!windowFull) {
                 //we have to fill the window first
                 continue;
             }
-            final DataCell[] cells = new DataCell[m_ops.length + m_cols2KeepIdxs.length];
-            final DataRow firstRow = window.getFirst();
-            int idx = 0;
-            //handle the retained columns
-            for (final int colIdx : m_cols2KeepIdxs) {
-                cells[idx++] = firstRow.getCell(colIdx);
-            }
+            final PendingRow firstRow = pending.removeFirst();
             for (int i = 0, length = m_ops.length; i < length; i++) {
-                final int colIdx = m_aggrColIdxs[i];
-                final AggregationOperator op = m_ops[i];
-                for (final DataRow windowRow : window) {
-                    op.compute(windowRow, colIdx);
-                }
-                cells[idx++] = op.getResult();
-                op.reset();
+                firstRow.setResult(i, window.getResult(i));
             }
-            dc.addRowToTable(new DefaultRow(firstRow.getKey(), cells));
+            dc.addRowToTable(firstRow.createRow());
             //remove the first row only when the window is full
             //not during the missing value handling phase!
             window.removeFirst();
         }
         //we have to handle the remaining rows in the window
-        while (!window.isEmpty()) {
+        while (!pending.isEmpty()) {
             exec.checkCanceled();
-            final DataCell[] cells = new DataCell[m_ops.length + m_cols2KeepIdxs.length];
-            int idx = 0;
-            final DataRow firstRow = window.getFirst();
-            //handle the retained columns
-            for (final int colIdx : m_cols2KeepIdxs) {
-                cells[idx++] = firstRow.getCell(colIdx);
-            }
+            final PendingRow firstRow = pending.removeFirst();
             for (int i = 0, length = m_ops.length; i < length; i++) {
                 if (m_handleMissings) {
-                    final int colIdx = m_aggrColIdxs[i];
-                    final AggregationOperator op = m_ops[i];
-                    for (final DataRow windowRow : window) {
-                        op.compute(windowRow, colIdx);
-                    }
-                    cells[idx++] = op.getResult();
-                    op.reset();
+                    firstRow.setResult(i, window.getResult(i));
                 } else {
                     //the window is not yet full return missing cells
-                    cells[idx++] = DataType.getMissingCell();
+                    firstRow.setResult(i, DataType.getMissingCell());
                 }
             }
             window.removeFirst();
-            dc.addRowToTable(new DefaultRow(firstRow.getKey(), cells));
+            dc.addRowToTable(firstRow.createRow());
         }
         dc.close();
         return dc.getTable();
@@ -283,42 +267,30 @@ private BufferedDataTable getForwardTable(final ExecutionMonitor exec, final Buf
     private BufferedDataTable getCenterTable(final ExecutionMonitor exec, final BufferedDataTable table,
         final BufferedDataContainer dc) throws CanceledExecutionException {
         final int rowCount = table.getRowCount();
-        final LinkedList<DataRow> window = new LinkedList<>();
+        final Window window = new Window();
+        //the rows from the center to the end of the window
+        final ArrayDeque<PendingRow> pending = new ArrayDeque<>();
         int rowIdx = 0;
-        int centerIdx = -1;
         for (final DataRow row : table) {
             exec.setProgress(rowIdx / (double) rowCount, "Processing row " + rowIdx++ + " of " + rowCount);
             exec.checkCanceled();
             window.add(row);
-            //we have to subtract 1 since the indexing of the array starts with 0
-            centerIdx = window.size() - m_windowLength / 2 - 1;
-            if (centerIdx < 0) {
+            pending.add(new PendingRow(row));
+            if (pending.size() <= m_windowLength / 2) {
                 //we have to fill the window first
                 continue;
             }
-            final DataCell[] cells = new DataCell[m_ops.length + m_cols2KeepIdxs.length];
-            final DataRow centerRow = window.get(centerIdx);
-            int idx = 0;
-            //handle the retained columns
-            for (final int colIdx : m_cols2KeepIdxs) {
-                cells[idx++] = centerRow.getCell(colIdx);
-            }
+            final PendingRow centerRow = pending.removeFirst();
             final boolean windowFull = window.size() >= m_windowLength;
             for (int i = 0, length = m_ops.length; i < length; i++) {
                 if (windowFull || m_handleMissings) {
-                    final int colIdx = m_aggrColIdxs[i];
-                    final AggregationOperator op = m_ops[i];
-                    for (final DataRow windowRow : window) {
-                        op.compute(windowRow, colIdx);
-                    }
-                    cells[idx++] = op.getResult();
-                    op.reset();
+                    centerRow.setResult(i, window.getResult(i));
                 } else {
                     //the window is not yet full return missing cells
-                    cells[idx++] = DataType.getMissingCell();
+                    centerRow.setResult(i, DataType.getMissingCell());
                 }
             }
-            dc.addRowToTable(new DefaultRow(centerRow.getKey(), cells));
+            dc.addRowToTable(centerRow.createRow());
             //remove the first row only when the window is full
             //not during the missing value handling phase!
             if (windowFull) {
@@ -326,31 +298,19 @@ private BufferedDataTable getCenterTable(final ExecutionMonitor exec, final Buff
             }
         }
         //we have to handle the remaining rows in the window
-        while (window.size() > centerIdx) {
+        while (!pending.isEmpty()) {
             exec.checkCanceled();
-            final DataCell[] cells = new DataCell[m_ops.length + m_cols2KeepIdxs.length];
-            int idx = 0;
-            final DataRow centerRow = window.get(centerIdx);
-            //handle the retained columns
-            for (final int colIdx : m_cols2KeepIdxs) {
-                cells[idx++] = centerRow.getCell(colIdx);
-            }
+            final PendingRow centerRow = pending.removeFirst();
             for (int i = 0, length = m_ops.length; i < length; i++) {
                 if (m_handleMissings) {
-                    final int colIdx = m_aggrColIdxs[i];
-                    final AggregationOperator op = m_ops[i];
-                    for (final DataRow windowRow : window) {
-                        op.compute(windowRow, colIdx);
-                    }
-                    cells[idx++] = op.getResult();
-                    op.reset();
+                    centerRow.setResult(i, window.getResult(i));
                 } else {
                     //the window is not yet full return missing cells
-                    cells[idx++] = DataType.getMissingCell();
+                    centerRow.setResult(i, DataType.getMissingCell());
                 }
             }
             window.removeFirst();
-            dc.addRowToTable(new DefaultRow(centerRow.getKey(), cells));
+            dc.addRowToTable(centerRow.createRow());
         }
         dc.close();
         return dc.getTable();
@@ -361,32 +321,20 @@ private BufferedDataTable getCenterTable(final ExecutionMonitor exec, final Buff
     private BufferedDataTable getBackwardTable(final ExecutionMonitor exec, final BufferedDataTable table,
         final BufferedDataContainer dc) throws CanceledExecutionException {
         final int rowCount = table.getRowCount();
-        final LinkedList<DataRow> window = new LinkedList<>();
+        final Window window = new Window();
         int rowIdx = 0;
         for (final DataRow row : table) {
             exec.setProgress(rowIdx / (double) rowCount, "Processing row " + rowIdx++ + " of " + rowCount);
             exec.checkCanceled();
             window.add(row);
-            final DataCell[] cells = new DataCell[m_ops.length + m_cols2KeepIdxs.length];
-            int idx = 0;
-            //handle the retained columns
-            for (final int colIdx : m_cols2KeepIdxs) {
-                cells[idx++] = row.getCell(colIdx);
-            }
+            final PendingRow resultRow = new PendingRow(row);
             final boolean windowFull = window.size() >= m_windowLength;
             for (int i = 0, length = m_ops.length; i < length; i++) {
                 if (windowFull || m_handleMissings) {
-                    final int colIdx = m_aggrColIdxs[i];
-                    final AggregationOperator op = m_ops[i];
-
-                    for (final DataRow windowRow : window) {
-                        op.compute(windowRow, colIdx);
-                    }
-                    cells[idx++] = op.getResult();
-                    op.reset();
+                    resultRow.setResult(i, window.getResult(i));
                 } else {
                     //the window is not yet full return missing cells
-                    cells[idx++] = DataType.getMissingCell();
+                    resultRow.setResult(i, DataType.getMissingCell());
                 }
             }
             if (windowFull) {
@@ -394,12 +342,112 @@ private BufferedDataTable getBackwardTable(final ExecutionMonitor exec, final Bu
                 //not during the missing value handling phase!
                 window.removeFirst();
             }
-            dc.addRowToTable(new DefaultRow(row.getKey(), cells));
+            dc.addRowToTable(resultRow.createRow());
         }
         dc.close();
         return dc.getTable();
     }
 
+    /**
+     * The rows within the aggregation window. Operators that provide a
+     * {@link WindowAggregator} update their result incrementally while rows
+     * enter and leave the window. Only if some operator does not support this
+     * are the rows kept to compute its result from all rows of the window.
+     */
+    private final class Window {
+
+        private final WindowAggregator[] m_aggregators = new WindowAggregator[m_ops.length];
+
+        private final LinkedList<DataRow> m_rows;
+
+        private int m_size = 0;
+
+        Window() {
+            boolean keepRows = false;
+            for (int i = 0, length = m_ops.length; i < length; i++) {
+                if (m_aggrColIdxs[i] >= 0) {
+                    m_aggregators[i] = m_ops[i].createWindowAggregator(m_windowLength);
+                }
+                keepRows |= m_aggregators[i] == null;
+            }
+            m_rows = keepRows ? new LinkedList<>() : null;
+        }
+
+        void add(final DataRow row) {
+            for (int i = 0, length = m_aggregators.length; i < length; i++) {
+                if (m_aggregators[i] != null) {
+                    m_aggregators[i].add(row.getCell(m_aggrColIdxs[i]));
+                }
+            }
+            if (m_rows != null) {
+                m_rows.add(row);
+            }
+            m_size++;
+        }
+
+        void removeFirst() {
+            for (final WindowAggregator aggregator : m_aggregators) {
+                if (aggregator != null) {
+                    aggregator.removeFirst();
+                }
+            }
+            if (m_rows != null) {
+                m_rows.removeFirst();
+            }
+            m_size--;
+        }
+
+        int size() {
+            return m_size;
+        }
+
+        DataCell getResult(final int opIdx) {
+            if (m_aggregators[opIdx] != null) {
+                return m_aggregators[opIdx].getResult();
+            }
+            final int colIdx = m_aggrColIdxs[opIdx];
+            final AggregationOperator op = m_ops[opIdx];
+            for (final DataRow windowRow : m_rows) {
+                op.compute(windowRow, colIdx);
+            }
+            DataCell result = op.getResult();
+            if (op.isSkipped()) {
+                //keep the reason as the skipped state is lost on reset
+                result = new MissingCell(op.getSkipMessage());
+            }
+            op.reset();
+            return result;
+        }
+    }
+
+    /**
+     * A row of the result table, which holds the retained cells of an input
+     * row until the aggregation results are set.
+     */
+    private final class PendingRow {
+
+        private final RowKey m_key;
+
+        private final DataCell[] m_cells = new DataCell[m_ops.length + m_cols2KeepIdxs.length];
+
+        PendingRow(final DataRow row) {
+            m_key = row.getKey();
+            int idx = 0;
+            //handle the retained columns
+            for (final int colIdx : m_cols2KeepIdxs) {
+                m_cells[idx++] = row.getCell(colIdx);
+            }
+        }
+
+        void setResult(final int opIdx, final DataCell result) {
+            m_cells[m_cols2KeepIdxs.length + opIdx] = result;
+        }
+
+        DataRow createRow() {
+            return new DefaultRow(m_key, m_cells);
+        }
+    }
+
 
 
     /**